@@ -0,0 +1,103 @@
+package org.goplanit.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.goplanit.benchmark.SyntheticNetworkScenario.NetworkType;
+import org.goplanit.cost.physical.BprLinkTravelTimeCost;
+import org.goplanit.interactor.LinkVolumeAccessee;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.network.layer.physical.LinkSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark populating BPR costs for all link segments of a synthetic network given seeded random link segment volumes
+ *
+ * @author markr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BprLinkTravelTimeCostBenchmark {
+
+  /** network type to generate */
+  @Param({ "GRID", "PLANAR" })
+  public NetworkType networkType;
+
+  /** number of rows and columns of the grid underlying the network */
+  @Param({ "50", "150" })
+  public int size;
+
+  /** scenario */
+  private SyntheticNetworkScenario scenario;
+
+  /** the cost */
+  private BprLinkTravelTimeCost bprCost;
+
+  /** costs to populate */
+  private double[] costs;
+
+  /**
+   * Generate the network and initialise the BPR cost with random volumes
+   *
+   * @throws PlanItException thrown if error
+   */
+  @Setup
+  public void setup() throws PlanItException {
+    this.scenario = new SyntheticNetworkScenario(networkType, size, 5, 10, 42);
+    final var transportNetwork = scenario.createIntegratedTransportNetwork();
+    this.costs = new double[(int) transportNetwork.getNumberOfEdgeSegmentsAllLayers()];
+
+    final Random random = new Random(42);
+    final double[] volumes = new double[costs.length];
+    for (int index = 0; index < volumes.length; ++index) {
+      volumes[index] = random.nextDouble() * 2000;
+    }
+
+    this.bprCost = new BprLinkTravelTimeCost(IdGenerator.createIdGroupingToken(BprLinkTravelTimeCostBenchmark.class.getCanonicalName()));
+    bprCost.initialiseBeforeSimulation(scenario.getNetwork());
+    bprCost.setAccessee(new LinkVolumeAccessee() {
+
+      @Override
+      public <T> T getTrafficAssignmentComponent(Class<T> planitComponentClass) {
+        return null;
+      }
+
+      @Override
+      public double getLinkSegmentVolume(LinkSegment linkSegment) {
+        return volumes[(int) linkSegment.getId()];
+      }
+
+      @Override
+      public double[] getLinkSegmentVolumes() {
+        return volumes;
+      }
+    });
+  }
+
+  /**
+   * Populate costs for all link segments
+   *
+   * @return populated costs
+   */
+  @Benchmark
+  public double[] populateWithCost() {
+    bprCost.populateWithCost(scenario.getNetworkLayer(), scenario.getMode(), costs);
+    return costs;
+  }
+}
@@ -0,0 +1,235 @@
+package org.goplanit.benchmark;
+
+import java.util.Random;
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.network.layer.NetworkLayerGenerator;
+import org.goplanit.network.layer.macroscopic.AccessGroupPropertiesFactory;
+import org.goplanit.network.layer.macroscopic.MacroscopicGridNetworkLayerGenerator;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layers.MacroscopicNetworkLayers;
+import org.goplanit.utils.unit.Unit;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Generate a random planar network layer for specified modes. Nodes are placed on a grid with 1 km spacing and randomly displaced by at most a quarter of the spacing in each
+ * direction, so each grid cell remains convex. Links follow the grid where horizontal links (other than those of the first row) are dropped with a given probability, while all
+ * vertical links are kept so the layer remains strongly connected. Each cell is given one of its two diagonals with a given probability, which cannot cross any other link and
+ * therefore keeps the layer planar. Link lengths are based on the Euclidean distance between their nodes. Node ids follow the same column-by-column ordering as
+ * {@link MacroscopicGridNetworkLayerGenerator} and a single link segment type named "default" is created. Only used to generate benchmark networks.
+ *
+ * @author markr
+ *
+ */
+public class MacroscopicRandomPlanarNetworkLayerGenerator implements NetworkLayerGenerator {
+
+  /** Logger to use */
+  private static final Logger LOGGER = Logger.getLogger(MacroscopicRandomPlanarNetworkLayerGenerator.class.getCanonicalName());
+
+  /** maximum displacement of nodes as a fraction of the grid spacing */
+  private static final double MAX_DISPLACEMENT_FRACTION = 0.25;
+
+  /**
+   * num rows in grid
+   */
+  private final int rows;
+
+  /**
+   * num cols in grid
+   */
+  private final int columns;
+
+  /**
+   * probability of dropping a horizontal link
+   */
+  private final double dropProbability;
+
+  /**
+   * probability of adding a diagonal link to a cell
+   */
+  private final double diagonalProbability;
+
+  /**
+   * random generator, seeded so layers are reproducible
+   */
+  private final Random random;
+
+  /**
+   * container to register layer on
+   */
+  private final MacroscopicNetworkLayers layersContainer;
+
+  /** supported modes */
+  private final Mode[] modes;
+
+  /**
+   * Create the randomly displaced nodes
+   *
+   * @param networkLayer to use
+   * @param geoFactory   to use
+   * @throws PlanItException thrown if error
+   */
+  private void createNodes(MacroscopicNetworkLayer networkLayer, final GeometryFactory geoFactory) throws PlanItException {
+    final double spacingMeters = Unit.KM.convertTo(Unit.METER, 1);
+    for (int colIndex = 0; colIndex < columns; ++colIndex) {
+      for (int rowIndex = 0; rowIndex < rows; ++rowIndex) {
+        double xMeters = spacingMeters * (colIndex + MAX_DISPLACEMENT_FRACTION * (2 * random.nextDouble() - 1));
+        double yMeters = spacingMeters * (rowIndex + MAX_DISPLACEMENT_FRACTION * (2 * random.nextDouble() - 1));
+        var node = networkLayer.getNodes().getFactory().registerNew();
+        node.setPosition(geoFactory.createPoint(new Coordinate(xMeters, yMeters)));
+        node.setXmlId(String.valueOf(node.getId()));
+      }
+    }
+  }
+
+  /**
+   * Create a link between two nodes with its length based on the Euclidean distance
+   *
+   * @param networkLayer to use
+   * @param nodeAId      id of node A
+   * @param nodeBId      id of node B
+   */
+  private void createLink(MacroscopicNetworkLayer networkLayer, long nodeAId, long nodeBId) {
+    Node nodeA = networkLayer.getNodes().get(nodeAId);
+    Node nodeB = networkLayer.getNodes().get(nodeBId);
+    double lengthKm = Unit.METER.convertTo(Unit.KM, nodeA.getPosition().distance(nodeB.getPosition()));
+    var newLink = networkLayer.getLinks().getFactory().registerNew(nodeA, nodeB, lengthKm, true /* register on node */);
+    if (newLink == null) {
+      LOGGER.severe(String.format("Unable to create link for nodes with internal ids (A:%d, B:%d)", nodeAId, nodeBId));
+      return;
+    }
+    newLink.setXmlId(String.valueOf(newLink.getId()));
+  }
+
+  /**
+   * Create the vertical links, the remaining horizontal links and the diagonals
+   *
+   * @param networkLayer to use
+   * @throws PlanItException thrown if error
+   */
+  private void createLinks(MacroscopicNetworkLayer networkLayer) throws PlanItException {
+    /* vertical links, always present */
+    for (int colIndex = 0; colIndex < columns; ++colIndex) {
+      for (int rowIndex = 1; rowIndex < rows; ++rowIndex) {
+        long nodeAId = (long) colIndex * rows + rowIndex - 1;
+        createLink(networkLayer, nodeAId, nodeAId + 1);
+      }
+    }
+
+    /* horizontal links, first row always present */
+    for (int colIndex = 0; colIndex < columns - 1; ++colIndex) {
+      for (int rowIndex = 0; rowIndex < rows; ++rowIndex) {
+        if (rowIndex > 0 && random.nextDouble() < dropProbability) {
+          continue;
+        }
+        long nodeAId = (long) colIndex * rows + rowIndex;
+        createLink(networkLayer, nodeAId, nodeAId + rows);
+      }
+    }
+
+    /* diagonals, at most one per cell */
+    for (int colIndex = 0; colIndex < columns - 1; ++colIndex) {
+      for (int rowIndex = 0; rowIndex < rows - 1; ++rowIndex) {
+        if (random.nextDouble() >= diagonalProbability) {
+          continue;
+        }
+        long lowerLeftId = (long) colIndex * rows + rowIndex;
+        if (random.nextBoolean()) {
+          createLink(networkLayer, lowerLeftId, lowerLeftId + rows + 1);
+        } else {
+          createLink(networkLayer, lowerLeftId + 1, lowerLeftId + rows);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the link segments for all links in both directions
+   *
+   * @param networkLayer to use
+   * @throws PlanItException thrown if error
+   */
+  private void createLinkSegments(MacroscopicNetworkLayer networkLayer) throws PlanItException {
+    var defaultLinkSegmentType = networkLayer.getLinkSegmentTypes().getFirst();
+    boolean registerOnNodes = true;
+    for (var link : networkLayer.getLinks()) {
+      var linkSegment = networkLayer.getLinkSegments().getFactory().registerNew(link, defaultLinkSegmentType, true /* A->B */, registerOnNodes);
+      linkSegment.setXmlId(String.valueOf(linkSegment.getId()));
+      linkSegment = networkLayer.getLinkSegments().getFactory().registerNew(link, defaultLinkSegmentType, false /* B->A */, registerOnNodes);
+      linkSegment.setXmlId(String.valueOf(linkSegment.getId()));
+    }
+  }
+
+  /**
+   * Create the default link segment type on the given layer, supported modes are registered but nothing else
+   *
+   * @param networkLayer to register on
+   */
+  private void createDefaultLinkSegmentType(final MacroscopicNetworkLayer networkLayer) {
+    final var linkSegmentType = networkLayer.getLinkSegmentTypes().getFactory().registerNew(MacroscopicGridNetworkLayerGenerator.PHYSICAL_LINK_SEGMENT_TYPE_NAME);
+    linkSegmentType.addAccessGroupProperties(AccessGroupPropertiesFactory.create(modes));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param rows                to use
+   * @param columns             to use
+   * @param dropProbability     probability of dropping a horizontal link
+   * @param diagonalProbability probability of adding a diagonal to a cell
+   * @param seed                for the random generator
+   * @param layersContainer     to use
+   * @param modes               to support
+   */
+  protected MacroscopicRandomPlanarNetworkLayerGenerator(int rows, int columns, double dropProbability, double diagonalProbability, long seed,
+      final MacroscopicNetworkLayers layersContainer, final Mode... modes) {
+    this.rows = rows;
+    this.columns = columns;
+    this.dropProbability = dropProbability;
+    this.diagonalProbability = diagonalProbability;
+    this.random = new Random(seed);
+    this.layersContainer = layersContainer;
+    this.modes = modes;
+  }
+
+  /**
+   * Generate a macroscopic network layer based on the configuration
+   */
+  @Override
+  public MacroscopicNetworkLayer generate() {
+    var networkLayer = layersContainer.getFactory().registerNew(modes);
+    createDefaultLinkSegmentType(networkLayer);
+    try {
+      createNodes(networkLayer, JTSFactoryFinder.getGeometryFactory());
+      createLinks(networkLayer);
+      createLinkSegments(networkLayer);
+    } catch (Exception e) {
+      LOGGER.severe(e.getMessage());
+      LOGGER.severe("Unable to populate random planar macroscopic network layer");
+    }
+    return networkLayer;
+  }
+
+  /**
+   * Create the generator. It is assumed that the layer has coordinates in Cartesian form in meters. A single link segment type is created with the name "default" but without
+   * setting capacity, max density or access group information. This is left to the invoker of this method to further specify.
+   *
+   * @param rows                to use
+   * @param columns             to use
+   * @param dropProbability     probability of dropping a horizontal link
+   * @param diagonalProbability probability of adding a diagonal to a cell
+   * @param seed                for the random generator
+   * @param layersContainer     to register on
+   * @param modes               to support
+   * @return created generator
+   */
+  public static MacroscopicRandomPlanarNetworkLayerGenerator create(int rows, int columns, double dropProbability, double diagonalProbability, long seed,
+      final MacroscopicNetworkLayers layersContainer, final Mode... modes) {
+    return new MacroscopicRandomPlanarNetworkLayerGenerator(rows, columns, dropProbability, diagonalProbability, seed, layersContainer, modes);
+  }
+}
@@ -0,0 +1,36 @@
+package org.goplanit.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run all benchmarks in this package (or those matching a regular expression) and write the results in JSON form so they can be compared across runs
+ * <p>
+ * Arguments: [result file (default target/jmh-result.json)] [benchmark regular expression (default all benchmarks in this package)]
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class PlanitBenchmarkRunner {
+
+  /** default location of the results */
+  public static final String DEFAULT_RESULT_FILE = "target/jmh-result.json";
+
+  /**
+   * Run the benchmarks
+   *
+   * @param args optional result file and benchmark regular expression
+   * @throws RunnerException thrown if error
+   */
+  public static void main(String[] args) throws RunnerException {
+    final String resultFile = args.length > 0 ? args[0] : DEFAULT_RESULT_FILE;
+    final String include = args.length > 1 ? args[1] : PlanitBenchmarkRunner.class.getPackageName() + "\\..*Benchmark";
+
+    final Options options = new OptionsBuilder().include(include).resultFormat(ResultFormatType.JSON).result(resultFile).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,124 @@
+package org.goplanit.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.geotools.referencing.factory.epsg.CartesianAuthorityFactory;
+import org.goplanit.algorithms.shortest.ShortestBushGeneralised;
+import org.goplanit.algorithms.shortest.ShortestBushResult;
+import org.goplanit.algorithms.shortest.ShortestPathAStar;
+import org.goplanit.algorithms.shortest.ShortestPathDijkstra;
+import org.goplanit.algorithms.shortest.ShortestPathResult;
+import org.goplanit.benchmark.SyntheticNetworkScenario.NetworkType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.network.virtual.CentroidVertex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark one-to-all Dijkstra, one-to-one A* and one-to-all shortest bush searches on synthetic networks with free flow costs. Origins (and destinations) cycle through all
+ * centroids so consecutive invocations do not search from the same origin.
+ *
+ * @author markr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShortestPathBenchmark {
+
+  /** network type to generate */
+  @Param({ "GRID", "PLANAR" })
+  public NetworkType networkType;
+
+  /** number of rows and columns of the grid underlying the network */
+  @Param({ "50", "150" })
+  public int size;
+
+  /** dijkstra search */
+  private ShortestPathDijkstra dijkstra;
+
+  /** A* search */
+  private ShortestPathAStar aStar;
+
+  /** shortest bush search */
+  private ShortestBushGeneralised shortestBush;
+
+  /** centroids to search from and to */
+  private List<CentroidVertex> centroidVertices;
+
+  /** index of the next origin */
+  private int originIndex;
+
+  /**
+   * Next origin to search from
+   *
+   * @return origin
+   */
+  private CentroidVertex nextOrigin() {
+    originIndex = (originIndex + 1) % centroidVertices.size();
+    return centroidVertices.get(originIndex);
+  }
+
+  /**
+   * Generate the network and construct the searches on its free flow costs
+   *
+   * @throws PlanItException thrown if error
+   */
+  @Setup
+  public void setup() throws PlanItException {
+    var scenario = new SyntheticNetworkScenario(networkType, size, 5, 10, 42);
+    var transportNetwork = scenario.createIntegratedTransportNetwork();
+    double[] costs = scenario.createFreeFlowCosts(transportNetwork);
+    int numberOfVertices = (int) transportNetwork.getNumberOfVerticesAllLayers();
+
+    this.centroidVertices = scenario.collectCentroidVertices(transportNetwork);
+    this.dijkstra = new ShortestPathDijkstra(costs, numberOfVertices);
+    this.aStar = new ShortestPathAStar(costs, numberOfVertices, CartesianAuthorityFactory.GENERIC_2D, 1 / SyntheticNetworkScenario.MAX_SPEED_KM_H);
+    this.shortestBush = new ShortestBushGeneralised(costs, numberOfVertices);
+  }
+
+  /**
+   * One-to-all Dijkstra
+   *
+   * @return result
+   */
+  @Benchmark
+  public ShortestPathResult dijkstraOneToAll() {
+    return dijkstra.executeOneToAll(nextOrigin());
+  }
+
+  /**
+   * One-to-one A* between an origin and the centroid halfway around the list of centroids
+   *
+   * @return result
+   */
+  @Benchmark
+  public ShortestPathResult aStarOneToOne() {
+    var origin = nextOrigin();
+    var destination = centroidVertices.get((originIndex + centroidVertices.size() / 2) % centroidVertices.size());
+    return aStar.executeOneToOne(origin, destination);
+  }
+
+  /**
+   * One-to-all shortest bush
+   *
+   * @return result
+   */
+  @Benchmark
+  public ShortestBushResult shortestBushOneToAll() {
+    return shortestBush.executeOneToAll(nextOrigin());
+  }
+}
@@ -0,0 +1,86 @@
+package org.goplanit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.goplanit.assignment.ltm.sltm.StaticLtm;
+import org.goplanit.assignment.ltm.sltm.StaticLtmConfigurator;
+import org.goplanit.assignment.ltm.sltm.StaticLtmTrafficAssignmentBuilder;
+import org.goplanit.assignment.ltm.sltm.StaticLtmType;
+import org.goplanit.benchmark.SyntheticNetworkScenario.NetworkType;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark an sLTM assignment for a fixed number of iterations on a synthetic network, i.e., creation of the initial solution and the subsequent network loadings and route
+ * choice updates. Assignments are built outside of the measurement on a freshly generated (identical) scenario per invocation.
+ *
+ * @author markr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StaticLtmBenchmark {
+
+  /** network type to generate */
+  @Param({ "GRID", "PLANAR" })
+  public NetworkType networkType;
+
+  /** number of rows and columns of the grid underlying the network */
+  @Param({ "20", "100" })
+  public int size;
+
+  /** number of iterations */
+  @Param({ "1" })
+  public int iterations;
+
+  /** sLTM type */
+  @Param({ "ORIGIN_BUSH_BASED", "DESTINATION_BUSH_BASED", "PATH_BASED" })
+  public StaticLtmType type;
+
+  /** assignment to execute */
+  private StaticLtm assignment;
+
+  /**
+   * Build the assignment on a freshly generated scenario
+   *
+   * @throws PlanItException thrown if error
+   */
+  @Setup(Level.Invocation)
+  public void setup() throws PlanItException {
+    /* zones become sparser on larger networks, so the number of origins, and thus bushes or paths, remains limited */
+    var scenario = new SyntheticNetworkScenario(networkType, size, Math.max(4, size / 5), 50, 42);
+    var builder = new StaticLtmTrafficAssignmentBuilder(scenario.getNetwork().getIdGroupingToken(), null, scenario.getDemands(), scenario.getZoning(), scenario.getNetwork());
+    builder.getConfigurator().deactivateOutput(OutputType.LINK);
+    ((StaticLtmConfigurator) builder.getConfigurator()).setType(type);
+    this.assignment = builder.build();
+    assignment.getGapFunction().getStopCriterion().setMaxIterations(iterations);
+  }
+
+  /**
+   * Execute the assignment
+   *
+   * @return executed assignment
+   * @throws PlanItException thrown if error
+   */
+  @Benchmark
+  public StaticLtm execute() throws PlanItException {
+    assignment.execute();
+    return assignment;
+  }
+}
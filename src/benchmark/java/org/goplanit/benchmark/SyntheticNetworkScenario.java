@@ -0,0 +1,241 @@
+package org.goplanit.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.goplanit.demands.Demands;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.transport.TransportModelNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.virtual.CentroidVertex;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Synthetic benchmark scenario consisting of a generated network (grid or random planar), a zoning with a zone attached to every n-th node in both directions and seeded random
+ * demand between all zones for a single one hour time period. Scenarios with the same settings are identical.
+ *
+ * @author markr
+ *
+ */
+public class SyntheticNetworkScenario {
+
+  /** Supported network types */
+  public enum NetworkType {
+    /** regular grid */
+    GRID,
+    /** random planar network */
+    PLANAR;
+  }
+
+  /** maximum speed on all link segments */
+  public static final double MAX_SPEED_KM_H = 60.0;
+
+  /** probability of dropping a horizontal link in planar networks */
+  private static final double PLANAR_DROP_PROBABILITY = 0.2;
+
+  /** probability of adding a diagonal link to a cell in planar networks */
+  private static final double PLANAR_DIAGONAL_PROBABILITY = 0.3;
+
+  /** id token */
+  private final IdGroupingToken token;
+
+  /** the network */
+  private final MacroscopicNetwork network;
+
+  /** the only layer */
+  private final MacroscopicNetworkLayer networkLayer;
+
+  /** the zoning */
+  private final Zoning zoning;
+
+  /** the demands */
+  private final Demands demands;
+
+  /** the car mode */
+  private final Mode mode;
+
+  /**
+   * Create a macroscopic network with a random planar network layer for the predefined car mode, where each link is bi-directional and has a single link segment type with access
+   * for car (nothing else set). See {@link MacroscopicRandomPlanarNetworkLayerGenerator} for details on how the layer is generated
+   *
+   * @param size of the underlying grid in both directions
+   * @param seed for the random generator
+   * @return created random planar network
+   */
+  private MacroscopicNetwork createRandomPlanarNetwork(int size, long seed) {
+    var newNetwork = new MacroscopicNetwork(token);
+    var carMode = newNetwork.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+    MacroscopicRandomPlanarNetworkLayerGenerator.create(size, size, PLANAR_DROP_PROBABILITY, PLANAR_DIAGONAL_PROBABILITY, seed, newNetwork.getTransportLayers(), carMode)
+        .generate();
+    return newNetwork;
+  }
+
+  /**
+   * Create the zoning with zones attached to every zoneSpacing-th node in both directions
+   *
+   * @param size        of the grid underlying the network
+   * @param zoneSpacing in number of nodes
+   * @return zoning
+   */
+  private Zoning createZoning(int size, int zoneSpacing) {
+    var newZoning = new Zoning(token, networkLayer.getLayerIdGroupingToken());
+    for (int colIndex = 0; colIndex < size; colIndex += zoneSpacing) {
+      for (int rowIndex = 0; rowIndex < size; rowIndex += zoneSpacing) {
+        var node = networkLayer.getNodes().get((long) colIndex * size + rowIndex);
+        var zone = newZoning.getOdZones().getFactory().registerNew();
+        zone.setXmlId(String.valueOf(zone.getId()));
+        zone.getCentroid().setPosition(node.getPosition());
+        newZoning.getOdConnectoids().getFactory().registerNew(node, zone, 0);
+      }
+    }
+    return newZoning;
+  }
+
+  /**
+   * Create the demands with random OD demand between all zones for a single time period
+   *
+   * @param maxOdDemandPcuH maximum demand per OD pair
+   * @param seed            for the random generator
+   * @return demands
+   * @throws PlanItException thrown if error
+   */
+  private Demands createDemands(double maxOdDemandPcuH, long seed) throws PlanItException {
+    var newDemands = new Demands(token);
+    newDemands.timePeriods.getFactory().registerNew("benchmarkTimePeriod", 0, 3600);
+    newDemands.travelerTypes.getFactory().registerNew("benchmarkTravellerType");
+    newDemands.userClasses.getFactory().registerNew("benchmarkUser", mode, newDemands.travelerTypes.getFirst());
+
+    final Random random = new Random(seed);
+    OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+    for (var origin : zoning.getOdZones()) {
+      for (var destination : zoning.getOdZones()) {
+        if (origin.getId() != destination.getId()) {
+          odDemands.setValue(origin, destination, maxOdDemandPcuH * random.nextDouble());
+        }
+      }
+    }
+    newDemands.registerOdDemandPcuHour(newDemands.timePeriods.getFirst(), mode, odDemands);
+    return newDemands;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param networkType     to generate
+   * @param size            number of rows and columns of the grid underlying the network
+   * @param zoneSpacing     attach a zone to every zoneSpacing-th node in both directions
+   * @param maxOdDemandPcuH maximum demand per OD pair
+   * @param seed            for the random generators
+   * @throws PlanItException thrown if error
+   */
+  public SyntheticNetworkScenario(NetworkType networkType, int size, int zoneSpacing, double maxOdDemandPcuH, long seed) throws PlanItException {
+    this.token = IdGenerator.createIdGroupingToken(SyntheticNetworkScenario.class.getCanonicalName() + seed);
+    if (networkType == NetworkType.GRID) {
+      this.network = MacroscopicNetwork.createSimpleGrid(token, size, size);
+    } else {
+      this.network = createRandomPlanarNetwork(size, seed);
+    }
+    this.networkLayer = network.getTransportLayers().getFirst();
+    this.mode = network.getModes().get(PredefinedModeType.CAR);
+    networkLayer.getLinkSegmentTypes().forEach(type -> type.getAccessProperties(mode).setMaximumSpeedKmH(MAX_SPEED_KM_H));
+
+    this.zoning = createZoning(size, zoneSpacing);
+    this.demands = createDemands(maxOdDemandPcuH, seed);
+  }
+
+  /**
+   * Create and integrate the transport network, only to be used when the scenario is not used to build an assignment, since assignments integrate the zoning themselves
+   *
+   * @return integrated transport network
+   */
+  public TransportModelNetwork createIntegratedTransportNetwork() {
+    var transportNetwork = new TransportModelNetwork(network, zoning);
+    transportNetwork.integrateTransportNetworkViaConnectoids();
+    return transportNetwork;
+  }
+
+  /**
+   * Free flow travel time costs (h) for all edge segments of an integrated transport network, connectoid segments have zero cost
+   *
+   * @param transportNetwork integrated transport network of this scenario
+   * @return costs by edge segment id
+   */
+  public double[] createFreeFlowCosts(TransportModelNetwork transportNetwork) {
+    final double[] costs = new double[(int) transportNetwork.getNumberOfEdgeSegmentsAllLayers()];
+    for (var linkSegment : networkLayer.getLinkSegments()) {
+      costs[(int) linkSegment.getId()] = linkSegment.getParentLink().getLengthKm() / MAX_SPEED_KM_H;
+    }
+    return costs;
+  }
+
+  /**
+   * Centroid vertices of all OD zones of an integrated transport network, in zone order
+   *
+   * @param transportNetwork integrated transport network of this scenario
+   * @return centroid vertices
+   */
+  public List<CentroidVertex> collectCentroidVertices(TransportModelNetwork transportNetwork) {
+    final Map<Zone, CentroidVertex> zoneToCentroidVertex = transportNetwork.createZoneToCentroidVertexMapping(true, false);
+    final List<CentroidVertex> centroidVertices = new ArrayList<>();
+    for (OdZone zone : zoning.getOdZones()) {
+      centroidVertices.add(zoneToCentroidVertex.get(zone));
+    }
+    return centroidVertices;
+  }
+
+  /**
+   * The network
+   *
+   * @return network
+   */
+  public MacroscopicNetwork getNetwork() {
+    return network;
+  }
+
+  /**
+   * The only network layer
+   *
+   * @return network layer
+   */
+  public MacroscopicNetworkLayer getNetworkLayer() {
+    return networkLayer;
+  }
+
+  /**
+   * The zoning
+   *
+   * @return zoning
+   */
+  public Zoning getZoning() {
+    return zoning;
+  }
+
+  /**
+   * The demands
+   *
+   * @return demands
+   */
+  public Demands getDemands() {
+    return demands;
+  }
+
+  /**
+   * The car mode all demand is registered for
+   *
+   * @return mode
+   */
+  public Mode getMode() {
+    return mode;
+  }
+}
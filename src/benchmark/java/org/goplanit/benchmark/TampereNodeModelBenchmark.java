@@ -0,0 +1,79 @@
+package org.goplanit.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.goplanit.algorithms.nodemodel.TampereNodeModel;
+import org.goplanit.algorithms.nodemodel.TampereNodeModelFixedInput;
+import org.goplanit.algorithms.nodemodel.TampereNodeModelInput;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.Array2D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark a single run of the Tampere node model on a node with the given number of incoming and outgoing link segments. Turn sending flows are seeded random values exceeding
+ * capacity on average, so some incoming link segments are restricted.
+ *
+ * @author markr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TampereNodeModelBenchmark {
+
+  /** number of incoming and outgoing link segments */
+  @Param({ "4", "8" })
+  public int numberOfLinkSegments;
+
+  /** fixed inputs */
+  private TampereNodeModelFixedInput fixedInput;
+
+  /** turn sending flows, rows: from, columns: to */
+  private Array2D<Double> turnSendingFlows;
+
+  /**
+   * Create the seeded random node model inputs
+   */
+  @Setup
+  public void setup() {
+    final Random random = new Random(42);
+    final double[] inCapacities = new double[numberOfLinkSegments];
+    final double[] outReceivingFlows = new double[numberOfLinkSegments];
+    final double[][] turnFlows = new double[numberOfLinkSegments][numberOfLinkSegments];
+    for (int in = 0; in < numberOfLinkSegments; ++in) {
+      inCapacities[in] = 1800 * (1 + random.nextInt(3));
+      outReceivingFlows[in] = 1800 * (1 + random.nextInt(3));
+      for (int out = 0; out < numberOfLinkSegments; ++out) {
+        turnFlows[in][out] = in == out ? 0 : random.nextDouble() * 2 * inCapacities[in] / (numberOfLinkSegments - 1);
+      }
+    }
+    this.fixedInput = new TampereNodeModelFixedInput(Array1D.PRIMITIVE64.copy(inCapacities), Array1D.PRIMITIVE64.copy(outReceivingFlows));
+    this.turnSendingFlows = Array2D.PRIMITIVE64.rows(turnFlows);
+  }
+
+  /**
+   * Run the node model, including construction of its (variable) input as done per node update during loading
+   *
+   * @return incoming link segment flow acceptance factors
+   * @throws PlanItException thrown if error
+   */
+  @Benchmark
+  public Array1D<Double> run() throws PlanItException {
+    return new TampereNodeModel(new TampereNodeModelInput(fixedInput, turnSendingFlows)).run();
+  }
+}
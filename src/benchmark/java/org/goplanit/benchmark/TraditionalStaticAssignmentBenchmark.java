@@ -0,0 +1,165 @@
+package org.goplanit.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.goplanit.assignment.traditionalstatic.FlowStoragePrecision;
+import org.goplanit.assignment.traditionalstatic.ModeData;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignment;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentBuilder;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentConfigurator;
+import org.goplanit.benchmark.SyntheticNetworkScenario.NetworkType;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark a traditional static assignment for a fixed number of iterations on a synthetic network, for each flow storage precision. Assignments are built outside of the
+ * measurement on a freshly generated (identical) scenario per invocation. After each invocation the link segment volumes are compared against a double precision reference run
+ * (executed once per trial). The maximum absolute difference and the estimated flow memory are reported as secondary results via {@link PrecisionCounters}, which shows the
+ * accuracy/memory trade-off of reduced precision storage next to the timing.
+ *
+ * @author markr
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TraditionalStaticAssignmentBenchmark {
+
+  /**
+   * Secondary results reported by JMH for each iteration, values of the last invocation of the iteration
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class PrecisionCounters {
+
+    /** maximum absolute link segment volume difference in pcu/h compared to double precision storage */
+    public double maxVolumeDifferencePcuH;
+
+    /** estimated flow storage per mode in bytes */
+    public long flowBytesPerMode;
+
+    /**
+     * Reset the counters at the start of each iteration
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      maxVolumeDifferencePcuH = 0;
+      flowBytesPerMode = 0;
+    }
+
+    /**
+     * Compare the volumes of the executed assignment against the reference volumes
+     *
+     * @param benchmark holding the executed assignment and reference volumes
+     */
+    @TearDown(Level.Invocation)
+    public void collect(TraditionalStaticAssignmentBenchmark benchmark) {
+      final double[] volumes = benchmark.assignment.getLinkSegmentVolumes();
+      double maxAbsoluteDifference = 0;
+      if (benchmark.referenceVolumes != null) {
+        for (int index = 0; index < volumes.length; ++index) {
+          maxAbsoluteDifference = Math.max(maxAbsoluteDifference, Math.abs(volumes[index] - benchmark.referenceVolumes[index]));
+        }
+      }
+      maxVolumeDifferencePcuH = maxAbsoluteDifference;
+      flowBytesPerMode = new ModeData(new double[volumes.length], benchmark.precision).getEstimatedFlowBytes();
+    }
+  }
+
+  /** network type to generate */
+  @Param({ "GRID", "PLANAR" })
+  public NetworkType networkType;
+
+  /** number of rows and columns of the grid underlying the network */
+  @Param({ "50", "200" })
+  public int size;
+
+  /** number of iterations */
+  @Param({ "1", "10" })
+  public int iterations;
+
+  /** flow storage precision */
+  @Param({ "DOUBLE", "FLOAT" })
+  public FlowStoragePrecision precision;
+
+  /** assignment to execute */
+  private TraditionalStaticAssignment assignment;
+
+  /** link segment volumes of the double precision reference run, null when the benchmarked precision is double */
+  private double[] referenceVolumes;
+
+  /**
+   * Build an assignment on a freshly generated scenario
+   *
+   * @param flowStoragePrecision to use
+   * @return built assignment
+   * @throws PlanItException thrown if error
+   */
+  private TraditionalStaticAssignment buildAssignment(FlowStoragePrecision flowStoragePrecision) throws PlanItException {
+    /* zones become sparser on larger networks, so the number of origins, and thus shortest path searches, remains limited */
+    var scenario = new SyntheticNetworkScenario(networkType, size, Math.max(5, size / 10), 50, 42);
+    var builder = new TraditionalStaticAssignmentBuilder(scenario.getNetwork().getIdGroupingToken(), null, scenario.getDemands(), scenario.getZoning(),
+        scenario.getNetwork());
+    builder.getConfigurator().deactivateOutput(OutputType.LINK);
+    ((TraditionalStaticAssignmentConfigurator) builder.getConfigurator()).setFlowStoragePrecision(flowStoragePrecision);
+    var newAssignment = builder.build();
+    newAssignment.getGapFunction().getStopCriterion().setMaxIterations(iterations);
+    return newAssignment;
+  }
+
+  /**
+   * Execute the double precision reference run to compare reduced precision storage against
+   *
+   * @throws PlanItException thrown if error
+   */
+  @Setup(Level.Trial)
+  public void setupReference() throws PlanItException {
+    if (precision == FlowStoragePrecision.DOUBLE) {
+      this.referenceVolumes = null;
+      return;
+    }
+    var reference = buildAssignment(FlowStoragePrecision.DOUBLE);
+    reference.execute();
+    this.referenceVolumes = reference.getLinkSegmentVolumes();
+  }
+
+  /**
+   * Build the assignment to execute
+   *
+   * @throws PlanItException thrown if error
+   */
+  @Setup(Level.Invocation)
+  public void setup() throws PlanItException {
+    this.assignment = buildAssignment(precision);
+  }
+
+  /**
+   * Execute the assignment
+   *
+   * @param counters secondary results, collected after the invocation
+   * @return executed assignment
+   * @throws PlanItException thrown if error
+   */
+  @Benchmark
+  public TraditionalStaticAssignment execute(PrecisionCounters counters) throws PlanItException {
+    assignment.execute();
+    return assignment;
+  }
+}
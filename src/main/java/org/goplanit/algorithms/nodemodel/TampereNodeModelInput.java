@@ -32,8 +32,10 @@ public class TampereNodeModelInput {
    * Compute the capacity scaling factors for each in link segment
    */
   private void computeInLinkSegmentCapacityScalingFactors() {
-    // copy existing turn sending flows as starting point for scaled flows
-    capacityScalingFactors = Array1D.PRIMITIVE64.makeZero(fixedInput.getNumberOfIncomingLinkSegments());
+    // reuse existing factors when present, i.e., upon a refresh
+    if (capacityScalingFactors == null) {
+      capacityScalingFactors = Array1D.PRIMITIVE64.makeZero(fixedInput.getNumberOfIncomingLinkSegments());
+    }
 
     for (int inIndex = 0; inIndex < fixedInput.getNumberOfIncomingLinkSegments(); ++inIndex) {
       double inLinkSegmentCapacity = fixedInput.incomingLinkSegmentCapacities.get(inIndex);
@@ -90,6 +92,14 @@ public class TampereNodeModelInput {
     this.outgoingLinkSegmentReceivingFlows = outgoingLinkSegmentReceivingFlows;
   }
 
+  /**
+   * Refresh the derived inputs after the turn sending flows and/or receiving flows have been modified in place, allowing the same input (and node model) to be reused across runs
+   * without reallocating its arrays
+   */
+  public void refresh() {
+    computeInLinkSegmentCapacityScalingFactors();
+  }
+
   /**
    * Collect the computed capacity scaling factors per in-link segment a such that lambda_a = C_a/Sum_b(t_ab)
    * 
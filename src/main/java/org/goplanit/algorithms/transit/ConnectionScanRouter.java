@@ -0,0 +1,333 @@
+package org.goplanit.algorithms.transit;
+
+import java.util.Arrays;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+
+/**
+ * Timetable router based on the Connection Scan Algorithm (Dibbelt et al. 2013) over a {@link TimetableConnections}. Answers one-to-all earliest arrival queries, including the
+ * number of boardings, in-vehicle and walking time of each earliest arrival, and profile (range) queries. The latter are answered by scanning for each distinct departure time at
+ * the origin, from latest to earliest, while retaining the labels of later departures, since an arrival reachable when departing later remains reachable when departing earlier
+ * (rCSA).
+ * <p>
+ * A router holds the labels of its last query and is therefore not thread safe. The timetable is not modified, so concurrent queries use one router per thread on a shared
+ * timetable.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class ConnectionScanRouter {
+
+  /** arrival time of stops that are not reached */
+  public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+  /** compiled timetable to route on */
+  private final TimetableConnections timetable;
+
+  /** earliest arrival time in seconds by stop */
+  private final int[] earliestArrivalTimes;
+
+  /** number of boardings of the earliest arrival by stop */
+  private final int[] numberOfBoardings;
+
+  /** in-vehicle time in seconds of the earliest arrival by stop */
+  private final int[] inVehicleSeconds;
+
+  /** access and walking transfer time in seconds of the earliest arrival by stop, excluding minimum transfer times */
+  private final int[] walkingSeconds;
+
+  /** flag indicating a trip can be boarded by trip index */
+  private final boolean[] tripReachable;
+
+  /** number of boardings upon boarding a trip by trip index */
+  private final int[] tripBoardings;
+
+  /** in-vehicle time upon boarding a trip minus the boarding time, by trip index */
+  private final int[] tripInVehicleBase;
+
+  /** walking time upon boarding a trip by trip index */
+  private final int[] tripWalkingSeconds;
+
+  /** run in which each stop was last improved */
+  private final int[] improvedInRun;
+
+  /** stops improved in the current run */
+  private final int[] improvedStops;
+
+  /** number of stops improved in the current run */
+  private int numberOfImprovedStops;
+
+  /** current run */
+  private int run;
+
+  /**
+   * Reset all labels
+   */
+  private void reset() {
+    Arrays.fill(earliestArrivalTimes, UNREACHABLE);
+    Arrays.fill(numberOfBoardings, 0);
+    Arrays.fill(inVehicleSeconds, 0);
+    Arrays.fill(walkingSeconds, 0);
+    Arrays.fill(tripReachable, false);
+  }
+
+  /**
+   * Start a new run, clearing the improved stops
+   */
+  private void startRun() {
+    ++run;
+    numberOfImprovedStops = 0;
+  }
+
+  /**
+   * Improve the label of a stop
+   *
+   * @param stop        to improve
+   * @param arrivalTime new earliest arrival time
+   * @param boardings   number of boardings of the new earliest arrival
+   * @param inVehicle   in-vehicle time in seconds of the new earliest arrival
+   * @param walking     walking time in seconds of the new earliest arrival
+   */
+  private void improve(final int stop, final int arrivalTime, final int boardings, final int inVehicle, final int walking) {
+    earliestArrivalTimes[stop] = arrivalTime;
+    numberOfBoardings[stop] = boardings;
+    inVehicleSeconds[stop] = inVehicle;
+    walkingSeconds[stop] = walking;
+    if (improvedInRun[stop] != run) {
+      improvedInRun[stop] = run;
+      improvedStops[numberOfImprovedStops++] = stop;
+    }
+  }
+
+  /**
+   * Relax all footpaths departing from a stop. A single hop suffices since the footpaths of the timetable are transitively closed
+   *
+   * @param stop to relax footpaths of
+   */
+  private void relaxFootpaths(final int stop) {
+    final int arrivalTime = earliestArrivalTimes[stop];
+    final int end = timetable.getFootpathsOffset(stop + 1);
+    for (int footpath = timetable.getFootpathsOffset(stop); footpath < end; ++footpath) {
+      final int target = timetable.getFootpathTarget(footpath);
+      final int footpathArrivalTime = arrivalTime + timetable.getFootpathDuration(footpath);
+      if (footpathArrivalTime < earliestArrivalTimes[target]) {
+        improve(target, footpathArrivalTime, numberOfBoardings[stop], inVehicleSeconds[stop], walkingSeconds[stop] + timetable.getFootpathWalkingSeconds(footpath));
+      }
+    }
+  }
+
+  /**
+   * Label the origin stops given the departure time and access times, followed by relaxing their footpaths
+   *
+   * @param originStops   to depart from
+   * @param accessSeconds access time to each origin stop
+   * @param departureTime at the origin
+   */
+  private void initialiseOrigins(final int[] originStops, final int[] accessSeconds, final int departureTime) {
+    for (int index = 0; index < originStops.length; ++index) {
+      final int arrivalTime = departureTime + accessSeconds[index];
+      if (arrivalTime < earliestArrivalTimes[originStops[index]]) {
+        improve(originStops[index], arrivalTime, 0, 0, accessSeconds[index]);
+      }
+    }
+    for (int index = 0; index < originStops.length; ++index) {
+      relaxFootpaths(originStops[index]);
+    }
+  }
+
+  /**
+   * Scan all connections departing at or after the departure time, until connections depart after the maximum arrival time
+   *
+   * @param departureTime  to start scanning from
+   * @param maxArrivalTime beyond which stops are not labelled
+   */
+  private void scan(final int departureTime, final int maxArrivalTime) {
+    final int numberOfConnections = timetable.getNumberOfConnections();
+    for (int connection = timetable.findFirstConnectionAtOrAfter(departureTime); connection < numberOfConnections; ++connection) {
+      final int connectionDepartureTime = timetable.getDepartureTime(connection);
+      if (connectionDepartureTime > maxArrivalTime) {
+        break;
+      }
+
+      final int trip = timetable.getTrip(connection);
+      if (!tripReachable[trip]) {
+        final int departureStop = timetable.getDepartureStop(connection);
+        if (earliestArrivalTimes[departureStop] > connectionDepartureTime) {
+          continue;
+        }
+        tripReachable[trip] = true;
+        tripBoardings[trip] = numberOfBoardings[departureStop] + 1;
+        tripInVehicleBase[trip] = inVehicleSeconds[departureStop] - connectionDepartureTime;
+        tripWalkingSeconds[trip] = walkingSeconds[departureStop];
+      }
+
+      final int arrivalStop = timetable.getArrivalStop(connection);
+      final int arrivalTime = timetable.getArrivalTime(connection);
+      if (arrivalTime < earliestArrivalTimes[arrivalStop] && arrivalTime <= maxArrivalTime) {
+        improve(arrivalStop, arrivalTime, tripBoardings[trip], tripInVehicleBase[trip] + arrivalTime, tripWalkingSeconds[trip]);
+        relaxFootpaths(arrivalStop);
+      }
+    }
+  }
+
+  /**
+   * Verify the origins are consistent
+   *
+   * @param originStops   to verify
+   * @param accessSeconds to verify
+   */
+  private static void verifyOrigins(final int[] originStops, final int[] accessSeconds) {
+    PlanItRunTimeException.throwIf(originStops.length != accessSeconds.length, "Number of origin stops (%d) and access times (%d) differ", originStops.length,
+        accessSeconds.length);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param timetable to route on
+   */
+  public ConnectionScanRouter(final TimetableConnections timetable) {
+    this.timetable = timetable;
+    this.earliestArrivalTimes = new int[timetable.getNumberOfStops()];
+    this.numberOfBoardings = new int[timetable.getNumberOfStops()];
+    this.inVehicleSeconds = new int[timetable.getNumberOfStops()];
+    this.walkingSeconds = new int[timetable.getNumberOfStops()];
+    this.tripReachable = new boolean[timetable.getNumberOfTrips()];
+    this.tripBoardings = new int[timetable.getNumberOfTrips()];
+    this.tripInVehicleBase = new int[timetable.getNumberOfTrips()];
+    this.tripWalkingSeconds = new int[timetable.getNumberOfTrips()];
+    this.improvedInRun = new int[timetable.getNumberOfStops()];
+    this.improvedStops = new int[timetable.getNumberOfStops()];
+    Arrays.fill(improvedInRun, -1);
+    this.run = 0;
+  }
+
+  /**
+   * Compute the earliest arrival at all stops when departing from a single stop
+   *
+   * @param originStop    to depart from
+   * @param departureTime in seconds
+   */
+  public void oneToAll(final int originStop, final int departureTime) {
+    oneToAll(new int[] { originStop }, new int[] { 0 }, departureTime, UNREACHABLE - 1);
+  }
+
+  /**
+   * Compute the earliest arrival at all stops when departing from any of the origin stops, e.g., the stops accessible from a zone. Results are available via
+   * {@link #getEarliestArrivalTime(int)} and {@link #getNumberOfBoardings(int)} until the next query
+   *
+   * @param originStops    to depart from
+   * @param accessSeconds  access time to each origin stop
+   * @param departureTime  at the origin in seconds
+   * @param maxArrivalTime in seconds, stops reached later are considered unreachable, which limits the connections to scan
+   */
+  public void oneToAll(final int[] originStops, final int[] accessSeconds, final int departureTime, final int maxArrivalTime) {
+    verifyOrigins(originStops, accessSeconds);
+    reset();
+    startRun();
+    initialiseOrigins(originStops, accessSeconds, departureTime);
+    scan(departureTime, maxArrivalTime);
+  }
+
+  /**
+   * Compute the profile of earliest arrivals at all stops for all departures from the origin stops within the departure window
+   *
+   * @param originStops            to depart from
+   * @param accessSeconds          access time to each origin stop
+   * @param earliestDepartureTime  of the window at the origin in seconds
+   * @param latestDepartureTime    of the window at the origin in seconds
+   * @param maxArrivalTime         in seconds, stops reached later are considered unreachable
+   * @return profile of Pareto optimal departure and arrival times by stop
+   */
+  public TimetableProfile profile(final int[] originStops, final int[] accessSeconds, final int earliestDepartureTime, final int latestDepartureTime,
+      final int maxArrivalTime) {
+    verifyOrigins(originStops, accessSeconds);
+
+    /* candidate departure times at the origin: each departure from an origin stop within the window */
+    int numberOfCandidates = 0;
+    for (int index = 0; index < originStops.length; ++index) {
+      numberOfCandidates += timetable.getDepartingConnectionsOffset(originStops[index] + 1) - timetable.getDepartingConnectionsOffset(originStops[index]);
+    }
+    final int[] candidates = new int[numberOfCandidates];
+    numberOfCandidates = 0;
+    for (int index = 0; index < originStops.length; ++index) {
+      final int end = timetable.getDepartingConnectionsOffset(originStops[index] + 1);
+      for (int position = timetable.getDepartingConnectionsOffset(originStops[index]); position < end; ++position) {
+        final int departureTime = timetable.getDepartureTime(timetable.getDepartingConnection(position)) - accessSeconds[index];
+        if (departureTime >= earliestDepartureTime && departureTime <= latestDepartureTime) {
+          candidates[numberOfCandidates++] = departureTime;
+        }
+      }
+    }
+    Arrays.sort(candidates, 0, numberOfCandidates);
+
+    /* latest to earliest, retaining labels between runs */
+    final var profile = new TimetableProfile(timetable.getNumberOfStops());
+    reset();
+    for (int index = numberOfCandidates - 1; index >= 0; --index) {
+      final int departureTime = candidates[index];
+      if (index < numberOfCandidates - 1 && departureTime == candidates[index + 1]) {
+        continue;
+      }
+      startRun();
+      initialiseOrigins(originStops, accessSeconds, departureTime);
+      scan(departureTime, maxArrivalTime);
+      for (int improved = 0; improved < numberOfImprovedStops; ++improved) {
+        profile.add(improvedStops[improved], departureTime, earliestArrivalTimes[improvedStops[improved]]);
+      }
+    }
+    return profile;
+  }
+
+  /**
+   * Earliest arrival time at a stop of the last one-to-all query
+   *
+   * @param stop index
+   * @return arrival time in seconds, {@link #UNREACHABLE} when not reached
+   */
+  public int getEarliestArrivalTime(final int stop) {
+    return earliestArrivalTimes[stop];
+  }
+
+  /**
+   * Number of boardings of the earliest arrival at a stop of the last one-to-all query, where zero means the stop is reached without using any trip
+   *
+   * @param stop index
+   * @return number of boardings
+   */
+  public int getNumberOfBoardings(final int stop) {
+    return numberOfBoardings[stop];
+  }
+
+  /**
+   * In-vehicle time of the earliest arrival at a stop of the last one-to-all query
+   *
+   * @param stop index
+   * @return in-vehicle time in seconds
+   */
+  public int getInVehicleSeconds(final int stop) {
+    return inVehicleSeconds[stop];
+  }
+
+  /**
+   * Access and walking transfer time of the earliest arrival at a stop of the last one-to-all query. Minimum transfer times of footpaths are not included. The remainder of the
+   * travel time since departure, excluding in-vehicle time, is waiting time, which thus includes the minimum transfer times
+   *
+   * @param stop index
+   * @return walking time in seconds
+   */
+  public int getWalkingSeconds(final int stop) {
+    return walkingSeconds[stop];
+  }
+
+  /**
+   * Collect the timetable this router routes on
+   *
+   * @return timetable
+   */
+  public TimetableConnections getTimetable() {
+    return timetable;
+  }
+
+}
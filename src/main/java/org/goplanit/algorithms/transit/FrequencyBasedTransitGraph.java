@@ -0,0 +1,440 @@
+package org.goplanit.algorithms.transit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.graph.directed.DirectedVertex;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.service.ServiceLegSegment;
+import org.goplanit.utils.network.layer.service.ServiceNode;
+import org.goplanit.utils.service.routed.RoutedModeServices;
+import org.goplanit.utils.service.routed.RoutedService;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.service.routed.RoutedTripFrequency;
+import org.goplanit.utils.zoning.Connectoid;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.UndirectedConnectoid;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Graph of the frequency based trips of a single mode on a routed services layer, compiled into flat arrays for hyperpath (optimal strategy) computations. The graph consists of
+ * the following nodes:
+ * <ul>
+ * <li>stop nodes, one per service node of the layer's parent service network layer</li>
+ * <li>route nodes, one per trip and position along the trip, representing being on board of the trip at that position</li>
+ * <li>zone nodes, one per od zone, where the node index is offset by the od zone id</li>
+ * </ul>
+ * and the following links:
+ * <ul>
+ * <li>boarding links from a stop to the route node of a trip, carrying the frequency of the trip</li>
+ * <li>in-vehicle links between consecutive route nodes of a trip, one per service leg segment</li>
+ * <li>alighting links from a route node to its stop</li>
+ * <li>access and egress links between zones and the stops on the access node of their od connectoids</li>
+ * </ul>
+ * All links other than boarding links have an infinite frequency. Costs are in hours, where in-vehicle time is based on the leg segment length and the maximum speed of the mode,
+ * and access and egress time on the connectoid length and a walking speed. Once compiled the graph is immutable and can be shared between threads.
+ *
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitGraph {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(FrequencyBasedTransitGraph.class.getCanonicalName());
+
+  /** default walking speed used for access and egress links */
+  public static final double DEFAULT_WALKING_SPEED_KMH = TimetableConnections.DEFAULT_WALKING_SPEED_KMH;
+
+  /** number of stop nodes */
+  private final int numberOfStops;
+
+  /** number of route nodes */
+  private final int numberOfRouteNodes;
+
+  /** number of od zones */
+  private final int numberOfOdZones;
+
+  /** stop index by service node id */
+  private final Map<Long, Integer> stopIndexByServiceNodeId;
+
+  /** service node id by stop index */
+  private final long[] stopServiceNodeIds;
+
+  /** tail node by link */
+  private final int[] linkTails;
+
+  /** head node by link */
+  private final int[] linkHeads;
+
+  /** cost in hours by link */
+  private final double[] linkCosts;
+
+  /** frequency per hour by link, infinite for all but boarding links */
+  private final double[] linkFrequencies;
+
+  /** service leg segment id by link for in-vehicle links, -1 otherwise */
+  private final int[] linkLegSegments;
+
+  /** number of service leg segment ids referenced, i.e., the maximum id plus one */
+  private final int numberOfLegSegmentIds;
+
+  /** offsets into the incoming links by node, with one additional entry */
+  private int[] incomingLinkOffsets;
+
+  /** incoming links ordered by head node */
+  private int[] incomingLinks;
+
+  /**
+   * Incrementally collects the links of the graph before they are compiled into arrays
+   */
+  private static class LinkCollector {
+
+    /** tails */
+    private final List<Integer> tails = new ArrayList<>();
+
+    /** heads */
+    private final List<Integer> heads = new ArrayList<>();
+
+    /** costs */
+    private final List<Double> costs = new ArrayList<>();
+
+    /** frequencies */
+    private final List<Double> frequencies = new ArrayList<>();
+
+    /** leg segments */
+    private final List<Integer> legSegments = new ArrayList<>();
+
+    /**
+     * Add a link
+     *
+     * @param tail       node
+     * @param head       node
+     * @param cost       in hours
+     * @param frequency  per hour
+     * @param legSegment id, -1 when not an in-vehicle link
+     */
+    private void add(final int tail, final int head, final double cost, final double frequency, final int legSegment) {
+      tails.add(tail);
+      heads.add(head);
+      costs.add(cost);
+      frequencies.add(frequency);
+      legSegments.add(legSegment);
+    }
+  }
+
+  /**
+   * Collect the stop index of a service node
+   *
+   * @param serviceNode to collect for
+   * @return stop index
+   */
+  private int getStopIndex(final ServiceNode serviceNode) {
+    final Integer stop = stopIndexByServiceNodeId.get(serviceNode.getId());
+    PlanItRunTimeException.throwIfNull(stop, "Service node %s not part of the parent service network layer of the routed services layer", serviceNode.getXmlId());
+    return stop;
+  }
+
+  /**
+   * Add boarding, in-vehicle and alighting links for all frequency based trips of the mode
+   *
+   * @param modeServices   of the mode
+   * @param mode           to use maximum speed of
+   * @param links          to add links to
+   * @param firstRouteNode node index of the first route node
+   * @return number of route nodes created
+   */
+  private int collectTripLinks(final RoutedModeServices modeServices, final Mode mode, final LinkCollector links, final int firstRouteNode) {
+    int routeNode = firstRouteNode;
+    for (RoutedService service : modeServices) {
+      for (RoutedTripFrequency trip : service.getTripInfo().getFrequencyBasedTrips()) {
+        if (trip.getNumberOfLegSegments() == 0 || trip.getFrequencyPerHour() <= 0) {
+          continue;
+        }
+        for (int position = 0; position < trip.getNumberOfLegSegments(); ++position) {
+          final ServiceLegSegment legSegment = trip.getLegSegment(position);
+          final int upstreamStop = getStopIndex(legSegment.getUpstreamServiceNode());
+          final int downstreamStop = getStopIndex(legSegment.getDownstreamServiceNode());
+          final int upstreamRouteNode = routeNode + position;
+          links.add(upstreamStop, upstreamRouteNode, 0, trip.getFrequencyPerHour(), -1);
+          links.add(upstreamRouteNode, upstreamRouteNode + 1, legSegment.getLengthKm() / mode.getMaximumSpeedKmH(), Double.POSITIVE_INFINITY, (int) legSegment.getId());
+          links.add(upstreamRouteNode + 1, downstreamStop, 0, Double.POSITIVE_INFINITY, -1);
+        }
+        routeNode += trip.getNumberOfLegSegments() + 1;
+      }
+    }
+    return routeNode - firstRouteNode;
+  }
+
+  /**
+   * Add access and egress links between od zones and the stops residing on the access nodes of their connectoids
+   *
+   * @param zoning          to collect od connectoids from
+   * @param stopsByNode     stop indices by physical node
+   * @param walkingSpeedKmH to use
+   * @param links           to add links to
+   */
+  private void collectAccessEgressLinks(final Zoning zoning, final Map<DirectedVertex, List<Integer>> stopsByNode, final double walkingSpeedKmH, final LinkCollector links) {
+    for (UndirectedConnectoid connectoid : zoning.getOdConnectoids()) {
+      final List<Integer> stops = stopsByNode.get(connectoid.getAccessVertex());
+      if (stops == null) {
+        continue;
+      }
+      for (Zone accessZone : connectoid) {
+        if (!(accessZone instanceof OdZone)) {
+          continue;
+        }
+        final int zoneNode = getZoneNode((int) ((OdZone) accessZone).getOdZoneId());
+        final double accessHours = connectoid.getLengthKm(accessZone).orElse(Connectoid.DEFAULT_LENGTH_KM) / walkingSpeedKmH;
+        for (int stop : stops) {
+          links.add(zoneNode, stop, accessHours, Double.POSITIVE_INFINITY, -1);
+          links.add(stop, zoneNode, accessHours, Double.POSITIVE_INFINITY, -1);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create incoming links by head node in compressed form
+   */
+  private void compileIncomingLinks() {
+    final int numberOfNodes = getNumberOfNodes();
+    incomingLinkOffsets = new int[numberOfNodes + 1];
+    for (int link = 0; link < linkHeads.length; ++link) {
+      ++incomingLinkOffsets[linkHeads[link] + 1];
+    }
+    for (int node = 0; node < numberOfNodes; ++node) {
+      incomingLinkOffsets[node + 1] += incomingLinkOffsets[node];
+    }
+    incomingLinks = new int[linkHeads.length];
+    final int[] nextPosition = Arrays.copyOf(incomingLinkOffsets, numberOfNodes);
+    for (int link = 0; link < linkHeads.length; ++link) {
+      incomingLinks[nextPosition[linkHeads[link]]++] = link;
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param routedServicesLayer to extract frequency based trips from
+   * @param mode                to extract trips for
+   * @param zoning              with od zones and od connectoids to the physical nodes stops reside on
+   * @param walkingSpeedKmH     to use for access and egress
+   */
+  protected FrequencyBasedTransitGraph(final RoutedServicesLayer routedServicesLayer, final Mode mode, final Zoning zoning, final double walkingSpeedKmH) {
+    PlanItRunTimeException.throwIf(walkingSpeedKmH <= 0, "Walking speed must be positive, found %.2f", walkingSpeedKmH);
+    PlanItRunTimeException.throwIf(mode.getMaximumSpeedKmH() <= 0, "Maximum speed of mode %s must be positive", mode.getXmlId());
+
+    this.stopIndexByServiceNodeId = new HashMap<>();
+    final Map<DirectedVertex, List<Integer>> stopsByNode = new HashMap<>();
+    for (ServiceNode serviceNode : routedServicesLayer.getParentLayer().getServiceNodes()) {
+      final int stop = stopIndexByServiceNodeId.size();
+      stopIndexByServiceNodeId.put(serviceNode.getId(), stop);
+      for (Node physicalNode : serviceNode.getPhysicalParentNodes()) {
+        stopsByNode.computeIfAbsent(physicalNode, node -> new ArrayList<>(1)).add(stop);
+      }
+    }
+    this.numberOfStops = stopIndexByServiceNodeId.size();
+    this.stopServiceNodeIds = new long[numberOfStops];
+    stopIndexByServiceNodeId.forEach((serviceNodeId, stop) -> stopServiceNodeIds[stop] = serviceNodeId);
+    this.numberOfOdZones = (int) zoning.getOdZones().size();
+
+    final var links = new LinkCollector();
+    int routeNodes = 0;
+    for (RoutedModeServices modeServices : routedServicesLayer) {
+      if (modeServices.getMode().equals(mode)) {
+        routeNodes += collectTripLinks(modeServices, mode, links, numberOfStops + routeNodes);
+      }
+    }
+    this.numberOfRouteNodes = routeNodes;
+    collectAccessEgressLinks(zoning, stopsByNode, walkingSpeedKmH, links);
+
+    this.linkTails = links.tails.stream().mapToInt(Integer::intValue).toArray();
+    this.linkHeads = links.heads.stream().mapToInt(Integer::intValue).toArray();
+    this.linkCosts = links.costs.stream().mapToDouble(Double::doubleValue).toArray();
+    this.linkFrequencies = links.frequencies.stream().mapToDouble(Double::doubleValue).toArray();
+    this.linkLegSegments = links.legSegments.stream().mapToInt(Integer::intValue).toArray();
+    this.numberOfLegSegmentIds = Arrays.stream(linkLegSegments).max().orElse(-1) + 1;
+    compileIncomingLinks();
+
+    LOGGER.info(String.format("Compiled frequency based transit graph for mode %s: %d stops, %d route nodes, %d links", mode.getXmlId(), numberOfStops, numberOfRouteNodes,
+        linkTails.length));
+  }
+
+  /**
+   * Compile the frequency based trips of a mode into a graph
+   *
+   * @param routedServicesLayer to extract frequency based trips from
+   * @param mode                to extract trips for
+   * @param zoning              with od zones and od connectoids to the physical nodes stops reside on
+   * @param walkingSpeedKmH     to use for access and egress
+   * @return compiled graph
+   */
+  public static FrequencyBasedTransitGraph compile(final RoutedServicesLayer routedServicesLayer, final Mode mode, final Zoning zoning, final double walkingSpeedKmH) {
+    return new FrequencyBasedTransitGraph(routedServicesLayer, mode, zoning, walkingSpeedKmH);
+  }
+
+  /**
+   * Compile the frequency based trips of a mode into a graph using the default walking speed
+   *
+   * @param routedServicesLayer to extract frequency based trips from
+   * @param mode                to extract trips for
+   * @param zoning              with od zones and od connectoids to the physical nodes stops reside on
+   * @return compiled graph
+   */
+  public static FrequencyBasedTransitGraph compile(final RoutedServicesLayer routedServicesLayer, final Mode mode, final Zoning zoning) {
+    return compile(routedServicesLayer, mode, zoning, DEFAULT_WALKING_SPEED_KMH);
+  }
+
+  /**
+   * Node index of an od zone
+   *
+   * @param odZoneId of the od zone
+   * @return node index
+   */
+  public int getZoneNode(final int odZoneId) {
+    return numberOfStops + numberOfRouteNodes + odZoneId;
+  }
+
+  /**
+   * Verify if a node is a zone node
+   *
+   * @param node index
+   * @return true when zone node, false otherwise
+   */
+  public boolean isZoneNode(final int node) {
+    return node >= numberOfStops + numberOfRouteNodes;
+  }
+
+  /**
+   * Number of nodes
+   *
+   * @return number of nodes
+   */
+  public int getNumberOfNodes() {
+    return numberOfStops + numberOfRouteNodes + numberOfOdZones;
+  }
+
+  /**
+   * Number of stops, stops occupy the first node indices
+   *
+   * @return number of stops
+   */
+  public int getNumberOfStops() {
+    return numberOfStops;
+  }
+
+  /**
+   * Service node id of a stop
+   *
+   * @param stop index
+   * @return service node id
+   */
+  public long getServiceNodeId(final int stop) {
+    return stopServiceNodeIds[stop];
+  }
+
+  /**
+   * Number of od zones
+   *
+   * @return number of od zones
+   */
+  public int getNumberOfOdZones() {
+    return numberOfOdZones;
+  }
+
+  /**
+   * Number of links
+   *
+   * @return number of links
+   */
+  public int getNumberOfLinks() {
+    return linkTails.length;
+  }
+
+  /**
+   * Number of service leg segment ids referenced by in-vehicle links, i.e., the maximum id plus one. Use to size arrays indexed by leg segment id
+   *
+   * @return number of leg segment ids
+   */
+  public int getNumberOfLegSegmentIds() {
+    return numberOfLegSegmentIds;
+  }
+
+  /**
+   * Tail node of a link
+   *
+   * @param link index
+   * @return tail node
+   */
+  public int getLinkTail(final int link) {
+    return linkTails[link];
+  }
+
+  /**
+   * Head node of a link
+   *
+   * @param link index
+   * @return head node
+   */
+  public int getLinkHead(final int link) {
+    return linkHeads[link];
+  }
+
+  /**
+   * Cost of a link
+   *
+   * @param link index
+   * @return cost in hours
+   */
+  public double getLinkCost(final int link) {
+    return linkCosts[link];
+  }
+
+  /**
+   * Frequency of a link
+   *
+   * @param link index
+   * @return frequency per hour, infinite for all but boarding links
+   */
+  public double getLinkFrequency(final int link) {
+    return linkFrequencies[link];
+  }
+
+  /**
+   * Service leg segment of a link
+   *
+   * @param link index
+   * @return service leg segment id for in-vehicle links, -1 otherwise
+   */
+  public int getLinkLegSegment(final int link) {
+    return linkLegSegments[link];
+  }
+
+  /**
+   * Offset of the first incoming link of a node, the incoming links of node n reside at [offset(n), offset(n+1))
+   *
+   * @param node index, up to and including the number of nodes
+   * @return offset
+   */
+  public int getIncomingLinksOffset(final int node) {
+    return incomingLinkOffsets[node];
+  }
+
+  /**
+   * Incoming link at a position
+   *
+   * @param position of incoming link
+   * @return link index
+   */
+  public int getIncomingLink(final int position) {
+    return incomingLinks[position];
+  }
+
+}
@@ -0,0 +1,219 @@
+package org.goplanit.algorithms.transit;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.goplanit.utils.misc.Pair;
+
+/**
+ * Optimal strategy (hyperpath) computation and loading on a {@link FrequencyBasedTransitGraph} based on Spiess and Florian (1989). For a destination, links are processed in
+ * increasing order of their cost to reach the destination. A boarding link is added to the strategy of its stop whenever it reduces the expected cost of the stop, where the
+ * expected waiting time is the waiting time factor divided by the combined frequency of all attractive lines. Demand is loaded in reverse order, splitting the flow at a stop
+ * proportional to the frequencies of the attractive lines.
+ * <p>
+ * A router holds labels sized to the graph and is therefore not thread safe, use one router per thread while sharing the graph.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class OptimalStrategies {
+
+  /** comparator for the queued links based on their cost */
+  private static final Comparator<Pair<Integer, Double>> pairSecondComparator = Comparator.comparing(Pair::second, Comparator.naturalOrder());
+
+  /**
+   * Default waiting time factor, i.e., expected waiting time in headways. A value of 1 corresponds with exponentially distributed headways as adopted by Spiess and Florian, 0.5
+   * with perfectly regular headways
+   */
+  public static final double DEFAULT_WAITING_TIME_FACTOR = 1.0;
+
+  /** graph to compute strategies on */
+  private final FrequencyBasedTransitGraph graph;
+
+  /** waiting time factor to use */
+  private final double waitingTimeFactor;
+
+  /** expected cost to the destination in hours by node */
+  private final double[] expectedCosts;
+
+  /** combined frequency of the attractive links by node */
+  private final double[] combinedFrequencies;
+
+  /** the single (infinite frequency) link forming the strategy of a node, -1 when absent */
+  private final int[] exclusiveLinks;
+
+  /** flag indicating a link has been processed */
+  private final boolean[] processedLinks;
+
+  /** links added to the strategy, in order of processing */
+  private final int[] strategyLinks;
+
+  /** number of links in the strategy */
+  private int strategySize;
+
+  /** flow by node during loading */
+  private final double[] nodeFlows;
+
+  /** destination zone node of the current strategy */
+  private int destinationNode = -1;
+
+  /**
+   * Queue all not yet processed incoming links of a node whose expected cost changed. Zone nodes other than the destination are not traversed
+   *
+   * @param node      to queue incoming links of
+   * @param openLinks queue to add to
+   */
+  private void queueIncomingLinks(final int node, final PriorityQueue<Pair<Integer, Double>> openLinks) {
+    if (node != destinationNode && graph.isZoneNode(node)) {
+      return;
+    }
+    for (int position = graph.getIncomingLinksOffset(node); position < graph.getIncomingLinksOffset(node + 1); ++position) {
+      final int link = graph.getIncomingLink(position);
+      if (!processedLinks[link]) {
+        openLinks.add(Pair.of(link, expectedCosts[node] + graph.getLinkCost(link)));
+      }
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param graph             to compute strategies on
+   * @param waitingTimeFactor expected waiting time in headways
+   */
+  public OptimalStrategies(final FrequencyBasedTransitGraph graph, final double waitingTimeFactor) {
+    this.graph = graph;
+    this.waitingTimeFactor = waitingTimeFactor;
+    this.expectedCosts = new double[graph.getNumberOfNodes()];
+    this.combinedFrequencies = new double[graph.getNumberOfNodes()];
+    this.exclusiveLinks = new int[graph.getNumberOfNodes()];
+    this.nodeFlows = new double[graph.getNumberOfNodes()];
+    this.processedLinks = new boolean[graph.getNumberOfLinks()];
+    this.strategyLinks = new int[graph.getNumberOfLinks()];
+  }
+
+  /**
+   * Constructor using the default waiting time factor
+   *
+   * @param graph to compute strategies on
+   */
+  public OptimalStrategies(final FrequencyBasedTransitGraph graph) {
+    this(graph, DEFAULT_WAITING_TIME_FACTOR);
+  }
+
+  /**
+   * Compute the optimal strategy towards a destination, replacing any earlier computed strategy
+   *
+   * @param destinationOdZoneId od zone id of the destination
+   */
+  public void computeStrategy(final int destinationOdZoneId) {
+    Arrays.fill(expectedCosts, Double.POSITIVE_INFINITY);
+    Arrays.fill(combinedFrequencies, 0);
+    Arrays.fill(exclusiveLinks, -1);
+    Arrays.fill(processedLinks, false);
+    strategySize = 0;
+
+    destinationNode = graph.getZoneNode(destinationOdZoneId);
+    expectedCosts[destinationNode] = 0;
+    final var openLinks = new PriorityQueue<Pair<Integer, Double>>(pairSecondComparator);
+    queueIncomingLinks(destinationNode, openLinks);
+
+    while (!openLinks.isEmpty()) {
+      final var entry = openLinks.poll();
+      final int link = entry.first();
+      final double cost = entry.second();
+      /* skip outdated entries, the head node's cost is final once its cheapest remaining entry is polled */
+      if (processedLinks[link] || cost != expectedCosts[graph.getLinkHead(link)] + graph.getLinkCost(link)) {
+        continue;
+      }
+      processedLinks[link] = true;
+
+      final int tail = graph.getLinkTail(link);
+      if (tail == destinationNode || exclusiveLinks[tail] >= 0 || expectedCosts[tail] < cost) {
+        continue;
+      }
+
+      final double linkFrequency = graph.getLinkFrequency(link);
+      if (linkFrequency == Double.POSITIVE_INFINITY) {
+        /* no waiting involved, link dominates any earlier attractive lines */
+        expectedCosts[tail] = cost;
+        combinedFrequencies[tail] = Double.POSITIVE_INFINITY;
+        exclusiveLinks[tail] = link;
+      } else {
+        final double weightedCost = combinedFrequencies[tail] == 0 ? waitingTimeFactor : combinedFrequencies[tail] * expectedCosts[tail];
+        combinedFrequencies[tail] += linkFrequency;
+        expectedCosts[tail] = (weightedCost + linkFrequency * cost) / combinedFrequencies[tail];
+      }
+      strategyLinks[strategySize++] = link;
+      queueIncomingLinks(tail, openLinks);
+    }
+  }
+
+  /**
+   * Load demand of the given origins towards the destination of the most recently computed strategy
+   *
+   * @param originOdZoneIds od zone ids of origins
+   * @param demands         demand by origin, same order as origins
+   * @param legSegmentFlows to add flows of in-vehicle links to, indexed by service leg segment id
+   * @param stopBoardings   to add boardings to, indexed by stop
+   * @return total demand that could not be loaded because the destination is not reachable
+   */
+  public double load(final int[] originOdZoneIds, final double[] demands, final double[] legSegmentFlows, final double[] stopBoardings) {
+    Arrays.fill(nodeFlows, 0);
+    double unreachableDemand = 0;
+    for (int index = 0; index < originOdZoneIds.length; ++index) {
+      final int originNode = graph.getZoneNode(originOdZoneIds[index]);
+      if (originNode == destinationNode) {
+        continue;
+      }
+      if (expectedCosts[originNode] == Double.POSITIVE_INFINITY) {
+        unreachableDemand += demands[index];
+      } else {
+        nodeFlows[originNode] += demands[index];
+      }
+    }
+
+    /* reverse processing order guarantees all inflow of a node has been accumulated before it is distributed */
+    for (int index = strategySize - 1; index >= 0; --index) {
+      final int link = strategyLinks[index];
+      final int tail = graph.getLinkTail(link);
+      if (nodeFlows[tail] == 0 || (exclusiveLinks[tail] >= 0 && exclusiveLinks[tail] != link)) {
+        continue;
+      }
+
+      final double linkFrequency = graph.getLinkFrequency(link);
+      double linkFlow = nodeFlows[tail];
+      if (linkFrequency != Double.POSITIVE_INFINITY) {
+        linkFlow *= linkFrequency / combinedFrequencies[tail];
+        stopBoardings[tail] += linkFlow;
+      }
+      nodeFlows[graph.getLinkHead(link)] += linkFlow;
+      if (graph.getLinkLegSegment(link) >= 0) {
+        legSegmentFlows[graph.getLinkLegSegment(link)] += linkFlow;
+      }
+    }
+    return unreachableDemand;
+  }
+
+  /**
+   * Expected cost from an origin to the destination of the most recently computed strategy
+   *
+   * @param originOdZoneId od zone id of the origin
+   * @return expected cost in hours, infinite when not reachable
+   */
+  public double getExpectedCost(final int originOdZoneId) {
+    return expectedCosts[graph.getZoneNode(originOdZoneId)];
+  }
+
+  /**
+   * Collect the graph
+   *
+   * @return graph
+   */
+  public FrequencyBasedTransitGraph getGraph() {
+    return graph;
+  }
+
+}
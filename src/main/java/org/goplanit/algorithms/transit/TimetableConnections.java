@@ -0,0 +1,593 @@
+package org.goplanit.algorithms.transit;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.graph.directed.DirectedVertex;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.service.ServiceNode;
+import org.goplanit.utils.service.routed.RelativeLegTiming;
+import org.goplanit.utils.service.routed.RoutedModeServices;
+import org.goplanit.utils.service.routed.RoutedService;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.service.routed.RoutedTripDeparture;
+import org.goplanit.utils.service.routed.RoutedTripSchedule;
+import org.goplanit.utils.zoning.Connectoid;
+import org.goplanit.utils.zoning.DirectedConnectoid;
+import org.goplanit.utils.zoning.TransferZone;
+import org.goplanit.utils.zoning.TransferZoneGroup;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Timetable of a routed services layer compiled into flat arrays for timetable based routing. Each departure of each schedule based trip is expanded into elementary connections,
+ * one per leg timing, which are sorted by departure time. Stops are the service nodes of the layer's parent service network layer.
+ * <p>
+ * Walking transfers are derived from the transfer connectoids of a zoning: stops accessible from the same transfer zone, or from transfer zones within the same transfer zone
+ * group, are connected by footpaths whose duration is based on the connectoid lengths, a walking speed and a minimum transfer time. Walking between the transfer zones of a
+ * group itself is not modelled. Footpaths are transitively closed as required by the connection scan: stops that can only be reached by walking via other stops, e.g., when a
+ * stop is accessible from two transfer zones, obtain a direct footpath with the duration of the shortest walk. The walking time of each footpath is retained separately from its
+ * duration, the difference being the minimum transfer time(s) included.
+ * </p>
+ * <p>
+ * Times are expressed in seconds of the extended day, see {@code ExtendedLocalTime}. Once compiled the timetable is immutable and can be shared between routers on different
+ * threads. Frequency based trips are not included.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class TimetableConnections {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(TimetableConnections.class.getCanonicalName());
+
+  /** nanoseconds per second */
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  /** default walking speed used for footpaths */
+  public static final double DEFAULT_WALKING_SPEED_KMH = 4.5;
+
+  /** default minimum transfer time in seconds added to each footpath */
+  public static final int DEFAULT_MINIMUM_TRANSFER_SECONDS = 60;
+
+  /** stops by stop index */
+  private final ServiceNode[] stops;
+
+  /** stop index by service node id */
+  private final Map<Long, Integer> stopIndexByServiceNodeId;
+
+  /** stop indices by the physical node they reside on */
+  private final Map<DirectedVertex, List<Integer>> stopsByPhysicalNode;
+
+  /** schedule of each trip by trip index */
+  private final RoutedTripSchedule[] tripSchedules;
+
+  /** departure of each trip by trip index */
+  private final RoutedTripDeparture[] tripDepartures;
+
+  /** departure stop index by connection index */
+  private int[] departureStops;
+
+  /** arrival stop index by connection index */
+  private int[] arrivalStops;
+
+  /** departure time in seconds by connection index, non-decreasing */
+  private int[] departureTimes;
+
+  /** arrival time in seconds by connection index */
+  private int[] arrivalTimes;
+
+  /** trip index by connection index */
+  private int[] trips;
+
+  /** offsets into the departing connections by stop index, with one additional entry */
+  private int[] departingConnectionOffsets;
+
+  /** connection indices departing from each stop, in order of departure */
+  private int[] departingConnections;
+
+  /** offsets into the footpaths by origin stop index, with one additional entry */
+  private int[] footpathOffsets;
+
+  /** destination stop index by footpath */
+  private int[] footpathTargets;
+
+  /** duration in seconds by footpath, including the minimum transfer time */
+  private int[] footpathDurations;
+
+  /** walking time in seconds by footpath, excluding the minimum transfer time */
+  private int[] footpathWalkingSeconds;
+
+  /**
+   * Convert a local time duration to seconds
+   *
+   * @param duration to convert, null is interpreted as zero
+   * @return seconds
+   */
+  private static int toSeconds(final LocalTime duration) {
+    return duration == null ? 0 : duration.toSecondOfDay();
+  }
+
+  /**
+   * Expand all departures of all schedule based trips into connections and sort them by departure time
+   */
+  private void compileConnections() {
+    int numberOfConnections = 0;
+    for (int trip = 0; trip < tripSchedules.length; ++trip) {
+      numberOfConnections += tripSchedules[trip].getRelativeLegTimingsSize();
+    }
+
+    final int[] unsortedDepartureStops = new int[numberOfConnections];
+    final int[] unsortedArrivalStops = new int[numberOfConnections];
+    final int[] unsortedDepartureTimes = new int[numberOfConnections];
+    final int[] unsortedArrivalTimes = new int[numberOfConnections];
+    final int[] unsortedTrips = new int[numberOfConnections];
+    /* sort key: departure time in upper bits, connection index in lower bits, which retains the leg order of zero duration legs */
+    final long[] sortKeys = new long[numberOfConnections];
+
+    int connection = 0;
+    for (int trip = 0; trip < tripSchedules.length; ++trip) {
+      int time = (int) (tripDepartures[trip].getDepartureTime().toNanoOfExtendedDay() / NANOS_PER_SECOND);
+      for (RelativeLegTiming legTiming : tripSchedules[trip]) {
+        final var legSegment = legTiming.getParentLegSegment();
+        unsortedDepartureStops[connection] = getStopIndex(legSegment.getUpstreamServiceNode());
+        unsortedArrivalStops[connection] = getStopIndex(legSegment.getDownstreamServiceNode());
+        unsortedDepartureTimes[connection] = time;
+        time += toSeconds(legTiming.getDuration());
+        unsortedArrivalTimes[connection] = time;
+        unsortedTrips[connection] = trip;
+        sortKeys[connection] = ((long) unsortedDepartureTimes[connection] << Integer.SIZE) | connection;
+        time += toSeconds(legTiming.getDwellTime());
+        ++connection;
+      }
+    }
+    Arrays.sort(sortKeys);
+
+    departureStops = new int[numberOfConnections];
+    arrivalStops = new int[numberOfConnections];
+    departureTimes = new int[numberOfConnections];
+    arrivalTimes = new int[numberOfConnections];
+    trips = new int[numberOfConnections];
+    for (int index = 0; index < numberOfConnections; ++index) {
+      final int unsortedIndex = (int) sortKeys[index];
+      departureStops[index] = unsortedDepartureStops[unsortedIndex];
+      arrivalStops[index] = unsortedArrivalStops[unsortedIndex];
+      departureTimes[index] = unsortedDepartureTimes[unsortedIndex];
+      arrivalTimes[index] = unsortedArrivalTimes[unsortedIndex];
+      trips[index] = unsortedTrips[unsortedIndex];
+    }
+
+    /* connections by departure stop, in order of departure since connections are sorted */
+    departingConnectionOffsets = new int[stops.length + 1];
+    for (int index = 0; index < numberOfConnections; ++index) {
+      ++departingConnectionOffsets[departureStops[index] + 1];
+    }
+    for (int stop = 0; stop < stops.length; ++stop) {
+      departingConnectionOffsets[stop + 1] += departingConnectionOffsets[stop];
+    }
+    departingConnections = new int[numberOfConnections];
+    final int[] nextPosition = Arrays.copyOf(departingConnectionOffsets, stops.length);
+    for (int index = 0; index < numberOfConnections; ++index) {
+      departingConnections[nextPosition[departureStops[index]]++] = index;
+    }
+  }
+
+  /**
+   * Transitively close the footpaths, such that each stop has a direct footpath to every stop it can walk to, with the duration of the shortest walk. The connection scan
+   * relaxes a single footpath per arrival, so without closure walks across multiple transfer locations, e.g., stops linked via a stop shared by two transfer zones, would be
+   * missed
+   *
+   * @param footpathByStopPair direct footpath duration and walking time keyed by origin and destination stop index
+   * @return closed footpath duration and walking time keyed by origin and destination stop index
+   */
+  private static Map<Long, int[]> closeFootpaths(final Map<Long, int[]> footpathByStopPair) {
+    final Map<Integer, List<int[]>> footpathsByOrigin = new HashMap<>();
+    footpathByStopPair.forEach((stopPair, footpath) -> footpathsByOrigin.computeIfAbsent((int) (stopPair >>> Integer.SIZE), origin -> new ArrayList<>())
+        .add(new int[] { (int) stopPair.longValue(), footpath[0], footpath[1] }));
+
+    /* shortest walk from each stop with footpaths, queue entries: duration in upper bits, stop in lower bits */
+    final Map<Long, int[]> closedFootpathByStopPair = new HashMap<>();
+    final Map<Integer, int[]> footpathByStop = new HashMap<>();
+    final PriorityQueue<Long> queue = new PriorityQueue<>();
+    for (int origin : footpathsByOrigin.keySet()) {
+      footpathByStop.clear();
+      footpathByStop.put(origin, new int[] { 0, 0 });
+      queue.add((long) origin);
+      while (!queue.isEmpty()) {
+        final long entry = queue.poll();
+        final int stop = (int) entry;
+        final int duration = (int) (entry >>> Integer.SIZE);
+        final int[] stopFootpath = footpathByStop.get(stop);
+        if (duration > stopFootpath[0]) {
+          continue;
+        }
+        if (stop != origin) {
+          closedFootpathByStopPair.put(((long) origin << Integer.SIZE) | stop, stopFootpath);
+        }
+        for (int[] footpath : footpathsByOrigin.getOrDefault(stop, List.of())) {
+          final int target = footpath[0];
+          final int targetDuration = duration + footpath[1];
+          final int[] currentFootpath = footpathByStop.get(target);
+          if (currentFootpath == null || targetDuration < currentFootpath[0]) {
+            footpathByStop.put(target, new int[] { targetDuration, stopFootpath[1] + footpath[2] });
+            queue.add(((long) targetDuration << Integer.SIZE) | target);
+          }
+        }
+      }
+    }
+    return closedFootpathByStopPair;
+  }
+
+  /**
+   * Create footpaths between all stops accessible from the same transfer zone or transfer zone group
+   *
+   * @param zoning                 to extract transfer connectoids from, may be null in which case no footpaths are created
+   * @param walkingSpeedKmH        to use
+   * @param minimumTransferSeconds to add to each footpath
+   */
+  private void compileFootpaths(final Zoning zoning, final double walkingSpeedKmH, final int minimumTransferSeconds) {
+    /* access distance in km of each stop by transfer zone */
+    final Map<TransferZone, Map<Integer, Double>> stopAccessKmByTransferZone = new HashMap<>();
+    if (zoning != null) {
+      for (DirectedConnectoid connectoid : zoning.getTransferConnectoids()) {
+        final List<Integer> accessStops = stopsByPhysicalNode.get(connectoid.getAccessVertex());
+        if (accessStops == null) {
+          continue;
+        }
+        for (Zone accessZone : connectoid) {
+          if (!(accessZone instanceof TransferZone)) {
+            continue;
+          }
+          final double lengthKm = connectoid.getLengthKm(accessZone).orElse(Connectoid.DEFAULT_LENGTH_KM);
+          final var stopAccessKm = stopAccessKmByTransferZone.computeIfAbsent((TransferZone) accessZone, zone -> new HashMap<>());
+          accessStops.forEach(stop -> stopAccessKm.merge(stop, lengthKm, Math::min));
+        }
+      }
+    }
+
+    final List<Map<Integer, Double>> transferLocations = new ArrayList<>(stopAccessKmByTransferZone.values());
+    if (zoning != null) {
+      for (TransferZoneGroup transferZoneGroup : zoning.getTransferZoneGroups()) {
+        final Map<Integer, Double> stopAccessKm = new HashMap<>();
+        for (TransferZone transferZone : transferZoneGroup) {
+          final var zoneStopAccessKm = stopAccessKmByTransferZone.get(transferZone);
+          if (zoneStopAccessKm != null) {
+            zoneStopAccessKm.forEach((stop, lengthKm) -> stopAccessKm.merge(stop, lengthKm, Math::min));
+          }
+        }
+        transferLocations.add(stopAccessKm);
+      }
+    }
+    /* stops sharing a physical node can always be transferred between */
+    for (List<Integer> nodeStops : stopsByPhysicalNode.values()) {
+      if (nodeStops.size() > 1) {
+        final Map<Integer, Double> stopAccessKm = new HashMap<>();
+        nodeStops.forEach(stop -> stopAccessKm.put(stop, 0.0));
+        transferLocations.add(stopAccessKm);
+      }
+    }
+
+    /* shortest footpath per stop pair (duration, walking time), keyed by origin and destination stop index */
+    final Map<Long, int[]> footpathByStopPair = new HashMap<>();
+    for (Map<Integer, Double> stopAccessKm : transferLocations) {
+      for (var origin : stopAccessKm.entrySet()) {
+        for (var destination : stopAccessKm.entrySet()) {
+          if (origin.getKey().equals(destination.getKey())) {
+            continue;
+          }
+          final int walkingSeconds = (int) Math.ceil(3600 * (origin.getValue() + destination.getValue()) / walkingSpeedKmH);
+          footpathByStopPair.merge(((long) origin.getKey() << Integer.SIZE) | destination.getKey(), new int[] { minimumTransferSeconds + walkingSeconds, walkingSeconds },
+              (current, candidate) -> candidate[0] < current[0] ? candidate : current);
+        }
+      }
+    }
+
+    final Map<Long, int[]> closedFootpathByStopPair = closeFootpaths(footpathByStopPair);
+    final long[] stopPairs = closedFootpathByStopPair.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+    footpathOffsets = new int[stops.length + 1];
+    footpathTargets = new int[stopPairs.length];
+    footpathDurations = new int[stopPairs.length];
+    footpathWalkingSeconds = new int[stopPairs.length];
+    for (int index = 0; index < stopPairs.length; ++index) {
+      final int origin = (int) (stopPairs[index] >>> Integer.SIZE);
+      ++footpathOffsets[origin + 1];
+      footpathTargets[index] = (int) stopPairs[index];
+      final int[] footpath = closedFootpathByStopPair.get(stopPairs[index]);
+      footpathDurations[index] = footpath[0];
+      footpathWalkingSeconds[index] = footpath[1];
+    }
+    for (int stop = 0; stop < stops.length; ++stop) {
+      footpathOffsets[stop + 1] += footpathOffsets[stop];
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param routedServicesLayer    to compile
+   * @param zoning                 to derive walking transfers from, may be null
+   * @param walkingSpeedKmH        to use for walking transfers
+   * @param minimumTransferSeconds to add to each walking transfer
+   */
+  protected TimetableConnections(final RoutedServicesLayer routedServicesLayer, final Zoning zoning, final double walkingSpeedKmH, final int minimumTransferSeconds) {
+    final var serviceNodes = routedServicesLayer.getParentLayer().getServiceNodes();
+    this.stops = new ServiceNode[(int) serviceNodes.size()];
+    this.stopIndexByServiceNodeId = new HashMap<>();
+    this.stopsByPhysicalNode = new HashMap<>();
+    int stop = 0;
+    for (ServiceNode serviceNode : serviceNodes) {
+      stops[stop] = serviceNode;
+      for (Node physicalNode : serviceNode.getPhysicalParentNodes()) {
+        stopsByPhysicalNode.computeIfAbsent(physicalNode, node -> new ArrayList<>(1)).add(stop);
+      }
+      stopIndexByServiceNodeId.put(serviceNode.getId(), stop++);
+    }
+
+    final List<RoutedTripSchedule> schedules = new ArrayList<>();
+    final List<RoutedTripDeparture> departures = new ArrayList<>();
+    for (RoutedModeServices modeServices : routedServicesLayer) {
+      for (RoutedService service : modeServices) {
+        for (RoutedTripSchedule schedule : service.getTripInfo().getScheduleBasedTrips()) {
+          for (RoutedTripDeparture departure : schedule.getDepartures()) {
+            schedules.add(schedule);
+            departures.add(departure);
+          }
+        }
+      }
+    }
+    this.tripSchedules = schedules.toArray(new RoutedTripSchedule[0]);
+    this.tripDepartures = departures.toArray(new RoutedTripDeparture[0]);
+
+    compileConnections();
+    compileFootpaths(zoning, walkingSpeedKmH, minimumTransferSeconds);
+
+    LOGGER.info(String.format("Compiled timetable with %d stops, %d trips, %d connections and %d footpaths", stops.length, tripSchedules.length, departureTimes.length,
+        footpathTargets.length));
+  }
+
+  /**
+   * Compile the timetable of a routed services layer with walking transfers derived from a zoning using default walking speed and minimum transfer time
+   *
+   * @param routedServicesLayer to compile
+   * @param zoning              to derive walking transfers from, may be null
+   * @return compiled timetable
+   */
+  public static TimetableConnections compile(final RoutedServicesLayer routedServicesLayer, final Zoning zoning) {
+    return compile(routedServicesLayer, zoning, DEFAULT_WALKING_SPEED_KMH, DEFAULT_MINIMUM_TRANSFER_SECONDS);
+  }
+
+  /**
+   * Compile the timetable of a routed services layer with walking transfers derived from a zoning
+   *
+   * @param routedServicesLayer    to compile
+   * @param zoning                 to derive walking transfers from, may be null
+   * @param walkingSpeedKmH        to use for walking transfers
+   * @param minimumTransferSeconds to add to each walking transfer
+   * @return compiled timetable
+   */
+  public static TimetableConnections compile(final RoutedServicesLayer routedServicesLayer, final Zoning zoning, final double walkingSpeedKmH,
+      final int minimumTransferSeconds) {
+    PlanItRunTimeException.throwIf(walkingSpeedKmH <= 0, "Walking speed must be positive, found %.2f", walkingSpeedKmH);
+    return new TimetableConnections(routedServicesLayer, zoning, walkingSpeedKmH, minimumTransferSeconds);
+  }
+
+  /**
+   * Find the first connection departing at or after the given time
+   *
+   * @param timeSeconds to find first connection for
+   * @return connection index, number of connections when none
+   */
+  public int findFirstConnectionAtOrAfter(final int timeSeconds) {
+    int low = 0;
+    int high = departureTimes.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (departureTimes[mid] < timeSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Collect the stop index of a service node
+   *
+   * @param serviceNode to collect stop index for
+   * @return stop index
+   */
+  public int getStopIndex(final ServiceNode serviceNode) {
+    final Integer stop = stopIndexByServiceNodeId.get(serviceNode.getId());
+    if (stop == null) {
+      throw new PlanItRunTimeException(String.format("Service node %s is not a stop of the compiled timetable", serviceNode.getXmlId()));
+    }
+    return stop;
+  }
+
+  /**
+   * Collect the stops residing on a physical node, not to be modified
+   *
+   * @param physicalNode to collect stops for
+   * @return stop indices, empty when none
+   */
+  public List<Integer> getStopsAt(final DirectedVertex physicalNode) {
+    return stopsByPhysicalNode.getOrDefault(physicalNode, List.of());
+  }
+
+  /**
+   * Collect the stop by its index
+   *
+   * @param stop index
+   * @return service node of the stop
+   */
+  public ServiceNode getStop(final int stop) {
+    return stops[stop];
+  }
+
+  /**
+   * Collect the schedule of a trip
+   *
+   * @param trip index
+   * @return schedule
+   */
+  public RoutedTripSchedule getTripSchedule(final int trip) {
+    return tripSchedules[trip];
+  }
+
+  /**
+   * Collect the departure of a trip
+   *
+   * @param trip index
+   * @return departure
+   */
+  public RoutedTripDeparture getTripDeparture(final int trip) {
+    return tripDepartures[trip];
+  }
+
+  /**
+   * Number of stops
+   *
+   * @return number of stops
+   */
+  public int getNumberOfStops() {
+    return stops.length;
+  }
+
+  /**
+   * Number of trips, i.e., departures of schedule based trips
+   *
+   * @return number of trips
+   */
+  public int getNumberOfTrips() {
+    return tripSchedules.length;
+  }
+
+  /**
+   * Number of connections
+   *
+   * @return number of connections
+   */
+  public int getNumberOfConnections() {
+    return departureTimes.length;
+  }
+
+  /**
+   * Departure stop of a connection
+   *
+   * @param connection index
+   * @return stop index
+   */
+  public int getDepartureStop(final int connection) {
+    return departureStops[connection];
+  }
+
+  /**
+   * Arrival stop of a connection
+   *
+   * @param connection index
+   * @return stop index
+   */
+  public int getArrivalStop(final int connection) {
+    return arrivalStops[connection];
+  }
+
+  /**
+   * Departure time of a connection
+   *
+   * @param connection index
+   * @return departure time in seconds
+   */
+  public int getDepartureTime(final int connection) {
+    return departureTimes[connection];
+  }
+
+  /**
+   * Arrival time of a connection
+   *
+   * @param connection index
+   * @return arrival time in seconds
+   */
+  public int getArrivalTime(final int connection) {
+    return arrivalTimes[connection];
+  }
+
+  /**
+   * Trip of a connection
+   *
+   * @param connection index
+   * @return trip index
+   */
+  public int getTrip(final int connection) {
+    return trips[connection];
+  }
+
+  /**
+   * Offset of the first connection departing from a stop in {@link #getDepartingConnection(int)}, the connections of the stop end at the offset of the next stop
+   *
+   * @param stop index
+   * @return offset
+   */
+  public int getDepartingConnectionsOffset(final int stop) {
+    return departingConnectionOffsets[stop];
+  }
+
+  /**
+   * Departing connection at the given position, see {@link #getDepartingConnectionsOffset(int)}
+   *
+   * @param position of the departing connection
+   * @return connection index
+   */
+  public int getDepartingConnection(final int position) {
+    return departingConnections[position];
+  }
+
+  /**
+   * Offset of the first footpath of a stop, the footpaths of the stop end at the offset of the next stop
+   *
+   * @param stop index
+   * @return offset
+   */
+  public int getFootpathsOffset(final int stop) {
+    return footpathOffsets[stop];
+  }
+
+  /**
+   * Destination stop of a footpath
+   *
+   * @param footpath index
+   * @return stop index
+   */
+  public int getFootpathTarget(final int footpath) {
+    return footpathTargets[footpath];
+  }
+
+  /**
+   * Duration of a footpath, including the minimum transfer time
+   *
+   * @param footpath index
+   * @return duration in seconds
+   */
+  public int getFootpathDuration(final int footpath) {
+    return footpathDurations[footpath];
+  }
+
+  /**
+   * Walking time of a footpath, i.e., its duration excluding the minimum transfer time
+   *
+   * @param footpath index
+   * @return walking time in seconds
+   */
+  public int getFootpathWalkingSeconds(final int footpath) {
+    return footpathWalkingSeconds[footpath];
+  }
+
+}
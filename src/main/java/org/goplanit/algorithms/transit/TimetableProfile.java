@@ -0,0 +1,104 @@
+package org.goplanit.algorithms.transit;
+
+import java.util.Arrays;
+
+/**
+ * Result of a profile (range) query of a {@link ConnectionScanRouter}. For each stop it holds the Pareto set of (departure time at origin, earliest arrival time at stop) pairs
+ * within the queried departure window, ordered by decreasing departure time and hence non-increasing arrival time.
+ *
+ * @author markr
+ *
+ */
+public class TimetableProfile {
+
+  /** initial capacity of each stop's entries */
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** departure times in seconds by stop, null when the stop is never reached */
+  private final int[][] departureTimes;
+
+  /** arrival times in seconds by stop, null when the stop is never reached */
+  private final int[][] arrivalTimes;
+
+  /** number of entries by stop */
+  private final int[] sizes;
+
+  /**
+   * Constructor
+   *
+   * @param numberOfStops to create profile for
+   */
+  protected TimetableProfile(final int numberOfStops) {
+    this.departureTimes = new int[numberOfStops][];
+    this.arrivalTimes = new int[numberOfStops][];
+    this.sizes = new int[numberOfStops];
+  }
+
+  /**
+   * Add an entry for a stop, expected to have an earlier departure and an earlier arrival than the previous entry of the stop
+   *
+   * @param stop          index
+   * @param departureTime in seconds
+   * @param arrivalTime   in seconds
+   */
+  protected void add(final int stop, final int departureTime, final int arrivalTime) {
+    if (departureTimes[stop] == null) {
+      departureTimes[stop] = new int[INITIAL_CAPACITY];
+      arrivalTimes[stop] = new int[INITIAL_CAPACITY];
+    } else if (sizes[stop] == departureTimes[stop].length) {
+      departureTimes[stop] = Arrays.copyOf(departureTimes[stop], sizes[stop] << 1);
+      arrivalTimes[stop] = Arrays.copyOf(arrivalTimes[stop], sizes[stop] << 1);
+    }
+    departureTimes[stop][sizes[stop]] = departureTime;
+    arrivalTimes[stop][sizes[stop]++] = arrivalTime;
+  }
+
+  /**
+   * Number of Pareto optimal entries of a stop
+   *
+   * @param stop index
+   * @return number of entries
+   */
+  public int getNumberOfEntries(final int stop) {
+    return sizes[stop];
+  }
+
+  /**
+   * Departure time at the origin of an entry
+   *
+   * @param stop  index
+   * @param entry index
+   * @return departure time in seconds
+   */
+  public int getDepartureTime(final int stop, final int entry) {
+    return departureTimes[stop][entry];
+  }
+
+  /**
+   * Earliest arrival time at the stop of an entry
+   *
+   * @param stop  index
+   * @param entry index
+   * @return arrival time in seconds
+   */
+  public int getArrivalTime(final int stop, final int entry) {
+    return arrivalTimes[stop][entry];
+  }
+
+  /**
+   * Earliest arrival at a stop when departing from the origin at or after the given time
+   *
+   * @param stop          index
+   * @param departureTime in seconds
+   * @return earliest arrival time in seconds, {@link ConnectionScanRouter#UNREACHABLE} when not reachable within the profile
+   */
+  public int getEarliestArrivalTime(final int stop, final int departureTime) {
+    /* entries are ordered by decreasing departure time, so the last entry departing at or after the given time is the earliest arrival */
+    int earliestArrival = ConnectionScanRouter.UNREACHABLE;
+    for (int entry = 0; entry < sizes[stop] && departureTimes[stop][entry] >= departureTime; ++entry) {
+      earliestArrival = arrivalTimes[stop][entry];
+    }
+    return earliestArrival;
+  }
+
+}
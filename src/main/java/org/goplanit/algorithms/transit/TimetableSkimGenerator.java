@@ -0,0 +1,277 @@
+package org.goplanit.algorithms.transit;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import org.goplanit.od.skim.OdSkimMatrix;
+import org.goplanit.output.enums.OdSkimSubOutputType;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.zoning.Connectoid;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.UndirectedConnectoid;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Generates public transport skim matrices for all od zones from a compiled timetable. For each origin, earliest arrival queries are performed for departure times sampled at a
+ * fixed interval across a departure time window, and the resulting travel time components are averaged over all samples for which the destination is reachable. Origins are
+ * processed in parallel, each concurrently processed origin using its own {@link ConnectionScanRouter} and thus its own label arrays, while sharing the timetable. Routers are
+ * reused across origins within a single generation and released once it completes.
+ * <p>
+ * Od zones access stops via their od connectoids, i.e., all stops residing on the access node of a connectoid, where access and egress time is based on the connectoid length and
+ * walking speed. The following skims are produced, times in hours:
+ * </p>
+ * <ul>
+ * <li>TRAVEL_TIME: total travel time from departure at the origin until arrival at the destination</li>
+ * <li>IN_VEHICLE_TIME: time spent on board of trips</li>
+ * <li>WAIT_TIME: time spent waiting at the first and transfer stops, including minimum transfer times</li>
+ * <li>ACCESS_EGRESS_TIME: access, egress and walking transfer time, excluding minimum transfer times</li>
+ * <li>TRANSFERS: number of transfers</li>
+ * </ul>
+ * <p>
+ * Od pairs that are not reachable in any sample obtain infinite values, intrazonal pairs zero. Skims are stored in {@link OdSkimMatrix} instances, where only the travel time
+ * skim is labelled as {@link OdSkimSubOutputType#COST}, the others are not tied to an od skim output type.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class TimetableSkimGenerator {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(TimetableSkimGenerator.class.getCanonicalName());
+
+  /** seconds per hour */
+  private static final double SECONDS_PER_HOUR = 3600.0;
+
+  /** default interval in seconds between sampled departure times */
+  public static final int DEFAULT_DEPARTURE_INTERVAL_SECONDS = 300;
+
+  /** default maximum travel time in seconds considered */
+  public static final int DEFAULT_MAX_TRAVEL_TIME_SECONDS = 3 * 3600;
+
+  /** skims produced, the position is used for the accumulators */
+  private static final TimetableSkimType[] SKIM_TYPES = TimetableSkimType.values();
+
+  /** compiled timetable to use */
+  private final TimetableConnections timetable;
+
+  /** zoning with od zones to create skims for */
+  private final Zoning zoning;
+
+  /** access stops by od zone id */
+  private final int[][] stopsByOdZone;
+
+  /** access (and egress) time in seconds by od zone id, matching the access stops */
+  private final int[][] accessSecondsByOdZone;
+
+  /** interval in seconds between sampled departure times */
+  private int departureIntervalSeconds = DEFAULT_DEPARTURE_INTERVAL_SECONDS;
+
+  /** maximum travel time in seconds */
+  private int maxTravelTimeSeconds = DEFAULT_MAX_TRAVEL_TIME_SECONDS;
+
+  /**
+   * Collect the access stops and times of all od zones via their od connectoids
+   *
+   * @param walkingSpeedKmH to use
+   */
+  private void initialiseZoneAccess(final double walkingSpeedKmH) {
+    final List<List<int[]>> stopAccess = new ArrayList<>();
+    for (int index = 0; index < stopsByOdZone.length; ++index) {
+      stopAccess.add(new ArrayList<>());
+    }
+    for (UndirectedConnectoid connectoid : zoning.getOdConnectoids()) {
+      final List<Integer> stops = timetable.getStopsAt(connectoid.getAccessVertex());
+      if (stops.isEmpty()) {
+        continue;
+      }
+      for (Zone accessZone : connectoid) {
+        if (!(accessZone instanceof OdZone)) {
+          continue;
+        }
+        final double lengthKm = connectoid.getLengthKm(accessZone).orElse(Connectoid.DEFAULT_LENGTH_KM);
+        final int accessSeconds = (int) Math.ceil(SECONDS_PER_HOUR * lengthKm / walkingSpeedKmH);
+        stops.forEach(stop -> stopAccess.get((int) ((OdZone) accessZone).getOdZoneId()).add(new int[] { stop, accessSeconds }));
+      }
+    }
+
+    int unconnected = 0;
+    for (int odZone = 0; odZone < stopsByOdZone.length; ++odZone) {
+      final var zoneStopAccess = stopAccess.get(odZone);
+      stopsByOdZone[odZone] = zoneStopAccess.stream().mapToInt(entry -> entry[0]).toArray();
+      accessSecondsByOdZone[odZone] = zoneStopAccess.stream().mapToInt(entry -> entry[1]).toArray();
+      unconnected += zoneStopAccess.isEmpty() ? 1 : 0;
+    }
+    if (unconnected > 0) {
+      LOGGER.warning(String.format("%d od zones have no access to any stop, they are unreachable by public transport", unconnected));
+    }
+  }
+
+  /**
+   * Compute and store the skims of a single origin
+   *
+   * @param origin             od zone id of the origin
+   * @param windowStartSeconds first departure time
+   * @param windowEndSeconds   last departure time
+   * @param skimMatrices       to store skims in, by skim type position
+   * @param routers            idle routers to use, a new router is created when none is available, the used router is returned afterwards
+   */
+  private void generateOrigin(final int origin, final int windowStartSeconds, final int windowEndSeconds, final OdSkimMatrix[] skimMatrices,
+      final Queue<ConnectionScanRouter> routers) {
+    final int numberOfOdZones = stopsByOdZone.length;
+    final double[][] sums = new double[SKIM_TYPES.length][numberOfOdZones];
+    final int[] samples = new int[numberOfOdZones];
+
+    if (stopsByOdZone[origin].length > 0) {
+      final ConnectionScanRouter pooledRouter = routers.poll();
+      final ConnectionScanRouter router = pooledRouter != null ? pooledRouter : new ConnectionScanRouter(timetable);
+      for (int departureTime = windowStartSeconds; departureTime <= windowEndSeconds; departureTime += departureIntervalSeconds) {
+        router.oneToAll(stopsByOdZone[origin], accessSecondsByOdZone[origin], departureTime, departureTime + maxTravelTimeSeconds);
+        for (int destination = 0; destination < numberOfOdZones; ++destination) {
+          if (destination == origin) {
+            continue;
+          }
+
+          /* egress via the stop that yields the earliest arrival at the destination */
+          final int[] egressStops = stopsByOdZone[destination];
+          int bestStop = -1;
+          int bestEgressSeconds = 0;
+          long bestArrivalTime = ConnectionScanRouter.UNREACHABLE;
+          for (int index = 0; index < egressStops.length; ++index) {
+            final int arrivalTime = router.getEarliestArrivalTime(egressStops[index]);
+            if (arrivalTime != ConnectionScanRouter.UNREACHABLE && (long) arrivalTime + accessSecondsByOdZone[destination][index] < bestArrivalTime) {
+              bestStop = egressStops[index];
+              bestEgressSeconds = accessSecondsByOdZone[destination][index];
+              bestArrivalTime = (long) arrivalTime + bestEgressSeconds;
+            }
+          }
+          if (bestStop < 0 || bestArrivalTime - departureTime > maxTravelTimeSeconds) {
+            continue;
+          }
+
+          final double travelTime = bestArrivalTime - departureTime;
+          final double inVehicleTime = router.getInVehicleSeconds(bestStop);
+          final double walkingTime = router.getWalkingSeconds(bestStop) + bestEgressSeconds;
+          sums[TimetableSkimType.TRAVEL_TIME.ordinal()][destination] += travelTime;
+          sums[TimetableSkimType.IN_VEHICLE_TIME.ordinal()][destination] += inVehicleTime;
+          sums[TimetableSkimType.WAIT_TIME.ordinal()][destination] += travelTime - inVehicleTime - walkingTime;
+          sums[TimetableSkimType.ACCESS_EGRESS_TIME.ordinal()][destination] += walkingTime;
+          sums[TimetableSkimType.TRANSFERS.ordinal()][destination] += Math.max(0, router.getNumberOfBoardings(bestStop) - 1);
+          ++samples[destination];
+        }
+      }
+      routers.offer(router);
+    }
+
+    for (int destination = 0; destination < numberOfOdZones; ++destination) {
+      for (int skim = 0; skim < SKIM_TYPES.length; ++skim) {
+        double value;
+        if (destination == origin) {
+          value = 0;
+        } else if (samples[destination] == 0) {
+          value = Double.POSITIVE_INFINITY;
+        } else {
+          value = sums[skim][destination] / samples[destination];
+          value = SKIM_TYPES[skim] == TimetableSkimType.TRANSFERS ? value : value / SECONDS_PER_HOUR;
+        }
+        skimMatrices[skim].setPrimitiveValue(origin, destination, value);
+      }
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param timetable       compiled timetable to use, shared by all threads
+   * @param zoning          with od zones and od connectoids to the network nodes stops reside on
+   * @param walkingSpeedKmH to use for access and egress
+   */
+  public TimetableSkimGenerator(final TimetableConnections timetable, final Zoning zoning, final double walkingSpeedKmH) {
+    PlanItRunTimeException.throwIf(walkingSpeedKmH <= 0, "Walking speed must be positive, found %.2f", walkingSpeedKmH);
+    this.timetable = timetable;
+    this.zoning = zoning;
+    this.stopsByOdZone = new int[(int) zoning.getOdZones().size()][];
+    this.accessSecondsByOdZone = new int[(int) zoning.getOdZones().size()][];
+    initialiseZoneAccess(walkingSpeedKmH);
+  }
+
+  /**
+   * Constructor using the default walking speed
+   *
+   * @param timetable compiled timetable to use, shared by all threads
+   * @param zoning    with od zones and od connectoids to the network nodes stops reside on
+   */
+  public TimetableSkimGenerator(final TimetableConnections timetable, final Zoning zoning) {
+    this(timetable, zoning, TimetableConnections.DEFAULT_WALKING_SPEED_KMH);
+  }
+
+  /**
+   * Generate the skims for all od pairs, averaged over the departure times sampled within the window. Origins are processed in parallel
+   *
+   * @param windowStartSeconds first departure time of the window in seconds of the extended day
+   * @param windowEndSeconds   last departure time of the window in seconds of the extended day
+   * @return skim matrices by skim type
+   */
+  public Map<TimetableSkimType, OdSkimMatrix> generate(final int windowStartSeconds, final int windowEndSeconds) {
+    PlanItRunTimeException.throwIf(windowEndSeconds < windowStartSeconds, "Departure time window end (%d) before its start (%d)", windowEndSeconds, windowStartSeconds);
+
+    final OdSkimMatrix[] skimMatrices = new OdSkimMatrix[SKIM_TYPES.length];
+    final Map<TimetableSkimType, OdSkimMatrix> skimMatrixMap = new EnumMap<>(TimetableSkimType.class);
+    for (int skim = 0; skim < SKIM_TYPES.length; ++skim) {
+      skimMatrices[skim] = new OdSkimMatrix(zoning.getOdZones(), SKIM_TYPES[skim] == TimetableSkimType.TRAVEL_TIME ? OdSkimSubOutputType.COST : OdSkimSubOutputType.NONE);
+      skimMatrixMap.put(SKIM_TYPES[skim], skimMatrices[skim]);
+    }
+
+    final long startTime = System.currentTimeMillis();
+    final Queue<ConnectionScanRouter> routers = new ConcurrentLinkedQueue<>();
+    IntStream.range(0, stopsByOdZone.length).parallel().forEach(origin -> generateOrigin(origin, windowStartSeconds, windowEndSeconds, skimMatrices, routers));
+    LOGGER.info(String.format("Generated public transport skims for %d od zones in %.1f seconds", stopsByOdZone.length, (System.currentTimeMillis() - startTime) / 1000.0));
+    return skimMatrixMap;
+  }
+
+  /**
+   * Set the interval between sampled departure times
+   *
+   * @param departureIntervalSeconds to use
+   */
+  public void setDepartureIntervalSeconds(final int departureIntervalSeconds) {
+    PlanItRunTimeException.throwIf(departureIntervalSeconds <= 0, "Departure interval must be positive, found %d", departureIntervalSeconds);
+    this.departureIntervalSeconds = departureIntervalSeconds;
+  }
+
+  /**
+   * Collect the interval between sampled departure times
+   *
+   * @return interval in seconds
+   */
+  public int getDepartureIntervalSeconds() {
+    return departureIntervalSeconds;
+  }
+
+  /**
+   * Set the maximum travel time, od pairs with larger travel times are considered unreachable
+   *
+   * @param maxTravelTimeSeconds to use
+   */
+  public void setMaxTravelTimeSeconds(final int maxTravelTimeSeconds) {
+    PlanItRunTimeException.throwIf(maxTravelTimeSeconds <= 0, "Maximum travel time must be positive, found %d", maxTravelTimeSeconds);
+    this.maxTravelTimeSeconds = maxTravelTimeSeconds;
+  }
+
+  /**
+   * Collect the maximum travel time
+   *
+   * @return maximum travel time in seconds
+   */
+  public int getMaxTravelTimeSeconds() {
+    return maxTravelTimeSeconds;
+  }
+
+}
@@ -0,0 +1,11 @@
+package org.goplanit.algorithms.transit;
+
+/**
+ * Types of skims produced by the {@link TimetableSkimGenerator}. These are not (yet) available as od skim output types, they are collected directly from the generator
+ * 
+ * @author markr
+ *
+ */
+public enum TimetableSkimType {
+  TRAVEL_TIME, IN_VEHICLE_TIME, WAIT_TIME, ACCESS_EGRESS_TIME, TRANSFERS;
+}
@@ -0,0 +1,4 @@
+/**
+ * Timetable based transit routing algorithms for PlanIt
+ */
+package org.goplanit.algorithms.transit;
@@ -0,0 +1,45 @@
+package org.goplanit.assignment;
+
+import java.util.logging.Logger;
+
+/**
+ * Utilities to determine how many independent assignment tasks (assignments, time periods) can be executed concurrently given the available processors and the memory headroom
+ * of the JVM
+ *
+ * @author markr
+ */
+public class AssignmentConcurrencyUtils {
+
+  /** Logger to use */
+  private static final Logger LOGGER = Logger.getLogger(AssignmentConcurrencyUtils.class.getCanonicalName());
+
+  /**
+   * Memory that is currently available to the JVM, i.e., the maximum memory minus the memory in use
+   *
+   * @return available memory (bytes)
+   */
+  public static long getAvailableMemoryBytes() {
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+  }
+
+  /**
+   * Determine the number of tasks to execute concurrently, limited by the configured maximum, the number of tasks, the available processors and the memory headroom of the JVM
+   *
+   * @param maxConcurrency        configured maximum
+   * @param numberOfTasks         to execute
+   * @param estimatedBytesPerTask estimated memory required to execute a single task
+   * @param loggingPrefix         to use
+   * @param taskDescription       used in logging, e.g., "time periods"
+   * @return concurrency limit, at least one
+   */
+  public static int determineConcurrencyLimit(int maxConcurrency, int numberOfTasks, long estimatedBytesPerTask, String loggingPrefix, String taskDescription) {
+    final long availableBytes = getAvailableMemoryBytes();
+    final long memoryLimit = Math.max(1, availableBytes / Math.max(1, estimatedBytesPerTask));
+    final int concurrencyLimit = (int) Math.max(1,
+        Math.min(Math.min(maxConcurrency, Runtime.getRuntime().availableProcessors()), Math.min(memoryLimit, numberOfTasks)));
+    LOGGER.info(String.format("%sExecuting %d %s with concurrency %d (estimated %.1f MB per task, %.1f MB available)", loggingPrefix, numberOfTasks, taskDescription,
+        concurrencyLimit, estimatedBytesPerTask / 1e6, availableBytes / 1e6));
+    return concurrencyLimit;
+  }
+}
@@ -1,13 +1,16 @@
 package org.goplanit.assignment;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
 import org.goplanit.assignment.algorithmb.AlgorithmB;
 import org.goplanit.assignment.ltm.eltm.EventBasedLtm;
 import org.goplanit.assignment.ltm.sltm.StaticLtm;
+import org.goplanit.assignment.metrics.AssignmentMetrics;
 import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignment;
+import org.goplanit.assignment.transit.FrequencyBasedTransitAssignment;
 import org.goplanit.component.PlanitComponent;
 import org.goplanit.cost.physical.AbstractPhysicalCost;
 import org.goplanit.cost.physical.initial.InitialModesLinkSegmentCost;
@@ -16,15 +19,18 @@ import org.goplanit.demands.Demands;
 import org.goplanit.gap.GapFunction;
 import org.goplanit.interactor.TrafficAssignmentComponentAccessee;
 import org.goplanit.network.LayeredNetwork;
+import org.goplanit.network.MacroscopicNetworkScenarioOverlay;
 import org.goplanit.network.TopologicalLayerNetwork;
 import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentImpl;
 import org.goplanit.network.transport.TransportModelNetwork;
 import org.goplanit.output.OutputManager;
 import org.goplanit.output.adapter.OutputTypeAdapter;
 import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.OutputFormatter;
 import org.goplanit.sdinteraction.smoothing.Smoothing;
 import org.goplanit.supply.networkloading.NetworkLoading;
 import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.misc.LoggingUtils;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
@@ -74,6 +80,34 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
    */
   private Demands demands = null;
 
+  /**
+   * The scenario overlay on the network to use, null when the network is used as is
+   */
+  private MacroscopicNetworkScenarioOverlay scenarioOverlay = null;
+
+  /**
+   * flag indicating the zoning's virtual network is integrated with (and removed from) the infrastructure network by the caller rather than by the assignment itself. This keeps
+   * the shared network unmodified during execution, so assignments that only read it can be executed concurrently
+   */
+  private boolean transportNetworkIntegratedExternally = false;
+
+  /* TIME PERIOD EXECUTION SETTINGS */
+
+  /**
+   * flag indicating if a time period's solution is seeded from the converged solution of the preceding time period
+   */
+  private boolean warmStartTimePeriods = DEFAULT_WARM_START_TIME_PERIODS;
+
+  /**
+   * maximum number of independent (not warm started) time periods to execute concurrently for assignments supporting this
+   */
+  private int maxConcurrentTimePeriods = DEFAULT_MAX_CONCURRENT_TIME_PERIODS;
+
+  /**
+   * registry of per phase timings and counters, disabled by default
+   */
+  private final AssignmentMetrics metrics;
+
   /* TRAFFIC ASSIGNMENT COMPONENTS */
 
   /**
@@ -161,7 +195,9 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
    */
   protected void createTransportNetwork() throws PlanItException {
     transportNetwork = new TransportModelNetwork(physicalNetwork, zoning);
-    transportNetwork.integrateTransportNetworkViaConnectoids();
+    if (!transportNetworkIntegratedExternally) {
+      transportNetwork.integrateTransportNetworkViaConnectoids();
+    }
     if (getTransportNetwork().getNumberOfEdgeSegmentsAllLayers() > Integer.MAX_VALUE) {
       throw new PlanItException("currently assignment internals expect to be castable to int, but max value is exceeded for link segments");
     }
@@ -193,14 +229,42 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
   // Public abstract methods
 
   /**
-   * detach the virtual and physical transport network again
+   * detach the virtual and physical transport network again, unless integrated externally in which case the caller is responsible
    * 
    * @throws PlanItException thrown if there is an error
    */
   protected void disbandTransportNetwork() throws PlanItException {
     // Disconnect here since the physical network might be reused in a different
     // assignment
-    transportNetwork.removeVirtualNetworkFromPhysicalNetwork();
+    if (transportNetwork != null && !transportNetworkIntegratedExternally) {
+      transportNetwork.removeVirtualNetworkFromPhysicalNetwork();
+    }
+  }
+
+  /**
+   * Indicate whether this assignment supports a scenario overlay. This requires all capacities, speeds and closures used during loading to be obtained via the physical cost
+   * (which applies the overlay) rather than directly from the network. Default is false, assignments that comply override this method
+   *
+   * @return true when supported, false otherwise
+   */
+  protected boolean isScenarioOverlaySupported() {
+    return false;
+  }
+
+  /**
+   * Verify that a non-empty scenario overlay, if set, is defined on this assignment's network and is supported by both the assignment and its physical cost
+   *
+   * @throws PlanItException thrown if the overlay cannot be applied
+   */
+  protected void verifyScenarioOverlayCompatibility() throws PlanItException {
+    if (scenarioOverlay == null || scenarioOverlay.isEmpty()) {
+      return;
+    }
+    PlanItException.throwIf(scenarioOverlay.getBaseNetwork() != getInfrastructureNetwork(), "Scenario overlay is not defined on the network of assignment %s", getXmlId());
+    PlanItException.throwIf(!isScenarioOverlaySupported(), "Scenario overlay not supported by assignment %s, it reads network data directly during loading",
+        getClass().getCanonicalName());
+    PlanItException.throwIf(getPhysicalCost() == null || !getPhysicalCost().isScenarioOverlaySupported(), "Scenario overlay not supported by physical cost %s",
+        getPhysicalCost() == null ? "null" : getPhysicalCost().getClass().getCanonicalName());
   }
 
   /**
@@ -214,9 +278,13 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     createTransportNetwork();
     /* check components, including the transport network that just has been created */
     verifyComponentCompatibility();
+    verifyScenarioOverlayCompatibility();
 
     outputManager.initialiseBeforeSimulation(getId());
 
+    if (scenarioOverlay != null) {
+      getPhysicalCost().setScenarioOverlay(scenarioOverlay);
+    }
     getPhysicalCost().initialiseBeforeSimulation(physicalNetwork);
     getVirtualCost().initialiseBeforeSimulation(zoning.getVirtualNetwork());
   }
@@ -269,6 +337,22 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     trafficAssignmentComponents.put(componentKey, component);
   }
 
+  /**
+   * Determine the number of time periods to execute concurrently, limited by the configured maximum, the available processors and the memory headroom of the JVM. Warm started
+   * time periods depend on their predecessor and are therefore always executed sequentially
+   *
+   * @param estimatedBytesPerTimePeriod estimated memory required to execute a single time period
+   * @param numberOfTimePeriods         to execute
+   * @return concurrency limit, at least one
+   */
+  protected int determineTimePeriodConcurrency(long estimatedBytesPerTimePeriod, int numberOfTimePeriods) {
+    if (warmStartTimePeriods || maxConcurrentTimePeriods <= 1 || numberOfTimePeriods <= 1) {
+      return 1;
+    }
+    return AssignmentConcurrencyUtils.determineConcurrencyLimit(maxConcurrentTimePeriods, numberOfTimePeriods, estimatedBytesPerTimePeriod, LoggingUtils.runIdPrefix(getId()),
+        "time periods");
+  }
+
   // Public
 
   // Public abstract methods
@@ -285,6 +369,15 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
   /** short hand to choose sLTM as assignment type */
   public static String SLTM = StaticLtm.class.getCanonicalName();
 
+  /** short hand to choose frequency based transit assignment as assignment type */
+  public static String FREQUENCY_BASED_TRANSIT = FrequencyBasedTransitAssignment.class.getCanonicalName();
+
+  /** default for warm starting time periods from the preceding time period's solution */
+  public static final boolean DEFAULT_WARM_START_TIME_PERIODS = false;
+
+  /** default maximum number of concurrently executed time periods, i.e., sequential execution */
+  public static final int DEFAULT_MAX_CONCURRENT_TIME_PERIODS = 1;
+
   /**
    * Constructor. Note that defaults that partly depend on derived classes are assumed to be invoked by the calling method via this.initialiseDefaults()
    * 
@@ -294,6 +387,7 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     super(groupId);
     trafficAssignmentComponents = new HashMap<Class<? extends PlanitComponent<?>>, PlanitComponent<?>>();
     initialLinkSegmentCostByTimePeriod = new HashMap<TimePeriod, InitialModesLinkSegmentCost>();
+    metrics = new AssignmentMetrics(getId());
   }
 
   /**
@@ -308,6 +402,12 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     this.demands        = deepCopy ? other.demands.deepClone()          : other.demands.shallowClone();
     this.physicalNetwork= deepCopy ? other.physicalNetwork.deepClone()  : other.physicalNetwork.shallowClone();
     this.zoning         = deepCopy ? other.zoning.deepClone()           : other.zoning.shallowClone();
+    this.scenarioOverlay = other.scenarioOverlay;
+    /* a deep copy owns its network and zoning, so it cannot rely on an external integration */
+    this.transportNetworkIntegratedExternally = !deepCopy && other.transportNetworkIntegratedExternally;
+    this.warmStartTimePeriods = other.warmStartTimePeriods;
+    this.maxConcurrentTimePeriods = other.maxConcurrentTimePeriods;
+    this.metrics = new AssignmentMetrics(getId(), other.metrics);
 
     this.trafficAssignmentComponents = new HashMap<>();
     other.trafficAssignmentComponents.entrySet().forEach(
@@ -346,12 +446,18 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
 
     LOGGER.info(LoggingUtils.runIdPrefix(getId()) + LoggingUtils.surround(this.getClass().getSimpleName(), '-', 17));
 
+    metrics.reset();
+
     initialiseBeforeExecution();
 
     executeEquilibration();
 
     finalizeAfterExecution();
 
+    if (metrics.isEnabled()) {
+      metrics.logSummary(LoggingUtils.runIdPrefix(getId()));
+    }
+
     LOGGER.info(LoggingUtils.runIdPrefix(getId()) + LoggingUtils.surround(this.getClass().getSimpleName(), '-', 17));
   }
 
@@ -419,6 +525,120 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     return this.physicalNetwork;
   }
 
+  /**
+   * Set the scenario overlay to apply on the infrastructure network for the current assignment. The network itself remains unmodified, so it can be shared between assignments of
+   * different scenarios. Only supported by assignments and physical costs that obtain all network data via the overlay, any other combination is rejected upon execution
+   *
+   * @param scenarioOverlay to apply, null to use the network as is
+   */
+  public void setScenarioOverlay(final MacroscopicNetworkScenarioOverlay scenarioOverlay) {
+    this.scenarioOverlay = scenarioOverlay;
+  }
+
+  /**
+   * Indicate whether the zoning's virtual network is integrated with the infrastructure network by the caller before execution (and removed after), rather than by the assignment.
+   * When set, the assignment does not modify the infrastructure network or zoning during execution
+   *
+   * @param transportNetworkIntegratedExternally flag to set
+   */
+  public void setTransportNetworkIntegratedExternally(boolean transportNetworkIntegratedExternally) {
+    this.transportNetworkIntegratedExternally = transportNetworkIntegratedExternally;
+  }
+
+  /**
+   * Verify if the zoning's virtual network is integrated with the infrastructure network by the caller rather than by the assignment
+   *
+   * @return true when integrated externally, false otherwise
+   */
+  public boolean isTransportNetworkIntegratedExternally() {
+    return transportNetworkIntegratedExternally;
+  }
+
+  /**
+   * Get the scenario overlay applied on the infrastructure network for the current assignment
+   *
+   * @return scenario overlay, null when none
+   */
+  public MacroscopicNetworkScenarioOverlay getScenarioOverlay() {
+    return this.scenarioOverlay;
+  }
+
+  /**
+   * Set whether each time period is warm started from the converged solution of the preceding time period (by start time) rather than from scratch
+   *
+   * @param warmStartTimePeriods flag to set
+   */
+  public void setWarmStartTimePeriods(boolean warmStartTimePeriods) {
+    this.warmStartTimePeriods = warmStartTimePeriods;
+  }
+
+  /**
+   * Verify whether time periods are warm started from the preceding time period
+   *
+   * @return true when warm started, false otherwise
+   */
+  public boolean isWarmStartTimePeriods() {
+    return warmStartTimePeriods;
+  }
+
+  /**
+   * Set the maximum number of time periods to execute concurrently. Only used by assignments supporting concurrent time periods and when time periods are not warm started. The
+   * actual concurrency is further limited by the available processors and the estimated memory per time period
+   *
+   * @param maxConcurrentTimePeriods to use, 1 for sequential execution
+   */
+  public void setMaxConcurrentTimePeriods(int maxConcurrentTimePeriods) {
+    if (maxConcurrentTimePeriods < 1) {
+      throw new PlanItRunTimeException("Maximum number of concurrent time periods must be positive, found %d", maxConcurrentTimePeriods);
+    }
+    this.maxConcurrentTimePeriods = maxConcurrentTimePeriods;
+  }
+
+  /**
+   * Collect the maximum number of time periods to execute concurrently
+   *
+   * @return maximum number of concurrent time periods
+   */
+  public int getMaxConcurrentTimePeriods() {
+    return maxConcurrentTimePeriods;
+  }
+
+  /**
+   * Collect the registry of per phase timings and counters of this assignment. Metrics are reset at the start of each execution
+   *
+   * @return metrics
+   */
+  public AssignmentMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set whether per phase timings and counters are collected during execution. When collected, a summary is logged upon completion of the execution
+   *
+   * @param collectMetrics flag to set
+   */
+  public void setCollectMetrics(boolean collectMetrics) {
+    metrics.setEnabled(collectMetrics);
+  }
+
+  /**
+   * Set whether each completed phase is emitted as JFR event, only relevant when metrics are collected
+   *
+   * @param emitMetricsAsJfrEvents flag to set
+   */
+  public void setEmitMetricsAsJfrEvents(boolean emitMetricsAsJfrEvents) {
+    metrics.setEmitJfrEvents(emitMetricsAsJfrEvents);
+  }
+
+  /**
+   * Collect the output formatters registered on the output manager of this assignment
+   *
+   * @return registered output formatters, null when no output manager is present
+   */
+  public List<OutputFormatter> getOutputFormatters() {
+    return outputManager == null ? null : outputManager.getOutputFormatters();
+  }
+
   /**
    * Get the demands for the current assignment
    *
@@ -574,6 +794,17 @@ public abstract class TrafficAssignment extends NetworkLoading implements Traffi
     return component;
   }
 
+  /**
+   * Replace an output formatter registered on the output manager of this assignment, e.g., by an isolated copy such that this assignment does not share the formatter's state with
+   * assignments that are executed concurrently
+   * 
+   * @param outputFormatter to be replaced
+   * @param replacement     to register in its place
+   */
+  public void replaceOutputFormatter(final OutputFormatter outputFormatter, final OutputFormatter replacement) {
+    outputManager.replaceOutputFormatter(outputFormatter, replacement);
+  }
+
   /**
    * Set the output manager which holds all the configuration options regarding this assignment
    * 
@@ -1,7 +1,9 @@
 package org.goplanit.assignment;
 
+import org.goplanit.assignment.ltm.eltm.EventBasedLtmTrafficAssignmentBuilder;
 import org.goplanit.assignment.ltm.sltm.StaticLtmTrafficAssignmentBuilder;
 import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentBuilder;
+import org.goplanit.assignment.transit.FrequencyBasedTransitAssignmentBuilder;
 import org.goplanit.demands.Demands;
 import org.goplanit.input.InputBuilderListener;
 import org.goplanit.network.LayeredNetwork;
@@ -36,6 +38,10 @@ public class TrafficAssignmentBuilderFactory {
       return new TraditionalStaticAssignmentBuilder(projectToken, inputBuilder, theDemands, theZoning, theNetwork);
     } else if (trafficAssignmentType.equals(TrafficAssignment.SLTM)) {
       return new StaticLtmTrafficAssignmentBuilder(projectToken, inputBuilder, theDemands, theZoning, theNetwork);
+    } else if (trafficAssignmentType.equals(TrafficAssignment.ELTM)) {
+      return new EventBasedLtmTrafficAssignmentBuilder(projectToken, inputBuilder, theDemands, theZoning, theNetwork);
+    } else if (trafficAssignmentType.equals(TrafficAssignment.FREQUENCY_BASED_TRANSIT)) {
+      return new FrequencyBasedTransitAssignmentBuilder(projectToken, inputBuilder, theDemands, theZoning, theNetwork);
 
     } else {
       throw new PlanItException(String.format("Unable to construct builder for given trafficAssignmentType %s", trafficAssignmentType));
@@ -16,6 +16,7 @@ import org.goplanit.gap.GapFunction;
 import org.goplanit.gap.GapFunctionConfigurator;
 import org.goplanit.gap.GapFunctionConfiguratorFactory;
 import org.goplanit.network.LayeredNetwork;
+import org.goplanit.network.MacroscopicNetworkScenarioOverlay;
 import org.goplanit.output.OutputManager;
 import org.goplanit.output.configuration.OutputConfiguration;
 import org.goplanit.output.configuration.OutputTypeConfiguration;
@@ -58,6 +59,16 @@ public class TrafficAssignmentConfigurator<T extends TrafficAssignment> extends
 
   protected static final String SET_DEMANDS = "setDemands";
 
+  protected static final String SET_SCENARIO_OVERLAY = "setScenarioOverlay";
+
+  protected static final String SET_WARM_START_TIME_PERIODS = "setWarmStartTimePeriods";
+
+  protected static final String SET_MAX_CONCURRENT_TIME_PERIODS = "setMaxConcurrentTimePeriods";
+
+  protected static final String SET_COLLECT_METRICS = "setCollectMetrics";
+
+  protected static final String SET_EMIT_METRICS_AS_JFR_EVENTS = "setEmitMetricsAsJfrEvents";
+
   /** flag indicating if settings are to be logged upon building the component or not */
   protected boolean logSettings = TrafficAssignmentBuilder.LOG_SETTINGS;
 
@@ -108,6 +119,24 @@ public class TrafficAssignmentConfigurator<T extends TrafficAssignment> extends
     registerDelayedMethodCall(SET_DEMANDS, demands);
   }
 
+  /**
+   * Set the scenario overlay to apply on the network, leaving the network itself unmodified
+   * 
+   * @param scenarioOverlay to set
+   */
+  public void setScenarioOverlay(MacroscopicNetworkScenarioOverlay scenarioOverlay) {
+    registerDelayedMethodCall(SET_SCENARIO_OVERLAY, scenarioOverlay);
+  }
+
+  /**
+   * Collect the registered scenario overlay
+   * 
+   * @return collected scenario overlay, null if not set
+   */
+  public MacroscopicNetworkScenarioOverlay getScenarioOverlay() {
+    return (MacroscopicNetworkScenarioOverlay) getFirstParameterOfDelayedMethodCall(SET_SCENARIO_OVERLAY);
+  }
+
   /**
    * Set the output manager
    * 
@@ -171,6 +200,42 @@ public class TrafficAssignmentConfigurator<T extends TrafficAssignment> extends
     this.logSettings = flag;
   }
 
+  /**
+   * Set whether each time period is warm started from the converged solution of the preceding time period
+   *
+   * @param flag to set
+   */
+  public void setWarmStartTimePeriods(boolean flag) {
+    registerDelayedMethodCall(SET_WARM_START_TIME_PERIODS, flag);
+  }
+
+  /**
+   * Set the maximum number of independent time periods to execute concurrently, only used by assignments supporting this and when time periods are not warm started
+   *
+   * @param maxConcurrentTimePeriods to use, 1 for sequential execution
+   */
+  public void setMaxConcurrentTimePeriods(int maxConcurrentTimePeriods) {
+    registerDelayedMethodCall(SET_MAX_CONCURRENT_TIME_PERIODS, maxConcurrentTimePeriods);
+  }
+
+  /**
+   * Set whether per phase timings and counters are collected during execution
+   *
+   * @param flag to set
+   */
+  public void setCollectMetrics(boolean flag) {
+    registerDelayedMethodCall(SET_COLLECT_METRICS, flag);
+  }
+
+  /**
+   * Set whether each completed phase is emitted as JFR event, only relevant when metrics are collected
+   *
+   * @param flag to set
+   */
+  public void setEmitMetricsAsJfrEvents(boolean flag) {
+    registerDelayedMethodCall(SET_EMIT_METRICS_AS_JFR_EVENTS, flag);
+  }
+
   /**
    * Get the flag for logging all settings
    * 
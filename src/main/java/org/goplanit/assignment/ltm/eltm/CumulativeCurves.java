@@ -0,0 +1,169 @@
+package org.goplanit.assignment.ltm.eltm;
+
+import java.util.Arrays;
+
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+
+/**
+ * Cumulative vehicle curves at the upstream and downstream boundary of each link segment, stored as compact piecewise linear arrays. Each curve consists of breakpoints (time in
+ * seconds, cumulative value in pcu) and the flow rate (pcu/h) from that breakpoint onwards. Breakpoints are only appended when the flow rate at a boundary changes, so the memory
+ * footprint is proportional to the number of flow changes rather than the simulated duration. Arrays are allocated upon the first change of a curve.
+ *
+ * @author markr
+ *
+ */
+public class CumulativeCurves {
+
+  /** initial number of breakpoints per curve */
+  private static final int INITIAL_CAPACITY = 4;
+
+  /** breakpoint times by curve */
+  private final double[][] times;
+
+  /** cumulative values at breakpoints by curve */
+  private final double[][] values;
+
+  /** flow rate after each breakpoint by curve in pcu/h */
+  private final double[][] rates;
+
+  /** number of breakpoints by curve */
+  private final int[] sizes;
+
+  /**
+   * Curve index for a link segment boundary
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @return curve index
+   */
+  private static int curveIndex(int linkSegmentId, Location location) {
+    return (linkSegmentId << 1) + location.ordinal();
+  }
+
+  /**
+   * Evaluate curve at a time using the breakpoint at or before that time
+   *
+   * @param curve    index
+   * @param position of the breakpoint at or before the time
+   * @param time     to evaluate in seconds
+   * @return cumulative value
+   */
+  private double evaluate(int curve, int position, double time) {
+    return values[curve][position] + rates[curve][position] * (time - times[curve][position]) / 3600.0;
+  }
+
+  /**
+   * Constructor, all curves start at zero with zero flow
+   *
+   * @param numberOfLinkSegments number of link segments (by id) to track
+   */
+  public CumulativeCurves(int numberOfLinkSegments) {
+    int numberOfCurves = numberOfLinkSegments << 1;
+    this.times = new double[numberOfCurves][];
+    this.values = new double[numberOfCurves][];
+    this.rates = new double[numberOfCurves][];
+    this.sizes = new int[numberOfCurves];
+  }
+
+  /**
+   * Cumulative value at given time
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @param time          in seconds
+   * @return cumulative value in pcu
+   */
+  public double getValue(int linkSegmentId, Location location, double time) {
+    int curve = curveIndex(linkSegmentId, location);
+    int size = sizes[curve];
+    if (size == 0 || time <= times[curve][0]) {
+      return size == 0 ? 0 : values[curve][0];
+    }
+    /* most queries are near the end of the curve */
+    int position = size - 1;
+    if (times[curve][position] > time) {
+      position = Arrays.binarySearch(times[curve], 0, size, time);
+      position = position >= 0 ? position : -position - 2;
+    }
+    return evaluate(curve, position, time);
+  }
+
+  /**
+   * Current (most recent) flow rate
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @return rate in pcu/h
+   */
+  public double getRate(int linkSegmentId, Location location) {
+    int curve = curveIndex(linkSegmentId, location);
+    return sizes[curve] == 0 ? 0 : rates[curve][sizes[curve] - 1];
+  }
+
+  /**
+   * Change the flow rate from the given time onwards. When the time coincides with the most recent breakpoint, the rate of that breakpoint is replaced, i.e., multiple changes at
+   * the same moment are merged. Times before the most recent breakpoint are not allowed since the curve cannot be changed retroactively
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @param time          in seconds
+   * @param rate          new rate in pcu/h
+   * @throws PlanItRunTimeException thrown when time is before the most recent breakpoint
+   */
+  public void setRate(int linkSegmentId, Location location, double time, double rate) {
+    int curve = curveIndex(linkSegmentId, location);
+    int size = sizes[curve];
+    if (size == 0) {
+      times[curve] = new double[INITIAL_CAPACITY];
+      values[curve] = new double[INITIAL_CAPACITY];
+      rates[curve] = new double[INITIAL_CAPACITY];
+    } else if (times[curve][size - 1] == time) {
+      /* same moment, merge by replacing the rate */
+      rates[curve][size - 1] = rate;
+      return;
+    } else if (times[curve][size - 1] > time) {
+      throw new PlanItRunTimeException(String.format("Unable to change rate of link segment %d (%s) at %.3fs, before most recent breakpoint at %.3fs", linkSegmentId, location,
+          time, times[curve][size - 1]));
+    } else if (size == times[curve].length) {
+      int newCapacity = size + (size >> 1);
+      times[curve] = Arrays.copyOf(times[curve], newCapacity);
+      values[curve] = Arrays.copyOf(values[curve], newCapacity);
+      rates[curve] = Arrays.copyOf(rates[curve], newCapacity);
+    }
+    values[curve][size] = size == 0 ? 0 : evaluate(curve, size - 1, time);
+    times[curve][size] = time;
+    rates[curve][size] = rate;
+    sizes[curve] = size + 1;
+  }
+
+  /**
+   * Integral of the cumulative curve from zero up to the given time, i.e., the area under the curve
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @param time          in seconds
+   * @return integral in pcu seconds
+   */
+  public double getIntegral(int linkSegmentId, Location location, double time) {
+    int curve = curveIndex(linkSegmentId, location);
+    int size = sizes[curve];
+    double integral = 0;
+    for (int position = 0; position < size && times[curve][position] < time; ++position) {
+      double end = position + 1 < size ? Math.min(times[curve][position + 1], time) : time;
+      integral += 0.5 * (values[curve][position] + evaluate(curve, position, end)) * (end - times[curve][position]);
+    }
+    return integral;
+  }
+
+  /**
+   * Number of breakpoints of a curve
+   *
+   * @param linkSegmentId link segment id
+   * @param location      boundary location
+   * @return number of breakpoints
+   */
+  public int getNumberOfBreakpoints(int linkSegmentId, Location location) {
+    return sizes[curveIndex(linkSegmentId, location)];
+  }
+}
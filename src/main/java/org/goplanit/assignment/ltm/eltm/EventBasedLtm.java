@@ -1,29 +1,240 @@
 package org.goplanit.assignment.ltm.eltm;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import org.goplanit.assignment.ltm.LtmAssignment;
-import org.goplanit.interactor.InteractorAccessor;
+import org.goplanit.interactor.LinkInflowOutflowAccessee;
+import org.goplanit.od.demand.OdDemands;
 import org.goplanit.output.adapter.OutputTypeAdapter;
 import org.goplanit.output.enums.OutputType;
+import org.goplanit.supply.fundamentaldiagram.FundamentalDiagramComponent;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.misc.LoggingUtils;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.time.TimePeriod;
 
 /**
- * Event based Link Transmission Model implementation (eLTM) for network loading using a capacity constrained (Deterministic) assignment
+ * Event based Link Transmission Model implementation (eLTM) for network loading using a capacity constrained (Deterministic) assignment. Each time period is loaded once with
+ * constant demand rates, see {@link EventBasedLtmNetworkLoading}, after which the loading continues until the network is empty or the horizon, expressed as a multiple of the time
+ * period duration, is reached.
  *
  * @author markr
  *
  */
-public class EventBasedLtm extends LtmAssignment {
+public class EventBasedLtm extends LtmAssignment implements LinkInflowOutflowAccessee {
 
   /** generated UID */
   private static final long serialVersionUID = 994316948946768870L;
 
+  /** logger to use */
+  private static final Logger LOGGER = Logger.getLogger(EventBasedLtm.class.getCanonicalName());
+
+  /** default horizon as a multiple of the time period duration */
+  public static final double DEFAULT_HORIZON_FACTOR = 2.0;
+
+  /** horizon as a multiple of the time period duration */
+  private double horizonFactor = DEFAULT_HORIZON_FACTOR;
+
+  /** rough estimate of memory required per edge segment for a single time period's loading (curves, events, node state) in bytes */
+  private static final long ESTIMATED_BYTES_PER_EDGE_SEGMENT = 1024L;
+
+  /** most recent loading */
+  private EventBasedLtmNetworkLoading loading;
+
+  /** duration of the most recently loaded time period in seconds */
+  private double loadedDurationSeconds;
+
+  /** loadings of all time periods of the most recent execution */
+  private final Map<TimePeriod, EventBasedLtmNetworkLoading> loadingByTimePeriod = new LinkedHashMap<>();
+
+  /**
+   * A time period's loading with all its inputs prepared, so it can be executed independently of the assignment's (non thread safe) components
+   */
+  private static class PreparedTimePeriod {
+
+    /** the time period */
+    private final TimePeriod timePeriod;
+
+    /** the mode to load */
+    private final Mode mode;
+
+    /** the loading to execute */
+    private final EventBasedLtmNetworkLoading loading;
+
+    /** demands to load */
+    private final OdDemands odDemands;
+
+    /** free flow costs by edge segment */
+    private final double[] edgeSegmentCosts;
+
+    /** horizon in seconds */
+    private final double horizonSeconds;
+
+    /**
+     * Constructor
+     *
+     * @param timePeriod       the time period
+     * @param mode             the mode to load
+     * @param loading          to execute
+     * @param odDemands        to load
+     * @param edgeSegmentCosts free flow costs
+     * @param horizonSeconds   horizon
+     */
+    private PreparedTimePeriod(TimePeriod timePeriod, Mode mode, EventBasedLtmNetworkLoading loading, OdDemands odDemands, double[] edgeSegmentCosts, double horizonSeconds) {
+      this.timePeriod = timePeriod;
+      this.mode = mode;
+      this.loading = loading;
+      this.odDemands = odDemands;
+      this.edgeSegmentCosts = edgeSegmentCosts;
+      this.horizonSeconds = horizonSeconds;
+    }
+
+    /**
+     * Execute the loading
+     *
+     * @throws PlanItException thrown if error
+     */
+    private void execute() throws PlanItException {
+      loading.execute(odDemands, edgeSegmentCosts, horizonSeconds);
+    }
+  }
+
+  /**
+   * Prepare a time period's loading on the calling thread, i.e., create the loading and its free flow costs
+   *
+   * @param timePeriod to prepare traffic assignment for
+   * @param modes      used for time period
+   * @return prepared time period, null when there is nothing to load
+   * @throws PlanItException thrown if error
+   */
+  private PreparedTimePeriod prepareTimePeriod(final TimePeriod timePeriod, final Set<Mode> modes) throws PlanItException {
+    if (modes.size() != 1) {
+      LOGGER.warning(String.format("%seLTM only supports a single mode for now, found %d, aborting assignment for time period %s", LoggingUtils.runIdPrefix(getId()),
+          modes.size(), timePeriod.getXmlId()));
+      return null;
+    }
+
+    Mode theMode = modes.iterator().next();
+    var odDemands = getDemands().get(theMode, timePeriod);
+    if (odDemands == null) {
+      return null;
+    }
+
+    double durationSeconds = timePeriod.getDurationSeconds();
+    var newLoading = new EventBasedLtmNetworkLoading(getTransportNetwork(), getUsedNetworkLayer(), theMode,
+        getTrafficAssignmentComponent(FundamentalDiagramComponent.class), durationSeconds);
+
+    /* splitting rates based on free flow costs */
+    getVirtualCost().updateTimePeriod(timePeriod);
+    var connectoidSegmentCosts = new double[getTotalNumberOfNetworkSegments()];
+    getVirtualCost().populateWithCost(getTransportNetwork().getVirtualNetwork(), theMode, connectoidSegmentCosts);
+
+    return new PreparedTimePeriod(timePeriod, theMode, newLoading, odDemands, newLoading.createFreeFlowCosts(connectoidSegmentCosts), horizonFactor * durationSeconds);
+  }
+
+  /**
+   * Register the executed loading of a time period and persist its results. Each time period is loaded once, so results are persisted as converged
+   *
+   * @param prepared the executed time period
+   * @throws PlanItException thrown if error
+   */
+  private void registerLoading(final PreparedTimePeriod prepared) throws PlanItException {
+    loadingByTimePeriod.put(prepared.timePeriod, prepared.loading);
+    this.loading = prepared.loading;
+    this.loadedDurationSeconds = prepared.timePeriod.getDurationSeconds();
+    LOGGER.info(String.format("%sprocessed %d events, %d node updates", LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(prepared.timePeriod),
+        prepared.loading.getNumberOfProcessedEvents(), prepared.loading.getNumberOfNodeUpdates()));
+
+    var modes = Set.of(prepared.mode);
+    if (getOutputManager().isAnyOutputPersisted(prepared.timePeriod, modes, true)) {
+      getOutputManager().persistOutputData(prepared.timePeriod, modes, true);
+    }
+  }
+
+  /**
+   * Execute time periods one after the other
+   *
+   * @param timePeriods to execute in order
+   * @throws PlanItException thrown if error
+   */
+  private void executeTimePeriodsSequentially(final Iterable<TimePeriod> timePeriods) throws PlanItException {
+    for (final TimePeriod timePeriod : timePeriods) {
+      long startTime = System.currentTimeMillis();
+      LOGGER.info(LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(timePeriod) + timePeriod.toString());
+      var prepared = prepareTimePeriod(timePeriod, getDemands().getRegisteredModesForTimePeriod(timePeriod));
+      if (prepared != null) {
+        prepared.execute();
+        registerLoading(prepared);
+      }
+      LOGGER.info(LoggingUtils.runIdPrefix(getId()) + String.format("run time: %d milliseconds", System.currentTimeMillis() - startTime));
+    }
+  }
+
+  /**
+   * Execute time periods concurrently. Time periods are independent in eLTM, i.e., each loading starts from an empty network, so only the loadings themselves are delegated to the
+   * executor, all preparation involving the assignment's components is done upfront on the calling thread
+   *
+   * @param timePeriods to execute
+   * @param concurrency maximum number of time periods loaded at the same time
+   * @throws PlanItException thrown if a time period failed or when interrupted
+   */
+  private void executeTimePeriodsConcurrently(final Iterable<TimePeriod> timePeriods, int concurrency) throws PlanItException {
+    final List<PreparedTimePeriod> preparedTimePeriods = new ArrayList<>();
+    for (final TimePeriod timePeriod : timePeriods) {
+      var prepared = prepareTimePeriod(timePeriod, getDemands().getRegisteredModesForTimePeriod(timePeriod));
+      if (prepared != null) {
+        preparedTimePeriods.add(prepared);
+      }
+    }
+
+    final Set<TimePeriod> failedTimePeriods = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+    try {
+      for (var prepared : preparedTimePeriods) {
+        executor.execute(() -> {
+          long startTime = System.currentTimeMillis();
+          try {
+            prepared.execute();
+            LOGGER.info(LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(prepared.timePeriod)
+                + String.format("run time: %d milliseconds", System.currentTimeMillis() - startTime));
+          } catch (final Exception e) {
+            LOGGER.severe(LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(prepared.timePeriod) + e.getMessage());
+            failedTimePeriods.add(prepared.timePeriod);
+          }
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+      throw new PlanItException("Interrupted while executing eLTM time periods concurrently", e);
+    }
+
+    if (!failedTimePeriods.isEmpty()) {
+      throw new PlanItException("eLTM failed for %d time period(s)", failedTimePeriods.size());
+    }
+    /* register in time period order */
+    for (var prepared : preparedTimePeriods) {
+      registerLoading(prepared);
+    }
+  }
+
   /**
    * Constructor
-   * 
+   *
    * @param groupId contiguous id generation within this group for instances of this class
    */
   public EventBasedLtm(IdGroupingToken groupId) {
@@ -32,29 +243,60 @@ public class EventBasedLtm extends LtmAssignment {
 
   /**
    * Copy Constructor
-   * 
+   *
    * @param other to copy
    * @param deepCopy when true, create a eep copy, shallow copy otherwise
    */
   public EventBasedLtm(EventBasedLtm other, boolean deepCopy) {
     super(other, deepCopy);
+    this.horizonFactor = other.horizonFactor;
+    this.loading = other.loading;
+    this.loadedDurationSeconds = other.loadedDurationSeconds;
+    this.loadingByTimePeriod.putAll(other.loadingByTimePeriod);
   }
 
+  /**
+   * {@inheritDoc}
+   */
   @Override
   public OutputTypeAdapter createOutputTypeAdapter(OutputType outputType) {
-    // TODO Auto-generated method stub
-    return null;
+    OutputTypeAdapter outputTypeAdapter = null;
+    switch (outputType) {
+    case LINK:
+      outputTypeAdapter = new EventBasedLtmLinkOutputTypeAdapter(outputType, this);
+      break;
+    default:
+      LOGGER.warning(String.format("%s%s is not supported yet", LoggingUtils.runIdPrefix(getId()), outputType.value()));
+    }
+    return outputTypeAdapter;
   }
 
+  /**
+   * {@inheritDoc}
+   */
   @Override
   public void executeEquilibration() throws PlanItException {
-    // TODO Auto-generated method stub
+    final var timePeriods = getDemands().timePeriods.asSortedSetByStartTime();
+    LOGGER.info(LoggingUtils.runIdPrefix(getId()) + "total time periods: " + timePeriods.size());
+    loadingByTimePeriod.clear();
+    /* most recently registered time period is exposed via the link inflow/outflow accessee */
+    this.loading = null;
 
+    int concurrency = determineTimePeriodConcurrency(ESTIMATED_BYTES_PER_EDGE_SEGMENT * getTotalNumberOfNetworkSegments(), timePeriods.size());
+    if (concurrency > 1) {
+      executeTimePeriodsConcurrently(timePeriods, concurrency);
+    } else {
+      executeTimePeriodsSequentially(timePeriods);
+    }
   }
 
+  /**
+   * eLTM performs a single loading per time period, so the iteration index is always zero
+   *
+   * @return 0
+   */
   @Override
   public int getIterationIndex() {
-    // TODO Auto-generated method stub
     return 0;
   }
 
@@ -74,10 +316,54 @@ public class EventBasedLtm extends LtmAssignment {
     throw new PlanItRunTimeException("Deep clone not yet implemented");
   }
 
+  /**
+   * Average inflow rates during the most recently loaded time period
+   *
+   * @return inflow rates by link segment id, empty when nothing is loaded
+   */
   @Override
-  public Class<? extends InteractorAccessor<?>> getCompatibleAccessor() {
-    // TODO Auto-generated method stub
-    return null;
+  public double[] getLinkSegmentInflowsPcuHour() {
+    return loading == null ? new double[0] : loading.getAverageInflowsPcuH(loadedDurationSeconds);
+  }
+
+  /**
+   * Average outflow rates during the most recently loaded time period
+   *
+   * @return outflow rates by link segment id, empty when nothing is loaded
+   */
+  @Override
+  public double[] getLinkSegmentOutflowsPcuHour() {
+    return loading == null ? new double[0] : loading.getAverageOutflowsPcuH(loadedDurationSeconds);
+  }
+
+  /**
+   * Loading of a time period in the most recent execution
+   *
+   * @param timePeriod to collect loading for, when null the most recently loaded time period is used
+   * @return loading, null when the time period is not loaded
+   */
+  EventBasedLtmNetworkLoading getLoading(TimePeriod timePeriod) {
+    return timePeriod == null ? loading : loadingByTimePeriod.get(timePeriod);
+  }
+
+  /**
+   * Cumulative curves of the most recently loaded time period
+   *
+   * @return cumulative curves, null when nothing is loaded
+   */
+  public CumulativeCurves getCumulativeCurves() {
+    return loading == null ? null : loading.getCumulativeCurves();
+  }
+
+  /**
+   * Cumulative curves of a time period loaded in the most recent execution
+   *
+   * @param timePeriod to collect curves for
+   * @return cumulative curves, null when the time period is not loaded
+   */
+  public CumulativeCurves getCumulativeCurves(TimePeriod timePeriod) {
+    var timePeriodLoading = loadingByTimePeriod.get(timePeriod);
+    return timePeriodLoading == null ? null : timePeriodLoading.getCumulativeCurves();
   }
 
   /**
@@ -85,7 +371,10 @@ public class EventBasedLtm extends LtmAssignment {
    */
   @Override
   public void reset() {
-    // TODO Auto-generated method stub
+    super.reset();
+    this.loading = null;
+    this.loadedDurationSeconds = 0;
+    this.loadingByTimePeriod.clear();
   }
 
   /**
@@ -93,7 +382,28 @@ public class EventBasedLtm extends LtmAssignment {
    */
   @Override
   public Map<String, String> collectSettingsAsKeyValueMap() {
-    return null;
+    var keyValueMap = new HashMap<String, String>();
+    keyValueMap.put("horizonFactor", String.valueOf(horizonFactor));
+    keyValueMap.put("maxConcurrentTimePeriods", String.valueOf(getMaxConcurrentTimePeriods()));
+    return keyValueMap;
+  }
+
+  /**
+   * Horizon as a multiple of the time period duration
+   *
+   * @return horizon factor
+   */
+  public double getHorizonFactor() {
+    return horizonFactor;
+  }
+
+  /**
+   * Set the horizon as a multiple of the time period duration, i.e., the time allowed for the network to empty after demand is released
+   *
+   * @param horizonFactor to use, at least 1
+   */
+  public void setHorizonFactor(double horizonFactor) {
+    this.horizonFactor = Math.max(1.0, horizonFactor);
   }
 
 }
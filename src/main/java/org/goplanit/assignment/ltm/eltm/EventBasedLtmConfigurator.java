@@ -2,6 +2,10 @@ package org.goplanit.assignment.ltm.eltm;
 
 import org.goplanit.algorithms.nodemodel.NodeModel;
 import org.goplanit.assignment.ltm.LtmConfigurator;
+import org.goplanit.cost.physical.PhysicalCost;
+import org.goplanit.cost.virtual.VirtualCost;
+import org.goplanit.gap.GapFunction;
+import org.goplanit.sdinteraction.smoothing.Smoothing;
 import org.goplanit.supply.fundamentaldiagram.FundamentalDiagram;
 import org.goplanit.utils.exceptions.PlanItException;
 
@@ -11,6 +15,14 @@ import org.goplanit.utils.exceptions.PlanItException;
  * <ul>
  * <li>Fundamental diagram: NEWELL</li>
  * <li>Node Model: TAMPERE</li>
+ * <li>Smoothing: MSA</li>
+ * <li>Gap function: LINK BASED RELATIVE GAP</li>
+ * <li>Physical Cost: STEADY_STATE</li>
+ * <li>Virtual Cost: FIXED</li>
+ * </ul>
+ * Further the following other settings have the defaults:
+ * <ul>
+ * <li>horizonFactor: 2</li>
  * </ul>
  * 
  * @author markr
@@ -18,6 +30,8 @@ import org.goplanit.utils.exceptions.PlanItException;
  */
 public class EventBasedLtmConfigurator extends LtmConfigurator<EventBasedLtm> {
 
+  private static final String SET_HORIZON_FACTOR = "setHorizonFactor";
+
   /**
    * Constructor
    * 
@@ -27,6 +41,21 @@ public class EventBasedLtmConfigurator extends LtmConfigurator<EventBasedLtm> {
     super(EventBasedLtm.class);
     createAndRegisterFundamentalDiagram(FundamentalDiagram.NEWELL);
     createAndRegisterNodeModel(NodeModel.TAMPERE);
+    createAndRegisterGapFunction(GapFunction.LINK_BASED_RELATIVE_GAP);
+    createAndRegisterSmoothing(Smoothing.MSA);
+    createAndRegisterPhysicalCost(PhysicalCost.STEADY_STATE);
+    createAndRegisterVirtualCost(VirtualCost.FIXED);
+
+    setHorizonFactor(EventBasedLtm.DEFAULT_HORIZON_FACTOR);
+  }
+
+  /**
+   * Set the horizon as a multiple of the time period duration, i.e., the time allowed for the network to empty after demand is released
+   *
+   * @param horizonFactor to use
+   */
+  public void setHorizonFactor(double horizonFactor) {
+    registerDelayedMethodCall(SET_HORIZON_FACTOR, horizonFactor);
   }
 
 }
@@ -0,0 +1,187 @@
+package org.goplanit.assignment.ltm.eltm;
+
+import java.util.Optional;
+
+import org.goplanit.assignment.TrafficAssignment;
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.output.adapter.MacroscopicLinkOutputTypeAdapterImpl;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.time.TimePeriod;
+
+/**
+ * Adapter providing access to the data of the EventBasedLtm class relevant for link outputs without exposing the internals of the traffic assignment class itself. Flow rates are
+ * averaged over the duration of the time period, travel times are averaged over all vehicles that entered a link segment during the loading of the time period
+ *
+ * @author markr
+ *
+ */
+public class EventBasedLtmLinkOutputTypeAdapter extends MacroscopicLinkOutputTypeAdapterImpl {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected EventBasedLtm getAssignment() {
+    return (EventBasedLtm) super.getAssignment();
+  }
+
+  /**
+   * Collect the loading of the time period
+   *
+   * @param timePeriod to collect for, null for most recent
+   * @return loading
+   * @throws PlanItException thrown if time period is not loaded
+   */
+  private EventBasedLtmNetworkLoading getLoading(final TimePeriod timePeriod) throws PlanItException {
+    var loading = getAssignment().getLoading(timePeriod);
+    if (loading == null) {
+      throw new PlanItException("No eLTM loading available for time period %s", timePeriod == null ? "" : timePeriod.getXmlId());
+    }
+    return loading;
+  }
+
+  /**
+   * Returns the average inflow in pcu per hour through the current link segment
+   *
+   * @param linkSegment to use
+   * @param timePeriod  current time period
+   * @return the inflow through the current link segment
+   * @throws PlanItException thrown if there is an error
+   */
+  private Optional<Double> getInFlowPcuHour(final MacroscopicLinkSegment linkSegment, final TimePeriod timePeriod) throws PlanItException {
+    return Optional.of(getLoading(timePeriod).getAverageInflowPcuH((int) linkSegment.getId(), timePeriod.getDurationSeconds()));
+  }
+
+  /**
+   * Returns the average outflow in pcu per hour through the current link segment
+   *
+   * @param linkSegment to use
+   * @param timePeriod  current time period
+   * @return the outflow through the current link segment
+   * @throws PlanItException thrown if there is an error
+   */
+  private Optional<Double> getOutFlowPcuHour(final MacroscopicLinkSegment linkSegment, final TimePeriod timePeriod) throws PlanItException {
+    return Optional.of(getLoading(timePeriod).getAverageOutflowPcuH((int) linkSegment.getId(), timePeriod.getDurationSeconds()));
+  }
+
+  /**
+   * Returns the average travel time through the current link segment
+   *
+   * @param linkSegment to use
+   * @param timePeriod  current time period
+   * @return the travel time in hours
+   * @throws PlanItException thrown if there is an error
+   */
+  private Optional<Double> getLinkTravelTimeHour(final MacroscopicLinkSegment linkSegment, final TimePeriod timePeriod) throws PlanItException {
+    return Optional.of(getLoading(timePeriod).getAverageTravelTimeSeconds((int) linkSegment.getId()) / 3600.0);
+  }
+
+  /**
+   * Returns the value of the calculated speed based on the average link segment travel time and length of the link segment
+   *
+   * @param linkSegment to use
+   * @param timePeriod  current time period
+   * @return the calculated speed across the link segment
+   * @throws PlanItException thrown if there is an error
+   */
+  private Optional<Double> getCalculatedSpeed(final MacroscopicLinkSegment linkSegment, final TimePeriod timePeriod) throws PlanItException {
+    return Optional.of(linkSegment.getParentLink().getLengthKm() / getLinkTravelTimeHour(linkSegment, timePeriod).get());
+  }
+
+  /**
+   * Returns the Vc ratio for the link based on the inflow rate, see also the sLTM equivalent
+   *
+   * @param linkSegment to use
+   * @param timePeriod  current time period
+   * @return VC ratio for the link segment
+   * @throws PlanItException thrown if there is an error
+   */
+  private Optional<Double> getVcRatio(final MacroscopicLinkSegment linkSegment, final TimePeriod timePeriod) throws PlanItException {
+    final double capacityPerLane = getCapacityPerLanePcuHour(linkSegment).get();
+    return Optional.of(getInFlowPcuHour(linkSegment, timePeriod).get() / (linkSegment.getNumberOfLanes() * capacityPerLane));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputType        the output type for the current persistence
+   * @param trafficAssignment the traffic assignment used to provide the data
+   */
+  public EventBasedLtmLinkOutputTypeAdapter(final OutputType outputType, final TrafficAssignment trafficAssignment) {
+    super(outputType, trafficAssignment);
+  }
+
+  /**
+   * Based on the most recently loaded time period, flow is positive when the outflow rate changed at least once, since curves start with zero flow
+   *
+   * @param linkSegment to verify
+   * @param mode        to verify
+   * @return true when vehicles left the link segment during the most recently loaded time period
+   */
+  @Override
+  public Optional<Boolean> isFlowPositive(final MacroscopicLinkSegment linkSegment, final Mode mode) {
+    var loading = getAssignment().getLoading(null);
+    return Optional.of(loading != null && loading.getCumulativeCurves().getNumberOfBreakpoints((int) linkSegment.getId(), Location.DOWNSTREAM) > 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Optional<?> getLinkSegmentOutputPropertyValue(final OutputProperty outputProperty, final MacroscopicLinkSegment linkSegment, final Mode mode,
+      final TimePeriod timePeriod) {
+
+    Optional<?> value = Optional.empty();
+    try {
+      value = getOutputTypeIndependentPropertyValue(outputProperty, mode, timePeriod);
+      if (value.isPresent()) {
+        return value;
+      }
+
+      value = super.getLinkSegmentOutputPropertyValue(outputProperty, linkSegment, mode, timePeriod);
+      if (value.isPresent()) {
+        return value;
+      }
+
+      switch (outputProperty.getOutputPropertyType()) {
+      case CALCULATED_SPEED:
+        value = getCalculatedSpeed(linkSegment, timePeriod);
+        break;
+      case FLOW:
+        // consistent with sLTM, the outflow rate is provided for the flow property
+        value = getOutFlowPcuHour(linkSegment, timePeriod);
+        break;
+      case OUTFLOW:
+        value = getOutFlowPcuHour(linkSegment, timePeriod);
+        break;
+      case INFLOW:
+        value = getInFlowPcuHour(linkSegment, timePeriod);
+        break;
+      case LINK_SEGMENT_COST:
+        value = getLinkTravelTimeHour(linkSegment, timePeriod);
+        break;
+      case VC_RATIO:
+        value = getVcRatio(linkSegment, timePeriod);
+        break;
+      case COST_TIMES_FLOW:
+        value = Optional.of(getLinkTravelTimeHour(linkSegment, timePeriod).get() * getOutFlowPcuHour(linkSegment, timePeriod).get());
+        break;
+      default:
+        throw new PlanItException("Tried to find link property of %s which is not applicable for links", outputProperty.getName());
+      }
+
+      if (outputProperty.supportsUnitOverride() && outputProperty.isUnitOverride()) {
+        value = createConvertedUnitsValue(outputProperty, value);
+      }
+    } catch (final PlanItException e) {
+      return Optional.of(e.getMessage());
+    }
+
+    return value;
+  }
+
+}
@@ -0,0 +1,800 @@
+package org.goplanit.assignment.ltm.eltm;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import org.goplanit.algorithms.nodemodel.TampereNodeModel;
+import org.goplanit.algorithms.nodemodel.TampereNodeModelFixedInput;
+import org.goplanit.algorithms.nodemodel.TampereNodeModelInput;
+import org.goplanit.algorithms.shortest.ShortestPathDijkstra;
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.assignment.ltm.eltm.event.CalendarEventQueue;
+import org.goplanit.network.transport.TransportModelNetwork;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.supply.fundamentaldiagram.FundamentalDiagram;
+import org.goplanit.supply.fundamentaldiagram.FundamentalDiagramComponent;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.graph.directed.DirectedVertex;
+import org.goplanit.utils.graph.directed.EdgeSegment;
+import org.goplanit.utils.macroscopic.MacroscopicConstants;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.virtual.CentroidVertex;
+import org.ojalgo.array.Array1D;
+import org.ojalgo.array.Array2D;
+
+/**
+ * Event based network loading for eLTM on a single network layer with physical queues. Each link segment has a cumulative curve at its upstream and downstream boundary. A change
+ * of the inflow (outflow) rate at a boundary triggers an event at the opposite boundary, released after the free flow (backward wave) travel time. Upon each event the node at the
+ * boundary is updated via the Tampere node model, where:
+ * <ul>
+ * <li>sending flow: capacity when a queue is present at the downstream boundary, the released inflow rate otherwise</li>
+ * <li>receiving flow: the released outflow rate when the storage of the link segment is exhausted, capacity otherwise</li>
+ * </ul>
+ * Changes in queue or storage state between events (a queue dissolving, a link segment filling up) are computed analytically from the current rates and scheduled as
+ * re-evaluation events, at most one pending per boundary. A queue that starts forming (storage that frees up) requires no re-evaluation, since the Tampere node model satisfies
+ * the invariance principle: replacing the sending (receiving) flow of a supply (demand) constrained boundary by its capacity does not alter the node model solution. Connectoid
+ * segments are modelled as point queues without travel time and storage constraint.
+ * <p>
+ * Turning movements follow fixed splitting rates derived from an all-or-nothing assignment of the demand on free flow travel times. Demand rates are constant over the time period
+ * after which no more demand is released and the loading continues until the network is empty or the horizon is reached.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class EventBasedLtmNetworkLoading {
+
+  /** logger to use */
+  private static final Logger LOGGER = Logger.getLogger(EventBasedLtmNetworkLoading.class.getCanonicalName());
+
+  /** smallest bucket width of the event queue in seconds */
+  private static final double MINIMUM_BUCKET_WIDTH_SECONDS = 0.1;
+
+  /** minimum storage of a physical link segment in pcu */
+  private static final double MINIMUM_STORAGE_PCU = 1.0;
+
+  /** the transport network to load */
+  private final TransportModelNetwork network;
+
+  /** the network layer to load */
+  private final MacroscopicNetworkLayer networkLayer;
+
+  /** mode to load */
+  private final Mode mode;
+
+  /** duration in seconds during which demand is released */
+  private final double durationSeconds;
+
+  /** edge segments by id */
+  private final EdgeSegment[] edgeSegments;
+
+  /** flag indicating edge segment is physical (link segment) rather than a connectoid segment */
+  private final boolean[] physical;
+
+  /** free flow travel time in seconds by edge segment */
+  private final double[] freeFlowTimes;
+
+  /** backward wave travel time in seconds by edge segment */
+  private final double[] backwardWaveTimes;
+
+  /** capacity in pcu/h by edge segment */
+  private final double[] capacities;
+
+  /** jam storage in pcu by edge segment */
+  private final double[] jamStorages;
+
+  /** inflow rate released at the downstream boundary by edge segment */
+  private final double[] arrivalRates;
+
+  /** outflow rate released at the upstream boundary by edge segment */
+  private final double[] spaceRates;
+
+  /** splitting rates by entry edge segment id, over the exit segments of its downstream vertex, null if unused */
+  private final double[][] splittingRates;
+
+  /** demand rate in pcu/h by centroid vertex id */
+  private final double[] originRates;
+
+  /** splitting rates of the demand by centroid vertex id over its exit segments, null if unused */
+  private final double[][] originSplittingRates;
+
+  /** time of the pending queue state change re-evaluation by edge segment, NaN when none */
+  private final double[] pendingQueueStateChanges;
+
+  /** time of the pending storage state change re-evaluation by edge segment, NaN when none */
+  private final double[] pendingStorageStateChanges;
+
+  /** reusable node model inputs by vertex id, created upon the first update of a node */
+  private final NodeModelWorkspace[] nodeModelWorkspaces;
+
+  /** cumulative curves at link segment boundaries */
+  private CumulativeCurves curves;
+
+  /** event queue */
+  private CalendarEventQueue eventQueue;
+
+  /** number of processed events */
+  private long numberOfProcessedEvents;
+
+  /** number of node updates */
+  private long numberOfNodeUpdates;
+
+  /**
+   * Node model inputs and outputs of a single node that are reused across its updates, turn sending flows and receiving flows are modified in place after which the input is
+   * refreshed
+   */
+  private static class NodeModelWorkspace {
+
+    /** sending flows by entry index */
+    private final double[] sendingFlows;
+
+    /** inflows by exit index */
+    private final double[] exitInflows;
+
+    /** receiving flows by exit index */
+    private final Array1D<Double> outReceivingFlows;
+
+    /** turn sending flows by entry and exit index */
+    private final Array2D<Double> turnSendingFlows;
+
+    /** node model input */
+    private final TampereNodeModelInput nodeModelInput;
+
+    /** node model */
+    private final TampereNodeModel nodeModel;
+
+    /**
+     * Constructor
+     *
+     * @param inCapacities     capacities by entry index
+     * @param numExitSegments  number of exit segments
+     * @throws PlanItException thrown if error
+     */
+    private NodeModelWorkspace(final Array1D<Double> inCapacities, int numExitSegments) throws PlanItException {
+      int numEntrySegments = (int) inCapacities.count();
+      this.sendingFlows = new double[numEntrySegments];
+      this.exitInflows = new double[numExitSegments];
+      this.outReceivingFlows = Array1D.PRIMITIVE64.makeZero(numExitSegments);
+      this.turnSendingFlows = Array2D.PRIMITIVE64.makeZero(numEntrySegments, numExitSegments);
+      this.nodeModelInput = new TampereNodeModelInput(new TampereNodeModelFixedInput(inCapacities, outReceivingFlows), turnSendingFlows);
+      this.nodeModel = new TampereNodeModel(nodeModelInput);
+    }
+  }
+
+  /**
+   * Create the node model workspace of a node
+   *
+   * @param node to create for
+   * @return created workspace
+   * @throws PlanItException thrown if error
+   */
+  private NodeModelWorkspace createNodeModelWorkspace(final DirectedVertex node) throws PlanItException {
+    var inCapacities = Array1D.PRIMITIVE64.makeZero(node.getNumberOfEntryEdgeSegments());
+    int entryIndex = 0;
+    for (var entrySegment : node.getEntryEdgeSegments()) {
+      inCapacities.set(entryIndex++, Math.min(TampereNodeModelFixedInput.DEFAULT_MAX_IN_CAPACITY, capacities[(int) entrySegment.getId()]));
+    }
+    return new NodeModelWorkspace(inCapacities, node.getNumberOfExitEdgeSegments());
+  }
+
+  /**
+   * Schedule a state change re-evaluation at a boundary unless the same re-evaluation is already pending. Any earlier scheduled re-evaluation for the boundary becomes stale
+   *
+   * @param pendingStateChanges pending re-evaluation times by edge segment
+   * @param id                  of edge segment
+   * @param time                of the state change in seconds
+   * @param location            of the boundary to re-evaluate
+   */
+  private void scheduleStateChange(final double[] pendingStateChanges, int id, double time, Location location) {
+    if (!Double.isNaN(pendingStateChanges[id]) && !Precision.notEqual(pendingStateChanges[id], time)) {
+      return;
+    }
+    pendingStateChanges[id] = eventQueue.schedule(time, id, location, Double.NaN) ? time : Double.NaN;
+  }
+
+  /**
+   * Register the physical properties of each link segment based on its fundamental diagram. Link segments that do not allow the mode are closed, i.e., they have no capacity and
+   * an infinite travel time, so they are never used
+   *
+   * @param fundamentalDiagrams to use, may be null in which case the speed limit and default jam density are used
+   */
+  private void initialiseLinkSegmentProperties(final FundamentalDiagramComponent fundamentalDiagrams) {
+    for (var linkSegment : networkLayer.getLinkSegments()) {
+      int id = (int) linkSegment.getId();
+      edgeSegments[id] = linkSegment;
+      physical[id] = true;
+
+      if (!linkSegment.isModeAllowed(mode)) {
+        capacities[id] = 0;
+        freeFlowTimes[id] = Double.POSITIVE_INFINITY;
+        backwardWaveTimes[id] = Double.POSITIVE_INFINITY;
+        jamStorages[id] = MINIMUM_STORAGE_PCU;
+        continue;
+      }
+
+      FundamentalDiagram fd = fundamentalDiagrams != null ? fundamentalDiagrams.get(linkSegment) : null;
+      double freeSpeedKmH = fd != null ? fd.getMaximumSpeedKmHour() : linkSegment.getModelledSpeedLimitKmH(mode);
+      double jamDensityPcuKm = (fd != null ? fd.getMaximumDensityPcuKm() : MacroscopicConstants.DEFAULT_MAX_DENSITY_PCU_KM_LANE) * linkSegment.getNumberOfLanes();
+      double capacityPcuH = linkSegment.getCapacityOrDefaultPcuH();
+      double lengthKm = linkSegment.getParentLink().getLengthKm();
+
+      /* triangular fundamental diagram: w = C / (k_jam - C/v) */
+      double criticalDensityPcuKm = capacityPcuH / freeSpeedKmH;
+      double backwardWaveSpeedKmH = jamDensityPcuKm > criticalDensityPcuKm ? capacityPcuH / (jamDensityPcuKm - criticalDensityPcuKm) : freeSpeedKmH;
+
+      capacities[id] = capacityPcuH;
+      freeFlowTimes[id] = 3600.0 * lengthKm / freeSpeedKmH;
+      backwardWaveTimes[id] = 3600.0 * lengthKm / backwardWaveSpeedKmH;
+      jamStorages[id] = Math.max(MINIMUM_STORAGE_PCU, jamDensityPcuKm * lengthKm);
+    }
+
+    for (var connectoidSegment : network.getVirtualNetwork().getConnectoidSegments()) {
+      int id = (int) connectoidSegment.getId();
+      edgeSegments[id] = connectoidSegment;
+      capacities[id] = Math.min(TampereNodeModelFixedInput.DEFAULT_MAX_IN_CAPACITY, connectoidSegment.getCapacityOrDefaultPcuH());
+      jamStorages[id] = Double.POSITIVE_INFINITY;
+    }
+  }
+
+  /**
+   * Derive splitting rates and origin demand rates from an all-or-nothing assignment on the given costs
+   *
+   * @param odDemands      to assign
+   * @param edgeSegmentCosts costs by edge segment id
+   */
+  private void initialiseSplittingRates(final OdDemands odDemands, final double[] edgeSegmentCosts) {
+    /* position of each edge segment amongst the exit segments of its upstream vertex */
+    var exitPositions = new int[edgeSegments.length];
+    for (var edgeSegment : edgeSegments) {
+      if (edgeSegment == null) {
+        continue;
+      }
+      int position = 0;
+      for (var exitSegment : edgeSegment.getUpstreamVertex().getExitEdgeSegments()) {
+        if (exitSegment.getId() == edgeSegment.getId()) {
+          exitPositions[(int) edgeSegment.getId()] = position;
+          break;
+        }
+        ++position;
+      }
+    }
+
+    var zone2VertexMapping = network.createZoneToCentroidVertexMapping(true /* OdZones */, false /* no transfer zones */);
+    var shortestPathAlgorithm = new ShortestPathDijkstra(edgeSegmentCosts, network.getNumberOfVerticesAllLayers());
+    for (var origin : network.getZoning().getOdZones()) {
+      var originVertex = zone2VertexMapping.get(origin);
+      var oneToAllResult = shortestPathAlgorithm.executeOneToAll(originVertex);
+      for (var destination : network.getZoning().getOdZones()) {
+        if (destination.idEquals(origin)) {
+          continue;
+        }
+        Double odDemand = odDemands.getValue(origin, destination);
+        if (odDemand == null || !Precision.positive(odDemand)) {
+          continue;
+        }
+        var destinationVertex = zone2VertexMapping.get(destination);
+        double pathCost = oneToAllResult.getCostOf(destinationVertex);
+        if (pathCost == Double.POSITIVE_INFINITY || pathCost == Double.MAX_VALUE) {
+          LOGGER.warning(String.format("Impossible path from origin zone %s to destination zone %s, demand ignored", origin.getXmlId(), destination.getXmlId()));
+          continue;
+        }
+
+        /* traverse path backwards accumulating turn flows */
+        EdgeSegment laterSegment = null;
+        DirectedVertex currentVertex = destinationVertex;
+        while (!currentVertex.idEquals(originVertex)) {
+          var segment = oneToAllResult.getNextEdgeSegmentForVertex(currentVertex);
+          if (laterSegment != null) {
+            addTurnFlow(splittingRates, segment, exitPositions[(int) laterSegment.getId()], odDemand);
+          }
+          laterSegment = segment;
+          currentVertex = oneToAllResult.getNextVertexForEdgeSegment(segment);
+        }
+        addTurnFlow(originSplittingRates, originVertex, exitPositions[(int) laterSegment.getId()], odDemand);
+        originRates[(int) originVertex.getId()] += odDemand;
+      }
+    }
+
+    normalise(splittingRates);
+    normalise(originSplittingRates);
+  }
+
+  /**
+   * Add turn flow to the turn flows of an edge segment (or vertex) which are lazily created
+   *
+   * @param turnFlows    to add to, indexed by id
+   * @param entry        edge segment or origin vertex to add for
+   * @param exitPosition position of the exit segment
+   * @param flow         to add
+   */
+  private static void addTurnFlow(final double[][] turnFlows, final EdgeSegment entry, int exitPosition, double flow) {
+    int id = (int) entry.getId();
+    if (turnFlows[id] == null) {
+      turnFlows[id] = new double[entry.getDownstreamVertex().getNumberOfExitEdgeSegments()];
+    }
+    turnFlows[id][exitPosition] += flow;
+  }
+
+  /**
+   * Add turn flow to the turn flows of an origin vertex which are lazily created
+   *
+   * @param turnFlows    to add to, indexed by id
+   * @param origin       vertex to add for
+   * @param exitPosition position of the exit segment
+   * @param flow         to add
+   */
+  private static void addTurnFlow(final double[][] turnFlows, final DirectedVertex origin, int exitPosition, double flow) {
+    int id = (int) origin.getId();
+    if (turnFlows[id] == null) {
+      turnFlows[id] = new double[origin.getNumberOfExitEdgeSegments()];
+    }
+    turnFlows[id][exitPosition] += flow;
+  }
+
+  /**
+   * Convert turn flows into splitting rates in place
+   *
+   * @param turnFlows to normalise
+   */
+  private static void normalise(final double[][] turnFlows) {
+    for (var entryTurnFlows : turnFlows) {
+      if (entryTurnFlows == null) {
+        continue;
+      }
+      double total = 0;
+      for (double turnFlow : entryTurnFlows) {
+        total += turnFlow;
+      }
+      for (int index = 0; index < entryTurnFlows.length; ++index) {
+        entryTurnFlows[index] /= total;
+      }
+    }
+  }
+
+  /**
+   * Vehicles queued at the downstream boundary, i.e., N_up(t - free flow time) - N_down(t)
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @return queue in pcu
+   */
+  private double getQueue(int id, double time) {
+    return curves.getValue(id, Location.UPSTREAM, time - freeFlowTimes[id]) - curves.getValue(id, Location.DOWNSTREAM, time);
+  }
+
+  /**
+   * Storage remaining at the upstream boundary, i.e., N_down(t - backward wave time) + jam storage - N_up(t)
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @return remaining storage in pcu
+   */
+  private double getRemainingStorage(int id, double time) {
+    return curves.getValue(id, Location.DOWNSTREAM, time - backwardWaveTimes[id]) + jamStorages[id] - curves.getValue(id, Location.UPSTREAM, time);
+  }
+
+  /**
+   * Sending flow of an edge segment
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @return sending flow in pcu/h
+   */
+  private double getSendingFlow(int id, double time) {
+    if (Precision.positive(getQueue(id, time))) {
+      return capacities[id];
+    }
+    return Math.min(capacities[id], arrivalRates[id]);
+  }
+
+  /**
+   * Receiving flow of an edge segment
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @return receiving flow in pcu/h
+   */
+  private double getReceivingFlow(int id, double time) {
+    if (physical[id] && !Precision.positive(getRemainingStorage(id, time))) {
+      return Math.min(capacities[id], spaceRates[id]);
+    }
+    return capacities[id];
+  }
+
+  /**
+   * Change the inflow rate of an edge segment, releasing it at the downstream boundary after the free flow travel time
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @param rate inflow rate in pcu/h
+   */
+  private void setInflow(int id, double time, double rate) {
+    if (!Precision.notEqual(rate, curves.getRate(id, Location.UPSTREAM))) {
+      return;
+    }
+    curves.setRate(id, Location.UPSTREAM, time, rate);
+    eventQueue.schedule(time + freeFlowTimes[id], id, Location.DOWNSTREAM, rate);
+  }
+
+  /**
+   * Change the outflow rate of an edge segment, releasing it at the upstream boundary after the backward wave travel time for physical link segments
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   * @param rate outflow rate in pcu/h
+   */
+  private void setOutflow(int id, double time, double rate) {
+    if (!Precision.notEqual(rate, curves.getRate(id, Location.DOWNSTREAM))) {
+      return;
+    }
+    curves.setRate(id, Location.DOWNSTREAM, time, rate);
+    if (physical[id]) {
+      eventQueue.schedule(time + backwardWaveTimes[id], id, Location.UPSTREAM, rate);
+    }
+  }
+
+  /**
+   * Schedule re-evaluation of the downstream node when the queue of an entry segment dissolves before any other event would reveal it
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   */
+  private void scheduleQueueStateChange(int id, double time) {
+    double outflow = curves.getRate(id, Location.DOWNSTREAM);
+    double arrival = arrivalRates[id];
+    double queue = getQueue(id, time);
+    if (Precision.positive(queue) && Precision.greater(outflow, arrival)) {
+      scheduleStateChange(pendingQueueStateChanges, id, time + 3600.0 * queue / (outflow - arrival), Location.DOWNSTREAM);
+    }
+  }
+
+  /**
+   * Schedule re-evaluation of the upstream node when the storage of an exit segment is exhausted before any other event would reveal it
+   *
+   * @param id   of edge segment
+   * @param time in seconds
+   */
+  private void scheduleStorageStateChange(int id, double time) {
+    if (!physical[id]) {
+      return;
+    }
+    double inflow = curves.getRate(id, Location.UPSTREAM);
+    double space = spaceRates[id];
+    double storage = getRemainingStorage(id, time);
+    if (Precision.positive(storage) && Precision.greater(inflow, space)) {
+      scheduleStateChange(pendingStorageStateChanges, id, time + 3600.0 * storage / (inflow - space), Location.UPSTREAM);
+    }
+  }
+
+  /**
+   * Update a centroid, releasing (remaining) demand on its exit segments and absorbing all sending flow of its entry segments
+   *
+   * @param centroid to update
+   * @param time     in seconds
+   */
+  private void updateCentroid(final DirectedVertex centroid, double time) {
+    int centroidId = (int) centroid.getId();
+    double originRate = time < durationSeconds ? originRates[centroidId] : 0;
+    var splits = originSplittingRates[centroidId];
+    int exitIndex = 0;
+    for (var exitSegment : centroid.getExitEdgeSegments()) {
+      setInflow((int) exitSegment.getId(), time, splits == null ? 0 : originRate * splits[exitIndex]);
+      ++exitIndex;
+    }
+    for (var entrySegment : centroid.getEntryEdgeSegments()) {
+      int id = (int) entrySegment.getId();
+      setOutflow(id, time, getSendingFlow(id, time));
+    }
+  }
+
+  /**
+   * Update a node by applying the Tampere node model to its current sending and receiving flows
+   *
+   * @param node to update
+   * @param time in seconds
+   * @throws PlanItException thrown if error
+   */
+  private void updateNode(final DirectedVertex node, double time) throws PlanItException {
+    ++numberOfNodeUpdates;
+    if (node instanceof CentroidVertex) {
+      updateCentroid(node, time);
+      return;
+    }
+
+    int numEntrySegments = node.getNumberOfEntryEdgeSegments();
+    int numExitSegments = node.getNumberOfExitEdgeSegments();
+    if (numEntrySegments == 0 || numExitSegments == 0) {
+      return;
+    }
+
+    int nodeId = (int) node.getId();
+    if (nodeModelWorkspaces[nodeId] == null) {
+      nodeModelWorkspaces[nodeId] = createNodeModelWorkspace(node);
+    }
+    var workspace = nodeModelWorkspaces[nodeId];
+    var sendingFlows = workspace.sendingFlows;
+    var turnSendingFlows = workspace.turnSendingFlows;
+
+    /* s_ab = s_a * phi_ab */
+    int entryIndex = 0;
+    for (var entrySegment : node.getEntryEdgeSegments()) {
+      int id = (int) entrySegment.getId();
+      var splits = splittingRates[id];
+      sendingFlows[entryIndex] = splits == null ? 0 : getSendingFlow(id, time);
+      for (int exitIndex = 0; exitIndex < numExitSegments; ++exitIndex) {
+        turnSendingFlows.set(entryIndex, exitIndex, splits == null ? 0 : sendingFlows[entryIndex] * splits[exitIndex]);
+      }
+      ++entryIndex;
+    }
+
+    /* r_b */
+    int exitIndex = 0;
+    for (var exitSegment : node.getExitEdgeSegments()) {
+      workspace.outReceivingFlows.set(exitIndex++, getReceivingFlow((int) exitSegment.getId(), time));
+    }
+
+    /* alpha_a */
+    workspace.nodeModelInput.refresh();
+    Array1D<Double> flowAcceptanceFactors = workspace.nodeModel.run();
+
+    /* outflows of entry segments, inflows of exit segments */
+    var exitInflows = workspace.exitInflows;
+    Arrays.fill(exitInflows, 0);
+    entryIndex = 0;
+    for (var entrySegment : node.getEntryEdgeSegments()) {
+      double alpha = flowAcceptanceFactors.get(entryIndex);
+      setOutflow((int) entrySegment.getId(), time, alpha * sendingFlows[entryIndex]);
+      for (exitIndex = 0; exitIndex < numExitSegments; ++exitIndex) {
+        exitInflows[exitIndex] += alpha * turnSendingFlows.get(entryIndex, exitIndex);
+      }
+      ++entryIndex;
+    }
+    exitIndex = 0;
+    for (var exitSegment : node.getExitEdgeSegments()) {
+      setInflow((int) exitSegment.getId(), time, exitInflows[exitIndex++]);
+    }
+
+    /* state changes between events */
+    for (var entrySegment : node.getEntryEdgeSegments()) {
+      scheduleQueueStateChange((int) entrySegment.getId(), time);
+    }
+    for (var exitSegment : node.getExitEdgeSegments()) {
+      scheduleStorageStateChange((int) exitSegment.getId(), time);
+    }
+  }
+
+  /**
+   * Verify if a polled re-evaluation event is superseded by a more recently scheduled state change of the same boundary. When it is not, the pending state change is consumed.
+   * Re-evaluation events without pending state change (such as the end of the demand release) are never stale
+   *
+   * @param pendingStateChanges pending re-evaluation times by edge segment
+   * @param id                  of edge segment
+   * @param time                of the polled event
+   * @return true when stale, false otherwise
+   */
+  private static boolean isStaleStateChange(final double[] pendingStateChanges, int id, double time) {
+    if (Double.isNaN(pendingStateChanges[id])) {
+      return false;
+    }
+    if (pendingStateChanges[id] != time) {
+      return true;
+    }
+    pendingStateChanges[id] = Double.NaN;
+    return false;
+  }
+
+  /**
+   * Process the most recently polled event
+   *
+   * @throws PlanItException thrown if error
+   */
+  private void processPolledEvent() throws PlanItException {
+    double time = eventQueue.getPolledTime();
+    int id = eventQueue.getPolledLinkSegment();
+    double rate = eventQueue.getPolledRate();
+    if (eventQueue.getPolledLocation() == Location.DOWNSTREAM) {
+      if (!Double.isNaN(rate)) {
+        arrivalRates[id] = rate;
+      } else if (isStaleStateChange(pendingQueueStateChanges, id, time)) {
+        return;
+      }
+      updateNode(edgeSegments[id].getDownstreamVertex(), time);
+    } else {
+      if (!Double.isNaN(rate)) {
+        spaceRates[id] = rate;
+      } else if (isStaleStateChange(pendingStorageStateChanges, id, time)) {
+        return;
+      }
+      updateNode(edgeSegments[id].getUpstreamVertex(), time);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param network             to load
+   * @param networkLayer        the single layer to load
+   * @param mode                to load
+   * @param fundamentalDiagrams to use, may be null
+   * @param durationSeconds     duration during which demand is released
+   */
+  public EventBasedLtmNetworkLoading(final TransportModelNetwork network, final MacroscopicNetworkLayer networkLayer, final Mode mode,
+      final FundamentalDiagramComponent fundamentalDiagrams, double durationSeconds) {
+    this.network = network;
+    this.networkLayer = networkLayer;
+    this.mode = mode;
+    this.durationSeconds = durationSeconds;
+
+    int numberOfEdgeSegments = network.getNumberOfEdgeSegmentsAllLayers();
+    this.edgeSegments = new EdgeSegment[numberOfEdgeSegments];
+    this.physical = new boolean[numberOfEdgeSegments];
+    this.freeFlowTimes = new double[numberOfEdgeSegments];
+    this.backwardWaveTimes = new double[numberOfEdgeSegments];
+    this.capacities = new double[numberOfEdgeSegments];
+    this.jamStorages = new double[numberOfEdgeSegments];
+    this.arrivalRates = new double[numberOfEdgeSegments];
+    this.spaceRates = new double[numberOfEdgeSegments];
+    this.splittingRates = new double[numberOfEdgeSegments][];
+    this.pendingQueueStateChanges = new double[numberOfEdgeSegments];
+    this.pendingStorageStateChanges = new double[numberOfEdgeSegments];
+
+    int numberOfVertices = network.getNumberOfVerticesAllLayers();
+    this.originRates = new double[numberOfVertices];
+    this.originSplittingRates = new double[numberOfVertices][];
+    this.nodeModelWorkspaces = new NodeModelWorkspace[numberOfVertices];
+
+    initialiseLinkSegmentProperties(fundamentalDiagrams);
+  }
+
+  /**
+   * Free flow travel times in hours by edge segment, suitable for shortest path searches. Connectoid segments are given the provided costs instead
+   *
+   * @param connectoidSegmentCosts costs by edge segment id of which only the connectoid segment entries are used
+   * @return edge segment costs
+   */
+  public double[] createFreeFlowCosts(final double[] connectoidSegmentCosts) {
+    var costs = new double[edgeSegments.length];
+    for (int id = 0; id < edgeSegments.length; ++id) {
+      costs[id] = physical[id] ? freeFlowTimes[id] / 3600.0 : connectoidSegmentCosts[id];
+    }
+    return costs;
+  }
+
+  /**
+   * Perform the loading for the given demand until the network is empty or the horizon is reached
+   *
+   * @param odDemands        to load
+   * @param edgeSegmentCosts costs used to derive splitting rates
+   * @param horizonSeconds   maximum simulated time
+   * @throws PlanItException thrown if error
+   */
+  public void execute(final OdDemands odDemands, final double[] edgeSegmentCosts, double horizonSeconds) throws PlanItException {
+    initialiseSplittingRates(odDemands, edgeSegmentCosts);
+
+    double bucketWidthSeconds = Double.POSITIVE_INFINITY;
+    for (int id = 0; id < edgeSegments.length; ++id) {
+      if (physical[id]) {
+        bucketWidthSeconds = Math.min(bucketWidthSeconds, Math.min(freeFlowTimes[id], backwardWaveTimes[id]));
+      }
+    }
+    bucketWidthSeconds = Math.max(MINIMUM_BUCKET_WIDTH_SECONDS, Math.min(bucketWidthSeconds, horizonSeconds));
+
+    this.curves = new CumulativeCurves(edgeSegments.length);
+    this.eventQueue = new CalendarEventQueue(bucketWidthSeconds, horizonSeconds);
+    this.numberOfProcessedEvents = 0;
+    this.numberOfNodeUpdates = 0;
+    Arrays.fill(pendingQueueStateChanges, Double.NaN);
+    Arrays.fill(pendingStorageStateChanges, Double.NaN);
+
+    /* release demand at start, and stop releasing it at the end of the period */
+    for (var centroidVertex : network.getVirtualNetwork().getCentroidVertices()) {
+      if (originSplittingRates[(int) centroidVertex.getId()] != null) {
+        updateCentroid(centroidVertex, 0);
+        var firstExitSegment = centroidVertex.getExitEdgeSegments().iterator().next();
+        eventQueue.schedule(durationSeconds, (int) firstExitSegment.getId(), Location.UPSTREAM, Double.NaN);
+      }
+    }
+
+    while (eventQueue.poll()) {
+      processPolledEvent();
+      ++numberOfProcessedEvents;
+    }
+  }
+
+  /**
+   * Cumulative curves of the most recent loading
+   *
+   * @return cumulative curves
+   */
+  public CumulativeCurves getCumulativeCurves() {
+    return curves;
+  }
+
+  /**
+   * Average inflow rate of an edge segment over the given duration
+   *
+   * @param id              of edge segment
+   * @param durationSeconds to average over, starting at zero
+   * @return inflow rate in pcu/h
+   */
+  public double getAverageInflowPcuH(int id, double durationSeconds) {
+    return 3600.0 * curves.getValue(id, Location.UPSTREAM, durationSeconds) / durationSeconds;
+  }
+
+  /**
+   * Average outflow rate of an edge segment over the given duration
+   *
+   * @param id              of edge segment
+   * @param durationSeconds to average over, starting at zero
+   * @return outflow rate in pcu/h
+   */
+  public double getAverageOutflowPcuH(int id, double durationSeconds) {
+    return 3600.0 * curves.getValue(id, Location.DOWNSTREAM, durationSeconds) / durationSeconds;
+  }
+
+  /**
+   * Average inflow rates over the given duration by edge segment id
+   *
+   * @param durationSeconds to average over, starting at zero
+   * @return inflow rates in pcu/h
+   */
+  public double[] getAverageInflowsPcuH(double durationSeconds) {
+    var inflows = new double[edgeSegments.length];
+    for (int id = 0; id < edgeSegments.length; ++id) {
+      inflows[id] = getAverageInflowPcuH(id, durationSeconds);
+    }
+    return inflows;
+  }
+
+  /**
+   * Average outflow rates over the given duration by edge segment id
+   *
+   * @param durationSeconds to average over, starting at zero
+   * @return outflow rates in pcu/h
+   */
+  public double[] getAverageOutflowsPcuH(double durationSeconds) {
+    var outflows = new double[edgeSegments.length];
+    for (int id = 0; id < edgeSegments.length; ++id) {
+      outflows[id] = getAverageOutflowPcuH(id, durationSeconds);
+    }
+    return outflows;
+  }
+
+  /**
+   * Average travel time of all vehicles that entered an edge segment during the loading, i.e., the area between its upstream and downstream cumulative curve divided by the number
+   * of vehicles that entered. Vehicles still on the edge segment at the horizon are accounted for up to the horizon only. When no vehicle entered, the free flow travel time is
+   * returned
+   *
+   * @param id of edge segment
+   * @return average travel time in seconds
+   */
+  public double getAverageTravelTimeSeconds(int id) {
+    double horizonSeconds = eventQueue.getHorizonSeconds();
+    double vehicles = curves.getValue(id, Location.UPSTREAM, horizonSeconds);
+    if (!Precision.positive(vehicles)) {
+      return freeFlowTimes[id];
+    }
+    double vehicleSeconds = curves.getIntegral(id, Location.UPSTREAM, horizonSeconds) - curves.getIntegral(id, Location.DOWNSTREAM, horizonSeconds);
+    return Math.max(freeFlowTimes[id], vehicleSeconds / vehicles);
+  }
+
+  /**
+   * Number of events processed in the most recent loading
+   *
+   * @return number of events
+   */
+  public long getNumberOfProcessedEvents() {
+    return numberOfProcessedEvents;
+  }
+
+  /**
+   * Number of node updates in the most recent loading
+   *
+   * @return number of node updates
+   */
+  public long getNumberOfNodeUpdates() {
+    return numberOfNodeUpdates;
+  }
+}
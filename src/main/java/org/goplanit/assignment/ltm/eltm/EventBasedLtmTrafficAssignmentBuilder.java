@@ -1,6 +1,6 @@
 package org.goplanit.assignment.ltm.eltm;
 
-import org.goplanit.assignment.TrafficAssignmentBuilder;
+import org.goplanit.assignment.ltm.LtmTrafficAssignmentBuilder;
 import org.goplanit.demands.Demands;
 import org.goplanit.input.InputBuilderListener;
 import org.goplanit.network.LayeredNetwork;
@@ -14,7 +14,7 @@ import org.goplanit.utils.id.IdGroupingToken;
  * @author markr
  *
  */
-public class EventBasedLtmTrafficAssignmentBuilder extends TrafficAssignmentBuilder<EventBasedLtm> {
+public class EventBasedLtmTrafficAssignmentBuilder extends LtmTrafficAssignmentBuilder<EventBasedLtm> {
 
   /**
    * create the configurator for ELTM
@@ -0,0 +1,254 @@
+package org.goplanit.assignment.ltm.eltm.event;
+
+import java.util.Arrays;
+
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+
+/**
+ * Calendar (bucket) based event queue for eLTM. Rather than storing event instances, events are stored in primitive arrays keyed by an event handle, where each event comprises a
+ * time (seconds), link segment (id), boundary location and flow rate (pcu/h). The rate is NaN for events that only trigger a re-evaluation of the node at the boundary.
+ * <p>
+ * Events are placed in the bucket covering their time, each bucket is a linked list of handles. Polling scans the earliest non-empty bucket for its earliest event. With a bucket
+ * width in the order of the smallest link travel time buckets remain small, yielding (near) constant time insertion and removal without any object creation. Released handles are
+ * recycled.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class CalendarEventQueue {
+
+  /** initial capacity of the event arrays */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  /** indicator of no (next) event */
+  private static final int NONE = -1;
+
+  /** the location values indexed by ordinal */
+  private static final Location[] LOCATIONS = Location.values();
+
+  /** width of each bucket in seconds */
+  private final double bucketWidthSeconds;
+
+  /** simulation horizon in seconds, events after the horizon are discarded */
+  private final double horizonSeconds;
+
+  /** first event handle per bucket */
+  private final int[] bucketHeads;
+
+  /** event times by handle */
+  private double[] times;
+
+  /** event link segment ids by handle */
+  private int[] linkSegments;
+
+  /** event boundary location ordinal by handle */
+  private byte[] locations;
+
+  /** event flow rates by handle */
+  private double[] rates;
+
+  /** next event handle in the same bucket (or free list) by handle */
+  private int[] next;
+
+  /** number of handles ever used */
+  private int usedHandles;
+
+  /** first recycled handle */
+  private int freeHead = NONE;
+
+  /** number of queued events */
+  private int size;
+
+  /** bucket from which the next event is polled */
+  private int currentBucket;
+
+  /** time of the polled event */
+  private double polledTime;
+
+  /** link segment of the polled event */
+  private int polledLinkSegment;
+
+  /** location of the polled event */
+  private Location polledLocation;
+
+  /** rate of the polled event */
+  private double polledRate;
+
+  /**
+   * Acquire a handle, either recycled or new, growing the arrays when needed
+   *
+   * @return handle
+   */
+  private int acquireHandle() {
+    if (freeHead != NONE) {
+      int handle = freeHead;
+      freeHead = next[handle];
+      return handle;
+    }
+    if (usedHandles == times.length) {
+      int newCapacity = times.length + (times.length >> 1);
+      times = Arrays.copyOf(times, newCapacity);
+      linkSegments = Arrays.copyOf(linkSegments, newCapacity);
+      locations = Arrays.copyOf(locations, newCapacity);
+      rates = Arrays.copyOf(rates, newCapacity);
+      next = Arrays.copyOf(next, newCapacity);
+    }
+    return usedHandles++;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param bucketWidthSeconds width of each bucket in seconds
+   * @param horizonSeconds     simulation horizon in seconds
+   */
+  public CalendarEventQueue(double bucketWidthSeconds, double horizonSeconds) {
+    this.bucketWidthSeconds = bucketWidthSeconds;
+    this.horizonSeconds = horizonSeconds;
+    this.bucketHeads = new int[(int) Math.ceil(horizonSeconds / bucketWidthSeconds) + 1];
+    Arrays.fill(bucketHeads, NONE);
+
+    this.times = new double[INITIAL_CAPACITY];
+    this.linkSegments = new int[INITIAL_CAPACITY];
+    this.locations = new byte[INITIAL_CAPACITY];
+    this.rates = new double[INITIAL_CAPACITY];
+    this.next = new int[INITIAL_CAPACITY];
+  }
+
+  /**
+   * Schedule an event. Events beyond the horizon are discarded, events before the bucket currently being polled are placed in the current bucket
+   *
+   * @param time          of the event in seconds
+   * @param linkSegmentId of the event
+   * @param location      of the boundary on the link segment
+   * @param rate          flow rate in pcu/h, NaN when the event only triggers a re-evaluation
+   * @return true when scheduled, false when beyond the horizon
+   */
+  public boolean schedule(double time, int linkSegmentId, Location location, double rate) {
+    if (time > horizonSeconds) {
+      return false;
+    }
+    int bucket = Math.max(currentBucket, (int) (time / bucketWidthSeconds));
+    int handle = acquireHandle();
+    times[handle] = time;
+    linkSegments[handle] = linkSegmentId;
+    locations[handle] = (byte) location.ordinal();
+    rates[handle] = rate;
+    next[handle] = bucketHeads[bucket];
+    bucketHeads[bucket] = handle;
+    ++size;
+    return true;
+  }
+
+  /**
+   * Poll the earliest event. Its contents are available via the polled getters until the next poll
+   *
+   * @return true when an event was polled, false when the queue is empty
+   */
+  public boolean poll() {
+    if (size == 0) {
+      return false;
+    }
+    while (bucketHeads[currentBucket] == NONE) {
+      ++currentBucket;
+    }
+
+    /* earliest in bucket, tracking predecessor for unlinking */
+    int earliestPrevious = NONE;
+    int earliest = bucketHeads[currentBucket];
+    for (int previous = earliest, handle = next[earliest]; handle != NONE; previous = handle, handle = next[handle]) {
+      if (times[handle] < times[earliest]) {
+        earliest = handle;
+        earliestPrevious = previous;
+      }
+    }
+    if (earliestPrevious == NONE) {
+      bucketHeads[currentBucket] = next[earliest];
+    } else {
+      next[earliestPrevious] = next[earliest];
+    }
+
+    polledTime = times[earliest];
+    polledLinkSegment = linkSegments[earliest];
+    polledLocation = LOCATIONS[locations[earliest]];
+    polledRate = rates[earliest];
+
+    next[earliest] = freeHead;
+    freeHead = earliest;
+    --size;
+    return true;
+  }
+
+  /**
+   * Verify if the queue is empty
+   *
+   * @return true when empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Number of queued events
+   *
+   * @return number of events
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Time of the most recently polled event
+   *
+   * @return time in seconds
+   */
+  public double getPolledTime() {
+    return polledTime;
+  }
+
+  /**
+   * Link segment of the most recently polled event
+   *
+   * @return link segment id
+   */
+  public int getPolledLinkSegment() {
+    return polledLinkSegment;
+  }
+
+  /**
+   * Boundary location of the most recently polled event
+   *
+   * @return location
+   */
+  public Location getPolledLocation() {
+    return polledLocation;
+  }
+
+  /**
+   * Rate of the most recently polled event
+   *
+   * @return rate in pcu/h, NaN when the event only triggers a re-evaluation
+   */
+  public double getPolledRate() {
+    return polledRate;
+  }
+
+  /**
+   * Bucket width used
+   *
+   * @return bucket width in seconds
+   */
+  public double getBucketWidthSeconds() {
+    return bucketWidthSeconds;
+  }
+
+  /**
+   * Horizon used
+   *
+   * @return horizon in seconds
+   */
+  public double getHorizonSeconds() {
+    return horizonSeconds;
+  }
+}
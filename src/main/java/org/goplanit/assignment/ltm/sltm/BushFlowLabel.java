@@ -1,6 +1,6 @@
 package org.goplanit.assignment.ltm.sltm;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 /**
@@ -58,7 +58,7 @@ public class BushFlowLabel implements Comparable<BushFlowLabel> {
    * @return the generated id
    */
   protected static final long generateId(final IdGroupingToken idToken) {
-    return IdGenerator.generateId(idToken, BushFlowLabel.class);
+    return SynchronisedIdGenerator.generateId(idToken, BushFlowLabel.class);
   }
 
   /**
@@ -10,7 +10,7 @@ import org.goplanit.algorithms.shortest.MinMaxPathResult;
 import org.goplanit.utils.graph.directed.DirectedVertex;
 import org.goplanit.utils.graph.directed.EdgeSegment;
 import org.goplanit.utils.graph.directed.acyclic.UntypedACyclicSubGraph;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.virtual.CentroidVertex;
 
@@ -80,7 +80,7 @@ public abstract class RootedBush<V extends DirectedVertex, ES extends EdgeSegmen
    */
   public RootedBush(final IdGroupingToken idToken, DirectedVertex rootVertex, boolean inverted, UntypedACyclicSubGraph<V, ES> dag) {
     this.dag = dag;
-    this.bushGroupingToken = IdGenerator.createIdGroupingToken(this, dag.getId());
+    this.bushGroupingToken = SynchronisedIdGenerator.createIdGroupingToken(this, dag.getId());
     this.originDemandsPcuH = new HashMap<>();
   }
 
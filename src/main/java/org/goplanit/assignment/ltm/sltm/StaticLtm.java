@@ -11,6 +11,8 @@ import java.util.logging.Logger;
 
 import org.goplanit.assignment.ltm.LtmAssignment;
 import org.goplanit.assignment.ltm.sltm.conjugate.StaticLtmStrategyConjugateBush;
+import org.goplanit.assignment.metrics.AssignmentCounter;
+import org.goplanit.assignment.metrics.AssignmentPhase;
 import org.goplanit.gap.LinkBasedRelativeDualityGapFunction;
 import org.goplanit.interactor.LinkInflowOutflowAccessee;
 import org.goplanit.network.MacroscopicNetwork;
@@ -114,6 +116,13 @@ public class StaticLtm extends LtmAssignment implements LinkInflowOutflowAccesse
     boolean updateOnlyPotentiallyBlockingNodeCosts = false;
     double[] initialLinkSegmentCosts = new double[getTotalNumberOfNetworkSegments()];
     assignmentStrategy.executeNetworkCostsUpdate(mode, updateOnlyPotentiallyBlockingNodeCosts, initialLinkSegmentCosts);
+
+    /* warm start: build the initial solution on the previous time period's converged costs instead of the costs of an empty network */
+    if (isWarmStartTimePeriods() && this.simulationData != null && this.simulationData.getLinkSegmentTravelTimePcuH(mode) != null) {
+      LOGGER.info(String.format("%swarm starting from converged costs of time period %s", LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(timePeriod),
+          this.simulationData.getTimePeriod().getXmlId()));
+      System.arraycopy(this.simulationData.getLinkSegmentTravelTimePcuH(mode), 0, initialLinkSegmentCosts, 0, initialLinkSegmentCosts.length);
+    }
     var simulationData = new StaticLtmSimulationData(timePeriod, List.of(mode), getTotalNumberOfNetworkSegments());
     simulationData.setLinkSegmentTravelTimePcuH(mode, initialLinkSegmentCosts);
 
@@ -156,19 +165,27 @@ public class StaticLtm extends LtmAssignment implements LinkInflowOutflowAccesse
       /* LOADING UPDATE + PATH/BUSH UPDATE */
       double[] prevCosts = getIterationData().getLinkSegmentTravelTimePcuH(theMode);
       double[] costsToUpdate = Arrays.copyOf(prevCosts, prevCosts.length);
+      long numberOfNodeModelCalls = assignmentStrategy.getLoading().getNumberOfNodeModelCalls();
       boolean success = assignmentStrategy.performIteration(theMode, costsToUpdate, simulationData.getIterationIndex());
+      getMetrics().add(AssignmentCounter.NODE_MODEL_CALLS, assignmentStrategy.getLoading().getNumberOfNodeModelCalls() - numberOfNodeModelCalls);
       if (!success) {
         LOGGER.severe("Unable to continue PLANit sLTM run, aborting");
         break;
       }
+      getMetrics().increment(AssignmentCounter.ITERATIONS);
+
       // COST UPDATE
       getIterationData().setLinkSegmentTravelTimePcuH(theMode, costsToUpdate);
 
       // CONVERGENCE CHECK
+      long startNanos = getMetrics().start();
       converged = assignmentStrategy.hasConverged(getGapFunction(), simulationData.getIterationIndex());
+      getMetrics().stop(AssignmentPhase.GAP_COMPUTATION, startNanos);
 
       // PERSIST
+      startNanos = getMetrics().start();
       persistIterationResults(timePeriod, theMode, converged);
+      getMetrics().stop(AssignmentPhase.OUTPUT_PERSISTENCE, startNanos);
 
       iterationStartTime = logBasicIterationInformation(iterationStartTime, (LinkBasedRelativeDualityGapFunction) getGapFunction());
     } while (!converged);
@@ -219,6 +236,9 @@ public class StaticLtm extends LtmAssignment implements LinkInflowOutflowAccesse
   protected void initialiseBeforeExecution() throws PlanItException {
     super.initialiseBeforeExecution();
     this.assignmentStrategy = createAssignmentStrategy();
+    if (assignmentStrategy != null) {
+      assignmentStrategy.setMetrics(getMetrics());
+    }
     LOGGER.info(String.format("%sstrategy: %s", LoggingUtils.runIdPrefix(getId()), assignmentStrategy.getDescription()));
   }
 
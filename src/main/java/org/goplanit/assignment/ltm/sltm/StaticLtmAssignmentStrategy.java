@@ -6,6 +6,9 @@ import java.util.logging.Logger;
 
 import org.goplanit.assignment.ltm.sltm.loading.SplittingRateData;
 import org.goplanit.assignment.ltm.sltm.loading.StaticLtmNetworkLoading;
+import org.goplanit.assignment.metrics.AssignmentCounter;
+import org.goplanit.assignment.metrics.AssignmentMetrics;
+import org.goplanit.assignment.metrics.AssignmentPhase;
 import org.goplanit.cost.physical.AbstractPhysicalCost;
 import org.goplanit.cost.virtual.AbstractVirtualCost;
 import org.goplanit.gap.GapFunction;
@@ -73,6 +76,9 @@ public abstract class StaticLtmAssignmentStrategy {
   /** have a mapping between zone and connectoid to the layer by means of its centroid vertex */
   private Map<Zone, CentroidVertex> zone2VertexMapping;
 
+  /** registry of per phase timings and counters of the parent assignment */
+  private AssignmentMetrics metrics;
+
   /**
    * The transport model network used
    * 
@@ -118,6 +124,15 @@ public abstract class StaticLtmAssignmentStrategy {
     return networkLoading;
   }
 
+  /**
+   * The metrics registry to track timings and counters on
+   * 
+   * @return metrics
+   */
+  protected AssignmentMetrics getMetrics() {
+    return metrics;
+  }
+
   /**
    * The settings
    * 
@@ -192,6 +207,7 @@ public abstract class StaticLtmAssignmentStrategy {
    * 
    */
   protected void executeNetworkLoading() {
+    final long startNanos = metrics.start();
 
     /* for now we do not consider path choice, we conduct a one-shot all-or-nothing network loading */
     int networkLoadingIterationIndex = 0;
@@ -215,6 +231,9 @@ public abstract class StaticLtmAssignmentStrategy {
 
       /* STEP 5 - Network loading convergence */
     } while (!getLoading().stepFiveCheckNetworkLoadingConvergence(networkLoadingIterationIndex++));
+
+    metrics.stop(AssignmentPhase.LOADING, startNanos);
+    metrics.add(AssignmentCounter.LOADING_SUB_ITERATIONS, networkLoadingIterationIndex);
   }
 
   /**
@@ -234,6 +253,7 @@ public abstract class StaticLtmAssignmentStrategy {
    * @throws PlanItException thrown if error
    */
   protected void executeNetworkCostsUpdate(Mode theMode, boolean updateOnlyPotentiallyBlockingNodeCosts, double[] costsToUpdate) throws PlanItException {
+    final long startNanos = metrics.start();
 
     final AbstractPhysicalCost physicalCost = getTrafficAssignmentComponent(AbstractPhysicalCost.class);
     final AbstractVirtualCost virtualCost = getTrafficAssignmentComponent(AbstractVirtualCost.class);
@@ -270,6 +290,7 @@ public abstract class StaticLtmAssignmentStrategy {
       physicalCost.populateWithCost(getInfrastructureNetwork().getLayerByMode(theMode), theMode, costsToUpdate);
 
     }
+    metrics.stop(AssignmentPhase.COST_UPDATE, startNanos);
   }
 
   /**
@@ -293,6 +314,18 @@ public abstract class StaticLtmAssignmentStrategy {
     /* construct mapping from OdZone to centroidVertex which is needed for path finding among other things, where we get an OD but need to find a path from
      * centroid vertex to centroid vertex */
     this.zone2VertexMapping = transportModelNetwork.createZoneToCentroidVertexMapping(true /*include OdZones */, false /* exclude transfer zones */);
+
+    /* disabled until the parent assignment provides its own registry */
+    this.metrics = new AssignmentMetrics(assignmentId);
+  }
+
+  /**
+   * Track timings and counters of this strategy on the given registry, typically the one of the parent assignment
+   * 
+   * @param metrics to use
+   */
+  public void setMetrics(final AssignmentMetrics metrics) {
+    this.metrics = metrics;
   }
 
   /**
@@ -12,6 +12,7 @@ import org.goplanit.algorithms.shortest.ShortestBushGeneralised;
 import org.goplanit.algorithms.shortest.ShortestPathDijkstra;
 import org.goplanit.assignment.ltm.sltm.loading.StaticLtmLoadingBushBase;
 import org.goplanit.assignment.ltm.sltm.loading.StaticLtmLoadingScheme;
+import org.goplanit.assignment.metrics.AssignmentPhase;
 import org.goplanit.cost.physical.AbstractPhysicalCost;
 import org.goplanit.cost.virtual.AbstractVirtualCost;
 import org.goplanit.gap.GapFunction;
@@ -353,7 +354,9 @@ public abstract class StaticLtmBushStrategyBase<B extends RootedBush<?, ?>> exte
         this.executeNetworkCostsUpdate(theMode, updateOnlyPotentiallyBlockingNodeCosts, costsToUpdate);
         
         /* PAS COST UPDATE*/
+        final long startNanos = getMetrics().start();
         pasManager.updateCosts(costsToUpdate);      
+        getMetrics().stop(AssignmentPhase.COST_UPDATE, startNanos);
                           
         LOGGER.info(String.format("** ALPHA: %s", Arrays.toString(getLoading().getCurrentFlowAcceptanceFactors())));
         LOGGER.info(String.format("** COSTS: %s", Arrays.toString(costsToUpdate)));
@@ -363,16 +366,22 @@ public abstract class StaticLtmBushStrategyBase<B extends RootedBush<?, ?>> exte
       
       /* 3 - BUSH LOADING - SYNC BUSH TURN FLOWS - USE NETWORK LOADING ALPHAS - MODE AGNOSTIC FOR NOW */
       {
+        final long startNanos = getMetrics().start();
         syncBushFlowsToNetworkFlows();
+        getMetrics().stop(AssignmentPhase.BUSH_UPDATE, startNanos);
       }
       
       /* 4 - BUSH ROUTE CHOICE - UPDATE BUSH SPLITTING RATES - SHIFT BUSH TURN FLOWS - MODE AGNOSTIC FOR NOW */     
       {
         /* (NEW) PAS MATCHING FOR BUSHES */
+        long startNanos = getMetrics().start();
         Collection<Pas> newPass = updateBushPass(costsToUpdate);            
+        getMetrics().stop(AssignmentPhase.PAS_IDENTIFICATION, startNanos);
               
         /* PAS/BUSH FLOW SHIFTS + GAP UPDATE */
+        startNanos = getMetrics().start();
         Collection<Pas> updatedPass = shiftFlows(theMode);      
+        getMetrics().stop(AssignmentPhase.PAS_SHIFTING, startNanos);
         
         if(getSettings().isDetailedLogging()) {
           var newUsedPass = new ArrayList<Pas>(newPass);
@@ -1,5 +1,6 @@
 package org.goplanit.assignment.ltm.sltm;
 
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,7 @@ import org.goplanit.output.property.OutputProperty;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
 import org.goplanit.utils.time.TimePeriod;
 
 /**
@@ -183,4 +185,57 @@ public class StaticLtmLinkOutputTypeAdapter extends MacroscopicLinkOutputTypeAda
     return value;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void fillFlowPositive(final MacroscopicLinkSegments linkSegments, final Mode mode, final BitSet flowPositive) throws PlanItException {
+    final double[] outflows = getAssignment().getLinkSegmentOutflowsPcuHour();
+    for (var linkSegment : linkSegments) {
+      final int id = (int) linkSegment.getId();
+      flowPositive.set(id, linkSegment.isModeAllowed(mode) && outflows[id] > 0.0);
+    }
+  }
+
+  /**
+   * In- and outflows and travel times are copied directly from the assignment's primitive data, all other properties are delegated to the default implementation
+   * 
+   * @param outputProperty the specified output property
+   * @param linkSegments   the link segments to collect values for
+   * @param mode           the current mode
+   * @param timePeriod     the current time period
+   * @param values         to fill, indexed by link segment id
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  public void fillLinkSegmentOutputPropertyValues(final OutputProperty outputProperty, final MacroscopicLinkSegments linkSegments, final Mode mode, final TimePeriod timePeriod,
+      final double[] values) throws PlanItException {
+    switch (outputProperty.getOutputPropertyType()) {
+    case FLOW:
+    case OUTFLOW:
+      final double[] outflows = getAssignment().getLinkSegmentOutflowsPcuHour();
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> outflows[(int) ls.getId()]);
+      break;
+    case INFLOW:
+      final double[] inflows = getAssignment().getLinkSegmentInflowsPcuHour();
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> inflows[(int) ls.getId()]);
+      break;
+    case LINK_SEGMENT_COST:
+      final double[] travelTimes = getAssignment().getIterationData().getLinkSegmentTravelTimePcuH(mode);
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> travelTimes[(int) ls.getId()]);
+      break;
+    case COST_TIMES_FLOW:
+      final double[] costs = getAssignment().getIterationData().getLinkSegmentTravelTimePcuH(mode);
+      final double[] flows = getAssignment().getLinkSegmentOutflowsPcuHour();
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> costs[(int) ls.getId()] * flows[(int) ls.getId()]);
+      break;
+    case CALCULATED_SPEED:
+      final double[] linkTravelTimes = getAssignment().getIterationData().getLinkSegmentTravelTimePcuH(mode);
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> ls.getParentLink().getLengthKm() / linkTravelTimes[(int) ls.getId()]);
+      break;
+    default:
+      super.fillLinkSegmentOutputPropertyValues(outputProperty, linkSegments, mode, timePeriod, values);
+    }
+  }
+
 }
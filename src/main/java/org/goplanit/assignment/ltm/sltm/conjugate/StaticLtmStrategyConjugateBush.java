@@ -1,6 +1,7 @@
 package org.goplanit.assignment.ltm.sltm.conjugate;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.logging.Logger;
 
 import org.goplanit.algorithms.shortest.ShortestBushGeneralised;
@@ -14,9 +15,11 @@ import org.goplanit.interactor.TrafficAssignmentComponentAccessee;
 import org.goplanit.network.transport.TransportModelNetwork;
 import org.goplanit.od.demand.OdDemands;
 import org.goplanit.utils.exceptions.PlanItException;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.layer.ConjugateMacroscopicNetworkLayer;
+import org.goplanit.utils.network.virtual.CentroidVertex;
+import org.goplanit.utils.network.virtual.ConjugateConnectoidNode;
 import org.goplanit.utils.network.virtual.ConjugateVirtualNetwork;
 import org.goplanit.zoning.Zoning;
 
@@ -38,6 +41,21 @@ public class StaticLtmStrategyConjugateBush extends StaticLtmBushStrategyBase<Co
   /** the conjugate network layer we base our conjugate bushes on */
   private final ConjugateMacroscopicNetworkLayer conjugateNetworkLayer;
 
+  /** mapping from centroid vertices to their conjugate connectoid nodes, created once upon first use */
+  private Map<CentroidVertex, ConjugateConnectoidNode> centroid2ConjugateNodeMapping;
+
+  /**
+   * Collect the mapping from centroid vertex to conjugate connectoid node, created once and reused afterwards
+   * 
+   * @return mapping
+   */
+  private Map<CentroidVertex, ConjugateConnectoidNode> getCentroidToConjugateNodeMapping() {
+    if (centroid2ConjugateNodeMapping == null) {
+      centroid2ConjugateNodeMapping = conjugateVirtualNetwork.createCentroidToConjugateNodeMapping();
+    }
+    return centroid2ConjugateNodeMapping;
+  }
+
   /**
    * Constructor
    * 
@@ -52,7 +70,7 @@ public class StaticLtmStrategyConjugateBush extends StaticLtmBushStrategyBase<Co
     super(idGroupingToken, assignmentId, transportModelNetwork, settings, taComponents);
 
     /* generate conjugate network - generate ids separate from other vertices/edges/segments by providing new token */
-    var token = IdGenerator.createIdGroupingToken("conjugate for network " + getInfrastructureNetwork().getId());
+    var token = SynchronisedIdGenerator.createIdGroupingToken("conjugate for network " + getInfrastructureNetwork().getId());
     
     /* generate conjugate virtual network - generate ids separate from other vertices/edges/segments by providing new token */
     this.conjugateVirtualNetwork = transportModelNetwork.getZoning().getVirtualNetwork().createConjugate(token);
@@ -66,8 +84,7 @@ public class StaticLtmStrategyConjugateBush extends StaticLtmBushStrategyBase<Co
    */
   protected ConjugateDestinationBush[] createEmptyBushes() {
 
-    // TODO: we now create this mapping twice, see #initialiseBush, not efficient
-    var centroid2ConjugateNodeMapping = conjugateVirtualNetwork.createCentroidToConjugateNodeMapping();
+    var centroid2ConjugateNodeMapping = getCentroidToConjugateNodeMapping();
 
     Zoning zoning = getTransportNetwork().getZoning();
     ConjugateDestinationBush[] conjugateBushes = new ConjugateDestinationBush[(int) zoning.getNumberOfCentroids()];
@@ -103,8 +120,7 @@ public class StaticLtmStrategyConjugateBush extends StaticLtmBushStrategyBase<Co
    */
   @Override
   protected void initialiseBush(ConjugateDestinationBush bush, Zoning zoning, OdDemands odDemands, ShortestBushGeneralised shortestBushAlgorithm) {
-    // TODO: we now create this mapping twice, see #createEmptyBushes, not efficient
-    var centroid2ConjugateNodeMapping = conjugateVirtualNetwork.createCentroidToConjugateNodeMapping();
+    var centroid2ConjugateNodeMapping = getCentroidToConjugateNodeMapping();
 
     var destinationCentroidVertex = bush.getRootZoneVertex();
     var destination = destinationCentroidVertex.getParent().getParentZone();
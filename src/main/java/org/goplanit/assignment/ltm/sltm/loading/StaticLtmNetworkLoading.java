@@ -63,6 +63,9 @@ public abstract class StaticLtmNetworkLoading {
   /** odDemands to load */
   private OdDemands odDemands;
 
+  /** number of node model invocations since creation of this loading, for instrumentation purposes only */
+  private long numberOfNodeModelCalls = 0;
+
   // SIMULATION DATA //
 
   /**
@@ -614,6 +617,7 @@ public abstract class StaticLtmNetworkLoading {
     }
   
     /* Kappa(s,r,phi) : node model update */
+    ++staticLtmNetworkLoading.numberOfNodeModelCalls;
     try {
       var nodeModel = new TampereNodeModel(new TampereNodeModelInput(new TampereNodeModelFixedInput(inCapacities, outReceivingFlows), turnSendingFlows));
       Array1D<Double> localFlowAcceptanceFactors = nodeModel.run();
@@ -1091,6 +1095,15 @@ public abstract class StaticLtmNetworkLoading {
   }  
   
   
+  /**
+   * Number of node model invocations since creation of this loading, including those triggered outside of the loading itself, e.g., when shifting flows
+   * 
+   * @return number of node model calls
+   */
+  public long getNumberOfNodeModelCalls() {
+    return numberOfNodeModelCalls;
+  }
+
   /** Access to most recent flow acceptance factors (alphas)
    * 
    * @return flow acceptance factors
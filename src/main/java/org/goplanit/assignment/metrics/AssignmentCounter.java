@@ -0,0 +1,22 @@
+package org.goplanit.assignment.metrics;
+
+/**
+ * Counters tracked by {@link AssignmentMetrics}. Not every assignment updates every counter.
+ * 
+ * @author markr
+ *
+ */
+public enum AssignmentCounter {
+
+  /** completed assignment iterations, across time periods */
+  ITERATIONS,
+
+  /** one-to-all shortest path searches */
+  SHORTEST_PATH_SEARCHES,
+
+  /** node model invocations (sLTM only) */
+  NODE_MODEL_CALLS,
+
+  /** network loading sub-iterations within assignment iterations (sLTM only) */
+  LOADING_SUB_ITERATIONS;
+}
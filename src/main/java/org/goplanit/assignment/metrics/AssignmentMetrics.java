@@ -0,0 +1,264 @@
+package org.goplanit.assignment.metrics;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+/**
+ * Registry of per phase timings and counters of a traffic assignment. Timings are based on {@link System#nanoTime()} and accumulated across iterations and time periods until
+ * reset. Collection is disabled by default in which case starting and stopping a phase is a no-op, so instrumented code can invoke it unconditionally. All updates are thread safe
+ * such that phases executed concurrently (for example when modes are loaded simultaneously) can be tracked. Note that the time of concurrently executed phases is summed, so it may
+ * exceed the wall time of the iteration.
+ * <p>
+ * Usage:
+ *
+ * <pre>
+ * long start = metrics.start();
+ * // ... phase ...
+ * metrics.stop(AssignmentPhase.SMOOTHING, start);
+ * </pre>
+ * <p>
+ * Optionally each completed phase is emitted as a JFR event ({@code org.goplanit.AssignmentPhase}) so it can be correlated with, for example, allocation and GC events in a flight
+ * recording.
+ *
+ * @author markr
+ *
+ */
+public class AssignmentMetrics implements Serializable {
+
+  /** generated UID */
+  private static final long serialVersionUID = -3906151525442744541L;
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(AssignmentMetrics.class.getCanonicalName());
+
+  /**
+   * returned by {@link #start()} when collection is disabled. Explicit sentinel since nanoTime readings are arbitrary and may be zero or negative
+   */
+  private static final long NOT_STARTED = Long.MIN_VALUE;
+
+  /** id of the assignment the metrics belong to */
+  private final long assignmentId;
+
+  /** accumulated time spent by phase (ordinal) */
+  private final AtomicLongArray phaseNanos;
+
+  /** number of completed phases by phase (ordinal) */
+  private final AtomicLongArray phaseCalls;
+
+  /** counters by counter (ordinal) */
+  private final AtomicLongArray counters;
+
+  /** flag indicating if metrics are collected */
+  private volatile boolean enabled = DEFAULT_ENABLED;
+
+  /** flag indicating if completed phases are emitted as JFR events */
+  private volatile boolean emitJfrEvents = DEFAULT_EMIT_JFR_EVENTS;
+
+  /**
+   * Emit the completed phase as JFR event
+   *
+   * @param phase         completed
+   * @param durationNanos of the phase
+   */
+  private void emitJfrEvent(AssignmentPhase phase, long durationNanos) {
+    var event = new AssignmentPhaseEvent();
+    if (event.shouldCommit()) {
+      event.assignmentId = assignmentId;
+      event.phase = phase.name();
+      event.phaseDuration = durationNanos;
+      event.commit();
+    }
+  }
+
+  /** default for collecting metrics */
+  public static final boolean DEFAULT_ENABLED = false;
+
+  /** default for emitting JFR events */
+  public static final boolean DEFAULT_EMIT_JFR_EVENTS = false;
+
+  /**
+   * Constructor
+   *
+   * @param assignmentId id of the assignment these metrics belong to
+   */
+  public AssignmentMetrics(long assignmentId) {
+    this.assignmentId = assignmentId;
+    this.phaseNanos = new AtomicLongArray(AssignmentPhase.values().length);
+    this.phaseCalls = new AtomicLongArray(AssignmentPhase.values().length);
+    this.counters = new AtomicLongArray(AssignmentCounter.values().length);
+  }
+
+  /**
+   * Copy constructor, settings are copied, collected metrics are not
+   *
+   * @param assignmentId id of the assignment these metrics belong to
+   * @param other        to copy settings from
+   */
+  public AssignmentMetrics(long assignmentId, AssignmentMetrics other) {
+    this(assignmentId);
+    this.enabled = other.enabled;
+    this.emitJfrEvents = other.emitJfrEvents;
+  }
+
+  /**
+   * Start timing a phase
+   *
+   * @return start time to provide to {@link #stop(AssignmentPhase, long)}
+   */
+  public long start() {
+    return enabled ? System.nanoTime() : NOT_STARTED;
+  }
+
+  /**
+   * Stop timing a phase and register the time spent since the given start
+   *
+   * @param phase      that completed
+   * @param startNanos as obtained via {@link #start()}
+   * @return registered time spent (ns), 0 when not collected
+   */
+  public long stop(AssignmentPhase phase, long startNanos) {
+    return stop(phase, startNanos, 0);
+  }
+
+  /**
+   * Stop timing a phase and register the time spent since the given start excluding the time spent in nested phases that have been registered separately
+   *
+   * @param phase         that completed
+   * @param startNanos    as obtained via {@link #start()}
+   * @param excludedNanos time spent in nested phases to exclude
+   * @return registered time spent (ns), 0 when not collected
+   */
+  public long stop(AssignmentPhase phase, long startNanos, long excludedNanos) {
+    if (!enabled || startNanos == NOT_STARTED) {
+      return 0;
+    }
+    long durationNanos = System.nanoTime() - startNanos - excludedNanos;
+    phaseNanos.addAndGet(phase.ordinal(), durationNanos);
+    phaseCalls.incrementAndGet(phase.ordinal());
+    if (emitJfrEvents) {
+      emitJfrEvent(phase, durationNanos);
+    }
+    return durationNanos;
+  }
+
+  /**
+   * Increment counter by one
+   *
+   * @param counter to increment
+   */
+  public void increment(AssignmentCounter counter) {
+    add(counter, 1);
+  }
+
+  /**
+   * Increment counter by the given amount
+   *
+   * @param counter to increment
+   * @param amount  to add
+   */
+  public void add(AssignmentCounter counter, long amount) {
+    if (enabled) {
+      counters.addAndGet(counter.ordinal(), amount);
+    }
+  }
+
+  /**
+   * Reset all collected timings and counters, settings are retained
+   */
+  public void reset() {
+    for (int index = 0; index < phaseNanos.length(); ++index) {
+      phaseNanos.set(index, 0);
+      phaseCalls.set(index, 0);
+    }
+    for (int index = 0; index < counters.length(); ++index) {
+      counters.set(index, 0);
+    }
+  }
+
+  /**
+   * Log the collected timings and counters, phases and counters that were not used are omitted
+   *
+   * @param loggingPrefix to use
+   */
+  public void logSummary(String loggingPrefix) {
+    for (var phase : AssignmentPhase.values()) {
+      long calls = getPhaseCalls(phase);
+      if (calls > 0) {
+        LOGGER.info(String.format("%s%s: %.1f ms (%d calls)", loggingPrefix, phase, getPhaseNanos(phase) / 1e6, calls));
+      }
+    }
+    for (var counter : AssignmentCounter.values()) {
+      long count = getCount(counter);
+      if (count > 0) {
+        LOGGER.info(String.format("%s%s: %d", loggingPrefix, counter, count));
+      }
+    }
+  }
+
+  /**
+   * Accumulated time spent in the given phase
+   *
+   * @param phase to collect for
+   * @return time spent (ns)
+   */
+  public long getPhaseNanos(AssignmentPhase phase) {
+    return phaseNanos.get(phase.ordinal());
+  }
+
+  /**
+   * Number of times the given phase completed
+   *
+   * @param phase to collect for
+   * @return number of completed phases
+   */
+  public long getPhaseCalls(AssignmentPhase phase) {
+    return phaseCalls.get(phase.ordinal());
+  }
+
+  /**
+   * Current value of the given counter
+   *
+   * @param counter to collect
+   * @return count
+   */
+  public long getCount(AssignmentCounter counter) {
+    return counters.get(counter.ordinal());
+  }
+
+  /**
+   * Verify if metrics are collected
+   *
+   * @return true when collected, false otherwise
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Set whether metrics are collected
+   *
+   * @param enabled flag to set
+   */
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Verify if completed phases are emitted as JFR events
+   *
+   * @return true when emitted, false otherwise
+   */
+  public boolean isEmitJfrEvents() {
+    return emitJfrEvents;
+  }
+
+  /**
+   * Set whether completed phases are emitted as JFR events, only relevant when metrics are collected
+   *
+   * @param emitJfrEvents flag to set
+   */
+  public void setEmitJfrEvents(boolean emitJfrEvents) {
+    this.emitJfrEvents = emitJfrEvents;
+  }
+}
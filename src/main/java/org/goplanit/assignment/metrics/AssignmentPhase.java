@@ -0,0 +1,37 @@
+package org.goplanit.assignment.metrics;
+
+/**
+ * Phases of an assignment iteration for which the time spent is tracked by {@link AssignmentMetrics}. Not every assignment passes through every phase.
+ * 
+ * @author markr
+ *
+ */
+public enum AssignmentPhase {
+
+  /** all-or-nothing shortest path searches */
+  AON_SEARCH,
+
+  /** loading of demand onto the network, i.e., shortest paths or network loading procedure */
+  LOADING,
+
+  /** smoothing of flows between iterations */
+  SMOOTHING,
+
+  /** update of the link segment costs */
+  COST_UPDATE,
+
+  /** computation of the gap */
+  GAP_COMPUTATION,
+
+  /** persisting output for the iteration (if any) */
+  OUTPUT_PERSISTENCE,
+
+  /** synchronisation of bush flows with the network loading (sLTM only) */
+  BUSH_UPDATE,
+
+  /** identification of new PASs (sLTM only) */
+  PAS_IDENTIFICATION,
+
+  /** shifting of flows between PAS segments (sLTM only) */
+  PAS_SHIFTING;
+}
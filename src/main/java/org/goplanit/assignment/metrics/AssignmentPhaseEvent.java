@@ -0,0 +1,37 @@
+package org.goplanit.assignment.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted upon completion of an assignment phase when {@link AssignmentMetrics} is configured to do so. Only recorded when enabled in the active flight recording. The
+ * duration is measured by the metrics registry and carried as a field so the event does not rely on being started beforehand.
+ * 
+ * @author markr
+ *
+ */
+@Name("org.goplanit.AssignmentPhase")
+@Label("Assignment Phase")
+@Category({ "PLANit", "Assignment" })
+@Description("Time spent in a single phase of a traffic assignment iteration")
+@StackTrace(false)
+class AssignmentPhaseEvent extends Event {
+
+  /** id of the assignment */
+  @Label("Assignment Id")
+  long assignmentId;
+
+  /** the phase */
+  @Label("Phase")
+  String phase;
+
+  /** time spent in the phase */
+  @Label("Phase Duration")
+  @Timespan(Timespan.NANOSECONDS)
+  long phaseDuration;
+}
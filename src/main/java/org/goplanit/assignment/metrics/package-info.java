@@ -0,0 +1,4 @@
+/**
+ * Light weight per phase timing and counter instrumentation of traffic assignments
+ */
+package org.goplanit.assignment.metrics;
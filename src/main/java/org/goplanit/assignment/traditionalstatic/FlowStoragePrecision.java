@@ -0,0 +1,21 @@
+package org.goplanit.assignment.traditionalstatic;
+
+/**
+ * Numeric precision used to store the (smoothed) segment flows that persist across iterations of a traditional static assignment. Reduced precision halves the memory footprint of
+ * these flows per mode at the cost of roughly seven significant digits of accuracy. Flows are always accumulated in double precision during loading and smoothed directly into the
+ * configured storage.
+ * <p>
+ * Only the traditional static assignment supports reduced precision. The sLTM network loading data (sending flows, receiving flows, inflows/outflows and network loading factors)
+ * is always stored in double precision, since it is updated in place throughout each loading sweep and reduced precision would compromise the convergence of the loading.
+ * 
+ * @author markr
+ *
+ */
+public enum FlowStoragePrecision {
+
+  /** 64 bit floating point storage (default) */
+  DOUBLE,
+
+  /** 32 bit floating point storage */
+  FLOAT;
+}
@@ -1,7 +1,10 @@
 package org.goplanit.assignment.traditionalstatic;
 
+import java.util.function.DoubleBinaryOperator;
+
 /**
- * Object to store the flows for each mode during the assignment iterations
+ * Object to store the flows for each mode during the assignment iterations. Current (smoothed) flows persist across iterations and are stored with the configured
+ * {@link FlowStoragePrecision}, next flows only live during a single loading and are always accumulated in double precision
  * 
  * @author gman6028
  *
@@ -9,44 +12,64 @@ package org.goplanit.assignment.traditionalstatic;
 public class ModeData {
 
   /**
-   * Empty array for quick memory based copying
+   * Number of segments to store flows for
+   */
+  private final int numberOfSegments;
+
+  /**
+   * Precision used for the current flows
    */
-  private double[] emptySegmentArray;
+  private final FlowStoragePrecision precision;
 
   /**
-   * Flows derived for the previous iteration
+   * Flows derived for the previous iteration, when stored in double precision
    */
   private double[] currentNetworkSegmentFlows = null;
 
+  /**
+   * Flows derived for the previous iteration, when stored in single precision
+   */
+  private float[] currentNetworkSegmentFlowsFloat = null;
+
   /**
    * Flows for the next iteration
    */
   private double[] nextNetworkSegmentFlows = null;
 
+  /**
+   * Constructor using double precision storage
+   * 
+   * @param initialSegmentFlows used to initialize the current flows, its length determines the number of segments
+   */
+  public ModeData(double[] initialSegmentFlows) {
+    this(initialSegmentFlows, FlowStoragePrecision.DOUBLE);
+  }
+
   /**
    * Constructor
    * 
-   * @param emptySegmentArray
-   *          empty array used to initialize data stores
+   * @param initialSegmentFlows used to initialize the current flows, its length determines the number of segments
+   * @param precision           to store current flows with
    */
-  public ModeData(double[] emptySegmentArray) {
-    this.emptySegmentArray = emptySegmentArray;
-    resetCurrentNetworkSegmentFlows();
+  public ModeData(double[] initialSegmentFlows, FlowStoragePrecision precision) {
+    this.numberOfSegments = initialSegmentFlows.length;
+    this.precision = precision;
+    setCurrentSegmentFlows(precision == FlowStoragePrecision.DOUBLE ? initialSegmentFlows.clone() : initialSegmentFlows);
     resetNextNetworkSegmentFlows();
   }
 
   /**
-   * Reset the segment flows for the coming iteration
+   * Reset the segment flows for the coming iteration. Always starts from zero flows, independent of the (possibly warm started) initial flows
    */
   public void resetNextNetworkSegmentFlows() {
-    nextNetworkSegmentFlows = emptySegmentArray.clone();
+    nextNetworkSegmentFlows = new double[numberOfSegments];
   }
 
   /**
    * Reset current network segment flows
    */
   public void resetCurrentNetworkSegmentFlows() {
-    currentNetworkSegmentFlows = emptySegmentArray.clone();
+    setCurrentSegmentFlows(new double[numberOfSegments]);
   }
   
   /** collect next segment flows
@@ -56,19 +79,84 @@ public class ModeData {
     return nextNetworkSegmentFlows;
   }
   
-  /** collect current segment flows
+  /** collect current segment flows. When stored in single precision a double precision copy is created, so prefer {@link #getCurrentSegmentFlow(long)} for individual segments
+   * 
    * @return current segment flows
    */
   public double[] getCurrentSegmentFlows() {
-    return currentNetworkSegmentFlows;
+    if (precision == FlowStoragePrecision.DOUBLE) {
+      return currentNetworkSegmentFlows;
+    }
+    final double[] segmentFlows = new double[numberOfSegments];
+    for (int index = 0; index < numberOfSegments; ++index) {
+      segmentFlows[index] = currentNetworkSegmentFlowsFloat[index];
+    }
+    return segmentFlows;
+  }
+
+  /** collect current segment flow of a single segment
+   * 
+   * @param edgeSegmentId segment to collect flow for
+   * @return current segment flow
+   */
+  public double getCurrentSegmentFlow(long edgeSegmentId) {
+    return precision == FlowStoragePrecision.DOUBLE ? currentNetworkSegmentFlows[(int) edgeSegmentId] : currentNetworkSegmentFlowsFloat[(int) edgeSegmentId];
+  }
+
+  /** add current segment flows to the passed in flows without creating intermediate copies
+   * 
+   * @param segmentFlows to add current flows to
+   */
+  public void addCurrentSegmentFlowsTo(double[] segmentFlows) {
+    for (int index = 0; index < numberOfSegments; ++index) {
+      segmentFlows[index] += getCurrentSegmentFlow(index);
+    }
   }
 
-  /** set segment flows
+  /** dot product of the current segment flows and the passed in values without creating intermediate copies
+   * 
+   * @param values to multiply current flows with, e.g., segment costs
+   * @return dot product
+   */
+  public double dotProductCurrentSegmentFlows(double[] values) {
+    double result = 0;
+    for (int index = 0; index < numberOfSegments; ++index) {
+      result += getCurrentSegmentFlow(index) * values[index];
+    }
+    return result;
+  }
+
+  /** set segment flows, copied to single precision when configured
    * 
    * @param segmentFlows to set as current
    */
   public void setCurrentSegmentFlows(double[] segmentFlows) {
-    this.currentNetworkSegmentFlows = segmentFlows;    
+    if (precision == FlowStoragePrecision.DOUBLE) {
+      this.currentNetworkSegmentFlows = segmentFlows;
+      return;
+    }
+    if (currentNetworkSegmentFlowsFloat == null) {
+      currentNetworkSegmentFlowsFloat = new float[numberOfSegments];
+    }
+    for (int index = 0; index < numberOfSegments; ++index) {
+      currentNetworkSegmentFlowsFloat[index] = (float) segmentFlows[index];
+    }
+  }
+
+  /** smooth the current segment flows towards the next segment flows in place, directly in the configured storage so no intermediate arrays are created
+   * 
+   * @param smoothing providing the smoothed flow given the current (previous) and next (proposed) flow of a segment
+   */
+  public void smoothCurrentSegmentFlows(DoubleBinaryOperator smoothing) {
+    if (precision == FlowStoragePrecision.DOUBLE) {
+      for (int index = 0; index < numberOfSegments; ++index) {
+        currentNetworkSegmentFlows[index] = smoothing.applyAsDouble(currentNetworkSegmentFlows[index], nextNetworkSegmentFlows[index]);
+      }
+      return;
+    }
+    for (int index = 0; index < numberOfSegments; ++index) {
+      currentNetworkSegmentFlowsFloat[index] = (float) smoothing.applyAsDouble(currentNetworkSegmentFlowsFloat[index], nextNetworkSegmentFlows[index]);
+    }
   }
 
   /** add passed in flow to next segment flows for given id 
@@ -79,4 +167,28 @@ public class ModeData {
     nextNetworkSegmentFlows[(int)edgeSegmentId] += flow;    
   }
 
+  /** number of segments flows are stored for
+   * 
+   * @return number of segments
+   */
+  public int getNumberOfSegments() {
+    return numberOfSegments;
+  }
+
+  /** precision used to store current flows
+   * 
+   * @return precision
+   */
+  public FlowStoragePrecision getPrecision() {
+    return precision;
+  }
+
+  /** estimate of the memory used by the current and next flows
+   * 
+   * @return estimated number of bytes
+   */
+  public long getEstimatedFlowBytes() {
+    return (long) numberOfSegments * ((precision == FlowStoragePrecision.DOUBLE ? Double.BYTES : Float.BYTES) + Double.BYTES);
+  }
+
 }
@@ -1,8 +1,14 @@
 package org.goplanit.assignment.traditionalstatic;
 
-import java.util.Calendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -10,12 +16,15 @@ import java.util.stream.Collectors;
 import org.goplanit.algorithms.shortest.ShortestPathDijkstra;
 import org.goplanit.algorithms.shortest.ShortestPathResult;
 import org.goplanit.assignment.StaticTrafficAssignment;
+import org.goplanit.assignment.metrics.AssignmentCounter;
+import org.goplanit.assignment.metrics.AssignmentPhase;
 import org.goplanit.cost.Cost;
 import org.goplanit.cost.CostUtils;
 import org.goplanit.gap.LinkBasedRelativeDualityGapFunction;
 import org.goplanit.interactor.LinkVolumeAccessee;
 import org.goplanit.network.MacroscopicNetwork;
 import org.goplanit.network.layer.macroscopic.MacroscopicNetworkLayerImpl;
+import org.goplanit.od.demand.OdDemandSparseMatrix;
 import org.goplanit.od.demand.OdDemands;
 import org.goplanit.od.path.OdPathMatrix;
 import org.goplanit.od.skim.OdSkimMatrix;
@@ -24,7 +33,6 @@ import org.goplanit.output.configuration.OdOutputTypeConfiguration;
 import org.goplanit.output.enums.OdSkimSubOutputType;
 import org.goplanit.output.enums.OutputType;
 import org.goplanit.path.ManagedDirectedPathFactoryImpl;
-import org.goplanit.utils.arrays.ArrayUtils;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.graph.Vertex;
@@ -32,6 +40,7 @@ import org.goplanit.utils.graph.directed.EdgeSegment;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.math.Precision;
 import org.goplanit.utils.misc.LoggingUtils;
+import org.goplanit.utils.od.OdDataIterator;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
 import org.goplanit.utils.network.layer.physical.LinkSegment;
@@ -72,6 +81,26 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
   /** have a mapping between zone and connectoid to the layer by means of its centroid vertex */
   private Map<OdZone, CentroidVertex> zone2VertexMapping;
 
+  /**
+   * the most recently executed time period, used to warm start the next time period
+   */
+  private TimePeriod previousTimePeriod;
+
+  /**
+   * number of iterations represented by the warm started flows of the current time period, i.e., the iterations of the previous time period, zero when not warm started
+   */
+  private int warmStartIterationOffset;
+
+  /**
+   * flag indicating if modes (classes) are loaded simultaneously, i.e., each iteration all modes' all-or-nothing loadings are executed in parallel
+   */
+  private boolean simultaneousMultiClassLoading = DEFAULT_SIMULTANEOUS_MULTI_CLASS_LOADING;
+
+  /**
+   * precision used to store the segment flows that persist across iterations
+   */
+  private FlowStoragePrecision flowStoragePrecision = DEFAULT_FLOW_STORAGE_PRECISION;
+
   /**
    * create the logging prefix for logging statements during equilibration
    * 
@@ -102,6 +131,16 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     this.networkLayer = (MacroscopicNetworkLayerImpl) infrastructureLayer;
   }
 
+  /**
+   * Traditional static assignment only uses the network via its physical cost, so a scenario overlay applied by the cost is supported
+   *
+   * @return true
+   */
+  @Override
+  protected boolean isScenarioOverlaySupported() {
+    return true;
+  }
+
   /**
    * Verify if a supported gap function is used
    *
@@ -124,15 +163,30 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
    * @throws PlanItException thrown if there is an error
    */
   private void initialiseTimePeriod(TimePeriod timePeriod, final Set<Mode> modes) throws PlanItException {
+    final var previousSimulationData = simulationData;
     simulationData = new TraditionalStaticAssignmentSimulationData(getIdGroupingToken());
     simulationData.setIterationIndex(0);
+    if (previousSimulationData != null) {
+      /* skim matrices are allocated once and reused across time periods */
+      simulationData.takeOverSkimMatrices(previousSimulationData);
+    }
     simulationData.getModeSpecificData().clear();
+    final Set<Mode> warmStartedModes = new HashSet<>();
     for (var mode : modes) {
       // flow initialisation
-      simulationData.getModeSpecificData().put(mode, new ModeData(new double[getTotalNumberOfNetworkSegments()]));
+      final double[] initialSegmentFlows = new double[getTotalNumberOfNetworkSegments()];
+      if (isWarmStartTimePeriods() && seedWithPreviousTimePeriodFlows(mode, timePeriod, previousSimulationData, initialSegmentFlows)) {
+        warmStartedModes.add(mode);
+      }
+      simulationData.getModeSpecificData().put(mode, new ModeData(initialSegmentFlows, flowStoragePrecision));
       // cost initialisation
       final double[] modalLinkSegmentCosts = initialiseLinkSegmentCosts(mode, timePeriod);
       simulationData.setModalLinkSegmentCosts(mode, modalLinkSegmentCosts);
+      if (getOutputManager().isOutputTypeActive(OutputType.OD)) {
+        // skims are reset once per time period, within a time period every od cell with demand is overwritten each iteration
+        simulationData.resetSkimMatrices(mode, getTransportNetwork().getZoning().getOdZones(),
+            (OdOutputTypeConfiguration) getOutputManager().getOutputTypeConfiguration(OutputType.OD));
+      }
     }
 
     /*
@@ -152,20 +206,76 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     /* register new time period on costs */
     getPhysicalCost().updateTimePeriod(timePeriod);
     getVirtualCost().updateTimePeriod(timePeriod);
+
+    /* warm started modes start from the costs of their seeded flows, unless initial costs are explicitly provided */
+    for (var mode : warmStartedModes) {
+      if (!hasInitialCost(mode, timePeriod)) {
+        simulationData.setModalLinkSegmentCosts(mode, collectModalLinkSegmentCosts(mode));
+      }
+    }
+    this.warmStartIterationOffset = warmStartedModes.isEmpty() ? 0 : Math.max(1, previousSimulationData.getIterationIndex());
+    this.previousTimePeriod = timePeriod;
   }
 
   /**
-   * Apply smoothing based on current and previous flows and the adopted smoothing method. The smoothed results are registered as the current segment flows while the current
-   * segment flows are assigned to the previous segment flows (which are discarded).
+   * Seed the initial flows of a mode with the converged flows of the previous time period, scaled by the ratio of the total demand of the two time periods
+   *
+   * @param mode                   to seed flows for
+   * @param timePeriod             current time period
+   * @param previousSimulationData simulation data of the previous time period, may be null
+   * @param segmentFlowsToPopulate flows to populate
+   * @return true when seeded, false when no previous flows are available for the mode
+   */
+  private boolean seedWithPreviousTimePeriodFlows(final Mode mode, final TimePeriod timePeriod, final TraditionalStaticAssignmentSimulationData previousSimulationData,
+      final double[] segmentFlowsToPopulate) {
+    if (previousSimulationData == null || previousTimePeriod == null || !previousSimulationData.getModeSpecificData().containsKey(mode)) {
+      return false;
+    }
+    final double previousTotalDemand = getTotalDemand(getDemands().get(mode, previousTimePeriod));
+    if (!Precision.positive(previousTotalDemand)) {
+      return false;
+    }
+    final double demandRatio = getTotalDemand(getDemands().get(mode, timePeriod)) / previousTotalDemand;
+    final ModeData previousModeData = previousSimulationData.getModeSpecificData().get(mode);
+    for (int index = 0; index < segmentFlowsToPopulate.length; ++index) {
+      segmentFlowsToPopulate[index] = previousModeData.getCurrentSegmentFlow(index) * demandRatio;
+    }
+    LOGGER.info(String.format("%swarm started mode %s from previous time period %s (demand ratio %.3f)", createLoggingPrefix(), mode.getXmlId(), previousTimePeriod.getXmlId(),
+        demandRatio));
+    return true;
+  }
+
+  /**
+   * Total demand of OD demands
+   *
+   * @param odDemands to sum, may be null
+   * @return total demand in pcu/h
+   */
+  private static double getTotalDemand(final OdDemands odDemands) {
+    double totalDemand = 0;
+    if (odDemands != null) {
+      /* zero entries do not contribute, so sparse od demands only need their non-zero entries visited */
+      final OdDataIterator<Double> odDemandIterator = odDemands instanceof OdDemandSparseMatrix ? ((OdDemandSparseMatrix) odDemands).nonZeroIterator() : odDemands.iterator();
+      for (final var odDemandMatrixIter = odDemandIterator; odDemandMatrixIter.hasNext();) {
+        totalDemand += odDemandMatrixIter.next();
+      }
+    }
+    return totalDemand;
+  }
+
+  /**
+   * Apply smoothing based on current and previous flows and the adopted smoothing method. The smoothed results replace the current segment flows in place, in the configured
+   * {@link FlowStoragePrecision}, so no intermediate flow arrays are created.
    *
    * @param mode     the current mode
    * @param modeData data for the current mode
    */
   private void applySmoothing(Mode mode, final ModeData modeData) {
-    final double[] smoothedSegmentFlows = getSmoothing().execute(modeData.getCurrentSegmentFlows(), modeData.getNextSegmentFlows(), getTotalNumberOfNetworkSegments());
-    // update flow arrays for next iteration
-    modeData.setCurrentSegmentFlows(smoothedSegmentFlows);
+    final long startNanos = getMetrics().start();
+    final var smoothing = getSmoothing();
+    modeData.smoothCurrentSegmentFlows(smoothing::execute);
     simulationData.getModeSpecificData().put(mode, modeData);
+    getMetrics().stop(AssignmentPhase.SMOOTHING, startNanos);
   }
 
   /**
@@ -175,15 +285,20 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
    * @param timePeriod               the current time period
    * @param currentModeData          data for the current mode
    * @param modalNetworkSegmentCosts segment costs for the network
+   * @return contribution of this mode to the convexity bound of the duality gap, i.e., the demand weighted shortest path costs
    * @throws PlanItException thrown if there is an error
    */
-  private void executeTimePeriodAndMode(final Mode mode, final TimePeriod timePeriod, final ModeData currentModeData, final double[] modalNetworkSegmentCosts)
+  private double executeTimePeriodAndMode(final Mode mode, final TimePeriod timePeriod, final ModeData currentModeData, final double[] modalNetworkSegmentCosts)
       throws PlanItException {
 
+    final var metrics = getMetrics();
+    final long loadingStartNanos = metrics.start();
+    long aonSearchNanos = 0;
+
     final var shortestPathAlgorithm = new ShortestPathDijkstra(modalNetworkSegmentCosts, getTotalNumberOfNetworkVertices());
     final OdDemands odDemands = getDemands().get(mode, timePeriod);
 
-    final var dualityGapFunction = ((LinkBasedRelativeDualityGapFunction) getGapFunction());
+    double convexityBound = 0;
     final var odPathMatrix = simulationData.getOdPathMatrix(mode);
     final Map<OdSkimSubOutputType, OdSkimMatrix> skimMatrixMap = simulationData.getSkimMatrixMap(mode);
 
@@ -192,7 +307,11 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     // track the cost to reach each vertex in the network and the shortest path
     // segment used to get there
     ShortestPathResult shortestPathResult = null;
-    for (final var odDemandMatrixIter = odDemands.iterator(); odDemandMatrixIter.hasNext();) {
+    /* sparse od demands only need their non-zero entries visited, unless zero flows are persisted */
+    final OdDataIterator<Double> odDemandIterator = !getOutputManager().getOutputConfiguration().isPersistZeroFlow() && odDemands instanceof OdDemandSparseMatrix
+        ? ((OdDemandSparseMatrix) odDemands).nonZeroIterator()
+        : odDemands.iterator();
+    for (final var odDemandMatrixIter = odDemandIterator; odDemandMatrixIter.hasNext();) {
       final double odDemand = odDemandMatrixIter.next();
       final Zone currentOriginZone = odDemandMatrixIter.getCurrentOrigin();
       final Zone currentDestinationZone = odDemandMatrixIter.getCurrentDestination();
@@ -213,7 +332,10 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
             }
 
             // UPDATE SHORTEST PATHS
+            final long aonSearchStartNanos = metrics.start();
             shortestPathResult = shortestPathAlgorithm.executeOneToAll(originCentroidVertex);
+            aonSearchNanos += metrics.stop(AssignmentPhase.AON_SEARCH, aonSearchStartNanos);
+            metrics.increment(AssignmentCounter.SHORTEST_PATH_SEARCHES);
           }
 
           if (Precision.positive(odDemand)) {
@@ -224,7 +346,7 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
                   currentOriginZone.getXmlId(), currentOriginZone.getId(), currentDestinationZone.getXmlId(), currentDestinationZone.getId(), mode.getXmlId(), mode.getId()));
             } else {
               updateNetworkFlowsForPath(shortestPathResult, zone2VertexMapping.get(currentOriginZone), destinationCentroidVertex, odDemand, currentModeData);
-              dualityGapFunction.increaseConvexityBound(odDemand * odShortestPathCost);
+              convexityBound += odDemand * odShortestPathCost;
             }
           }
           previousOriginZoneId = currentOriginZone.getId();
@@ -236,6 +358,9 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
         }
       }
     }
+    /* loading excludes the shortest path searches tracked separately */
+    metrics.stop(AssignmentPhase.LOADING, loadingStartNanos, aonSearchNanos);
+    return convexityBound;
   }
 
   /**
@@ -247,10 +372,12 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
    * @param modalNetworkSegmentCosts segment costs for the network
    */
   private void smoothTimePeriodAndMode(final Mode mode, final TimePeriod timePeriod, final ModeData currentModeData, final double[] modalNetworkSegmentCosts) {
-    final double totalModeSystemTravelTime = ArrayUtils.dotProduct(currentModeData.getCurrentSegmentFlows(), modalNetworkSegmentCosts, getTotalNumberOfNetworkSegments());
+    final long startNanos = getMetrics().start();
+    final double totalModeSystemTravelTime = currentModeData.dotProductCurrentSegmentFlows(modalNetworkSegmentCosts);
 
     final LinkBasedRelativeDualityGapFunction dualityGapFunction = ((LinkBasedRelativeDualityGapFunction) getGapFunction());
     dualityGapFunction.increaseMeasuredCost(totalModeSystemTravelTime);
+    getMetrics().stop(AssignmentPhase.GAP_COMPUTATION, startNanos);
     applySmoothing(mode, currentModeData);
   }
 
@@ -270,12 +397,50 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     currentModeData.resetNextNetworkSegmentFlows();
 
     // AON based network loading
-    executeTimePeriodAndMode(mode, timePeriod, currentModeData, modalLinkSegmentCosts);
+    final double convexityBound = executeTimePeriodAndMode(mode, timePeriod, currentModeData, modalLinkSegmentCosts);
+    ((LinkBasedRelativeDualityGapFunction) getGapFunction()).increaseConvexityBound(convexityBound);
 
     // smoothing
     smoothTimePeriodAndMode(mode, timePeriod, currentModeData, modalLinkSegmentCosts);
   }
 
+  /**
+   * Execute the assignment for the current time period for all modes simultaneously and apply smoothing to the results. All modes are loaded on the same (joint) costs of the
+   * previous iteration, so the all-or-nothing loadings are independent and executed in parallel, each with its own shortest path search on the shared network layer. Smoothing
+   * and gap updates are applied afterwards on the calling thread in the order of the modes
+   *
+   * @param timePeriod the current time period
+   * @param modes      the modes to load
+   * @param executor   to execute the modal loadings on
+   * @throws PlanItException thrown if there is an error
+   */
+  private void executeAndSmoothTimePeriodAndModesSimultaneously(final TimePeriod timePeriod, final Set<Mode> modes, final ExecutorService executor) throws PlanItException {
+    final Map<Mode, Future<Double>> convexityBoundsByMode = new LinkedHashMap<>();
+    for (final Mode mode : modes) {
+      final double[] modalLinkSegmentCosts = simulationData.getModalLinkSegmentCosts(mode);
+      final ModeData currentModeData = simulationData.getModeSpecificData().get(mode);
+      currentModeData.resetNextNetworkSegmentFlows();
+      convexityBoundsByMode.put(mode, executor.submit(() -> executeTimePeriodAndMode(mode, timePeriod, currentModeData, modalLinkSegmentCosts)));
+    }
+
+    final var dualityGapFunction = ((LinkBasedRelativeDualityGapFunction) getGapFunction());
+    for (var entry : convexityBoundsByMode.entrySet()) {
+      final Mode mode = entry.getKey();
+      try {
+        dualityGapFunction.increaseConvexityBound(entry.getValue().get());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PlanItException(String.format("Interrupted while loading mode %s simultaneously", mode.getXmlId()), e);
+      } catch (final ExecutionException e) {
+        if (e.getCause() instanceof PlanItException) {
+          throw (PlanItException) e.getCause();
+        }
+        throw new PlanItException(String.format("Unable to load mode %s simultaneously", mode.getXmlId()), e.getCause());
+      }
+      smoothTimePeriodAndMode(mode, timePeriod, simulationData.getModeSpecificData().get(mode), simulationData.getModalLinkSegmentCosts(mode));
+    }
+  }
+
   /**
    * update the network flows based on the shortest path between origin and destination
    *
@@ -327,7 +492,7 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
           // Collect cost to get to vertex from shortest path ONE-TO-ALL information directly
           final double odGeneralisedCost = shortestPathResult.getCostOf(zone2VertexMapping.get(currentDestinationZone));
           final OdSkimMatrix odSkimMatrix = skimMatrixMap.get(odSkimOutputType);
-          odSkimMatrix.setValue(currentOriginZone, currentDestinationZone, odGeneralisedCost);
+          odSkimMatrix.setPrimitiveValue((int) ((OdZone) currentOriginZone).getOdZoneId(), (int) ((OdZone) currentDestinationZone).getOdZoneId(), odGeneralisedCost);
         }
       }
     }
@@ -359,16 +524,16 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
   /**
    * Record the time an iteration took
    *
-   * @param startTime           the original start time of the iteration
+   * @param startNanos          the original start time of the iteration (ns)
    * @param measuredNetworkCost the measured system wide cost
    * @param dualityGap          the duality gap at the end of the iteration
-   * @return the time (in ms) at the end of the iteration for profiling purposes only
+   * @return the time (in ns) at the end of the iteration for profiling purposes only
    */
-  private Calendar logBasicIterationInformation(final Calendar startTime, final double measuredNetworkCost, final double dualityGap) {
-    final Calendar currentTime = Calendar.getInstance();
+  private long logBasicIterationInformation(final long startNanos, final double measuredNetworkCost, final double dualityGap) {
+    final long currentNanos = System.nanoTime();
     LOGGER.info(createLoggingPrefix() + String.format("Network cost: %f", measuredNetworkCost));
-    LOGGER.info(createLoggingPrefix() + String.format("Gap: %.10f (%d ms)", dualityGap, currentTime.getTimeInMillis() - startTime.getTimeInMillis()));
-    return currentTime;
+    LOGGER.info(createLoggingPrefix() + String.format("Gap: %.10f (%d ms)", dualityGap, (currentNanos - startNanos) / 1_000_000));
+    return currentNanos;
   }
 
   /**
@@ -429,6 +594,21 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     }
   }
 
+  /**
+   * Verify if initial costs are explicitly provided for the mode, either for the time period or time period agnostic
+   *
+   * @param mode       to verify
+   * @param timePeriod to verify
+   * @return true when initial costs are available, false otherwise
+   */
+  private boolean hasInitialCost(final Mode mode, final TimePeriod timePeriod) {
+    final var initialLinkSegmentCostForTimePeriod = initialLinkSegmentCostByTimePeriod.get(timePeriod);
+    if (initialLinkSegmentCostForTimePeriod != null && initialLinkSegmentCostForTimePeriod.isSegmentCostsSetForMode(mode)) {
+      return true;
+    }
+    return initialLinkSegmentCostTimePeriodAgnostic != null && initialLinkSegmentCostTimePeriodAgnostic.isSegmentCostsSetForMode(mode);
+  }
+
   /**
    * Initialize the modal link segment costs before the first iteration.
    *
@@ -476,44 +656,80 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
 
     initialiseTimePeriod(timePeriod, modes);
 
+    /* path output relies on a shared path factory, so modes are only loaded simultaneously without it */
+    ExecutorService executor = null;
+    if (simultaneousMultiClassLoading && modes.size() > 1) {
+      if (getOutputManager().isOutputTypeActive(OutputType.PATH)) {
+        LOGGER.warning(String.format("%ssimultaneous multi-class loading not supported with path output activated, loading modes sequentially", createLoggingPrefix()));
+      } else {
+        executor = Executors.newFixedThreadPool(Math.min(modes.size(), Runtime.getRuntime().availableProcessors()));
+      }
+    }
+
+    try {
+      executeTimePeriodIterations(timePeriod, modes, executor);
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+  /**
+   * Perform the equilibration iterations for a given time period
+   *
+   * @param timePeriod the time period for the current assignment
+   * @param modes      modes for the time period
+   * @param executor   to load modes simultaneously, null when modes are loaded sequentially
+   * @throws PlanItException thrown if there is an error
+   */
+  private void executeTimePeriodIterations(final TimePeriod timePeriod, final Set<Mode> modes, final ExecutorService executor) throws PlanItException {
     final LinkBasedRelativeDualityGapFunction dualityGapFunction = ((LinkBasedRelativeDualityGapFunction) getGapFunction());
     boolean converged = false;
-    Calendar iterationStartTime = Calendar.getInstance();
+    final var metrics = getMetrics();
+    long iterationStartNanos = System.nanoTime();
 
     while (!converged) {
       dualityGapFunction.reset();
-      getSmoothing().updateStep(simulationData.getIterationIndex());
+      /* warm started flows continue the smoothing of the previous time period, so they are not discarded by the first smoothing step */
+      getSmoothing().updateStep(simulationData.getIterationIndex() + warmStartIterationOffset);
 
       // NETWORK LOADING - PER MODE
-      for (final Mode mode : modes) {
+      if (executor != null) {
+        executeAndSmoothTimePeriodAndModesSimultaneously(timePeriod, modes, executor);
+      } else {
+        for (final Mode mode : modes) {
 
-        // :TODO ugly -> you are not resetting 1 matrix but multiple, NAMES ARE WRONG
-        // :TODO: slow -> only reset or do something when it is stored in the first place, this is not checked
-        if (getOutputManager().isOutputTypeActive(OutputType.OD)) {
-          simulationData.resetSkimMatrix(mode, getTransportNetwork().getZoning().getOdZones(),
-              (OdOutputTypeConfiguration) getOutputManager().getOutputTypeConfiguration(OutputType.OD));
-        }
-        if (getOutputManager().isOutputTypeActive(OutputType.PATH)) {
-          simulationData.resetPathMatrix(mode, getTransportNetwork().getZoning().getOdZones());
-        }
+          if (getOutputManager().isOutputTypeActive(OutputType.PATH)) {
+            simulationData.resetPathMatrix(mode, getTransportNetwork().getZoning().getOdZones());
+          }
 
-        /* execute */
+          /* execute */
 
-        executeAndSmoothTimePeriodAndMode(timePeriod, mode);
+          executeAndSmoothTimePeriodAndMode(timePeriod, mode);
+        }
       }
 
       // TODO: questionable if we should update iteration index before logging/persistence/convergence check... see if we can change this
       // which would seem more logical
+      long startNanos = metrics.start();
       dualityGapFunction.computeGap();
+      metrics.stop(AssignmentPhase.GAP_COMPUTATION, startNanos);
       simulationData.incrementIterationIndex();
-      iterationStartTime = logBasicIterationInformation(iterationStartTime, dualityGapFunction.getMeasuredNetworkCost(), dualityGapFunction.getGap());
+      metrics.increment(AssignmentCounter.ITERATIONS);
+      iterationStartNanos = logBasicIterationInformation(iterationStartNanos, dualityGapFunction.getMeasuredNetworkCost(), dualityGapFunction.getGap());
 
+      startNanos = metrics.start();
       for (var mode : modes) {
         final double[] modalLinkSegmentCosts = collectModalLinkSegmentCosts(mode);
         simulationData.setModalLinkSegmentCosts(mode, modalLinkSegmentCosts);
       }
+      metrics.stop(AssignmentPhase.COST_UPDATE, startNanos);
       converged = dualityGapFunction.hasConverged(simulationData.getIterationIndex());
+
+      startNanos = metrics.start();
       getOutputManager().persistOutputData(timePeriod, modes, converged);
+      metrics.stop(AssignmentPhase.OUTPUT_PERSISTENCE, startNanos);
     }
   }
 
@@ -526,6 +742,12 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     return simulationData;
   }
 
+  /** default for loading modes simultaneously */
+  public static final boolean DEFAULT_SIMULTANEOUS_MULTI_CLASS_LOADING = false;
+
+  /** default precision for storing segment flows */
+  public static final FlowStoragePrecision DEFAULT_FLOW_STORAGE_PRECISION = FlowStoragePrecision.DOUBLE;
+
   /**
    * Base Constructor
    * 
@@ -546,6 +768,10 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
     super(traditionalStaticAssignment, false);
 
     this.localPathFactory = traditionalStaticAssignment.localPathFactory;
+    this.previousTimePeriod = traditionalStaticAssignment.previousTimePeriod;
+    this.warmStartIterationOffset = traditionalStaticAssignment.warmStartIterationOffset;
+    this.simultaneousMultiClassLoading = traditionalStaticAssignment.simultaneousMultiClassLoading;
+    this.flowStoragePrecision = traditionalStaticAssignment.flowStoragePrecision;
     this.networkLayer = traditionalStaticAssignment.networkLayer;
 
     //todo: even shallow clones should copy simulation data given that it is essentially an extension of this class
@@ -628,7 +854,47 @@ public class TraditionalStaticAssignment extends StaticTrafficAssignment impleme
    */
   @Override
   public Map<String, String> collectSettingsAsKeyValueMap() {
-    return null;
+    var keyValueMap = new HashMap<String, String>();
+    keyValueMap.put("simultaneousMultiClassLoading", String.valueOf(simultaneousMultiClassLoading));
+    keyValueMap.put("flowStoragePrecision", flowStoragePrecision.name());
+    return keyValueMap;
+  }
+
+  /**
+   * Verify whether modes are loaded simultaneously
+   *
+   * @return true when loaded simultaneously, false otherwise
+   */
+  public boolean isSimultaneousMultiClassLoading() {
+    return simultaneousMultiClassLoading;
+  }
+
+  /**
+   * Set whether modes (classes) are loaded simultaneously. Since all modes are loaded on the joint costs of the previous iteration, the results are identical to loading them one
+   * after the other, but the all-or-nothing loadings of the modes are executed in parallel
+   *
+   * @param simultaneousMultiClassLoading flag to set
+   */
+  public void setSimultaneousMultiClassLoading(boolean simultaneousMultiClassLoading) {
+    this.simultaneousMultiClassLoading = simultaneousMultiClassLoading;
+  }
+
+  /**
+   * Precision used to store segment flows across iterations
+   *
+   * @return precision
+   */
+  public FlowStoragePrecision getFlowStoragePrecision() {
+    return flowStoragePrecision;
+  }
+
+  /**
+   * Set the precision used to store segment flows across iterations. Takes effect from the next time period onwards
+   *
+   * @param flowStoragePrecision to use
+   */
+  public void setFlowStoragePrecision(FlowStoragePrecision flowStoragePrecision) {
+    this.flowStoragePrecision = flowStoragePrecision;
   }
 
 }
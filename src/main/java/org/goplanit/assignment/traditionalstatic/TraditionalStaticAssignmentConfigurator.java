@@ -22,6 +22,10 @@ import org.goplanit.utils.exceptions.PlanItException;
  */
 public class TraditionalStaticAssignmentConfigurator extends TrafficAssignmentConfigurator<TraditionalStaticAssignment> {
 
+  private static final String SET_SIMULTANEOUS_MULTI_CLASS_LOADING = "setSimultaneousMultiClassLoading";
+
+  private static final String SET_FLOW_STORAGE_PRECISION = "setFlowStoragePrecision";
+
   /**
    * Constructor
    * 
@@ -38,4 +42,22 @@ public class TraditionalStaticAssignmentConfigurator extends TrafficAssignmentCo
     this.createAndRegisterGapFunction(LinkBasedRelativeDualityGapFunction.class.getCanonicalName());
   }
 
+  /**
+   * Load all modes (classes) simultaneously each iteration, executing their all-or-nothing loadings in parallel on the joint costs of the previous iteration
+   *
+   * @param flag to set
+   */
+  public void setSimultaneousMultiClassLoading(boolean flag) {
+    registerDelayedMethodCall(SET_SIMULTANEOUS_MULTI_CLASS_LOADING, flag);
+  }
+
+  /**
+   * Set the precision used to store segment flows across iterations, reduced (float) precision halves the memory used for these flows
+   *
+   * @param precision to use
+   */
+  public void setFlowStoragePrecision(FlowStoragePrecision precision) {
+    registerDelayedMethodCall(SET_FLOW_STORAGE_PRECISION, precision);
+  }
+
 }
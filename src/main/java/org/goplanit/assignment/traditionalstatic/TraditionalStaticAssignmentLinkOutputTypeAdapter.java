@@ -1,5 +1,6 @@
 package org.goplanit.assignment.traditionalstatic;
 
+import java.util.BitSet;
 import java.util.Optional;
 
 import org.goplanit.assignment.TrafficAssignment;
@@ -9,6 +10,7 @@ import org.goplanit.output.property.OutputProperty;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
 import org.goplanit.utils.time.TimePeriod;
 
 /**
@@ -52,9 +54,7 @@ public class TraditionalStaticAssignmentLinkOutputTypeAdapter extends Macroscopi
    * @throws PlanItException thrown if there is an error
    */
   private Optional<Double> getFlow(final MacroscopicLinkSegment linkSegment, final Mode mode) throws PlanItException {
-    final int id = (int) linkSegment.getId();
-    final double[] modalNetworkSegmentFlows = getAssignment().getIterationData().getModeSpecificData().get(mode).getCurrentSegmentFlows();
-    return Optional.of(modalNetworkSegmentFlows[id]);
+    return Optional.of(getAssignment().getIterationData().getModeSpecificData().get(mode).getCurrentSegmentFlow(linkSegment.getId()));
   }
 
   /**
@@ -118,7 +118,7 @@ public class TraditionalStaticAssignmentLinkOutputTypeAdapter extends Macroscopi
    */
   @Override
   public Optional<Boolean> isFlowPositive(final MacroscopicLinkSegment linkSegment, final Mode mode) {
-    return Optional.of(getAssignment().getIterationData().getModeSpecificData().get(mode).getCurrentSegmentFlows()[(int) linkSegment.getId()] > 0.0);
+    return Optional.of(getAssignment().getIterationData().getModeSpecificData().get(mode).getCurrentSegmentFlow(linkSegment.getId()) > 0.0);
   }
 
   /**
@@ -181,4 +181,51 @@ public class TraditionalStaticAssignmentLinkOutputTypeAdapter extends Macroscopi
     return value;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void fillFlowPositive(final MacroscopicLinkSegments linkSegments, final Mode mode, final BitSet flowPositive) throws PlanItException {
+    final ModeData modeData = getAssignment().getIterationData().getModeSpecificData().get(mode);
+    for (var linkSegment : linkSegments) {
+      final int id = (int) linkSegment.getId();
+      flowPositive.set(id, linkSegment.isModeAllowed(mode) && modeData.getCurrentSegmentFlow(id) > 0.0);
+    }
+  }
+
+  /**
+   * Flows and costs are copied directly from the assignment's primitive iteration data, all other properties are delegated to the default implementation
+   * 
+   * @param outputProperty the specified output property
+   * @param linkSegments   the link segments to collect values for
+   * @param mode           the current mode
+   * @param timePeriod     the current time period
+   * @param values         to fill, indexed by link segment id
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  public void fillLinkSegmentOutputPropertyValues(final OutputProperty outputProperty, final MacroscopicLinkSegments linkSegments, final Mode mode, final TimePeriod timePeriod,
+      final double[] values) throws PlanItException {
+    final ModeData modeData = getAssignment().getIterationData().getModeSpecificData().get(mode);
+    final double[] costs = getAssignment().getIterationData().getModalLinkSegmentCosts(mode);
+    switch (outputProperty.getOutputPropertyType()) {
+    case FLOW:
+    case INFLOW:
+    case OUTFLOW:
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> modeData.getCurrentSegmentFlow(ls.getId()));
+      break;
+    case LINK_SEGMENT_COST:
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> costs[(int) ls.getId()]);
+      break;
+    case COST_TIMES_FLOW:
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> costs[(int) ls.getId()] * modeData.getCurrentSegmentFlow(ls.getId()));
+      break;
+    case CALCULATED_SPEED:
+      fillLinkSegmentValues(outputProperty, linkSegments, mode, values, ls -> ls.getParentLink().getLengthKm() / costs[(int) ls.getId()]);
+      break;
+    default:
+      super.fillLinkSegmentOutputPropertyValues(outputProperty, linkSegments, mode, timePeriod, values);
+    }
+  }
+
 }
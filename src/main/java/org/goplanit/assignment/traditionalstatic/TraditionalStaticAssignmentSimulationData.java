@@ -1,6 +1,5 @@
 package org.goplanit.assignment.traditionalstatic;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
@@ -11,7 +10,6 @@ import org.goplanit.od.path.OdPathMatrix;
 import org.goplanit.od.skim.OdSkimMatrix;
 import org.goplanit.output.configuration.OdOutputTypeConfiguration;
 import org.goplanit.output.enums.OdSkimSubOutputType;
-import org.goplanit.utils.arrays.ArrayUtils;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
@@ -80,7 +78,7 @@ public class TraditionalStaticAssignmentSimulationData extends SimulationData {
    * @return the total flow through this link segment
    */
   public double collectTotalNetworkSegmentFlow(LinkSegment linkSegment) {
-    return modeSpecificData.values().stream().collect((Collectors.summingDouble(modeData -> modeData.getCurrentSegmentFlows()[(int) linkSegment.getId()])));
+    return modeSpecificData.values().stream().collect((Collectors.summingDouble(modeData -> modeData.getCurrentSegmentFlow(linkSegment.getId()))));
   }
 
   /**
@@ -93,10 +91,9 @@ public class TraditionalStaticAssignmentSimulationData extends SimulationData {
     double[] networkSegmentFlows = null;
     for (var modeDataEntry : modeData) {
       if (networkSegmentFlows == null) {
-        networkSegmentFlows = Arrays.copyOf(modeDataEntry.getCurrentSegmentFlows(), modeDataEntry.getCurrentSegmentFlows().length);
-      } else {
-        ArrayUtils.addTo(networkSegmentFlows, modeDataEntry.getCurrentSegmentFlows());
+        networkSegmentFlows = new double[modeDataEntry.getNumberOfSegments()];
       }
+      modeDataEntry.addCurrentSegmentFlowsTo(networkSegmentFlows);
     }
     return networkSegmentFlows;
   }
@@ -122,21 +119,39 @@ public class TraditionalStaticAssignmentSimulationData extends SimulationData {
   }
 
   /**
-   * Reset the skim matrix to all zeroes for a specified mode for all activated skim output types
+   * Reset the skim matrices of all activated skim output types for a specified mode to all zeroes. Matrices are only allocated the first time a skim output type is activated
+   * for the mode (or when the number of zones changed), otherwise the existing storage is reset in place. Skim matrices of deactivated output types are released.
    * 
    * @param mode                                     the specified mode
    * @param zones                                    Zones object containing all the origin and destination zones
    * @param originDestinationOutputTypeConfiguration configuration to use
    */
-  public void resetSkimMatrix(Mode mode, OdZones zones, OdOutputTypeConfiguration originDestinationOutputTypeConfiguration) {
-    modalSkimMatrixMap.put(mode, new HashMap<>());
+  public void resetSkimMatrices(Mode mode, OdZones zones, OdOutputTypeConfiguration originDestinationOutputTypeConfiguration) {
+    final Map<OdSkimSubOutputType, OdSkimMatrix> skimMatrixMap = modalSkimMatrixMap.computeIfAbsent(mode, m -> new HashMap<>());
+    final var activeSubOutputTypes = originDestinationOutputTypeConfiguration.getActiveSubOutputTypes();
+    skimMatrixMap.keySet().removeIf(odSkimOutputType -> !activeSubOutputTypes.contains(odSkimOutputType));
 
-    for (var odSkimOutputType : originDestinationOutputTypeConfiguration.getActiveSubOutputTypes()) {
-      OdSkimMatrix odSkimMatrix = new OdSkimMatrix(zones, (OdSkimSubOutputType) odSkimOutputType);
-      modalSkimMatrixMap.get(mode).put((OdSkimSubOutputType) odSkimOutputType, odSkimMatrix);
+    final boolean offHeap = originDestinationOutputTypeConfiguration.isOffHeapSkimStorage();
+    for (var odSkimOutputType : activeSubOutputTypes) {
+      OdSkimMatrix odSkimMatrix = skimMatrixMap.get(odSkimOutputType);
+      if (odSkimMatrix == null || odSkimMatrix.getNumberOfOdZones() != zones.size() || odSkimMatrix.isOffHeap() != offHeap) {
+        skimMatrixMap.put((OdSkimSubOutputType) odSkimOutputType, new OdSkimMatrix(zones, (OdSkimSubOutputType) odSkimOutputType, offHeap));
+      } else {
+        odSkimMatrix.reset();
+      }
     }
   }
 
+  /**
+   * Take over the skim matrices of another simulation data instance, e.g., of a previous time period, so they can be reset in place rather than reallocated
+   * 
+   * @param other to take skim matrices from
+   */
+  public void takeOverSkimMatrices(TraditionalStaticAssignmentSimulationData other) {
+    modalSkimMatrixMap.putAll(other.modalSkimMatrixMap);
+    other.modalSkimMatrixMap.clear();
+  }
+
   /**
    * Reset the path matrix to empty for a specified mode for all activated
    * 
@@ -0,0 +1,486 @@
+package org.goplanit.assignment.transit;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+import org.goplanit.algorithms.transit.FrequencyBasedTransitGraph;
+import org.goplanit.algorithms.transit.OptimalStrategies;
+import org.goplanit.assignment.StaticTrafficAssignment;
+import org.goplanit.interactor.TransitServiceFlowAccessee;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.adapter.OutputTypeAdapter;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.service.routed.RoutedServices;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.misc.LoggingUtils;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.physical.LinkSegment;
+import org.goplanit.utils.network.layer.service.ServiceLegSegment;
+import org.goplanit.utils.service.routed.RoutedModeServices;
+import org.goplanit.utils.service.routed.RoutedService;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.time.TimePeriod;
+
+/**
+ * Frequency based transit assignment using optimal strategies (hyperpaths) following Spiess and Florian (1989). Demand of each mode is assigned to the frequency based trips of
+ * that mode in the registered routed services, where passengers wait at a stop for the first arriving vehicle among the attractive lines of their strategy. Capacity is not
+ * considered, so each time period is assigned in a single pass without iterations.
+ * <p>
+ * Strategies are computed per destination, with destinations processed in parallel. Each thread uses its own {@link OptimalStrategies} labels and flow arrays, which are summed
+ * once all destinations have been loaded. Resulting passenger flows are available per service leg segment and boardings per service node for the most recently assigned time
+ * period. Link outputs provide the passenger flows aggregated to the physical link segments the service leg segments traverse.
+ * </p>
+ * <p>
+ * The road based components of a traffic assignment (physical and virtual cost, smoothing and gap function) are not used and therefore not required.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitAssignment extends StaticTrafficAssignment implements TransitServiceFlowAccessee {
+
+  /** generated UID */
+  private static final long serialVersionUID = -3452386714232081469L;
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(FrequencyBasedTransitAssignment.class.getCanonicalName());
+
+  /** routed services with the frequency based trips to assign to */
+  private RoutedServices routedServices;
+
+  /** walking speed for access and egress */
+  private double walkingSpeedKmH = FrequencyBasedTransitGraph.DEFAULT_WALKING_SPEED_KMH;
+
+  /** expected waiting time in headways */
+  private double waitingTimeFactor = OptimalStrategies.DEFAULT_WAITING_TIME_FACTOR;
+
+  /** compiled graph by mode, reused across time periods */
+  private final Map<Mode, FrequencyBasedTransitGraph> graphsByMode = new HashMap<>();
+
+  /** routed services layer the graph of a mode is compiled from, by mode */
+  private final Map<Mode, RoutedServicesLayer> routedServicesLayersByMode = new HashMap<>();
+
+  /** passenger flows per hour by service leg segment id of the most recent time period, by mode */
+  private final Map<Mode, double[]> legSegmentFlowsByMode = new HashMap<>();
+
+  /** boardings per hour by service node id of the most recent time period, by mode */
+  private final Map<Mode, double[]> boardingsByMode = new HashMap<>();
+
+  /** passenger flows per hour by physical link segment id of the most recent time period, by mode */
+  private final Map<Mode, double[]> linkSegmentFlowsByMode = new HashMap<>();
+
+  /**
+   * Per thread labels and flows used while loading destinations in parallel
+   */
+  private static class DestinationLoader {
+
+    /** strategies (labels) of this loader */
+    private final OptimalStrategies strategies;
+
+    /** flows by leg segment id */
+    private final double[] legSegmentFlows;
+
+    /** boardings by stop */
+    private final double[] stopBoardings;
+
+    /** demand that could not be assigned */
+    private double unreachableDemand = 0;
+
+    /**
+     * Constructor
+     *
+     * @param graph             to load on
+     * @param waitingTimeFactor to use
+     */
+    private DestinationLoader(final FrequencyBasedTransitGraph graph, final double waitingTimeFactor) {
+      this.strategies = new OptimalStrategies(graph, waitingTimeFactor);
+      this.legSegmentFlows = new double[graph.getNumberOfLegSegmentIds()];
+      this.stopBoardings = new double[graph.getNumberOfStops()];
+    }
+
+    /**
+     * Compute the strategy of a destination and load its demand
+     *
+     * @param destination od zone id
+     * @param origins     od zone ids with demand to the destination
+     * @param demands     by origin
+     */
+    private void load(final int destination, final int[] origins, final double[] demands) {
+      strategies.computeStrategy(destination);
+      unreachableDemand += strategies.load(origins, demands, legSegmentFlows, stopBoardings);
+    }
+
+    /**
+     * Add the flows of another loader to this loader
+     *
+     * @param other to add
+     */
+    private void add(final DestinationLoader other) {
+      Arrays.setAll(legSegmentFlows, index -> legSegmentFlows[index] + other.legSegmentFlows[index]);
+      Arrays.setAll(stopBoardings, index -> stopBoardings[index] + other.stopBoardings[index]);
+      unreachableDemand += other.unreachableDemand;
+    }
+  }
+
+  /**
+   * Find the routed services layer with frequency based trips for the given mode
+   *
+   * @param mode to find layer for
+   * @return layer, null when no layer has frequency based trips for the mode
+   */
+  private RoutedServicesLayer findRoutedServicesLayer(final Mode mode) {
+    RoutedServicesLayer found = null;
+    for (RoutedServicesLayer layer : routedServices.getLayers()) {
+      boolean hasFrequencyBasedTrips = false;
+      for (RoutedModeServices modeServices : layer) {
+        if (!modeServices.getMode().equals(mode)) {
+          continue;
+        }
+        for (RoutedService service : modeServices) {
+          hasFrequencyBasedTrips |= !service.getTripInfo().getFrequencyBasedTrips().isEmpty();
+        }
+      }
+      if (!hasFrequencyBasedTrips) {
+        continue;
+      }
+      if (found != null) {
+        LOGGER.warning(String.format("%sMultiple routed services layers with frequency based trips for mode %s, only the first is assigned to", LoggingUtils.runIdPrefix(getId()),
+            mode.getXmlId()));
+        break;
+      }
+      found = layer;
+    }
+    return found;
+  }
+
+  /**
+   * Aggregate passenger flows on service leg segments to the physical link segments they traverse
+   *
+   * @param routedServicesLayer the flows are assigned to
+   * @param legSegmentFlows     by service leg segment id
+   * @return passenger flows by physical link segment id
+   */
+  private double[] aggregateToPhysicalLinkSegments(final RoutedServicesLayer routedServicesLayer, final double[] legSegmentFlows) {
+    final double[] linkSegmentFlows = new double[getTotalNumberOfNetworkSegments()];
+    for (ServiceLegSegment legSegment : routedServicesLayer.getParentLayer().getLegSegments()) {
+      final int legSegmentId = (int) legSegment.getId();
+      if (legSegmentId >= legSegmentFlows.length || legSegmentFlows[legSegmentId] == 0 || legSegment.getPhysicalParentSegments() == null) {
+        continue;
+      }
+      for (LinkSegment linkSegment : legSegment.getPhysicalParentSegments()) {
+        linkSegmentFlows[(int) linkSegment.getId()] += legSegmentFlows[legSegmentId];
+      }
+    }
+    return linkSegmentFlows;
+  }
+
+  /**
+   * Assign the demand of a single mode
+   *
+   * @param timePeriod to assign
+   * @param mode       to assign
+   * @param graph      of the mode
+   */
+  private void executeTimePeriodAndMode(final TimePeriod timePeriod, final Mode mode, final FrequencyBasedTransitGraph graph) {
+    final OdDemands odDemands = getDemands().get(mode, timePeriod);
+    if (odDemands == null) {
+      return;
+    }
+
+    /* collect non-zero demand by destination, flattened per destination for loading */
+    final int numberOfOdZones = (int) getZoning().getOdZones().size();
+    final int[] numberOfOrigins = new int[numberOfOdZones];
+    odDemands.forEachNonZeroOdDemand(getZoning().getOdZones(), (origin, destination, demand) -> ++numberOfOrigins[(int) destination.getOdZoneId()]);
+    final int[][] originsByDestination = new int[numberOfOdZones][];
+    final double[][] demandsByDestination = new double[numberOfOdZones][];
+    for (int destination = 0; destination < numberOfOdZones; ++destination) {
+      originsByDestination[destination] = new int[numberOfOrigins[destination]];
+      demandsByDestination[destination] = new double[numberOfOrigins[destination]];
+      numberOfOrigins[destination] = 0;
+    }
+    odDemands.forEachNonZeroOdDemand(getZoning().getOdZones(), (origin, destination, demand) -> {
+      final int destinationId = (int) destination.getOdZoneId();
+      originsByDestination[destinationId][numberOfOrigins[destinationId]] = (int) origin.getOdZoneId();
+      demandsByDestination[destinationId][numberOfOrigins[destinationId]++] = demand;
+    });
+
+    final DestinationLoader loaded = IntStream.range(0, numberOfOdZones).parallel().filter(destination -> originsByDestination[destination].length > 0).collect(
+        () -> new DestinationLoader(graph, waitingTimeFactor), (loader, destination) -> loader.load(destination, originsByDestination[destination],
+            demandsByDestination[destination]), DestinationLoader::add);
+
+    if (loaded.unreachableDemand > 0) {
+      LOGGER.warning(String.format("%s%.2f demand of mode %s could not be assigned, destinations unreachable by frequency based trips", LoggingUtils.runIdPrefix(getId()),
+          loaded.unreachableDemand, mode.getXmlId()));
+    }
+
+    final int numberOfServiceNodeIds = (int) IntStream.range(0, graph.getNumberOfStops()).mapToLong(graph::getServiceNodeId).max().orElse(-1) + 1;
+    final double[] boardings = new double[numberOfServiceNodeIds];
+    for (int stop = 0; stop < graph.getNumberOfStops(); ++stop) {
+      boardings[(int) graph.getServiceNodeId(stop)] = loaded.stopBoardings[stop];
+    }
+    legSegmentFlowsByMode.put(mode, loaded.legSegmentFlows);
+    boardingsByMode.put(mode, boardings);
+    linkSegmentFlowsByMode.put(mode, aggregateToPhysicalLinkSegments(routedServicesLayersByMode.get(mode), loaded.legSegmentFlows));
+  }
+
+  /**
+   * Only the inputs and routed services are required, the road based components are not used by this assignment
+   *
+   * @throws PlanItException thrown if any required component is undefined
+   */
+  @Override
+  protected void checkForEmptyComponents() throws PlanItException {
+    PlanItException.throwIf(getDemands() == null, "Demand is null");
+    PlanItException.throwIf(getInfrastructureNetwork() == null, "Network is null");
+    PlanItException.throwIf(getZoning() == null, "Zoning is null");
+    PlanItException.throwIf(routedServices == null, "Frequency based transit assignment requires routed services, none registered");
+  }
+
+  /**
+   * Road based costs are not initialised since they are not used by this assignment
+   *
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  protected void initialiseBeforeExecution() throws PlanItException {
+    checkForEmptyComponents();
+    createTransportNetwork();
+    verifyComponentCompatibility();
+    verifyScenarioOverlayCompatibility();
+    getOutputManager().initialiseBeforeSimulation(getId());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void verifyComponentCompatibility() throws PlanItException {
+    PlanItException.throwIf(routedServices == null, "Frequency based transit assignment requires routed services, none registered");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void verifyNetworkDemandZoningCompatibility() throws PlanItException {
+    PlanItException.throwIf(routedServices == null, "Frequency based transit assignment requires routed services, none registered");
+    PlanItException.throwIf(routedServices.getParentNetwork().getParentNetwork() != getInfrastructureNetwork(),
+        "Routed services of frequency based transit assignment are not defined on the assignment's network");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void executeTimePeriod(final TimePeriod timePeriod, final Set<Mode> modes) throws PlanItException {
+    legSegmentFlowsByMode.clear();
+    boardingsByMode.clear();
+    linkSegmentFlowsByMode.clear();
+    for (Mode mode : modes) {
+      final long startTime = System.currentTimeMillis();
+      var graph = graphsByMode.get(mode);
+      if (graph == null) {
+        final var routedServicesLayer = findRoutedServicesLayer(mode);
+        if (routedServicesLayer == null) {
+          LOGGER.warning(String.format("%sNo frequency based trips for mode %s, demand not assigned", LoggingUtils.runIdPrefix(getId()), mode.getXmlId()));
+          continue;
+        }
+        graph = FrequencyBasedTransitGraph.compile(routedServicesLayer, mode, getZoning(), walkingSpeedKmH);
+        graphsByMode.put(mode, graph);
+        routedServicesLayersByMode.put(mode, routedServicesLayer);
+      }
+      executeTimePeriodAndMode(timePeriod, mode, graph);
+      LOGGER.info(String.format("%sAssigned mode %s in %d milliseconds", LoggingUtils.runIdPrefix(getId()) + LoggingUtils.timePeriodPrefix(timePeriod), mode.getXmlId(),
+          System.currentTimeMillis() - startTime));
+    }
+
+    if (getOutputManager().isAnyOutputPersisted(timePeriod, modes, true)) {
+      getOutputManager().persistOutputData(timePeriod, modes, true);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param groupId contiguous id generation within this group for instances of this class
+   */
+  public FrequencyBasedTransitAssignment(IdGroupingToken groupId) {
+    super(groupId);
+  }
+
+  /**
+   * Copy Constructor
+   *
+   * @param other    to copy
+   * @param deepCopy when true, create a deep copy, shallow copy otherwise
+   */
+  public FrequencyBasedTransitAssignment(FrequencyBasedTransitAssignment other, boolean deepCopy) {
+    super(other, deepCopy);
+    this.routedServices = other.routedServices;
+    this.walkingSpeedKmH = other.walkingSpeedKmH;
+    this.waitingTimeFactor = other.waitingTimeFactor;
+  }
+
+  /**
+   * Link outputs are supported, other output types are not
+   *
+   * @param outputType the current output type
+   * @return the output type adapter corresponding to the output type, null when not supported
+   */
+  @Override
+  public OutputTypeAdapter createOutputTypeAdapter(OutputType outputType) {
+    OutputTypeAdapter outputTypeAdapter = null;
+    switch (outputType) {
+    case LINK:
+      outputTypeAdapter = new FrequencyBasedTransitLinkOutputTypeAdapter(outputType, this);
+      break;
+    default:
+      LOGGER.warning(String.format("%s%s output type not supported by frequency based transit assignment", LoggingUtils.runIdPrefix(getId()), outputType.value()));
+    }
+    return outputTypeAdapter;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getIterationIndex() {
+    return 0;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FrequencyBasedTransitAssignment shallowClone() {
+    return new FrequencyBasedTransitAssignment(this, false);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public FrequencyBasedTransitAssignment deepClone() {
+    throw new PlanItRunTimeException("Deep clone not yet implemented");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    graphsByMode.clear();
+    routedServicesLayersByMode.clear();
+    legSegmentFlowsByMode.clear();
+    boardingsByMode.clear();
+    linkSegmentFlowsByMode.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Map<String, String> collectSettingsAsKeyValueMap() {
+    var keyValueMap = new HashMap<String, String>();
+    keyValueMap.put("walkingSpeedKmH", String.valueOf(walkingSpeedKmH));
+    keyValueMap.put("waitingTimeFactor", String.valueOf(waitingTimeFactor));
+    return keyValueMap;
+  }
+
+  /**
+   * Passenger flows of the most recently assigned time period
+   *
+   * @param mode to collect flows for
+   * @return passenger flows per hour indexed by service leg segment id, null when the mode was not assigned
+   */
+  @Override
+  public double[] getLegSegmentFlows(final Mode mode) {
+    return legSegmentFlowsByMode.get(mode);
+  }
+
+  /**
+   * Boardings of the most recently assigned time period
+   *
+   * @param mode to collect boardings for
+   * @return boardings per hour indexed by service node id, null when the mode was not assigned
+   */
+  @Override
+  public double[] getBoardings(final Mode mode) {
+    return boardingsByMode.get(mode);
+  }
+
+  /**
+   * Passenger flows of the most recently assigned time period aggregated to the physical link segments traversed by the service leg segments
+   *
+   * @param mode to collect flows for
+   * @return passenger flows per hour indexed by link segment id, null when the mode was not assigned
+   */
+  public double[] getLinkSegmentFlows(final Mode mode) {
+    return linkSegmentFlowsByMode.get(mode);
+  }
+
+  /**
+   * Set the routed services to assign to
+   *
+   * @param routedServices to use
+   */
+  public void setRoutedServices(final RoutedServices routedServices) {
+    this.routedServices = routedServices;
+  }
+
+  /**
+   * Collect the routed services to assign to
+   *
+   * @return routed services
+   */
+  public RoutedServices getRoutedServices() {
+    return routedServices;
+  }
+
+  /**
+   * Set the walking speed used for access and egress
+   *
+   * @param walkingSpeedKmH to use
+   */
+  public void setWalkingSpeedKmH(final double walkingSpeedKmH) {
+    PlanItRunTimeException.throwIf(walkingSpeedKmH <= 0, "Walking speed must be positive, found %.2f", walkingSpeedKmH);
+    this.walkingSpeedKmH = walkingSpeedKmH;
+    this.graphsByMode.clear();
+  }
+
+  /**
+   * Collect the walking speed used for access and egress
+   *
+   * @return walking speed in km/h
+   */
+  public double getWalkingSpeedKmH() {
+    return walkingSpeedKmH;
+  }
+
+  /**
+   * Set the waiting time factor, i.e., expected waiting time in headways
+   *
+   * @param waitingTimeFactor to use
+   */
+  public void setWaitingTimeFactor(final double waitingTimeFactor) {
+    PlanItRunTimeException.throwIf(waitingTimeFactor < 0, "Waiting time factor must be non-negative, found %.2f", waitingTimeFactor);
+    this.waitingTimeFactor = waitingTimeFactor;
+  }
+
+  /**
+   * Collect the waiting time factor
+   *
+   * @return waiting time factor
+   */
+  public double getWaitingTimeFactor() {
+    return waitingTimeFactor;
+  }
+
+}
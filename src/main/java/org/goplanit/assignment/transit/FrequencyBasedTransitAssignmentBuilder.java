@@ -0,0 +1,45 @@
+package org.goplanit.assignment.transit;
+
+import org.goplanit.assignment.TrafficAssignmentBuilder;
+import org.goplanit.assignment.TrafficAssignmentConfigurator;
+import org.goplanit.demands.Demands;
+import org.goplanit.input.InputBuilderListener;
+import org.goplanit.network.LayeredNetwork;
+import org.goplanit.zoning.Zoning;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGroupingToken;
+
+/**
+ * Builder for a frequency based transit assignment
+ *
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitAssignmentBuilder extends TrafficAssignmentBuilder<FrequencyBasedTransitAssignment> {
+
+  /**
+   * the user will configure this builder via this configurator
+   * 
+   * @return FrequencyBasedTransitAssignmentConfigurator instance
+   * @throws PlanItException thrown if error
+   */
+  @Override
+  protected TrafficAssignmentConfigurator<FrequencyBasedTransitAssignment> createConfigurator() throws PlanItException {
+    return new FrequencyBasedTransitAssignmentConfigurator();
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param projectToken id grouping token
+   * @param inputBuilder the inputBuilder
+   * @param demands      the demands
+   * @param zoning       the zoning
+   * @param network      the network
+   * @throws PlanItException thrown if there is an error
+   */
+  public FrequencyBasedTransitAssignmentBuilder(final IdGroupingToken projectToken, final InputBuilderListener inputBuilder, final Demands demands, final Zoning zoning,
+      final LayeredNetwork<?, ?> network) throws PlanItException {
+    super(FrequencyBasedTransitAssignment.class, projectToken, inputBuilder, demands, zoning, network);
+  }
+}
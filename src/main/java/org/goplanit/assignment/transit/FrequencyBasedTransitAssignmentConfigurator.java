@@ -0,0 +1,88 @@
+package org.goplanit.assignment.transit;
+
+import org.goplanit.algorithms.transit.FrequencyBasedTransitGraph;
+import org.goplanit.algorithms.transit.OptimalStrategies;
+import org.goplanit.assignment.TrafficAssignmentConfigurator;
+import org.goplanit.service.routed.RoutedServices;
+import org.goplanit.utils.exceptions.PlanItException;
+
+/**
+ * Configurator for frequency based transit assignment. No road based components (costs, smoothing, gap function) are registered since the transit assignment does not use them.
+ * The following settings have the defaults:
+ * <ul>
+ * <li>walkingSpeedKmH: 4.5</li>
+ * <li>waitingTimeFactor: 1.0</li>
+ * </ul>
+ * Routed services with frequency based trips must be registered explicitly.
+ * 
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitAssignmentConfigurator extends TrafficAssignmentConfigurator<FrequencyBasedTransitAssignment> {
+
+  private static final String SET_ROUTED_SERVICES = "setRoutedServices";
+
+  private static final String SET_WALKING_SPEED_KMH = "setWalkingSpeedKmH";
+
+  private static final String SET_WAITING_TIME_FACTOR = "setWaitingTimeFactor";
+
+  /** default value used */
+  public static final double DEFAULT_WALKING_SPEED_KMH = FrequencyBasedTransitGraph.DEFAULT_WALKING_SPEED_KMH;
+
+  /** default value used */
+  public static final double DEFAULT_WAITING_TIME_FACTOR = OptimalStrategies.DEFAULT_WAITING_TIME_FACTOR;
+
+  /**
+   * Constructor
+   * 
+   * @throws PlanItException thrown if error
+   */
+  public FrequencyBasedTransitAssignmentConfigurator() throws PlanItException {
+    super(FrequencyBasedTransitAssignment.class);
+
+    // initialise defaults
+    setWalkingSpeedKmH(DEFAULT_WALKING_SPEED_KMH);
+    setWaitingTimeFactor(DEFAULT_WAITING_TIME_FACTOR);
+  }
+
+  //
+  // Directly configurable options
+  //
+
+  /**
+   * Set the routed services with the frequency based trips to assign to
+   * 
+   * @param routedServices to use
+   */
+  public void setRoutedServices(RoutedServices routedServices) {
+    registerDelayedMethodCall(SET_ROUTED_SERVICES, routedServices);
+  }
+
+  /**
+   * Collect the registered routed services
+   * 
+   * @return routed services, null if not set
+   */
+  public RoutedServices getRoutedServices() {
+    return (RoutedServices) getFirstParameterOfDelayedMethodCall(SET_ROUTED_SERVICES);
+  }
+
+  /**
+   * Set the walking speed used for access and egress between zones and stops
+   * 
+   * @param walkingSpeedKmH to use
+   */
+  public void setWalkingSpeedKmH(double walkingSpeedKmH) {
+    registerDelayedMethodCall(SET_WALKING_SPEED_KMH, walkingSpeedKmH);
+  }
+
+  /**
+   * Set the expected waiting time in headways, 1 for exponentially distributed headways, 0.5 for perfectly regular headways
+   * 
+   * @param waitingTimeFactor to use
+   */
+  public void setWaitingTimeFactor(double waitingTimeFactor) {
+    registerDelayedMethodCall(SET_WAITING_TIME_FACTOR, waitingTimeFactor);
+  }
+
+}
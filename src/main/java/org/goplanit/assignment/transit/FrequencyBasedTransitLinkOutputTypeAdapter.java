@@ -0,0 +1,126 @@
+package org.goplanit.assignment.transit;
+
+import java.util.Optional;
+
+import org.goplanit.assignment.TrafficAssignment;
+import org.goplanit.output.adapter.MacroscopicLinkOutputTypeAdapterImpl;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.time.TimePeriod;
+
+/**
+ * Adapter providing access to the data of the FrequencyBasedTransitAssignment class relevant for link outputs without exposing the internals of the traffic assignment class
+ * itself. Flows are passenger flows per hour of the services traversing a link segment, costs are in-vehicle times consistent with the assignment, i.e., based on the maximum speed
+ * of the mode. Capacity related properties do not apply to passenger flows.
+ *
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitLinkOutputTypeAdapter extends MacroscopicLinkOutputTypeAdapterImpl {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected FrequencyBasedTransitAssignment getAssignment() {
+    return (FrequencyBasedTransitAssignment) super.getAssignment();
+  }
+
+  /**
+   * Returns the passenger flow per hour through the current link segment
+   *
+   * @param linkSegment to use
+   * @param mode        current mode
+   * @return the passenger flow through the current link segment, zero when the mode was not assigned
+   */
+  private Optional<Double> getPassengerFlowPerHour(final MacroscopicLinkSegment linkSegment, final Mode mode) {
+    final double[] linkSegmentFlows = getAssignment().getLinkSegmentFlows(mode);
+    return Optional.of(linkSegmentFlows == null ? 0.0 : linkSegmentFlows[(int) linkSegment.getId()]);
+  }
+
+  /**
+   * Returns the in-vehicle time through the current link segment
+   *
+   * @param linkSegment to use
+   * @param mode        current mode
+   * @return the in-vehicle time in hours
+   */
+  private Optional<Double> getInVehicleTimeHour(final MacroscopicLinkSegment linkSegment, final Mode mode) {
+    return Optional.of(linkSegment.getParentLink().getLengthKm() / mode.getMaximumSpeedKmH());
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputType        the output type for the current persistence
+   * @param trafficAssignment the traffic assignment used to provide the data
+   */
+  public FrequencyBasedTransitLinkOutputTypeAdapter(final OutputType outputType, final TrafficAssignment trafficAssignment) {
+    super(outputType, trafficAssignment);
+  }
+
+  /**
+   * Flow is positive when passengers traverse the link segment in the most recently assigned time period
+   *
+   * @param linkSegment to verify
+   * @param mode        to verify
+   * @return true when passenger flow is positive
+   */
+  @Override
+  public Optional<Boolean> isFlowPositive(final MacroscopicLinkSegment linkSegment, final Mode mode) {
+    return Optional.of(getPassengerFlowPerHour(linkSegment, mode).get() > 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Optional<?> getLinkSegmentOutputPropertyValue(final OutputProperty outputProperty, final MacroscopicLinkSegment linkSegment, final Mode mode,
+      final TimePeriod timePeriod) {
+
+    Optional<?> value = Optional.empty();
+    try {
+      value = getOutputTypeIndependentPropertyValue(outputProperty, mode, timePeriod);
+      if (value.isPresent()) {
+        return value;
+      }
+
+      value = super.getLinkSegmentOutputPropertyValue(outputProperty, linkSegment, mode, timePeriod);
+      if (value.isPresent()) {
+        return value;
+      }
+
+      switch (outputProperty.getOutputPropertyType()) {
+      case CALCULATED_SPEED:
+        value = Optional.of(mode.getMaximumSpeedKmH());
+        break;
+      case FLOW:
+      case INFLOW:
+      case OUTFLOW:
+        // without capacity constraints, passengers entering a link segment also leave it
+        value = getPassengerFlowPerHour(linkSegment, mode);
+        break;
+      case LINK_SEGMENT_COST:
+        value = getInVehicleTimeHour(linkSegment, mode);
+        break;
+      case COST_TIMES_FLOW:
+        value = Optional.of(getInVehicleTimeHour(linkSegment, mode).get() * getPassengerFlowPerHour(linkSegment, mode).get());
+        break;
+      default:
+        throw new PlanItException("Tried to find link property of %s which is not applicable for frequency based transit assignment", outputProperty.getName());
+      }
+
+      if (outputProperty.supportsUnitOverride() && outputProperty.isUnitOverride()) {
+        value = createConvertedUnitsValue(outputProperty, value);
+      }
+    } catch (final PlanItException e) {
+      return Optional.of(e.getMessage());
+    }
+
+    return value;
+  }
+
+}
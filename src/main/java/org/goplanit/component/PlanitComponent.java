@@ -6,10 +6,10 @@ import java.util.Map;
 import org.goplanit.component.event.PlanitComponentEvent;
 import org.goplanit.component.event.PlanitComponentEventType;
 import org.goplanit.component.event.PlanitComponentListener;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.id.ExternalIdAble;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 /**
@@ -50,7 +50,7 @@ public abstract class PlanitComponent<T extends PlanitComponent<T> & Serializabl
     // the groupId would generally be the token of the project or the assignment as it owns the components
     // the class type would be the super class of the all instances for which we want contiguous ids
     this.tokenId = tokenId;
-    this.idImpl = new ExternalIdAbleImpl(IdGenerator.generateId(tokenId, classType));
+    this.idImpl = new ExternalIdAbleImpl(SynchronisedIdGenerator.generateId(tokenId, classType));
   }
 
   /**
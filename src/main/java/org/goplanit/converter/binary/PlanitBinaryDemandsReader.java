@@ -0,0 +1,185 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.logging.Logger;
+
+import org.goplanit.converter.BaseReaderImpl;
+import org.goplanit.converter.demands.DemandsReader;
+import org.goplanit.demands.Demands;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.userclass.TravellerType;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.time.TimePeriod;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Reads demands from a PLANit binary snapshot created by {@link PlanitBinaryDemandsWriter}. Od demands are populated into the containers created via
+ * {@link #createOdDemands(org.goplanit.utils.zoning.OdZones)}.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryDemandsReader extends BaseReaderImpl<Demands> implements DemandsReader {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryDemandsReader.class.getCanonicalName());
+
+  /** settings to use */
+  private final PlanitBinaryReaderSettings settings;
+
+  /** network the demands' modes refer to */
+  private final MacroscopicNetwork referenceNetwork;
+
+  /** zoning the demands' od zones refer to */
+  private final Zoning referenceZoning;
+
+  /** demands to populate */
+  private final Demands demands;
+
+  /**
+   * Read and register the od demands of all modes of a time period
+   *
+   * @param input      to read from
+   * @param timePeriod to register od demands for
+   * @param modes      by position
+   * @param odZones    by position
+   */
+  private void readOdDemands(final PlanitBinarySnapshotInput input, final TimePeriod timePeriod, final Mode[] modes, final OdZone[] odZones) {
+    final int numberOfModes = input.readInt();
+    for (int modeIndex = 0; modeIndex < numberOfModes; ++modeIndex) {
+      final Mode mode = modes[input.readInt()];
+      final OdDemands odDemands = createOdDemands(referenceZoning.getOdZones());
+      final int numberOfEntries = input.readInt();
+      for (int index = 0; index < numberOfEntries; ++index) {
+        final OdZone origin = odZones[input.readInt()];
+        final OdZone destination = odZones[input.readInt()];
+        odDemands.setValue(origin, destination, input.readDouble());
+      }
+      demands.registerOdDemandPcuHour(timePeriod, mode, odDemands);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings          to use
+   * @param referenceNetwork  network the demands' modes refer to
+   * @param referenceZoning   zoning the demands' od zones refer to
+   * @param demandsToPopulate demands to register the snapshot contents on, expected to be empty
+   */
+  public PlanitBinaryDemandsReader(final PlanitBinaryReaderSettings settings, final MacroscopicNetwork referenceNetwork, final Zoning referenceZoning,
+      final Demands demandsToPopulate) {
+    super();
+    this.settings = settings;
+    this.referenceNetwork = referenceNetwork;
+    this.referenceZoning = referenceZoning;
+    this.demands = demandsToPopulate;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param inputFile        snapshot to read
+   * @param referenceNetwork network the demands' modes refer to
+   * @param referenceZoning  zoning the demands' od zones refer to
+   * @param idToken          to create the demands with
+   */
+  public PlanitBinaryDemandsReader(final String inputFile, final MacroscopicNetwork referenceNetwork, final Zoning referenceZoning, final IdGroupingToken idToken) {
+    this(new PlanitBinaryReaderSettings(inputFile), referenceNetwork, referenceZoning, new Demands(idToken));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Demands read() {
+    PlanItRunTimeException.throwIfNull(settings.getInputFile(), "PLANit binary demands snapshot file not set");
+    PlanItRunTimeException.throwIfNull(referenceNetwork, "PLANit binary demands reader requires reference network");
+    PlanItRunTimeException.throwIfNull(referenceZoning, "PLANit binary demands reader requires reference zoning");
+
+    PlanitBinarySnapshotInput input;
+    try {
+      input = new PlanitBinarySnapshotInput(Paths.get(settings.getInputFile()), PlanitBinarySnapshotFormat.DEMANDS_SNAPSHOT);
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItRunTimeException(String.format("Unable to read PLANit binary demands snapshot %s", settings.getInputFile()));
+    }
+
+    final Mode[] modes = PlanitBinaryZoningReader.collectModes(referenceNetwork);
+    final OdZone[] odZones = new OdZone[(int) referenceZoning.getOdZones().size()];
+    int odZoneIndex = 0;
+    for (OdZone odZone : referenceZoning.getOdZones()) {
+      odZones[odZoneIndex++] = odZone;
+    }
+
+    demands.setXmlId(input.readString());
+    demands.setExternalId(input.readString());
+
+    final TravellerType[] travellerTypes = new TravellerType[input.readInt()];
+    for (int index = 0; index < travellerTypes.length; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      travellerTypes[index] = demands.travelerTypes.getFactory().registerNew(input.readString());
+      travellerTypes[index].setXmlId(xmlId);
+      travellerTypes[index].setExternalId(externalId);
+    }
+
+    final int numberOfUserClasses = input.readInt();
+    for (int index = 0; index < numberOfUserClasses; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      final String name = input.readString();
+      final Mode mode = modes[input.readInt()];
+      final int travellerTypeIndex = input.readInt();
+      final var userClass = demands.userClasses.getFactory().registerNew(
+          name, mode, travellerTypeIndex == PlanitBinarySnapshotFormat.NONE ? null : travellerTypes[travellerTypeIndex]);
+      userClass.setXmlId(xmlId);
+      userClass.setExternalId(externalId);
+    }
+
+    final int numberOfTimePeriods = input.readInt();
+    for (int index = 0; index < numberOfTimePeriods; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      final String description = input.readString();
+      final TimePeriod timePeriod = demands.timePeriods.getFactory().registerNew(description, input.readLong(), input.readLong());
+      timePeriod.setXmlId(xmlId);
+      timePeriod.setExternalId(externalId);
+      readOdDemands(input, timePeriod, modes, odZones);
+    }
+
+    LOGGER.info(String.format("Read PLANit binary demands snapshot %s", settings.getInputFile()));
+    return demands;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Zoning getReferenceZoning() {
+    return referenceZoning;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryReaderSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    settings.reset();
+  }
+
+}
@@ -0,0 +1,227 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.goplanit.converter.BaseWriterImpl;
+import org.goplanit.converter.demands.DemandsWriter;
+import org.goplanit.converter.idmapping.IdMapperType;
+import org.goplanit.converter.idmapping.PlanitComponentIdMapper;
+import org.goplanit.demands.Demands;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.userclass.TravellerType;
+import org.goplanit.userclass.UserClass;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.time.TimePeriod;
+import org.goplanit.zoning.Zoning;
+
+/**
+ * Writes demands to a PLANit binary snapshot, see {@link PlanitBinarySnapshotFormat}. Only non-zero od demands are persisted, referring to od zones by their position within the
+ * reference zoning and to modes by their position within the reference network.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryDemandsWriter extends BaseWriterImpl<Demands> implements DemandsWriter {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryDemandsWriter.class.getCanonicalName());
+
+  /**
+   * Non-zero od demands of a single mode and time period collected before writing, so their number is known upfront
+   */
+  private static class OdDemandEntries {
+
+    /** initial capacity */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** origin position of each entry */
+    private int[] origins = new int[INITIAL_CAPACITY];
+
+    /** destination position of each entry */
+    private int[] destinations = new int[INITIAL_CAPACITY];
+
+    /** demand of each entry */
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    /** number of entries */
+    private int size = 0;
+
+    /**
+     * Add an entry
+     *
+     * @param origin      position
+     * @param destination position
+     * @param value       demand
+     */
+    private void add(final int origin, final int destination, final double value) {
+      if (size == origins.length) {
+        origins = Arrays.copyOf(origins, size << 1);
+        destinations = Arrays.copyOf(destinations, size << 1);
+        values = Arrays.copyOf(values, size << 1);
+      }
+      origins[size] = origin;
+      destinations[size] = destination;
+      values[size++] = value;
+    }
+  }
+
+  /** settings to use */
+  private final PlanitBinaryWriterSettings settings;
+
+  /** network the demands' modes refer to */
+  private final MacroscopicNetwork referenceNetwork;
+
+  /** zoning the demands' od zones refer to */
+  private Zoning referenceZoning;
+
+  /**
+   * Write the od demands of all registered modes of a time period
+   *
+   * @param demands         to write
+   * @param timePeriod      to write od demands of
+   * @param modePositions   position of each mode by its id
+   * @param odZonePositions position of each od zone by its id
+   * @param output          to write to
+   * @throws IOException thrown if error
+   */
+  private void writeOdDemands(final Demands demands, final TimePeriod timePeriod, final Map<Long, Integer> modePositions, final Map<Long, Integer> odZonePositions,
+      final PlanitBinarySnapshotOutput output) throws IOException {
+    final var modes = demands.getRegisteredModesForTimePeriod(timePeriod);
+    output.writeInt(modes == null ? 0 : modes.size());
+    if (modes == null) {
+      return;
+    }
+    for (Mode mode : modes) {
+      final var entries = new OdDemandEntries();
+      demands.get(mode, timePeriod).forEachNonZeroOdDemand(referenceZoning.getOdZones(),
+          (origin, destination, value) -> entries.add(odZonePositions.get(origin.getId()), odZonePositions.get(destination.getId()), value));
+
+      output.writeInt(modePositions.get(mode.getId()));
+      output.writeInt(entries.size);
+      for (int index = 0; index < entries.size; ++index) {
+        output.writeInt(entries.origins[index]);
+        output.writeInt(entries.destinations[index]);
+        output.writeDouble(entries.values[index]);
+      }
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings         to use
+   * @param referenceNetwork network the demands' modes refer to
+   */
+  public PlanitBinaryDemandsWriter(final PlanitBinaryWriterSettings settings, final MacroscopicNetwork referenceNetwork) {
+    super(IdMapperType.ID);
+    this.settings = settings;
+    this.referenceNetwork = referenceNetwork;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputDirectory  to write to
+   * @param fileName         of the snapshot
+   * @param referenceNetwork network the demands' modes refer to
+   */
+  public PlanitBinaryDemandsWriter(final String outputDirectory, final String fileName, final MacroscopicNetwork referenceNetwork) {
+    this(new PlanitBinaryWriterSettings(outputDirectory, fileName), referenceNetwork);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final Demands demands) throws PlanItException {
+    PlanItException.throwIf(referenceNetwork == null, "PLANit binary demands writer requires reference network");
+    PlanItException.throwIf(referenceZoning == null, "PLANit binary demands writer requires reference zoning");
+    PlanItException.throwIf(!settings.validate(), "PLANit binary demands writer settings invalid, unable to write snapshot");
+
+    final var modePositions = PlanitBinaryNetworkWriter.createPositionsById(referenceNetwork.getModes());
+    final var odZonePositions = PlanitBinaryNetworkWriter.createPositionsById(referenceZoning.getOdZones());
+    final var travellerTypePositions = PlanitBinaryNetworkWriter.createPositionsById(demands.travelerTypes);
+
+    try (var output = new PlanitBinarySnapshotOutput(settings.getOutputFile(), PlanitBinarySnapshotFormat.DEMANDS_SNAPSHOT)) {
+      output.writeString(demands.getXmlId());
+      output.writeString(demands.getExternalId());
+
+      output.writeInt((int) demands.travelerTypes.size());
+      for (TravellerType travellerType : demands.travelerTypes) {
+        output.writeString(travellerType.getXmlId());
+        output.writeString(travellerType.getExternalId());
+        output.writeString(travellerType.getName());
+      }
+
+      output.writeInt((int) demands.userClasses.size());
+      for (UserClass userClass : demands.userClasses) {
+        output.writeString(userClass.getXmlId());
+        output.writeString(userClass.getExternalId());
+        output.writeString(userClass.getName());
+        output.writeInt(modePositions.get(userClass.getMode().getId()));
+        output.writeInt(userClass.getTravelerType() == null ? PlanitBinarySnapshotFormat.NONE : travellerTypePositions.get(userClass.getTravelerType().getId()));
+      }
+
+      output.writeInt((int) demands.timePeriods.size());
+      for (TimePeriod timePeriod : demands.timePeriods) {
+        output.writeString(timePeriod.getXmlId());
+        output.writeString(timePeriod.getExternalId());
+        output.writeString(timePeriod.getDescription());
+        output.writeLong(timePeriod.getStartTimeSeconds());
+        output.writeLong(timePeriod.getDurationSeconds());
+        writeOdDemands(demands, timePeriod, modePositions, odZonePositions, output);
+      }
+      output.markComplete();
+    } catch (IOException e) {
+      throw new PlanItException(String.format("Unable to write PLANit binary demands snapshot %s", settings.getOutputFile()), e);
+    }
+
+    getComponentIdMappers().populateMissingIdMappers(getIdMapperType());
+    LOGGER.info(String.format("Persisted PLANit binary demands snapshot %s", settings.getOutputFile()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setReferenceZoning(final Zoning referenceZoning) {
+    this.referenceZoning = referenceZoning;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Zoning getReferenceZoning() {
+    return referenceZoning;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitComponentIdMapper getPrimaryIdMapper() {
+    return getComponentIdMappers().getDemandsIdMapperIdMapper();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryWriterSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    settings.reset();
+  }
+
+}
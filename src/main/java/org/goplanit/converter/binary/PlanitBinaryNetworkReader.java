@@ -0,0 +1,309 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.geotools.referencing.CRS;
+import org.goplanit.converter.network.NetworkReaderImpl;
+import org.goplanit.mode.ModeFeaturesFactory;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.layer.macroscopic.AccessGroupPropertiesFactory;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.MotorisationModeType;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.mode.TrackModeType;
+import org.goplanit.utils.mode.UseOfModeType;
+import org.goplanit.utils.mode.VehicularModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Reads a macroscopic network from a PLANit binary snapshot created by {@link PlanitBinaryNetworkWriter}. Entities are registered in the order they were written, so when reading
+ * into an empty network with a fresh id grouping token the ids of the original network are reproduced (provided they were contiguous).
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryNetworkReader extends NetworkReaderImpl {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryNetworkReader.class.getCanonicalName());
+
+  /** settings to use */
+  private final PlanitBinaryReaderSettings settings;
+
+  /** network to populate */
+  private final MacroscopicNetwork network;
+
+  /** geometry factory to use */
+  private final GeometryFactory geometryFactory = JTSFactoryFinder.getGeometryFactory();
+
+  /**
+   * Read a coordinate reference system from its well known text
+   *
+   * @param input to read from
+   * @return coordinate reference system, null when absent
+   */
+  static CoordinateReferenceSystem readCoordinateReferenceSystem(final PlanitBinarySnapshotInput input) {
+    String wkt = input.readString();
+    if (wkt == null) {
+      return null;
+    }
+    try {
+      return CRS.parseWKT(wkt);
+    } catch (Exception e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItRunTimeException("Unable to parse coordinate reference system of PLANit binary snapshot");
+    }
+  }
+
+  /**
+   * Read and register the modes of the network
+   *
+   * @param input to read from
+   * @return modes by position
+   */
+  private Mode[] readModes(final PlanitBinarySnapshotInput input) {
+    final Mode[] modes = new Mode[input.readInt()];
+    for (int index = 0; index < modes.length; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      Mode mode;
+      if (input.readBoolean()) {
+        mode = network.getModes().getFactory().registerNew(input.readEnum(PredefinedModeType.class));
+      } else {
+        final String name = input.readString();
+        final double maxSpeedKmH = input.readDouble();
+        final double pcu = input.readDouble();
+        final var physicalFeatures = ModeFeaturesFactory.createPhysicalFeatures(
+            input.readEnum(VehicularModeType.class), input.readEnum(MotorisationModeType.class), input.readEnum(TrackModeType.class));
+        final var usabilityFeatures = ModeFeaturesFactory.createUsabilityFeatures(input.readEnum(UseOfModeType.class));
+        mode = network.getModes().getFactory().registerNewCustomMode(name, maxSpeedKmH, pcu, physicalFeatures, usabilityFeatures);
+      }
+      mode.setXmlId(xmlId);
+      mode.setExternalId(externalId);
+      modes[index] = mode;
+    }
+    return modes;
+  }
+
+  /**
+   * Read and register the link segment types of a layer
+   *
+   * @param input to read from
+   * @param layer to register on
+   * @param modes by position
+   * @return link segment types by position
+   */
+  private MacroscopicLinkSegmentType[] readLinkSegmentTypes(final PlanitBinarySnapshotInput input, final MacroscopicNetworkLayer layer, final Mode[] modes) {
+    final var factory = layer.getLinkSegmentTypes().getFactory();
+    final MacroscopicLinkSegmentType[] linkSegmentTypes = new MacroscopicLinkSegmentType[input.readInt()];
+    for (int index = 0; index < linkSegmentTypes.length; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      final String name = input.readString();
+      final Double capacityPerLane = input.readNullableDouble();
+      final Double maximumDensityPerLane = input.readNullableDouble();
+
+      MacroscopicLinkSegmentType linkSegmentType;
+      if (capacityPerLane != null && maximumDensityPerLane != null) {
+        linkSegmentType = factory.registerNew(name, capacityPerLane, maximumDensityPerLane);
+      } else if (capacityPerLane != null) {
+        linkSegmentType = factory.registerNewWithCapacity(name, capacityPerLane);
+      } else if (maximumDensityPerLane != null) {
+        linkSegmentType = factory.registerNewWithMaxDensity(name, maximumDensityPerLane);
+      } else {
+        linkSegmentType = factory.registerNew(name);
+      }
+      linkSegmentType.setXmlId(xmlId);
+      linkSegmentType.setExternalId(externalId);
+
+      final int numberOfAccessGroups = input.readInt();
+      for (int groupIndex = 0; groupIndex < numberOfAccessGroups; ++groupIndex) {
+        final Double maxSpeedKmH = input.readNullableDouble();
+        final Double criticalSpeedKmH = input.readNullableDouble();
+        final int numberOfAccessModes = input.readInt();
+        final List<Mode> accessModes = new ArrayList<>(numberOfAccessModes);
+        for (int modeIndex = 0; modeIndex < numberOfAccessModes; ++modeIndex) {
+          accessModes.add(modes[input.readInt()]);
+        }
+        final var accessGroup = AccessGroupPropertiesFactory.create(accessModes);
+        accessGroup.setMaximumSpeedKmH(maxSpeedKmH);
+        accessGroup.setCriticalSpeedKmH(criticalSpeedKmH);
+        linkSegmentType.addAccessGroupProperties(accessGroup);
+      }
+      linkSegmentTypes[index] = linkSegmentType;
+    }
+    return linkSegmentTypes;
+  }
+
+  /**
+   * Read and register the nodes of a layer
+   *
+   * @param input to read from
+   * @param layer to register on
+   * @return nodes by position
+   */
+  private Node[] readNodes(final PlanitBinarySnapshotInput input, final MacroscopicNetworkLayer layer) {
+    final Node[] nodes = new Node[input.readInt()];
+    for (int index = 0; index < nodes.length; ++index) {
+      final Node node = layer.getNodes().getFactory().registerNew();
+      node.setXmlId(input.readString());
+      node.setExternalId(input.readString());
+      node.setName(input.readString());
+      if (input.readBoolean()) {
+        node.setPosition(geometryFactory.createPoint(new Coordinate(input.readDouble(), input.readDouble())));
+      }
+      nodes[index] = node;
+    }
+    return nodes;
+  }
+
+  /**
+   * Read and register the links of a layer
+   *
+   * @param input to read from
+   * @param layer to register on
+   * @param nodes by position
+   * @return links by position
+   */
+  private MacroscopicLink[] readLinks(final PlanitBinarySnapshotInput input, final MacroscopicNetworkLayer layer, final Node[] nodes) {
+    final MacroscopicLink[] links = new MacroscopicLink[input.readInt()];
+    for (int index = 0; index < links.length; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      final String name = input.readString();
+      final Node nodeA = nodes[input.readInt()];
+      final Node nodeB = nodes[input.readInt()];
+      final MacroscopicLink link = layer.getLinks().getFactory().registerNew(nodeA, nodeB, input.readDouble(), true /* register on nodes */);
+      link.setXmlId(xmlId);
+      link.setExternalId(externalId);
+      link.setName(name);
+      final Coordinate[] coordinates = input.readCoordinates();
+      if (coordinates != null) {
+        link.setGeometry(geometryFactory.createLineString(coordinates));
+      }
+      links[index] = link;
+    }
+    return links;
+  }
+
+  /**
+   * Read and register the link segments of a layer
+   *
+   * @param input            to read from
+   * @param layer            to register on
+   * @param links            by position
+   * @param linkSegmentTypes by position
+   */
+  private void readLinkSegments(final PlanitBinarySnapshotInput input, final MacroscopicNetworkLayer layer, final MacroscopicLink[] links,
+      final MacroscopicLinkSegmentType[] linkSegmentTypes) {
+    final int numberOfLinkSegments = input.readInt();
+    for (int index = 0; index < numberOfLinkSegments; ++index) {
+      final String xmlId = input.readString();
+      final String externalId = input.readString();
+      final MacroscopicLink parentLink = links[input.readInt()];
+      final MacroscopicLinkSegment linkSegment = layer.getLinkSegments().getFactory().registerNew(parentLink, input.readBoolean(), true /* register on link */);
+      linkSegment.setXmlId(xmlId);
+      linkSegment.setExternalId(externalId);
+      final int linkSegmentTypeIndex = input.readInt();
+      if (linkSegmentTypeIndex != PlanitBinarySnapshotFormat.NONE) {
+        linkSegment.setLinkSegmentType(linkSegmentTypes[linkSegmentTypeIndex]);
+      }
+      linkSegment.setNumberOfLanes(input.readInt());
+      linkSegment.setPhysicalSpeedLimitKmH(input.readDouble());
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings          to use
+   * @param networkToPopulate network to register the snapshot contents on, expected to be empty
+   */
+  public PlanitBinaryNetworkReader(final PlanitBinaryReaderSettings settings, final MacroscopicNetwork networkToPopulate) {
+    super();
+    this.settings = settings;
+    this.network = networkToPopulate;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param inputFile snapshot to read
+   * @param idToken   to create the network with
+   */
+  public PlanitBinaryNetworkReader(final String inputFile, final IdGroupingToken idToken) {
+    this(new PlanitBinaryReaderSettings(inputFile), new MacroscopicNetwork(idToken));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MacroscopicNetwork read() {
+    PlanItRunTimeException.throwIfNull(settings.getInputFile(), "PLANit binary network snapshot file not set");
+    PlanItRunTimeException.throwIf(!network.getTransportLayers().isEmpty(), "Network to populate from PLANit binary snapshot is expected to be empty");
+
+    PlanitBinarySnapshotInput input;
+    try {
+      input = new PlanitBinarySnapshotInput(Paths.get(settings.getInputFile()), PlanitBinarySnapshotFormat.NETWORK_SNAPSHOT);
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItRunTimeException(String.format("Unable to read PLANit binary network snapshot %s", settings.getInputFile()));
+    }
+
+    network.setXmlId(input.readString());
+    network.setExternalId(input.readString());
+    network.setCoordinateReferenceSystem(readCoordinateReferenceSystem(input));
+    final Mode[] modes = readModes(input);
+
+    final int numberOfLayers = input.readInt();
+    for (int layerIndex = 0; layerIndex < numberOfLayers; ++layerIndex) {
+      final MacroscopicNetworkLayer layer = network.getTransportLayers().getFactory().registerNew();
+      layer.setXmlId(input.readString());
+      layer.setExternalId(input.readString());
+      final int numberOfSupportedModes = input.readInt();
+      for (int modeIndex = 0; modeIndex < numberOfSupportedModes; ++modeIndex) {
+        layer.registerSupportedMode(modes[input.readInt()]);
+      }
+      final var linkSegmentTypes = readLinkSegmentTypes(input, layer, modes);
+      final var nodes = readNodes(input, layer);
+      final var links = readLinks(input, layer, nodes);
+      readLinkSegments(input, layer, links, linkSegmentTypes);
+    }
+
+    LOGGER.info(String.format("Read PLANit binary network snapshot %s", settings.getInputFile()));
+    return network;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryReaderSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    settings.reset();
+  }
+
+}
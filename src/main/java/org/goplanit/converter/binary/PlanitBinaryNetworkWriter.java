@@ -0,0 +1,275 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.goplanit.converter.BaseWriterImpl;
+import org.goplanit.converter.idmapping.IdMapperType;
+import org.goplanit.converter.idmapping.PlanitComponentIdMapper;
+import org.goplanit.converter.network.NetworkWriter;
+import org.goplanit.network.LayeredNetwork;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.ManagedId;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedMode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.AccessGroupProperties;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Writes a macroscopic network to a PLANit binary snapshot, see {@link PlanitBinarySnapshotFormat}. Modes, layers, link segment types, nodes, links and link segments are
+ * persisted including their xml and external ids. Input properties are not persisted.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryNetworkWriter extends BaseWriterImpl<LayeredNetwork<?, ?>> implements NetworkWriter {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryNetworkWriter.class.getCanonicalName());
+
+  /** settings to use */
+  private final PlanitBinaryWriterSettings settings;
+
+  /**
+   * Create position of each entity in iteration order by its id
+   *
+   * @param entities to index
+   * @return position by id
+   */
+  static Map<Long, Integer> createPositionsById(final Iterable<? extends ManagedId> entities) {
+    Map<Long, Integer> positionsById = new HashMap<>();
+    for (var entity : entities) {
+      positionsById.put(entity.getId(), positionsById.size());
+    }
+    return positionsById;
+  }
+
+  /**
+   * Write the coordinate reference system as well known text
+   *
+   * @param output to write to
+   * @param crs    to write, may be null
+   * @throws IOException thrown if error
+   */
+  static void writeCoordinateReferenceSystem(final PlanitBinarySnapshotOutput output, final CoordinateReferenceSystem crs) throws IOException {
+    output.writeString(crs == null ? null : crs.toWKT());
+  }
+
+  /**
+   * Write the modes of the network
+   *
+   * @param network to write modes of
+   * @param output  to write to
+   * @throws IOException thrown if error
+   */
+  private void writeModes(final MacroscopicNetwork network, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeInt((int) network.getModes().size());
+    for (Mode mode : network.getModes()) {
+      output.writeString(mode.getXmlId());
+      output.writeString(mode.getExternalId());
+      output.writeBoolean(mode.isPredefinedModeType());
+      if (mode.isPredefinedModeType()) {
+        output.writeEnum(((PredefinedMode) mode).getPredefinedModeType());
+        continue;
+      }
+      output.writeString(mode.getName());
+      output.writeDouble(mode.getMaximumSpeedKmH());
+      output.writeDouble(mode.getPcu());
+      output.writeEnum(mode.getPhysicalFeatures().getVehicularType());
+      output.writeEnum(mode.getPhysicalFeatures().getMotorisationType());
+      output.writeEnum(mode.getPhysicalFeatures().getTrackType());
+      output.writeEnum(mode.getUseFeatures().getUseOfType());
+    }
+  }
+
+  /**
+   * Write the link segment types of a layer including their access groups
+   *
+   * @param layer          to write link segment types of
+   * @param modePositions  position of each mode by its id
+   * @param output         to write to
+   * @throws IOException thrown if error
+   */
+  private void writeLinkSegmentTypes(final MacroscopicNetworkLayer layer, final Map<Long, Integer> modePositions, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeInt((int) layer.getLinkSegmentTypes().size());
+    for (MacroscopicLinkSegmentType linkSegmentType : layer.getLinkSegmentTypes()) {
+      output.writeString(linkSegmentType.getXmlId());
+      output.writeString(linkSegmentType.getExternalId());
+      output.writeString(linkSegmentType.getName());
+      output.writeNullableDouble(linkSegmentType.getExplicitCapacityPerLane());
+      output.writeNullableDouble(linkSegmentType.getExplicitMaximumDensityPerLane());
+
+      /* access groups are shared by modes, so persist each group once */
+      Map<AccessGroupProperties, Boolean> accessGroups = new IdentityHashMap<>();
+      for (Mode mode : linkSegmentType.getAllowedModes()) {
+        accessGroups.put(linkSegmentType.getAccessProperties(mode), Boolean.TRUE);
+      }
+      output.writeInt(accessGroups.size());
+      for (AccessGroupProperties accessGroup : accessGroups.keySet()) {
+        output.writeNullableDouble(accessGroup.getMaximumSpeedKmH());
+        output.writeNullableDouble(accessGroup.getCriticalSpeedKmH());
+        output.writeInt(accessGroup.getAccessModes().size());
+        for (Mode mode : accessGroup.getAccessModes()) {
+          output.writeInt(modePositions.get(mode.getId()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the nodes of a layer
+   *
+   * @param layer  to write nodes of
+   * @param output to write to
+   * @throws IOException thrown if error
+   */
+  private void writeNodes(final MacroscopicNetworkLayer layer, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeInt((int) layer.getNodes().size());
+    for (Node node : layer.getNodes()) {
+      output.writeString(node.getXmlId());
+      output.writeString(node.getExternalId());
+      output.writeString(node.getName());
+      output.writeBoolean(node.hasPosition());
+      if (node.hasPosition()) {
+        output.writeDouble(node.getPosition().getX());
+        output.writeDouble(node.getPosition().getY());
+      }
+    }
+  }
+
+  /**
+   * Write the links of a layer
+   *
+   * @param layer         to write links of
+   * @param nodePositions position of each node by its id
+   * @param output        to write to
+   * @throws IOException thrown if error
+   */
+  private void writeLinks(final MacroscopicNetworkLayer layer, final Map<Long, Integer> nodePositions, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeInt((int) layer.getLinks().size());
+    for (MacroscopicLink link : layer.getLinks()) {
+      output.writeString(link.getXmlId());
+      output.writeString(link.getExternalId());
+      output.writeString(link.getName());
+      output.writeInt(nodePositions.get(link.getNodeA().getId()));
+      output.writeInt(nodePositions.get(link.getNodeB().getId()));
+      output.writeDouble(link.getLengthKm());
+      output.writeCoordinates(link.hasGeometry() ? link.getGeometry().getCoordinates() : null);
+    }
+  }
+
+  /**
+   * Write the link segments of a layer
+   *
+   * @param layer                    to write link segments of
+   * @param linkPositions            position of each link by its id
+   * @param linkSegmentTypePositions position of each link segment type by its id
+   * @param output                   to write to
+   * @throws IOException thrown if error
+   */
+  private void writeLinkSegments(final MacroscopicNetworkLayer layer, final Map<Long, Integer> linkPositions, final Map<Long, Integer> linkSegmentTypePositions,
+      final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeInt((int) layer.getLinkSegments().size());
+    for (MacroscopicLinkSegment linkSegment : layer.getLinkSegments()) {
+      output.writeString(linkSegment.getXmlId());
+      output.writeString(linkSegment.getExternalId());
+      output.writeInt(linkPositions.get(linkSegment.getParentLink().getId()));
+      output.writeBoolean(linkSegment.isDirectionAb());
+      output.writeInt(linkSegment.getLinkSegmentType() == null ? PlanitBinarySnapshotFormat.NONE : linkSegmentTypePositions.get(linkSegment.getLinkSegmentType().getId()));
+      output.writeInt(linkSegment.getNumberOfLanes());
+      output.writeDouble(linkSegment.getPhysicalSpeedLimitKmH());
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings to use
+   */
+  public PlanitBinaryNetworkWriter(final PlanitBinaryWriterSettings settings) {
+    super(IdMapperType.ID);
+    this.settings = settings;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputDirectory to write to
+   * @param fileName        of the snapshot
+   */
+  public PlanitBinaryNetworkWriter(final String outputDirectory, final String fileName) {
+    this(new PlanitBinaryWriterSettings(outputDirectory, fileName));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final LayeredNetwork<?, ?> network) throws PlanItException {
+    PlanItException.throwIf(!(network instanceof MacroscopicNetwork), "PLANit binary network writer only supports macroscopic networks");
+    PlanItException.throwIf(!settings.validate(), "PLANit binary network writer settings invalid, unable to write snapshot");
+    final MacroscopicNetwork macroscopicNetwork = (MacroscopicNetwork) network;
+
+    try (var output = new PlanitBinarySnapshotOutput(settings.getOutputFile(), PlanitBinarySnapshotFormat.NETWORK_SNAPSHOT)) {
+      output.writeString(macroscopicNetwork.getXmlId());
+      output.writeString(macroscopicNetwork.getExternalId());
+      writeCoordinateReferenceSystem(output, macroscopicNetwork.getCoordinateReferenceSystem());
+      writeModes(macroscopicNetwork, output);
+
+      final var modePositions = createPositionsById(macroscopicNetwork.getModes());
+      output.writeInt((int) macroscopicNetwork.getTransportLayers().size());
+      for (MacroscopicNetworkLayer layer : macroscopicNetwork.getTransportLayers()) {
+        output.writeString(layer.getXmlId());
+        output.writeString(layer.getExternalId());
+        output.writeInt((int) layer.getSupportedModes().size());
+        for (Mode mode : layer.getSupportedModes()) {
+          output.writeInt(modePositions.get(mode.getId()));
+        }
+        writeLinkSegmentTypes(layer, modePositions, output);
+        writeNodes(layer, output);
+        writeLinks(layer, createPositionsById(layer.getNodes()), output);
+        writeLinkSegments(layer, createPositionsById(layer.getLinks()), createPositionsById(layer.getLinkSegmentTypes()), output);
+      }
+      output.markComplete();
+    } catch (IOException e) {
+      throw new PlanItException(String.format("Unable to write PLANit binary network snapshot %s", settings.getOutputFile()), e);
+    }
+
+    getComponentIdMappers().populateMissingIdMappers(getIdMapperType());
+    LOGGER.info(String.format("Persisted PLANit binary network snapshot %s", settings.getOutputFile()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitComponentIdMapper getPrimaryIdMapper() {
+    return getComponentIdMappers().getNetworkIdMappers();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryWriterSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    settings.reset();
+  }
+
+}
@@ -0,0 +1,70 @@
+package org.goplanit.converter.binary;
+
+import java.util.logging.Logger;
+
+import org.goplanit.converter.ConverterReaderSettings;
+
+/**
+ * Settings of the PLANit binary snapshot readers
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryReaderSettings implements ConverterReaderSettings {
+
+  /** logger to use */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryReaderSettings.class.getCanonicalName());
+
+  /** snapshot file to read */
+  private String inputFile = null;
+
+  /**
+   * Default constructor
+   */
+  public PlanitBinaryReaderSettings() {
+  }
+
+  /**
+   * Constructor
+   *
+   * @param inputFile snapshot file to read
+   */
+  public PlanitBinaryReaderSettings(final String inputFile) {
+    this.inputFile = inputFile;
+  }
+
+  /**
+   * Collect the snapshot file to read
+   *
+   * @return snapshot file
+   */
+  public String getInputFile() {
+    return inputFile;
+  }
+
+  /**
+   * Set the snapshot file to read
+   *
+   * @param inputFile to read
+   */
+  public void setInputFile(final String inputFile) {
+    this.inputFile = inputFile;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    inputFile = null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void logSettings() {
+    LOGGER.info(String.format("PLANit binary snapshot: %s", inputFile));
+  }
+
+}
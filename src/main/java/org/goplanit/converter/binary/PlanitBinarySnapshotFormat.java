@@ -0,0 +1,49 @@
+package org.goplanit.converter.binary;
+
+/**
+ * Constants of the versioned PLANit binary snapshot format. A snapshot file consists of a fixed size header, a body of primitive sections and a trailing string table:
+ * <ul>
+ * <li>header: magic number (int), format version (int), snapshot type (int), byte offset of the string table (long)</li>
+ * <li>body: type specific sections, each starting with its number of entries (int), strings are stored as an index (int) into the string table, -1 for null,
+ * nullable doubles as a presence flag (byte) followed by the value (double) when present</li>
+ * <li>string table: number of strings (int), followed by the length (int) and UTF-8 bytes of each string</li>
+ * </ul>
+ * Entities referring to other entities, within or across snapshots, do so by the position of the referenced entity in its container (in id order) rather than its id, so
+ * snapshots can be read into containers that use a different id grouping token than the one used when writing.
+ *
+ * @author markr
+ *
+ */
+public final class PlanitBinarySnapshotFormat {
+
+  /** magic number identifying a PLANit binary snapshot ("PLNB") */
+  public static final int MAGIC = 0x504C4E42;
+
+  /** current format version, to be incremented on any change in layout */
+  public static final int VERSION = 2;
+
+  /** byte position of the string table offset in the header */
+  public static final int STRING_TABLE_OFFSET_POSITION = 12;
+
+  /** index used for null strings and absent references */
+  public static final int NONE = -1;
+
+  /** snapshot type of a network snapshot */
+  public static final int NETWORK_SNAPSHOT = 1;
+
+  /** snapshot type of a zoning snapshot */
+  public static final int ZONING_SNAPSHOT = 2;
+
+  /** snapshot type of a demands snapshot */
+  public static final int DEMANDS_SNAPSHOT = 3;
+
+  /** default file extension of snapshots */
+  public static final String DEFAULT_FILE_EXTENSION = ".planitbin";
+
+  /**
+   * Not to be instantiated
+   */
+  private PlanitBinarySnapshotFormat() {
+  }
+
+}
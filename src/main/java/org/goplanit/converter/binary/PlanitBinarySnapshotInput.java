@@ -0,0 +1,168 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Reads a single PLANit binary snapshot file, see {@link PlanitBinarySnapshotFormat}. The file is memory mapped, so no intermediate copies are made of its contents. The string
+ * table is resolved upfront after which the body can be read sequentially. Mapped files are limited to 2GB.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinarySnapshotInput {
+
+  /** the mapped file contents */
+  private final MappedByteBuffer buffer;
+
+  /** the resolved string table */
+  private final String[] strings;
+
+  /**
+   * Constructor, maps the file, validates its header and resolves its string table
+   *
+   * @param file                 to read
+   * @param expectedSnapshotType type of snapshot expected, see {@link PlanitBinarySnapshotFormat}
+   * @throws IOException thrown if error
+   */
+  public PlanitBinarySnapshotInput(final Path file, final int expectedSnapshotType) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new PlanItRunTimeException(String.format("PLANit binary snapshot %s exceeds maximum size of 2GB", file));
+      }
+      /* mapping remains valid after closing the channel */
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    if (buffer.getInt() != PlanitBinarySnapshotFormat.MAGIC) {
+      throw new PlanItRunTimeException(String.format("File %s is not a PLANit binary snapshot", file));
+    }
+    int version = buffer.getInt();
+    if (version != PlanitBinarySnapshotFormat.VERSION) {
+      throw new PlanItRunTimeException(
+          String.format("PLANit binary snapshot %s has version %d, only version %d is supported", file, version, PlanitBinarySnapshotFormat.VERSION));
+    }
+    int snapshotType = buffer.getInt();
+    if (snapshotType != expectedSnapshotType) {
+      throw new PlanItRunTimeException(String.format("PLANit binary snapshot %s is of type %d, expected type %d", file, snapshotType, expectedSnapshotType));
+    }
+    long stringTableOffset = buffer.getLong();
+    int bodyPosition = buffer.position();
+
+    buffer.position((int) stringTableOffset);
+    this.strings = new String[buffer.getInt()];
+    for (int index = 0; index < strings.length; ++index) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      strings[index] = new String(bytes, StandardCharsets.UTF_8);
+    }
+    buffer.position(bodyPosition);
+  }
+
+  /**
+   * Read an int
+   *
+   * @return value
+   */
+  public int readInt() {
+    return buffer.getInt();
+  }
+
+  /**
+   * Read a long
+   *
+   * @return value
+   */
+  public long readLong() {
+    return buffer.getLong();
+  }
+
+  /**
+   * Read a double
+   *
+   * @return value
+   */
+  public double readDouble() {
+    return buffer.getDouble();
+  }
+
+  /**
+   * Read a nullable double, preceded by its presence flag
+   *
+   * @return value, may be null
+   */
+  public Double readNullableDouble() {
+    return readBoolean() ? buffer.getDouble() : null;
+  }
+
+  /**
+   * Read a boolean
+   *
+   * @return value
+   */
+  public boolean readBoolean() {
+    return buffer.get() != 0;
+  }
+
+  /**
+   * Read a string via its index in the string table
+   *
+   * @return value, may be null
+   */
+  public String readString() {
+    int index = buffer.getInt();
+    return index == PlanitBinarySnapshotFormat.NONE ? null : strings[index];
+  }
+
+  /**
+   * Read an enum by its name
+   *
+   * @param <E>       type of enum
+   * @param enumClass class of the enum
+   * @return value, may be null
+   */
+  public <E extends Enum<E>> E readEnum(final Class<E> enumClass) {
+    String name = readString();
+    return name == null ? null : Enum.valueOf(enumClass, name);
+  }
+
+  /**
+   * Read coordinates
+   *
+   * @return coordinates, null when none are present
+   */
+  public Coordinate[] readCoordinates() {
+    int numberOfCoordinates = buffer.getInt();
+    if (numberOfCoordinates == 0) {
+      return null;
+    }
+    Coordinate[] coordinates = new Coordinate[numberOfCoordinates];
+    for (int index = 0; index < numberOfCoordinates; ++index) {
+      coordinates[index] = new Coordinate(buffer.getDouble(), buffer.getDouble());
+    }
+    return coordinates;
+  }
+
+  /**
+   * Read bytes
+   *
+   * @return bytes, null when none are present
+   */
+  public byte[] readBytes() {
+    int numberOfBytes = buffer.getInt();
+    if (numberOfBytes == 0) {
+      return null;
+    }
+    byte[] bytes = new byte[numberOfBytes];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+}
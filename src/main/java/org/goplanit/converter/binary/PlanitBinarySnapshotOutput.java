@@ -0,0 +1,242 @@
+package org.goplanit.converter.binary;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Writes a single PLANit binary snapshot file, see {@link PlanitBinarySnapshotFormat}. Strings are deduplicated into the string table which is appended upon {@link #close()},
+ * after which its offset is patched into the header. Only snapshots marked complete via {@link #markComplete()} are finalised upon closing, otherwise writing is considered to
+ * have failed and the partially written file is deleted.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinarySnapshotOutput implements Closeable {
+
+  /** size of the write buffer in bytes */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** the snapshot file */
+  private final Path file;
+
+  /** channel of the snapshot file */
+  private final FileChannel channel;
+
+  /** buffered stream on top of the channel */
+  private final DataOutputStream out;
+
+  /** index of each string in the string table */
+  private final Map<String, Integer> stringIndices = new HashMap<>();
+
+  /** strings of the string table in order of their index */
+  private final List<String> strings = new ArrayList<>();
+
+  /** flag indicating all contents have been written */
+  private boolean complete = false;
+
+  /**
+   * Constructor, creates (or truncates) the file and writes the header
+   *
+   * @param file         to write to
+   * @param snapshotType type of snapshot, see {@link PlanitBinarySnapshotFormat}
+   * @throws IOException thrown if error
+   */
+  public PlanitBinarySnapshotOutput(final Path file, final int snapshotType) throws IOException {
+    this.file = file;
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+    out.writeInt(PlanitBinarySnapshotFormat.MAGIC);
+    out.writeInt(PlanitBinarySnapshotFormat.VERSION);
+    out.writeInt(snapshotType);
+    /* string table offset, patched upon closing */
+    out.writeLong(0L);
+  }
+
+  /**
+   * Write an int
+   *
+   * @param value to write
+   * @throws IOException thrown if error
+   */
+  public void writeInt(final int value) throws IOException {
+    out.writeInt(value);
+  }
+
+  /**
+   * Write a long
+   *
+   * @param value to write
+   * @throws IOException thrown if error
+   */
+  public void writeLong(final long value) throws IOException {
+    out.writeLong(value);
+  }
+
+  /**
+   * Write a double
+   *
+   * @param value to write
+   * @throws IOException thrown if error
+   */
+  public void writeDouble(final double value) throws IOException {
+    out.writeDouble(value);
+  }
+
+  /**
+   * Write a nullable double as a presence flag, followed by its value when present
+   *
+   * @param value to write, may be null
+   * @throws IOException thrown if error
+   */
+  public void writeNullableDouble(final Double value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeDouble(value);
+    }
+  }
+
+  /**
+   * Write a boolean
+   *
+   * @param value to write
+   * @throws IOException thrown if error
+   */
+  public void writeBoolean(final boolean value) throws IOException {
+    out.writeBoolean(value);
+  }
+
+  /**
+   * Write a string as its index in the string table
+   *
+   * @param value to write, may be null
+   * @throws IOException thrown if error
+   */
+  public void writeString(final String value) throws IOException {
+    if (value == null) {
+      out.writeInt(PlanitBinarySnapshotFormat.NONE);
+      return;
+    }
+    Integer index = stringIndices.get(value);
+    if (index == null) {
+      index = strings.size();
+      strings.add(value);
+      stringIndices.put(value, index);
+    }
+    out.writeInt(index);
+  }
+
+  /**
+   * Write an enum by its name
+   *
+   * @param value to write, may be null
+   * @throws IOException thrown if error
+   */
+  public void writeEnum(final Enum<?> value) throws IOException {
+    writeString(value == null ? null : value.name());
+  }
+
+  /**
+   * Write the number of coordinates followed by their x and y values
+   *
+   * @param coordinates to write, null is written as no coordinates
+   * @throws IOException thrown if error
+   */
+  public void writeCoordinates(final Coordinate[] coordinates) throws IOException {
+    if (coordinates == null) {
+      out.writeInt(0);
+      return;
+    }
+    out.writeInt(coordinates.length);
+    for (Coordinate coordinate : coordinates) {
+      out.writeDouble(coordinate.x);
+      out.writeDouble(coordinate.y);
+    }
+  }
+
+  /**
+   * Write the length of the bytes followed by the bytes themselves
+   *
+   * @param bytes to write, null is written as no bytes
+   * @throws IOException thrown if error
+   */
+  public void writeBytes(final byte[] bytes) throws IOException {
+    if (bytes == null) {
+      out.writeInt(0);
+      return;
+    }
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Mark all contents as written, so the snapshot is finalised upon {@link #close()}
+   */
+  public void markComplete() {
+    this.complete = true;
+  }
+
+  /**
+   * Verify if the snapshot is marked complete
+   *
+   * @return true when complete, false otherwise
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * When marked complete, append the string table, patch its offset into the header and close the file. Otherwise close and delete the partially written file
+   *
+   * @throws IOException thrown if error
+   */
+  @Override
+  public void close() throws IOException {
+    if (!complete) {
+      try {
+        out.close();
+      } finally {
+        Files.deleteIfExists(file);
+      }
+      return;
+    }
+
+    boolean finalised = false;
+    try {
+      out.flush();
+      final long stringTableOffset = channel.position();
+      out.writeInt(strings.size());
+      for (String string : strings) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+      out.flush();
+
+      ByteBuffer offsetBuffer = ByteBuffer.allocate(Long.BYTES).putLong(stringTableOffset);
+      offsetBuffer.flip();
+      channel.write(offsetBuffer, PlanitBinarySnapshotFormat.STRING_TABLE_OFFSET_POSITION);
+      finalised = true;
+    } finally {
+      out.close();
+      if (!finalised) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+}
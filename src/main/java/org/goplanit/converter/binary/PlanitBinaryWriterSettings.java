@@ -0,0 +1,51 @@
+package org.goplanit.converter.binary;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.goplanit.converter.SingleFileBasedConverterWriterSettings;
+
+/**
+ * Settings of the PLANit binary snapshot writers. Snapshots are always written in the coordinate reference system of the entity being written, so destination country and
+ * coordinate reference system are ignored
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryWriterSettings extends SingleFileBasedConverterWriterSettings {
+
+  /**
+   * Default constructor
+   */
+  public PlanitBinaryWriterSettings() {
+    super();
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputPathDirectory to use
+   * @param fileName            to use
+   */
+  public PlanitBinaryWriterSettings(final String outputPathDirectory, final String fileName) {
+    super(outputPathDirectory, fileName, DEFAULT_COUNTRY);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean validate() {
+    return super.validate();
+  }
+
+  /**
+   * Collect the full path of the snapshot file
+   *
+   * @return path to the snapshot file
+   */
+  public Path getOutputFile() {
+    return Paths.get(getOutputDirectory(), getFileName());
+  }
+
+}
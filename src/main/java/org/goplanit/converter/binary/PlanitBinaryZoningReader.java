@@ -0,0 +1,263 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.converter.BaseReaderImpl;
+import org.goplanit.converter.zoning.ZoningReader;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.zoning.Connectoid;
+import org.goplanit.utils.zoning.ConnectoidType;
+import org.goplanit.utils.zoning.TransferZone;
+import org.goplanit.utils.zoning.TransferZoneType;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+/**
+ * Reads a zoning from a PLANit binary snapshot created by {@link PlanitBinaryZoningWriter}. Connectoids are attached to the nodes and link segments of the reference network,
+ * which is expected to be the same network the snapshot was written against, for example as read via {@link PlanitBinaryNetworkReader}.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryZoningReader extends BaseReaderImpl<Zoning> implements ZoningReader {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryZoningReader.class.getCanonicalName());
+
+  /** settings to use */
+  private final PlanitBinaryReaderSettings settings;
+
+  /** network the zoning's connectoids refer to */
+  private final MacroscopicNetwork referenceNetwork;
+
+  /** zoning to populate */
+  private final Zoning zoning;
+
+  /** geometry factory to use */
+  private final GeometryFactory geometryFactory = JTSFactoryFinder.getGeometryFactory();
+
+  /**
+   * Collect the entities of each layer of the reference network by position
+   *
+   * @param <T>           type of entity
+   * @param layerEntities entities of a layer to collect
+   * @return entities by layer index and position
+   */
+  private <T> List<List<T>> collectLayerEntities(final Function<MacroscopicNetworkLayer, Iterable<T>> layerEntities) {
+    final List<List<T>> entities = new ArrayList<>();
+    for (MacroscopicNetworkLayer layer : referenceNetwork.getTransportLayers()) {
+      final List<T> entitiesOfLayer = new ArrayList<>();
+      layerEntities.apply(layer).forEach(entitiesOfLayer::add);
+      entities.add(entitiesOfLayer);
+    }
+    return entities;
+  }
+
+  /**
+   * Collect the modes of a network by position
+   *
+   * @param network to collect modes of
+   * @return modes by position
+   */
+  static Mode[] collectModes(final MacroscopicNetwork network) {
+    final Mode[] modes = new Mode[(int) network.getModes().size()];
+    int index = 0;
+    for (Mode mode : network.getModes()) {
+      modes[index++] = mode;
+    }
+    return modes;
+  }
+
+  /**
+   * Read the zone information shared by od and transfer zones onto the given zone
+   *
+   * @param input     to read from
+   * @param zone      to populate
+   * @param wkbReader to parse geometries with
+   */
+  private void readZone(final PlanitBinarySnapshotInput input, final Zone zone, final WKBReader wkbReader) {
+    zone.setXmlId(input.readString());
+    zone.setExternalId(input.readString());
+    zone.setName(input.readString());
+    final byte[] geometry = input.readBytes();
+    if (geometry != null) {
+      try {
+        zone.setGeometry(wkbReader.read(geometry));
+      } catch (ParseException e) {
+        LOGGER.severe(e.getMessage());
+        throw new PlanItRunTimeException(String.format("Unable to parse geometry of zone %s in PLANit binary zoning snapshot", zone.getXmlId()));
+      }
+    }
+    final String centroidName = input.readString();
+    final boolean hasCentroidPosition = input.readBoolean();
+    final var centroid = zone.getCentroid();
+    centroid.setName(centroidName);
+    if (hasCentroidPosition) {
+      centroid.setPosition(geometryFactory.createPoint(new Coordinate(input.readDouble(), input.readDouble())));
+    }
+  }
+
+  /**
+   * Read the connectoid information shared by directed and undirected connectoids onto the given connectoid
+   *
+   * @param input         to read from
+   * @param connectoid    to populate
+   * @param odZones       by position
+   * @param transferZones by position
+   * @param modes         by position
+   */
+  private void readConnectoid(final PlanitBinarySnapshotInput input, final Connectoid connectoid, final Zone[] odZones, final Zone[] transferZones, final Mode[] modes) {
+    connectoid.setXmlId(input.readString());
+    connectoid.setExternalId(input.readString());
+    connectoid.setName(input.readString());
+    final ConnectoidType type = input.readEnum(ConnectoidType.class);
+    if (type != null) {
+      connectoid.setType(type);
+    }
+    final int numberOfAccessZones = input.readInt();
+    for (int index = 0; index < numberOfAccessZones; ++index) {
+      final boolean isOdZone = input.readBoolean();
+      final Zone accessZone = (isOdZone ? odZones : transferZones)[input.readInt()];
+      connectoid.addAccessZone(accessZone);
+      connectoid.setLength(accessZone, input.readDouble());
+      final int numberOfAllowedModes = input.readInt();
+      for (int modeIndex = 0; modeIndex < numberOfAllowedModes; ++modeIndex) {
+        connectoid.addAllowedMode(accessZone, modes[input.readInt()]);
+      }
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings         to use
+   * @param referenceNetwork network the zoning's connectoids refer to
+   * @param zoningToPopulate zoning to register the snapshot contents on, expected to be empty
+   */
+  public PlanitBinaryZoningReader(final PlanitBinaryReaderSettings settings, final MacroscopicNetwork referenceNetwork, final Zoning zoningToPopulate) {
+    super();
+    this.settings = settings;
+    this.referenceNetwork = referenceNetwork;
+    this.zoning = zoningToPopulate;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param inputFile        snapshot to read
+   * @param referenceNetwork network the zoning's connectoids refer to
+   * @param idToken          to create the zoning with
+   */
+  public PlanitBinaryZoningReader(final String inputFile, final MacroscopicNetwork referenceNetwork, final IdGroupingToken idToken) {
+    this(new PlanitBinaryReaderSettings(inputFile), referenceNetwork, new Zoning(idToken, referenceNetwork.getNetworkGroupingTokenId()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Zoning read() {
+    PlanItRunTimeException.throwIfNull(settings.getInputFile(), "PLANit binary zoning snapshot file not set");
+    PlanItRunTimeException.throwIfNull(referenceNetwork, "PLANit binary zoning reader requires reference network");
+
+    PlanitBinarySnapshotInput input;
+    try {
+      input = new PlanitBinarySnapshotInput(Paths.get(settings.getInputFile()), PlanitBinarySnapshotFormat.ZONING_SNAPSHOT);
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItRunTimeException(String.format("Unable to read PLANit binary zoning snapshot %s", settings.getInputFile()));
+    }
+
+    final Mode[] modes = collectModes(referenceNetwork);
+    final var wkbReader = new WKBReader(geometryFactory);
+
+    zoning.setXmlId(input.readString());
+    zoning.setExternalId(input.readString());
+    zoning.setCoordinateReferenceSystem(PlanitBinaryNetworkReader.readCoordinateReferenceSystem(input));
+
+    final Zone[] odZones = new Zone[input.readInt()];
+    for (int index = 0; index < odZones.length; ++index) {
+      odZones[index] = zoning.getOdZones().getFactory().registerNew();
+      readZone(input, odZones[index], wkbReader);
+    }
+
+    final TransferZone[] transferZones = new TransferZone[input.readInt()];
+    for (int index = 0; index < transferZones.length; ++index) {
+      transferZones[index] = zoning.getTransferZones().getFactory().registerNew();
+      readZone(input, transferZones[index], wkbReader);
+      final TransferZoneType type = input.readEnum(TransferZoneType.class);
+      if (type != null) {
+        transferZones[index].setType(type);
+      }
+      final int numberOfPlatformNames = input.readInt();
+      for (int platformIndex = 0; platformIndex < numberOfPlatformNames; ++platformIndex) {
+        transferZones[index].addTransferZonePlatformName(input.readString());
+      }
+    }
+
+    final int numberOfTransferZoneGroups = input.readInt();
+    for (int index = 0; index < numberOfTransferZoneGroups; ++index) {
+      final var transferZoneGroup = zoning.getTransferZoneGroups().getFactory().registerNew();
+      transferZoneGroup.setXmlId(input.readString());
+      transferZoneGroup.setExternalId(input.readString());
+      transferZoneGroup.setName(input.readString());
+      final int numberOfTransferZones = input.readInt();
+      for (int zoneIndex = 0; zoneIndex < numberOfTransferZones; ++zoneIndex) {
+        transferZoneGroup.addTransferZone(transferZones[input.readInt()]);
+      }
+    }
+
+    final List<List<Node>> nodes = collectLayerEntities(layer -> layer.getNodes());
+    final int numberOfOdConnectoids = input.readInt();
+    for (int index = 0; index < numberOfOdConnectoids; ++index) {
+      final Node accessNode = nodes.get(input.readInt()).get(input.readInt());
+      final var connectoid = zoning.getOdConnectoids().getFactory().registerNew(accessNode);
+      readConnectoid(input, connectoid, odZones, transferZones, modes);
+    }
+
+    final List<List<MacroscopicLinkSegment>> linkSegments = collectLayerEntities(layer -> layer.getLinkSegments());
+    final int numberOfTransferConnectoids = input.readInt();
+    for (int index = 0; index < numberOfTransferConnectoids; ++index) {
+      final MacroscopicLinkSegment accessLinkSegment = linkSegments.get(input.readInt()).get(input.readInt());
+      final var connectoid = zoning.getTransferConnectoids().getFactory().registerNew(input.readBoolean(), accessLinkSegment);
+      readConnectoid(input, connectoid, odZones, transferZones, modes);
+    }
+
+    LOGGER.info(String.format("Read PLANit binary zoning snapshot %s", settings.getInputFile()));
+    return zoning;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryReaderSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    super.reset();
+    settings.reset();
+  }
+
+}
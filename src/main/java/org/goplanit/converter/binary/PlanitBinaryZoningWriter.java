@@ -0,0 +1,245 @@
+package org.goplanit.converter.binary;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.goplanit.converter.BaseWriterImpl;
+import org.goplanit.converter.idmapping.IdMapperType;
+import org.goplanit.converter.idmapping.PlanitComponentIdMapper;
+import org.goplanit.converter.zoning.ZoningWriter;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.ManagedId;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.zoning.Connectoid;
+import org.goplanit.utils.zoning.DirectedConnectoid;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.TransferZone;
+import org.goplanit.utils.zoning.TransferZoneGroup;
+import org.goplanit.utils.zoning.UndirectedConnectoid;
+import org.goplanit.utils.zoning.Zone;
+import org.goplanit.zoning.Zoning;
+import org.locationtech.jts.io.WKBWriter;
+
+/**
+ * Writes a zoning to a PLANit binary snapshot, see {@link PlanitBinarySnapshotFormat}. Access nodes and link segments of connectoids are persisted by their layer and position
+ * within the reference network, so the snapshot can only be read against the same network. Zone geometries are persisted as well known binary. Input properties are not
+ * persisted.
+ *
+ * @author markr
+ *
+ */
+public class PlanitBinaryZoningWriter extends BaseWriterImpl<Zoning> implements ZoningWriter {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(PlanitBinaryZoningWriter.class.getCanonicalName());
+
+  /** settings to use */
+  private final PlanitBinaryWriterSettings settings;
+
+  /** network the zoning's connectoids refer to */
+  private final MacroscopicNetwork referenceNetwork;
+
+  /**
+   * Create the layer index and position within the layer of each entity by its id
+   *
+   * @param layerEntities entities of a layer to index
+   * @return layer index and position by id
+   */
+  private Map<Long, int[]> createLayerPositionsById(final Function<MacroscopicNetworkLayer, Iterable<? extends ManagedId>> layerEntities) {
+    final Map<Long, int[]> layerPositionsById = new HashMap<>();
+    int layerIndex = 0;
+    for (MacroscopicNetworkLayer layer : referenceNetwork.getTransportLayers()) {
+      int position = 0;
+      for (var entity : layerEntities.apply(layer)) {
+        layerPositionsById.put(entity.getId(), new int[] { layerIndex, position++ });
+      }
+      ++layerIndex;
+    }
+    return layerPositionsById;
+  }
+
+  /**
+   * Write the zones of a container, except for their type specific information
+   *
+   * @param zone      to write
+   * @param wkbWriter to persist geometries with
+   * @param output    to write to
+   * @throws IOException thrown if error
+   */
+  private void writeZone(final Zone zone, final WKBWriter wkbWriter, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeString(zone.getXmlId());
+    output.writeString(zone.getExternalId());
+    output.writeString(zone.getName());
+    output.writeBytes(zone.getGeometry() == null ? null : wkbWriter.write(zone.getGeometry()));
+    final var centroid = zone.getCentroid();
+    output.writeString(centroid == null ? null : centroid.getName());
+    output.writeBoolean(centroid != null && centroid.getPosition() != null);
+    if (centroid != null && centroid.getPosition() != null) {
+      output.writeDouble(centroid.getPosition().getX());
+      output.writeDouble(centroid.getPosition().getY());
+    }
+  }
+
+  /**
+   * Write the connectoid information shared by directed and undirected connectoids, i.e., ids, name, type and access zones
+   *
+   * @param connectoid             to write
+   * @param odZonePositions        position of each od zone by its id
+   * @param transferZonePositions  position of each transfer zone by its id
+   * @param modePositions          position of each mode by its id
+   * @param output                 to write to
+   * @throws IOException thrown if error
+   */
+  private void writeConnectoid(final Connectoid connectoid, final Map<Long, Integer> odZonePositions, final Map<Long, Integer> transferZonePositions,
+      final Map<Long, Integer> modePositions, final PlanitBinarySnapshotOutput output) throws IOException {
+    output.writeString(connectoid.getXmlId());
+    output.writeString(connectoid.getExternalId());
+    output.writeString(connectoid.getName());
+    output.writeEnum(connectoid.getType());
+    output.writeInt(connectoid.getNumberOfAccessZones());
+    for (Zone accessZone : connectoid) {
+      final boolean isOdZone = accessZone instanceof OdZone;
+      output.writeBoolean(isOdZone);
+      output.writeInt((isOdZone ? odZonePositions : transferZonePositions).get(accessZone.getId()));
+      output.writeDouble(connectoid.getLengthKm(accessZone).orElse(Connectoid.DEFAULT_LENGTH_KM));
+      final Collection<Mode> allowedModes = connectoid.getExplicitlyAllowedModes(accessZone);
+      /* no explicitly allowed modes means all modes are allowed */
+      output.writeInt(allowedModes == null ? 0 : allowedModes.size());
+      if (allowedModes != null) {
+        for (Mode mode : allowedModes) {
+          output.writeInt(modePositions.get(mode.getId()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param settings         to use
+   * @param referenceNetwork network the zoning's connectoids refer to
+   */
+  public PlanitBinaryZoningWriter(final PlanitBinaryWriterSettings settings, final MacroscopicNetwork referenceNetwork) {
+    super(IdMapperType.ID);
+    this.settings = settings;
+    this.referenceNetwork = referenceNetwork;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputDirectory  to write to
+   * @param fileName         of the snapshot
+   * @param referenceNetwork network the zoning's connectoids refer to
+   */
+  public PlanitBinaryZoningWriter(final String outputDirectory, final String fileName, final MacroscopicNetwork referenceNetwork) {
+    this(new PlanitBinaryWriterSettings(outputDirectory, fileName), referenceNetwork);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final Zoning zoning) throws PlanItException {
+    PlanItException.throwIf(referenceNetwork == null, "PLANit binary zoning writer requires reference network");
+    PlanItException.throwIf(!settings.validate(), "PLANit binary zoning writer settings invalid, unable to write snapshot");
+
+    final var odZonePositions = PlanitBinaryNetworkWriter.createPositionsById(zoning.getOdZones());
+    final var transferZonePositions = PlanitBinaryNetworkWriter.createPositionsById(zoning.getTransferZones());
+    final var modePositions = PlanitBinaryNetworkWriter.createPositionsById(referenceNetwork.getModes());
+    final var wkbWriter = new WKBWriter();
+
+    try (var output = new PlanitBinarySnapshotOutput(settings.getOutputFile(), PlanitBinarySnapshotFormat.ZONING_SNAPSHOT)) {
+      output.writeString(zoning.getXmlId());
+      output.writeString(zoning.getExternalId());
+      PlanitBinaryNetworkWriter.writeCoordinateReferenceSystem(output, zoning.getCoordinateReferenceSystem());
+
+      output.writeInt((int) zoning.getOdZones().size());
+      for (OdZone odZone : zoning.getOdZones()) {
+        writeZone(odZone, wkbWriter, output);
+      }
+
+      output.writeInt((int) zoning.getTransferZones().size());
+      for (TransferZone transferZone : zoning.getTransferZones()) {
+        writeZone(transferZone, wkbWriter, output);
+        output.writeEnum(transferZone.getTransferZoneType());
+        final var platformNames = transferZone.getTransferZonePlatformNames();
+        output.writeInt(platformNames == null ? 0 : platformNames.size());
+        if (platformNames != null) {
+          for (String platformName : platformNames) {
+            output.writeString(platformName);
+          }
+        }
+      }
+
+      output.writeInt((int) zoning.getTransferZoneGroups().size());
+      for (TransferZoneGroup transferZoneGroup : zoning.getTransferZoneGroups()) {
+        output.writeString(transferZoneGroup.getXmlId());
+        output.writeString(transferZoneGroup.getExternalId());
+        output.writeString(transferZoneGroup.getName());
+        output.writeInt(transferZoneGroup.size());
+        for (TransferZone transferZone : transferZoneGroup) {
+          output.writeInt(transferZonePositions.get(transferZone.getId()));
+        }
+      }
+
+      final var nodePositions = createLayerPositionsById(layer -> layer.getNodes());
+      output.writeInt((int) zoning.getOdConnectoids().size());
+      for (UndirectedConnectoid connectoid : zoning.getOdConnectoids()) {
+        final int[] nodePosition = nodePositions.get(connectoid.getAccessVertex().getId());
+        PlanItException.throwIf(nodePosition == null, "Access node of connectoid %s not present in reference network", connectoid.getXmlId());
+        output.writeInt(nodePosition[0]);
+        output.writeInt(nodePosition[1]);
+        writeConnectoid(connectoid, odZonePositions, transferZonePositions, modePositions, output);
+      }
+
+      final var linkSegmentPositions = createLayerPositionsById(layer -> layer.getLinkSegments());
+      output.writeInt((int) zoning.getTransferConnectoids().size());
+      for (DirectedConnectoid connectoid : zoning.getTransferConnectoids()) {
+        final int[] linkSegmentPosition = linkSegmentPositions.get(connectoid.getAccessLinkSegment().getId());
+        PlanItException.throwIf(linkSegmentPosition == null, "Access link segment of connectoid %s not present in reference network", connectoid.getXmlId());
+        output.writeInt(linkSegmentPosition[0]);
+        output.writeInt(linkSegmentPosition[1]);
+        output.writeBoolean(connectoid.isNodeAccessDownstream());
+        writeConnectoid(connectoid, odZonePositions, transferZonePositions, modePositions, output);
+      }
+      output.markComplete();
+    } catch (IOException e) {
+      throw new PlanItException(String.format("Unable to write PLANit binary zoning snapshot %s", settings.getOutputFile()), e);
+    }
+
+    getComponentIdMappers().populateMissingIdMappers(getIdMapperType());
+    LOGGER.info(String.format("Persisted PLANit binary zoning snapshot %s", settings.getOutputFile()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitComponentIdMapper getPrimaryIdMapper() {
+    return getComponentIdMappers().getZoningIdMappers();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public PlanitBinaryWriterSettings getSettings() {
+    return settings;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void reset() {
+    settings.reset();
+  }
+
+}
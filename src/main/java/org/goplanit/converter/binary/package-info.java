@@ -0,0 +1,4 @@
+/**
+ * Readers and writers of PLANit binary snapshots, a compact versioned binary format for networks, zonings and demands
+ */
+package org.goplanit.converter.binary;
@@ -2,6 +2,9 @@ package org.goplanit.converter.demands;
 
 import org.goplanit.converter.ConverterReader;
 import org.goplanit.demands.Demands;
+import org.goplanit.od.demand.OdDemandSparseMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.utils.zoning.OdZones;
 import org.goplanit.zoning.Zoning;
 
 /**
@@ -21,6 +24,18 @@ public interface DemandsReader extends ConverterReader<Demands> {
    */
   public abstract Zoning getReferenceZoning();
 
+  /**
+   * Create the container readers populate directly with the parsed od demands of a mode and time period before registering it via
+   * {@link Demands#registerOdDemandPcuHour(org.goplanit.utils.time.TimePeriod, org.goplanit.utils.mode.Mode, OdDemands)}. By default a sparse container is created so memory
+   * and iteration cost are proportional to the number of non-zero od pairs found in the source, rather than the number of zones squared
+   *
+   * @param odZones the od zones the demands relate to
+   * @return empty od demands container
+   */
+  public default OdDemands createOdDemands(OdZones odZones) {
+    return new OdDemandSparseMatrix(odZones);
+  }
+
   /**
    * {@inheritDoc}
    */
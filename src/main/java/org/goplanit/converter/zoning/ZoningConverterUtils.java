@@ -3,6 +3,8 @@ package org.goplanit.converter.zoning;
 import java.util.*;
 import java.util.function.Function;
 
+import org.goplanit.network.layer.macroscopic.MacroscopicLinkSpatialIndex;
+import org.goplanit.network.layer.macroscopic.MacroscopicNetworkLayerImpl;
 import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.geo.PlanitEntityGeoUtils;
 import org.goplanit.utils.geo.PlanitGraphGeoUtils;
@@ -14,6 +16,7 @@ import org.goplanit.utils.misc.IterableUtils;
 import org.goplanit.utils.misc.Pair;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.mode.TrackModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
 import org.goplanit.utils.network.layer.physical.LinkSegment;
@@ -26,6 +29,7 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.LineSegment;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.linearref.LinearLocation;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
 
 /**
  * Utilities regarding Zoning conversions that might be useful for implementations supporting the mapping of
@@ -36,6 +40,21 @@ import org.locationtech.jts.linearref.LinearLocation;
  */
 public class ZoningConverterUtils {
 
+  /** distance in meters within which links are collected from the spatial index as candidates to break at a node */
+  private static final double BREAK_LINK_SEARCH_DISTANCE_METERS = 1;
+
+  /** Collect the spatial index owned by the layer
+   *
+   * @param layer to collect index from, must be a {@link MacroscopicNetworkLayerImpl}
+   * @param geoUtils to use when the index is (re)built
+   * @return the layer's up to date link spatial index
+   */
+  private static MacroscopicLinkSpatialIndex getLinkSpatialIndex(final MacroscopicNetworkLayer layer, final PlanitJtsCrsUtils geoUtils) {
+    PlanItRunTimeException.throwIf(!(layer instanceof MacroscopicNetworkLayerImpl),
+        "Spatial link queries require layer %s to be a %s", layer.getXmlId(), MacroscopicNetworkLayerImpl.class.getSimpleName());
+    return ((MacroscopicNetworkLayerImpl) layer).getLinkSpatialIndex(geoUtils);
+  }
+
   /** Verify if based on passed in parameters either of the two overrides is active
    *
    * @param waitingAreaSourceId these link segments pertain to
@@ -278,6 +297,27 @@ public class ZoningConverterUtils {
     return Pair.of(closestLink,entriesRemoved);
   }
 
+  /**
+   * Same as {@link #excludeClosestLinksIncrementallyOnWrongSideOf(Geometry, Collection, boolean, Collection, PlanitJtsCrsUtils)} except that the candidate links are collected
+   * from the layer's spatial index rather than by the caller scanning all links of the layer
+   *
+   * @param location to verify against, typically a transfer zone location
+   * @param layer to collect candidate links from via its spatial index
+   * @param searchDistanceMeters maximum distance in meters of candidate links to the location
+   * @param isLeftHandDrive network driving direction
+   * @param accessModes for the location
+   * @param geoUtils to use
+   * @return pair with remaining closest link found (null if none) and boolean indicating if any closest links were removed before finding a compatible closest link
+   */
+  public static Pair<MacroscopicLink,Boolean> excludeClosestLinksIncrementallyOnWrongSideOf(
+      Geometry location, MacroscopicNetworkLayer layer, double searchDistanceMeters, boolean isLeftHandDrive, Collection<? extends Mode> accessModes, PlanitJtsCrsUtils geoUtils) {
+    Collection<MacroscopicLink> candidateLinks = new HashSet<>(getLinkSpatialIndex(layer, geoUtils).findLinksWithinDistance(location, searchDistanceMeters));
+    if(candidateLinks.isEmpty()){
+      return Pair.of(null, false);
+    }
+    return excludeClosestLinksIncrementallyOnWrongSideOf(location, candidateLinks, isLeftHandDrive, accessModes, geoUtils);
+  }
+
   // Same as node based version, only now we do not know yet which node is our reference node, so we consider both as options
   public static Collection<? extends LinkSegment> findAccessLinkSegmentsForWaitingArea(
       String waitingAreaSourceId,
@@ -307,6 +347,48 @@ public class ZoningConverterUtils {
     return accessLinkSegments;
   }
 
+  /**
+   * Same as {@link #findAccessLinkSegmentsForWaitingArea(String, Geometry, MacroscopicLink, String, Mode, String, boolean, Function, Function, PlanitJtsCrsUtils)} except that
+   * the access link is not nominated by the caller. Instead, all links within the search distance of the waiting area are collected from the layer's spatial index and considered
+   *
+   * @param waitingAreaSourceId these link segments pertain to
+   * @param waitingAreaGeometry these link segments pertain to
+   * @param layer to collect candidate access links from via its spatial index
+   * @param searchDistanceMeters maximum distance in meters of candidate access links to the waiting area
+   * @param getAccessLinkSourceId function that provides the source id of a candidate access link
+   * @param accessMode eligible access mode
+   * @param countryName we are considering from which we will extract whether it is a left or right hand drive country
+   * @param mustAvoidCrossingTraffic flag indicating if cross traffic should be avoided for the access link segments that are deemed eligible
+   * @param getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId mapping from waiting area source id to nominated access link source id, may be null
+   * @param getOverwrittenWaitingAreaSourceId function that provides the overwritten waiting area source id for a given access node, maybe return null if not overwritten
+   * @param geoUtils to use
+   * @return found link segments across all candidate access links that are deemed valid given the constraints, empty if none
+   */
+  public static Collection<LinkSegment> findAccessLinkSegmentsForWaitingArea(
+      String waitingAreaSourceId,
+      Geometry waitingAreaGeometry,
+      MacroscopicNetworkLayer layer,
+      double searchDistanceMeters,
+      Function<MacroscopicLink,String> getAccessLinkSourceId,
+      Mode accessMode,
+      String countryName,
+      boolean mustAvoidCrossingTraffic,
+      Function<String,String> getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId,
+      Function<Node,String> getOverwrittenWaitingAreaSourceId,
+      PlanitJtsCrsUtils geoUtils) {
+
+    Collection<LinkSegment> accessLinkSegments = new ArrayList<>();
+    for(MacroscopicLink candidateLink : getLinkSpatialIndex(layer, geoUtils).findLinksWithinDistance(waitingAreaGeometry, searchDistanceMeters)){
+      var candidateAccessLinkSegments = findAccessLinkSegmentsForWaitingArea(waitingAreaSourceId, waitingAreaGeometry, candidateLink,
+          getAccessLinkSourceId.apply(candidateLink), accessMode, countryName, mustAvoidCrossingTraffic, getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId,
+          getOverwrittenWaitingAreaSourceId, geoUtils);
+      if(candidateAccessLinkSegments!=null){
+        accessLinkSegments.addAll(candidateAccessLinkSegments);
+      }
+    }
+    return accessLinkSegments;
+  }
+
   /** Find the link segments that are accessible for the given access link, node, mode combination taking into account the relative location of the transfer zone if needed and
    * mode compatibility.
    *
@@ -666,6 +748,86 @@ public class ZoningConverterUtils {
     return connectoidLocation;
   }
 
+  /** Same as {@link #findConnectoidLocationForWaitingAreaOnLinkSegment(String, Geometry, MacroscopicLinkSegment, String, Mode, double, Function, Function, Function, String, PlanitJtsCrsUtils)}
+   * except that the access link segment is not nominated by the caller. Instead, the links within the maximum allowed distance of the waiting area are collected from the layer's
+   * spatial index and tried from closest to furthest, considering each of their link segments that allow the access mode, until a valid connectoid location is found
+   *
+   * @param waitingAreaSourceId supplies a relevant source id of the waiting area in question to use for exceptions or logging when needed
+   * @param waitingAreaGeometry to find location for
+   * @param layer to collect candidate access links from via its spatial index
+   * @param getAccessLinkSourceId function that provides the source id of a candidate access link
+   * @param accessMode to be compatible with
+   * @param maxAllowedDistanceMeters the maximum allowed distance between stop and waiting area that we allow
+   * @param getOverwrittenWaitingAreaSourceIdForNode function that provides the overwritten waiting area source id for a given access node, maybe return null if not overwritten
+   * @param getOverwrittenWaitingAreaSourceIdForPoint function that provides the overwritten waiting area source id for a given access node, maybe return null if not overwritten
+   * @param getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId mapping from waiting area source id to nominated access link source id, may be null
+   * @param countryName to extract driving direction from
+   * @param geoUtils gis functionality to apply in finding connectoid location
+   * @return pair of chosen access link segment and found location on it, null if no valid location could be found on any candidate link segment
+   */
+  public static Pair<MacroscopicLinkSegment, Point> findConnectoidLocationForWaitingAreaOnLinkSegment(
+      String waitingAreaSourceId,
+      final Geometry waitingAreaGeometry,
+      final MacroscopicNetworkLayer layer,
+      final Function<MacroscopicLink,String> getAccessLinkSourceId,
+      final Mode accessMode,
+      double maxAllowedDistanceMeters,
+      final Function<Node,String> getOverwrittenWaitingAreaSourceIdForNode,
+      final Function<Point,String> getOverwrittenWaitingAreaSourceIdForPoint,
+      final Function<String,String> getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId,
+      String countryName,
+      final PlanitJtsCrsUtils geoUtils) {
+
+    Collection<MacroscopicLink> candidateLinks = new HashSet<>(getLinkSpatialIndex(layer, geoUtils).findLinksWithinDistance(waitingAreaGeometry, maxAllowedDistanceMeters));
+    while(!candidateLinks.isEmpty()){
+      var closestLink = (MacroscopicLink) PlanitGraphGeoUtils.findEdgeClosest(waitingAreaGeometry, candidateLinks, geoUtils);
+      for(boolean directionAb : new boolean[]{true, false}){
+        var accessLinkSegment = (MacroscopicLinkSegment) (directionAb ? closestLink.getEdgeSegmentAb() : closestLink.getEdgeSegmentBa());
+        if(accessLinkSegment == null || !accessLinkSegment.isModeAllowed(accessMode)){
+          continue;
+        }
+        Point connectoidLocation = findConnectoidLocationForWaitingAreaOnLinkSegment(waitingAreaSourceId, waitingAreaGeometry, accessLinkSegment,
+            getAccessLinkSourceId.apply(closestLink), accessMode, maxAllowedDistanceMeters, getOverwrittenWaitingAreaSourceIdForNode, getOverwrittenWaitingAreaSourceIdForPoint,
+            getOverwrittenAccessLinkSourceIdForWaitingAreaSourceId, countryName, geoUtils);
+        if(connectoidLocation != null){
+          return Pair.of(accessLinkSegment, connectoidLocation);
+        }
+      }
+      candidateLinks.remove(closestLink);
+    }
+    return null;
+  }
+
+  /** Break all links that have the position of the given node as an internal coordinate of their geometry at that node, for example after creating a node at a connectoid location
+   * found internal to a link. Candidate links are collected from the layer's spatial index rather than by scanning all links of the layer. Since the index is registered on the
+   * layer modifier it is updated for the broken links automatically
+   *
+   * @param nodeToBreakAt node to break at, must have a position
+   * @param layer the links reside on
+   * @param crs to use to recompute the lengths of the broken links
+   * @param geoUtils to use when the layer's spatial index is (re)built, based on the same crs
+   * @return the broken links for each original link's internal id, empty if no link has been broken
+   */
+  public static Map<Long, Pair<MacroscopicLink, MacroscopicLink>> breakLinksAt(
+      final Node nodeToBreakAt, final MacroscopicNetworkLayer layer, final CoordinateReferenceSystem crs, final PlanitJtsCrsUtils geoUtils) {
+    PlanItRunTimeException.throwIf(!nodeToBreakAt.hasPosition(), "Unable to break links at node %s without position", nodeToBreakAt.getXmlId());
+
+    Coordinate breakCoordinate = nodeToBreakAt.getPosition().getCoordinate();
+    List<MacroscopicLink> linksToBreak = new ArrayList<>();
+    for(MacroscopicLink candidateLink : getLinkSpatialIndex(layer, geoUtils).findLinksWithinDistance(nodeToBreakAt.getPosition(), BREAK_LINK_SEARCH_DISTANCE_METERS)){
+      /* only internal coordinates can be broken at, extreme nodes are already shared */
+      int coordinateIndex = PlanitJtsUtils.getCoordinateIndexOf(breakCoordinate, candidateLink.getGeometry().getCoordinates());
+      if(coordinateIndex > 0 && coordinateIndex < candidateLink.getGeometry().getNumPoints()-1){
+        linksToBreak.add(candidateLink);
+      }
+    }
+    if(linksToBreak.isEmpty()){
+      return Collections.emptyMap();
+    }
+
+    return layer.getLayerModifier().breakAt(linksToBreak, nodeToBreakAt, crs);
+  }
+
   /** create directed connectoid for the link segment provided, all related to the given transfer zone and with access modes provided. When the link segment does not have any of the
    * passed in modes listed as allowed, no connectoid is created and null is returned
    *
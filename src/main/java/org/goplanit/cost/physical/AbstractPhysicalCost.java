@@ -5,6 +5,7 @@ import java.util.logging.Logger;
 
 import org.goplanit.component.PlanitComponent;
 import org.goplanit.network.LayeredNetwork;
+import org.goplanit.network.MacroscopicNetworkScenarioOverlay;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
@@ -26,6 +27,9 @@ public abstract class AbstractPhysicalCost extends PlanitComponent<AbstractPhysi
   /** Logger ot use */
   private static final Logger LOGGER = Logger.getLogger(AbstractPhysicalCost.class.getCanonicalName());
 
+  /** scenario overlay on the network to apply, null when the network is used as is */
+  protected MacroscopicNetworkScenarioOverlay scenarioOverlay = null;
+
   /**
    * @param groupId, contiguous id generation within this group for instances of this class
    */
@@ -41,6 +45,7 @@ public abstract class AbstractPhysicalCost extends PlanitComponent<AbstractPhysi
    */
   public AbstractPhysicalCost(AbstractPhysicalCost abstractPhysicalCost, boolean deepCopy) {
     super(abstractPhysicalCost, deepCopy);
+    this.scenarioOverlay = abstractPhysicalCost.scenarioOverlay;
   }
 
   /**
@@ -76,4 +81,31 @@ public abstract class AbstractPhysicalCost extends PlanitComponent<AbstractPhysi
    */
   public abstract void updateTimePeriod(final TimePeriod timePeriod);
 
+  /**
+   * Indicate whether this cost applies a scenario overlay. Default is false, costs that do override this method
+   *
+   * @return true when supported, false otherwise
+   */
+  public boolean isScenarioOverlaySupported() {
+    return false;
+  }
+
+  /**
+   * Set the scenario overlay to apply on the network upon initialisation. Only applied when {@link #isScenarioOverlaySupported()} is true
+   * 
+   * @param scenarioOverlay to apply, null to use the network as is
+   */
+  public void setScenarioOverlay(final MacroscopicNetworkScenarioOverlay scenarioOverlay) {
+    this.scenarioOverlay = scenarioOverlay;
+  }
+
+  /**
+   * Collect the scenario overlay to apply on the network
+   * 
+   * @return scenario overlay, null when none
+   */
+  public MacroscopicNetworkScenarioOverlay getScenarioOverlay() {
+    return scenarioOverlay;
+  }
+
 }
@@ -10,6 +10,7 @@ import org.goplanit.interactor.LinkVolumeAccessee;
 import org.goplanit.interactor.LinkVolumeAccessor;
 import org.goplanit.network.LayeredNetwork;
 import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentModeAccess;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.misc.Pair;
@@ -150,6 +151,36 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
    */
   protected double[][] freeFlowTravelTimePerLinkSegment = null;
 
+  /**
+   * Materialised mode access and capacities of the link segments of the layer, avoids consulting link segment types on each evaluation
+   */
+  protected MacroscopicLinkSegmentModeAccess linkSegmentModeAccess = null;
+
+  /**
+   * Snapshot of the mode access captured upon initialisation or the last time period update. All evaluations use this snapshot, so they remain consistent even when the
+   * (possibly shared) access is rebuilt by another assignment in the meantime
+   */
+  protected MacroscopicLinkSegmentModeAccess.Snapshot linkSegmentModeAccessSnapshot = null;
+
+  /**
+   * The layer this cost is initialised for
+   */
+  protected MacroscopicNetworkLayer networkLayer = null;
+
+  /**
+   * Capture the current snapshot of the materialised mode access and pull its free flow travel times for all modes supported by the layer. Modes not supported by the layer keep
+   * their (not allowed) free flow travel times. The snapshot's arrays are shared, not copied, since they are never modified
+   */
+  private void updateFreeFlowTravelTimes() {
+    linkSegmentModeAccessSnapshot = linkSegmentModeAccess.getSnapshot();
+    for (var mode : networkLayer.getSupportedModes()) {
+      var freeFlowTravelTimes = linkSegmentModeAccessSnapshot.getFreeFlowTravelTimesHour(mode);
+      if (freeFlowTravelTimes != null) {
+        freeFlowTravelTimePerLinkSegment[(int) mode.getId()] = freeFlowTravelTimes;
+      }
+    }
+  }
+
   /**
    * BPR function computation for. In case mode is nto allowed Double.MAX_VALUE is returned
    * 
@@ -159,14 +190,13 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
    * @return travel time in hours
    */
   protected double computeCostInHours(MacroscopicLinkSegment linkSegment, Mode mode, double flowPcuPerHour) {
-    if (!linkSegment.isModeAllowed(mode)) {
+    final int id = (int) linkSegment.getLinkSegmentId();
+    if (!linkSegmentModeAccessSnapshot.isModeAllowed(mode, id)) {
       return Double.MAX_VALUE;
     }
 
-    final int id = (int) linkSegment.getId();
-
     final double freeFlowTravelTime = freeFlowTravelTimePerLinkSegment[(int) mode.getId()][id];
-    final double capacity = linkSegment.getCapacityOrDefaultPcuH();
+    final double capacity = linkSegmentModeAccessSnapshot.getCapacitiesPcuH()[id];
 
     final Pair<Double, Double> alphaBetaParameters = bprParametersPerLinkSegment[id].getAlphaBetaParameters(mode);
     final double alpha = alphaBetaParameters.first();
@@ -226,9 +256,14 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
 
     // copy primitve values in container always
     this.freeFlowTravelTimePerLinkSegment = new double[other.freeFlowTravelTimePerLinkSegment.length][other.freeFlowTravelTimePerLinkSegment[0].length];
-    for(int index = 0 ; index < bprParametersPerLinkSegment.length ; ++index) {
+    for(int index = 0 ; index < freeFlowTravelTimePerLinkSegment.length ; ++index) {
       freeFlowTravelTimePerLinkSegment[index] = Arrays.copyOf(other.freeFlowTravelTimePerLinkSegment[index], other.freeFlowTravelTimePerLinkSegment[index].length);
     }
+
+    // derived from the shared layer, not owned
+    this.linkSegmentModeAccess = other.linkSegmentModeAccess;
+    this.linkSegmentModeAccessSnapshot = other.linkSegmentModeAccessSnapshot;
+    this.networkLayer = other.networkLayer;
   }
 
   /**
@@ -282,6 +317,14 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
     defaultParameters = Pair.of(alpha, beta);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isScenarioOverlaySupported() {
+    return true;
+  }
+
   /**
    * Register the BPR cost parameter values on the PhysicalNetwork
    *
@@ -298,11 +341,19 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
       LOGGER.warning("network wide modes do not match modes supported by only layer, this makes the assignment less efficient, consider removing unused modes");
     }
 
-    /* pre-compute the free flow travel times */
+    /* pre-compute the free flow travel times, materialised per mode on the layer for supported modes, with the scenario overlay applied if any */
+    this.networkLayer = networkLayer;
+    if (scenarioOverlay != null) {
+      this.linkSegmentModeAccess = scenarioOverlay.getLinkSegmentModeAccess(networkLayer);
+    } else {
+      this.linkSegmentModeAccess = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    }
+    /* modes not supported by the layer are not allowed on any link segment */
     freeFlowTravelTimePerLinkSegment = new double[network.getModes().size()][(int) networkLayer.getLinkSegments().size()];
-    for (var mode : network.getModes()) {
-      freeFlowTravelTimePerLinkSegment[(int) mode.getId()] = networkLayer.getLinkSegments().getFreeFlowTravelTimeHourPerLinkSegment(mode);
+    for (var freeFlowTravelTimes : freeFlowTravelTimePerLinkSegment) {
+      Arrays.fill(freeFlowTravelTimes, Double.MAX_VALUE);
     }
+    updateFreeFlowTravelTimes();
 
     /* explicitly set BPR parameters for each mode/segment combination */
     bprParametersPerLinkSegment = new BprParameters[(int) networkLayer.getLinkSegments().size()];
@@ -333,7 +384,19 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
    */
   @Override
   public void updateTimePeriod(TimePeriod timePeriod) {
-    // currently the settings for the BPR travel time are time period agnostic, so do nothing
+    // currently the settings for the BPR travel time are time period agnostic, only account for changes in link segment type access since initialisation
+    if (linkSegmentModeAccess == null) {
+      return;
+    }
+    if (scenarioOverlay != null) {
+      /* refresh via the overlay, so its delta is not modified while being applied */
+      scenarioOverlay.getLinkSegmentModeAccess(networkLayer);
+    } else {
+      linkSegmentModeAccess.refreshIfOutdated();
+    }
+    if (linkSegmentModeAccess.getSnapshot() != linkSegmentModeAccessSnapshot) {
+      updateFreeFlowTravelTimes();
+    }
   }
 
   /**
@@ -363,13 +426,13 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
    */
   @Override
   public double getDTravelTimeDFlow(boolean uncongested /* not used */ , final Mode mode, final MacroscopicLinkSegment linkSegment) {
-    if (!linkSegment.isModeAllowed(mode)) {
+    final int id = (int) linkSegment.getLinkSegmentId();
+    if (!linkSegmentModeAccessSnapshot.isModeAllowed(mode, id)) {
       return Double.MAX_VALUE;
     }
-    final int id = (int) linkSegment.getId();
 
     final double freeFlowTravelTime = freeFlowTravelTimePerLinkSegment[(int) mode.getId()][id];
-    final double capacity = linkSegment.getCapacityOrDefaultPcuH();
+    final double capacity = linkSegmentModeAccessSnapshot.getCapacitiesPcuH()[id];
 
     final Pair<Double, Double> alphaBetaParameters = bprParametersPerLinkSegment[id].getAlphaBetaParameters(mode);
     final double alpha = alphaBetaParameters.first();
@@ -435,6 +498,9 @@ public class BprLinkTravelTimeCost extends AbstractPhysicalCost implements LinkV
     // keep configuration, reset internal state
     this.freeFlowTravelTimePerLinkSegment = null;
     this.bprParametersPerLinkSegment = null;
+    this.linkSegmentModeAccess = null;
+    this.linkSegmentModeAccessSnapshot = null;
+    this.networkLayer = null;
   }
 
   /**
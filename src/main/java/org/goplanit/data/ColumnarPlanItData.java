@@ -0,0 +1,718 @@
+package org.goplanit.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.collections4.keyvalue.MultiKey;
+import org.goplanit.output.enums.DataType;
+import org.goplanit.output.formatter.OutputFormatter;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+
+/**
+ * Class which holds output property values (and keys) in a columnar fashion, i.e., one primitive array per output property, where each row is identified by a row index.
+ * <p>
+ * Rows are appended and optionally registered against a dense (entity) index, e.g., a link segment id, or a flattened origin-destination index. This allows typed access to
+ * individual values without boxing, using either the row index or the dense index. Access via (boxed) key values is supported as well, in which case a key index is lazily
+ * constructed on first use.
+ * </p>
+ * <p>
+ * When the range of the dense index is large compared to the number of rows, e.g., the flattened index of (possibly sparsely populated) origin-destination pairs, the index can be
+ * registered sparsely instead, see {@link #ColumnarPlanItData(OutputProperty[], OutputProperty[], int, boolean)}, so memory scales with the rows rather than the index range.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class ColumnarPlanItData {
+
+  /** initial capacity in number of rows when none is provided */
+  private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+  /** output properties of the keys */
+  private final OutputProperty[] outputKeyProperties;
+
+  /** output properties of the values */
+  private final OutputProperty[] outputValueProperties;
+
+  /** key columns, each entry is a primitive array (or String array) matching the data type of the key property */
+  private final Object[] keyColumns;
+
+  /** value columns, each entry is a primitive array (or String array) matching the data type of the value property */
+  private final Object[] valueColumns;
+
+  /** per value column, the rows for which the value was not specified, null when all values are specified */
+  private final BitSet[] notSpecifiedValues;
+
+  /** number of rows in use */
+  private int numberOfRows;
+
+  /** dense index to row index mapping, -1 when no row exists for the dense index, null when the index is registered sparsely */
+  private int[] rowByDenseIndex;
+
+  /** sparse indices in ascending order, only the first numberOfSparseIndices entries are in use, null unless the index is registered sparsely */
+  private long[] sparseIndices;
+
+  /** row index of each sparse index at the same position, null unless the index is registered sparsely */
+  private int[] rowBySparseIndex;
+
+  /** number of registered sparse indices */
+  private int numberOfSparseIndices;
+
+  /** lazily constructed key index used when rows are looked up via their (boxed) key values */
+  private Map<MultiKey<Object>, Integer> rowByKeyValues;
+
+  /**
+   * Create a primitive column for the given data type
+   *
+   * @param dataType of the column
+   * @param capacity of the column
+   * @return created column
+   */
+  private static Object createColumn(final DataType dataType, final int capacity) {
+    switch (dataType) {
+    case DOUBLE:
+      return new double[capacity];
+    case FLOAT:
+      return new float[capacity];
+    case INTEGER:
+      return new int[capacity];
+    case LONG:
+      return new long[capacity];
+    case BOOLEAN:
+      return new boolean[capacity];
+    default:
+      return new String[capacity];
+    }
+  }
+
+  /**
+   * Grow a column to the given capacity
+   *
+   * @param column   to grow
+   * @param capacity new capacity
+   * @return grown column
+   */
+  private static Object growColumn(final Object column, final int capacity) {
+    if (column instanceof double[]) {
+      return Arrays.copyOf((double[]) column, capacity);
+    } else if (column instanceof float[]) {
+      return Arrays.copyOf((float[]) column, capacity);
+    } else if (column instanceof int[]) {
+      return Arrays.copyOf((int[]) column, capacity);
+    } else if (column instanceof long[]) {
+      return Arrays.copyOf((long[]) column, capacity);
+    } else if (column instanceof boolean[]) {
+      return Arrays.copyOf((boolean[]) column, capacity);
+    }
+    return Arrays.copyOf((String[]) column, capacity);
+  }
+
+  /**
+   * Store a (boxed) value in a column, unboxing it in the process
+   *
+   * @param column to store in
+   * @param row    to store at
+   * @param value  to store
+   * @return true when stored, false when the value is not compatible with the column
+   */
+  private static boolean setColumnValue(final Object column, final int row, final Object value) {
+    if (column instanceof String[]) {
+      /* textual columns accept any value, e.g., ids provided in numeric form, in their textual representation */
+      ((String[]) column)[row] = value == null ? null : value.toString();
+    } else if (column instanceof boolean[]) {
+      if (!(value instanceof Boolean)) {
+        return false;
+      }
+      ((boolean[]) column)[row] = (Boolean) value;
+    } else {
+      if (!(value instanceof Number)) {
+        return false;
+      }
+      Number number = (Number) value;
+      if (column instanceof double[]) {
+        ((double[]) column)[row] = number.doubleValue();
+      } else if (column instanceof float[]) {
+        ((float[]) column)[row] = number.floatValue();
+      } else if (column instanceof int[]) {
+        ((int[]) column)[row] = number.intValue();
+      } else {
+        ((long[]) column)[row] = number.longValue();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Collect a value from a column in boxed form
+   *
+   * @param column to collect from
+   * @param row    to collect
+   * @return boxed value
+   */
+  private static Object getColumnValue(final Object column, final int row) {
+    if (column instanceof double[]) {
+      return ((double[]) column)[row];
+    } else if (column instanceof float[]) {
+      return ((float[]) column)[row];
+    } else if (column instanceof int[]) {
+      return ((int[]) column)[row];
+    } else if (column instanceof long[]) {
+      return ((long[]) column)[row];
+    } else if (column instanceof boolean[]) {
+      return ((boolean[]) column)[row];
+    }
+    return ((String[]) column)[row];
+  }
+
+  /**
+   * Get the position of a property type in an output property array
+   *
+   * @param outputProperties the output property array
+   * @param outputProperty   the output property
+   * @return the position of the output property in the output property array
+   * @throws PlanItException thrown if the output property type is not in the output property array
+   */
+  private static int getPositionOfOutputProperty(final OutputProperty[] outputProperties, final OutputPropertyType outputProperty) throws PlanItException {
+    for (int i = 0; i < outputProperties.length; i++) {
+      if (outputProperties[i].getOutputPropertyType().equals(outputProperty)) {
+        return i;
+      }
+    }
+    throw new PlanItException(
+        "Tried to locate a property of type " + OutputProperty.of(outputProperty).getName() + " which has not been registered in ColumnarPlanItData");
+  }
+
+  /**
+   * Ensure all columns can hold at least the given number of rows
+   *
+   * @param requiredCapacity required number of rows
+   */
+  private void ensureRowCapacity(final int requiredCapacity) {
+    int currentCapacity = valueColumns.length > 0 ? java.lang.reflect.Array.getLength(valueColumns[0])
+        : (keyColumns.length > 0 ? java.lang.reflect.Array.getLength(keyColumns[0]) : Integer.MAX_VALUE);
+    if (requiredCapacity <= currentCapacity) {
+      return;
+    }
+    int newCapacity = Math.max(requiredCapacity, currentCapacity + (currentCapacity >> 1));
+    for (int index = 0; index < valueColumns.length; ++index) {
+      valueColumns[index] = growColumn(valueColumns[index], newCapacity);
+    }
+    for (int index = 0; index < keyColumns.length; ++index) {
+      keyColumns[index] = growColumn(keyColumns[index], newCapacity);
+    }
+  }
+
+  /**
+   * Register a row against a dense index
+   *
+   * @param denseIndex to register
+   * @param row        to register
+   */
+  private void registerDenseIndex(final long denseIndex, final int row) {
+    if (sparseIndices != null) {
+      registerSparseIndex(denseIndex, row);
+      return;
+    }
+    if (denseIndex >= Integer.MAX_VALUE) {
+      throw new PlanItRunTimeException(String.format("Dense index %d exceeds the range of a dense ColumnarPlanItData, register it sparsely instead", denseIndex));
+    }
+    if (denseIndex >= rowByDenseIndex.length) {
+      int oldLength = rowByDenseIndex.length;
+      rowByDenseIndex = Arrays.copyOf(rowByDenseIndex, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(denseIndex + 1, oldLength + (long) (oldLength >> 1))));
+      Arrays.fill(rowByDenseIndex, oldLength, rowByDenseIndex.length, -1);
+    }
+    rowByDenseIndex[(int) denseIndex] = row;
+  }
+
+  /**
+   * Register a row against a sparse index, keeping the sparse indices sorted. Rows are commonly added in ascending index order, in which case the index is appended
+   *
+   * @param sparseIndex to register
+   * @param row         to register
+   */
+  private void registerSparseIndex(final long sparseIndex, final int row) {
+    int position = numberOfSparseIndices;
+    if (numberOfSparseIndices > 0 && sparseIndices[numberOfSparseIndices - 1] >= sparseIndex) {
+      position = Arrays.binarySearch(sparseIndices, 0, numberOfSparseIndices, sparseIndex);
+      if (position >= 0) {
+        rowBySparseIndex[position] = row;
+        return;
+      }
+      position = -(position + 1);
+    }
+    if (numberOfSparseIndices == sparseIndices.length) {
+      int newCapacity = Math.max(DEFAULT_INITIAL_CAPACITY, sparseIndices.length + (sparseIndices.length >> 1));
+      sparseIndices = Arrays.copyOf(sparseIndices, newCapacity);
+      rowBySparseIndex = Arrays.copyOf(rowBySparseIndex, newCapacity);
+    }
+    if (position < numberOfSparseIndices) {
+      System.arraycopy(sparseIndices, position, sparseIndices, position + 1, numberOfSparseIndices - position);
+      System.arraycopy(rowBySparseIndex, position, rowBySparseIndex, position + 1, numberOfSparseIndices - position);
+    }
+    sparseIndices[position] = sparseIndex;
+    rowBySparseIndex[position] = row;
+    ++numberOfSparseIndices;
+  }
+
+  /**
+   * Construct the key index from the key columns
+   */
+  private void createKeyIndex() {
+    rowByKeyValues = new HashMap<MultiKey<Object>, Integer>(Math.max(DEFAULT_INITIAL_CAPACITY, (int) (numberOfRows / 0.75f) + 1));
+    for (int row = 0; row < numberOfRows; ++row) {
+      rowByKeyValues.put(new MultiKey<Object>(getKeyValues(row)), row);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputKeyProperties   OutputProperty types of keys
+   * @param outputValueProperties OutputProperty types of values
+   * @param initialCapacity       expected number of rows, used to avoid growing the columns while rows are added
+   */
+  public ColumnarPlanItData(final OutputProperty[] outputKeyProperties, final OutputProperty[] outputValueProperties, int initialCapacity) {
+    this(outputKeyProperties, outputValueProperties, initialCapacity, false);
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputKeyProperties   OutputProperty types of keys
+   * @param outputValueProperties OutputProperty types of values
+   * @param initialCapacity       expected number of rows, used to avoid growing the columns while rows are added
+   * @param sparseIndex           when true rows are registered against their index sparsely, i.e., memory scales with the number of rows rather than the range of the index
+   */
+  public ColumnarPlanItData(final OutputProperty[] outputKeyProperties, final OutputProperty[] outputValueProperties, int initialCapacity, boolean sparseIndex) {
+    this.outputKeyProperties = outputKeyProperties;
+    this.outputValueProperties = outputValueProperties;
+    int capacity = Math.max(initialCapacity, 1);
+
+    this.keyColumns = new Object[outputKeyProperties.length];
+    for (int index = 0; index < outputKeyProperties.length; ++index) {
+      keyColumns[index] = createColumn(outputKeyProperties[index].getDataType(), capacity);
+    }
+    this.valueColumns = new Object[outputValueProperties.length];
+    for (int index = 0; index < outputValueProperties.length; ++index) {
+      valueColumns[index] = createColumn(outputValueProperties[index].getDataType(), capacity);
+    }
+    this.notSpecifiedValues = new BitSet[outputValueProperties.length];
+    if (sparseIndex) {
+      this.sparseIndices = new long[capacity];
+      this.rowBySparseIndex = new int[capacity];
+      this.rowByDenseIndex = null;
+    } else {
+      this.sparseIndices = null;
+      this.rowBySparseIndex = null;
+      this.rowByDenseIndex = new int[capacity];
+      Arrays.fill(rowByDenseIndex, -1);
+    }
+    this.numberOfSparseIndices = 0;
+    this.numberOfRows = 0;
+    this.rowByKeyValues = null;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param outputKeyProperties   OutputProperty types of keys
+   * @param outputValueProperties OutputProperty types of values
+   */
+  public ColumnarPlanItData(final OutputProperty[] outputKeyProperties, final OutputProperty... outputValueProperties) {
+    this(outputKeyProperties, outputValueProperties, DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * Add a new (empty) row registered against the provided dense index. When a row already exists for the dense index it is reused instead.
+   *
+   * @param denseIndex the dense index, e.g. link segment id, to register the row for, negative when the row is not to be registered
+   * @return row index of the added row
+   */
+  public int addRow(final long denseIndex) {
+    final int existingRow = getRowIndex(denseIndex);
+    if (existingRow >= 0) {
+      return existingRow;
+    }
+    ensureRowCapacity(numberOfRows + 1);
+    final int row = numberOfRows++;
+    if (denseIndex >= 0) {
+      registerDenseIndex(denseIndex, row);
+    }
+    rowByKeyValues = null;
+    return row;
+  }
+
+  /**
+   * Puts the data values and key values into a row for the given dense index. Values are unboxed into their respective columns.
+   *
+   * @param denseIndex   the dense index, e.g. link segment id, to register the row for, negative when the row is not to be registered
+   * @param outputValues array storing the data values
+   * @param keyValues    array storing the key values to specify a row
+   * @return row index of the row
+   * @throws PlanItException thrown if there is an error
+   */
+  public int putRow(final long denseIndex, final Object[] outputValues, final Object... keyValues) throws PlanItException {
+    PlanItException.throwIf(keyValues.length != outputKeyProperties.length, "Wrong number of keys used in call to ColumnarPlanItData");
+    PlanItException.throwIf(outputValues.length != outputValueProperties.length, "Wrong number of property values used in call to ColumnarPlanItData");
+
+    final int row = addRow(denseIndex);
+    for (int index = 0; index < keyValues.length; ++index) {
+      PlanItException.throwIf(!setColumnValue(keyColumns[index], row, keyValues[index]), String.format("Key in position %d in putRow() is of the wrong type", index));
+    }
+    for (int index = 0; index < outputValues.length; ++index) {
+      setValue(index, row, outputValues[index]);
+    }
+    return row;
+  }
+
+  /**
+   * Set a (boxed) value for the given value column and row. The value is unboxed into its column
+   *
+   * @param valueColumn position of the value property
+   * @param row         to set
+   * @param value       to set, may be {@link OutputFormatter#NOT_SPECIFIED}, null is treated as not specified for non-textual columns
+   * @throws PlanItException thrown if the value is of the wrong type
+   */
+  public void setValue(final int valueColumn, final int row, final Object value) throws PlanItException {
+    if (OutputFormatter.NOT_SPECIFIED.equals(value) || (value == null && !(valueColumns[valueColumn] instanceof String[]))) {
+      if (notSpecifiedValues[valueColumn] == null) {
+        notSpecifiedValues[valueColumn] = new BitSet();
+      }
+      notSpecifiedValues[valueColumn].set(row);
+      return;
+    }
+    PlanItException.throwIf(!setColumnValue(valueColumns[valueColumn], row, value), String.format("Property %s in position %d in setValue() is of the wrong type (%s), expected %s",
+        outputValueProperties[valueColumn].getName(), valueColumn, value.getClass().getSimpleName(), outputValueProperties[valueColumn].getDataType()));
+    if (notSpecifiedValues[valueColumn] != null) {
+      notSpecifiedValues[valueColumn].clear(row);
+    }
+  }
+
+  /**
+   * Store a numeric value in a primitive column, casting it to the column's type
+   *
+   * @param column to store in
+   * @param row    to store at
+   * @param value  to store
+   */
+  private static void setColumnNumericValue(final Object column, final int row, final double value) {
+    if (column instanceof double[]) {
+      ((double[]) column)[row] = value;
+    } else if (column instanceof float[]) {
+      ((float[]) column)[row] = (float) value;
+    } else if (column instanceof int[]) {
+      ((int[]) column)[row] = (int) value;
+    } else {
+      ((long[]) column)[row] = (long) value;
+    }
+  }
+
+  /**
+   * Set a numeric value for the given value column and row, the value is cast to the type of the column and marked as specified
+   *
+   * @param valueColumn position of the value property, must be of type DOUBLE, FLOAT, INTEGER or LONG
+   * @param row         to set
+   * @param value       to set
+   */
+  public void setNumericValue(final int valueColumn, final int row, final double value) {
+    setColumnNumericValue(valueColumns[valueColumn], row, value);
+    if (notSpecifiedValues[valueColumn] != null) {
+      notSpecifiedValues[valueColumn].clear(row);
+    }
+  }
+
+  /**
+   * Set a numeric key for the given key column and row, the value is cast to the type of the column
+   *
+   * @param keyColumn position of the key property, must be of type DOUBLE, FLOAT, INTEGER or LONG
+   * @param row       to set
+   * @param value     to set
+   */
+  public void setNumericKey(final int keyColumn, final int row, final double value) {
+    setColumnNumericValue(keyColumns[keyColumn], row, value);
+    rowByKeyValues = null;
+  }
+
+  /**
+   * Set a (boxed) key for the given key column and row, the value is unboxed into its column
+   *
+   * @param keyColumn position of the key property
+   * @param row       to set
+   * @param value     to set
+   * @throws PlanItException thrown if the value is of the wrong type
+   */
+  public void setKey(final int keyColumn, final int row, final Object value) throws PlanItException {
+    PlanItException.throwIf(!setColumnValue(keyColumns[keyColumn], row, value), String.format("Key in position %d in setKey() is of the wrong type", keyColumn));
+    rowByKeyValues = null;
+  }
+
+  /**
+   * Set a double value for the given value column and row, the value is marked as specified
+   *
+   * @param valueColumn position of the value property, must be of type DOUBLE
+   * @param row         to set
+   * @param value       to set
+   */
+  public void setDouble(final int valueColumn, final int row, final double value) {
+    ((double[]) valueColumns[valueColumn])[row] = value;
+    if (notSpecifiedValues[valueColumn] != null) {
+      notSpecifiedValues[valueColumn].clear(row);
+    }
+  }
+
+  /**
+   * Set a long key value for the given key column and row
+   *
+   * @param keyColumn position of the key property, must be of type LONG
+   * @param row       to set
+   * @param value     to set
+   */
+  public void setLongKey(final int keyColumn, final int row, final long value) {
+    ((long[]) keyColumns[keyColumn])[row] = value;
+    rowByKeyValues = null;
+  }
+
+  /**
+   * Number of rows stored
+   *
+   * @return number of rows
+   */
+  public int getNumberOfRows() {
+    return numberOfRows;
+  }
+
+  /**
+   * Collect the row registered for the given dense index
+   *
+   * @param denseIndex to collect row for
+   * @return row index, -1 if not present
+   */
+  public int getRowIndex(final long denseIndex) {
+    if (denseIndex < 0) {
+      return -1;
+    }
+    if (sparseIndices != null) {
+      final int position = Arrays.binarySearch(sparseIndices, 0, numberOfSparseIndices, denseIndex);
+      return position < 0 ? -1 : rowBySparseIndex[position];
+    }
+    return denseIndex < rowByDenseIndex.length ? rowByDenseIndex[(int) denseIndex] : -1;
+  }
+
+  /**
+   * Collect the row matching the given key values. Relies on a lazily created key index, so prefer {@link #getRowIndex(long)} on hot paths
+   *
+   * @param keyValues to collect row for
+   * @return row index, -1 if not present
+   * @throws PlanItException thrown if the number of key values is incorrect
+   */
+  public int getRowIndexByKeys(final Object... keyValues) throws PlanItException {
+    PlanItException.throwIf(keyValues.length != outputKeyProperties.length, "Call to getRowIndexByKeys() has the wrong number of key values");
+    if (rowByKeyValues == null) {
+      createKeyIndex();
+    }
+    Integer row = rowByKeyValues.get(new MultiKey<Object>(keyValues.clone()));
+    return row == null ? -1 : row;
+  }
+
+  /**
+   * Indicates whether a value has been specified for the given value column and row
+   *
+   * @param valueColumn position of the value property
+   * @param row         to check
+   * @return true when specified, false otherwise
+   */
+  public boolean isValueSpecified(final int valueColumn, final int row) {
+    return notSpecifiedValues[valueColumn] == null || !notSpecifiedValues[valueColumn].get(row);
+  }
+
+  /**
+   * Typed access to a double value
+   *
+   * @param valueColumn position of the value property, must be of type DOUBLE
+   * @param row         to collect
+   * @return value
+   */
+  public double getDouble(final int valueColumn, final int row) {
+    return ((double[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Typed access to a float value
+   *
+   * @param valueColumn position of the value property, must be of type FLOAT
+   * @param row         to collect
+   * @return value
+   */
+  public float getFloat(final int valueColumn, final int row) {
+    return ((float[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Typed access to an integer value
+   *
+   * @param valueColumn position of the value property, must be of type INTEGER
+   * @param row         to collect
+   * @return value
+   */
+  public int getInt(final int valueColumn, final int row) {
+    return ((int[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Typed access to a long value
+   *
+   * @param valueColumn position of the value property, must be of type LONG
+   * @param row         to collect
+   * @return value
+   */
+  public long getLong(final int valueColumn, final int row) {
+    return ((long[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Typed access to a boolean value
+   *
+   * @param valueColumn position of the value property, must be of type BOOLEAN
+   * @param row         to collect
+   * @return value
+   */
+  public boolean getBoolean(final int valueColumn, final int row) {
+    return ((boolean[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Typed access to a String value
+   *
+   * @param valueColumn position of the value property, must be of type STRING or SRSNAME
+   * @param row         to collect
+   * @return value
+   */
+  public String getString(final int valueColumn, final int row) {
+    return ((String[]) valueColumns[valueColumn])[row];
+  }
+
+  /**
+   * Direct access to the underlying double column. Only the first {@link #getNumberOfRows()} entries are in use
+   *
+   * @param valueColumn position of the value property, must be of type DOUBLE
+   * @return underlying column
+   */
+  public double[] getDoubleColumn(final int valueColumn) {
+    return (double[]) valueColumns[valueColumn];
+  }
+
+  /**
+   * Collect a value in boxed form
+   *
+   * @param valueColumn position of the value property
+   * @param row         to collect
+   * @return value, {@link OutputFormatter#NOT_SPECIFIED} when not specified
+   */
+  public Object getValue(final int valueColumn, final int row) {
+    if (!isValueSpecified(valueColumn, row)) {
+      return OutputFormatter.NOT_SPECIFIED;
+    }
+    return getColumnValue(valueColumns[valueColumn], row);
+  }
+
+  /**
+   * Collect a key in boxed form
+   *
+   * @param keyColumn position of the key property
+   * @param row       to collect
+   * @return key value
+   */
+  public Object getKey(final int keyColumn, final int row) {
+    return getColumnValue(keyColumns[keyColumn], row);
+  }
+
+  /**
+   * Collect all values of a row in boxed form
+   *
+   * @param row to collect
+   * @return values
+   */
+  public Object[] getValues(final int row) {
+    Object[] values = new Object[valueColumns.length];
+    for (int index = 0; index < values.length; ++index) {
+      values[index] = getValue(index, row);
+    }
+    return values;
+  }
+
+  /**
+   * Collect all keys of a row in boxed form
+   *
+   * @param row to collect
+   * @return keys
+   */
+  public Object[] getKeyValues(final int row) {
+    Object[] keys = new Object[keyColumns.length];
+    for (int index = 0; index < keys.length; ++index) {
+      keys[index] = getKey(index, row);
+    }
+    return keys;
+  }
+
+  /**
+   * Get data value for a specified row (identified by its keys) and column
+   *
+   * @param outputProperty output property of the required column
+   * @param keyValues      array storing the key values
+   * @return the value of the specified cell, null if the row does not exist
+   * @throws PlanItException thrown if there is an error
+   */
+  public Object getRowValue(final OutputPropertyType outputProperty, final Object... keyValues) throws PlanItException {
+    final int row = getRowIndexByKeys(keyValues);
+    if (row < 0) {
+      return null;
+    }
+    return getValue(getPositionOfOutputValueProperty(outputProperty), row);
+  }
+
+  /**
+   * Get the position of a property type in the output values property array
+   *
+   * @param outputValueProperty the output value property
+   * @return the position of the output value property in the output values property array
+   * @throws PlanItException thrown if the output property type is not in the output values property array
+   */
+  public int getPositionOfOutputValueProperty(final OutputPropertyType outputValueProperty) throws PlanItException {
+    return getPositionOfOutputProperty(outputValueProperties, outputValueProperty);
+  }
+
+  /**
+   * Get the position of a property type in the output keys property array
+   *
+   * @param outputKeyProperty the output value property
+   * @return the position of the output key property in the output keys property array
+   * @throws PlanItException thrown if the output property type is not in the output keys property array
+   */
+  public int getPositionOfOutputKeyProperty(final OutputPropertyType outputKeyProperty) throws PlanItException {
+    return getPositionOfOutputProperty(outputKeyProperties, outputKeyProperty);
+  }
+
+  /**
+   * The output key properties
+   *
+   * @return output key properties
+   */
+  public OutputProperty[] getOutputKeyProperties() {
+    return outputKeyProperties;
+  }
+
+  /**
+   * The output value properties
+   *
+   * @return output value properties
+   */
+  public OutputProperty[] getOutputValueProperties() {
+    return outputValueProperties;
+  }
+
+}
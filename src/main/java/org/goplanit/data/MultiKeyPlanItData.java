@@ -17,8 +17,10 @@ import org.goplanit.utils.exceptions.PlanItException;
  * This class is a wrapper for the MultiKeyMap object which is a Map with multiple keys. This class has input and output methods which are specific to PlanIt output properties.
  * 
  * @author gman6028
+ * @deprecated memory output is stored in {@link ColumnarPlanItData}, which avoids boxing of individual values, use that instead
  *
  */
+@Deprecated
 public class MultiKeyPlanItData {
 
   private static final Logger LOGGER = Logger.getLogger(MultiKeyPlanItData.class.getCanonicalName());
@@ -316,4 +318,22 @@ public class MultiKeyPlanItData {
     return getPositionOfOutputProperty(outputKeyProperties, outputKeyProperty);
   }
 
+  /**
+   * The output key properties
+   *
+   * @return output key properties
+   */
+  public OutputProperty[] getOutputKeyProperties() {
+    return outputKeyProperties;
+  }
+
+  /**
+   * The output value properties
+   *
+   * @return output value properties
+   */
+  public OutputProperty[] getOutputValueProperties() {
+    return outputValueProperties;
+  }
+
 }
@@ -9,8 +9,10 @@ import org.apache.commons.collections4.map.MultiKeyMap;
  * Iterator which returns the keys and values for each row in a MultiKeyPlanItData object.
  * 
  * @author gman6028
+ * @deprecated memory output is stored in {@link ColumnarPlanItData}, which avoids boxing of individual values, use that instead
  *
  */
+@Deprecated
 public interface MultiKeyPlanItDataIterator extends Iterator<Object[]> {
 
   /**
@@ -9,8 +9,10 @@ import org.apache.commons.collections4.map.MultiKeyMap;
  * Implementation of the MultiKeyPlanItDataIterator interface
  * 
  * @author gman6028
+ * @deprecated memory output is stored in {@link ColumnarPlanItData}, which avoids boxing of individual values, use that instead
  *
  */
+@Deprecated
 public class MultiKeyPlanItDataIteratorImpl implements MultiKeyPlanItDataIterator {
 
   /**
@@ -10,6 +10,7 @@ import java.util.logging.Logger;
 
 import org.goplanit.component.PlanitComponent;
 import org.goplanit.demands.modifier.DemandsModifier;
+import org.goplanit.od.demand.OdDemandSparseMatrix;
 import org.goplanit.od.demand.OdDemands;
 import org.goplanit.userclass.TravellerType;
 import org.goplanit.userclass.UserClass;
@@ -142,7 +143,7 @@ public class Demands extends PlanitComponent<Demands> implements Serializable {
   }
 
   /**
-   * Register provided odDemand
+   * Register provided odDemand. Sparse od demands are expected to be fully populated at this point, their buffered entries are merged upon registration
    *
    * @param timePeriod       the time period for this origin-demand object
    * @param mode             the mode for this origin-demand object
@@ -150,6 +151,9 @@ public class Demands extends PlanitComponent<Demands> implements Serializable {
    * @return oldOdDemand if there already existed an odDemand for the given mode and time period, the overwritten entry is returned
    */
   public OdDemands registerOdDemandPcuHour(final TimePeriod timePeriod, final Mode mode, final OdDemands odDemandsPcuHour) {
+    if (odDemandsPcuHour instanceof OdDemandSparseMatrix) {
+      ((OdDemandSparseMatrix) odDemandsPcuHour).finalisePopulation();
+    }
     if (!odDemandsByTimePeriodAndMode.containsKey(timePeriod.getId())) {
       odDemandsByTimePeriodAndMode.put(timePeriod.getId(), new TreeMap<Mode, OdDemands>());
     }
@@ -0,0 +1,186 @@
+package org.goplanit.graph;
+
+import java.util.Arrays;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.graph.Edge;
+import org.goplanit.utils.graph.UntypedGraph;
+import org.goplanit.utils.graph.Vertex;
+
+/**
+ * Labels the (weakly) connected components of a graph in a single pass over its edges using union-find with union by size and path halving on arrays indexed by vertex id. Edge
+ * direction is ignored. Compared to traversing each component with object based frontiers this scales to graphs with millions of vertices and many small components.
+ * <p>
+ * Labels reflect the graph at the time of construction, they are not updated when the graph changes afterwards.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class GraphConnectedComponents {
+
+  /** flag for vertex ids not present in the graph */
+  private static final int NO_COMPONENT = -1;
+
+  /** component label by vertex id, NO_COMPONENT for ids not in use */
+  private final int[] componentByVertexId;
+
+  /** number of vertices per component */
+  private final int[] componentSizes;
+
+  /** component with the most vertices, NO_COMPONENT when graph has no vertices */
+  private final int largestComponent;
+
+  /**
+   * Find the root of an element, halving the path on the way
+   *
+   * @param parents union-find parent array
+   * @param element to find root for
+   * @return root
+   */
+  private static int findRoot(final int[] parents, int element) {
+    while (parents[element] != element) {
+      parents[element] = parents[parents[element]];
+      element = parents[element];
+    }
+    return element;
+  }
+
+  /**
+   * Collect the vertex id as dense array index
+   *
+   * @param vertex to collect id for
+   * @return id as int
+   */
+  private static int toIndex(final Vertex vertex) {
+    if (vertex.getId() > Integer.MAX_VALUE) {
+      throw new PlanItRunTimeException("Vertex id %d exceeds supported range for connected component labelling", vertex.getId());
+    }
+    return (int) vertex.getId();
+  }
+
+  /**
+   * Constructor, performs the labelling
+   *
+   * @param graph to label connected components of
+   */
+  public GraphConnectedComponents(final UntypedGraph<?, ?> graph) {
+    int maxVertexIndex = -1;
+    for (Vertex vertex : graph.getVertices()) {
+      maxVertexIndex = Math.max(maxVertexIndex, toIndex(vertex));
+    }
+
+    /* union-find over vertex ids, parents of unused ids remain NO_COMPONENT */
+    final int[] parents = new int[maxVertexIndex + 1];
+    final int[] sizes = new int[maxVertexIndex + 1];
+    Arrays.fill(parents, NO_COMPONENT);
+    for (Vertex vertex : graph.getVertices()) {
+      final int index = toIndex(vertex);
+      parents[index] = index;
+      sizes[index] = 1;
+    }
+
+    for (Edge edge : graph.getEdges()) {
+      if (edge.getVertexA() == null || edge.getVertexB() == null) {
+        continue;
+      }
+      final int indexA = toIndex(edge.getVertexA());
+      final int indexB = toIndex(edge.getVertexB());
+      if (indexA > maxVertexIndex || indexB > maxVertexIndex || parents[indexA] == NO_COMPONENT || parents[indexB] == NO_COMPONENT) {
+        /* edge refers to vertex not (or no longer) part of the graph */
+        continue;
+      }
+      int rootA = findRoot(parents, indexA);
+      int rootB = findRoot(parents, indexB);
+      if (rootA == rootB) {
+        continue;
+      }
+      if (sizes[rootA] < sizes[rootB]) {
+        final int swap = rootA;
+        rootA = rootB;
+        rootB = swap;
+      }
+      parents[rootB] = rootA;
+      sizes[rootA] += sizes[rootB];
+    }
+
+    /* convert roots to contiguous component labels */
+    this.componentByVertexId = new int[maxVertexIndex + 1];
+    Arrays.fill(componentByVertexId, NO_COMPONENT);
+    final int[] componentByRoot = new int[maxVertexIndex + 1];
+    Arrays.fill(componentByRoot, NO_COMPONENT);
+    int numberOfComponents = 0;
+    for (int index = 0; index <= maxVertexIndex; ++index) {
+      if (parents[index] == NO_COMPONENT) {
+        continue;
+      }
+      final int root = findRoot(parents, index);
+      if (componentByRoot[root] == NO_COMPONENT) {
+        componentByRoot[root] = numberOfComponents++;
+      }
+      componentByVertexId[index] = componentByRoot[root];
+    }
+
+    this.componentSizes = new int[numberOfComponents];
+    int largest = NO_COMPONENT;
+    for (int index = 0; index <= maxVertexIndex; ++index) {
+      if (parents[index] == index) {
+        final int component = componentByRoot[index];
+        componentSizes[component] = sizes[index];
+        if (largest == NO_COMPONENT || componentSizes[component] > componentSizes[largest]) {
+          largest = component;
+        }
+      }
+    }
+    this.largestComponent = largest;
+  }
+
+  /**
+   * Number of connected components found
+   *
+   * @return number of components
+   */
+  public int getNumberOfComponents() {
+    return componentSizes.length;
+  }
+
+  /**
+   * Collect the component of a vertex
+   *
+   * @param vertex to collect component for
+   * @return component label in [0, numberOfComponents), -1 when vertex was not part of the graph
+   */
+  public int getComponent(final Vertex vertex) {
+    final long index = vertex.getId();
+    return index < componentByVertexId.length ? componentByVertexId[(int) index] : NO_COMPONENT;
+  }
+
+  /**
+   * Number of vertices in the given component
+   *
+   * @param component to collect size for
+   * @return size
+   */
+  public int getComponentSize(final int component) {
+    return componentSizes[component];
+  }
+
+  /**
+   * Component with the most vertices, when multiple exist, the one with the lowest label is returned
+   *
+   * @return largest component, -1 when there are no components
+   */
+  public int getLargestComponent() {
+    return largestComponent;
+  }
+
+  /**
+   * Size of the largest component
+   *
+   * @return size, zero when there are no components
+   */
+  public int getLargestComponentSize() {
+    return largestComponent == NO_COMPONENT ? 0 : componentSizes[largestComponent];
+  }
+
+}
@@ -3,7 +3,7 @@ package org.goplanit.graph;
 import org.goplanit.utils.graph.GraphEntity;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
 import org.goplanit.utils.id.IdAble;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 /**
@@ -35,7 +35,7 @@ public abstract class GraphEntityImpl extends ExternalIdAbleImpl implements Grap
    * @return generated id
    */
   protected static long generateId(IdGroupingToken idGroupingToken, Class<? extends IdAble> clazz) {
-    return IdGenerator.generateId(idGroupingToken, clazz);
+    return SynchronisedIdGenerator.generateId(idGroupingToken, clazz);
   }
 
   /**
@@ -2,7 +2,7 @@ package org.goplanit.graph;
 
 import org.goplanit.utils.graph.*;
 import org.goplanit.utils.id.IdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 import java.util.logging.Logger;
@@ -42,7 +42,7 @@ public class UntypedGraphImpl<V extends Vertex, E extends Edge> extends IdAbleIm
    * @return the generated id
    */
   protected static long generatedGraphId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, GRAPH_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, GRAPH_ID_CLASS);
   }
 
   /**
@@ -210,9 +210,9 @@ public class DirectedVertexImpl<E extends EdgeSegment> extends VertexImpl<Edge>
   protected DirectedVertexImpl(DirectedVertexImpl<E> directedVertexImpl, boolean deepCopy) {
     super(directedVertexImpl, deepCopy);
 
-    // container of non-owned references so always clone required
-    this.entryEdgeSegments = directedVertexImpl.entryEdgeSegments.shallowClone();
-    this.exitEdgeSegments = directedVertexImpl.exitEdgeSegments.shallowClone();
+    // iterables are bound to the vertex that creates them, so create new ones bound to this copy rather than cloning those of the original
+    this.entryEdgeSegments = new EdgeSegmentIterable<>(true /* incoming */);
+    this.exitEdgeSegments = new EdgeSegmentIterable<>(false /* outgoing */);
   }
 
   // Public
@@ -18,7 +18,7 @@ import org.goplanit.utils.graph.directed.DirectedVertex;
 import org.goplanit.utils.graph.directed.EdgeSegment;
 import org.goplanit.utils.graph.directed.acyclic.ACyclicSubGraph;
 import org.goplanit.utils.graph.directed.acyclic.UntypedACyclicSubGraph;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 /**
@@ -198,7 +198,7 @@ public class UntypedACyclicSubGraphImpl<V extends DirectedVertex, E extends Edge
    * @param numberOfParentEdgeSegments number of directed edge segments of the parent this subgraph is a subset from
    */
   public UntypedACyclicSubGraphImpl(final IdGroupingToken groupId, V rootVertex, boolean invertedDirection, int numberOfParentEdgeSegments) {
-    this.id = IdGenerator.generateId(groupId, ACyclicSubGraph.class);
+    this.id = SynchronisedIdGenerator.generateId(groupId, ACyclicSubGraph.class);
     this.vertexData = new HashMap<>();
     this.registeredLinkSegments = new BitSet(numberOfParentEdgeSegments);
     this.topologicalOrder = null;
@@ -217,7 +217,7 @@ public class UntypedACyclicSubGraphImpl<V extends DirectedVertex, E extends Edge
    * @param numberOfParentEdgeSegments number of directed edge segments of the parent this subgraph is a subset from
    */
   public UntypedACyclicSubGraphImpl(final IdGroupingToken groupId, Set<V> rootVertices, boolean invertedDirection, int numberOfParentEdgeSegments) {
-    this.id = IdGenerator.generateId(groupId, ACyclicSubGraph.class);
+    this.id = SynchronisedIdGenerator.generateId(groupId, ACyclicSubGraph.class);
     this.vertexData = new HashMap<>();
     this.registeredLinkSegments = new BitSet(numberOfParentEdgeSegments);
     this.topologicalOrder = null;
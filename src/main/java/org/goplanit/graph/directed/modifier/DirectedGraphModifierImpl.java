@@ -8,6 +8,7 @@ import org.goplanit.graph.modifier.GraphModifierImpl;
 import org.goplanit.graph.directed.modifier.event.BreakEdgeSegmentEvent;
 import org.goplanit.graph.directed.modifier.event.RecreatedDirectedGraphEntitiesManagedIdsEvent;
 import org.goplanit.graph.directed.modifier.event.RemoveSubGraphEdgeSegmentEvent;
+import org.goplanit.graph.directed.modifier.event.RemoveSubGraphEdgeSegmentsEvent;
 import org.goplanit.utils.event.Event;
 import org.goplanit.utils.event.EventListener;
 import org.goplanit.utils.event.EventProducerImpl;
@@ -46,6 +47,15 @@ public class DirectedGraphModifierImpl extends EventProducerImpl implements Dire
    */
   private final GraphModifierImpl graphModifier;
 
+  /** edge segment removal events deferred until the active transaction is committed */
+  private final List<RemoveSubGraphEdgeSegmentEvent> deferredEdgeSegmentEvents = new ArrayList<>();
+
+  /** edge segments removed during the active transaction, only tracked when bulk removal listeners are present */
+  private final List<EdgeSegment> removedEdgeSegments = new ArrayList<>();
+
+  /** flag indicating recreation of the managed edge segment ids has been requested during the active transaction */
+  private boolean recreateEdgeSegmentIdsOnCommit = false;
+
   /**
    * Depending on whether these are directed or undirected evens call the appropriate notification method
    */
@@ -135,6 +145,25 @@ public class DirectedGraphModifierImpl extends EventProducerImpl implements Dire
     }
   }
 
+  /**
+   * Verify if the active transaction is nested in another transaction
+   * 
+   * @return true when nested, false otherwise
+   */
+  private boolean isNestedTransaction() {
+    return graphModifier.getTransactionDepth() > 1;
+  }
+
+  /**
+   * Recreate the managed ids of the edge segments and notify listeners
+   */
+  private void recreateManagedEdgeSegmentIds() {
+    if (getUntypedDirectedGraph().getEdgeSegments() instanceof ManagedIdEntities<?>) {
+      ((ManagedIdEntities<?>) getUntypedDirectedGraph().getEdgeSegments()).recreateIds();
+      fireEvent(new RecreatedDirectedGraphEntitiesManagedIdsEvent(this, (ManagedIdEntities<?>) getUntypedDirectedGraph().getEdgeSegments()));
+    }
+  }
+
   /**
    * Constructor.
    * 
@@ -173,7 +202,14 @@ public class DirectedGraphModifierImpl extends EventProducerImpl implements Dire
     edgeSegment.removeParentEdge();
 
     if (hasListener(RemoveSubGraphEdgeSegmentEvent.EVENT_TYPE)) {
-      fireEvent(new RemoveSubGraphEdgeSegmentEvent(this, edgeSegment));
+      if (isInTransaction()) {
+        deferredEdgeSegmentEvents.add(new RemoveSubGraphEdgeSegmentEvent(this, edgeSegment));
+      } else {
+        fireEvent(new RemoveSubGraphEdgeSegmentEvent(this, edgeSegment));
+      }
+    }
+    if (isInTransaction() && hasListener(RemoveSubGraphEdgeSegmentsEvent.EVENT_TYPE)) {
+      removedEdgeSegments.add(edgeSegment);
     }
   }
 
@@ -182,31 +218,80 @@ public class DirectedGraphModifierImpl extends EventProducerImpl implements Dire
    */
   @Override
   public void removeSubGraph(Set<? extends DirectedVertex> subGraphToRemove) {
-    UntypedDirectedGraph<?, ?, ?> directedGraph = getUntypedDirectedGraph();
-
-    /* remove the edge segment portion of the directed subgraph from the actual directed graph and fire event(s)*/
+    /* collect each edge segment once, edges in the sub graph are shared by two of its vertices */
+    Set<EdgeSegment> edgeSegmentsToRemove = new HashSet<>();
     for (DirectedVertex directedVertex : subGraphToRemove) {
       for (DirectedEdge directedEdge : directedVertex.getEdges()) {
-        for (EdgeSegment edgeSegment : directedEdge.getEdgeSegments()) {
-          removeEdgeSegment(edgeSegment);
-        }
+        edgeSegmentsToRemove.addAll(directedEdge.getEdgeSegments());
       }
     }
 
+    /* remove the edge segment portion of the directed subgraph from the actual directed graph and fire event(s)*/
+    for (EdgeSegment edgeSegment : edgeSegmentsToRemove) {
+      removeEdgeSegment(edgeSegment);
+    }
+    if (!isInTransaction() && hasListener(RemoveSubGraphEdgeSegmentsEvent.EVENT_TYPE)) {
+      fireEvent(new RemoveSubGraphEdgeSegmentsEvent(this, Collections.unmodifiableSet(edgeSegmentsToRemove)));
+    }
+
     /* do the same for vertices and edges */
     graphModifier.removeSubGraph(subGraphToRemove);
   }
 
+  /**
+   * Begin a modification transaction, see {@link GraphModifierImpl#beginTransaction()}. In addition, edge segment removal events are deferred and coalesced and edge segment ids
+   * are recreated at most once
+   */
+  public void beginTransaction() {
+    graphModifier.beginTransaction();
+  }
+
+  /**
+   * Commit the active modification transaction, see {@link GraphModifierImpl#commitTransaction()}. Deferred edge segment events are fired before those of the vertices and
+   * edges, consistent with the order of removal, and edge segment ids are recreated after the vertex and edge ids
+   */
+  public void commitTransaction() {
+    final boolean outermost = graphModifier.isInTransaction() && !isNestedTransaction();
+    if (outermost) {
+      deferredEdgeSegmentEvents.forEach(event -> fireEvent(event));
+      deferredEdgeSegmentEvents.clear();
+      if (!removedEdgeSegments.isEmpty()) {
+        fireEvent(new RemoveSubGraphEdgeSegmentsEvent(this, new ArrayList<>(removedEdgeSegments)));
+        removedEdgeSegments.clear();
+      }
+    }
+
+    graphModifier.commitTransaction();
+
+    if (outermost && recreateEdgeSegmentIdsOnCommit) {
+      recreateEdgeSegmentIdsOnCommit = false;
+      recreateManagedEdgeSegmentIds();
+    }
+  }
+
+  /**
+   * Verify if a modification transaction is active
+   * 
+   * @return true when active, false otherwise
+   */
+  public boolean isInTransaction() {
+    return graphModifier.isInTransaction();
+  }
+
   /**
    * {@inheritDoc}
+   * <p>
+   * When a transaction is active, recreation is deferred until commit
+   * </p>
    */
   @Override
   public void recreateManagedEntitiesIds() {
     graphModifier.recreateManagedEntitiesIds();
-    if (getUntypedDirectedGraph().getEdgeSegments() instanceof ManagedIdEntities<?>) {
-      ((ManagedIdEntities<?>) getUntypedDirectedGraph().getEdgeSegments()).recreateIds();
-      fireEvent(new RecreatedDirectedGraphEntitiesManagedIdsEvent(this, (ManagedIdEntities<?>) getUntypedDirectedGraph().getEdgeSegments()));
+    if (isInTransaction()) {
+      recreateEdgeSegmentIdsOnCommit = true;
+      return;
     }
+    recreateManagedEdgeSegmentIds();
   }
 
   /**
@@ -250,10 +335,20 @@ public class DirectedGraphModifierImpl extends EventProducerImpl implements Dire
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The identified sub graphs are removed from the graph including their edge segments, firing the regular sub graph removal events, and the number of removed sub graphs is
+   * logged
+   * </p>
    */
   @Override
   public void removeDanglingSubGraphs(Integer belowSize, Integer aboveSize, boolean alwaysKeepLargest) {
-    graphModifier.removeDanglingSubGraphs(belowSize, aboveSize, alwaysKeepLargest);
+    /* identification is delegated, removal is not since edge segments must be removed as well */
+    List<Set<DirectedVertex>> subGraphsToRemove = graphModifier.identifyDanglingSubGraphs(DirectedVertex.class, belowSize, aboveSize, alwaysKeepLargest);
+    for (Set<DirectedVertex> subGraphToRemove : subGraphsToRemove) {
+      removeSubGraph(subGraphToRemove);
+    }
+    LOGGER.info(String.format("Removed %d dangling sub graph(s), remaining vertices %d, edges %d, edge segments %d", subGraphsToRemove.size(),
+        getUntypedDirectedGraph().getVertices().size(), getUntypedDirectedGraph().getEdges().size(), getUntypedDirectedGraph().getEdgeSegments().size()));
   }
 
   /**
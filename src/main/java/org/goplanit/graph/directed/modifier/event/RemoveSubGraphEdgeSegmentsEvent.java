@@ -0,0 +1,44 @@
+package org.goplanit.graph.directed.modifier.event;
+
+import java.util.Collection;
+
+import org.goplanit.utils.event.EventImpl;
+import org.goplanit.utils.graph.directed.EdgeSegment;
+import org.goplanit.utils.graph.modifier.DirectedGraphModifier;
+import org.goplanit.utils.graph.modifier.event.DirectedGraphModificationEvent;
+import org.goplanit.utils.graph.modifier.event.DirectedGraphModifierEventType;
+import org.goplanit.utils.graph.modifier.event.GraphModifierEventType;
+
+/**
+ * Bulk event for when edge segments have been removed from a directed graph, fired once per sub graph removal or, when a modification transaction is active, once upon
+ * committing it
+ * 
+ * @author markr
+ *
+ */
+public class RemoveSubGraphEdgeSegmentsEvent extends EventImpl implements DirectedGraphModificationEvent {
+
+  /** event type fired off when sub graph edge segments have been removed in bulk */
+  public static final GraphModifierEventType EVENT_TYPE = new DirectedGraphModifierEventType("DIRECTEDGRAPHMODIFIER.SUBGRAPH.EDGESEGMENTS.REMOVE");
+
+  /**
+   * Constructor
+   * 
+   * @param source              directed graph modifier firing the event
+   * @param removedEdgeSegments edge segments that are removed
+   */
+  public RemoveSubGraphEdgeSegmentsEvent(DirectedGraphModifier source, Collection<? extends EdgeSegment> removedEdgeSegments) {
+    super(EVENT_TYPE, source, removedEdgeSegments);
+  }
+
+  /**
+   * The removed edge segments
+   * 
+   * @return removed edge segments
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<? extends EdgeSegment> getRemovedEdgeSegments() {
+    return (Collection<? extends EdgeSegment>) getContent()[0];
+  }
+
+}
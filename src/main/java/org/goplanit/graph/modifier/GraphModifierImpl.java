@@ -1,10 +1,10 @@
 package org.goplanit.graph.modifier;
 
 import java.util.*;
-import java.util.Map.Entry;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.logging.Logger;
 
+import org.goplanit.graph.GraphConnectedComponents;
 import org.goplanit.graph.modifier.event.RecreatedGraphEntitiesManagedIdsEvent;
 import org.goplanit.graph.modifier.event.*;
 import org.goplanit.utils.event.Event;
@@ -46,6 +46,37 @@ public class GraphModifierImpl extends EventProducerImpl implements GraphModifie
   /** the graph to modify */
   protected final UntypedGraph<?, ?> theGraph;
 
+  /** nesting depth of modification transactions, zero when no transaction is active */
+  private int transactionDepth = 0;
+
+  /** per entity events deferred until the active transaction is committed */
+  private final List<GraphModificationEvent> deferredEvents = new ArrayList<>();
+
+  /** vertices removed during the active transaction, only tracked when bulk removal listeners are present */
+  private final List<Vertex> removedVertices = new ArrayList<>();
+
+  /** edges removed during the active transaction, only tracked when bulk removal listeners are present */
+  private final List<Edge> removedEdges = new ArrayList<>();
+
+  /** flag indicating a sub graph has been removed during the active transaction */
+  private boolean subGraphRemoved = false;
+
+  /** flag indicating recreation of the managed ids has been requested during the active transaction */
+  private boolean recreateIdsOnCommit = false;
+
+  /**
+   * Fire the event, or defer it until commit when a transaction is active
+   * 
+   * @param event to fire or defer
+   */
+  private void fireOrDefer(GraphModificationEvent event) {
+    if (isInTransaction()) {
+      deferredEvents.add(event);
+    } else {
+      fireEvent(event);
+    }
+  }
+
   /**
    * update the geometry of the broken edge, knowing at what vertex it was broken from a previously longer edge
    * 
@@ -76,27 +107,19 @@ public class GraphModifierImpl extends EventProducerImpl implements GraphModifie
     Set<Vertex> subNetworkVertices = new HashSet<Vertex>();
     subNetworkVertices.add(referenceVertex);
 
-    Set<Vertex> verticesToExplore = new HashSet<Vertex>();
+    Deque<Vertex> verticesToExplore = new ArrayDeque<Vertex>();
     verticesToExplore.add(referenceVertex);
-    Iterator<Vertex> vertexIter = verticesToExplore.iterator();
-    while (vertexIter.hasNext()) {
-      /* collect and remove since it is processed */
-      Vertex currVertex = vertexIter.next();
-      vertexIter.remove();
+    while (!verticesToExplore.isEmpty()) {
+      Vertex currVertex = verticesToExplore.poll();
 
       /* add newly found vertices to explore, and add then to final subnetwork list as well */
-      Collection<? extends Edge> edgesOfCurrVertex = currVertex.getEdges();
-      for (Edge currEdge : edgesOfCurrVertex) {
-        if (currEdge.getVertexA() != null && currEdge.getVertexA().getId() != currVertex.getId() && !subNetworkVertices.contains(currEdge.getVertexA())) {
-          subNetworkVertices.add(currEdge.getVertexA());
-          verticesToExplore.add(currEdge.getVertexA());
-        } else if (currEdge.getVertexB() != null && currEdge.getVertexB().getId() != currVertex.getId() && !subNetworkVertices.contains(currEdge.getVertexB())) {
-          subNetworkVertices.add(currEdge.getVertexB());
-          verticesToExplore.add(currEdge.getVertexB());
+      for (Edge currEdge : currVertex.getEdges()) {
+        for (Vertex adjacentVertex : new Vertex[] { currEdge.getVertexA(), currEdge.getVertexB() }) {
+          if (adjacentVertex != null && subNetworkVertices.add(adjacentVertex)) {
+            verticesToExplore.add(adjacentVertex);
+          }
         }
       }
-      /* update iterator */
-      vertexIter = verticesToExplore.iterator();
     }
     return subNetworkVertices;
   }
@@ -148,7 +171,10 @@ public class GraphModifierImpl extends EventProducerImpl implements GraphModifie
     /* remove vertex from graph and fire event */
     theGraph.getVertices().remove(vertex.getId());
     if (hasListener(RemoveSubGraphVertexEvent.EVENT_TYPE)) {
-      fireEvent(new RemoveSubGraphVertexEvent(this, vertex));
+      fireOrDefer(new RemoveSubGraphVertexEvent(this, vertex));
+    }
+    if (isInTransaction() && hasListener(RemoveSubGraphEntitiesEvent.EVENT_TYPE)) {
+      removedVertices.add(vertex);
     }
   }
 
@@ -171,84 +197,134 @@ public class GraphModifierImpl extends EventProducerImpl implements GraphModifie
     /* remove edge from graph and fire event */
     theGraph.getEdges().remove(edge.getId());
     if (hasListener(RemoveSubGraphEdgeEvent.EVENT_TYPE)) {
-      fireEvent(new RemoveSubGraphEdgeEvent(this, edge));
+      fireOrDefer(new RemoveSubGraphEdgeEvent(this, edge));
+    }
+    if (isInTransaction() && hasListener(RemoveSubGraphEntitiesEvent.EVENT_TYPE)) {
+      removedEdges.add(edge);
     }
   }
 
   /**
-   * {@inheritDoc}
+   * Identify the dangling sub graphs that qualify for removal based on the provided criteria without removing them. All components are labelled in a single pass, see
+   * {@link GraphConnectedComponents}, after which the vertices of each qualifying component are collected in a second pass.
    * 
+   * @param <V>               vertex type of the graph
+   * @param vertexClass       vertex type of the graph, each identified vertex is cast to this type
+   * @param belowSize         remove sub graphs below this size
+   * @param aboveSize         remove sub graphs above this size
+   * @param alwaysKeepLargest when true the largest sub graph is never identified for removal
+   * @return vertices per sub graph to remove
    */
-  @Override
-  public void removeDanglingSubGraphs(Integer belowSize, Integer aboveSize, boolean alwaysKeepLargest) {
-
-    Map<Integer, LongAdder> removedDanglingNetworksBySize = new HashMap<>();
-    Set<Vertex> remainingVertices = new HashSet<Vertex>(theGraph.getVertices().size());
-    theGraph.getVertices().forEach(vertex -> remainingVertices.add(vertex));
-    Map<Vertex, Integer> identifiedSubNetworkSizes = new HashMap<Vertex, Integer>();
-
-    while (remainingVertices.iterator().hasNext()) {
-      /* recursively traverse the subnetwork */
-      Vertex referenceVertex = remainingVertices.iterator().next();
-      Set<Vertex> subNetworkVerticesToPopulate = processSubNetworkVertex(referenceVertex);
+  public <V extends Vertex> List<Set<V>> identifyDanglingSubGraphs(Class<V> vertexClass, Integer belowSize, Integer aboveSize, boolean alwaysKeepLargest) {
+    GraphConnectedComponents components = new GraphConnectedComponents(theGraph);
+    if (components.getNumberOfComponents() == 0) {
+      LOGGER.warning("no networks identified, unable to remove dangling subnetworks");
+      return Collections.emptyList();
+    }
 
-      /* register size and remove subnetwork from remaining nodes */
-      identifiedSubNetworkSizes.put(referenceVertex, subNetworkVerticesToPopulate.size());
-      remainingVertices.removeAll(subNetworkVerticesToPopulate);
+    /* flag all non-dominating subnetworks below/above threshold */
+    final int maxSubNetworkSize = components.getLargestComponentSize();
+    final Map<Integer, Set<V>> subGraphsToRemove = new TreeMap<>();
+    final Map<Integer, LongAdder> removedDanglingNetworksBySize = new TreeMap<>();
+    for (int component = 0; component < components.getNumberOfComponents(); ++component) {
+      int subNetworkSize = components.getComponentSize(component);
+      if ((subNetworkSize < maxSubNetworkSize || !alwaysKeepLargest) && (subNetworkSize < belowSize || subNetworkSize > aboveSize)) {
+        subGraphsToRemove.put(component, new HashSet<>(subNetworkSize));
+        removedDanglingNetworksBySize.computeIfAbsent(subNetworkSize, size -> new LongAdder()).increment();
+      }
     }
 
-    if (!identifiedSubNetworkSizes.isEmpty()) {
-      /* remove all non-dominating subnetworks */
-      int maxSubNetworkSize = Collections.max(identifiedSubNetworkSizes.values());
-      LOGGER.fine(String.format("remaining vertices %d, edges %d", theGraph.getVertices().size(), theGraph.getEdges().size()));
-      for (Entry<Vertex, Integer> entry : identifiedSubNetworkSizes.entrySet()) {
-        int subNetworkSize = entry.getValue();
-        if (subNetworkSize < maxSubNetworkSize || !alwaysKeepLargest) {
-
-          /* not the biggest subnetwork, remove from network if below threshold */
-          if (subNetworkSize < belowSize || subNetworkSize > aboveSize) {
-
-            removedDanglingNetworksBySize.putIfAbsent(subNetworkSize, new LongAdder());
-            removedDanglingNetworksBySize.get(subNetworkSize).increment();
-            LOGGER.fine(String.format("removing %d vertices from graph", subNetworkSize));
-            LOGGER.fine(String.format("remaining vertices %d, edges %d", theGraph.getVertices().size(), theGraph.getEdges().size()));
-          }
+    /* collect members of flagged subnetworks */
+    if (!subGraphsToRemove.isEmpty()) {
+      for (Vertex vertex : theGraph.getVertices()) {
+        Set<V> subGraph = subGraphsToRemove.get(components.getComponent(vertex));
+        if (subGraph != null) {
+          subGraph.add(vertexClass.cast(vertex));
         }
       }
-      final LongAdder totalCount = new LongAdder();
-      removedDanglingNetworksBySize.forEach((size, count) -> {
-        LOGGER.fine(String.format("sub graph size %d - %d removed", size, count.longValue()));
-        totalCount.add(count.longValue());
-      });
-      LOGGER.fine(String.format("removed %d dangling sub graphs", totalCount.longValue()));
-    } else {
-      LOGGER.warning("no networks identified, unable to remove dangling subnetworks");
     }
+
+    final LongAdder totalCount = new LongAdder();
+    removedDanglingNetworksBySize.forEach((size, count) -> {
+      LOGGER.fine(String.format("sub graph size %d - %d removed", size, count.longValue()));
+      totalCount.add(count.longValue());
+    });
+    LOGGER.fine(String.format("identified %d dangling sub graphs out of %d", totalCount.longValue(), components.getNumberOfComponents()));
+    return new ArrayList<>(subGraphsToRemove.values());
   }
 
   /**
    * {@inheritDoc}
+   * <p>
+   * The sub graphs identified via {@link #identifyDanglingSubGraphs(Class, Integer, Integer, boolean)} are removed from the graph, firing the regular sub graph removal events,
+   * and the number of removed sub graphs is logged
+   * </p>
+   */
+  @Override
+  public void removeDanglingSubGraphs(Integer belowSize, Integer aboveSize, boolean alwaysKeepLargest) {
+    List<Set<Vertex>> subGraphsToRemove = identifyDanglingSubGraphs(Vertex.class, belowSize, aboveSize, alwaysKeepLargest);
+    for (Set<Vertex> subGraphToRemove : subGraphsToRemove) {
+      removeSubGraph(subGraphToRemove);
+    }
+    LOGGER.info(String.format("Removed %d dangling sub graph(s), remaining vertices %d, edges %d", subGraphsToRemove.size(), theGraph.getVertices().size(),
+        theGraph.getEdges().size()));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Removal is performed in bulk, edges are collected once and only detached from vertices that remain. Per entity events are only created when listeners are registered for
+   * them. A single {@link RemoveSubGraphEntitiesEvent} and {@link RemoveSubGraphEvent} are fired upon completion, or upon commit when a transaction is active.
+   * </p>
    */
   @Override
   public void removeSubGraph(Set<? extends Vertex> subGraphToRemove) {
+    final boolean fireEdgeEvents = hasListener(RemoveSubGraphEdgeEvent.EVENT_TYPE);
+    final boolean fireVertexEvents = hasListener(RemoveSubGraphVertexEvent.EVENT_TYPE);
 
-    /* remove the subnetwork from the actual network */
+    /* collect edges before vertices are detached from them */
+    Set<Edge> edgesToRemove = new HashSet<>();
     for (Vertex vertex : subGraphToRemove) {
+      edgesToRemove.addAll(vertex.getEdges());
+    }
 
-      /* remove vertex and fire vertex removal event */
-      removeVertex(vertex);
+    /* remove edges, only vertices outside of the sub graph require updating */
+    for (Edge edge : edgesToRemove) {
+      if (edge.getVertexA() != null && !subGraphToRemove.contains(edge.getVertexA())) {
+        edge.getVertexA().removeEdge(edge);
+      }
+      if (edge.getVertexB() != null && !subGraphToRemove.contains(edge.getVertexB())) {
+        edge.getVertexB().removeEdge(edge);
+      }
+      theGraph.getEdges().remove(edge.getId());
+      if (fireEdgeEvents) {
+        fireOrDefer(new RemoveSubGraphEdgeEvent(this, edge));
+      }
+    }
 
-      /* remove vertex' edges from graph  and fire edge removal event(s) */
-      Set<? extends Edge> vertexEdges = new HashSet<>(vertex.getEdges());
-      for (Edge edge : vertexEdges) {
-        removeEdge(edge);
+    /* remove vertices */
+    for (Vertex vertex : subGraphToRemove) {
+      vertex.removeAllEdges();
+      theGraph.getVertices().remove(vertex.getId());
+      if (fireVertexEvents) {
+        fireOrDefer(new RemoveSubGraphVertexEvent(this, vertex));
       }
+    }
 
-      /* fire remove subgraph event */
+    /* fire bulk and remove subgraph events, coalesced until commit when in a transaction */
+    if (isInTransaction()) {
+      if (hasListener(RemoveSubGraphEntitiesEvent.EVENT_TYPE)) {
+        removedVertices.addAll(subGraphToRemove);
+        removedEdges.addAll(edgesToRemove);
+      }
+      subGraphRemoved = true;
+    } else {
+      if (hasListener(RemoveSubGraphEntitiesEvent.EVENT_TYPE)) {
+        fireEvent(new RemoveSubGraphEntitiesEvent(this, Collections.unmodifiableSet(subGraphToRemove), Collections.unmodifiableSet(edgesToRemove)));
+      }
       if (hasListener(RemoveSubGraphEvent.EVENT_TYPE)) {
         fireEvent(new RemoveSubGraphEvent(this));
       }
-
     }
   }
 
@@ -333,11 +409,77 @@ public class GraphModifierImpl extends EventProducerImpl implements GraphModifie
     return breakToB;
   }
 
+  /**
+   * Begin a modification transaction. Until the matching {@link #commitTransaction()} per entity removal events are deferred, sub graph removal events are coalesced into a
+   * single bulk event and recreation of managed ids is performed at most once. Transactions may be nested, only the outermost commit takes effect. Break edge events are not
+   * deferred since listeners rely on the state of the graph directly after the break.
+   */
+  public void beginTransaction() {
+    ++transactionDepth;
+  }
+
+  /**
+   * Commit the active modification transaction. On committing the outermost transaction, deferred per entity events are fired in order, followed by a single
+   * {@link RemoveSubGraphEntitiesEvent} and {@link RemoveSubGraphEvent} if anything was removed and finally a single recreation of managed ids if requested during the transaction
+   */
+  public void commitTransaction() {
+    PlanItRunTimeException.throwIf(transactionDepth == 0, "Unable to commit graph modification transaction, no transaction active");
+    if (--transactionDepth > 0) {
+      return;
+    }
+
+    deferredEvents.forEach(event -> fireEvent(event));
+    deferredEvents.clear();
+
+    if (!removedVertices.isEmpty() || !removedEdges.isEmpty()) {
+      fireEvent(new RemoveSubGraphEntitiesEvent(this, new ArrayList<>(removedVertices), new ArrayList<>(removedEdges)));
+      removedVertices.clear();
+      removedEdges.clear();
+    }
+
+    if (subGraphRemoved) {
+      subGraphRemoved = false;
+      if (hasListener(RemoveSubGraphEvent.EVENT_TYPE)) {
+        fireEvent(new RemoveSubGraphEvent(this));
+      }
+    }
+
+    if (recreateIdsOnCommit) {
+      recreateIdsOnCommit = false;
+      recreateManagedEntitiesIds();
+    }
+  }
+
+  /**
+   * Nesting depth of modification transactions
+   * 
+   * @return depth, zero when no transaction is active
+   */
+  public int getTransactionDepth() {
+    return transactionDepth;
+  }
+
+  /**
+   * Verify if a modification transaction is active
+   * 
+   * @return true when active, false otherwise
+   */
+  public boolean isInTransaction() {
+    return transactionDepth > 0;
+  }
+
   /**
    * {@inheritDoc}
+   * <p>
+   * When a transaction is active, recreation is deferred until commit
+   * </p>
    */
   @Override
   public void recreateManagedEntitiesIds() {
+    if (isInTransaction()) {
+      recreateIdsOnCommit = true;
+      return;
+    }
     if (theGraph.getEdges() instanceof ManagedIdEntities<?>) {
       ((ManagedIdEntities<?>) theGraph.getEdges()).recreateIds();
       fireEvent(new RecreatedGraphEntitiesManagedIdsEvent(this, (ManagedIdEntities<?>)theGraph.getEdges()));
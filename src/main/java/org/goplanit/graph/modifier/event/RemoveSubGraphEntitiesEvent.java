@@ -0,0 +1,55 @@
+package org.goplanit.graph.modifier.event;
+
+import java.util.Collection;
+
+import org.goplanit.utils.event.EventImpl;
+import org.goplanit.utils.graph.Edge;
+import org.goplanit.utils.graph.Vertex;
+import org.goplanit.utils.graph.modifier.GraphModifier;
+import org.goplanit.utils.graph.modifier.event.GraphModificationEvent;
+import org.goplanit.utils.graph.modifier.event.GraphModifierEventType;
+
+/**
+ * Bulk event for when vertices and edges have been removed from a graph, fired once per sub graph removal or, when a modification transaction is active, once upon committing
+ * it. Listeners interested in all removed entities should prefer this event over the per entity removal events
+ * 
+ * @author markr
+ *
+ */
+public class RemoveSubGraphEntitiesEvent extends EventImpl implements GraphModificationEvent {
+
+  /** event type fired off when sub graph entities have been removed in bulk */
+  public static final GraphModifierEventType EVENT_TYPE = new GraphModifierEventType("GRAPHMODIFIER.SUBGRAPH.ENTITIES.REMOVE");
+
+  /**
+   * Constructor
+   * 
+   * @param source          graph modifier firing the event
+   * @param removedVertices vertices that are removed
+   * @param removedEdges    edges that are removed
+   */
+  public RemoveSubGraphEntitiesEvent(GraphModifier<?, ?> source, Collection<? extends Vertex> removedVertices, Collection<? extends Edge> removedEdges) {
+    super(EVENT_TYPE, source, removedVertices, removedEdges);
+  }
+
+  /**
+   * The removed vertices
+   * 
+   * @return removed vertices
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<? extends Vertex> getRemovedVertices() {
+    return (Collection<? extends Vertex>) getContent()[0];
+  }
+
+  /**
+   * The removed edges
+   * 
+   * @return removed edges
+   */
+  @SuppressWarnings("unchecked")
+  public Collection<? extends Edge> getRemovedEdges() {
+    return (Collection<? extends Edge>) getContent()[1];
+  }
+
+}
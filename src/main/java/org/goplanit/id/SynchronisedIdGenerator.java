@@ -0,0 +1,65 @@
+package org.goplanit.id;
+
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+
+/**
+ * Thread safe access to the {@link IdGenerator}. The id generator keeps its ids per grouping token and class in shared, unsynchronised, state while ids are generated both when
+ * building inputs and while assignments execute, which may happen concurrently when independent assignments or time periods are executed in parallel. Synchronising only part
+ * of the calls does not protect this state, so all ids in PLANit are generated via this class and the {@link IdGenerator} should not be used directly. All access is
+ * synchronised on the {@link IdGenerator} class.
+ *
+ * @author markr
+ */
+public class SynchronisedIdGenerator {
+
+  /**
+   * Generate a new id for the given grouping token and class
+   *
+   * @param groupId token the id is generated under
+   * @param clazz   the id is generated for
+   * @return generated id
+   */
+  public static long generateId(final IdGroupingToken groupId, final Class<?> clazz) {
+    synchronized (IdGenerator.class) {
+      return IdGenerator.generateId(groupId, clazz);
+    }
+  }
+
+  /**
+   * Reset the ids for the given grouping token and class
+   *
+   * @param groupId token to reset ids for
+   * @param clazz   to reset ids for
+   */
+  public static void reset(final IdGroupingToken groupId, final Class<?> clazz) {
+    synchronized (IdGenerator.class) {
+      IdGenerator.reset(groupId, clazz);
+    }
+  }
+
+  /**
+   * Create a new id grouping token
+   *
+   * @param owner of the token
+   * @param id    of the owner
+   * @return created token
+   */
+  public static IdGroupingToken createIdGroupingToken(final Object owner, final long id) {
+    synchronized (IdGenerator.class) {
+      return IdGenerator.createIdGroupingToken(owner, id);
+    }
+  }
+
+  /**
+   * Create a new id grouping token
+   *
+   * @param description of the token
+   * @return created token
+   */
+  public static IdGroupingToken createIdGroupingToken(final String description) {
+    synchronized (IdGenerator.class) {
+      return IdGenerator.createIdGroupingToken(description);
+    }
+  }
+}
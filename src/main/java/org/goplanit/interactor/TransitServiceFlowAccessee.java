@@ -0,0 +1,37 @@
+package org.goplanit.interactor;
+
+import org.goplanit.utils.mode.Mode;
+
+/**
+ * Transit service flow accessee. Implementing classes provide access to the passenger flows on their service leg segments and the boardings at their service nodes
+ * 
+ * @author markr
+ *
+ */
+public interface TransitServiceFlowAccessee extends TrafficAssignmentComponentAccessee {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public default Class<TransitServiceFlowAccessor> getCompatibleAccessor() {
+    return TransitServiceFlowAccessor.class;
+  }
+
+  /**
+   * Get the passenger flows of a mode on all service leg segments, where index is based on id of the service leg segment
+   * 
+   * @param mode to collect flows for
+   * @return passenger flows per hour, null when not available for the mode
+   */
+  public abstract double[] getLegSegmentFlows(Mode mode);
+
+  /**
+   * Get the boardings of a mode at all service nodes, where index is based on id of the service node
+   * 
+   * @param mode to collect boardings for
+   * @return boardings per hour, null when not available for the mode
+   */
+  public abstract double[] getBoardings(Mode mode);
+
+}
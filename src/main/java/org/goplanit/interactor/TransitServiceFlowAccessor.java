@@ -0,0 +1,19 @@
+package org.goplanit.interactor;
+
+/**
+ * Transit service flow accessor interface
+ * 
+ * @author markr
+ *
+ */
+public interface TransitServiceFlowAccessor extends InteractorAccessor<TransitServiceFlowAccessee> {
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  default Class<TransitServiceFlowAccessee> getCompatibleAccessee() {
+    return TransitServiceFlowAccessee.class;
+  }
+
+}
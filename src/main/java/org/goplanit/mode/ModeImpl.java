@@ -1,7 +1,7 @@
 package org.goplanit.mode;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.mode.PhysicalModeFeatures;
@@ -45,7 +45,7 @@ public class ModeImpl extends ExternalIdAbleImpl implements Mode {
    * @return generated id
    */
   protected static long generateId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, Mode.MODE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, Mode.MODE_ID_CLASS);
   }
 
   /**
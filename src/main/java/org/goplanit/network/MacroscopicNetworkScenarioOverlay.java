@@ -0,0 +1,218 @@
+package org.goplanit.network;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentModeAccess;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+
+/**
+ * A scenario overlay on top of a base macroscopic network. The overlay tracks a (small) delta of changed capacities, changed modelled speeds and closed link segments without
+ * modifying the base network. Components that rely on the materialised link segment mode access obtain a scenario specific access via
+ * {@link #getLinkSegmentModeAccess(MacroscopicNetworkLayer)}, which shares all data with the base network's access and only copies what the delta modifies. This allows many
+ * scenarios to be assessed on a single copy of the network, rather than a deep copy per scenario.
+ * <p>
+ * The base network is expected not to be modified while overlays on it are in use. Structural changes, e.g., added links, are not supported by an overlay and still require a
+ * (deep) copy of the network.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class MacroscopicNetworkScenarioOverlay {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(MacroscopicNetworkScenarioOverlay.class.getCanonicalName());
+
+  /**
+   * Delta of a single layer, applied to a mode access derived from the layer's base access
+   */
+  private static class LayerDelta implements MacroscopicLinkSegmentModeAccess.Delta {
+
+    /** overridden capacities in pcu/h */
+    private final Map<MacroscopicLinkSegment, Double> capacitiesPcuH = new HashMap<>();
+
+    /** overridden modelled speeds in km/h by mode */
+    private final Map<MacroscopicLinkSegment, Map<Mode, Double>> modelledSpeedsKmH = new HashMap<>();
+
+    /** closed modes */
+    private final Map<MacroscopicLinkSegment, Set<Mode>> closedModes = new HashMap<>();
+
+    /** version, increased upon each modification */
+    private long version = 0;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void applyTo(final MacroscopicLinkSegmentModeAccess access) {
+      capacitiesPcuH.forEach((linkSegment, capacity) -> access.overrideCapacityPcuH(linkSegment.getLinkSegmentId(), capacity));
+      modelledSpeedsKmH.forEach((linkSegment, speeds) -> speeds.forEach(
+          (mode, speed) -> access.overrideModelledSpeedKmH(mode, linkSegment.getLinkSegmentId(), speed, linkSegment.getParentLink().getLengthKm())));
+      /* closures last, so they take precedence over any speed override */
+      closedModes.forEach((linkSegment, modes) -> modes.forEach(mode -> access.overrideDisallowed(mode, linkSegment.getLinkSegmentId())));
+    }
+  }
+
+  /** network this overlay is applied to */
+  private final MacroscopicNetwork baseNetwork;
+
+  /** delta by layer id */
+  private final Map<Long, LayerDelta> layerDeltas = new HashMap<>();
+
+  /** derived mode access by layer id */
+  private final Map<Long, MacroscopicLinkSegmentModeAccess> linkSegmentModeAccessByLayer = new HashMap<>();
+
+  /**
+   * Find the layer of the base network the link segment resides on
+   *
+   * @param linkSegment to find layer for
+   * @return layer
+   */
+  private MacroscopicNetworkLayer findLayer(final MacroscopicLinkSegment linkSegment) {
+    for (MacroscopicNetworkLayer layer : baseNetwork.getTransportLayers()) {
+      if (layer.getLinkSegments().get(linkSegment.getId()) == linkSegment) {
+        return layer;
+      }
+    }
+    throw new PlanItRunTimeException(String.format("Link segment %s not present in base network of scenario overlay", linkSegment.getXmlId()));
+  }
+
+  /**
+   * Collect the delta of the layer of the link segment, created when not yet present, and mark it as modified
+   *
+   * @param linkSegment to collect delta for
+   * @return delta
+   */
+  private LayerDelta modifyLayerDelta(final MacroscopicLinkSegment linkSegment) {
+    final LayerDelta layerDelta = layerDeltas.computeIfAbsent(findLayer(linkSegment).getId(), layerId -> new LayerDelta());
+    ++layerDelta.version;
+    return layerDelta;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param baseNetwork to apply overlay to, not modified by the overlay
+   */
+  public MacroscopicNetworkScenarioOverlay(final MacroscopicNetwork baseNetwork) {
+    this.baseNetwork = baseNetwork;
+  }
+
+  /**
+   * Override the capacity of a link segment in this scenario
+   *
+   * @param linkSegment  to override capacity of
+   * @param capacityPcuH to use
+   */
+  public synchronized void setCapacityPcuH(final MacroscopicLinkSegment linkSegment, final double capacityPcuH) {
+    modifyLayerDelta(linkSegment).capacitiesPcuH.put(linkSegment, capacityPcuH);
+  }
+
+  /**
+   * Override the modelled speed limit of a mode on a link segment in this scenario. Ignored when the mode is not allowed on the link segment
+   *
+   * @param linkSegment to override speed of
+   * @param mode        to override speed for
+   * @param speedKmH    to use
+   */
+  public synchronized void setModelledSpeedLimitKmH(final MacroscopicLinkSegment linkSegment, final Mode mode, final double speedKmH) {
+    modifyLayerDelta(linkSegment).modelledSpeedsKmH.computeIfAbsent(linkSegment, ls -> new HashMap<>()).put(mode, speedKmH);
+  }
+
+  /**
+   * Close a link segment for a mode in this scenario
+   *
+   * @param linkSegment to close
+   * @param mode        to close it for
+   */
+  public synchronized void closeLinkSegment(final MacroscopicLinkSegment linkSegment, final Mode mode) {
+    modifyLayerDelta(linkSegment).closedModes.computeIfAbsent(linkSegment, ls -> new HashSet<>()).add(mode);
+  }
+
+  /**
+   * Close a link segment for all modes supported by its layer in this scenario
+   *
+   * @param linkSegment to close
+   */
+  public synchronized void closeLinkSegment(final MacroscopicLinkSegment linkSegment) {
+    final var layer = findLayer(linkSegment);
+    for (Mode mode : layer.getSupportedModes()) {
+      closeLinkSegment(linkSegment, mode);
+    }
+  }
+
+  /**
+   * Remove all overrides and closures of a link segment from this scenario
+   *
+   * @param linkSegment to revert to its base network state
+   */
+  public synchronized void revert(final MacroscopicLinkSegment linkSegment) {
+    final LayerDelta layerDelta = modifyLayerDelta(linkSegment);
+    layerDelta.capacitiesPcuH.remove(linkSegment);
+    layerDelta.modelledSpeedsKmH.remove(linkSegment);
+    layerDelta.closedModes.remove(linkSegment);
+  }
+
+  /**
+   * Collect the link segment mode access of a layer of the base network with this scenario's delta applied. The access is created on first access and re-derived whenever the
+   * delta, or the base access, is outdated. Unmodified data is shared with the base access
+   *
+   * @param layer of the base network to collect access for
+   * @return up to date scenario specific mode access
+   */
+  public synchronized MacroscopicLinkSegmentModeAccess getLinkSegmentModeAccess(final MacroscopicNetworkLayer layer) {
+    boolean isBaseLayer = false;
+    for (MacroscopicNetworkLayer baseLayer : baseNetwork.getTransportLayers()) {
+      isBaseLayer |= baseLayer == layer;
+    }
+    if (!isBaseLayer) {
+      throw new PlanItRunTimeException(String.format("Layer %s not present in base network of scenario overlay", layer.getXmlId()));
+    }
+
+    var linkSegmentModeAccess = linkSegmentModeAccessByLayer.get(layer.getId());
+    if (linkSegmentModeAccess == null) {
+      final LayerDelta layerDelta = layerDeltas.computeIfAbsent(layer.getId(), layerId -> new LayerDelta());
+      linkSegmentModeAccess = new MacroscopicLinkSegmentModeAccess(MacroscopicLinkSegmentModeAccess.of(layer), layerDelta);
+      linkSegmentModeAccessByLayer.put(layer.getId(), linkSegmentModeAccess);
+      LOGGER.fine(String.format("Derived scenario specific mode access for layer %s", layer.getXmlId()));
+    } else {
+      linkSegmentModeAccess.refreshIfOutdated();
+    }
+    return linkSegmentModeAccess;
+  }
+
+  /**
+   * Verify if the overlay modifies anything compared to its base network
+   *
+   * @return true when no overrides or closures are present, false otherwise
+   */
+  public synchronized boolean isEmpty() {
+    return layerDeltas.values().stream().allMatch(
+        layerDelta -> layerDelta.capacitiesPcuH.isEmpty() && layerDelta.modelledSpeedsKmH.isEmpty() && layerDelta.closedModes.isEmpty());
+  }
+
+  /**
+   * Collect the base network
+   *
+   * @return base network
+   */
+  public MacroscopicNetwork getBaseNetwork() {
+    return baseNetwork;
+  }
+
+}
@@ -4,7 +4,7 @@ import java.io.Serializable;
 import java.util.Map;
 
 import org.goplanit.component.PlanitComponent;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 
 /**
@@ -32,7 +32,7 @@ public abstract class Network extends PlanitComponent<Network> implements Serial
    */
   public Network(final IdGroupingToken tokenId) {
     super(tokenId, Network.class);
-    this.networkIdGroupingToken = IdGenerator.createIdGroupingToken(this, getId());
+    this.networkIdGroupingToken = SynchronisedIdGenerator.createIdGroupingToken(this, getId());
   }
 
   /**
@@ -6,8 +6,8 @@ import java.util.TreeMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.mode.PredefinedMode;
@@ -35,7 +35,7 @@ public abstract class NetworkLayerImpl extends ExternalIdAbleImpl implements Net
    * @return nodeId
    */
   protected static long generateId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, NetworkLayer.NETWORK_LAYER_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, NetworkLayer.NETWORK_LAYER_ID_CLASS);
   }
 
   /**
@@ -28,6 +28,9 @@ public class AccessGroupPropertiesImpl implements AccessGroupProperties {
   /** modes supported by this access group */
   protected final Set<Mode> supportedModes;
 
+  /** incremented on each modification, allows derived (cached) data to detect it is outdated */
+  private transient long version = 0;
+
   // Public
 
   /**
@@ -132,6 +135,7 @@ public class AccessGroupPropertiesImpl implements AccessGroupProperties {
   @Override
   public void setMaximumSpeedKmH(final Double maxSpeedKmH) {
     this.maxSpeedKmH = maxSpeedKmH;
+    ++version;
   }
 
   /**
@@ -140,6 +144,7 @@ public class AccessGroupPropertiesImpl implements AccessGroupProperties {
   @Override
   public void setCriticalSpeedKmH(final Double criticalSpeed) {
     this.criticalSpeedKmH = criticalSpeed;
+    ++version;
   }
 
   /**
@@ -171,6 +176,7 @@ public class AccessGroupPropertiesImpl implements AccessGroupProperties {
    */
   @Override
   public boolean removeAccessMode(Mode toBeRemovedMode) {
+    ++version;
     return this.supportedModes.remove(toBeRemovedMode);
   }
 
@@ -205,6 +211,16 @@ public class AccessGroupPropertiesImpl implements AccessGroupProperties {
   @Override
   public void addAccessMode(Mode mode) {
     this.supportedModes.add(mode);
+    ++version;
+  }
+
+  /**
+   * Version of this instance which is incremented upon each modification
+   * 
+   * @return version
+   */
+  public long getVersion() {
+    return version;
   }
 
   /**
@@ -0,0 +1,504 @@
+package org.goplanit.network.layer.macroscopic;
+
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+
+/**
+ * Materialised mode access of the link segments of a macroscopic network layer. Per supported mode a bit mask of allowed link segments and flattened modelled speed and free flow
+ * travel time arrays are kept, next to a mode agnostic capacity array, all indexed by link segment id. This avoids consulting the link segment type and its access groups on each
+ * evaluation on the hot path.
+ * <p>
+ * Currently only {@link org.goplanit.cost.physical.BprLinkTravelTimeCost} uses this access. Network loadings, fundamental diagrams and other costs still consult the link
+ * segment types directly, while shortest path searches only observe mode access indirectly via the costs they are provided with.
+ * </p>
+ * <p>
+ * The access is rebuilt via {@link #refreshIfOutdated()} when the access of any link segment type of the layer changed, or link segments were added or removed. Assigning a
+ * different type to an existing link segment, or changing link lengths, is not detected and requires an explicit {@link #rebuild()}.
+ * </p>
+ * <p>
+ * An access can also be derived from a base access and a {@link Delta}, e.g., a scenario overlay. Such a derived access shares all arrays with its base and only copies the
+ * (per mode) arrays the delta modifies, so many scenarios can be assessed on a single shared base network.
+ * </p>
+ * <p>
+ * The materialised data is published as an immutable {@link Snapshot} via a volatile reference. A rebuild creates new arrays rather than modifying the published ones, so an
+ * access can be shared between concurrently executing assignments. Consumers that require a consistent view across multiple lookups capture the snapshot once via
+ * {@link #getSnapshot()}.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class MacroscopicLinkSegmentModeAccess {
+
+  /**
+   * Modifications applied on top of a base access to derive a scenario specific access
+   */
+  public interface Delta {
+
+    /**
+     * Version of the delta, which changes whenever the delta is modified
+     * 
+     * @return current version
+     */
+    public abstract long getVersion();
+
+    /**
+     * Apply the delta to a derived access via its override methods
+     * 
+     * @param access to apply to
+     */
+    public abstract void applyTo(MacroscopicLinkSegmentModeAccess access);
+  }
+
+  /**
+   * Immutable materialised data of the access at the time of a (re)build. Never modified after publication
+   */
+  public static final class Snapshot {
+
+    /** bit mask words of allowed link segments by mode id, null for modes not supported by the layer */
+    private final long[][] allowedLinkSegmentsByMode;
+
+    /** modelled speed limit in km/h by mode id and link segment id */
+    private final double[][] modelledSpeedsKmHByMode;
+
+    /** free flow travel time in hours by mode id and link segment id, Double.MAX_VALUE when not allowed */
+    private final double[][] freeFlowTravelTimesHourByMode;
+
+    /** capacity in pcu/h by link segment id */
+    private final double[] capacitiesPcuH;
+
+    /** version of the layer's link segment type access, or of the delta when derived, at the time of the build */
+    private final long version;
+
+    /** snapshot of the base this snapshot is derived from, null when materialised from the layer directly */
+    private final Snapshot baseSnapshot;
+
+    /**
+     * Constructor
+     *
+     * @param allowedLinkSegmentsByMode     to use
+     * @param modelledSpeedsKmHByMode       to use
+     * @param freeFlowTravelTimesHourByMode to use
+     * @param capacitiesPcuH                to use
+     * @param version                       to use
+     * @param baseSnapshot                  to use, may be null
+     */
+    private Snapshot(final long[][] allowedLinkSegmentsByMode, final double[][] modelledSpeedsKmHByMode, final double[][] freeFlowTravelTimesHourByMode,
+        final double[] capacitiesPcuH, final long version, final Snapshot baseSnapshot) {
+      this.allowedLinkSegmentsByMode = allowedLinkSegmentsByMode;
+      this.modelledSpeedsKmHByMode = modelledSpeedsKmHByMode;
+      this.freeFlowTravelTimesHourByMode = freeFlowTravelTimesHourByMode;
+      this.capacitiesPcuH = capacitiesPcuH;
+      this.version = version;
+      this.baseSnapshot = baseSnapshot;
+    }
+
+    /**
+     * Verify if mode is allowed on link segment
+     *
+     * @param mode          to verify
+     * @param linkSegmentId link segment id (not the edge segment id)
+     * @return true when allowed, false otherwise
+     */
+    public boolean isModeAllowed(final Mode mode, final long linkSegmentId) {
+      return isAllowed(allowedLinkSegmentsByMode, (int) mode.getId(), linkSegmentId);
+    }
+
+    /**
+     * Collect the modelled speed limits by link segment id for a mode, not to be modified
+     *
+     * @param mode to collect for
+     * @return speeds in km/h, zero where not allowed, null when mode is not supported by the layer
+     */
+    public double[] getModelledSpeedsKmH(final Mode mode) {
+      return mode.getId() < modelledSpeedsKmHByMode.length ? modelledSpeedsKmHByMode[(int) mode.getId()] : null;
+    }
+
+    /**
+     * Collect the free flow travel times by link segment id for a mode, not to be modified
+     *
+     * @param mode to collect for
+     * @return free flow travel times in hours, Double.MAX_VALUE where not allowed, null when mode is not supported by the layer
+     */
+    public double[] getFreeFlowTravelTimesHour(final Mode mode) {
+      return mode.getId() < freeFlowTravelTimesHourByMode.length ? freeFlowTravelTimesHourByMode[(int) mode.getId()] : null;
+    }
+
+    /**
+     * Collect the capacities by link segment id, not to be modified
+     *
+     * @return capacities in pcu/h
+     */
+    public double[] getCapacitiesPcuH() {
+      return capacitiesPcuH;
+    }
+  }
+
+  /**
+   * Data of a derived access while the delta is being applied, arrays are shared with the base snapshot until modified
+   */
+  private static final class PendingDerivation {
+
+    /** shallow copy of the base's outer array */
+    private final long[][] allowedLinkSegmentsByMode;
+
+    /** shallow copy of the base's outer array */
+    private final double[][] modelledSpeedsKmHByMode;
+
+    /** shallow copy of the base's outer array */
+    private final double[][] freeFlowTravelTimesHourByMode;
+
+    /** capacities, shared with the base until copied */
+    private double[] capacitiesPcuH;
+
+    /** flag indicating the capacities are no longer shared with the base */
+    private boolean capacitiesCopied = false;
+
+    /** flags indicating, by mode id, the mode specific arrays are no longer shared with the base */
+    private final boolean[] modeArraysCopied;
+
+    /**
+     * Constructor
+     *
+     * @param baseSnapshot to derive from
+     */
+    private PendingDerivation(final Snapshot baseSnapshot) {
+      this.allowedLinkSegmentsByMode = baseSnapshot.allowedLinkSegmentsByMode.clone();
+      this.modelledSpeedsKmHByMode = baseSnapshot.modelledSpeedsKmHByMode.clone();
+      this.freeFlowTravelTimesHourByMode = baseSnapshot.freeFlowTravelTimesHourByMode.clone();
+      this.capacitiesPcuH = baseSnapshot.capacitiesPcuH;
+      this.modeArraysCopied = new boolean[allowedLinkSegmentsByMode.length];
+    }
+
+    /**
+     * Copy the arrays of a mode before modifying them when still shared with the base
+     *
+     * @param modeId to copy arrays of
+     * @return true when the mode is supported by the layer, false otherwise
+     */
+    private boolean copyModeArraysOnWrite(final int modeId) {
+      if (modeId >= allowedLinkSegmentsByMode.length || allowedLinkSegmentsByMode[modeId] == null) {
+        return false;
+      }
+      if (!modeArraysCopied[modeId]) {
+        allowedLinkSegmentsByMode[modeId] = allowedLinkSegmentsByMode[modeId].clone();
+        modelledSpeedsKmHByMode[modeId] = modelledSpeedsKmHByMode[modeId].clone();
+        freeFlowTravelTimesHourByMode[modeId] = freeFlowTravelTimesHourByMode[modeId].clone();
+        modeArraysCopied[modeId] = true;
+      }
+      return true;
+    }
+  }
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(MacroscopicLinkSegmentModeAccess.class.getCanonicalName());
+
+  /** number of bits used to address a bit within a mask word */
+  private static final int WORD_SHIFT = 6;
+
+  /** layer to materialise access of */
+  private final MacroscopicNetworkLayer layer;
+
+  /** base access this access is derived from, null when materialised from the layer directly */
+  private final MacroscopicLinkSegmentModeAccess base;
+
+  /** delta applied on top of the base, null when materialised from the layer directly */
+  private final Delta delta;
+
+  /** currently published snapshot */
+  private volatile Snapshot snapshot;
+
+  /** derivation in progress, only non-null during {@link #rebuild()} of a derived access */
+  private PendingDerivation pending = null;
+
+  /**
+   * Verify if a mode is allowed on a link segment given the bit masks
+   *
+   * @param allowedLinkSegmentsByMode bit masks to use
+   * @param modeId                    to verify
+   * @param linkSegmentId             to verify
+   * @return true when allowed, false otherwise
+   */
+  private static boolean isAllowed(final long[][] allowedLinkSegmentsByMode, final int modeId, final long linkSegmentId) {
+    if (modeId >= allowedLinkSegmentsByMode.length || allowedLinkSegmentsByMode[modeId] == null) {
+      return false;
+    }
+    return (allowedLinkSegmentsByMode[modeId][(int) (linkSegmentId >> WORD_SHIFT)] & (1L << linkSegmentId)) != 0;
+  }
+
+  /**
+   * Compute the version of the access of the link segment types and the number of link segments, which changes whenever these are modified
+   *
+   * @return current version
+   */
+  private long computeLayerVersion() {
+    long version = layer.getLinkSegments().size();
+    for (MacroscopicLinkSegmentType linkSegmentType : layer.getLinkSegmentTypes()) {
+      ++version;
+      if (linkSegmentType instanceof MacroscopicLinkSegmentTypeImpl) {
+        version += ((MacroscopicLinkSegmentTypeImpl) linkSegmentType).getAccessVersion();
+      }
+    }
+    return version;
+  }
+
+  /**
+   * Materialise a new snapshot from the layer
+   *
+   * @return created snapshot
+   */
+  private Snapshot materialiseFromLayer() {
+    final int numberOfLinkSegments = (int) layer.getLinkSegments().size();
+    final int maxModeId = layer.getSupportedModes().stream().mapToInt(mode -> (int) mode.getId()).max().orElse(-1);
+
+    final var allowedLinkSegmentsByMode = new long[maxModeId + 1][];
+    final var modelledSpeedsKmHByMode = new double[maxModeId + 1][];
+    final var freeFlowTravelTimesHourByMode = new double[maxModeId + 1][];
+    final var capacitiesPcuH = new double[numberOfLinkSegments];
+    for (Mode mode : layer.getSupportedModes()) {
+      final int modeId = (int) mode.getId();
+      allowedLinkSegmentsByMode[modeId] = new long[(numberOfLinkSegments >> WORD_SHIFT) + 1];
+      modelledSpeedsKmHByMode[modeId] = new double[numberOfLinkSegments];
+      freeFlowTravelTimesHourByMode[modeId] = new double[numberOfLinkSegments];
+      Arrays.fill(freeFlowTravelTimesHourByMode[modeId], Double.MAX_VALUE);
+    }
+
+    final long version = computeLayerVersion();
+    for (MacroscopicLinkSegment linkSegment : layer.getLinkSegments()) {
+      final int linkSegmentId = (int) linkSegment.getLinkSegmentId();
+      capacitiesPcuH[linkSegmentId] = linkSegment.getCapacityOrDefaultPcuH();
+      final double lengthKm = linkSegment.getParentLink().getLengthKm();
+      for (Mode mode : layer.getSupportedModes()) {
+        if (!linkSegment.isModeAllowed(mode)) {
+          continue;
+        }
+        final int modeId = (int) mode.getId();
+        allowedLinkSegmentsByMode[modeId][linkSegmentId >> WORD_SHIFT] |= 1L << linkSegmentId;
+        final double speedKmH = linkSegment.getModelledSpeedLimitKmH(mode);
+        modelledSpeedsKmHByMode[modeId][linkSegmentId] = speedKmH;
+        freeFlowTravelTimesHourByMode[modeId][linkSegmentId] = speedKmH == 0.0 ? Double.MAX_VALUE : lengthKm / speedKmH;
+      }
+    }
+
+    LOGGER.fine(String.format("Materialised mode access for %d link segments", numberOfLinkSegments));
+    return new Snapshot(allowedLinkSegmentsByMode, modelledSpeedsKmHByMode, freeFlowTravelTimesHourByMode, capacitiesPcuH, version, null);
+  }
+
+  /**
+   * Derive a new snapshot from the base's current snapshot, sharing its arrays, and apply the delta on top
+   *
+   * @return created snapshot
+   */
+  private Snapshot deriveFromBase() {
+    base.refreshIfOutdated();
+    final Snapshot baseSnapshot = base.getSnapshot();
+    final long version = delta.getVersion();
+    pending = new PendingDerivation(baseSnapshot);
+    try {
+      delta.applyTo(this);
+      return new Snapshot(pending.allowedLinkSegmentsByMode, pending.modelledSpeedsKmHByMode, pending.freeFlowTravelTimesHourByMode, pending.capacitiesPcuH, version,
+          baseSnapshot);
+    } finally {
+      pending = null;
+    }
+  }
+
+  /**
+   * Verify that this access is derived from a base and is being rebuilt, only then it may be overridden
+   */
+  private void verifyOverridable() {
+    if (base == null) {
+      throw new PlanItRunTimeException("Only mode access derived from a base access can be overridden, materialised access reflects the layer as is");
+    }
+    if (pending == null) {
+      throw new PlanItRunTimeException("Mode access can only be overridden by its delta while being rebuilt");
+    }
+  }
+
+  /**
+   * Constructor, builds the access
+   *
+   * @param layer to materialise access of
+   */
+  public MacroscopicLinkSegmentModeAccess(final MacroscopicNetworkLayer layer) {
+    this.layer = layer;
+    this.base = null;
+    this.delta = null;
+    rebuild();
+  }
+
+  /**
+   * Constructor, derives the access from a base access with a delta applied on top
+   *
+   * @param base  to derive from, not modified
+   * @param delta to apply
+   */
+  public MacroscopicLinkSegmentModeAccess(final MacroscopicLinkSegmentModeAccess base, final Delta delta) {
+    this.layer = base.layer;
+    this.base = base;
+    this.delta = delta;
+    rebuild();
+  }
+
+  /**
+   * Collect the materialised access of a layer, reusing the one maintained by the layer when available
+   *
+   * @param layer to collect for
+   * @return up to date mode access
+   */
+  public static MacroscopicLinkSegmentModeAccess of(final MacroscopicNetworkLayer layer) {
+    if (layer instanceof MacroscopicNetworkLayerImpl) {
+      return ((MacroscopicNetworkLayerImpl) layer).getLinkSegmentModeAccess();
+    }
+    return new MacroscopicLinkSegmentModeAccess(layer);
+  }
+
+  /**
+   * Rebuild all materialised data from the layer, or in case of a derived access, from its base and delta, and publish it as a new snapshot
+   */
+  public synchronized void rebuild() {
+    this.snapshot = (base != null) ? deriveFromBase() : materialiseFromLayer();
+  }
+
+  /**
+   * Verify if the link segment type access of the layer, or its number of link segments, changed since the last build. A derived access is also outdated when its base or delta
+   * changed
+   *
+   * @return true when outdated, false otherwise
+   */
+  public boolean isOutdated() {
+    final Snapshot current = snapshot;
+    if (base != null) {
+      return base.isOutdated() || current.baseSnapshot != base.snapshot || current.version != delta.getVersion();
+    }
+    return current.version != computeLayerVersion();
+  }
+
+  /**
+   * Rebuild when outdated
+   *
+   * @return true when rebuilt, false otherwise
+   */
+  public synchronized boolean refreshIfOutdated() {
+    if (isOutdated()) {
+      rebuild();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Override the capacity of a link segment on a derived access, only to be invoked by its delta
+   *
+   * @param linkSegmentId link segment id (not the edge segment id)
+   * @param capacityPcuH  to use
+   */
+  public void overrideCapacityPcuH(final long linkSegmentId, final double capacityPcuH) {
+    verifyOverridable();
+    if (!pending.capacitiesCopied) {
+      pending.capacitiesPcuH = pending.capacitiesPcuH.clone();
+      pending.capacitiesCopied = true;
+    }
+    pending.capacitiesPcuH[(int) linkSegmentId] = capacityPcuH;
+  }
+
+  /**
+   * Disallow a mode on a link segment of a derived access, only to be invoked by its delta
+   *
+   * @param mode          to disallow
+   * @param linkSegmentId link segment id (not the edge segment id)
+   */
+  public void overrideDisallowed(final Mode mode, final long linkSegmentId) {
+    verifyOverridable();
+    final int modeId = (int) mode.getId();
+    if (!pending.copyModeArraysOnWrite(modeId)) {
+      return;
+    }
+    pending.allowedLinkSegmentsByMode[modeId][(int) (linkSegmentId >> WORD_SHIFT)] &= ~(1L << linkSegmentId);
+    pending.modelledSpeedsKmHByMode[modeId][(int) linkSegmentId] = 0.0;
+    pending.freeFlowTravelTimesHourByMode[modeId][(int) linkSegmentId] = Double.MAX_VALUE;
+  }
+
+  /**
+   * Override the modelled speed limit of a mode on a link segment of a derived access, ignored when the mode is not allowed, only to be invoked by its delta
+   *
+   * @param mode          to override speed of
+   * @param linkSegmentId link segment id (not the edge segment id)
+   * @param speedKmH      to use
+   * @param lengthKm      length of the link segment, to update its free flow travel time
+   */
+  public void overrideModelledSpeedKmH(final Mode mode, final long linkSegmentId, final double speedKmH, final double lengthKm) {
+    verifyOverridable();
+    final int modeId = (int) mode.getId();
+    if (!isAllowed(pending.allowedLinkSegmentsByMode, modeId, linkSegmentId) || !pending.copyModeArraysOnWrite(modeId)) {
+      return;
+    }
+    pending.modelledSpeedsKmHByMode[modeId][(int) linkSegmentId] = speedKmH;
+    pending.freeFlowTravelTimesHourByMode[modeId][(int) linkSegmentId] = speedKmH == 0.0 ? Double.MAX_VALUE : lengthKm / speedKmH;
+  }
+
+  /**
+   * Collect the base access this access is derived from
+   *
+   * @return base, null when materialised from the layer directly
+   */
+  public MacroscopicLinkSegmentModeAccess getBase() {
+    return base;
+  }
+
+  /**
+   * Collect the currently published snapshot. It remains unchanged when the access is rebuilt afterwards, so it provides a consistent view across multiple lookups
+   *
+   * @return current snapshot
+   */
+  public Snapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Verify if mode is allowed on link segment in the current snapshot
+   *
+   * @param mode          to verify
+   * @param linkSegmentId link segment id (not the edge segment id)
+   * @return true when allowed, false otherwise
+   */
+  public boolean isModeAllowed(final Mode mode, final long linkSegmentId) {
+    return snapshot.isModeAllowed(mode, linkSegmentId);
+  }
+
+  /**
+   * Collect the modelled speed limits by link segment id for a mode in the current snapshot, not to be modified
+   *
+   * @param mode to collect for
+   * @return speeds in km/h, zero where not allowed, null when mode is not supported by the layer
+   */
+  public double[] getModelledSpeedsKmH(final Mode mode) {
+    return snapshot.getModelledSpeedsKmH(mode);
+  }
+
+  /**
+   * Collect the free flow travel times by link segment id for a mode in the current snapshot, not to be modified
+   *
+   * @param mode to collect for
+   * @return free flow travel times in hours, Double.MAX_VALUE where not allowed, null when mode is not supported by the layer
+   */
+  public double[] getFreeFlowTravelTimesHour(final Mode mode) {
+    return snapshot.getFreeFlowTravelTimesHour(mode);
+  }
+
+  /**
+   * Collect the capacities by link segment id in the current snapshot, not to be modified
+   *
+   * @return capacities in pcu/h
+   */
+  public double[] getCapacitiesPcuH() {
+    return snapshot.getCapacitiesPcuH();
+  }
+
+}
@@ -1,15 +1,17 @@
 package org.goplanit.network.layer.macroscopic;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.mode.PredefinedModeType;
@@ -50,6 +52,30 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
    */
   protected Map<Mode, AccessGroupProperties> modeAccessProperties;
 
+  /** incremented on each modification of the mode access, allows derived (cached) data to detect it is outdated */
+  private transient long accessVersion = 0;
+
+  /** distinct access groups of this type, cached for {@link #getAccessVersion()}, null when not yet collected */
+  private transient AccessGroupPropertiesImpl[] distinctAccessGroups = null;
+
+  /** access version at the time the distinct access groups were collected */
+  private transient long distinctAccessGroupsVersion = 0;
+
+  /**
+   * Collect the distinct access groups of this type, groups are shared across modes so each is only included once
+   * 
+   * @return distinct access groups
+   */
+  private AccessGroupPropertiesImpl[] collectDistinctAccessGroups() {
+    Set<AccessGroupProperties> groups = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (AccessGroupProperties group : modeAccessProperties.values()) {
+      if (group instanceof AccessGroupPropertiesImpl) {
+        groups.add(group);
+      }
+    }
+    return groups.toArray(AccessGroupPropertiesImpl[]::new);
+  }
+
   /**
    * set the id on this link segment type
    * 
@@ -66,7 +92,7 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
    * @return created id
    */
   protected static long generateId(IdGroupingToken idGroupingToken) {
-    return IdGenerator.generateId(idGroupingToken, MACROSCOPIC_LINK_SEGMENT_TYPE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(idGroupingToken, MACROSCOPIC_LINK_SEGMENT_TYPE_ID_CLASS);
   }
 
   // Public
@@ -249,6 +275,7 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
       }
       processedModes.addAll(entry.getAccessModes());
     }
+    ++accessVersion;
   }
 
   /**
@@ -259,6 +286,7 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
     for (Mode mode : accessProperties.getAccessModes()) {
       this.modeAccessProperties.put(mode, accessProperties);
     }
+    ++accessVersion;
   }
 
   /**
@@ -283,6 +311,7 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
     }
     boolean success = accessProperties.removeAccessMode(toBeRemovedMode);
     this.modeAccessProperties.remove(toBeRemovedMode);
+    ++accessVersion;
     if(!accessProperties.hasAccessModes() && !hasAllowedModes()){
       LOGGER.warning(String.format("Link segment type (%s) has no more supported modes, consider removing", this.getXmlId()));
     }
@@ -323,6 +352,26 @@ public class MacroscopicLinkSegmentTypeImpl extends ExternalIdAbleImpl implement
     }
     this.modeAccessProperties.put(accessMode, accessGroupProperties);
     accessGroupProperties.addAccessMode(accessMode);
+    ++accessVersion;
+  }
+
+  /**
+   * Version of the mode access of this type, changes whenever the allowed modes or the properties of any of its access groups change
+   * 
+   * @return access version
+   */
+  public long getAccessVersion() {
+    /* the groups only change when the access version of this type changes, so only collect them again when it did */
+    if (distinctAccessGroups == null || distinctAccessGroupsVersion != accessVersion) {
+      distinctAccessGroups = collectDistinctAccessGroups();
+      distinctAccessGroupsVersion = accessVersion;
+    }
+    /* all counters only increase so any change increases the sum */
+    long version = accessVersion;
+    for (int index = 0; index < distinctAccessGroups.length; ++index) {
+      version += distinctAccessGroups[index].getVersion();
+    }
+    return version;
   }
 
   /**
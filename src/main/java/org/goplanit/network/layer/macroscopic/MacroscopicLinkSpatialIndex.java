@@ -0,0 +1,266 @@
+package org.goplanit.network.layer.macroscopic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.goplanit.graph.modifier.event.BreakEdgeEvent;
+import org.goplanit.graph.modifier.event.RemoveSubGraphEdgeEvent;
+import org.goplanit.utils.event.EventType;
+import org.goplanit.utils.geo.PlanitGraphGeoUtils;
+import org.goplanit.utils.geo.PlanitJtsCrsUtils;
+import org.goplanit.utils.geo.PlanitJtsUtils;
+import org.goplanit.utils.graph.Edge;
+import org.goplanit.utils.graph.modifier.event.GraphModificationEvent;
+import org.goplanit.utils.graph.modifier.event.GraphModifierListener;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.locationtech.jts.operation.distance.DistanceOp;
+
+/**
+ * Spatial index over the geometries of the links of a macroscopic network layer. It supports nearest link and within distance queries without scanning all links which is what
+ * otherwise dominates connectoid placement and the identification of links to break on large networks. See the spatial index based utilities of
+ * {@link org.goplanit.converter.zoning.ZoningConverterUtils} for finding access link segments, connectoid locations and breaking links at a node.
+ * <p>
+ * The index is backed by a quadtree rather than a bulk loaded STR tree because the latter cannot be modified once built. It is owned by the layer, see
+ * {@link MacroscopicNetworkLayerImpl#getLinkSpatialIndex(PlanitJtsCrsUtils)}, which registers it on the layer modifier so it keeps itself up to date when links are broken or
+ * removed. Links added or removed otherwise are detected by the layer via {@link #getNumberOfRegisteredLinks()} upon which the index is rebuilt, while geometry changes of existing links
+ * require the user to invalidate the index via {@link MacroscopicNetworkLayerImpl#invalidateLinkSpatialIndex()}.
+ * </p>
+ * <p>
+ * Distances are in meters regardless of the coordinate reference system used, links without geometry are not indexed.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class MacroscopicLinkSpatialIndex implements GraphModifierListener {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(MacroscopicLinkSpatialIndex.class.getCanonicalName());
+
+  /** initial radius used when searching for the nearest link */
+  private static final double INITIAL_NEAREST_SEARCH_RADIUS_METERS = 25;
+
+  /** offset in coordinate units used to estimate the local meters per coordinate unit */
+  private static final double LOCAL_SCALE_OFFSET = 1e-3;
+
+  /** the quadtree holding the links by envelope */
+  private final Quadtree quadtree;
+
+  /** envelope each link has been indexed with, required for removal, by identity since ids may be recreated while indexed */
+  private final Map<MacroscopicLink, Envelope> indexedEnvelopes;
+
+  /** links registered without geometry, tracked by identity so the index knows all links it has been offered */
+  private final Set<MacroscopicLink> linksWithoutGeometry;
+
+  /** geo utils to compute distances in meters with */
+  private final PlanitJtsCrsUtils geoUtils;
+
+  /**
+   * Estimate the distance in coordinate units that covers at least the given distance in meters around the location in any direction
+   *
+   * @param location       to estimate around
+   * @param distanceMeters to convert
+   * @return distance in coordinate units
+   */
+  private double toCoordinateDistance(final Coordinate location, final double distanceMeters) {
+    Point origin = PlanitJtsUtils.createPoint(location);
+    double metersPerUnitX = geoUtils.getDistanceInKilometres(origin, PlanitJtsUtils.createPoint(new Coordinate(location.x + LOCAL_SCALE_OFFSET, location.y))) * 1000 / LOCAL_SCALE_OFFSET;
+    double metersPerUnitY = geoUtils.getDistanceInKilometres(origin, PlanitJtsUtils.createPoint(new Coordinate(location.x, location.y + LOCAL_SCALE_OFFSET))) * 1000 / LOCAL_SCALE_OFFSET;
+    /* the smallest scale yields the largest, i.e., conservative, search distance */
+    return distanceMeters / Math.min(metersPerUnitX, metersPerUnitY);
+  }
+
+  /**
+   * Compute the distance in meters between the location and the geometry of the link
+   *
+   * @param location to use
+   * @param link     to use
+   * @return distance in meters
+   */
+  private double getDistanceInMeters(final Geometry location, final MacroscopicLink link) {
+    Coordinate[] nearestPoints = DistanceOp.nearestPoints(location, link.getGeometry());
+    return geoUtils.getDistanceInKilometres(PlanitJtsUtils.createPoint(nearestPoints[0]), PlanitJtsUtils.createPoint(nearestPoints[1])) * 1000;
+  }
+
+  /**
+   * Handle a broken edge by updating the original (now shortened) link and inserting the newly created link
+   *
+   * @param aToBreak edge running from original vertex A to break location
+   * @param breakToB edge running from break location to original vertex B
+   */
+  private void onBreakEdge(final Edge aToBreak, final Edge breakToB) {
+    if (aToBreak instanceof MacroscopicLink) {
+      update((MacroscopicLink) aToBreak);
+    }
+    if (breakToB instanceof MacroscopicLink) {
+      update((MacroscopicLink) breakToB);
+    }
+  }
+
+  /**
+   * Constructor, indexes all links of the given layer
+   *
+   * @param links    to index
+   * @param geoUtils to compute distances with, must be based on the same coordinate reference system as the link geometries
+   */
+  public MacroscopicLinkSpatialIndex(final Iterable<? extends MacroscopicLink> links, final PlanitJtsCrsUtils geoUtils) {
+    this.quadtree = new Quadtree();
+    this.indexedEnvelopes = new IdentityHashMap<>();
+    this.linksWithoutGeometry = Collections.newSetFromMap(new IdentityHashMap<>());
+    this.geoUtils = geoUtils;
+    for (MacroscopicLink link : links) {
+      insert(link);
+    }
+  }
+
+  /**
+   * Add a link to the index, links without geometry are registered but not indexed
+   *
+   * @param link to add
+   * @return true when indexed, false otherwise
+   */
+  public boolean insert(final MacroscopicLink link) {
+    if (link.getGeometry() == null) {
+      LOGGER.fine(String.format("Link %s (id:%d) has no geometry, not added to spatial index", link.getXmlId(), link.getId()));
+      linksWithoutGeometry.add(link);
+      return false;
+    }
+    if (indexedEnvelopes.containsKey(link)) {
+      return false;
+    }
+    Envelope envelope = new Envelope(link.getGeometry().getEnvelopeInternal());
+    quadtree.insert(envelope, link);
+    indexedEnvelopes.put(link, envelope);
+    return true;
+  }
+
+  /**
+   * Remove a link from the index
+   *
+   * @param link to remove
+   * @return true when removed, false when it was not indexed
+   */
+  public boolean remove(final MacroscopicLink link) {
+    linksWithoutGeometry.remove(link);
+    Envelope envelope = indexedEnvelopes.remove(link);
+    if (envelope == null) {
+      return false;
+    }
+    return quadtree.remove(envelope, link);
+  }
+
+  /**
+   * Update the index for a link whose geometry might have changed, when not yet indexed it is added
+   *
+   * @param link to update
+   */
+  public void update(final MacroscopicLink link) {
+    remove(link);
+    insert(link);
+  }
+
+  /**
+   * Number of indexed links
+   *
+   * @return number of links indexed
+   */
+  public int size() {
+    return indexedEnvelopes.size();
+  }
+
+  /**
+   * Number of registered links, i.e., indexed links and links without geometry. When this differs from the number of links on the layer, links have been added or removed
+   * without the index being informed
+   *
+   * @return number of registered links
+   */
+  public int getNumberOfRegisteredLinks() {
+    return indexedEnvelopes.size() + linksWithoutGeometry.size();
+  }
+
+  /**
+   * Find all links whose geometry is within the given distance of the location
+   *
+   * @param location       to search around
+   * @param distanceMeters maximum distance in meters
+   * @return links found, empty when none
+   */
+  public Collection<MacroscopicLink> findLinksWithinDistance(final Geometry location, final double distanceMeters) {
+    Envelope searchEnvelope = new Envelope(location.getEnvelopeInternal());
+    searchEnvelope.expandBy(toCoordinateDistance(searchEnvelope.centre(), distanceMeters));
+
+    @SuppressWarnings("unchecked")
+    List<MacroscopicLink> candidates = quadtree.query(searchEnvelope);
+    List<MacroscopicLink> result = new ArrayList<>(candidates.size());
+    for (MacroscopicLink candidate : candidates) {
+      /* quadtree query returns a superset of the links actually intersecting the envelope */
+      if (indexedEnvelopes.get(candidate) == null || !searchEnvelope.intersects(indexedEnvelopes.get(candidate))) {
+        continue;
+      }
+      if (getDistanceInMeters(location, candidate) <= distanceMeters) {
+        result.add(candidate);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Find the link closest to the location, searching in increasing radii up to the maximum distance provided
+   *
+   * @param location          to search around
+   * @param maxDistanceMeters maximum distance in meters
+   * @return closest link, null when no link is within the maximum distance
+   */
+  public MacroscopicLink findNearestLink(final Geometry location, final double maxDistanceMeters) {
+    double radius = Math.min(INITIAL_NEAREST_SEARCH_RADIUS_METERS, maxDistanceMeters);
+    while (true) {
+      /* all links within the radius are candidates, so the closest among them is the closest overall */
+      Collection<MacroscopicLink> candidates = findLinksWithinDistance(location, radius);
+      if (!candidates.isEmpty()) {
+        return (MacroscopicLink) PlanitGraphGeoUtils.findEdgeClosest(location, candidates, geoUtils);
+      }
+      if (radius >= maxDistanceMeters) {
+        return null;
+      }
+      radius = Math.min(2 * radius, maxDistanceMeters);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public EventType[] getKnownSupportedEventTypes() {
+    return new EventType[] { BreakEdgeEvent.EVENT_TYPE, RemoveSubGraphEdgeEvent.EVENT_TYPE };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onGraphModificationEvent(GraphModificationEvent event) {
+    if (event.getType().equals(BreakEdgeEvent.EVENT_TYPE)) {
+      BreakEdgeEvent breakEdgeEvent = BreakEdgeEvent.class.cast(event);
+      onBreakEdge(breakEdgeEvent.getEdgeFromVertexAToBreak(), breakEdgeEvent.getEdgeFromBreakToVertexB());
+    } else if (event.getType().equals(RemoveSubGraphEdgeEvent.EVENT_TYPE)) {
+      Edge removedEdge = RemoveSubGraphEdgeEvent.class.cast(event).getRemovedEdge();
+      if (removedEdge instanceof MacroscopicLink) {
+        remove((MacroscopicLink) removedEdge);
+      }
+    } else {
+      LOGGER.warning(String.format("%s does not support event type %s", MacroscopicLinkSpatialIndex.class.getName(), event.getType()));
+    }
+  }
+
+}
@@ -5,6 +5,7 @@ import java.util.logging.Logger;
 
 import org.goplanit.network.layer.physical.NodesImpl;
 import org.goplanit.network.layer.physical.UntypedPhysicalLayerImpl;
+import org.goplanit.utils.geo.PlanitJtsCrsUtils;
 import org.goplanit.utils.graph.GraphEntityDeepCopyMapper;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdDeepCopyMapper;
@@ -29,6 +30,12 @@ public class MacroscopicNetworkLayerImpl extends UntypedPhysicalLayerImpl<Node,
   /** The container for the link segment types available across all link segments */
   public final MacroscopicLinkSegmentTypes linkSegmentTypes;
 
+  /** lazily materialised mode access of the link segments */
+  private transient MacroscopicLinkSegmentModeAccess linkSegmentModeAccess;
+
+  /** lazily created spatial index of the links, registered on the layer modifier while present */
+  private transient MacroscopicLinkSpatialIndex linkSpatialIndex;
+
   /**
    * Constructor
    * 
@@ -167,6 +174,7 @@ public class MacroscopicNetworkLayerImpl extends UntypedPhysicalLayerImpl<Node,
   @Override
   public void reset() {
     super.reset();
+    invalidateLinkSpatialIndex();
     this.resetChildManagedIdEntities();
   }
 
@@ -179,6 +187,50 @@ public class MacroscopicNetworkLayerImpl extends UntypedPhysicalLayerImpl<Node,
     this.linkSegmentTypes.reset();
   }
 
+  /**
+   * Collect the spatial index over the links of this layer. It is created on first access and registered on the layer modifier so it remains up to date when links are broken or
+   * removed via the modifier. When links have been added or removed otherwise, the index is rebuilt. Geometry changes of existing links are not detected, use
+   * {@link #invalidateLinkSpatialIndex()} after such changes.
+   * 
+   * @param geoUtils to compute distances with, based on the coordinate reference system of the network this layer belongs to, only used when the index is (re)built
+   * @return up to date spatial index
+   */
+  public synchronized MacroscopicLinkSpatialIndex getLinkSpatialIndex(final PlanitJtsCrsUtils geoUtils) {
+    if (linkSpatialIndex != null && linkSpatialIndex.getNumberOfRegisteredLinks() != getLinks().size()) {
+      LOGGER.fine("Links changed without notifying the link spatial index, rebuilding it");
+      invalidateLinkSpatialIndex();
+    }
+    if (linkSpatialIndex == null) {
+      linkSpatialIndex = new MacroscopicLinkSpatialIndex(getLinks(), geoUtils);
+      getLayerModifier().addListener(linkSpatialIndex);
+    }
+    return linkSpatialIndex;
+  }
+
+  /**
+   * Discard the spatial index over the links of this layer (if any), the next call to {@link #getLinkSpatialIndex(PlanitJtsCrsUtils)} rebuilds it
+   */
+  public synchronized void invalidateLinkSpatialIndex() {
+    if (linkSpatialIndex != null) {
+      getLayerModifier().removeListener(linkSpatialIndex);
+      linkSpatialIndex = null;
+    }
+  }
+
+  /**
+   * Collect the materialised mode access of the link segments of this layer, created on first access and rebuilt whenever it is outdated
+   * 
+   * @return up to date mode access
+   */
+  public synchronized MacroscopicLinkSegmentModeAccess getLinkSegmentModeAccess() {
+    if (linkSegmentModeAccess == null) {
+      linkSegmentModeAccess = new MacroscopicLinkSegmentModeAccess(this);
+    } else {
+      linkSegmentModeAccess.refreshIfOutdated();
+    }
+    return linkSegmentModeAccess;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -91,9 +91,39 @@ public class UntypedNetworkLayerModifierImpl<V extends DirectedVertex, E extends
    */
   @Override
   public void removeDanglingSubnetworks(final Integer belowSize, Integer aboveSize, boolean alwaysKeepLargest) {
-    /* perform removal */
-    graphModifier.removeDanglingSubGraphs(belowSize, aboveSize, alwaysKeepLargest);
-    graphModifier.recreateManagedEntitiesIds();
+    /* perform removal, as a single transaction so removal events are coalesced and ids are recreated once, always committed so the layer is not left in a transaction */
+    graphModifier.beginTransaction();
+    try {
+      graphModifier.removeDanglingSubGraphs(belowSize, aboveSize, alwaysKeepLargest);
+      graphModifier.recreateManagedEntitiesIds();
+    } finally {
+      graphModifier.commitTransaction();
+    }
+  }
+
+  /**
+   * Begin a modification transaction on this layer. Until committed, removal events are deferred and coalesced and managed ids are recreated at most once, upon commit. Use
+   * this when applying many modifications in succession, e.g., breaking links at many stops and removing dangling subnetworks. Commit in a finally block, otherwise a failing
+   * modification leaves the layer in the transaction
+   */
+  public void beginTransaction() {
+    graphModifier.beginTransaction();
+  }
+
+  /**
+   * Commit the active modification transaction on this layer
+   */
+  public void commitTransaction() {
+    graphModifier.commitTransaction();
+  }
+
+  /**
+   * Verify if a modification transaction is active on this layer
+   * 
+   * @return true when active, false otherwise
+   */
+  public boolean isInTransaction() {
+    return graphModifier.isInTransaction();
   }
 
   /**
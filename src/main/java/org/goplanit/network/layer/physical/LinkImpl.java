@@ -3,9 +3,9 @@ package org.goplanit.network.layer.physical;
 import java.util.logging.Logger;
 
 import org.goplanit.graph.directed.DirectedEdgeImpl;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.graph.directed.DirectedVertex;
 import org.goplanit.utils.graph.directed.EdgeSegment;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.math.Precision;
 import org.goplanit.utils.network.layer.physical.Link;
@@ -39,7 +39,7 @@ public class LinkImpl<N extends DirectedVertex, LS extends EdgeSegment> extends
    * @return linkId created
    */
   protected static long generateLinkId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, LINK_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, LINK_ID_CLASS);
   }
 
   /**
@@ -1,8 +1,8 @@
 package org.goplanit.network.layer.physical;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentTypesImpl;
 import org.goplanit.utils.graph.ManagedGraphEntitiesImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdEntitiesImpl;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
@@ -96,7 +96,7 @@ public class LinksImpl<L extends Link> extends ManagedGraphEntitiesImpl<L> imple
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional link id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), L.LINK_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), L.LINK_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
@@ -106,7 +106,7 @@ public class LinksImpl<L extends Link> extends ManagedGraphEntitiesImpl<L> imple
    */
   @Override
   public void reset() {
-    IdGenerator.reset(getFactory().getIdGroupingToken(), L.LINK_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), L.LINK_ID_CLASS);
     super.reset();
   }
 
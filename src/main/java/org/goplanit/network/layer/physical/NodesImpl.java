@@ -1,7 +1,7 @@
 package org.goplanit.network.layer.physical;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.graph.ManagedGraphEntitiesImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdEntitiesImpl;
 import org.goplanit.utils.network.layer.physical.ConjugateNode;
@@ -70,7 +70,7 @@ public class NodesImpl extends ManagedGraphEntitiesImpl<Node> implements Nodes {
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional node id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), Node.NODE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), Node.NODE_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
@@ -104,7 +104,7 @@ public class NodesImpl extends ManagedGraphEntitiesImpl<Node> implements Nodes {
    */
   @Override
   public void reset() {
-    IdGenerator.reset(getFactory().getIdGroupingToken(), Node.NODE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), Node.NODE_ID_CLASS);
     super.reset();
   }
 }
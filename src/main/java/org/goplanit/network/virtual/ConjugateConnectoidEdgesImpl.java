@@ -1,7 +1,7 @@
 package org.goplanit.network.virtual;
 
 import org.goplanit.utils.graph.ManagedGraphEntitiesImpl;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.virtual.ConjugateConnectoidEdge;
 import org.goplanit.utils.network.virtual.ConjugateConnectoidEdgeFactory;
@@ -70,7 +70,7 @@ public class ConjugateConnectoidEdgesImpl extends ManagedGraphEntitiesImpl<Conju
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional connectoid edge id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidEdge.CONNECTOID_EDGE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidEdge.CONNECTOID_EDGE_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
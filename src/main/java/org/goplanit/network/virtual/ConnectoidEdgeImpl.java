@@ -7,7 +7,7 @@ import org.goplanit.utils.geo.PlanitJtsUtils;
 import org.goplanit.utils.graph.directed.DirectedEdge;
 import org.goplanit.utils.graph.directed.DirectedVertex;
 import org.goplanit.utils.graph.directed.EdgeSegment;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.virtual.CentroidVertex;
 import org.goplanit.utils.network.virtual.ConnectoidEdge;
@@ -44,7 +44,7 @@ public class ConnectoidEdgeImpl extends DirectedEdgeImpl<DirectedVertex, EdgeSeg
    * @return id of connectoid edge
    */
   protected static long generateConnectoidEdgeId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, Connectoid.class);
+    return SynchronisedIdGenerator.generateId(tokenId, Connectoid.class);
   }
 
   /**
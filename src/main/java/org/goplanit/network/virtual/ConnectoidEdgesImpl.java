@@ -2,7 +2,7 @@ package org.goplanit.network.virtual;
 
 import org.goplanit.network.layer.service.ServiceNodesImpl;
 import org.goplanit.utils.graph.ManagedGraphEntitiesImpl;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdEntitiesImpl;
 import org.goplanit.utils.network.layer.service.ServiceNode;
@@ -72,7 +72,7 @@ public class ConnectoidEdgesImpl extends ManagedGraphEntitiesImpl<ConnectoidEdge
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional connectoid edge id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidEdge.CONNECTOID_EDGE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidEdge.CONNECTOID_EDGE_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
@@ -2,7 +2,7 @@ package org.goplanit.network.virtual;
 
 import org.goplanit.graph.directed.EdgeSegmentImpl;
 import org.goplanit.utils.exceptions.PlanItException;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.virtual.ConnectoidEdge;
 import org.goplanit.utils.network.virtual.ConnectoidSegment;
@@ -37,7 +37,7 @@ public class ConnectoidSegmentImpl extends EdgeSegmentImpl<ConnectoidEdge> imple
    * @return linkSegmentId
    */
   protected static long generateConnectoidSegmentId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, ConnectoidSegment.CONNECTOID_SEGMENT_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, ConnectoidSegment.CONNECTOID_SEGMENT_ID_CLASS);
   }
 
   /**
@@ -1,7 +1,7 @@
 package org.goplanit.network.virtual;
 
 import org.goplanit.utils.graph.ManagedGraphEntitiesImpl;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdEntitiesImpl;
 import org.goplanit.utils.network.virtual.ConnectoidEdge;
@@ -72,7 +72,7 @@ public class ConnectoidSegmentsImpl extends ManagedGraphEntitiesImpl<ConnectoidS
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional connectoid segment id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidSegment.CONNECTOID_SEGMENT_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), ConnectoidSegment.CONNECTOID_SEGMENT_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
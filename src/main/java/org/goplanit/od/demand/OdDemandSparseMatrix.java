@@ -0,0 +1,461 @@
+package org.goplanit.od.demand;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+import org.goplanit.utils.functionalinterface.TriConsumer;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.od.OdDataImpl;
+import org.goplanit.utils.od.OdDataIterator;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.OdZones;
+
+/**
+ * OD demands stored in a compressed sparse row (CSR) layout. For each origin (by od zone id) the destinations with an entry are stored in ascending order of their od zone id
+ * together with their demand in single precision. Memory and iteration cost are therefore proportional to the number of non-zero od pairs rather than the number of zones
+ * squared, which makes this the preferred container for large zone systems with sparse demand, e.g., freight models. Its {@link #iterator()} visits all od pairs like the dense
+ * containers, while {@link #nonZeroIterator()} and the non-zero forEach methods only visit the stored entries.
+ * <p>
+ * Values set for od pairs without an existing entry are buffered and merged into the compressed layout once population ends, see {@link #finalisePopulation()}, so populating it
+ * origin by origin, or in any order, is cheap. Concurrent reads are supported once populated, concurrent writes are not.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class OdDemandSparseMatrix extends OdDataImpl<Double> implements OdDemands {
+
+  /** initial capacity of the pending entry buffer */
+  private static final int INITIAL_PENDING_CAPACITY = 16;
+
+  /** lookup of od zones by their od zone id */
+  private final OdZone[] zonesByOdZoneId;
+
+  /** position of the first entry of each origin, origin o its entries are in [originOffsets[o], originOffsets[o+1]) */
+  private int[] originOffsets;
+
+  /** destination od zone id of each entry, ascending per origin */
+  private int[] destinationIndices;
+
+  /** demand of each entry */
+  private float[] values;
+
+  /** origins of entries not yet merged into the compressed layout */
+  private int[] pendingOrigins;
+
+  /** destinations of entries not yet merged into the compressed layout */
+  private int[] pendingDestinations;
+
+  /** values of entries not yet merged into the compressed layout */
+  private float[] pendingValues;
+
+  /** number of pending entries */
+  private int numberOfPendingEntries;
+
+  /**
+   * Iterator over the sparse matrix in origin, destination order. Either all od pairs are visited, consistent with the dense od demand containers, in which case od pairs without
+   * an entry have zero demand, or only the non-zero entries are visited
+   *
+   * @author markr
+   */
+  public class OdDemandSparseMatrixIterator implements OdDataIterator<Double> {
+
+    /** when true only non-zero entries are visited, all od pairs otherwise */
+    private final boolean nonZeroOnly;
+
+    /** number of zones */
+    private final int numberOfZones;
+
+    /** current origin od zone id */
+    private int currentOrigin = 0;
+
+    /** current destination od zone id, -1 before the first call to next */
+    private int currentDestination = -1;
+
+    /** value of the current od pair */
+    private float currentValue = 0;
+
+    /** entry position, when visiting all od pairs the first entry of the current origin with a destination at or beyond the current destination */
+    private int entry = 0;
+
+    /** next non-zero entry position, only used when visiting non-zero entries */
+    private int nextEntry;
+
+    /**
+     * Find the first non-zero entry at or after the given position
+     *
+     * @param entry to start from
+     * @return position found, number of entries if none
+     */
+    private int findNonZeroEntry(int entry) {
+      final int numberOfEntries = originOffsets[numberOfZones];
+      while (entry < numberOfEntries && values[entry] == 0) {
+        ++entry;
+      }
+      return entry;
+    }
+
+    /**
+     * Move to the next non-zero entry
+     */
+    private void nextNonZeroEntry() {
+      entry = nextEntry;
+      while (originOffsets[currentOrigin + 1] <= entry) {
+        ++currentOrigin;
+      }
+      currentDestination = destinationIndices[entry];
+      currentValue = values[entry];
+      nextEntry = findNonZeroEntry(entry + 1);
+    }
+
+    /**
+     * Move to the next od pair
+     */
+    private void nextOdPair() {
+      if (++currentDestination == numberOfZones) {
+        currentDestination = 0;
+        ++currentOrigin;
+      }
+      final int originEnd = originOffsets[currentOrigin + 1];
+      entry = Math.max(entry, originOffsets[currentOrigin]);
+      while (entry < originEnd && destinationIndices[entry] < currentDestination) {
+        ++entry;
+      }
+      currentValue = entry < originEnd && destinationIndices[entry] == currentDestination ? values[entry] : 0;
+    }
+
+    /**
+     * Constructor
+     *
+     * @param nonZeroOnly when true only non-zero entries are visited, all od pairs otherwise
+     */
+    public OdDemandSparseMatrixIterator(boolean nonZeroOnly) {
+      mergePendingEntriesIfAny();
+      this.nonZeroOnly = nonZeroOnly;
+      this.numberOfZones = zonesByOdZoneId.length;
+      this.nextEntry = nonZeroOnly ? findNonZeroEntry(0) : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+      if (nonZeroOnly) {
+        return nextEntry < originOffsets[numberOfZones];
+      }
+      return currentOrigin < numberOfZones - 1 || (currentOrigin == numberOfZones - 1 && currentDestination < numberOfZones - 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("No more entries in sparse od demands");
+      }
+      if (nonZeroOnly) {
+        nextNonZeroEntry();
+      } else {
+        nextOdPair();
+      }
+      return getCurrentValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OdZone getCurrentOrigin() {
+      return zonesByOdZoneId[currentOrigin];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OdZone getCurrentDestination() {
+      return zonesByOdZoneId[currentDestination];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double getCurrentValue() {
+      return (double) currentValue;
+    }
+  }
+
+  /**
+   * Locate the entry of an od pair in the compressed layout
+   *
+   * @param origin      od zone id of the origin
+   * @param destination od zone id of the destination
+   * @return position of the entry, negative when absent
+   */
+  private int findEntry(int origin, int destination) {
+    final int from = originOffsets[origin];
+    final int to = originOffsets[origin + 1];
+    if (from == to) {
+      return -1;
+    }
+    return Arrays.binarySearch(destinationIndices, from, to, destination);
+  }
+
+  /**
+   * Buffer an entry that does not yet exist in the compressed layout
+   *
+   * @param origin      od zone id of the origin
+   * @param destination od zone id of the destination
+   * @param value       demand
+   */
+  private void addPendingEntry(int origin, int destination, float value) {
+    if (pendingOrigins == null) {
+      pendingOrigins = new int[INITIAL_PENDING_CAPACITY];
+      pendingDestinations = new int[INITIAL_PENDING_CAPACITY];
+      pendingValues = new float[INITIAL_PENDING_CAPACITY];
+    } else if (numberOfPendingEntries == pendingOrigins.length) {
+      final int newCapacity = pendingOrigins.length * 2;
+      pendingOrigins = Arrays.copyOf(pendingOrigins, newCapacity);
+      pendingDestinations = Arrays.copyOf(pendingDestinations, newCapacity);
+      pendingValues = Arrays.copyOf(pendingValues, newCapacity);
+    }
+    pendingOrigins[numberOfPendingEntries] = origin;
+    pendingDestinations[numberOfPendingEntries] = destination;
+    pendingValues[numberOfPendingEntries] = value;
+    ++numberOfPendingEntries;
+  }
+
+  /**
+   * Merge pending entries, if any, into the compressed layout. Reads only pay for this check, the merge itself happens once, when population ends, see
+   * {@link #finalisePopulation()}
+   */
+  private void mergePendingEntriesIfAny() {
+    if (numberOfPendingEntries > 0) {
+      mergePendingEntries();
+    }
+  }
+
+  /**
+   * Merge all pending entries into the compressed layout. Pending entries are bucketed by origin and sorted by destination after which each origin's existing and pending
+   * entries are merged in a single pass. When the same od pair was set more than once while pending, the last value set prevails
+   */
+  private synchronized void mergePendingEntries() {
+    if (numberOfPendingEntries == 0) {
+      /* merged by another thread in the meantime */
+      return;
+    }
+
+    /* bucket pending entries by origin, within a bucket order by destination and then by insertion order */
+    final int numberOfZones = zonesByOdZoneId.length;
+    final int[] pendingOffsets = new int[numberOfZones + 1];
+    for (int pending = 0; pending < numberOfPendingEntries; ++pending) {
+      ++pendingOffsets[pendingOrigins[pending] + 1];
+    }
+    for (int origin = 0; origin < numberOfZones; ++origin) {
+      pendingOffsets[origin + 1] += pendingOffsets[origin];
+    }
+    final int[] insertPositions = Arrays.copyOf(pendingOffsets, numberOfZones);
+    final long[] sortKeys = new long[numberOfPendingEntries];
+    for (int pending = 0; pending < numberOfPendingEntries; ++pending) {
+      sortKeys[insertPositions[pendingOrigins[pending]]++] = ((long) pendingDestinations[pending] << 32) | pending;
+    }
+
+    final int numberOfExistingEntries = originOffsets[numberOfZones];
+    final int[] newOriginOffsets = new int[numberOfZones + 1];
+    final int[] newDestinationIndices = new int[numberOfExistingEntries + numberOfPendingEntries];
+    final float[] newValues = new float[numberOfExistingEntries + numberOfPendingEntries];
+
+    int newEntry = 0;
+    for (int origin = 0; origin < numberOfZones; ++origin) {
+      newOriginOffsets[origin] = newEntry;
+      int existingEntry = originOffsets[origin];
+      final int existingEnd = originOffsets[origin + 1];
+      int pendingPosition = pendingOffsets[origin];
+      final int pendingEnd = pendingOffsets[origin + 1];
+      if (pendingEnd - pendingPosition > 1) {
+        Arrays.sort(sortKeys, pendingPosition, pendingEnd);
+      }
+
+      while (existingEntry < existingEnd || pendingPosition < pendingEnd) {
+        if (pendingPosition == pendingEnd || (existingEntry < existingEnd && destinationIndices[existingEntry] < (int) (sortKeys[pendingPosition] >>> 32))) {
+          newDestinationIndices[newEntry] = destinationIndices[existingEntry];
+          newValues[newEntry++] = values[existingEntry++];
+        } else {
+          /* skip to the last pending value set for this od pair */
+          while (pendingPosition + 1 < pendingEnd && (sortKeys[pendingPosition + 1] >>> 32) == (sortKeys[pendingPosition] >>> 32)) {
+            ++pendingPosition;
+          }
+          final int pending = (int) sortKeys[pendingPosition++];
+          newDestinationIndices[newEntry] = pendingDestinations[pending];
+          newValues[newEntry++] = pendingValues[pending];
+        }
+      }
+    }
+    newOriginOffsets[numberOfZones] = newEntry;
+
+    this.originOffsets = newOriginOffsets;
+    this.destinationIndices = newEntry == newDestinationIndices.length ? newDestinationIndices : Arrays.copyOf(newDestinationIndices, newEntry);
+    this.values = newEntry == newValues.length ? newValues : Arrays.copyOf(newValues, newEntry);
+    this.pendingOrigins = null;
+    this.pendingDestinations = null;
+    this.pendingValues = null;
+    this.numberOfPendingEntries = 0;
+  }
+
+  /**
+   * Constructor
+   *
+   * @param zones holds the zones defined in the network
+   */
+  public OdDemandSparseMatrix(OdZones zones) {
+    super(OdDemandSparseMatrix.class, IdGroupingToken.collectGlobalToken(), zones);
+    this.zonesByOdZoneId = new OdZone[zones.size()];
+    for (var zone : zones) {
+      zonesByOdZoneId[(int) zone.getOdZoneId()] = zone;
+    }
+    this.originOffsets = new int[zones.size() + 1];
+    this.destinationIndices = new int[0];
+    this.values = new float[0];
+  }
+
+  /**
+   * Copy constructor
+   *
+   * @param other to copy
+   */
+  public OdDemandSparseMatrix(final OdDemandSparseMatrix other) {
+    super(other);
+    other.mergePendingEntriesIfAny();
+    this.zonesByOdZoneId = other.zonesByOdZoneId;
+    this.originOffsets = other.originOffsets.clone();
+    this.destinationIndices = other.destinationIndices.clone();
+    this.values = other.values.clone();
+  }
+
+  /**
+   * Number of entries stored, this includes entries that were explicitly set to zero after being set to a non-zero value
+   *
+   * @return number of entries
+   */
+  public int getNumberOfEntries() {
+    mergePendingEntriesIfAny();
+    return originOffsets[zonesByOdZoneId.length];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getValue(OdZone origin, OdZone destination) {
+    mergePendingEntriesIfAny();
+    final int entry = findEntry((int) origin.getOdZoneId(), (int) destination.getOdZoneId());
+    return entry < 0 ? 0.0 : values[entry];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setValue(OdZone origin, OdZone destination, Double value) {
+    final int originIndex = (int) origin.getOdZoneId();
+    final int destinationIndex = (int) destination.getOdZoneId();
+    final int entry = findEntry(originIndex, destinationIndex);
+    if (entry >= 0) {
+      values[entry] = value.floatValue();
+    } else if (value != 0 || numberOfPendingEntries > 0) {
+      /* zero values need only be buffered when they may override an earlier pending non-zero value */
+      addPendingEntry(originIndex, destinationIndex, value.floatValue());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void multiply(final double factor) {
+    mergePendingEntriesIfAny();
+    for (int entry = 0; entry < values.length; ++entry) {
+      values[entry] *= factor;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Only the stored entries are visited rather than all od combinations
+   */
+  @Override
+  public void forEachNonZeroOdDemand(final OdZones odZones, final TriConsumer<OdZone, OdZone, Double> consumer) {
+    for (var iter = nonZeroIterator(); iter.hasNext();) {
+      final double odDemand = iter.next();
+      if (odDemand > 0) {
+        consumer.accept(iter.getCurrentOrigin(), iter.getCurrentDestination(), odDemand);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Only the stored entries of the origin are visited rather than all destinations
+   */
+  @Override
+  public void forEachNonZeroDestinationDemand(final OdZones odZones, final OdZone origin, final BiConsumer<OdZone, Double> consumer) {
+    mergePendingEntriesIfAny();
+    final int originIndex = (int) origin.getOdZoneId();
+    for (int entry = originOffsets[originIndex]; entry < originOffsets[originIndex + 1]; ++entry) {
+      if (values[entry] > 0) {
+        consumer.accept(zonesByOdZoneId[destinationIndices[entry]], (double) values[entry]);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * All od pairs are visited, consistent with the dense od demand containers, use {@link #nonZeroIterator()} to only visit the non-zero entries
+   */
+  @Override
+  public OdDemandSparseMatrixIterator iterator() {
+    return new OdDemandSparseMatrixIterator(false);
+  }
+
+  /**
+   * Iterator over the non-zero entries only, in origin, destination order
+   *
+   * @return iterator
+   */
+  public OdDemandSparseMatrixIterator nonZeroIterator() {
+    return new OdDemandSparseMatrixIterator(true);
+  }
+
+  /**
+   * Signal population has ended, which merges all buffered entries into the compressed layout once. Invoked when registered on {@link org.goplanit.demands.Demands}. Setting
+   * values for new od pairs afterwards remains possible, they are then merged on the next read
+   */
+  public void finalisePopulation() {
+    mergePendingEntriesIfAny();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OdDemandSparseMatrix shallowClone() {
+    return new OdDemandSparseMatrix(this);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public OdDemandSparseMatrix deepClone() {
+    /* primitive storage so deep clone and clone are the same */
+    return shallowClone();
+  }
+
+}
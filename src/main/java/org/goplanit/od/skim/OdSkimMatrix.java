@@ -2,13 +2,16 @@ package org.goplanit.od.skim;
 
 import org.goplanit.output.enums.OdSkimSubOutputType;
 import org.ojalgo.array.Array2D;
+import org.ojalgo.array.BufferArray;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.od.OdPrimitiveMatrix;
 import org.goplanit.utils.od.OdPrimitiveMatrixIterator;
 import org.goplanit.utils.zoning.OdZones;
 
 /**
- * This class stores an OD Skim matrix.
+ * This class stores an OD Skim matrix. Values are stored in single precision, either on the heap or, for very large zone systems, off-heap in a direct buffer so the matrix
+ * does not burden the garbage collector. A skim matrix is meant to be allocated once and reset in place rather than being recreated.
  * 
  * @author gman6028, markr
  *
@@ -37,14 +40,41 @@ public class OdSkimMatrix extends OdPrimitiveMatrix<Double> {
   private final OdSkimSubOutputType odSkimOutputType;
 
   /**
-   * Constructor
+   * flag indicating whether the values are stored off-heap
+   */
+  private final boolean offHeap;
+
+  /**
+   * Collect the factory to create the underlying storage with
+   * 
+   * @param offHeap when true off-heap storage is used, on-heap otherwise
+   * @return factory to use
+   */
+  private static Array2D.Factory<Double> getStorageFactory(boolean offHeap) {
+    return offHeap ? Array2D.factory(BufferArray.DIRECT32) : Array2D.PRIMITIVE32;
+  }
+
+  /**
+   * Constructor, values are stored on the heap
    * 
    * @param zones            holding the zones in the network
    * @param odSkimOutputType the skim output type for this OD skim matrix
    */
   public OdSkimMatrix(OdZones zones, OdSkimSubOutputType odSkimOutputType) {
-    super(OdSkimMatrix.class, IdGroupingToken.collectGlobalToken(), zones, Array2D.PRIMITIVE32.makeZero(zones.size(), zones.size()));
+    this(zones, odSkimOutputType, false);
+  }
+
+  /**
+   * Constructor
+   * 
+   * @param zones            holding the zones in the network
+   * @param odSkimOutputType the skim output type for this OD skim matrix
+   * @param offHeap          when true values are stored off-heap, on-heap otherwise
+   */
+  public OdSkimMatrix(OdZones zones, OdSkimSubOutputType odSkimOutputType, boolean offHeap) {
+    super(OdSkimMatrix.class, IdGroupingToken.collectGlobalToken(), zones, getStorageFactory(offHeap).makeZero(zones.size(), zones.size()));
     this.odSkimOutputType = odSkimOutputType;
+    this.offHeap = offHeap;
   }
 
   /**
@@ -53,8 +83,9 @@ public class OdSkimMatrix extends OdPrimitiveMatrix<Double> {
    * @param other to copy
    */
   public OdSkimMatrix(final OdSkimMatrix other) {
-    super(other, Array2D.PRIMITIVE32);
+    super(other, getStorageFactory(other.offHeap));
     this.odSkimOutputType = other.odSkimOutputType;
+    this.offHeap = other.offHeap;
   }
 
   /**
@@ -66,6 +97,65 @@ public class OdSkimMatrix extends OdPrimitiveMatrix<Double> {
     return odSkimOutputType;
   }
 
+  /**
+   * Verify if values are stored off-heap
+   * 
+   * @return true when off-heap, false otherwise
+   */
+  public boolean isOffHeap() {
+    return offHeap;
+  }
+
+  /**
+   * Reset all values to zero in place without reallocating the underlying storage
+   */
+  public void reset() {
+    matrixContents.fillAll(0.0);
+  }
+
+  /**
+   * Set a value by origin and destination od zone id without boxing
+   * 
+   * @param originOdZoneId      od zone id of the origin
+   * @param destinationOdZoneId od zone id of the destination
+   * @param value               to set
+   */
+  public void setPrimitiveValue(final int originOdZoneId, final int destinationOdZoneId, final double value) {
+    matrixContents.set(originOdZoneId, destinationOdZoneId, value);
+  }
+
+  /**
+   * Get a value by origin and destination od zone id without boxing. This allows persistence to read directly from the matrix rather than from a copy
+   * 
+   * @param originOdZoneId      od zone id of the origin
+   * @param destinationOdZoneId od zone id of the destination
+   * @return value found
+   */
+  public double getPrimitiveValue(final int originOdZoneId, final int destinationOdZoneId) {
+    return matrixContents.doubleValue(originOdZoneId, destinationOdZoneId);
+  }
+
+  /**
+   * Copy all values to the provided array in row-major order, i.e., value of origin o and destination d is placed at {@code o * numberOfOdZones + d}, where o and d are od zone
+   * ids
+   * 
+   * @param values to copy to, must hold at least numberOfOdZones squared entries
+   * @throws PlanItRunTimeException thrown if values cannot hold all entries, e.g., when numberOfOdZones squared exceeds the maximum array size
+   */
+  public void copyValuesTo(final double[] values) {
+    final int numberOfOdZones = getNumberOfOdZones();
+    final long requiredLength = (long) numberOfOdZones * numberOfOdZones;
+    if (requiredLength > values.length) {
+      throw new PlanItRunTimeException("Unable to copy OD skim values, %d entries required but only %d available", requiredLength, values.length);
+    }
+    for (int origin = 0; origin < numberOfOdZones; ++origin) {
+      final long offset = (long) origin * numberOfOdZones;
+      for (int destination = 0; destination < numberOfOdZones; ++destination) {
+        values[(int) (offset + destination)] = matrixContents.doubleValue(origin, destination);
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
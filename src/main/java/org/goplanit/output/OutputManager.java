@@ -43,6 +43,23 @@ public class OutputManager {
    */
   private OutputAdapter outputAdapter;
 
+  /**
+   * Verify if the current iteration of the assignment is to be persisted given the configuration, i.e., final iteration only, or every n-th iteration. Without an output adapter
+   * the iteration index is unknown and every iteration is persisted unless only the final iteration is to be persisted
+   * 
+   * @param converged true if the assignment has converged
+   * @return true when the current iteration is to be persisted, false otherwise
+   */
+  private boolean isIterationPersisted(final boolean converged) {
+    if (converged) {
+      return true;
+    }
+    if (outputAdapter == null) {
+      return !outputConfiguration.isPersistOnlyFinalIteration();
+    }
+    return outputConfiguration.isPersistIteration(outputAdapter.getIterationIndex(), converged);
+  }
+
   /**
    * Base constructor of Output writer
    * 
@@ -86,7 +103,7 @@ public class OutputManager {
   public void persistOutputData(final TimePeriod timePeriod, final Set<Mode> modes, final boolean converged) throws PlanItException {
     for (OutputType outputType : outputConfiguration.getActivatedOutputTypes()) {
       OutputTypeConfiguration outputTypeConfiguration = outputConfiguration.getOutputTypeConfiguration(outputType);
-      if (converged || !outputConfiguration.isPersistOnlyFinalIteration()) {
+      if (isIterationPersisted(converged)) {
         for (OutputFormatter outputFormatter : outputFormatters) {
           if (converged || outputFormatter.canHandleMultipleIterations()) {
             outputFormatter.persist(timePeriod, modes, outputConfiguration, outputTypeConfiguration, outputAdapter);
@@ -105,7 +122,7 @@ public class OutputManager {
    * @return true when anything is persisted, false otherwise
    */
   public boolean isAnyOutputPersisted(final TimePeriod timePeriod, final Set<Mode> modes, final boolean converged) {
-    if (converged || !outputConfiguration.isPersistOnlyFinalIteration()) {
+    if (isIterationPersisted(converged)) {
       for (OutputFormatter outputFormatter : outputFormatters) {
         if (converged || outputFormatter.canHandleMultipleIterations()) {
           return true;
@@ -194,6 +211,19 @@ public class OutputManager {
     outputFormatters.remove(outputFormatter);
   }
 
+  /**
+   * Replace an output formatter which has previously been registered, retaining its position
+   * 
+   * @param outputFormatter to be replaced
+   * @param replacement     to register in its place
+   */
+  public void replaceOutputFormatter(OutputFormatter outputFormatter, OutputFormatter replacement) {
+    int index = outputFormatters.indexOf(outputFormatter);
+    if (index >= 0) {
+      outputFormatters.set(index, replacement);
+    }
+  }
+
   /**
    * Returns the list of currently registered OutputFormatter objects for a specified output type
    * 
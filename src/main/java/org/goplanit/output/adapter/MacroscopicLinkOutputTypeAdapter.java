@@ -1,12 +1,15 @@
 package org.goplanit.output.adapter;
 
+import java.util.BitSet;
 import java.util.Optional;
 
+import org.goplanit.output.enums.DataType;
 import org.goplanit.output.property.OutputProperty;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.graph.Vertex;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
 import org.goplanit.utils.time.TimePeriod;
 
 /**
@@ -122,4 +125,63 @@ public interface MacroscopicLinkOutputTypeAdapter extends UntypedLinkOutputTypeA
    * @return the value of the specified output property (or an Exception if an error occurs)
    */
   public abstract Optional<?> getLinkSegmentOutputPropertyValue(OutputProperty outputProperty, MacroscopicLinkSegment linkSegment, Mode mode, TimePeriod timePeriod);
+
+  /**
+   * Indicates if the output property can be collected in bulk via {@link #fillLinkSegmentOutputPropertyValues}, i.e., it has a numeric data type
+   * 
+   * @param outputProperty to verify
+   * @return true when supported, false otherwise
+   */
+  public static boolean isBulkAccessSupported(OutputProperty outputProperty) {
+    DataType dataType = outputProperty.getDataType();
+    return dataType == DataType.DOUBLE || dataType == DataType.FLOAT || dataType == DataType.INTEGER || dataType == DataType.LONG;
+  }
+
+  /**
+   * Bulk access to the values of a numeric output property for all provided link segments that allow the mode. The value of each link segment is placed in the values array at
+   * the position of the link segment id. Link segments that do not allow the mode, or for which no numeric value is available, are skipped, i.e., their entry is left untouched.
+   * The default implementation relies on {@link #getLinkSegmentOutputPropertyValue(OutputProperty, MacroscopicLinkSegment, Mode, TimePeriod)} per link segment, implementations
+   * are expected to override this for the properties they can copy directly from their primitive assignment data.
+   * 
+   * @param outputProperty the specified output property, must be numeric, see {@link #isBulkAccessSupported(OutputProperty)}
+   * @param linkSegments   the link segments to collect values for
+   * @param mode           the current mode
+   * @param timePeriod     the current time period
+   * @param values         to fill, indexed by link segment id, must be large enough to hold the largest link segment id
+   * @throws PlanItException thrown if the property is not numeric
+   */
+  public default void fillLinkSegmentOutputPropertyValues(OutputProperty outputProperty, MacroscopicLinkSegments linkSegments, Mode mode, TimePeriod timePeriod, double[] values)
+      throws PlanItException {
+    PlanItException.throwIf(!isBulkAccessSupported(outputProperty), "Output property %s is not numeric, unable to collect its values in bulk", outputProperty.getName());
+    for (var linkSegment : linkSegments) {
+      if (!linkSegment.isModeAllowed(mode)) {
+        continue;
+      }
+      Optional<?> value = getLinkSegmentOutputPropertyValue(outputProperty, linkSegment, mode, timePeriod);
+      if (value.isPresent() && value.get() instanceof Number) {
+        values[(int) linkSegment.getId()] = ((Number) value.get()).doubleValue();
+      }
+    }
+  }
+
+  /**
+   * Bulk version of {@link #isFlowPositive(MacroscopicLinkSegment, Mode)}. For each provided link segment that allows the mode and has positive flow, the bit at the position of its
+   * id is set, for all other link segments it is cleared.
+   * 
+   * @param linkSegments the link segments to verify
+   * @param mode         the mode to verify
+   * @param flowPositive bits to set
+   * @throws PlanItException thrown if flow cannot be verified
+   */
+  public default void fillFlowPositive(MacroscopicLinkSegments linkSegments, Mode mode, BitSet flowPositive) throws PlanItException {
+    for (var linkSegment : linkSegments) {
+      if (!linkSegment.isModeAllowed(mode)) {
+        flowPositive.clear((int) linkSegment.getId());
+        continue;
+      }
+      Optional<Boolean> positive = isFlowPositive(linkSegment, mode);
+      positive.orElseThrow(() -> new PlanItException("unable to determine if flow is positive on link segment"));
+      flowPositive.set((int) linkSegment.getId(), positive.get());
+    }
+  }
 }
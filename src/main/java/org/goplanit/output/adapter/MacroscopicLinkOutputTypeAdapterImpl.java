@@ -1,6 +1,7 @@
 package org.goplanit.output.adapter;
 
 import java.util.Optional;
+import java.util.function.ToDoubleFunction;
 import java.util.logging.Logger;
 
 import org.goplanit.assignment.TrafficAssignment;
@@ -26,6 +27,32 @@ public abstract class MacroscopicLinkOutputTypeAdapterImpl extends UntypedLinkOu
   /** the logger */
   private static final Logger LOGGER = Logger.getLogger(MacroscopicLinkOutputTypeAdapterImpl.class.getCanonicalName());
 
+  /**
+   * Fill values array for the provided link segments that allow the mode based on a primitive value function, converting units if the output property requires so. To be used by
+   * implementations of {@link #fillLinkSegmentOutputPropertyValues(OutputProperty, MacroscopicLinkSegments, Mode, TimePeriod, double[])}
+   * 
+   * @param outputProperty the output property the values belong to
+   * @param linkSegments   to fill values for
+   * @param mode           link segments not allowing this mode are skipped
+   * @param values         to fill, indexed by link segment id
+   * @param valueFunction  providing the value for each link segment in default units
+   * @throws PlanItException thrown if unit conversion fails
+   */
+  protected static void fillLinkSegmentValues(OutputProperty outputProperty, MacroscopicLinkSegments linkSegments, Mode mode, double[] values,
+      ToDoubleFunction<MacroscopicLinkSegment> valueFunction) throws PlanItException {
+    final boolean convertUnits = outputProperty.supportsUnitOverride() && outputProperty.isUnitOverride();
+    for (var linkSegment : linkSegments) {
+      if (!linkSegment.isModeAllowed(mode)) {
+        continue;
+      }
+      double value = valueFunction.applyAsDouble(linkSegment);
+      if (convertUnits) {
+        value = outputProperty.getDefaultUnit().convertTo(outputProperty.getOverrideUnit(), value);
+      }
+      values[(int) linkSegment.getId()] = value;
+    }
+  }
+
   /**
    * Constructor
    * 
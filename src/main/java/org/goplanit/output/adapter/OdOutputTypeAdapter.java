@@ -116,4 +116,19 @@ public interface OdOutputTypeAdapter extends OutputTypeAdapter {
    */
   public abstract Optional<?> getOdOutputPropertyValue(OutputProperty outputProperty, final OdDataIterator<?> odIterator, Mode mode, TimePeriod timePeriod);
 
+  /**
+   * Bulk access to the OD skim values for a specified OD skim output type and mode. Values are placed in row-major order by origin and destination od zone id, i.e., at position
+   * {@code originOdZoneId * numberOfOdZones + destinationOdZoneId}
+   * 
+   * @param odSkimOutputType the specified OD skim output type
+   * @param mode             the specified mode
+   * @param values           to fill, must hold at least numberOfOdZones squared entries
+   * @throws PlanItException thrown if the skim matrix is not available
+   */
+  public default void fillOdSkimValues(OdSkimSubOutputType odSkimOutputType, Mode mode, double[] values) throws PlanItException {
+    Optional<OdSkimMatrix> odSkimMatrix = getOdSkimMatrix(odSkimOutputType, mode);
+    odSkimMatrix.orElseThrow(() -> new PlanItException("unable to retrieve od skim matrix"));
+    odSkimMatrix.get().copyValuesTo(values);
+  }
+
 }
@@ -27,10 +27,13 @@ public class OutputAdapter {
   /**
    * Return the name of a Java object class as a short string
    * 
-   * @param object the Java object
-   * @return the name of the object
+   * @param object the Java object, may be null for components not used by the assignment
+   * @return the name of the object, null when object is null
    */
   protected String getClassName(Object object) {
+    if (object == null) {
+      return null;
+    }
     String name = object.getClass().getCanonicalName();
     String[] words = name.split("\\.");
     return words[words.length - 1];
@@ -55,6 +58,15 @@ public class OutputAdapter {
     return trafficAssignment.getId();
   }
 
+  /**
+   * Return the current iteration index of the assignment
+   * 
+   * @return current iteration index
+   */
+  public int getIterationIndex() {
+    return trafficAssignment.getIterationIndex();
+  }
+
   /**
    * Returns the name of the assignment class being used
    * 
@@ -106,7 +118,7 @@ public class OutputAdapter {
    * @return the name of the stopping criterion class
    */
   public String getStopCriterionClassName() {
-    return getClassName(trafficAssignment.getGapFunction().getStopCriterion());
+    return trafficAssignment.getGapFunction() == null ? null : getClassName(trafficAssignment.getGapFunction().getStopCriterion());
   }
 
   /**
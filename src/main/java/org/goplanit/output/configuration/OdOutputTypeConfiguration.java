@@ -44,6 +44,9 @@ public class OdOutputTypeConfiguration extends OutputTypeConfiguration {
   /** od identification method unknown flag */
   private static final int ORIGIN_DESTINATION_NOT_IDENTIFIED = 4;
 
+  /** store od skim matrices off-heap, default false */
+  private boolean offHeapSkimStorage = false;
+
   /**
    * Determine how an origin-destination cell is being identified in the output formatter
    * 
@@ -189,4 +192,25 @@ public class OdOutputTypeConfiguration extends OutputTypeConfiguration {
     return false;
   }
 
+  // getters - setters
+
+  /**
+   * Store od skim matrices off-heap rather than on the heap. Recommended for very large zone systems where a heap allocated skim matrix per skim type would put pressure on
+   * the garbage collector
+   * 
+   * @param offHeapSkimStorage when true skim matrices are stored off-heap
+   */
+  public void setOffHeapSkimStorage(boolean offHeapSkimStorage) {
+    this.offHeapSkimStorage = offHeapSkimStorage;
+  }
+
+  /**
+   * Verify if od skim matrices are to be stored off-heap
+   * 
+   * @return true when off-heap, false otherwise
+   */
+  public boolean isOffHeapSkimStorage() {
+    return offHeapSkimStorage;
+  }
+
 }
@@ -30,6 +30,11 @@ public class OutputConfiguration {
    */
   protected boolean persistZeroFlow = PERSIST_ZERO_FLOW;
 
+  /**
+   * when persisting intermediate iterations, only persist every n-th iteration
+   */
+  protected int persistIterationInterval = PERSIST_ITERATION_INTERVAL;
+
   /**
    * output configurations per output type
    */
@@ -45,6 +50,11 @@ public class OutputConfiguration {
    */
   public static final boolean PERSIST_ZERO_FLOW = false;
 
+  /**
+   * Default interval of intermediate iterations to persist, i.e., every iteration
+   */
+  public static final int PERSIST_ITERATION_INTERVAL = 1;
+
   /**
    * Base constructor
    */
@@ -148,6 +158,36 @@ public class OutputConfiguration {
     return persistOnlyFinalIteration;
   }
 
+  /**
+   * Set the interval of intermediate iterations to persist when not only persisting the final iteration, e.g. 5 persists iterations 0,5,10,... (default is 1). The final
+   * (converged) iteration is always persisted. Values smaller than one are treated as one.
+   * 
+   * @param persistIterationInterval interval to use
+   */
+  public void setPersistIterationInterval(int persistIterationInterval) {
+    this.persistIterationInterval = Math.max(1, persistIterationInterval);
+  }
+
+  /**
+   * Collect the interval of intermediate iterations to persist when not only persisting the final iteration (default is 1)
+   * 
+   * @return interval used
+   */
+  public int getPersistIterationInterval() {
+    return persistIterationInterval;
+  }
+
+  /**
+   * Verify if the iteration with the given index is to be persisted based on this configuration
+   * 
+   * @param iterationIndex to verify
+   * @param converged      true when the assignment has converged in this iteration
+   * @return true when to be persisted, false otherwise
+   */
+  public boolean isPersistIteration(int iterationIndex, boolean converged) {
+    return converged || (!persistOnlyFinalIteration && iterationIndex % persistIterationInterval == 0);
+  }
+
   /**
    * Set whether links and paths with zero flow should be record (default is false)
    * 
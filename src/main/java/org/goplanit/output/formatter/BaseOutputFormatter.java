@@ -1,11 +1,15 @@
 package org.goplanit.output.formatter;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
+import org.goplanit.output.adapter.MacroscopicLinkOutputTypeAdapter;
 import org.goplanit.output.adapter.OutputAdapter;
 import org.goplanit.output.configuration.OutputConfiguration;
 import org.goplanit.output.configuration.OutputTypeConfiguration;
@@ -14,9 +18,9 @@ import org.goplanit.output.enums.OutputTypeEnum;
 import org.goplanit.output.enums.SubOutputTypeEnum;
 import org.goplanit.output.property.OutputProperty;
 import org.goplanit.utils.exceptions.PlanItException;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
 import org.goplanit.utils.time.TimePeriod;
 import org.goplanit.utils.unit.Unit;
 
@@ -104,6 +108,70 @@ public abstract class BaseOutputFormatter implements OutputFormatter {
     outputTypeKeysLocked.put(outputType, true);
   }
 
+  /**
+   * Collect the values of all numeric output properties for the provided link segments in bulk, see
+   * {@link MacroscopicLinkOutputTypeAdapter#fillLinkSegmentOutputPropertyValues}. Only link segments that allow the mode are collected, in line with the link segments that are
+   * persisted. Non-numeric properties are not collected, and values the adapter skipped remain NaN, both are to be obtained per link segment instead, see
+   * {@link #isCollectedInBulk(double[][], int, int)}.
+   * 
+   * @param outputProperties      to collect values for
+   * @param linkOutputTypeAdapter to collect values from
+   * @param linkSegments          to collect values for
+   * @param mode                  the current mode
+   * @param timePeriod            the current time period
+   * @return per output property (same position) the values indexed by link segment id, null for properties that do not support bulk access
+   * @throws PlanItException thrown if there is an error
+   */
+  protected static double[][] collectLinkSegmentOutputPropertyValuesInBulk(OutputProperty[] outputProperties, MacroscopicLinkOutputTypeAdapter linkOutputTypeAdapter,
+      MacroscopicLinkSegments linkSegments, Mode mode, TimePeriod timePeriod) throws PlanItException {
+    long maxLinkSegmentId = -1;
+    for (var linkSegment : linkSegments) {
+      maxLinkSegmentId = Math.max(maxLinkSegmentId, linkSegment.getId());
+    }
+
+    double[][] values = new double[outputProperties.length][];
+    for (int index = 0; index < outputProperties.length; ++index) {
+      if (MacroscopicLinkOutputTypeAdapter.isBulkAccessSupported(outputProperties[index])) {
+        values[index] = new double[(int) maxLinkSegmentId + 1];
+        Arrays.fill(values[index], Double.NaN);
+        linkOutputTypeAdapter.fillLinkSegmentOutputPropertyValues(outputProperties[index], linkSegments, mode, timePeriod, values[index]);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Verify if a value has been collected in bulk via {@link #collectLinkSegmentOutputPropertyValuesInBulk}
+   * 
+   * @param bulkValues    as collected
+   * @param index         of the output property
+   * @param linkSegmentId of the link segment
+   * @return true when collected, false when it is to be obtained per link segment instead
+   */
+  protected static boolean isCollectedInBulk(double[][] bulkValues, int index, int linkSegmentId) {
+    return bulkValues[index] != null && !Double.isNaN(bulkValues[index][linkSegmentId]);
+  }
+
+  /**
+   * Box a value collected in bulk to the data type of its output property, e.g., to format it
+   * 
+   * @param outputProperty the value belongs to, assumed numeric
+   * @param value          to box
+   * @return boxed value of the appropriate type
+   */
+  protected static Object toBoxedValue(OutputProperty outputProperty, double value) {
+    switch (outputProperty.getDataType()) {
+    case FLOAT:
+      return (float) value;
+    case INTEGER:
+      return (int) value;
+    case LONG:
+      return (long) value;
+    default:
+      return value;
+    }
+  }
+
   /**
    * Write link results for the current time period to the CSV file
    * 
@@ -185,7 +253,7 @@ public abstract class BaseOutputFormatter implements OutputFormatter {
    * @param groupId, contiguous id generation within this group for instances of this class
    */
   public BaseOutputFormatter(IdGroupingToken groupId) {
-    this.id = IdGenerator.generateId(groupId, BaseOutputFormatter.class);
+    this.id = SynchronisedIdGenerator.generateId(groupId, BaseOutputFormatter.class);
     this.outputKeyProperties = new HashMap<OutputType, OutputProperty[]>();
     this.outputValueProperties = new HashMap<OutputType, OutputProperty[]>();
     this.outputTimeUnit = DEFAULT_TIME_UNIT;
@@ -197,6 +265,26 @@ public abstract class BaseOutputFormatter implements OutputFormatter {
     }
   }
 
+  /**
+   * Copy constructor, copies the configuration and id of the other formatter, but not its locked output properties
+   * 
+   * @param other to copy
+   */
+  protected BaseOutputFormatter(BaseOutputFormatter other) {
+    this.id = other.id;
+    this.outputKeyProperties = new HashMap<OutputType, OutputProperty[]>(other.outputKeyProperties);
+    this.outputValueProperties = new HashMap<OutputType, OutputProperty[]>(other.outputValueProperties);
+    this.outputTimeUnit = other.outputTimeUnit;
+    this.outputTypes = other.outputTypes == null ? null : new HashSet<OutputType>(other.outputTypes);
+    this.initialCostsLocation = other.initialCostsLocation;
+    this.outputTypeValuesLocked = new HashMap<OutputType, Boolean>();
+    this.outputTypeKeysLocked = new HashMap<OutputType, Boolean>();
+    for (OutputType outputType : OutputType.values()) {
+      this.outputTypeValuesLocked.put(outputType, false);
+      this.outputTypeKeysLocked.put(outputType, false);
+    }
+  }
+
   /**
    * Write data to output file
    * 
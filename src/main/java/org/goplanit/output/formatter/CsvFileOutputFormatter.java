@@ -2,6 +2,7 @@ package org.goplanit.output.formatter;
 
 import java.io.FileWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +36,7 @@ import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.math.Precision;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
 import org.goplanit.utils.output.OutputUtils;
 import org.goplanit.utils.time.TimePeriod;
 import org.goplanit.utils.unit.VehiclesUnit;
@@ -65,6 +67,16 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
     this.csvFileNameMap = new HashMap<OutputTypeEnum, List<String>>();
   }
 
+  /**
+   * Copy constructor, the copy starts without any registered CSV output file names
+   * 
+   * @param other to copy
+   */
+  protected CsvFileOutputFormatter(CsvFileOutputFormatter other) {
+    super(other);
+    this.csvFileNameMap = new HashMap<OutputTypeEnum, List<String>>();
+  }
+
   /**
    * Write output values to the OD CSV file for the current iteration
    * 
@@ -77,7 +89,6 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
    * @param csvPrinter              CSVPrinter object to record results for this iteration
    * @return PlanItException thrown if the CSV file cannot be created or written to
    */
-  @SuppressWarnings("unchecked")
   protected PlanItException writeOdResultsForCurrentTimePeriodToCsvPrinter(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration,
       OutputTypeEnum currentOutputType, OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, CSVPrinter csvPrinter) {
     try {
@@ -93,7 +104,6 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
       OdSkimSubOutputType currentSubOutputType = (OdSkimSubOutputType) currentOutputType;
 
       // perform actual persistence
-      final OutputProperty odCostProperty = OutputProperty.of(OutputPropertyType.OD_COST);
       for (Mode mode : modes) {
 
         // ensure that if vehicles are used as the output unit rather than pcu, the correct conversion factor is applied, namely
@@ -103,15 +113,23 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
         Optional<OdSkimMatrix> odSkimMatrix = odOutputTypeAdapter.getOdSkimMatrix(currentSubOutputType, mode);
         odSkimMatrix.orElseThrow(() -> new PlanItException("od skim matrix could not be retrieved when persisting"));
 
+        /* skim values are read directly from the skim matrix without copying, remaining properties per od cell */
         for (OdSkimMatrixIterator odMatrixIterator = odSkimMatrix.get().iterator(); odMatrixIterator.hasNext();) {
           odMatrixIterator.next();
-          Optional<Double> cost = (Optional<Double>) odOutputTypeAdapter.getOdOutputPropertyValue(odCostProperty, odMatrixIterator, mode, timePeriod);
-          cost.orElseThrow(() -> new PlanItException("cost could not be retrieved when persisting"));
+          final double cost = odSkimMatrix.get().getPrimitiveValue((int) odMatrixIterator.getCurrentOrigin().getOdZoneId(),
+              (int) odMatrixIterator.getCurrentDestination().getOdZoneId());
 
-          if (outputConfiguration.isPersistZeroFlow() || cost.get() > Precision.EPSILON_6) {
-            List<Object> rowValues = outputProperties.stream()
-                .map(outputProperty -> odOutputTypeAdapter.getOdOutputPropertyValue(outputProperty, odMatrixIterator, mode, timePeriod).get())
-                .map(outValue -> OutputUtils.formatObject(outValue)).collect(Collectors.toList());
+          if (outputConfiguration.isPersistZeroFlow() || cost > Precision.EPSILON_6) {
+            List<Object> rowValues = new ArrayList<Object>(outputProperties.size());
+            for (OutputProperty outputProperty : outputProperties) {
+              Object outValue;
+              if (outputProperty.getOutputPropertyType() == OutputPropertyType.OD_COST) {
+                outValue = outputProperty.isUnitOverride() ? outputProperty.getDefaultUnit().convertTo(outputProperty.getOverrideUnit(), cost) : cost;
+              } else {
+                outValue = odOutputTypeAdapter.getOdOutputPropertyValue(outputProperty, odMatrixIterator, mode, timePeriod).get();
+              }
+              rowValues.add(OutputUtils.formatObject(outValue));
+            }
             csvPrinter.printRecord(rowValues);
           }
         }
@@ -195,7 +213,7 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
 
       MacroscopicLinkOutputTypeAdapter linkOutputTypeAdapter = (MacroscopicLinkOutputTypeAdapter) outputAdapter.getOutputTypeAdapter(outputType);
 
-      SortedSet<OutputProperty> outputProperties = outputTypeConfiguration.getOutputProperties();
+      OutputProperty[] outputProperties = outputTypeConfiguration.getOutputProperties().toArray(OutputProperty[]::new);
       for (Mode mode : modes) {
         // ensure that if vehicles are used as the output unit rather than pcu, the correct conversion factor is applied, namely
         // the current mode's conversion factor
@@ -203,18 +221,23 @@ public abstract class CsvFileOutputFormatter extends FileOutputFormatter {
 
         Optional<Long> networkLayerId = linkOutputTypeAdapter.getInfrastructureLayerIdForMode(mode);
         if (networkLayerId.isPresent()) {
-          for (MacroscopicLinkSegment linkSegment : linkOutputTypeAdapter.getPhysicalLinkSegments(networkLayerId.get())) {
-
-            if (linkSegment.isModeAllowed(mode)) {
-              Optional<Boolean> flowPositive = linkOutputTypeAdapter.isFlowPositive(linkSegment, mode);
-              flowPositive.orElseThrow(() -> new PlanItException("unable to determine if flow is positive on link segment"));
+          MacroscopicLinkSegments linkSegments = linkOutputTypeAdapter.getPhysicalLinkSegments(networkLayerId.get());
+          BitSet flowPositive = new BitSet();
+          linkOutputTypeAdapter.fillFlowPositive(linkSegments, mode, flowPositive);
+          /* numeric properties are collected in bulk, remaining properties per link segment */
+          double[][] bulkValues = collectLinkSegmentOutputPropertyValuesInBulk(outputProperties, linkOutputTypeAdapter, linkSegments, mode, timePeriod);
 
-              if (outputConfiguration.isPersistZeroFlow() || flowPositive.get()) {
-                List<Object> rowValues = outputProperties.stream()
-                    .map(outputProperty -> linkOutputTypeAdapter.getLinkSegmentOutputPropertyValue(outputProperty, linkSegment, mode, timePeriod).get())
-                    .map(outValue -> OutputUtils.formatObject(outValue)).collect(Collectors.toList());
-                csvPrinter.printRecord(rowValues);
+          List<Object> rowValues = new ArrayList<Object>(outputProperties.length);
+          for (MacroscopicLinkSegment linkSegment : linkSegments) {
+            final int linkSegmentId = (int) linkSegment.getId();
+            if (linkSegment.isModeAllowed(mode) && (outputConfiguration.isPersistZeroFlow() || flowPositive.get(linkSegmentId))) {
+              rowValues.clear();
+              for (int index = 0; index < outputProperties.length; ++index) {
+                Object outValue = isCollectedInBulk(bulkValues, index, linkSegmentId) ? toBoxedValue(outputProperties[index], bulkValues[index][linkSegmentId])
+                    : linkOutputTypeAdapter.getLinkSegmentOutputPropertyValue(outputProperties[index], linkSegment, mode, timePeriod).get();
+                rowValues.add(OutputUtils.formatObject(outValue));
               }
+              csvPrinter.printRecord(rowValues);
             }
           }
         } else {
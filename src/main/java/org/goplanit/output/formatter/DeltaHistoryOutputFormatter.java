@@ -0,0 +1,370 @@
+package org.goplanit.output.formatter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.collections4.map.MultiKeyMap;
+import org.goplanit.output.adapter.MacroscopicLinkOutputTypeAdapter;
+import org.goplanit.output.adapter.OutputAdapter;
+import org.goplanit.output.configuration.OutputConfiguration;
+import org.goplanit.output.configuration.OutputTypeConfiguration;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.enums.OutputTypeEnum;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
+import org.goplanit.utils.time.TimePeriod;
+import org.goplanit.utils.unit.VehiclesUnit;
+
+/**
+ * Output formatter for convergence diagnostics that records the link segment flows and costs of each persisted iteration as a delta with respect to the previously recorded
+ * iteration, i.e., only link segments whose flow or cost changed beyond a tolerance are written. Records are appended to a single compressed history file per run. Every
+ * {@link #getKeyFrameInterval()} records a full snapshot (key frame) is written to bound the replay effort. Any recorded iteration can be reconstructed with the
+ * {@link DeltaHistoryReader}.
+ * <p>
+ * Combine with {@link OutputConfiguration#setPersistOnlyFinalIteration(boolean)} set to false, and optionally
+ * {@link OutputConfiguration#setPersistIterationInterval(int)} to only record every n-th iteration. Only link outputs are supported.
+ * </p>
+ *
+ * @author markr
+ *
+ */
+public class DeltaHistoryOutputFormatter extends FileOutputFormatter {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(DeltaHistoryOutputFormatter.class.getCanonicalName());
+
+  /** identifies the history file format */
+  static final int MAGIC_NUMBER = 0x504c4448;
+
+  /** version of the history file format */
+  static final int FORMAT_VERSION = 1;
+
+  /** record type of a full snapshot */
+  static final byte KEY_FRAME_RECORD = 1;
+
+  /** record type of a delta with respect to the previous record */
+  static final byte DELTA_RECORD = 2;
+
+  /** default absolute flow tolerance (pcu/h) beyond which a change is recorded */
+  public static final double DEFAULT_FLOW_TOLERANCE = 1e-3;
+
+  /** default absolute cost tolerance (h) beyond which a change is recorded */
+  public static final double DEFAULT_COST_TOLERANCE = 1e-6;
+
+  /** default number of records after which a key frame is written */
+  public static final int DEFAULT_KEY_FRAME_INTERVAL = 10;
+
+  /** default name root of the history file */
+  public static final String DEFAULT_FILE_NAME_ROOT = "Delta_History";
+
+  /** extension of the history file */
+  public static final String FILE_EXTENSION = ".bin.gz";
+
+  /** output directory to use */
+  private String outputDirectory = ".";
+
+  /** name root of the history file */
+  private String fileNameRoot = DEFAULT_FILE_NAME_ROOT;
+
+  /** flow tolerance to use */
+  private double flowTolerance = DEFAULT_FLOW_TOLERANCE;
+
+  /** cost tolerance to use */
+  private double costTolerance = DEFAULT_COST_TOLERANCE;
+
+  /** key frame interval to use */
+  private int keyFrameInterval = DEFAULT_KEY_FRAME_INTERVAL;
+
+  /** absolute file name of the history file of the current run */
+  private String historyFileName;
+
+  /** stream of the history file of the current run */
+  private DataOutputStream historyStream;
+
+  /** per mode and time period the last recorded flows (index 0) and costs (index 1), indexed by link segment id */
+  private MultiKeyMap<Object, double[][]> lastRecordedState;
+
+  /** per mode and time period the number of records since the last key frame */
+  private MultiKeyMap<Object, Integer> recordsSinceKeyFrame;
+
+  /**
+   * Write a single record for the given mode and time period
+   *
+   * @param mode           of the record
+   * @param timePeriod     of the record
+   * @param iterationIndex of the record
+   * @param linkSegments   to consider
+   * @param flows          current flows indexed by link segment id
+   * @param costs          current costs indexed by link segment id
+   * @throws IOException thrown if error
+   */
+  private void writeRecord(Mode mode, TimePeriod timePeriod, int iterationIndex, MacroscopicLinkSegments linkSegments, double[] flows, double[] costs) throws IOException {
+    double[][] lastState = lastRecordedState.get(mode, timePeriod);
+    Integer numberOfRecords = recordsSinceKeyFrame.get(mode, timePeriod);
+    boolean keyFrame = lastState == null || lastState[0].length != flows.length || numberOfRecords == null || numberOfRecords >= keyFrameInterval;
+    if (keyFrame) {
+      lastState = new double[][] { new double[flows.length], new double[flows.length] };
+      lastRecordedState.put(mode, timePeriod, lastState);
+      numberOfRecords = 0;
+    }
+    final double[] lastFlows = lastState[0];
+    final double[] lastCosts = lastState[1];
+
+    /* count first, so the record size is known upfront and records can be skipped when replaying */
+    int numberOfEntries = 0;
+    for (var linkSegment : linkSegments) {
+      final int id = (int) linkSegment.getId();
+      if (keyFrame || Math.abs(flows[id] - lastFlows[id]) > flowTolerance || Math.abs(costs[id] - lastCosts[id]) > costTolerance) {
+        ++numberOfEntries;
+      }
+    }
+
+    historyStream.writeByte(keyFrame ? KEY_FRAME_RECORD : DELTA_RECORD);
+    historyStream.writeLong(mode.getId());
+    historyStream.writeLong(timePeriod.getId());
+    historyStream.writeInt(iterationIndex);
+    historyStream.writeInt(flows.length);
+    historyStream.writeInt(numberOfEntries);
+    for (var linkSegment : linkSegments) {
+      final int id = (int) linkSegment.getId();
+      if (keyFrame || Math.abs(flows[id] - lastFlows[id]) > flowTolerance || Math.abs(costs[id] - lastCosts[id]) > costTolerance) {
+        historyStream.writeInt(id);
+        historyStream.writeDouble(flows[id]);
+        historyStream.writeDouble(costs[id]);
+        /* track recorded rather than actual values, so the reconstruction error never exceeds the tolerance */
+        lastFlows[id] = flows[id];
+        lastCosts[id] = costs[id];
+      }
+    }
+    recordsSinceKeyFrame.put(mode, timePeriod, numberOfRecords + 1);
+  }
+
+  /**
+   * Not supported, ignored
+   */
+  @Override
+  protected void writeGeneralResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration, OutputTypeEnum currentOutputType,
+      OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
+    LOGGER.warning("delta history output for OutputType GENERAL is not supported");
+  }
+
+  /**
+   * Not supported, ignored
+   */
+  @Override
+  protected void writeSimulationResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration,
+      OutputTypeEnum currentOutputType, OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
+    LOGGER.warning("delta history output for OutputType SIMULATION is not supported");
+  }
+
+  /**
+   * Not supported, ignored
+   */
+  @Override
+  protected void writeOdResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration, OutputTypeEnum currentOutputType,
+      OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
+    LOGGER.warning("delta history output for OutputType OD is not supported");
+  }
+
+  /**
+   * Not supported, ignored
+   */
+  @Override
+  protected void writePathResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration, OutputTypeEnum currentOutputType,
+      OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
+    LOGGER.warning("delta history output for OutputType PATH is not supported");
+  }
+
+  /**
+   * Append the link segment flows and costs of the current iteration to the history file, only recording the changes with respect to the previous record
+   *
+   * @param outputConfiguration     output configuration
+   * @param outputTypeConfiguration OutputTypeConfiguration for current persistence
+   * @param currentOutputType       the active output type of the configuration we are persisting for
+   * @param outputAdapter           OutputAdapter for current persistence
+   * @param modes                   Set of modes of travel
+   * @param timePeriod              current time period
+   * @param iterationIndex          the iteration index we are persisting for
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  protected void writeLinkResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration, OutputTypeEnum currentOutputType,
+      OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
+    PlanItException.throwIf(historyStream == null, "delta history output formatter not initialised before persisting");
+
+    MacroscopicLinkOutputTypeAdapter linkOutputTypeAdapter = (MacroscopicLinkOutputTypeAdapter) outputAdapter.getOutputTypeAdapter(OutputType.LINK);
+    OutputProperty[] bulkProperties = new OutputProperty[] { OutputProperty.of(OutputPropertyType.FLOW), OutputProperty.of(OutputPropertyType.LINK_SEGMENT_COST) };
+    try {
+      for (Mode mode : modes) {
+        // record in pcu, consistent with the raw assignment data
+        VehiclesUnit.updatePcuToVehicleFactor(1);
+
+        Optional<Long> networkLayerId = linkOutputTypeAdapter.getInfrastructureLayerIdForMode(mode);
+        networkLayerId.orElseThrow(() -> new PlanItException("unable to determine if layer id for mode"));
+        MacroscopicLinkSegments linkSegments = linkOutputTypeAdapter.getPhysicalLinkSegments(networkLayerId.get());
+
+        double[][] values = collectLinkSegmentOutputPropertyValuesInBulk(bulkProperties, linkOutputTypeAdapter, linkSegments, mode, timePeriod);
+        writeRecord(mode, timePeriod, iterationIndex, linkSegments, values[0], values[1]);
+      }
+      historyStream.flush();
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItException(String.format("Error when appending to delta history file %s", historyFileName), e);
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param groupId contiguous id generation within this group for instances of this class
+   */
+  public DeltaHistoryOutputFormatter(IdGroupingToken groupId) {
+    super(groupId);
+  }
+
+  /**
+   * Copy constructor, copies the configuration but not the history of the current run
+   *
+   * @param other to copy
+   */
+  public DeltaHistoryOutputFormatter(DeltaHistoryOutputFormatter other) {
+    super(other);
+    this.outputDirectory = other.outputDirectory;
+    this.fileNameRoot = other.fileNameRoot;
+    this.flowTolerance = other.flowTolerance;
+    this.costTolerance = other.costTolerance;
+    this.keyFrameInterval = other.keyFrameInterval;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DeltaHistoryOutputFormatter createIsolatedCopy() {
+    return new DeltaHistoryOutputFormatter(this);
+  }
+
+  /**
+   * Open the history file of this run
+   *
+   * @param outputConfiguration output configuration
+   * @param runId               the traffic assignment's runId
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  public void initialiseBeforeSimulation(OutputConfiguration outputConfiguration, long runId) throws PlanItException {
+    this.lastRecordedState = new MultiKeyMap<Object, double[][]>();
+    this.recordsSinceKeyFrame = new MultiKeyMap<Object, Integer>();
+    this.historyFileName = generateAbsoluteOutputFileName(outputDirectory, fileNameRoot, FILE_EXTENSION, null, OutputType.LINK, runId);
+    try {
+      /* sync flush so that records persisted so far remain readable when a run is aborted */
+      historyStream = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(historyFileName)), true));
+      historyStream.writeInt(MAGIC_NUMBER);
+      historyStream.writeInt(FORMAT_VERSION);
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItException(String.format("Unable to open delta history file %s", historyFileName), e);
+    }
+  }
+
+  /**
+   * Close the history file of this run
+   *
+   * @param outputConfiguration output configuration
+   * @param outputAdapter       the outputAdapter
+   * @throws PlanItException thrown if there is an error
+   */
+  @Override
+  public void finaliseAfterSimulation(OutputConfiguration outputConfiguration, OutputAdapter outputAdapter) throws PlanItException {
+    if (historyStream == null) {
+      return;
+    }
+    try {
+      historyStream.close();
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItException(String.format("Unable to close delta history file %s", historyFileName), e);
+    } finally {
+      historyStream = null;
+      lastRecordedState = null;
+      recordsSinceKeyFrame = null;
+    }
+  }
+
+  /**
+   * Recording intermediate iterations is the purpose of this formatter
+   *
+   * @return true
+   */
+  @Override
+  public boolean canHandleMultipleIterations() {
+    return true;
+  }
+
+  // getters - setters
+
+  /**
+   * Absolute file name of the history file of the most recent run
+   *
+   * @return file name, null if no run was initialised yet
+   */
+  public String getHistoryFileName() {
+    return historyFileName;
+  }
+
+  public String getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  public void setOutputDirectory(String outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  public String getFileNameRoot() {
+    return fileNameRoot;
+  }
+
+  public void setFileNameRoot(String fileNameRoot) {
+    this.fileNameRoot = fileNameRoot;
+  }
+
+  public double getFlowTolerance() {
+    return flowTolerance;
+  }
+
+  public void setFlowTolerance(double flowTolerance) {
+    this.flowTolerance = flowTolerance;
+  }
+
+  public double getCostTolerance() {
+    return costTolerance;
+  }
+
+  public void setCostTolerance(double costTolerance) {
+    this.costTolerance = costTolerance;
+  }
+
+  public int getKeyFrameInterval() {
+    return keyFrameInterval;
+  }
+
+  /**
+   * Set the number of records (per mode and time period) after which a full snapshot is written
+   *
+   * @param keyFrameInterval to use, values smaller than one are treated as one
+   */
+  public void setKeyFrameInterval(int keyFrameInterval) {
+    this.keyFrameInterval = Math.max(1, keyFrameInterval);
+  }
+
+}
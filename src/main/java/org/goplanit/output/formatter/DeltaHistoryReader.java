@@ -0,0 +1,168 @@
+package org.goplanit.output.formatter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+import org.goplanit.utils.exceptions.PlanItException;
+
+/**
+ * Replays a history file written by the {@link DeltaHistoryOutputFormatter} to reconstruct the link segment flows and costs of any recorded iteration.
+ *
+ * @author markr
+ *
+ */
+public class DeltaHistoryReader {
+
+  /** the logger */
+  private static final Logger LOGGER = Logger.getLogger(DeltaHistoryReader.class.getCanonicalName());
+
+  /** size in bytes of a single entry of a record */
+  private static final int ENTRY_SIZE_BYTES = Integer.BYTES + 2 * Double.BYTES;
+
+  /** the history file to read */
+  private final String historyFileName;
+
+  /**
+   * Open the history file and verify its header
+   *
+   * @return stream positioned at the first record
+   * @throws IOException     thrown if error
+   * @throws PlanItException thrown if the file is not a supported history file
+   */
+  private DataInputStream openHistory() throws IOException, PlanItException {
+    DataInputStream historyStream = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(historyFileName))));
+    if (historyStream.readInt() != DeltaHistoryOutputFormatter.MAGIC_NUMBER) {
+      historyStream.close();
+      throw new PlanItException(String.format("%s is not a delta history file", historyFileName));
+    }
+    int version = historyStream.readInt();
+    if (version != DeltaHistoryOutputFormatter.FORMAT_VERSION) {
+      historyStream.close();
+      throw new PlanItException(String.format("Unsupported delta history format version %d in %s", version, historyFileName));
+    }
+    return historyStream;
+  }
+
+  /**
+   * Skip the given number of bytes, failing when the end of the stream is reached prematurely
+   *
+   * @param historyStream to skip in
+   * @param numberOfBytes to skip
+   * @throws IOException thrown if error
+   */
+  private static void skipFully(DataInputStream historyStream, long numberOfBytes) throws IOException {
+    while (numberOfBytes > 0) {
+      long skipped = historyStream.skip(numberOfBytes);
+      if (skipped <= 0) {
+        /* skip may return zero before reaching the end, read a byte to distinguish */
+        historyStream.readByte();
+        skipped = 1;
+      }
+      numberOfBytes -= skipped;
+    }
+  }
+
+  /**
+   * Constructor
+   *
+   * @param historyFileName the history file to replay
+   */
+  public DeltaHistoryReader(String historyFileName) {
+    this.historyFileName = historyFileName;
+  }
+
+  /**
+   * Collect the iterations that have been recorded for the given mode and time period
+   *
+   * @param modeId       id of the mode
+   * @param timePeriodId id of the time period
+   * @return recorded iteration indices in ascending order
+   * @throws PlanItException thrown if the file cannot be read
+   */
+  public SortedSet<Integer> getRecordedIterations(long modeId, long timePeriodId) throws PlanItException {
+    SortedSet<Integer> iterations = new TreeSet<Integer>();
+    try (DataInputStream historyStream = openHistory()) {
+      while (true) {
+        try {
+          historyStream.readByte();
+        } catch (EOFException e) {
+          break;
+        }
+        long recordModeId = historyStream.readLong();
+        long recordTimePeriodId = historyStream.readLong();
+        int iterationIndex = historyStream.readInt();
+        historyStream.readInt();
+        int numberOfEntries = historyStream.readInt();
+        if (recordModeId == modeId && recordTimePeriodId == timePeriodId) {
+          iterations.add(iterationIndex);
+        }
+        skipFully(historyStream, (long) numberOfEntries * ENTRY_SIZE_BYTES);
+      }
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItException(String.format("Unable to read delta history file %s", historyFileName), e);
+    }
+    return iterations;
+  }
+
+  /**
+   * Reconstruct the link segment flows and costs of the given iteration by replaying all records of the mode and time period up to and including this iteration. When the
+   * iteration itself was not recorded, the state of the most recent recorded iteration before it is returned. Values are exact up to the tolerances used while recording.
+   *
+   * @param modeId         id of the mode
+   * @param timePeriodId   id of the time period
+   * @param iterationIndex iteration to reconstruct
+   * @return flows (index 0) and costs (index 1) indexed by link segment id, null when no iteration up to the given one was recorded
+   * @throws PlanItException thrown if the file cannot be read
+   */
+  public double[][] reconstruct(long modeId, long timePeriodId, int iterationIndex) throws PlanItException {
+    double[] flows = null;
+    double[] costs = null;
+    try (DataInputStream historyStream = openHistory()) {
+      while (true) {
+        byte recordType;
+        try {
+          recordType = historyStream.readByte();
+        } catch (EOFException e) {
+          break;
+        }
+        long recordModeId = historyStream.readLong();
+        long recordTimePeriodId = historyStream.readLong();
+        int recordIterationIndex = historyStream.readInt();
+        int numberOfLinkSegments = historyStream.readInt();
+        int numberOfEntries = historyStream.readInt();
+
+        if (recordModeId != modeId || recordTimePeriodId != timePeriodId) {
+          skipFully(historyStream, (long) numberOfEntries * ENTRY_SIZE_BYTES);
+          continue;
+        }
+        if (recordIterationIndex > iterationIndex) {
+          /* records of a mode and time period are appended in iteration order */
+          break;
+        }
+
+        if (recordType == DeltaHistoryOutputFormatter.KEY_FRAME_RECORD || flows == null || flows.length != numberOfLinkSegments) {
+          flows = new double[numberOfLinkSegments];
+          costs = new double[numberOfLinkSegments];
+        }
+        for (int entry = 0; entry < numberOfEntries; ++entry) {
+          int linkSegmentId = historyStream.readInt();
+          flows[linkSegmentId] = historyStream.readDouble();
+          costs[linkSegmentId] = historyStream.readDouble();
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.severe(e.getMessage());
+      throw new PlanItException(String.format("Unable to read delta history file %s", historyFileName), e);
+    }
+    return flows == null ? null : new double[][] { flows, costs };
+  }
+
+}
@@ -29,6 +29,15 @@ public abstract class FileOutputFormatter extends BaseOutputFormatter {
     super(groupId);
   }
 
+  /**
+   * Copy constructor
+   * 
+   * @param other to copy
+   */
+  protected FileOutputFormatter(FileOutputFormatter other) {
+    super(other);
+  }
+
   /**
    * Generates the name of an output file. All output files have no spaces in them.
    * 
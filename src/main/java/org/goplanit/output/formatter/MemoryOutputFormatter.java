@@ -1,5 +1,6 @@
 package org.goplanit.output.formatter;
 
+import java.util.BitSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
@@ -7,7 +8,7 @@ import java.util.logging.Logger;
 
 import org.apache.commons.collections4.keyvalue.MultiKey;
 import org.apache.commons.collections4.map.MultiKeyMap;
-import org.goplanit.data.MultiKeyPlanItData;
+import org.goplanit.data.ColumnarPlanItData;
 import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentImpl;
 import org.goplanit.od.path.OdPathMatrix;
 import org.goplanit.od.path.OdPathMatrix.OdPathMatrixIterator;
@@ -39,8 +40,13 @@ import org.goplanit.utils.unit.VehiclesUnit;
 
 /**
  * OutputFormatter which stores data in memory, using specified keys and output properties.
+ * <p>
+ * Data is stored in a columnar fashion, one primitive array per output property, where each row is registered against a dense index, i.e., the link segment id for link outputs,
+ * and the flattened origin-destination index (see {@link #getOdDenseIndex(long, long, int)}) for od and path outputs. This allows for repeated typed access of, e.g., link
+ * flows without boxing. The od index is registered sparsely, so memory scales with the number of persisted od pairs rather than the square of the number of zones.
+ * </p>
  * 
- * @author gman6028
+ * @author gman6028, markr
  *
  */
 public class MemoryOutputFormatter extends BaseOutputFormatter {
@@ -51,7 +57,7 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
   /**
    * MultiKeyMap of data stores
    */
-  private MultiKeyMap<Object, MultiKeyPlanItData> timeModeOutputTypeIterationDataMap;
+  private MultiKeyMap<Object, ColumnarPlanItData> timeModeOutputTypeIterationDataMap;
 
   /**
    * Iterator to loop over results contained in this formatter
@@ -80,59 +86,47 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
   /**
    * Store output and key values for current link or skim matrix
    * 
-   * @param multiKeyPlanItData  multikey data object to store values
+   * @param columnarPlanItData  columnar data object to store values
+   * @param denseIndex          dense index to register the row for
    * @param outputProperties    OutputProperty array of result types to be recorded
    * @param outputKeys          OutputProperty array of key types to be recorded
    * @param getValueFromAdapter lambda function to get the required values from an output adapter
    * @throws PlanItException thrown if there is an error
    */
-  private void updateOutputAndKeyValues(MultiKeyPlanItData multiKeyPlanItData, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
+  private void updateOutputAndKeyValues(ColumnarPlanItData columnarPlanItData, long denseIndex, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
       Function<OutputProperty, Object> getValueFromAdapter) throws PlanItException {
     Object[] outputValues = getValues(outputProperties, getValueFromAdapter);
     Object[] keyValues = getValues(outputKeys, getValueFromAdapter);
-    multiKeyPlanItData.putRow(outputValues, keyValues);
-  }
-
-  /**
-   * Record output and key values for links
-   * 
-   * @param multiKeyPlanItData    multikey data object to store values
-   * @param outputProperties      OutputProperty array of result types to be recorded
-   * @param outputKeys            OutputProperty array of key types to be recorded
-   * @param linkSegment           the current link segment
-   * @param linkOutputTypeAdapter output adapter to provide methods to get the property values
-   * @param mode                  the current mode
-   * @param timePeriod            the current time period
-   * @throws PlanItException thrown if there is an error
-   */
-  private void updateOutputAndKeyValuesForLink(MultiKeyPlanItData multiKeyPlanItData, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
-      MacroscopicLinkSegment linkSegment, MacroscopicLinkOutputTypeAdapter linkOutputTypeAdapter, Mode mode, TimePeriod timePeriod) throws PlanItException {
-
-    Optional<Boolean> flowPositive = linkOutputTypeAdapter.isFlowPositive(linkSegment, mode);
-    flowPositive.orElseThrow(() -> new PlanItException("unable to determine if flow is positive on link segment"));
-
-    if (flowPositive.get()) {
-      updateOutputAndKeyValues(multiKeyPlanItData, outputProperties, outputKeys, (label) -> {
-        return linkOutputTypeAdapter.getLinkSegmentOutputPropertyValue(label, linkSegment, mode, timePeriod).get();
-      });
-    }
+    columnarPlanItData.putRow(denseIndex, outputValues, keyValues);
   }
 
   /**
    * Update output and key values for Origin-Destination data
    * 
-   * @param multiKeyPlanItData  multikey data object to store values
+   * @param columnarPlanItData  columnar data object to store values
+   * @param denseIndex          flattened od index to register the row for
    * @param outputProperties    OutputProperty array of result types to be recorded
    * @param outputKeys          OutputProperty array of key types to be recorded
    * @param odDataIterator      OdDataIterator to iterate over od values
+   * @param odCost              od cost of the current od cell (in default units) as collected in bulk
    * @param odOutputTypeAdapter output adapter to provide methods to get the property values
    * @param mode                the current mode
    * @param timePeriod          the current time period
    * @throws PlanItException thrown if there is an error
    */
-  private void updateOutputAndKeyValuesForOd(MultiKeyPlanItData multiKeyPlanItData, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
-      OdDataIterator<?> odDataIterator, OdOutputTypeAdapter odOutputTypeAdapter, Mode mode, TimePeriod timePeriod) throws PlanItException {
-    updateOutputAndKeyValues(multiKeyPlanItData, outputProperties, outputKeys, (label) -> {
+  private void updateOutputAndKeyValuesForOd(ColumnarPlanItData columnarPlanItData, long denseIndex, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
+      OdDataIterator<?> odDataIterator, double odCost, OdOutputTypeAdapter odOutputTypeAdapter, Mode mode, TimePeriod timePeriod) throws PlanItException {
+    double convertedOdCost = odCost;
+    for (OutputProperty outputProperty : outputProperties) {
+      if (outputProperty.getOutputPropertyType() == OutputPropertyType.OD_COST && outputProperty.isUnitOverride()) {
+        convertedOdCost = outputProperty.getDefaultUnit().convertTo(outputProperty.getOverrideUnit(), odCost);
+      }
+    }
+    final Double odCostValue = convertedOdCost;
+    updateOutputAndKeyValues(columnarPlanItData, denseIndex, outputProperties, outputKeys, (label) -> {
+      if (label.getOutputPropertyType() == OutputPropertyType.OD_COST) {
+        return odCostValue;
+      }
       return odOutputTypeAdapter.getOdOutputPropertyValue(label, odDataIterator, mode, timePeriod).get();
     });
   }
@@ -140,7 +134,8 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
   /**
    * Update output and key values for Path matrix
    * 
-   * @param multiKeyPlanItData    multikey data object to store values
+   * @param columnarPlanItData    columnar data object to store values
+   * @param denseIndex            flattened od index to register the row for
    * @param outputProperties      OutputProperty array of result types to be recorded
    * @param outputKeys            OutputProperty array of key types to be recorded
    * @param odPathIterator        ODPathIterator to iterate through matrix of paths
@@ -150,10 +145,10 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
    * @param pathIdType            the type of output being stored in the path list
    * @throws PlanItException thrown if there is an error
    */
-  private void updateOutputAndKeyValuesForPath(MultiKeyPlanItData multiKeyPlanItData, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
+  private void updateOutputAndKeyValuesForPath(ColumnarPlanItData columnarPlanItData, long denseIndex, OutputProperty[] outputProperties, OutputProperty[] outputKeys,
                                                OdDataIterator<? extends ManagedDirectedPath> odPathIterator, PathOutputTypeAdapter pathOutputTypeAdapter, Mode mode, TimePeriod timePeriod, PathOutputIdentificationType pathIdType)
       throws PlanItException {
-    updateOutputAndKeyValues(multiKeyPlanItData, outputProperties, outputKeys, (label) -> {
+    updateOutputAndKeyValues(columnarPlanItData, denseIndex, outputProperties, outputKeys, (label) -> {
       return pathOutputTypeAdapter.getPathOutputPropertyValue(label, odPathIterator, mode, timePeriod, pathIdType).get();
     });
   }
@@ -224,20 +219,42 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       // the current mode's conversion factor
       VehiclesUnit.updatePcuToVehicleFactor(1 / mode.getPcu());
 
-      MultiKeyPlanItData multiKeyPlanItData = new MultiKeyPlanItData(outputKeys, outputProperties);
-
       Optional<Long> networkLayerId = linkOutputTypeAdapter.getInfrastructureLayerIdForMode(mode);
       networkLayerId.orElseThrow(() -> new PlanItException("unable to determine if layer id for mode"));
 
-      for (MacroscopicLinkSegment linkSegment : linkOutputTypeAdapter.getPhysicalLinkSegments(networkLayerId.get())) {
-        Optional<Boolean> flowPositive = linkOutputTypeAdapter.isFlowPositive(linkSegment, mode);
-        flowPositive.orElseThrow(() -> new PlanItException("unable to determine if flow is positive on link segment"));
+      var linkSegments = linkOutputTypeAdapter.getPhysicalLinkSegments(networkLayerId.get());
+      BitSet flowPositive = new BitSet();
+      linkOutputTypeAdapter.fillFlowPositive(linkSegments, mode, flowPositive);
+
+      /* numeric properties are collected in bulk, remaining properties per link segment */
+      double[][] bulkValues = collectLinkSegmentOutputPropertyValuesInBulk(outputProperties, linkOutputTypeAdapter, linkSegments, mode, timePeriod);
+      double[][] bulkKeys = collectLinkSegmentOutputPropertyValuesInBulk(outputKeys, linkOutputTypeAdapter, linkSegments, mode, timePeriod);
 
-        if (outputConfiguration.isPersistZeroFlow() || flowPositive.get()) {
-          updateOutputAndKeyValuesForLink(multiKeyPlanItData, outputProperties, outputKeys, linkSegment, linkOutputTypeAdapter, mode, timePeriod);
+      ColumnarPlanItData columnarPlanItData = new ColumnarPlanItData(outputKeys, outputProperties, (int) linkSegments.size());
+      for (MacroscopicLinkSegment linkSegment : linkSegments) {
+        final int linkSegmentId = (int) linkSegment.getId();
+        /* memory output only retains link segments with positive flow */
+        if (!flowPositive.get(linkSegmentId)) {
+          continue;
+        }
+
+        final int row = columnarPlanItData.addRow(linkSegmentId);
+        for (int index = 0; index < outputProperties.length; ++index) {
+          if (isCollectedInBulk(bulkValues, index, linkSegmentId)) {
+            columnarPlanItData.setNumericValue(index, row, bulkValues[index][linkSegmentId]);
+          } else {
+            columnarPlanItData.setValue(index, row, linkOutputTypeAdapter.getLinkSegmentOutputPropertyValue(outputProperties[index], linkSegment, mode, timePeriod).get());
+          }
+        }
+        for (int index = 0; index < outputKeys.length; ++index) {
+          if (isCollectedInBulk(bulkKeys, index, linkSegmentId)) {
+            columnarPlanItData.setNumericKey(index, row, bulkKeys[index][linkSegmentId]);
+          } else {
+            columnarPlanItData.setKey(index, row, linkOutputTypeAdapter.getLinkSegmentOutputPropertyValue(outputKeys[index], linkSegment, mode, timePeriod).get());
+          }
         }
       }
-      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, multiKeyPlanItData);
+      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, columnarPlanItData);
     }
   }
 
@@ -253,7 +270,6 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
    * @param iterationIndex          the iteration index we are persisting for
    * @throws PlanItException thrown if there is an error
    */
-  @SuppressWarnings("unchecked")
   @Override
   protected void writeOdResultsForCurrentTimePeriod(OutputConfiguration outputConfiguration, OutputTypeConfiguration outputTypeConfiguration, OutputTypeEnum currentOutputType,
       OutputAdapter outputAdapter, Set<Mode> modes, TimePeriod timePeriod, int iterationIndex) throws PlanItException {
@@ -267,7 +283,6 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
     OdSkimSubOutputType subOutputType = (OdSkimSubOutputType) currentOutputType;
     // top level output type
     OutputType outputType = outputTypeConfiguration.getOutputType();
-    final OutputProperty OD_COST_PROPERTY = OutputProperty.of(OutputPropertyType.OD_COST);
 
     OutputProperty[] outputProperties = outputValueProperties.get(outputType);
     OutputProperty[] outputKeys = outputKeyProperties.get(outputType);
@@ -277,20 +292,23 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       // the current mode's conversion factor
       VehiclesUnit.updatePcuToVehicleFactor(1 / mode.getPcu());
 
-      MultiKeyPlanItData multiKeyPlanItData = new MultiKeyPlanItData(outputKeys, outputProperties);
       Optional<OdSkimMatrix> odSkimMatrix = odOutputTypeAdapter.getOdSkimMatrix(subOutputType, mode);
       odSkimMatrix.orElseThrow(() -> new PlanItException("unable to retrieve od skim matrix"));
+      final int numberOfOdZones = odSkimMatrix.get().getNumberOfOdZones();
+      ColumnarPlanItData columnarPlanItData = new ColumnarPlanItData(outputKeys, outputProperties, numberOfOdZones, true /* sparse od index */);
 
+      /* skim values are read directly from the skim matrix without copying, remaining properties per od cell */
       for (OdSkimMatrixIterator odIterator = odSkimMatrix.get().iterator(); odIterator.hasNext();) {
         odIterator.next();
-        Optional<Double> cost = (Optional<Double>) odOutputTypeAdapter.getOdOutputPropertyValue(OD_COST_PROPERTY, odIterator, mode, timePeriod);
-        cost.orElseThrow(() -> new PlanItException("cost could not be retrieved when persisting"));
-
-        if (outputConfiguration.isPersistZeroFlow() || cost.get() > Precision.EPSILON_6) {
-          updateOutputAndKeyValuesForOd(multiKeyPlanItData, outputProperties, outputKeys, odIterator, odOutputTypeAdapter, mode, timePeriod);
+        final int originOdZoneId = (int) odIterator.getCurrentOrigin().getOdZoneId();
+        final int destinationOdZoneId = (int) odIterator.getCurrentDestination().getOdZoneId();
+        final long denseIndex = getOdDenseIndex(originOdZoneId, destinationOdZoneId, numberOfOdZones);
+        final double cost = odSkimMatrix.get().getPrimitiveValue(originOdZoneId, destinationOdZoneId);
+        if (outputConfiguration.isPersistZeroFlow() || cost > Precision.EPSILON_6) {
+          updateOutputAndKeyValuesForOd(columnarPlanItData, denseIndex, outputProperties, outputKeys, odIterator, cost, odOutputTypeAdapter, mode, timePeriod);
         }
       }
-      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, multiKeyPlanItData);
+      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, columnarPlanItData);
     }
   }
 
@@ -324,18 +342,20 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       // the current mode's conversion factor
       VehiclesUnit.updatePcuToVehicleFactor(1 / mode.getPcu());
 
-      MultiKeyPlanItData multiKeyPlanItData = new MultiKeyPlanItData(outputKeys, outputProperties);
       Optional<OdPathMatrix> odPathMatrix = pathOutputTypeAdapter.getOdPathMatrix(mode);
       odPathMatrix.orElseThrow(() -> new PlanItException("od path matrix could not be retrieved when persisting"));
+      final int numberOfOdZones = odPathMatrix.get().getNumberOfOdZones();
+      ColumnarPlanItData columnarPlanItData = new ColumnarPlanItData(outputKeys, outputProperties, numberOfOdZones, true /* sparse od index */);
 
       for (OdPathMatrixIterator odPathIterator = odPathMatrix.get().iterator(); odPathIterator.hasNext();) {
         odPathIterator.next();
         if (outputConfiguration.isPersistZeroFlow() || (odPathIterator.getCurrentValue() != null)) {
-          updateOutputAndKeyValuesForPath(multiKeyPlanItData, outputProperties, outputKeys, odPathIterator, pathOutputTypeAdapter, mode, timePeriod,
+          long denseIndex = getOdDenseIndex(odPathIterator.getCurrentOrigin().getOdZoneId(), odPathIterator.getCurrentDestination().getOdZoneId(), numberOfOdZones);
+          updateOutputAndKeyValuesForPath(columnarPlanItData, denseIndex, outputProperties, outputKeys, odPathIterator, pathOutputTypeAdapter, mode, timePeriod,
               pathOutputTypeConfiguration.getPathIdentificationType());
         }
       }
-      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, multiKeyPlanItData);
+      timeModeOutputTypeIterationDataMap.put(mode, timePeriod, iterationIndex, outputType, columnarPlanItData);
     }
   }
 
@@ -348,6 +368,23 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
     super(groupId);
   }
 
+  /**
+   * Copy constructor, the copy starts without any stored results
+   * 
+   * @param other to copy
+   */
+  public MemoryOutputFormatter(MemoryOutputFormatter other) {
+    super(other);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public MemoryOutputFormatter createIsolatedCopy() {
+    return new MemoryOutputFormatter(this);
+  }
+
   /**
    * Get a specified data value
    * 
@@ -362,8 +399,54 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
    */
   public Object getOutputDataValue(Mode mode, TimePeriod timePeriod, Integer iterationIndex, OutputType outputType, OutputPropertyType outputProperty, Object[] keyValues)
       throws PlanItException {
-    MultiKeyPlanItData multiKeyPlanItData = (MultiKeyPlanItData) timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
-    return multiKeyPlanItData.getRowValue(outputProperty, keyValues);
+    ColumnarPlanItData columnarPlanItData = timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
+    return columnarPlanItData.getRowValue(outputProperty, keyValues);
+  }
+
+  /**
+   * Get a specified double data value without boxing, where the row is identified by its dense index, i.e., the link segment id for link outputs, or the flattened od index for od
+   * and path outputs (see {@link #getOdDenseIndex(long, long, int)})
+   * 
+   * @param mode           value of mode key
+   * @param timePeriod     value of time period key
+   * @param iterationIndex value of iteration index key
+   * @param outputType     value of output type key
+   * @param valuePosition  position of the output value property, see {@link #getPositionOfOutputValueProperty(OutputType, OutputPropertyType)}
+   * @param denseIndex     dense index identifying the row
+   * @return the value, NaN when no data or no row is present
+   */
+  public double getOutputDataDoubleValue(Mode mode, TimePeriod timePeriod, int iterationIndex, OutputType outputType, int valuePosition, long denseIndex) {
+    ColumnarPlanItData columnarPlanItData = timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
+    if (columnarPlanItData == null) {
+      return Double.NaN;
+    }
+    int row = columnarPlanItData.getRowIndex(denseIndex);
+    return row < 0 ? Double.NaN : columnarPlanItData.getDouble(valuePosition, row);
+  }
+
+  /**
+   * Collect the columnar data store for the given keys, allowing for typed access to its values and rows without boxing
+   * 
+   * @param mode           value of mode key
+   * @param timePeriod     value of time period key
+   * @param iterationIndex value of iteration index key
+   * @param outputType     value of output type key
+   * @return columnar data, null if not present
+   */
+  public ColumnarPlanItData getOutputData(Mode mode, TimePeriod timePeriod, Integer iterationIndex, OutputType outputType) {
+    return timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
+  }
+
+  /**
+   * Compute the dense index used to register od (and path) output rows
+   * 
+   * @param originOdZoneId      od zone id of the origin
+   * @param destinationOdZoneId od zone id of the destination
+   * @param numberOfOdZones     number of od zones
+   * @return dense index, computed in long precision since it exceeds the integer range for large zonings
+   */
+  public static long getOdDenseIndex(long originOdZoneId, long destinationOdZoneId, int numberOfOdZones) {
+    return originOdZoneId * numberOfOdZones + destinationOdZoneId;
   }
 
   /**
@@ -375,7 +458,7 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
    */
   @Override
   public void initialiseBeforeSimulation(OutputConfiguration outputConfiguration, long runId) throws PlanItException {
-    timeModeOutputTypeIterationDataMap = new MultiKeyMap<Object, MultiKeyPlanItData>();
+    timeModeOutputTypeIterationDataMap = new MultiKeyMap<Object, ColumnarPlanItData>();
   }
 
   /**
@@ -440,7 +523,7 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
   }
 
   /**
-   * Returns a MemoryOutputIterator for the contents of the specified MultiKeyPlanItData map
+   * Returns a MemoryOutputIterator for the contents of the specified ColumnarPlanItData
    * 
    * @param mode           value of mode key
    * @param timePeriod     value of time period key
@@ -465,8 +548,8 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       LOGGER.warning("IGNORE: output type null when obtaining memory output iterator");
       return null;
     }
-    MultiKeyPlanItData multiKeyPlanItData = (MultiKeyPlanItData) timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
-    MemoryOutputIterator memoryOutputIterator = new MemoryOutputIterator(multiKeyPlanItData);
+    ColumnarPlanItData columnarPlanItData = timeModeOutputTypeIterationDataMap.get(mode, timePeriod, iterationIndex, outputType);
+    MemoryOutputIterator memoryOutputIterator = new MemoryOutputIterator(columnarPlanItData);
     return memoryOutputIterator;
   }
 
@@ -485,10 +568,10 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       Mode mode1 = (Mode) keys[0];
       TimePeriod timePeriod1 = (TimePeriod) keys[1];
       Integer iterationIndex1 = (Integer) keys[2];
-      MultiKeyPlanItData multiKeyPlanItData = timeModeOutputTypeIterationDataMap.get(mode1, timePeriod1, iterationIndex1, outputType);
+      ColumnarPlanItData columnarPlanItData = timeModeOutputTypeIterationDataMap.get(mode1, timePeriod1, iterationIndex1, outputType);
       OutputType outputType1 = (OutputType) keys[3];
       if (outputType1.equals(outputType)) {
-        return multiKeyPlanItData.getPositionOfOutputValueProperty(outputValueProperty);
+        return columnarPlanItData.getPositionOfOutputValueProperty(outputValueProperty);
       }
     }
     throw new PlanItException("Value property " + outputType.name() + " could not be found in the MemoryOutputFormatter");
@@ -509,10 +592,10 @@ public class MemoryOutputFormatter extends BaseOutputFormatter {
       Mode mode1 = (Mode) keys[0];
       TimePeriod timePeriod1 = (TimePeriod) keys[1];
       Integer iterationIndex1 = (Integer) keys[2];
-      MultiKeyPlanItData multiKeyPlanItData = (MultiKeyPlanItData) timeModeOutputTypeIterationDataMap.get(mode1, timePeriod1, iterationIndex1, outputType);
+      ColumnarPlanItData columnarPlanItData = timeModeOutputTypeIterationDataMap.get(mode1, timePeriod1, iterationIndex1, outputType);
       OutputType outputType1 = (OutputType) keys[3];
       if (outputType1.equals(outputType)) {
-        return multiKeyPlanItData.getPositionOfOutputKeyProperty(outputKeyProperty);
+        return columnarPlanItData.getPositionOfOutputKeyProperty(outputKeyProperty);
       }
     }
     throw new PlanItException("Key property " + outputType.name() + " could not be found in the MemoryOutputFormatter");
@@ -1,33 +1,58 @@
 package org.goplanit.output.formatter;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
+import org.goplanit.data.ColumnarPlanItData;
 import org.goplanit.data.MultiKeyPlanItData;
-import org.goplanit.data.MultiKeyPlanItDataIterator;
+import org.goplanit.utils.exceptions.PlanItException;
 
 /**
  * Iterator which loops through the keys and values stored in the MemoryOutputFormatter
  * 
- * This class is a wrapper for MultiKeyPlanItDataIterator.
+ * This class is a view on the ColumnarPlanItData of the formatter. Keys and values are only boxed when requested via {@link #getKeys()} and {@link #getValues()}, typed access to
+ * individual values of the current row is available without boxing.
  * 
- * @author gman6028
+ * @author gman6028, markr
  *
  */
 public class MemoryOutputIterator implements Iterator<Object[]> {
 
   /**
-   * Iterator through MultiKeyPlanItData
+   * The columnar data being iterated over
    */
-  private MultiKeyPlanItDataIterator multiKeyPlanItDataIterator;
+  private final ColumnarPlanItData columnarPlanItData;
+
+  /**
+   * Row index of the current iteration, -1 before the first call to next()
+   */
+  private int currentRow;
+
+  /**
+   * Constructor
+   * 
+   * @param columnarPlanItData the ColumnarPlanItData object storing the data, provided by the MemoryOutputFormatter
+   */
+  public MemoryOutputIterator(final ColumnarPlanItData columnarPlanItData) {
+    this.columnarPlanItData = columnarPlanItData;
+    this.currentRow = -1;
+  }
 
   /**
    * Constructor
    * 
-   * @param multiKeyPlanItData the MultiKeyPlanItData object storing the data, provided by the
-   *          MemoryOutputFormatter
+   * @param multiKeyPlanItData the MultiKeyPlanItData object storing the data, its contents are copied into columnar form
+   * @throws PlanItException thrown if the data cannot be copied
+   * @deprecated the MemoryOutputFormatter no longer stores MultiKeyPlanItData, use {@link #MemoryOutputIterator(ColumnarPlanItData)} instead
    */
-  public MemoryOutputIterator(final MultiKeyPlanItData multiKeyPlanItData) {
-    multiKeyPlanItDataIterator = multiKeyPlanItData.getIterator();
+  @Deprecated
+  public MemoryOutputIterator(final MultiKeyPlanItData multiKeyPlanItData) throws PlanItException {
+    this.columnarPlanItData = new ColumnarPlanItData(multiKeyPlanItData.getOutputKeyProperties(), multiKeyPlanItData.getOutputValueProperties());
+    for (var iter = multiKeyPlanItData.getIterator(); iter.hasNext();) {
+      iter.next();
+      columnarPlanItData.putRow(-1, iter.getValues(), iter.getKeys());
+    }
+    this.currentRow = -1;
   }
 
   /**
@@ -37,7 +62,7 @@ public class MemoryOutputIterator implements Iterator<Object[]> {
    */
   @Override
   public boolean hasNext() {
-    return multiKeyPlanItDataIterator.hasNext();
+    return currentRow + 1 < columnarPlanItData.getNumberOfRows();
   }
 
   /**
@@ -47,7 +72,11 @@ public class MemoryOutputIterator implements Iterator<Object[]> {
    */
   @Override
   public Object[] next() {
-    return multiKeyPlanItDataIterator.next();
+    if (!hasNext()) {
+      throw new NoSuchElementException("No more rows available in MemoryOutputIterator");
+    }
+    ++currentRow;
+    return getKeys();
   }
 
   /**
@@ -56,7 +85,7 @@ public class MemoryOutputIterator implements Iterator<Object[]> {
    * @return array of keys for the current iteration
    */
   public Object[] getKeys() {
-    return multiKeyPlanItDataIterator.getKeys();
+    return columnarPlanItData.getKeyValues(currentRow);
   }
 
   /**
@@ -65,7 +94,36 @@ public class MemoryOutputIterator implements Iterator<Object[]> {
    * @return array of values for the current iteration
    */
   public Object[] getValues() {
-    return multiKeyPlanItDataIterator.getValues();
+    return columnarPlanItData.getValues(currentRow);
+  }
+
+  /**
+   * Returns the row index of the current iteration in the underlying columnar data
+   * 
+   * @return current row index
+   */
+  public int getCurrentRowIndex() {
+    return currentRow;
+  }
+
+  /**
+   * Typed access to a double value of the current row without boxing
+   * 
+   * @param valuePosition position of the output value property, see {@link MemoryOutputFormatter#getPositionOfOutputValueProperty}
+   * @return value
+   */
+  public double getDoubleValue(int valuePosition) {
+    return columnarPlanItData.getDouble(valuePosition, currentRow);
+  }
+
+  /**
+   * Typed access to a long value of the current row without boxing
+   * 
+   * @param valuePosition position of the output value property, see {@link MemoryOutputFormatter#getPositionOfOutputValueProperty}
+   * @return value
+   */
+  public long getLongValue(int valuePosition) {
+    return columnarPlanItData.getLong(valuePosition, currentRow);
   }
 
 }
@@ -79,4 +79,14 @@ public interface OutputFormatter {
    */
   public boolean canHandleMultipleIterations();
 
+  /**
+   * Create a copy of this formatter with the same configuration and id but without any state related to a run, such that it can be used by a traffic assignment that is executed
+   * concurrently with other assignments sharing this formatter. Formatters that do not support this return null, in which case assignments sharing them are executed sequentially
+   * 
+   * @return isolated copy, null when not supported
+   */
+  public default OutputFormatter createIsolatedCopy() {
+    return null;
+  }
+
 }
\ No newline at end of file
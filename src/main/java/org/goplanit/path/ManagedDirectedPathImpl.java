@@ -2,7 +2,7 @@ package org.goplanit.path;
 
 import org.goplanit.utils.graph.directed.EdgeSegment;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.path.ManagedDirectedPath;
 import org.goplanit.utils.path.SimpleDirectedPath;
@@ -36,7 +36,7 @@ public class ManagedDirectedPathImpl extends ExternalIdAbleImpl implements Manag
    * @return created id
    */
   protected static long generateId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, ManagedDirectedPath.PATH_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, ManagedDirectedPath.PATH_ID_CLASS);
   }
 
   /**
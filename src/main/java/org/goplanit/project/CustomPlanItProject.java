@@ -1,11 +1,21 @@
 package org.goplanit.project;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import org.goplanit.assignment.AssignmentConcurrencyUtils;
 import org.goplanit.assignment.TrafficAssignment;
 import org.goplanit.assignment.TrafficAssignmentBuilder;
 import org.goplanit.assignment.TrafficAssignmentBuilderFactory;
@@ -14,16 +24,18 @@ import org.goplanit.component.PlanitComponent;
 import org.goplanit.component.PlanitComponentFactory;
 import org.goplanit.cost.physical.initial.InitialMacroscopicLinkSegmentCost;
 import org.goplanit.demands.Demands;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.input.InputBuilderListener;
 import org.goplanit.network.LayeredNetwork;
 import org.goplanit.network.MacroscopicNetwork;
 import org.goplanit.network.ServiceNetwork;
+import org.goplanit.network.TopologicalLayerNetwork;
+import org.goplanit.network.transport.TransportModelNetwork;
 import org.goplanit.output.formatter.OutputFormatter;
 import org.goplanit.output.formatter.OutputFormatterFactory;
 import org.goplanit.path.OdPathSets;
 import org.goplanit.service.routed.RoutedServices;
 import org.goplanit.utils.exceptions.PlanItException;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.misc.LoggingUtils;
 import org.goplanit.utils.network.layer.NetworkLayer;
@@ -78,8 +90,256 @@ public class CustomPlanItProject {
    */
   protected final TreeMap<Long, OutputFormatter> outputFormatters;
 
+  /**
+   * Maximum number of traffic assignments to execute concurrently, 1 means assignments are executed sequentially
+   */
+  protected int maxConcurrentAssignments = DEFAULT_MAX_CONCURRENT_ASSIGNMENTS;
+
+  /**
+   * Estimated number of double values kept per link segment and mode by an assignment, e.g., flows, costs, smoothing and loading state
+   */
+  protected static final int ESTIMATED_DOUBLES_PER_LINK_SEGMENT_MODE = 16;
+
+  /**
+   * Estimated number of double values kept per od pair and mode by an assignment, e.g., demands, skims and path or bush related state
+   */
+  protected static final int ESTIMATED_DOUBLES_PER_OD_PAIR_MODE = 4;
+
   // Protected methods
 
+  /**
+   * Group the assignments such that assignments sharing an infrastructure network, zoning or output formatter end up in the same group. These inputs are modified during
+   * execution, e.g., the zoning's virtual network is integrated into the infrastructure network, so assignments within a group are executed sequentially, while different groups
+   * can be executed concurrently. Assignments with a scenario overlay whose transport network is integrated externally, see
+   * {@link #integrateSharedTransportNetworks(List)}, only read the network and zoning, so they are only grouped via shared output formatters. Output formatters that support
+   * isolation are no longer shared once {@link #isolateSharedOutputFormatters(List)} has been applied
+   *
+   * @param trafficAssignments to group
+   * @return groups of dependent assignments
+   */
+  protected List<List<TrafficAssignment>> groupDependentTrafficAssignments(final List<TrafficAssignment> trafficAssignments) {
+    /* union-find over assignment indices, joined via the first assignment using a shared input */
+    final int[] parent = new int[trafficAssignments.size()];
+    final Map<Object, Integer> firstUserOfInput = new IdentityHashMap<>();
+    for (int index = 0; index < trafficAssignments.size(); ++index) {
+      parent[index] = index;
+      final var ta = trafficAssignments.get(index);
+      final boolean readOnlyNetwork = ta.getScenarioOverlay() != null && ta.isTransportNetworkIntegratedExternally();
+      final List<Object> sharedInputs = readOnlyNetwork ? new ArrayList<>() : new ArrayList<>(Arrays.asList(ta.getInfrastructureNetwork(), ta.getZoning()));
+      if (ta.getOutputFormatters() != null) {
+        sharedInputs.addAll(ta.getOutputFormatters());
+      }
+      for (Object sharedInput : sharedInputs) {
+        if (sharedInput == null) {
+          continue;
+        }
+        final Integer firstUser = firstUserOfInput.putIfAbsent(sharedInput, index);
+        if (firstUser != null) {
+          parent[findGroupRoot(parent, index)] = findGroupRoot(parent, firstUser);
+        }
+      }
+    }
+
+    final Map<Integer, List<TrafficAssignment>> groups = new TreeMap<>();
+    for (int index = 0; index < trafficAssignments.size(); ++index) {
+      groups.computeIfAbsent(findGroupRoot(parent, index), root -> new ArrayList<>()).add(trafficAssignments.get(index));
+    }
+    return new ArrayList<>(groups.values());
+  }
+
+  /**
+   * Provide assignments that share a registered output formatter with an isolated copy of it, see {@link OutputFormatter#createIsolatedCopy()}, such that concurrently executed
+   * assignments do not share any run related formatter state. The last assignment (in registration order) using a formatter retains the registered formatter, so its final state
+   * is identical to that of sequential execution. Formatters that do not support isolation remain shared
+   *
+   * @param trafficAssignments to isolate output formatters for
+   */
+  protected void isolateSharedOutputFormatters(final List<TrafficAssignment> trafficAssignments) {
+    final Map<OutputFormatter, Integer> lastUser = new IdentityHashMap<>();
+    for (int index = 0; index < trafficAssignments.size(); ++index) {
+      if (trafficAssignments.get(index).getOutputFormatters() == null) {
+        continue;
+      }
+      for (var outputFormatter : trafficAssignments.get(index).getOutputFormatters()) {
+        lastUser.put(outputFormatter, index);
+      }
+    }
+
+    for (int index = 0; index < trafficAssignments.size(); ++index) {
+      final var ta = trafficAssignments.get(index);
+      if (ta.getOutputFormatters() == null) {
+        continue;
+      }
+      for (var outputFormatter : new ArrayList<>(ta.getOutputFormatters())) {
+        if (lastUser.get(outputFormatter) == index) {
+          continue;
+        }
+        final var isolatedCopy = outputFormatter.createIsolatedCopy();
+        if (isolatedCopy != null) {
+          ta.replaceOutputFormatter(outputFormatter, isolatedCopy);
+        }
+      }
+    }
+  }
+
+  /**
+   * Integrate the zoning's virtual network with the infrastructure network once, upfront, for each zoning used by an assignment with a scenario overlay. All assignments on such a
+   * zoning are flagged to rely on this integration, so none of them modifies the shared network or zoning during execution and the overlay assignments can be executed
+   * concurrently. Zonings that are used in combination with more than one network are not shared
+   *
+   * @param trafficAssignments to integrate transport networks for
+   * @return integrated transport networks by zoning, to be disbanded after execution via {@link #disbandSharedTransportNetworks(List, Map)}
+   */
+  protected Map<Zoning, TransportModelNetwork> integrateSharedTransportNetworks(final List<TrafficAssignment> trafficAssignments) {
+    final Map<Zoning, TopologicalLayerNetwork<?, ?>> networkByZoning = new IdentityHashMap<>();
+    final Set<Zoning> overlayZonings = Collections.newSetFromMap(new IdentityHashMap<>());
+    final Set<Zoning> ambiguousZonings = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (var ta : trafficAssignments) {
+      if (ta.getInfrastructureNetwork() == null || ta.getZoning() == null) {
+        continue;
+      }
+      if (networkByZoning.computeIfAbsent(ta.getZoning(), zoning -> ta.getInfrastructureNetwork()) != ta.getInfrastructureNetwork()) {
+        ambiguousZonings.add(ta.getZoning());
+      }
+      if (ta.getScenarioOverlay() != null) {
+        overlayZonings.add(ta.getZoning());
+      }
+    }
+
+    final Map<Zoning, TransportModelNetwork> sharedTransportNetworks = new IdentityHashMap<>();
+    for (var zoning : overlayZonings) {
+      if (ambiguousZonings.contains(zoning)) {
+        LOGGER.warning(String.format("%sZoning %s used with multiple networks, scenario overlay assignments on it are executed sequentially", LoggingUtils.projectPrefix(this.id),
+            zoning.getXmlId()));
+        continue;
+      }
+      sharedTransportNetworks.put(zoning, new TransportModelNetwork(networkByZoning.get(zoning), zoning).integrateTransportNetworkViaConnectoids());
+    }
+    for (var ta : trafficAssignments) {
+      ta.setTransportNetworkIntegratedExternally(ta.getZoning() != null && sharedTransportNetworks.containsKey(ta.getZoning()));
+    }
+    return sharedTransportNetworks;
+  }
+
+  /**
+   * Disband the transport networks integrated via {@link #integrateSharedTransportNetworks(List)} and let the assignments manage their own integration again
+   *
+   * @param trafficAssignments      the assignments the transport networks were integrated for
+   * @param sharedTransportNetworks to disband
+   */
+  protected void disbandSharedTransportNetworks(final List<TrafficAssignment> trafficAssignments, final Map<Zoning, TransportModelNetwork> sharedTransportNetworks) {
+    sharedTransportNetworks.values().forEach(TransportModelNetwork::removeVirtualNetworkFromPhysicalNetwork);
+    trafficAssignments.forEach(ta -> ta.setTransportNetworkIntegratedExternally(false));
+  }
+
+  /**
+   * Find the root of the group of an assignment, compressing the path along the way
+   *
+   * @param parent parent index of each assignment index
+   * @param index  to find root for
+   * @return root index
+   */
+  private static int findGroupRoot(final int[] parent, int index) {
+    while (parent[index] != index) {
+      parent[index] = parent[parent[index]];
+      index = parent[index];
+    }
+    return index;
+  }
+
+  /**
+   * Estimate the memory required to execute an assignment, based on the number of link segments, connectoids, od zones and modes of its inputs. Derived projects with more
+   * accurate knowledge of the registered assignment types may override this estimate
+   *
+   * @param ta to estimate memory for
+   * @return estimated memory in bytes, zero when inputs are missing
+   */
+  protected long estimateAssignmentMemoryBytes(final TrafficAssignment ta) {
+    if (ta.getInfrastructureNetwork() == null || ta.getZoning() == null) {
+      return 0;
+    }
+    long numberOfEdgeSegments = 2 * ta.getZoning().getNumberOfConnectoids();
+    if (ta.getInfrastructureNetwork() instanceof MacroscopicNetwork) {
+      for (var layer : ((MacroscopicNetwork) ta.getInfrastructureNetwork()).getTransportLayers()) {
+        numberOfEdgeSegments += layer.getLinkSegments().size();
+      }
+    }
+    final long numberOfOdZones = ta.getZoning().getOdZones().size();
+    final long numberOfModes = Math.max(1, ta.getInfrastructureNetwork().getModes().size());
+    return Double.BYTES * numberOfModes
+        * (ESTIMATED_DOUBLES_PER_LINK_SEGMENT_MODE * numberOfEdgeSegments + ESTIMATED_DOUBLES_PER_OD_PAIR_MODE * numberOfOdZones * numberOfOdZones);
+  }
+
+  /**
+   * Determine the number of assignment groups to execute concurrently, limited by the configured maximum, the available processors and the memory headroom of the JVM given the
+   * estimated memory of the most demanding group
+   *
+   * @param groups of assignments to execute
+   * @return concurrency limit, at least one
+   */
+  protected int determineConcurrencyLimit(final List<List<TrafficAssignment>> groups) {
+    long maxEstimatedBytes = 1;
+    for (var group : groups) {
+      for (var ta : group) {
+        maxEstimatedBytes = Math.max(maxEstimatedBytes, estimateAssignmentMemoryBytes(ta));
+      }
+    }
+    return AssignmentConcurrencyUtils.determineConcurrencyLimit(maxConcurrentAssignments, groups.size(), maxEstimatedBytes, LoggingUtils.projectPrefix(this.id),
+        "independent assignment group(s)");
+  }
+
+  /**
+   * Build all registered traffic assignments upfront and execute independent ones concurrently. Building, and therefore creation of the assignments' components, is done on the
+   * calling thread, only execution is delegated to the executor. Shared output formatters are isolated per assignment where supported and all ids are generated via the thread
+   * safe {@link SynchronisedIdGenerator}
+   *
+   * @return assignments that failed
+   * @throws PlanItException thrown if interrupted while awaiting execution
+   */
+  protected Set<TrafficAssignment> executeAllTrafficAssignmentsConcurrently() throws PlanItException {
+    final Set<TrafficAssignment> failedAssignments = ConcurrentHashMap.newKeySet();
+
+    final List<TrafficAssignment> trafficAssignments = new ArrayList<>();
+    for (TrafficAssignmentBuilder<?> tab : assignmentBuilders) {
+      try {
+        TrafficAssignment ta = tab.build();
+        LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.logActiveStateByClassName(ta, true));
+        LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.runIdPrefix(ta.getId()) + "assignment created");
+        trafficAssignments.add(ta);
+      } catch (final Exception e) {
+        LOGGER.severe(LoggingUtils.projectPrefix(this.id) + e.getMessage());
+      }
+    }
+
+    isolateSharedOutputFormatters(trafficAssignments);
+    final var sharedTransportNetworks = integrateSharedTransportNetworks(trafficAssignments);
+    final var groups = groupDependentTrafficAssignments(trafficAssignments);
+    final ExecutorService executor = Executors.newFixedThreadPool(determineConcurrencyLimit(groups));
+    try {
+      for (var group : groups) {
+        executor.execute(() -> {
+          for (var ta : group) {
+            try {
+              ta.execute();
+            } catch (final Exception e) {
+              LOGGER.severe(LoggingUtils.projectPrefix(this.id) + LoggingUtils.runIdPrefix(ta.getId()) + e.getMessage());
+              failedAssignments.add(ta);
+            }
+          }
+        });
+      }
+      executor.shutdown();
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new PlanItException("Interrupted while executing traffic assignments concurrently", e);
+    } finally {
+      executor.shutdownNow();
+      disbandSharedTransportNetworks(trafficAssignments, sharedTransportNetworks);
+    }
+    return failedAssignments;
+  }
+
   /**
    * Execute a particular traffic assignment
    *
@@ -94,6 +354,9 @@ public class CustomPlanItProject {
     }
   }
 
+  /** default maximum number of concurrently executed assignments, i.e., sequential execution */
+  public static final int DEFAULT_MAX_CONCURRENT_ASSIGNMENTS = 1;
+
   /**
    * The registered physical networks
    */
@@ -134,8 +397,8 @@ public class CustomPlanItProject {
    * @param inputBuilderListener InputBuilderListener used to read in data
    */
   public CustomPlanItProject(final InputBuilderListener inputBuilderListener) {
-    this.id = IdGenerator.generateId(IdGroupingToken.collectGlobalToken(), CustomPlanItProject.class);
-    this.projectToken = IdGenerator.createIdGroupingToken(this, this.id);
+    this.id = SynchronisedIdGenerator.generateId(IdGroupingToken.collectGlobalToken(), CustomPlanItProject.class);
+    this.projectToken = SynchronisedIdGenerator.createIdGroupingToken(this, this.id);
 
     this.inputBuilderListener = inputBuilderListener;
     LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.logActiveStateByClassName(inputBuilderListener, true));
@@ -325,10 +588,32 @@ public class CustomPlanItProject {
     return outputFormatters.get(id);
   }
 
+  /**
+   * Set the maximum number of traffic assignments to execute concurrently. Only assignments that do not share an infrastructure network, zoning or output formatter (that does not
+   * support isolation) are executed concurrently, and the actual concurrency is further limited by the available processors and the estimated memory per assignment
+   *
+   * @param maxConcurrentAssignments to use, 1 for sequential execution
+   * @throws PlanItException thrown if not positive
+   */
+  public void setMaxConcurrentAssignments(final int maxConcurrentAssignments) throws PlanItException {
+    PlanItException.throwIf(maxConcurrentAssignments < 1, "Maximum number of concurrent assignments must be positive, found %d", maxConcurrentAssignments);
+    this.maxConcurrentAssignments = maxConcurrentAssignments;
+  }
+
+  /**
+   * Collect the maximum number of traffic assignments to execute concurrently
+   *
+   * @return maximum number of concurrent assignments
+   */
+  public int getMaxConcurrentAssignments() {
+    return maxConcurrentAssignments;
+  }
+
   /**
    * Execute all registered traffic assignments
    *
    * Top-level error recording is done in this class. If several traffic assignments are registered and one fails, we record its error and continue with the next assignment.
+   * When more than one concurrent assignment is allowed, see {@link #setMaxConcurrentAssignments(int)}, independent assignments are executed concurrently.
    *
    * @throws PlanItException required for subclasses which override this method and generate an exception before the runs start
    */
@@ -340,17 +625,21 @@ public class CustomPlanItProject {
       return;
     }
 
-    for (TrafficAssignmentBuilder<?> tab : assignmentBuilders) {
-      TrafficAssignment ta = null;
-      try {
-        ta = tab.build();
-        LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.logActiveStateByClassName(ta, true));
-        LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.runIdPrefix(ta.getId()) + "assignment created");
-        ta.execute();
-      } catch (final PlanItException pe) {
-        LOGGER.severe(pe.getMessage());
-        if (ta != null) {
-          failedAssignments.add(ta);
+    if (maxConcurrentAssignments > 1 && assignmentBuilders.size() > 1) {
+      failedAssignments = executeAllTrafficAssignmentsConcurrently();
+    } else {
+      for (TrafficAssignmentBuilder<?> tab : assignmentBuilders) {
+        TrafficAssignment ta = null;
+        try {
+          ta = tab.build();
+          LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.logActiveStateByClassName(ta, true));
+          LOGGER.info(LoggingUtils.projectPrefix(this.id) + LoggingUtils.runIdPrefix(ta.getId()) + "assignment created");
+          ta.execute();
+        } catch (final Exception e) {
+          LOGGER.severe(LoggingUtils.projectPrefix(this.id) + (ta != null ? LoggingUtils.runIdPrefix(ta.getId()) : "") + e.getMessage());
+          if (ta != null) {
+            failedAssignments.add(ta);
+          }
         }
       }
     }
@@ -1,8 +1,8 @@
 package org.goplanit.service.routed;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.service.routed.RoutedService;
@@ -37,7 +37,7 @@ public class RoutedServiceImpl extends ExternalIdAbleImpl implements RoutedServi
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, RoutedService.ROUTED_SERVICE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, RoutedService.ROUTED_SERVICE_ID_CLASS);
   }
 
   /**
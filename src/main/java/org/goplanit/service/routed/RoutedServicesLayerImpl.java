@@ -5,9 +5,9 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.service.routed.modifier.RoutedServicesLayerModifierImpl;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdDeepCopyMapper;
 import org.goplanit.utils.mode.Mode;
@@ -58,7 +58,7 @@ public class RoutedServicesLayerImpl extends ExternalIdAbleImpl implements Route
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, RoutedServicesLayer.ROUTED_SERVICES_LAYER_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, RoutedServicesLayer.ROUTED_SERVICES_LAYER_ID_CLASS);
   }
 
   /**
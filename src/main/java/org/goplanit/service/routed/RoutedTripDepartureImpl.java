@@ -1,7 +1,7 @@
 package org.goplanit.service.routed;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.service.routed.RoutedTripDeparture;
 import org.goplanit.utils.time.ExtendedLocalTime;
@@ -30,7 +30,7 @@ public class RoutedTripDepartureImpl extends ExternalIdAbleImpl implements Route
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, ROUTED_TRIP_DEPARTURE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, ROUTED_TRIP_DEPARTURE_ID_CLASS);
   }
 
   /**
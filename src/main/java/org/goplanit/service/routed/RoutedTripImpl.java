@@ -1,7 +1,7 @@
 package org.goplanit.service.routed;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.service.routed.RoutedTrip;
 
@@ -19,7 +19,7 @@ public abstract class RoutedTripImpl extends ExternalIdAbleImpl implements Route
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, RoutedTrip.ROUTED_TRIP_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, RoutedTrip.ROUTED_TRIP_ID_CLASS);
   }
 
   /**
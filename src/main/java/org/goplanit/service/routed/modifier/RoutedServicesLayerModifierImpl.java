@@ -34,6 +34,78 @@ public class RoutedServicesLayerModifierImpl extends EventProducerImpl implement
   private static final Logger LOGGER = Logger.getLogger(RoutedServicesLayerModifierImpl.class.getCanonicalName());
   protected final RoutedServicesLayerImpl routedServicesLayer;
 
+  /**
+   * Signature of a trip schedule's relative leg timings in primitive form, i.e., leg segment id, duration and dwell time (in nanoseconds) per leg timing. Used as key to identify
+   * identically scheduled trips via hashing, without creating (and hashing) lists of leg timing objects
+   */
+  private static final class RelativeLegTimingsSignature {
+
+    /** leg segment id, duration and dwell time per leg timing in order */
+    private final long[] values;
+
+    /** cached hash code */
+    private final int hashCode;
+
+    /**
+     * Constructor
+     *
+     * @param routedTripSchedule to create signature for
+     */
+    private RelativeLegTimingsSignature(RoutedTripSchedule routedTripSchedule){
+      this.values = new long[3 * routedTripSchedule.getRelativeLegTimingsSize()];
+      int index = 0;
+      for(var legTiming : routedTripSchedule){
+        values[index++] = legTiming.getParentLegSegment().getId();
+        values[index++] = legTiming.getDuration() == null ? -1 : legTiming.getDuration().toNanoOfDay();
+        values[index++] = legTiming.getDwellTime() == null ? -1 : legTiming.getDwellTime().toNanoOfDay();
+      }
+      this.hashCode = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof RelativeLegTimingsSignature && Arrays.equals(values, ((RelativeLegTimingsSignature) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * Remove all departures with a departure time identical to an earlier departure of the same schedule. Departure times are first checked on primitive sorted copy, so only schedules
+   * that actually have duplicates require identifying them, after which they are removed in bulk
+   *
+   * @param departures to remove duplicates from
+   * @return number of removed departures
+   */
+  private static int removeDuplicateDepartures(RoutedTripDepartures departures){
+    if(departures.size() <= 1){
+      return 0;
+    }
+
+    final long[] sortedDepartureTimes = new long[(int) departures.size()];
+    int index = 0;
+    for(var departure : departures){
+      sortedDepartureTimes[index++] = departure.getDepartureTime().toNanoOfExtendedDay();
+    }
+    Arrays.sort(sortedDepartureTimes);
+    boolean hasDuplicates = false;
+    for(index = 1; index < sortedDepartureTimes.length && !hasDuplicates; ++index){
+      hasDuplicates = sortedDepartureTimes[index] == sortedDepartureTimes[index-1];
+    }
+    if(!hasDuplicates){
+      return 0;
+    }
+
+    /* keep first departure encountered for each departure time, remove others in bulk */
+    final Set<Long> departureTimes = new HashSet<>();
+    final int sizeBefore = (int) departures.size();
+    departures.removeIf( departure -> !departureTimes.add(departure.getDepartureTime().toNanoOfExtendedDay()));
+    return sizeBefore - (int) departures.size();
+  }
+
   /**
    * Recursive method supporting both #RoutedTripFrequency and #RoutedTripSchedule truncations. Based on the given offset related to the to be removed timing segments, identifies the first
    * upcoming valid chain after this offset. If found, it creates a copy of the original and removes all segments
@@ -461,23 +533,26 @@ public class RoutedServicesLayerModifierImpl extends EventProducerImpl implement
 
       Set<RoutedTripSchedule> schedulesToRemoveAfterConsolidation = new HashSet<>();
 
-      var scheduleBasedTrips = routedService.getTripInfo().getScheduleBasedTrips();
-      /* group all schedules based on having identical relative leg timings */
-      var groupedByRelativeSchedule = scheduleBasedTrips.groupBy( rts -> rts.getRelativeLegTimingsAsStream().collect(Collectors.toList()));
-      for(var schedulesToConsolidate : groupedByRelativeSchedule.values()){
-        if(schedulesToConsolidate.size()<=1){
+      /* single pass: identical relative leg timings hash to the same signature, the first schedule encountered with a signature is the one to consolidate into */
+      Map<RelativeLegTimingsSignature, RoutedTripSchedule> referenceScheduleBySignature = new HashMap<>();
+      Set<RoutedTripSchedule> consolidatedReferenceSchedules = new HashSet<>();
+      for(var routedTripSchedule : routedService.getTripInfo().getScheduleBasedTrips()){
+        var referenceTripSchedule = referenceScheduleBySignature.putIfAbsent(new RelativeLegTimingsSignature(routedTripSchedule), routedTripSchedule);
+        if(referenceTripSchedule == null){
           continue;
         }
 
-        /* multiple entries, consolidate into first schedule by adding departures of others to it */
-        var referenceTripSchedule = schedulesToConsolidate.remove(0);
+        /* consolidate into reference schedule by adding departures to it and mark for removal */
         var referenceDeparturesToSupplement = referenceTripSchedule.getDepartures();
-        schedulesToConsolidate.stream().flatMap(schedule -> schedule.getDepartures().stream()).forEach( departure -> referenceDeparturesToSupplement.register(departure));
-        /* mark all but first (reused) for removal */
-        schedulesToRemoveAfterConsolidation.addAll(schedulesToConsolidate);
+        routedTripSchedule.getDepartures().forEach( departure -> referenceDeparturesToSupplement.register(departure));
+        schedulesToRemoveAfterConsolidation.add(routedTripSchedule);
         /* add external ids to remaining trip schedule to not lose information */
-        schedulesToConsolidate.stream().filter(s -> s.hasExternalId()).forEach( s -> referenceTripSchedule.appendExternalId(s.getExternalId(), CharacterUtils.COMMA));
-        consolidatedTripSchedules.increment();
+        if(routedTripSchedule.hasExternalId()){
+          referenceTripSchedule.appendExternalId(routedTripSchedule.getExternalId(), CharacterUtils.COMMA);
+        }
+        if(consolidatedReferenceSchedules.add(referenceTripSchedule)){
+          consolidatedTripSchedules.increment();
+        }
       }
 
       routedService.getTripInfo().getScheduleBasedTrips().removeAll(schedulesToRemoveAfterConsolidation);
@@ -596,22 +671,9 @@ public class RoutedServicesLayerModifierImpl extends EventProducerImpl implement
 
         /* for each schedule */
         for(var routedTripSchedule : routedService.getTripInfo().getScheduleBasedTrips()){
-          Collection<RoutedTripDeparture> toBeRemovedDepartures = null;
-
-          RoutedTripDeparture prevDeparture = null;
-          /* for each departure - loop in ascending order of departure times, then extract duplicates (if any) */
-          for(var departure : routedTripSchedule.getDepartures().streamAscDepartureTime().collect(Collectors.toList())){
-            if(prevDeparture != null && prevDeparture.getDepartureTime().equals(departure.getDepartureTime())){
-              toBeRemovedDepartures = (toBeRemovedDepartures==null) ? new ArrayList<>(2) : toBeRemovedDepartures;
-              toBeRemovedDepartures.add(departure);
-            }
-            prevDeparture = departure;
-          }
-
-          /* remove duplicate entries */
-          if(toBeRemovedDepartures != null){
-            toBeRemovedDepartures.forEach(d -> routedTripSchedule.getDepartures().remove(d));
-            removedDuplicates.add(toBeRemovedDepartures.size());
+          int numRemoved = removeDuplicateDepartures(routedTripSchedule.getDepartures());
+          if(numRemoved > 0){
+            removedDuplicates.add(numRemoved);
             removedAnything = true;
           }
         }
@@ -2,10 +2,10 @@ package org.goplanit.time;
 
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.service.routed.RoutedTrip;
 import org.goplanit.utils.time.TimePeriod;
@@ -44,7 +44,7 @@ public class TimePeriodImpl extends ExternalIdAbleImpl implements TimePeriod {
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, TimePeriod.TIMEPERIOD_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, TimePeriod.TIMEPERIOD_ID_CLASS);
   }
 
   /**
@@ -55,7 +55,7 @@ public class TimePeriodImpl extends ExternalIdAbleImpl implements TimePeriod {
    * @param durationSeconds  duration in seconds
    */
   public TimePeriodImpl(IdGroupingToken groupId, long startTimeSeconds, long durationSeconds) {
-    super(IdGenerator.generateId(groupId, TimePeriod.class));
+    super(SynchronisedIdGenerator.generateId(groupId, TimePeriod.class));
     PlanItRunTimeException.throwIf(durationSeconds > (24.0 * 3600), "Duration more than 24 hours");
     PlanItRunTimeException.throwIf(startTimeSeconds > (24.0 * 3600), "Start time later than 24 hours");
     this.startTimeSeconds = startTimeSeconds;
@@ -72,7 +72,7 @@ public class TimePeriodImpl extends ExternalIdAbleImpl implements TimePeriod {
    * @param durationSeconds  duration of this time period
    */
   public TimePeriodImpl(IdGroupingToken groupId, String description, long startTimeSeconds, long durationSeconds) {
-    super(IdGenerator.generateId(groupId, TimePeriod.class));
+    super(SynchronisedIdGenerator.generateId(groupId, TimePeriod.class));
     PlanItRunTimeException.throwIf(durationSeconds > (24.0 * 3600), "Duration more than 24 hours");
     PlanItRunTimeException.throwIf(startTimeSeconds > (24.0 * 3600), "Start time later than 24 hours");
     this.startTimeSeconds = startTimeSeconds;
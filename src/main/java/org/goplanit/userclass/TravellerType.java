@@ -1,7 +1,7 @@
 package org.goplanit.userclass;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedId;
 import org.goplanit.utils.misc.StringUtils;
@@ -28,7 +28,7 @@ public class TravellerType extends ExternalIdAbleImpl implements ManagedId {
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, TravellerType.TRAVELLERTYPE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, TravellerType.TRAVELLERTYPE_ID_CLASS);
   }
 
   /** id class for generating ids */
@@ -50,7 +50,7 @@ public class TravellerType extends ExternalIdAbleImpl implements ManagedId {
    * @param groupId contiguous id generation within this group for instances of this class
    */
   public TravellerType(final IdGroupingToken groupId) {
-    super(IdGenerator.generateId(groupId, TravellerType.class));
+    super(SynchronisedIdGenerator.generateId(groupId, TravellerType.class));
     this.name = DEFAULT_NAME;
   }
 
@@ -72,7 +72,7 @@ public class TravellerType extends ExternalIdAbleImpl implements ManagedId {
    * 
    */
   public TravellerType(final IdGroupingToken groupId, final String name) {
-    super(IdGenerator.generateId(groupId, TravellerType.class));
+    super(SynchronisedIdGenerator.generateId(groupId, TravellerType.class));
     this.name = name;
   }
 
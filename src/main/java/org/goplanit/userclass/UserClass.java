@@ -1,7 +1,7 @@
 package org.goplanit.userclass;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedId;
 import org.goplanit.utils.misc.StringUtils;
@@ -39,7 +39,7 @@ public class UserClass extends ExternalIdAbleImpl implements ManagedId {
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, UserClass.USERCLASS_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, UserClass.USERCLASS_ID_CLASS);
   }
 
   /** id class for generating ids */
@@ -64,7 +64,7 @@ public class UserClass extends ExternalIdAbleImpl implements ManagedId {
    * @param travelerType the travelerType
    */
   public UserClass(final IdGroupingToken groupId, final String name, final Mode mode, final TravellerType travelerType) {
-    super(IdGenerator.generateId(groupId, UserClass.class));
+    super(SynchronisedIdGenerator.generateId(groupId, UserClass.class));
     this.name = name;
     this.travellerType = travelerType;
     this.mode = mode;
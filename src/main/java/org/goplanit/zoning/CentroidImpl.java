@@ -1,5 +1,6 @@
 package org.goplanit.zoning;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.*;
 import org.goplanit.utils.zoning.Centroid;
 import org.goplanit.utils.zoning.Zone;
@@ -36,7 +37,7 @@ public class CentroidImpl extends IdAbleImpl implements Centroid {
    * @return generated id
    */
   protected static long generateId(IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, CENTROID_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, CENTROID_ID_CLASS);
   }
 
   /**
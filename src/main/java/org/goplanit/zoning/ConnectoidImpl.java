@@ -9,9 +9,9 @@ import java.util.TreeMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.exceptions.PlanItException;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.mode.Mode;
 import org.goplanit.utils.zoning.Connectoid;
@@ -108,7 +108,7 @@ public abstract class ConnectoidImpl extends ExternalIdAbleImpl implements Conne
    * @return id of connectoid
    */
   protected static long generateId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, Connectoid.class);
+    return SynchronisedIdGenerator.generateId(groupId, Connectoid.class);
   }
 
   /**
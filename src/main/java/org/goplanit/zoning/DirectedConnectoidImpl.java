@@ -2,9 +2,9 @@ package org.goplanit.zoning;
 
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.graph.directed.DirectedVertex;
 import org.goplanit.utils.graph.directed.EdgeSegment;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.network.layer.physical.LinkSegment;
 import org.goplanit.utils.zoning.DirectedConnectoid;
@@ -45,7 +45,7 @@ public class DirectedConnectoidImpl extends ConnectoidImpl implements DirectedCo
    * @return id of directed connectoid
    */
   protected static long generateDirectedConnectoidId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, DirectedConnectoid.DIRECTED_CONNECTOID_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, DirectedConnectoid.DIRECTED_CONNECTOID_ID_CLASS);
   }
 
   /**
@@ -1,7 +1,7 @@
 package org.goplanit.zoning;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.path.ManagedDirectedPathsImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.path.ManagedDirectedPath;
 import org.goplanit.utils.zoning.DirectedConnectoid;
@@ -70,7 +70,7 @@ public class DirectedConnectoidsImpl extends ConnectoidsImpl<DirectedConnectoid>
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional directed connectoid id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), DirectedConnectoid.DIRECTED_CONNECTOID_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), DirectedConnectoid.DIRECTED_CONNECTOID_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
@@ -1,6 +1,6 @@
 package org.goplanit.zoning;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.OdZone;
 
@@ -24,7 +24,7 @@ public class OdZoneImpl extends ZoneImpl implements OdZone {
    * @return odZoneId
    */
   protected static long generateOdZoneId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, OdZone.OD_ZONE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, OdZone.OD_ZONE_ID_CLASS);
   }
 
   /**
@@ -1,6 +1,6 @@
 package org.goplanit.zoning;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.DirectedConnectoid;
 import org.goplanit.utils.zoning.OdZone;
@@ -66,7 +66,7 @@ public class OdZonesImpl extends ZonesImpl<OdZone> implements OdZones {
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional od zone id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), OdZone.OD_ZONE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), OdZone.OD_ZONE_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
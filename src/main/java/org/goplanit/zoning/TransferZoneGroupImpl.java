@@ -2,8 +2,8 @@ package org.goplanit.zoning;
 
 import java.util.*;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.TransferZone;
 import org.goplanit.utils.zoning.TransferZoneGroup;
@@ -45,7 +45,7 @@ public class TransferZoneGroupImpl extends ExternalIdAbleImpl implements Transfe
    * @return odZoneId
    */
   protected static long generateTransferZoneGroupId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, TransferZoneGroup.class);
+    return SynchronisedIdGenerator.generateId(tokenId, TransferZoneGroup.class);
   }
 
   /**
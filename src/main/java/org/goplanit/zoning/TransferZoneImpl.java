@@ -2,7 +2,7 @@ package org.goplanit.zoning;
 
 import java.util.*;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.TransferZone;
 import org.goplanit.utils.zoning.TransferZoneGroup;
@@ -39,7 +39,7 @@ public class TransferZoneImpl extends ZoneImpl implements TransferZone {
    * @return odZoneId
    */
   protected static long generateTransferZoneId(final IdGroupingToken tokenId) {
-    return IdGenerator.generateId(tokenId, TransferZone.TRANSFER_ZONE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(tokenId, TransferZone.TRANSFER_ZONE_ID_CLASS);
   }
 
   /**
@@ -1,6 +1,6 @@
 package org.goplanit.zoning;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.*;
 
@@ -64,7 +64,7 @@ public class TransferZonesImpl extends ZonesImpl<TransferZone> implements Transf
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional transfer zone id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), TransferZone.TRANSFER_ZONE_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), TransferZone.TRANSFER_ZONE_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
@@ -2,8 +2,8 @@ package org.goplanit.zoning;
 
 import java.util.logging.Logger;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.graph.directed.DirectedVertex;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.UndirectedConnectoid;
 import org.goplanit.utils.zoning.Zone;
@@ -42,7 +42,7 @@ public class UndirectedConnectoidImpl extends ConnectoidImpl implements Undirect
    * @return id of undirected connectoid
    */
   protected static long generateUndirectedConnectoidId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, UndirectedConnectoid.UNDIRECTED_CONNECTOID_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, UndirectedConnectoid.UNDIRECTED_CONNECTOID_ID_CLASS);
   }
 
   /**
@@ -1,6 +1,6 @@
 package org.goplanit.zoning;
 
-import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.zoning.TransferZone;
 import org.goplanit.utils.zoning.UndirectedConnectoid;
@@ -68,7 +68,7 @@ public class UndirectedConnectoidsImpl extends ConnectoidsImpl<UndirectedConnect
   @Override
   public void recreateIds(boolean resetManagedIdClass) {
     /* always reset the additional undirected connectoid id class */
-    IdGenerator.reset(getFactory().getIdGroupingToken(), UndirectedConnectoid.UNDIRECTED_CONNECTOID_ID_CLASS);
+    SynchronisedIdGenerator.reset(getFactory().getIdGroupingToken(), UndirectedConnectoid.UNDIRECTED_CONNECTOID_ID_CLASS);
 
     super.recreateIds(resetManagedIdClass);
   }
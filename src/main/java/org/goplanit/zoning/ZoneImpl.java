@@ -3,8 +3,8 @@ package org.goplanit.zoning;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.goplanit.id.SynchronisedIdGenerator;
 import org.goplanit.utils.id.ExternalIdAbleImpl;
-import org.goplanit.utils.id.IdGenerator;
 import org.goplanit.utils.id.IdGroupingToken;
 import org.goplanit.utils.id.ManagedIdDeepCopyMapper;
 import org.goplanit.utils.misc.CloneUtils;
@@ -47,7 +47,7 @@ public abstract class ZoneImpl extends ExternalIdAbleImpl implements Zone {
    * @return id for this zone
    */
   protected static long generateZoneId(final IdGroupingToken groupId) {
-    return IdGenerator.generateId(groupId, Zone.ZONE_ID_CLASS);
+    return SynchronisedIdGenerator.generateId(groupId, Zone.ZONE_ID_CLASS);
   }
 
   /**
@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 import org.goplanit.utils.event.Event;
 import org.goplanit.utils.event.EventListener;
 import org.goplanit.utils.event.EventProducerImpl;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
 import org.goplanit.utils.misc.LoggingUtils;
 import org.goplanit.utils.network.layers.ServiceNetworkLayers;
 import org.goplanit.utils.zoning.*;
@@ -53,6 +54,18 @@ public class ZoningModifierImpl extends EventProducerImpl implements ZoningModif
    */
   protected final Zoning zoning;
 
+  /** nesting depth of modification transactions, zero when no transaction is active */
+  private int transactionDepth = 0;
+
+  /** flag indicating recreation of connectoid ids has been requested during the active transaction */
+  private boolean recreateConnectoidIdsOnCommit = false;
+
+  /** flag indicating recreation of zone ids has been requested during the active transaction */
+  private boolean recreateZoneIdsOnCommit = false;
+
+  /** flag indicating recreation of transfer zone group ids has been requested during the active transaction */
+  private boolean recreateTransferZoneGroupIdsOnCommit = false;
+
   /**
    * remove a zone from its container class (if applicable) without doing anything else
    * 
@@ -98,11 +111,56 @@ public class ZoningModifierImpl extends EventProducerImpl implements ZoningModif
     addInternalEventListeners();
   }
 
+  /**
+   * Begin a modification transaction. Until the matching {@link #commitTransaction()} recreation of connectoid, zone and transfer zone group ids is deferred and performed at most
+   * once per entity type upon commit. Transactions may be nested, only the outermost commit takes effect
+   */
+  public void beginTransaction() {
+    ++transactionDepth;
+  }
+
+  /**
+   * Commit the active modification transaction, performing any deferred recreation of ids
+   */
+  public void commitTransaction() {
+    PlanItRunTimeException.throwIf(transactionDepth == 0, "Unable to commit zoning modification transaction, no transaction active");
+    if (--transactionDepth > 0) {
+      return;
+    }
+
+    if (recreateConnectoidIdsOnCommit) {
+      recreateConnectoidIdsOnCommit = false;
+      recreateConnectoidIds();
+    }
+    if (recreateZoneIdsOnCommit) {
+      recreateZoneIdsOnCommit = false;
+      recreateZoneIds();
+    }
+    if (recreateTransferZoneGroupIdsOnCommit) {
+      recreateTransferZoneGroupIdsOnCommit = false;
+      recreateTransferZoneGroupIds();
+    }
+  }
+
+  /**
+   * Verify if a modification transaction is active
+   * 
+   * @return true when active, false otherwise
+   */
+  public boolean isInTransaction() {
+    return transactionDepth > 0;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public void recreateConnectoidIds() {
+    if (isInTransaction()) {
+      recreateConnectoidIdsOnCommit = true;
+      return;
+    }
+
     /*
      * both connectoids containers use the same underlying id generated for the connectoid managed id, so it is unique across the two containers. Hence, we should only reset it
      * once, otherwise it is not longer unique across both when recreating the ids
@@ -121,6 +179,11 @@ public class ZoningModifierImpl extends EventProducerImpl implements ZoningModif
    */
   @Override
   public void recreateZoneIds() {
+    if (isInTransaction()) {
+      recreateZoneIdsOnCommit = true;
+      return;
+    }
+
     /*
      * both connectoids containers use the same underlying id generated for the zone managed id, so it is unique across the two containers. Hence, we should only reset it once,
      * otherwise it is no longer unique across both when recreating the ids
@@ -137,6 +200,10 @@ public class ZoningModifierImpl extends EventProducerImpl implements ZoningModif
    */
   @Override
   public void recreateTransferZoneGroupIds() {
+    if (isInTransaction()) {
+      recreateTransferZoneGroupIdsOnCommit = true;
+      return;
+    }
     zoning.getTransferZoneGroups().recreateIds();
     fireEvent(new RecreatedZoningEntitiesManagedIdsEvent(this, zoning.getTransferZoneGroups()));
   }
@@ -178,14 +245,14 @@ public class ZoningModifierImpl extends EventProducerImpl implements ZoningModif
     zoning.getOdConnectoids().forEach(connectoid -> danglingZones.removeAll(connectoid.getAccessZones()));
 
     if (!danglingZones.isEmpty()) {
+      /* remove all zones that are not referenced by any connectoid */
       for (Zone danglingZone : danglingZones) {
         removeZone(danglingZone);
+      }
 
-        /* remove all zones that are not referenced by any connectoid */
-        if (recreateZoneIds) {
-          /* recreate the ids (and their references within the zoning) if any */
-          recreateZoneIds();
-        }
+      /* recreate the ids (and their references within the zoning) once */
+      if (recreateZoneIds) {
+        recreateZoneIds();
       }
 
       LOGGER.info(String.format("%sRemoved %d dangling OD zones", LoggingUtils.zoningPrefix(zoning.getId()), danglingZones.size()));
@@ -0,0 +1,403 @@
+package org.goplanit.test.converter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.converter.binary.PlanitBinaryDemandsReader;
+import org.goplanit.converter.binary.PlanitBinaryDemandsWriter;
+import org.goplanit.converter.binary.PlanitBinaryNetworkReader;
+import org.goplanit.converter.binary.PlanitBinaryNetworkWriter;
+import org.goplanit.converter.binary.PlanitBinarySnapshotFormat;
+import org.goplanit.converter.binary.PlanitBinarySnapshotInput;
+import org.goplanit.converter.binary.PlanitBinarySnapshotOutput;
+import org.goplanit.converter.binary.PlanitBinaryZoningReader;
+import org.goplanit.converter.binary.PlanitBinaryZoningWriter;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinks;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.physical.Nodes;
+import org.goplanit.utils.time.TimePeriod;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.OdZones;
+import org.goplanit.utils.zoning.UndirectedConnectoid;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Round trip tests of the PLANit binary snapshot readers and writers, i.e., write, read and compare the result with the original
+ * 
+ * @author markr
+ *
+ */
+public class PlanitBinarySnapshotTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Zoning zoning;
+  private Demands demands;
+
+  private Path outputDirectory;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("PlanitBinarySnapshotTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Write the network and read it back in
+   * 
+   * @return network read from the snapshot
+   * @throws PlanItException thrown if error
+   */
+  private MacroscopicNetwork writeAndReadNetwork() throws PlanItException {
+    new PlanitBinaryNetworkWriter(outputDirectory.toString(), "network" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION).write(network);
+    return new PlanitBinaryNetworkReader(outputDirectory.resolve("network" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION).toString(),
+        IdGenerator.createIdGroupingToken("PlanitBinarySnapshotTestRead")).read();
+  }
+
+  /**
+   * Write the zoning and read it back in on the given reference network
+   * 
+   * @param readNetwork network read from the snapshot to use as reference
+   * @return zoning read from the snapshot
+   * @throws PlanItException thrown if error
+   */
+  private Zoning writeAndReadZoning(MacroscopicNetwork readNetwork) throws PlanItException {
+    new PlanitBinaryZoningWriter(outputDirectory.toString(), "zoning" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION, network).write(zoning);
+    return new PlanitBinaryZoningReader(outputDirectory.resolve("zoning" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION).toString(), readNetwork,
+        readNetwork.getIdGroupingToken()).read();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(PlanitBinarySnapshotTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  @BeforeEach
+  public void intialise() {
+    // construct the network.
+    //
+    //  A          B
+    //  *----------*----------* C
+    //  0    0     1     1    2
+    //
+    // link 0 has an explicit geometry with an intermediate point, link 1 only its end points. Link segment type "Unbounded" has no explicit
+    // capacity or maximum density to verify absent values are retained
+    try {
+      outputDirectory = Files.createTempDirectory("planitbinary");
+
+      GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+
+      network = new MacroscopicNetwork(testToken);
+      network.setXmlId("network");
+      network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(network.getModes().get(PredefinedModeType.CAR));
+
+      Node node = networkLayer.getNodes().getFactory().registerNew();
+      node.setXmlId("0");
+      node.setPosition(geoFactory.createPoint(new Coordinate(0, 0)));
+      node = networkLayer.getNodes().getFactory().registerNew();
+      node.setXmlId("1");
+      node.setPosition(geoFactory.createPoint(new Coordinate(1000, 0)));
+      node = networkLayer.getNodes().getFactory().registerNew();
+      node.setXmlId("2");
+      node.setName("end");
+      node.setPosition(geoFactory.createPoint(new Coordinate(2000, 0)));
+
+      Nodes nodes = networkLayer.getNodes();
+      MacroscopicLinks links = networkLayer.getLinks();
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1.1, true).setXmlId("0");
+      links.getByXmlId("0").setGeometry(
+          geoFactory.createLineString(new Coordinate[] { new Coordinate(0, 0), new Coordinate(500, 100), new Coordinate(1000, 0) }));
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+      links.getByXmlId("1").setExternalId("ext1");
+
+      networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 180, network.getModes().getFirst()).setXmlId("MainType");
+      networkLayer.getLinkSegmentTypes().getFactory().registerNew("Unbounded").setXmlId("Unbounded");
+
+      var linkSegmentTypes = networkLayer.getLinkSegmentTypes();
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentTypes.getByXmlId("MainType"), true, true).setNumberOfLanes(2).setXmlId("0");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentTypes.getByXmlId("MainType"), false, true).setNumberOfLanes(1).setXmlId("0r");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), linkSegmentTypes.getByXmlId("Unbounded"), true, true).setNumberOfLanes(3).setXmlId("1");
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      zoning.setXmlId("zoning");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("C");
+
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("0"), zoning.getOdZones().getByXmlId("A"), 0.5).setXmlId("cA");
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("2"), zoning.getOdZones().getByXmlId("C"), 0).setXmlId("cC");
+
+      demands = new Demands(testToken);
+      demands.setXmlId("demands");
+      demands.timePeriods.getFactory().registerNew("morning", 7 * 3600, 3600).setXmlId("morning");
+      demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+      demands.userClasses.getFactory().registerNew("dummyUser", network.getModes().get(PredefinedModeType.CAR), demands.travelerTypes.getFirst());
+
+      OdZones odZones = zoning.getOdZones();
+      OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+      odDemands.setValue(odZones.getByXmlId("A"), odZones.getByXmlId("C"), 1250.5);
+      odDemands.setValue(odZones.getByXmlId("C"), odZones.getByXmlId("A"), 300.0);
+      demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), network.getModes().get(PredefinedModeType.CAR), odDemands);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Remove the snapshots written by the test
+   * 
+   * @throws IOException thrown if error
+   */
+  @AfterEach
+  public void cleanUp() throws IOException {
+    try (Stream<Path> paths = Files.walk(outputDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Test a network survives a write and read round trip
+   */
+  @Test
+  public void networkRoundTripTest() {
+    try {
+      MacroscopicNetwork readNetwork = writeAndReadNetwork();
+
+      assertEquals("network", readNetwork.getXmlId());
+      assertEquals(network.getModes().size(), readNetwork.getModes().size());
+      assertNotNull(readNetwork.getModes().get(PredefinedModeType.CAR));
+      assertEquals(1, readNetwork.getTransportLayers().size());
+
+      MacroscopicNetworkLayer readLayer = readNetwork.getTransportLayers().getFirst();
+      assertEquals(networkLayer.getNodes().size(), readLayer.getNodes().size());
+      for (Node node : networkLayer.getNodes()) {
+        Node readNode = readLayer.getNodes().getByXmlId(node.getXmlId());
+        assertNotNull(readNode);
+        assertEquals(node.getName(), readNode.getName());
+        assertEquals(node.getPosition().getX(), readNode.getPosition().getX(), Precision.EPSILON_6);
+        assertEquals(node.getPosition().getY(), readNode.getPosition().getY(), Precision.EPSILON_6);
+      }
+
+      assertEquals(networkLayer.getLinks().size(), readLayer.getLinks().size());
+      for (MacroscopicLink link : networkLayer.getLinks()) {
+        MacroscopicLink readLink = readLayer.getLinks().getByXmlId(link.getXmlId());
+        assertNotNull(readLink);
+        assertEquals(link.getExternalId(), readLink.getExternalId());
+        assertEquals(link.getLengthKm(), readLink.getLengthKm(), Precision.EPSILON_6);
+        assertEquals(link.getNodeA().getXmlId(), readLink.getNodeA().getXmlId());
+        assertEquals(link.getNodeB().getXmlId(), readLink.getNodeB().getXmlId());
+        assertEquals(link.hasGeometry(), readLink.hasGeometry());
+        if (link.hasGeometry()) {
+          assertTrue(link.getGeometry().equalsExact(readLink.getGeometry(), Precision.EPSILON_6));
+        }
+      }
+
+      assertEquals(networkLayer.getLinkSegmentTypes().size(), readLayer.getLinkSegmentTypes().size());
+      for (MacroscopicLinkSegmentType type : networkLayer.getLinkSegmentTypes()) {
+        MacroscopicLinkSegmentType readType = readLayer.getLinkSegmentTypes().getByXmlId(type.getXmlId());
+        assertNotNull(readType);
+        assertEquals(type.getName(), readType.getName());
+        assertEquals(type.getExplicitCapacityPerLane(), readType.getExplicitCapacityPerLane());
+        assertEquals(type.getExplicitMaximumDensityPerLane(), readType.getExplicitMaximumDensityPerLane());
+        assertEquals(type.getAllowedModes().size(), readType.getAllowedModes().size());
+      }
+      assertNull(readLayer.getLinkSegmentTypes().getByXmlId("Unbounded").getExplicitCapacityPerLane());
+      assertNull(readLayer.getLinkSegmentTypes().getByXmlId("Unbounded").getExplicitMaximumDensityPerLane());
+
+      assertEquals(networkLayer.getLinkSegments().size(), readLayer.getLinkSegments().size());
+      for (MacroscopicLinkSegment linkSegment : networkLayer.getLinkSegments()) {
+        MacroscopicLinkSegment readLinkSegment = readLayer.getLinkSegments().getByXmlId(linkSegment.getXmlId());
+        assertNotNull(readLinkSegment);
+        assertEquals(linkSegment.getParentLink().getXmlId(), readLinkSegment.getParentLink().getXmlId());
+        assertEquals(linkSegment.isDirectionAb(), readLinkSegment.isDirectionAb());
+        assertEquals(linkSegment.getLinkSegmentType().getXmlId(), readLinkSegment.getLinkSegmentType().getXmlId());
+        assertEquals(linkSegment.getNumberOfLanes(), readLinkSegment.getNumberOfLanes());
+        assertEquals(linkSegment.getPhysicalSpeedLimitKmH(), readLinkSegment.getPhysicalSpeedLimitKmH(), Precision.EPSILON_6);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing PLANit binary network round trip");
+    }
+  }
+
+  /**
+   * Test a zoning survives a write and read round trip with its connectoids referring to the read network
+   */
+  @Test
+  public void zoningRoundTripTest() {
+    try {
+      MacroscopicNetwork readNetwork = writeAndReadNetwork();
+      Zoning readZoning = writeAndReadZoning(readNetwork);
+
+      assertEquals("zoning", readZoning.getXmlId());
+      assertEquals(zoning.getOdZones().size(), readZoning.getOdZones().size());
+      for (OdZone odZone : zoning.getOdZones()) {
+        assertNotNull(readZoning.getOdZones().getByXmlId(odZone.getXmlId()));
+      }
+
+      assertEquals(zoning.getOdConnectoids().size(), readZoning.getOdConnectoids().size());
+      for (UndirectedConnectoid connectoid : zoning.getOdConnectoids()) {
+        UndirectedConnectoid readConnectoid = readZoning.getOdConnectoids().getByXmlId(connectoid.getXmlId());
+        assertNotNull(readConnectoid);
+        assertEquals(connectoid.getAccessVertex().getXmlId(), readConnectoid.getAccessVertex().getXmlId());
+        /* the access node must be the read network's node, not the original */
+        assertTrue(readConnectoid.getAccessVertex() == readNetwork.getTransportLayers().getFirst().getNodes().getByXmlId(connectoid.getAccessVertex().getXmlId()));
+        assertEquals(connectoid.getNumberOfAccessZones(), readConnectoid.getNumberOfAccessZones());
+        OdZone accessZone = zoning.getOdZones().getByXmlId(connectoid.getXmlId().substring(1));
+        OdZone readAccessZone = readZoning.getOdZones().getByXmlId(accessZone.getXmlId());
+        assertEquals(connectoid.getLengthKm(accessZone).get(), readConnectoid.getLengthKm(readAccessZone).get(), Precision.EPSILON_6);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing PLANit binary zoning round trip");
+    }
+  }
+
+  /**
+   * Test demands survive a write and read round trip
+   */
+  @Test
+  public void demandsRoundTripTest() {
+    try {
+      MacroscopicNetwork readNetwork = writeAndReadNetwork();
+      Zoning readZoning = writeAndReadZoning(readNetwork);
+
+      PlanitBinaryDemandsWriter demandsWriter = new PlanitBinaryDemandsWriter(outputDirectory.toString(), "demands" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION, network);
+      demandsWriter.setReferenceZoning(zoning);
+      demandsWriter.write(demands);
+      Demands readDemands = new PlanitBinaryDemandsReader(outputDirectory.resolve("demands" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION).toString(), readNetwork,
+          readZoning, readNetwork.getIdGroupingToken()).read();
+
+      assertEquals("demands", readDemands.getXmlId());
+      assertEquals(demands.userClasses.size(), readDemands.userClasses.size());
+      assertEquals(demands.travelerTypes.size(), readDemands.travelerTypes.size());
+      assertEquals(demands.timePeriods.size(), readDemands.timePeriods.size());
+
+      TimePeriod timePeriod = demands.timePeriods.getFirst();
+      TimePeriod readTimePeriod = readDemands.timePeriods.getFirst();
+      assertEquals(timePeriod.getXmlId(), readTimePeriod.getXmlId());
+      assertEquals(timePeriod.getStartTimeSeconds(), readTimePeriod.getStartTimeSeconds());
+      assertEquals(timePeriod.getDurationSeconds(), readTimePeriod.getDurationSeconds());
+
+      Mode mode = network.getModes().get(PredefinedModeType.CAR);
+      Mode readMode = readNetwork.getModes().get(PredefinedModeType.CAR);
+      OdDemands odDemands = demands.get(mode, timePeriod);
+      OdDemands readOdDemands = readDemands.get(readMode, readTimePeriod);
+      assertNotNull(readOdDemands);
+      for (OdZone origin : zoning.getOdZones()) {
+        for (OdZone destination : zoning.getOdZones()) {
+          Double value = odDemands.getValue(origin, destination);
+          Double readValue = readOdDemands.getValue(readZoning.getOdZones().getByXmlId(origin.getXmlId()), readZoning.getOdZones().getByXmlId(destination.getXmlId()));
+          assertEquals(value == null ? 0 : value, readValue == null ? 0 : readValue, Precision.EPSILON_6);
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing PLANit binary demands round trip");
+    }
+  }
+
+  /**
+   * Test null and NaN nullable doubles remain distinguishable
+   */
+  @Test
+  public void nullableDoubleTest() {
+    try {
+      Path file = outputDirectory.resolve("nullable" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION);
+      try (var output = new PlanitBinarySnapshotOutput(file, PlanitBinarySnapshotFormat.NETWORK_SNAPSHOT)) {
+        output.writeNullableDouble(null);
+        output.writeNullableDouble(Double.NaN);
+        output.writeNullableDouble(1.5);
+        output.markComplete();
+      }
+
+      var input = new PlanitBinarySnapshotInput(file, PlanitBinarySnapshotFormat.NETWORK_SNAPSHOT);
+      assertNull(input.readNullableDouble());
+      assertTrue(Double.isNaN(input.readNullableDouble()));
+      assertEquals(1.5, input.readNullableDouble(), Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing PLANit binary nullable doubles");
+    }
+  }
+
+  /**
+   * Test a snapshot that fails to be written is not left behind
+   */
+  @Test
+  public void failedWriteTest() {
+    try {
+      /* connectoid referring to a node outside the reference network causes the zoning writer to fail halfway through */
+      MacroscopicNetwork otherNetwork = new MacroscopicNetwork(testToken);
+      otherNetwork.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      MacroscopicNetworkLayer otherLayer = otherNetwork.getTransportLayers().getFactory().registerNew(otherNetwork.getModes().get(PredefinedModeType.CAR));
+      Node otherNode = otherLayer.getNodes().getFactory().registerNew();
+      zoning.getOdConnectoids().getFactory().registerNew(otherNode, zoning.getOdZones().getByXmlId("A"), 0).setXmlId("cOther");
+
+      var zoningWriter = new PlanitBinaryZoningWriter(outputDirectory.toString(), "zoning" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION, network);
+      assertThrows(PlanItException.class, () -> zoningWriter.write(zoning));
+      assertFalse(Files.exists(outputDirectory.resolve("zoning" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION)));
+
+      Path file = outputDirectory.resolve("incomplete" + PlanitBinarySnapshotFormat.DEFAULT_FILE_EXTENSION);
+      try (var output = new PlanitBinarySnapshotOutput(file, PlanitBinarySnapshotFormat.NETWORK_SNAPSHOT)) {
+        output.writeString("not marked complete");
+      }
+      assertFalse(Files.exists(file));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing failed PLANit binary snapshot write");
+    }
+  }
+
+}
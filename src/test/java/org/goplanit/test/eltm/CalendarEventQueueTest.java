@@ -0,0 +1,92 @@
+package org.goplanit.test.eltm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.assignment.ltm.eltm.event.CalendarEventQueue;
+import org.goplanit.utils.math.Precision;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the calendar event queue used by eLTM
+ * 
+ * @author markr
+ *
+ */
+public class CalendarEventQueueTest {
+
+  /**
+   * Events are polled in time order regardless of the bucket or order in which they are scheduled
+   */
+  @Test
+  public void orderTest() {
+    var queue = new CalendarEventQueue(10, 100);
+    assertTrue(queue.schedule(55, 3, Location.UPSTREAM, 100));
+    assertTrue(queue.schedule(12, 1, Location.DOWNSTREAM, 200));
+    assertTrue(queue.schedule(18, 2, Location.DOWNSTREAM, Double.NaN));
+    assertTrue(queue.schedule(11, 4, Location.UPSTREAM, 300));
+    assertEquals(4, queue.size());
+
+    double[] expectedTimes = { 11, 12, 18, 55 };
+    int[] expectedLinkSegments = { 4, 1, 2, 3 };
+    for (int index = 0; index < expectedTimes.length; ++index) {
+      assertTrue(queue.poll());
+      assertEquals(expectedTimes[index], queue.getPolledTime(), Precision.EPSILON_9);
+      assertEquals(expectedLinkSegments[index], queue.getPolledLinkSegment());
+    }
+    assertFalse(queue.poll());
+    assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * The polled contents of an event are retained until the next poll
+   */
+  @Test
+  public void contentsTest() {
+    var queue = new CalendarEventQueue(1, 10);
+    queue.schedule(2, 7, Location.DOWNSTREAM, 1500);
+    queue.schedule(3, 8, Location.UPSTREAM, Double.NaN);
+
+    assertTrue(queue.poll());
+    assertEquals(7, queue.getPolledLinkSegment());
+    assertEquals(Location.DOWNSTREAM, queue.getPolledLocation());
+    assertEquals(1500, queue.getPolledRate(), Precision.EPSILON_9);
+
+    assertTrue(queue.poll());
+    assertEquals(8, queue.getPolledLinkSegment());
+    assertEquals(Location.UPSTREAM, queue.getPolledLocation());
+    assertTrue(Double.isNaN(queue.getPolledRate()));
+  }
+
+  /**
+   * Events beyond the horizon are discarded, events scheduled while polling are processed in order and handles are recycled beyond the initial capacity
+   */
+  @Test
+  public void horizonAndInterleavedTest() {
+    var queue = new CalendarEventQueue(1, 5000);
+    assertFalse(queue.schedule(5001, 0, Location.UPSTREAM, 0));
+    assertTrue(queue.isEmpty());
+
+    /* chain of events, each scheduling its successor, plus a large number of events at once to grow the arrays */
+    queue.schedule(0, 0, Location.UPSTREAM, 0);
+    for (int index = 0; index < 2000; ++index) {
+      queue.schedule(2500 + index, 1, Location.DOWNSTREAM, index);
+    }
+
+    double previousTime = -1;
+    int polled = 0;
+    while (queue.poll()) {
+      double time = queue.getPolledTime();
+      assertTrue(time >= previousTime);
+      previousTime = time;
+      if (queue.getPolledLinkSegment() == 0 && time < 4000) {
+        queue.schedule(time + 0.5, 0, Location.UPSTREAM, 0);
+      }
+      ++polled;
+    }
+    /* 8001 chained events (0 to 4000 inclusive in steps of 0.5) and 2000 bulk events */
+    assertEquals(8001 + 2000, polled);
+  }
+}
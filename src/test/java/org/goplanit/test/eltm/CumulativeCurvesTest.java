@@ -0,0 +1,89 @@
+package org.goplanit.test.eltm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.goplanit.assignment.ltm.eltm.CumulativeCurves;
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.math.Precision;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the piecewise linear cumulative curves used by eLTM
+ * 
+ * @author markr
+ *
+ */
+public class CumulativeCurvesTest {
+
+  /**
+   * Rates are integrated between breakpoints, before the first breakpoint the curve is zero
+   */
+  @Test
+  public void valueTest() {
+    var curves = new CumulativeCurves(2);
+    assertEquals(0.0, curves.getValue(1, Location.UPSTREAM, 100), Precision.EPSILON_9);
+
+    /* 3600 pcu/h from 10s, 1800 pcu/h from 20s */
+    curves.setRate(1, Location.UPSTREAM, 10, 3600);
+    curves.setRate(1, Location.UPSTREAM, 20, 1800);
+
+    assertEquals(0.0, curves.getValue(1, Location.UPSTREAM, 5), Precision.EPSILON_9);
+    assertEquals(5.0, curves.getValue(1, Location.UPSTREAM, 15), Precision.EPSILON_9);
+    assertEquals(10.0, curves.getValue(1, Location.UPSTREAM, 20), Precision.EPSILON_9);
+    assertEquals(15.0, curves.getValue(1, Location.UPSTREAM, 30), Precision.EPSILON_9);
+    assertEquals(1800.0, curves.getRate(1, Location.UPSTREAM), Precision.EPSILON_9);
+
+    /* other curves unaffected */
+    assertEquals(0.0, curves.getValue(1, Location.DOWNSTREAM, 30), Precision.EPSILON_9);
+    assertEquals(0.0, curves.getValue(0, Location.UPSTREAM, 30), Precision.EPSILON_9);
+  }
+
+  /**
+   * Curves grow beyond their initial capacity while remaining searchable
+   */
+  @Test
+  public void growTest() {
+    var curves = new CumulativeCurves(1);
+    for (int index = 0; index < 100; ++index) {
+      /* alternate between 3600 and 0 pcu/h every 10 seconds */
+      curves.setRate(0, Location.DOWNSTREAM, 10 * index, index % 2 == 0 ? 3600 : 0);
+    }
+    assertEquals(100, curves.getNumberOfBreakpoints(0, Location.DOWNSTREAM));
+    assertEquals(10.0, curves.getValue(0, Location.DOWNSTREAM, 20), Precision.EPSILON_9);
+    assertEquals(255.0, curves.getValue(0, Location.DOWNSTREAM, 505), Precision.EPSILON_9);
+  }
+
+  /**
+   * Changes at the same moment are merged, changes before the most recent breakpoint are rejected
+   */
+  @Test
+  public void mergeAndRejectTest() {
+    var curves = new CumulativeCurves(1);
+    curves.setRate(0, Location.UPSTREAM, 10, 3600);
+    curves.setRate(0, Location.UPSTREAM, 10, 7200);
+
+    assertEquals(1, curves.getNumberOfBreakpoints(0, Location.UPSTREAM));
+    assertEquals(20.0, curves.getValue(0, Location.UPSTREAM, 20), Precision.EPSILON_9);
+
+    assertThrows(PlanItRunTimeException.class, () -> curves.setRate(0, Location.UPSTREAM, 5, 0));
+    assertEquals(7200.0, curves.getRate(0, Location.UPSTREAM), Precision.EPSILON_9);
+  }
+
+  /**
+   * The integral is the area under the piecewise linear curve
+   */
+  @Test
+  public void integralTest() {
+    var curves = new CumulativeCurves(1);
+    /* 3600 pcu/h from 0s to 10s, constant afterwards */
+    curves.setRate(0, Location.UPSTREAM, 0, 3600);
+    curves.setRate(0, Location.UPSTREAM, 10, 0);
+
+    /* triangle of 10s x 10 pcu, followed by a rectangle of 10s x 10 pcu */
+    assertEquals(50.0, curves.getIntegral(0, Location.UPSTREAM, 10), Precision.EPSILON_9);
+    assertEquals(150.0, curves.getIntegral(0, Location.UPSTREAM, 20), Precision.EPSILON_9);
+    assertEquals(12.5, curves.getIntegral(0, Location.UPSTREAM, 5), Precision.EPSILON_9);
+  }
+}
@@ -0,0 +1,345 @@
+package org.goplanit.test.eltm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.assignment.ltm.eltm.CumulativeCurves;
+import org.goplanit.assignment.ltm.eltm.EventBasedLtm;
+import org.goplanit.assignment.ltm.eltm.EventBasedLtmConfigurator;
+import org.goplanit.assignment.ltm.eltm.EventBasedLtmTrafficAssignmentBuilder;
+import org.goplanit.assignment.ltm.eltm.LinkSegmentBoundary.Location;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentTypes;
+import org.goplanit.utils.network.layer.physical.Nodes;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test eLTM on a merge and a diverge with known LTM results. Both are supply constrained, such that in the steady state (after the first vehicles arrived and before demand
+ * ends) the node flows follow from the Tampere node model, i.e., capacity proportional merging and FIFO diverging
+ * 
+ * @author markr
+ *
+ */
+public class EventBasedLtmTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Zoning zoning;
+  private Mode mode;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("EventBasedLtmTest");
+
+  /** start of the steady state window in seconds */
+  private static final double WINDOW_START = 1200;
+
+  /** end of the steady state window in seconds */
+  private static final double WINDOW_END = 2400;
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Create demands with OD DEMANDS 1200 A->C, 1200 B->C (merge) and 1000 D->E, 1000 D->F (diverge) for each of the consecutive one hour time periods
+   * 
+   * @param numberOfTimePeriods to create
+   * @return created demands
+   */
+  private Demands createDemands(int numberOfTimePeriods) {
+    Demands demands = new Demands(testToken);
+    demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+    demands.userClasses.getFactory().registerNew("dummyUser", mode, demands.travelerTypes.getFirst());
+
+    var odZones = zoning.getOdZones();
+    for (int index = 0; index < numberOfTimePeriods; ++index) {
+      var timePeriod = demands.timePeriods.getFactory().registerNew("dummyTimePeriod" + index, index * 3600, 3600);
+      OdDemands odDemands = new OdDemandMatrix(odZones);
+      odDemands.setValue(odZones.getByXmlId("A"), odZones.getByXmlId("C"), 1200.0);
+      odDemands.setValue(odZones.getByXmlId("B"), odZones.getByXmlId("C"), 1200.0);
+      odDemands.setValue(odZones.getByXmlId("D"), odZones.getByXmlId("E"), 1000.0);
+      odDemands.setValue(odZones.getByXmlId("D"), odZones.getByXmlId("F"), 1000.0);
+      demands.registerOdDemandPcuHour(timePeriod, mode, odDemands);
+    }
+    return demands;
+  }
+
+  /**
+   * Execute eLTM on the test network for a single time period
+   * 
+   * @param memoryOutputFormatter to register, may be null
+   * @return executed assignment
+   * @throws Exception thrown if error
+   */
+  private EventBasedLtm executeEventBasedLtm(MemoryOutputFormatter memoryOutputFormatter) throws Exception {
+    return executeEventBasedLtm(memoryOutputFormatter, createDemands(1), 1);
+  }
+
+  /**
+   * Execute eLTM on the test network
+   * 
+   * @param memoryOutputFormatter    to register, may be null
+   * @param demands                  to use
+   * @param maxConcurrentTimePeriods maximum number of time periods to execute concurrently
+   * @return executed assignment
+   * @throws Exception thrown if error
+   */
+  private EventBasedLtm executeEventBasedLtm(MemoryOutputFormatter memoryOutputFormatter, Demands demands, int maxConcurrentTimePeriods) throws Exception {
+    var eLtmBuilder = new EventBasedLtmTrafficAssignmentBuilder(network.getIdGroupingToken(), null, demands, zoning, network);
+    ((EventBasedLtmConfigurator) eLtmBuilder.getConfigurator()).setHorizonFactor(3.0);
+    eLtmBuilder.getConfigurator().setMaxConcurrentTimePeriods(maxConcurrentTimePeriods);
+    if (memoryOutputFormatter != null) {
+      eLtmBuilder.getConfigurator().activateOutput(OutputType.LINK).addProperty(OutputPropertyType.INFLOW);
+      eLtmBuilder.getConfigurator().registerOutputFormatter(memoryOutputFormatter);
+    }
+    EventBasedLtm eLtm = eLtmBuilder.build();
+    eLtm.execute();
+    return eLtm;
+  }
+
+  /**
+   * Average rate during the steady state window
+   * 
+   * @param curves   to use
+   * @param linkXmlId of the link (segment) to collect for
+   * @param location of the boundary
+   * @return rate in pcu/h
+   */
+  private double getWindowRate(CumulativeCurves curves, String linkXmlId, Location location) {
+    int id = (int) networkLayer.getLinks().getByXmlId(linkXmlId).getLinkSegmentAb().getId();
+    return 3600.0 * (curves.getValue(id, location, WINDOW_END) - curves.getValue(id, location, WINDOW_START)) / (WINDOW_END - WINDOW_START);
+  }
+
+  /**
+   * Cumulative value at the end of the loading
+   * 
+   * @param curves   to use
+   * @param linkXmlId of the link (segment) to collect for
+   * @return cumulative outflow in pcu
+   */
+  private double getTotalOutflow(CumulativeCurves curves, String linkXmlId) {
+    int id = (int) networkLayer.getLinks().getByXmlId(linkXmlId).getLinkSegmentAb().getId();
+    return curves.getValue(id, Location.DOWNSTREAM, 3 * 3600);
+  }
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(EventBasedLtmTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  @BeforeEach
+  public void intialise() {
+    // construct the network. 
+    //
+    //  A *(0)                                   *(6) E
+    //     \ 02                              56 /  (500)
+    //      *(2)--->---*(3) C      D *(4)--->---*(5)
+    //     / 12    23 (1800)               45   \ 57
+    //  B *(1)                                   *(7) F
+    //
+    // all links 1 km, 1 lane, 2000 pcu/h unless stated otherwise
+    //
+    try {
+      GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+
+      network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      double[][] coordinates = {{0, 1000}, {0, -1000}, {1000, 0}, {2000, 0}, {5000, 0}, {6000, 0}, {7000, 1000}, {7000, -1000}};
+      for (int index = 0; index < coordinates.length; ++index) {
+        var node = networkLayer.getNodes().getFactory().registerNew();
+        node.setXmlId(String.valueOf(index));
+        node.setPosition(geoFactory.createPoint(new Coordinate(coordinates[index][0], coordinates[index][1])));
+      }
+
+      Nodes nodes = networkLayer.getNodes();
+      var links = networkLayer.getLinks();
+      String[] linkXmlIds = {"02", "12", "23", "45", "56", "57"};
+      for (var linkXmlId : linkXmlIds) {
+        links.getFactory().registerNew(nodes.getByXmlId(linkXmlId.substring(0, 1)), nodes.getByXmlId(linkXmlId.substring(1, 2)), 1, true).setXmlId(linkXmlId);
+      }
+
+      MacroscopicLinkSegmentTypes linkTypes = networkLayer.getLinkSegmentTypes();
+      linkTypes.getFactory().registerNew("MainType", 2000, 180, mode).setXmlId("MainType");
+      linkTypes.getFactory().registerNew("MergeBottleNeckType", 1800, 180, mode).setXmlId("MergeBottleNeckType");
+      linkTypes.getFactory().registerNew("DivergeBottleNeckType", 500, 180, mode).setXmlId("DivergeBottleNeckType");
+      for (var linkXmlId : linkXmlIds) {
+        String typeXmlId = linkXmlId.equals("23") ? "MergeBottleNeckType" : (linkXmlId.equals("56") ? "DivergeBottleNeckType" : "MainType");
+        networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId(linkXmlId), linkTypes.getByXmlId(typeXmlId), true, true).setNumberOfLanes(1).setXmlId(linkXmlId);
+      }
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      String[][] zoneNodes = {{"A", "0"}, {"B", "1"}, {"C", "3"}, {"D", "4"}, {"E", "6"}, {"F", "7"}};
+      for (var zoneNode : zoneNodes) {
+        var zone = zoning.getOdZones().getFactory().registerNew();
+        zone.setXmlId(zoneNode[0]);
+        zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId(zoneNode[1]), zone, 0);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Merge: 1200 pcu/h on each approach towards a 1800 pcu/h link. With equal approach capacities each approach receives half of the downstream capacity, i.e., 900 pcu/h, and
+   * all demand eventually leaves the network
+   */
+  @Test
+  public void mergeTest() {
+    try {
+      EventBasedLtm eLtm = executeEventBasedLtm(null);
+      CumulativeCurves curves = eLtm.getCumulativeCurves();
+      assertNotNull(curves);
+
+      assertEquals(900.0, getWindowRate(curves, "02", Location.DOWNSTREAM), Precision.EPSILON_3);
+      assertEquals(900.0, getWindowRate(curves, "12", Location.DOWNSTREAM), Precision.EPSILON_3);
+      assertEquals(1800.0, getWindowRate(curves, "23", Location.UPSTREAM), Precision.EPSILON_3);
+      assertEquals(1800.0, getWindowRate(curves, "23", Location.DOWNSTREAM), Precision.EPSILON_3);
+
+      assertEquals(2400.0, getTotalOutflow(curves, "23"), Precision.EPSILON_3);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing eLTM merge");
+    }
+  }
+
+  /**
+   * Diverge: 1000 pcu/h towards each exit of which one has 500 pcu/h capacity. Under FIFO the entry link outflow is restricted to 1000 pcu/h, i.e., 500 pcu/h towards each exit,
+   * and all demand eventually leaves the network
+   */
+  @Test
+  public void divergeTest() {
+    try {
+      EventBasedLtm eLtm = executeEventBasedLtm(null);
+      CumulativeCurves curves = eLtm.getCumulativeCurves();
+
+      assertEquals(1000.0, getWindowRate(curves, "45", Location.DOWNSTREAM), Precision.EPSILON_3);
+      assertEquals(500.0, getWindowRate(curves, "56", Location.UPSTREAM), Precision.EPSILON_3);
+      assertEquals(500.0, getWindowRate(curves, "57", Location.UPSTREAM), Precision.EPSILON_3);
+
+      assertEquals(1000.0, getTotalOutflow(curves, "56"), Precision.EPSILON_3);
+      assertEquals(1000.0, getTotalOutflow(curves, "57"), Precision.EPSILON_3);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing eLTM diverge");
+    }
+  }
+
+  /**
+   * A shorter parallel link segment that does not allow the mode is never used, so the merge results are unaffected
+   */
+  @Test
+  public void modeNotAllowedTest() {
+    try {
+      Nodes nodes = networkLayer.getNodes();
+      var closedType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("ClosedType", 2000, 180);
+      var closedLink = networkLayer.getLinks().getFactory().registerNew(nodes.getByXmlId("2"), nodes.getByXmlId("3"), 0.5, true);
+      closedLink.setXmlId("23c");
+      networkLayer.getLinkSegments().getFactory().registerNew(closedLink, closedType, true, true).setNumberOfLanes(1).setXmlId("23c");
+
+      EventBasedLtm eLtm = executeEventBasedLtm(null);
+      CumulativeCurves curves = eLtm.getCumulativeCurves();
+
+      assertEquals(0.0, getTotalOutflow(curves, "23c"), Precision.EPSILON_6);
+      assertEquals(1800.0, getWindowRate(curves, "23", Location.DOWNSTREAM), Precision.EPSILON_3);
+      assertEquals(2400.0, getTotalOutflow(curves, "23"), Precision.EPSILON_3);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing eLTM with link segment not allowing the mode");
+    }
+  }
+
+  /**
+   * Time periods are independent in eLTM, so executing them concurrently yields the same cumulative curves per time period as executing them sequentially
+   */
+  @Test
+  public void concurrentTimePeriodsTest() {
+    try {
+      final int numberOfTimePeriods = 3;
+      EventBasedLtm sequential = executeEventBasedLtm(null, createDemands(numberOfTimePeriods), 1);
+      EventBasedLtm concurrent = executeEventBasedLtm(null, createDemands(numberOfTimePeriods), numberOfTimePeriods);
+
+      var sequentialTimePeriods = sequential.getDemands().timePeriods.asSortedSetByStartTime();
+      var concurrentTimePeriods = concurrent.getDemands().timePeriods.asSortedSetByStartTime();
+      assertEquals(numberOfTimePeriods, concurrentTimePeriods.size());
+      var sequentialIter = sequentialTimePeriods.iterator();
+      for (var concurrentTimePeriod : concurrentTimePeriods) {
+        CumulativeCurves sequentialCurves = sequential.getCumulativeCurves(sequentialIter.next());
+        CumulativeCurves concurrentCurves = concurrent.getCumulativeCurves(concurrentTimePeriod);
+        assertNotNull(concurrentCurves);
+        assertEquals(1800.0, getWindowRate(concurrentCurves, "23", Location.DOWNSTREAM), Precision.EPSILON_3);
+        assertEquals(500.0, getWindowRate(concurrentCurves, "56", Location.UPSTREAM), Precision.EPSILON_3);
+        for (var linkSegment : networkLayer.getLinkSegments()) {
+          int id = (int) linkSegment.getId();
+          for (double time = 0; time <= 3 * 3600; time += 600) {
+            for (var location : Location.values()) {
+              assertEquals(sequentialCurves.getValue(id, location, time), concurrentCurves.getValue(id, location, time), Precision.EPSILON_6);
+            }
+          }
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing eLTM with concurrent time periods");
+    }
+  }
+
+  /**
+   * Link outputs are persisted via the eLTM output adapter and match the average rates of the assignment
+   */
+  @Test
+  public void linkOutputTest() {
+    try {
+      var memoryOutputFormatter = new MemoryOutputFormatter(network.getIdGroupingToken());
+      EventBasedLtm eLtm = executeEventBasedLtm(memoryOutputFormatter);
+
+      var timePeriod = eLtm.getDemands().timePeriods.getFirst();
+      int iteration = memoryOutputFormatter.getLastIteration();
+      int inflowPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.INFLOW);
+      int flowPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.FLOW);
+
+      double[] inflows = eLtm.getLinkSegmentInflowsPcuHour();
+      double[] outflows = eLtm.getLinkSegmentOutflowsPcuHour();
+      for (var linkSegment : networkLayer.getLinkSegments()) {
+        int id = (int) linkSegment.getId();
+        assertEquals(inflows[id], memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iteration, OutputType.LINK, inflowPosition, id), Precision.EPSILON_6);
+        assertEquals(outflows[id], memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iteration, OutputType.LINK, flowPosition, id), Precision.EPSILON_6);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing eLTM link output");
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package org.goplanit.test.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.MacroscopicNetworkScenarioOverlay;
+import org.goplanit.network.layer.macroscopic.AccessGroupPropertiesFactory;
+import org.goplanit.network.layer.macroscopic.MacroscopicLinkSegmentModeAccess;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the materialised link segment mode access, its snapshots and its derivation for scenario overlays
+ * 
+ * @author markr
+ *
+ */
+public class MacroscopicLinkSegmentModeAccessTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Mode car;
+  private Mode bus;
+  private MacroscopicLinkSegmentType sharedType;
+  private MacroscopicLinkSegment sharedLinkSegment;
+  private MacroscopicLinkSegment carOnlyLinkSegment;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("MacroscopicLinkSegmentModeAccessTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(MacroscopicLinkSegmentModeAccessTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  /**
+   * Two link segments, one allowing car and bus, the other car only
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      network = new MacroscopicNetwork(testToken);
+      car = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      bus = network.getModes().getFactory().registerNew(PredefinedModeType.BUS);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(car, bus);
+
+      Node nodeA = networkLayer.getNodes().getFactory().registerNew();
+      Node nodeB = networkLayer.getNodes().getFactory().registerNew();
+      Node nodeC = networkLayer.getNodes().getFactory().registerNew();
+      var linkAb = networkLayer.getLinks().getFactory().registerNew(nodeA, nodeB, 1, true);
+      var linkBc = networkLayer.getLinks().getFactory().registerNew(nodeB, nodeC, 2, true);
+
+      sharedType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("Shared", 2000, 180, car);
+      sharedType.addAccessGroupProperties(AccessGroupPropertiesFactory.create(bus));
+      var carOnlyType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("CarOnly", 1500, 180, car);
+
+      sharedLinkSegment = networkLayer.getLinkSegments().getFactory().registerNew(linkAb, sharedType, true, true);
+      carOnlyLinkSegment = networkLayer.getLinkSegments().getFactory().registerNew(linkBc, carOnlyType, true, true);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+
+  /**
+   * Masks, free flow travel times and capacities reflect the link segment types
+   */
+  @Test
+  public void materialisedAccessTest() {
+    var access = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    final long sharedId = sharedLinkSegment.getLinkSegmentId();
+    final long carOnlyId = carOnlyLinkSegment.getLinkSegmentId();
+
+    assertTrue(access.isModeAllowed(car, sharedId));
+    assertTrue(access.isModeAllowed(bus, sharedId));
+    assertTrue(access.isModeAllowed(car, carOnlyId));
+    assertFalse(access.isModeAllowed(bus, carOnlyId));
+
+    assertEquals(Double.MAX_VALUE, access.getFreeFlowTravelTimesHour(bus)[(int) carOnlyId]);
+    assertEquals(0.0, access.getModelledSpeedsKmH(bus)[(int) carOnlyId]);
+    assertEquals(2 / carOnlyLinkSegment.getModelledSpeedLimitKmH(car), access.getFreeFlowTravelTimesHour(car)[(int) carOnlyId], 1e-12);
+
+    assertEquals(sharedLinkSegment.getCapacityOrDefaultPcuH(), access.getCapacitiesPcuH()[(int) sharedId]);
+    assertEquals(carOnlyLinkSegment.getCapacityOrDefaultPcuH(), access.getCapacitiesPcuH()[(int) carOnlyId]);
+
+    /* the layer maintains a single access */
+    assertSame(access, MacroscopicLinkSegmentModeAccess.of(networkLayer));
+  }
+
+  /**
+   * A change in type access publishes a new snapshot, while a previously captured snapshot remains unchanged
+   */
+  @Test
+  public void rebuildPublishesNewSnapshotTest() {
+    var access = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    var capturedSnapshot = access.getSnapshot();
+    final long sharedId = sharedLinkSegment.getLinkSegmentId();
+
+    sharedType.removeModeAccess(bus);
+    assertTrue(access.isOutdated());
+    assertTrue(access.refreshIfOutdated());
+    assertFalse(access.refreshIfOutdated());
+
+    assertNotSame(capturedSnapshot, access.getSnapshot());
+    assertTrue(capturedSnapshot.isModeAllowed(bus, sharedId));
+    assertFalse(access.getSnapshot().isModeAllowed(bus, sharedId));
+    assertEquals(Double.MAX_VALUE, access.getFreeFlowTravelTimesHour(bus)[(int) sharedId]);
+  }
+
+  /**
+   * Free flow travel times are materialised from the link length, a length change is not detected automatically and is only reflected after an explicit rebuild
+   */
+  @Test
+  public void linkLengthChangeTest() {
+    var access = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    final int carOnlyId = (int) carOnlyLinkSegment.getLinkSegmentId();
+    final double speedKmH = carOnlyLinkSegment.getModelledSpeedLimitKmH(car);
+
+    carOnlyLinkSegment.getParentLink().setLengthKm(4);
+    assertFalse(access.isOutdated());
+    assertEquals(2 / speedKmH, access.getFreeFlowTravelTimesHour(car)[carOnlyId], 1e-12);
+
+    access.rebuild();
+    assertEquals(4 / speedKmH, access.getFreeFlowTravelTimesHour(car)[carOnlyId], 1e-12);
+  }
+
+  /**
+   * A derived access only copies what its delta modifies and leaves the base untouched
+   */
+  @Test
+  public void derivedAccessTest() {
+    var baseAccess = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    final long sharedId = sharedLinkSegment.getLinkSegmentId();
+
+    var overlay = new MacroscopicNetworkScenarioOverlay(network);
+    overlay.closeLinkSegment(sharedLinkSegment, car);
+    var derivedAccess = overlay.getLinkSegmentModeAccess(networkLayer);
+
+    assertSame(baseAccess, derivedAccess.getBase());
+    assertFalse(derivedAccess.isModeAllowed(car, sharedId));
+    assertTrue(baseAccess.isModeAllowed(car, sharedId));
+
+    /* unmodified data is shared with the base */
+    assertSame(baseAccess.getFreeFlowTravelTimesHour(bus), derivedAccess.getFreeFlowTravelTimesHour(bus));
+    assertSame(baseAccess.getCapacitiesPcuH(), derivedAccess.getCapacitiesPcuH());
+    assertNotSame(baseAccess.getFreeFlowTravelTimesHour(car), derivedAccess.getFreeFlowTravelTimesHour(car));
+
+    /* modifying the overlay publishes a new derived snapshot, capacities are now copied */
+    var capturedSnapshot = derivedAccess.getSnapshot();
+    overlay.setCapacityPcuH(sharedLinkSegment, 100);
+    assertTrue(derivedAccess.isOutdated());
+    derivedAccess = overlay.getLinkSegmentModeAccess(networkLayer);
+    assertNotSame(capturedSnapshot, derivedAccess.getSnapshot());
+    assertEquals(100, derivedAccess.getCapacitiesPcuH()[(int) sharedId]);
+    assertEquals(sharedLinkSegment.getCapacityOrDefaultPcuH(), baseAccess.getCapacitiesPcuH()[(int) sharedId]);
+    assertEquals(sharedLinkSegment.getCapacityOrDefaultPcuH(), capturedSnapshot.getCapacitiesPcuH()[(int) sharedId]);
+  }
+
+  /**
+   * Overrides are only accepted on a derived access while its delta is applied
+   */
+  @Test
+  public void overrideOutsideDerivationTest() {
+    var baseAccess = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    var derivedAccess = new MacroscopicNetworkScenarioOverlay(network).getLinkSegmentModeAccess(networkLayer);
+
+    assertThrows(PlanItRunTimeException.class, () -> baseAccess.overrideCapacityPcuH(0, 100));
+    assertThrows(PlanItRunTimeException.class, () -> derivedAccess.overrideCapacityPcuH(0, 100));
+    assertThrows(PlanItRunTimeException.class, () -> derivedAccess.overrideDisallowed(car, 0));
+  }
+
+  /**
+   * Readers capturing snapshots while the access is rebuilt concurrently always observe an internally consistent snapshot
+   */
+  @Test
+  public void concurrentRebuildTest() throws Exception {
+    var access = MacroscopicLinkSegmentModeAccess.of(networkLayer);
+    final int sharedId = (int) sharedLinkSegment.getLinkSegmentId();
+    final int numberOfLinkSegments = (int) networkLayer.getLinkSegments().size();
+
+    final AtomicBoolean done = new AtomicBoolean(false);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> readers = new ArrayList<>();
+      for (int index = 0; index < 4; ++index) {
+        readers.add(executor.submit(() -> {
+          while (!done.get()) {
+            var snapshot = access.getSnapshot();
+            boolean allowed = snapshot.isModeAllowed(bus, sharedId);
+            boolean hasFreeFlowTime = snapshot.getFreeFlowTravelTimesHour(bus)[sharedId] != Double.MAX_VALUE;
+            if (allowed != hasFreeFlowTime || snapshot.getCapacitiesPcuH().length != numberOfLinkSegments) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+
+      for (int iteration = 0; iteration < 2000; ++iteration) {
+        if (iteration % 2 == 0) {
+          sharedType.removeModeAccess(bus);
+        } else {
+          sharedType.addAccessGroupProperties(AccessGroupPropertiesFactory.create(bus));
+        }
+        access.refreshIfOutdated();
+      }
+      done.set(true);
+
+      for (var reader : readers) {
+        assertTrue(reader.get());
+      }
+    } finally {
+      done.set(true);
+      executor.shutdownNow();
+    }
+  }
+
+}
@@ -0,0 +1,228 @@
+package org.goplanit.test.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.converter.zoning.ZoningConverterUtils;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.layer.macroscopic.MacroscopicLinkSpatialIndex;
+import org.goplanit.network.layer.macroscopic.MacroscopicNetworkLayerImpl;
+import org.goplanit.utils.geo.PlanitJtsCrsUtils;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLink;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test the link spatial index owned by the macroscopic network layer and the zoning converter utilities that rely on it
+ *
+ * @author markr
+ *
+ */
+public class MacroscopicLinkSpatialIndexTest {
+
+  private GeometryFactory geoFactory;
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayerImpl networkLayer;
+  private PlanitJtsCrsUtils geoUtils;
+  private Mode car;
+  private Mode train;
+  private MacroscopicLink linkWithShapePoint;
+  private MacroscopicLink railLink;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("MacroscopicLinkSpatialIndexTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(MacroscopicLinkSpatialIndexTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  /**
+   * Cartesian network in meters
+   *
+   *              3
+   *              *
+   *              |
+   *              | 2 (road)
+   *     0 (road) |     1 (rail)
+   *  *-----^-----*-----------*
+   *  0           1           2
+   *
+   * link 0 has an internal shape point at (500,100)
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      geoFactory = JTSFactoryFinder.getGeometryFactory();
+      geoUtils = new PlanitJtsCrsUtils(PlanitJtsCrsUtils.CARTESIANCRS);
+
+      network = new MacroscopicNetwork(testToken);
+      car = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      train = network.getModes().getFactory().registerNew(PredefinedModeType.TRAIN);
+      networkLayer = (MacroscopicNetworkLayerImpl) network.getTransportLayers().getFactory().registerNew(car, train);
+
+      Node node0 = createNode("0", 0, 0);
+      Node node1 = createNode("1", 1000, 0);
+      Node node2 = createNode("2", 2000, 0);
+      Node node3 = createNode("3", 1000, 1000);
+
+      linkWithShapePoint = createLink("0", node0, node1, new Coordinate(0, 0), new Coordinate(500, 100), new Coordinate(1000, 0));
+      railLink = createLink("1", node1, node2, new Coordinate(1000, 0), new Coordinate(2000, 0));
+      var roadLink = createLink("2", node1, node3, new Coordinate(1000, 0), new Coordinate(1000, 1000));
+
+      var roadType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("Road", 2000, 180, car);
+      var railType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("Rail", 1000, 180, train);
+      networkLayer.getLinkSegments().getFactory().registerNew(linkWithShapePoint, roadType, true, true).setXmlId("0");
+      networkLayer.getLinkSegments().getFactory().registerNew(railLink, railType, true, true).setXmlId("1");
+      networkLayer.getLinkSegments().getFactory().registerNew(roadLink, roadType, true, true).setXmlId("2");
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  private Node createNode(String xmlId, double x, double y) {
+    Node node = networkLayer.getNodes().getFactory().registerNew();
+    node.setXmlId(xmlId);
+    node.setPosition(geoFactory.createPoint(new Coordinate(x, y)));
+    return node;
+  }
+
+  private MacroscopicLink createLink(String xmlId, Node nodeA, Node nodeB, Coordinate... coordinates) {
+    var link = networkLayer.getLinks().getFactory().registerNew(nodeA, nodeB, 1, true);
+    link.setXmlId(xmlId);
+    link.setGeometry(geoFactory.createLineString(coordinates));
+    return link;
+  }
+
+  /**
+   * Within distance and nearest link queries only return links within the given distance
+   */
+  @Test
+  public void queryTest() {
+    try {
+      MacroscopicLinkSpatialIndex spatialIndex = networkLayer.getLinkSpatialIndex(geoUtils);
+      assertEquals(3, spatialIndex.size());
+
+      var nearShapePoint = geoFactory.createPoint(new Coordinate(500, 150));
+      var linksFound = spatialIndex.findLinksWithinDistance(nearShapePoint, 60);
+      assertEquals(1, linksFound.size());
+      assertSame(linkWithShapePoint, linksFound.iterator().next());
+      assertTrue(spatialIndex.findLinksWithinDistance(nearShapePoint, 10).isEmpty());
+
+      assertSame(railLink, spatialIndex.findNearestLink(geoFactory.createPoint(new Coordinate(1500, -20)), 100));
+      assertNull(spatialIndex.findNearestLink(geoFactory.createPoint(new Coordinate(5000, 5000)), 100));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("queryTest");
+    }
+  }
+
+  /**
+   * The layer reuses its index while it is up to date, rebuilds it when links are added outside of the layer modifier and when explicitly invalidated
+   */
+  @Test
+  public void layerOwnedIndexTest() {
+    try {
+      MacroscopicLinkSpatialIndex spatialIndex = networkLayer.getLinkSpatialIndex(geoUtils);
+      assertSame(spatialIndex, networkLayer.getLinkSpatialIndex(geoUtils));
+
+      var addedLink = createLink("3", networkLayer.getNodes().getByXmlId("2"), networkLayer.getNodes().getByXmlId("3"),
+          new Coordinate(2000, 0), new Coordinate(1000, 1000));
+      MacroscopicLinkSpatialIndex rebuiltIndex = networkLayer.getLinkSpatialIndex(geoUtils);
+      assertNotSame(spatialIndex, rebuiltIndex);
+      assertEquals(4, rebuiltIndex.size());
+      assertSame(addedLink, rebuiltIndex.findNearestLink(geoFactory.createPoint(new Coordinate(1500, 520)), 50));
+
+      networkLayer.invalidateLinkSpatialIndex();
+      assertNotSame(rebuiltIndex, networkLayer.getLinkSpatialIndex(geoUtils));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("layerOwnedIndexTest");
+    }
+  }
+
+  /**
+   * Breaking links at a node via the utilities updates the layer's index through the layer modifier, so the index is not rebuilt
+   */
+  @Test
+  public void breakLinksAtTest() {
+    try {
+      MacroscopicLinkSpatialIndex spatialIndex = networkLayer.getLinkSpatialIndex(geoUtils);
+
+      Node breakNode = createNode("4", 500, 100);
+      var brokenLinks = ZoningConverterUtils.breakLinksAt(breakNode, networkLayer, PlanitJtsCrsUtils.CARTESIANCRS, geoUtils);
+      assertEquals(1, brokenLinks.size());
+      assertEquals(4, networkLayer.getLinks().size());
+
+      assertSame(spatialIndex, networkLayer.getLinkSpatialIndex(geoUtils));
+      assertEquals(4, spatialIndex.size());
+      var brokenLinkPair = brokenLinks.values().iterator().next();
+      assertSame(brokenLinkPair.first(), spatialIndex.findNearestLink(geoFactory.createPoint(new Coordinate(250, 60)), 20));
+      assertSame(brokenLinkPair.second(), spatialIndex.findNearestLink(geoFactory.createPoint(new Coordinate(750, 60)), 20));
+
+      /* nothing left to break at this location */
+      assertTrue(ZoningConverterUtils.breakLinksAt(breakNode, networkLayer, PlanitJtsCrsUtils.CARTESIANCRS, geoUtils).isEmpty());
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("breakLinksAtTest");
+    }
+  }
+
+  /**
+   * Connectoid location is found on the closest link segment allowing the access mode, link segments not allowing the mode are skipped
+   */
+  @Test
+  public void connectoidLocationOnLinkSegmentTest() {
+    try {
+      var result = ZoningConverterUtils.findConnectoidLocationForWaitingAreaOnLinkSegment("platform",
+          geoFactory.createPoint(new Coordinate(1500, -20)), networkLayer, MacroscopicLink::getXmlId, train, 50, null, null, null, null, geoUtils);
+      assertNotNull(result);
+      assertSame(railLink, result.first().getParentLink());
+      assertTrue(result.second().getCoordinate().equals2D(new Coordinate(1500, 0)));
+
+      /* closest link is road only, no rail link segment within range */
+      assertNull(ZoningConverterUtils.findConnectoidLocationForWaitingAreaOnLinkSegment("platform",
+          geoFactory.createPoint(new Coordinate(500, 80)), networkLayer, MacroscopicLink::getXmlId, train, 50, null, null, null, null, geoUtils));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("connectoidLocationOnLinkSegmentTest");
+    }
+  }
+
+}
@@ -0,0 +1,173 @@
+package org.goplanit.test.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.layer.modifier.UntypedNetworkLayerModifierImpl;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the modifications applied via the network layer modifier
+ *
+ * @author markr
+ *
+ */
+public class NetworkLayerModifierTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("NetworkLayerModifierTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(NetworkLayerModifierTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  /**
+   * Network with a main component of three nodes, a dangling component of two nodes and an isolated node
+   *
+   *       0         1
+   *  0 *<--->* 1 ---->* 2       3 *---->* 4        5 *
+   *                                2
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      network = new MacroscopicNetwork(testToken);
+      Mode car = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(car);
+
+      var nodes = networkLayer.getNodes();
+      for (int index = 0; index < 6; ++index) {
+        nodes.getFactory().registerNew().setXmlId(String.valueOf(index));
+      }
+      var links = networkLayer.getLinks();
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true).setXmlId("0");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+      links.getFactory().registerNew(nodes.getByXmlId("3"), nodes.getByXmlId("4"), 1, true).setXmlId("2");
+
+      var linkSegmentType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 180, car);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentType, true, true).setXmlId("0");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentType, false, true).setXmlId("0r");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), linkSegmentType, true, true).setXmlId("1");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("2"), linkSegmentType, true, true).setXmlId("2");
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Removing dangling subnetworks removes all components except the largest, including their links and link segments, after which the ids are contiguous again
+   */
+  @Test
+  public void removeDanglingSubnetworksTest() {
+    try {
+      networkLayer.getLayerModifier().removeDanglingSubnetworks(3, Integer.MAX_VALUE, true);
+
+      Set<String> nodeXmlIds = new TreeSet<>();
+      networkLayer.getNodes().forEach(node -> nodeXmlIds.add(node.getXmlId()));
+      assertEquals(Set.of("0", "1", "2"), nodeXmlIds);
+
+      Set<String> linkXmlIds = new TreeSet<>();
+      networkLayer.getLinks().forEach(link -> linkXmlIds.add(link.getXmlId()));
+      assertEquals(Set.of("0", "1"), linkXmlIds);
+
+      Set<String> linkSegmentXmlIds = new TreeSet<>();
+      networkLayer.getLinkSegments().forEach(linkSegment -> linkSegmentXmlIds.add(linkSegment.getXmlId()));
+      assertEquals(Set.of("0", "0r", "1"), linkSegmentXmlIds);
+
+      /* ids recreated, so contiguous and each link segment refers to a remaining link */
+      for (long id = 0; id < networkLayer.getLinkSegments().size(); ++id) {
+        var linkSegment = networkLayer.getLinkSegments().get(id);
+        assertNotNull(linkSegment);
+        assertTrue(linkXmlIds.contains(linkSegment.getParentLink().getXmlId()));
+      }
+      for (long id = 0; id < networkLayer.getNodes().size(); ++id) {
+        assertNotNull(networkLayer.getNodes().get(id));
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing removal of dangling subnetworks");
+    }
+  }
+
+  /**
+   * When the largest component is not always kept, a size threshold below the largest component size leaves the network untouched except for the smaller components
+   */
+  @Test
+  public void removeDanglingSubnetworksBelowSizeTest() {
+    try {
+      networkLayer.getLayerModifier().removeDanglingSubnetworks(2, Integer.MAX_VALUE, false);
+
+      /* only the isolated node is below size 2 */
+      assertEquals(5, networkLayer.getNodes().size());
+      assertEquals(3, networkLayer.getLinks().size());
+      assertEquals(4, networkLayer.getLinkSegments().size());
+      networkLayer.getNodes().forEach(node -> assertFalse(node.getXmlId().equals("5")));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing removal of dangling subnetworks below size");
+    }
+  }
+
+  /**
+   * A failing removal still commits its transaction, so subsequent modifications are not deferred and a retry succeeds
+   */
+  @Test
+  public void removeDanglingSubnetworksFailureCommitsTest() {
+    try {
+      var layerModifier = (UntypedNetworkLayerModifierImpl<?, ?, ?>) networkLayer.getLayerModifier();
+
+      /* without a size threshold the criteria cannot be evaluated for the smaller components */
+      assertThrows(NullPointerException.class, () -> layerModifier.removeDanglingSubnetworks(null, Integer.MAX_VALUE, true));
+      assertFalse(layerModifier.isInTransaction());
+
+      layerModifier.removeDanglingSubnetworks(3, Integer.MAX_VALUE, true);
+      assertFalse(layerModifier.isInTransaction());
+      assertEquals(3, networkLayer.getNodes().size());
+      assertEquals(3, networkLayer.getLinkSegments().size());
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing failing removal of dangling subnetworks");
+    }
+  }
+
+}
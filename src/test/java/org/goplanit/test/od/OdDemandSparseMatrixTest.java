@@ -0,0 +1,84 @@
+package org.goplanit.test.od;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandSparseMatrix;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the sparse od demands container
+ * 
+ * @author markr
+ *
+ */
+public class OdDemandSparseMatrixTest {
+
+  private Zoning zoning;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("OdDemandSparseMatrixTest");
+
+  @BeforeEach
+  public void intialise() {
+    MacroscopicNetwork network = new MacroscopicNetwork(testToken);
+    var mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+    var networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+    zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+    for (int index = 0; index < 3; ++index) {
+      zoning.getOdZones().getFactory().registerNew().setXmlId(String.valueOf(index));
+    }
+  }
+
+  /**
+   * Values set in arbitrary order are retrievable once population ends, the default iterator visits all od pairs while the non-zero iterator only visits non-zero entries
+   */
+  @Test
+  public void sparseOdDemandsIteratorTest() {
+    var odZones = zoning.getOdZones();
+    OdZone zone0 = odZones.getByXmlId("0");
+    OdZone zone1 = odZones.getByXmlId("1");
+    OdZone zone2 = odZones.getByXmlId("2");
+
+    OdDemandSparseMatrix odDemands = new OdDemandSparseMatrix(odZones);
+    odDemands.setValue(zone2, zone0, 20.0);
+    odDemands.setValue(zone0, zone1, 1.0);
+    odDemands.setValue(zone0, zone1, 10.0);
+    odDemands.setValue(zone1, zone2, 0.0);
+    odDemands.finalisePopulation();
+
+    assertEquals(10.0, odDemands.getValue(zone0, zone1), Precision.EPSILON_6);
+    assertEquals(20.0, odDemands.getValue(zone2, zone0), Precision.EPSILON_6);
+    assertEquals(0.0, odDemands.getValue(zone1, zone2), Precision.EPSILON_6);
+
+    int numberOfOdPairs = 0;
+    double totalDemand = 0;
+    for (var iter = odDemands.iterator(); iter.hasNext();) {
+      double value = iter.next();
+      assertEquals(odDemands.getValue(iter.getCurrentOrigin(), iter.getCurrentDestination()), value, Precision.EPSILON_6);
+      assertEquals(numberOfOdPairs / 3, iter.getCurrentOrigin().getOdZoneId());
+      assertEquals(numberOfOdPairs % 3, iter.getCurrentDestination().getOdZoneId());
+      totalDemand += value;
+      ++numberOfOdPairs;
+    }
+    assertEquals(9, numberOfOdPairs);
+    assertEquals(30.0, totalDemand, Precision.EPSILON_6);
+
+    int numberOfNonZeroEntries = 0;
+    for (var iter = odDemands.nonZeroIterator(); iter.hasNext();) {
+      iter.next();
+      ++numberOfNonZeroEntries;
+    }
+    assertEquals(2, numberOfNonZeroEntries);
+
+    /* new od pairs after population ended are merged on the next read */
+    odDemands.setValue(zone1, zone0, 5.0);
+    assertEquals(5.0, odDemands.getValue(zone1, zone0), Precision.EPSILON_6);
+  }
+}
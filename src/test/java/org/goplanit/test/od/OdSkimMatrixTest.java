@@ -0,0 +1,131 @@
+package org.goplanit.test.od;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.skim.OdSkimMatrix;
+import org.goplanit.output.enums.OdSkimSubOutputType;
+import org.goplanit.utils.exceptions.PlanItRunTimeException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the od skim matrix
+ *
+ * @author markr
+ *
+ */
+public class OdSkimMatrixTest {
+
+  private static final int NUMBER_OF_ZONES = 3;
+
+  private Zoning zoning;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("OdSkimMatrixTest");
+
+  @BeforeEach
+  public void intialise() {
+    MacroscopicNetwork network = new MacroscopicNetwork(testToken);
+    var mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+    var networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+    zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+    for (int index = 0; index < NUMBER_OF_ZONES; ++index) {
+      zoning.getOdZones().getFactory().registerNew().setXmlId(String.valueOf(index));
+    }
+  }
+
+  /**
+   * Values are copied in row-major order by origin and destination od zone id
+   */
+  @Test
+  public void copyValuesToTest() {
+    OdSkimMatrix odSkimMatrix = new OdSkimMatrix(zoning.getOdZones(), OdSkimSubOutputType.COST);
+    for (int origin = 0; origin < NUMBER_OF_ZONES; ++origin) {
+      for (int destination = 0; destination < NUMBER_OF_ZONES; ++destination) {
+        odSkimMatrix.setPrimitiveValue(origin, destination, 10 * origin + destination);
+      }
+    }
+
+    /* larger than required is allowed, remainder untouched */
+    double[] values = new double[NUMBER_OF_ZONES * NUMBER_OF_ZONES + 1];
+    values[NUMBER_OF_ZONES * NUMBER_OF_ZONES] = -1;
+    odSkimMatrix.copyValuesTo(values);
+    for (int origin = 0; origin < NUMBER_OF_ZONES; ++origin) {
+      for (int destination = 0; destination < NUMBER_OF_ZONES; ++destination) {
+        assertEquals(10 * origin + destination, values[origin * NUMBER_OF_ZONES + destination], Precision.EPSILON_6);
+      }
+    }
+    assertEquals(-1, values[NUMBER_OF_ZONES * NUMBER_OF_ZONES], Precision.EPSILON_6);
+  }
+
+  /**
+   * Off-heap (DIRECT32) storage holds values in single precision like on-heap storage, is reset in place and retains its storage type when copied
+   */
+  @Test
+  public void offHeapStorageTest() {
+    OdSkimMatrix onHeapSkimMatrix = new OdSkimMatrix(zoning.getOdZones(), OdSkimSubOutputType.COST);
+    OdSkimMatrix offHeapSkimMatrix = new OdSkimMatrix(zoning.getOdZones(), OdSkimSubOutputType.COST, true);
+    assertFalse(onHeapSkimMatrix.isOffHeap());
+    assertTrue(offHeapSkimMatrix.isOffHeap());
+
+    for (int origin = 0; origin < NUMBER_OF_ZONES; ++origin) {
+      for (int destination = 0; destination < NUMBER_OF_ZONES; ++destination) {
+        assertEquals(0, offHeapSkimMatrix.getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+        double value = 1000.0 / 3 * (origin + 1) + destination;
+        onHeapSkimMatrix.setPrimitiveValue(origin, destination, value);
+        offHeapSkimMatrix.setPrimitiveValue(origin, destination, value);
+      }
+    }
+    for (int origin = 0; origin < NUMBER_OF_ZONES; ++origin) {
+      for (int destination = 0; destination < NUMBER_OF_ZONES; ++destination) {
+        assertEquals(onHeapSkimMatrix.getPrimitiveValue(origin, destination), offHeapSkimMatrix.getPrimitiveValue(origin, destination), 0);
+        assertEquals(1000.0 / 3 * (origin + 1) + destination, offHeapSkimMatrix.getPrimitiveValue(origin, destination), Precision.EPSILON_3);
+        assertEquals(offHeapSkimMatrix.getPrimitiveValue(origin, destination), (double) offHeapSkimMatrix.getValue(zoning.getOdZones().get(origin), zoning.getOdZones().get(destination)),
+            0);
+      }
+    }
+
+    OdSkimMatrix offHeapCopy = offHeapSkimMatrix.shallowClone();
+    assertTrue(offHeapCopy.isOffHeap());
+    assertEquals(offHeapSkimMatrix.getPrimitiveValue(2, 1), offHeapCopy.getPrimitiveValue(2, 1), 0);
+
+    offHeapSkimMatrix.reset();
+    assertTrue(offHeapSkimMatrix.isOffHeap());
+    for (int origin = 0; origin < NUMBER_OF_ZONES; ++origin) {
+      for (int destination = 0; destination < NUMBER_OF_ZONES; ++destination) {
+        assertEquals(0, offHeapSkimMatrix.getPrimitiveValue(origin, destination), 0);
+      }
+    }
+    /* copy has its own storage */
+    assertEquals(1000.0 / 3 * 3 + 1, offHeapCopy.getPrimitiveValue(2, 1), Precision.EPSILON_3);
+
+    /* values can still be set and copied after a reset */
+    offHeapSkimMatrix.setPrimitiveValue(1, 2, 7);
+    double[] values = new double[NUMBER_OF_ZONES * NUMBER_OF_ZONES];
+    offHeapSkimMatrix.copyValuesTo(values);
+    assertEquals(7, values[1 * NUMBER_OF_ZONES + 2], Precision.EPSILON_6);
+    assertEquals(0, values[0], 0);
+  }
+
+  /**
+   * Copying to an array that cannot hold all values fails before any value is copied
+   */
+  @Test
+  public void copyValuesToInsufficientLengthTest() {
+    OdSkimMatrix odSkimMatrix = new OdSkimMatrix(zoning.getOdZones(), OdSkimSubOutputType.COST);
+    odSkimMatrix.setPrimitiveValue(0, 0, 5);
+
+    double[] values = new double[NUMBER_OF_ZONES * NUMBER_OF_ZONES - 1];
+    assertThrows(PlanItRunTimeException.class, () -> odSkimMatrix.copyValuesTo(values));
+    assertEquals(0, values[0], Precision.EPSILON_6);
+  }
+
+}
@@ -0,0 +1,80 @@
+package org.goplanit.test.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.goplanit.data.ColumnarPlanItData;
+import org.goplanit.output.formatter.OutputFormatter;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.math.Precision;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the columnar storage used by the memory output formatter
+ *
+ * @author markr
+ *
+ */
+public class ColumnarPlanItDataTest {
+
+  /**
+   * Setting a numeric value after the value was marked as not specified makes it specified again
+   */
+  @Test
+  public void numericValueSpecifiedTest() {
+    try {
+      ColumnarPlanItData data = new ColumnarPlanItData(new OutputProperty[] { OutputProperty.of(OutputPropertyType.LINK_SEGMENT_ID) },
+          OutputProperty.of(OutputPropertyType.FLOW), OutputProperty.of(OutputPropertyType.LINK_SEGMENT_COST));
+      int row = data.addRow(0);
+      data.setValue(0, row, OutputFormatter.NOT_SPECIFIED);
+      data.setValue(1, row, OutputFormatter.NOT_SPECIFIED);
+      assertFalse(data.isValueSpecified(0, row));
+      assertEquals(OutputFormatter.NOT_SPECIFIED, data.getValue(0, row));
+
+      data.setNumericValue(0, row, 10.0);
+      data.setDouble(1, row, 2.0);
+      assertTrue(data.isValueSpecified(0, row));
+      assertTrue(data.isValueSpecified(1, row));
+      assertEquals(10.0, (double) data.getValue(0, row), Precision.EPSILON_6);
+      assertEquals(2.0, (double) data.getValue(1, row), Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing specified numeric values");
+    }
+  }
+
+  /**
+   * Rows registered against a sparse index, in arbitrary order and beyond the integer range, are found by their index, re-registering an index reuses its row
+   */
+  @Test
+  public void sparseIndexTest() {
+    try {
+      ColumnarPlanItData data = new ColumnarPlanItData(new OutputProperty[] {}, new OutputProperty[] { OutputProperty.of(OutputPropertyType.FLOW) }, 2, true);
+      long[] indices = new long[] { 5, 1, 100_000L * 100_000L - 1, 3, 0, 42 };
+      for (int index = 0; index < indices.length; ++index) {
+        int row = data.addRow(indices[index]);
+        assertEquals(index, row);
+        data.setNumericValue(0, row, index);
+      }
+      assertEquals(indices.length, data.getNumberOfRows());
+      for (int index = 0; index < indices.length; ++index) {
+        int row = data.getRowIndex(indices[index]);
+        assertEquals(index, row);
+        assertEquals(index, data.getDouble(0, row), Precision.EPSILON_6);
+      }
+      assertEquals(-1, data.getRowIndex(2));
+      assertEquals(-1, data.getRowIndex(43));
+      assertEquals(-1, data.getRowIndex(-1));
+
+      assertEquals(data.getRowIndex(3), data.addRow(3));
+      assertEquals(indices.length, data.getNumberOfRows());
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing sparse index");
+    }
+  }
+
+}
@@ -0,0 +1,193 @@
+package org.goplanit.test.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedSet;
+import java.util.logging.Logger;
+
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignment;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentBuilder;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.DeltaHistoryOutputFormatter;
+import org.goplanit.output.formatter.DeltaHistoryReader;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the delta history output formatter by replaying its history and comparing against the results of the memory output formatter of the same run
+ *
+ * @author markr
+ *
+ */
+public class DeltaHistoryOutputFormatterTest {
+
+  /** persist every n-th iteration */
+  private static final int PERSIST_ITERATION_INTERVAL = 3;
+
+  /** number of iterations to run */
+  private static final int MAX_ITERATIONS = 20;
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Mode mode;
+  private Zoning zoning;
+  private Demands demands;
+  private Path outputDirectory;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("DeltaHistoryOutputFormatterTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(DeltaHistoryOutputFormatterTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  /**
+   * Two parallel routes of which only links 1 and 3 are congestible, so flows and costs keep changing between iterations
+   *
+   *                 2
+   *           1   /   \  2
+   *     0        /     \       5
+   *  A *--->----* 1     4 *--->---* B
+   *              \     /
+   *           3   \   /  4
+   *                 3
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      outputDirectory = Files.createTempDirectory("deltahistory");
+
+      network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      var nodes = networkLayer.getNodes();
+      for (int index = 0; index < 6; ++index) {
+        nodes.getFactory().registerNew().setXmlId(String.valueOf(index));
+      }
+      var links = networkLayer.getLinks();
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true).setXmlId("0");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+      links.getFactory().registerNew(nodes.getByXmlId("2"), nodes.getByXmlId("4"), 1, true).setXmlId("2");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("3"), 1, true).setXmlId("3");
+      links.getFactory().registerNew(nodes.getByXmlId("3"), nodes.getByXmlId("4"), 1, true).setXmlId("4");
+      links.getFactory().registerNew(nodes.getByXmlId("4"), nodes.getByXmlId("5"), 1, true).setXmlId("5");
+
+      var mainType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 180, mode);
+      var connectorType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("ConnectorType", 100000, 180, mode);
+      for (var link : links) {
+        var linkSegmentType = link.getXmlId().equals("1") || link.getXmlId().equals("3") ? mainType : connectorType;
+        networkLayer.getLinkSegments().getFactory().registerNew(link, linkSegmentType, true, true).setXmlId(link.getXmlId());
+      }
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("B");
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("0"), zoning.getOdZones().getByXmlId("A"), 0);
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("5"), zoning.getOdZones().getByXmlId("B"), 0);
+
+      demands = new Demands(testToken);
+      demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+      demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+      demands.userClasses.getFactory().registerNew("dummyUser", mode, demands.travelerTypes.getFirst());
+      OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+      odDemands.setValue(zoning.getOdZones().getByXmlId("A"), zoning.getOdZones().getByXmlId("B"), 3000.0);
+      demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), mode, odDemands);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Every persisted iteration replayed from the delta history, using key frames as well as deltas in between, matches the flows and costs stored by the memory output formatter
+   * for that iteration
+   */
+  @Test
+  public void deltaHistoryRoundTripTest() {
+    try {
+      DeltaHistoryOutputFormatter deltaHistoryOutputFormatter = new DeltaHistoryOutputFormatter(testToken);
+      deltaHistoryOutputFormatter.setOutputDirectory(outputDirectory.toString());
+      deltaHistoryOutputFormatter.setFlowTolerance(0);
+      deltaHistoryOutputFormatter.setCostTolerance(0);
+      deltaHistoryOutputFormatter.setKeyFrameInterval(2);
+      MemoryOutputFormatter memoryOutputFormatter = new MemoryOutputFormatter(testToken);
+
+      TraditionalStaticAssignmentBuilder builder = new TraditionalStaticAssignmentBuilder(network.getIdGroupingToken(), null, demands, zoning, network);
+      builder.getConfigurator().activateOutput(OutputType.LINK);
+      builder.getConfigurator().getOutputConfiguration().setPersistOnlyFinalIteration(false);
+      builder.getConfigurator().getOutputConfiguration().setPersistIterationInterval(PERSIST_ITERATION_INTERVAL);
+      builder.getConfigurator().registerOutputFormatter(deltaHistoryOutputFormatter);
+      builder.getConfigurator().registerOutputFormatter(memoryOutputFormatter);
+      TraditionalStaticAssignment assignment = builder.build();
+      assignment.getGapFunction().getStopCriterion().setEpsilon(Precision.EPSILON_12);
+      assignment.getGapFunction().getStopCriterion().setMaxIterations(MAX_ITERATIONS);
+      assignment.execute();
+
+      var timePeriod = demands.timePeriods.getFirst();
+      DeltaHistoryReader reader = new DeltaHistoryReader(deltaHistoryOutputFormatter.getHistoryFileName());
+      SortedSet<Integer> recordedIterations = reader.getRecordedIterations(mode.getId(), timePeriod.getId());
+      assertTrue(recordedIterations.size() > 2);
+      assertEquals(memoryOutputFormatter.getLastIteration(), (int) recordedIterations.last());
+      for (int iterationIndex : recordedIterations.headSet(recordedIterations.last())) {
+        assertEquals(0, iterationIndex % PERSIST_ITERATION_INTERVAL);
+      }
+
+      int flowPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.FLOW);
+      int costPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.LINK_SEGMENT_COST);
+      for (int iterationIndex : recordedIterations) {
+        double[][] replayed = reader.reconstruct(mode.getId(), timePeriod.getId(), iterationIndex);
+        assertNotNull(replayed);
+        for (var linkSegment : networkLayer.getLinkSegments()) {
+          final int id = (int) linkSegment.getId();
+          double flow = memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iterationIndex, OutputType.LINK, flowPosition, id);
+          if (Double.isNaN(flow)) {
+            /* memory output only retains link segments with positive flow */
+            assertEquals(0, replayed[0][id], Precision.EPSILON_6);
+            continue;
+          }
+          assertEquals(flow, replayed[0][id], Precision.EPSILON_6);
+          assertEquals(memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iterationIndex, OutputType.LINK, costPosition, id), replayed[1][id],
+              Precision.EPSILON_6);
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing delta history round trip");
+    }
+  }
+
+}
@@ -0,0 +1,241 @@
+package org.goplanit.test.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Logger;
+
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.output.adapter.MacroscopicLinkOutputTypeAdapter;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.enums.SubOutputTypeEnum;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.property.OutputProperty;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegments;
+import org.goplanit.utils.time.TimePeriod;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the default bulk access to link output values and its collection by the output formatters
+ *
+ * @author markr
+ *
+ */
+public class LinkOutputBulkAccessTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Mode car;
+  private Mode train;
+  private TestLinkOutputTypeAdapter adapter;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("LinkOutputBulkAccessTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Adapter relying on the default bulk access, flow is numeric on link segment 0 and 1, non-numeric (error message) on link segment 2. Cost is absent on link segment 0. Link
+   * segments for which values are requested are recorded
+   */
+  private class TestLinkOutputTypeAdapter implements MacroscopicLinkOutputTypeAdapter {
+
+    private final List<Long> requestedLinkSegmentIds = new ArrayList<>();
+
+    @Override
+    public OutputType getOutputType() {
+      return OutputType.LINK;
+    }
+
+    @Override
+    public Optional<Integer> getIterationIndexForSubOutputType(SubOutputTypeEnum subOutputTypeEnum) {
+      return Optional.of(0);
+    }
+
+    @Override
+    public MacroscopicLinkSegments getPhysicalLinkSegments(long infrastructureLayerId) {
+      return networkLayer.getLinkSegments();
+    }
+
+    @Override
+    public Optional<?> getLinkSegmentOutputPropertyValue(OutputProperty outputProperty, MacroscopicLinkSegment linkSegment) {
+      return Optional.empty();
+    }
+
+    @Override
+    public Optional<Long> getInfrastructureLayerIdForMode(Mode mode) {
+      return Optional.of(networkLayer.getId());
+    }
+
+    @Override
+    public Optional<Boolean> isFlowPositive(MacroscopicLinkSegment linkSegment, Mode mode) {
+      requestedLinkSegmentIds.add(linkSegment.getId());
+      return Optional.of(true);
+    }
+
+    @Override
+    public Optional<?> getLinkSegmentOutputPropertyValue(OutputProperty outputProperty, MacroscopicLinkSegment linkSegment, Mode mode, TimePeriod timePeriod) {
+      requestedLinkSegmentIds.add(linkSegment.getId());
+      if (outputProperty.getOutputPropertyType() == OutputPropertyType.FLOW) {
+        return linkSegment.getId() == 2 ? Optional.of("unable to compute flow") : Optional.of(10.0 * (linkSegment.getId() + 1));
+      }
+      return linkSegment.getId() == 0 ? Optional.empty() : Optional.of(1.0);
+    }
+  }
+
+  /**
+   * Formatter exposing the bulk collection
+   */
+  private static class TestOutputFormatter extends MemoryOutputFormatter {
+
+    TestOutputFormatter(IdGroupingToken token) {
+      super(token);
+    }
+
+    static double[][] collect(OutputProperty[] outputProperties, MacroscopicLinkOutputTypeAdapter adapter, MacroscopicLinkSegments linkSegments, Mode mode) throws Exception {
+      return collectLinkSegmentOutputPropertyValuesInBulk(outputProperties, adapter, linkSegments, mode, null);
+    }
+
+    static boolean isCollected(double[][] bulkValues, int index, int linkSegmentId) {
+      return isCollectedInBulk(bulkValues, index, linkSegmentId);
+    }
+  }
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(LinkOutputBulkAccessTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  /**
+   * Link segment 1 only allows trains, link segments 0 and 2 only allow cars
+   *
+   *        0          1          2
+   *  0 *------>---*------>---*------>---* 3
+   *     (car)        (train)    (car)
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      network = new MacroscopicNetwork(testToken);
+      car = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      train = network.getModes().getFactory().registerNew(PredefinedModeType.TRAIN);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(car, train);
+
+      var nodes = networkLayer.getNodes();
+      for (int index = 0; index < 4; ++index) {
+        nodes.getFactory().registerNew().setXmlId(String.valueOf(index));
+      }
+      var links = networkLayer.getLinks();
+      for (int index = 0; index < 3; ++index) {
+        links.getFactory().registerNew(nodes.getByXmlId(String.valueOf(index)), nodes.getByXmlId(String.valueOf(index + 1)), 1, true).setXmlId(String.valueOf(index));
+      }
+
+      var roadType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("Road", 2000, 180, car);
+      var railType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("Rail", 1000, 180, train);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), roadType, true, true);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), railType, true, true);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("2"), roadType, true, true);
+
+      adapter = new TestLinkOutputTypeAdapter();
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Default bulk access skips link segments not allowing the mode as well as absent and non-numeric values rather than failing
+   */
+  @Test
+  public void defaultFillLinkSegmentOutputPropertyValuesTest() {
+    try {
+      double[] flows = new double[3];
+      Arrays.fill(flows, -1);
+      adapter.fillLinkSegmentOutputPropertyValues(OutputProperty.of(OutputPropertyType.FLOW), networkLayer.getLinkSegments(), car, null, flows);
+      assertEquals(10.0, flows[0], Precision.EPSILON_6);
+      assertEquals(-1.0, flows[1], Precision.EPSILON_6);
+      assertEquals(-1.0, flows[2], Precision.EPSILON_6);
+      assertFalse(adapter.requestedLinkSegmentIds.contains(1L));
+
+      double[] costs = new double[3];
+      Arrays.fill(costs, -1);
+      adapter.fillLinkSegmentOutputPropertyValues(OutputProperty.of(OutputPropertyType.LINK_SEGMENT_COST), networkLayer.getLinkSegments(), train, null, costs);
+      assertEquals(-1.0, costs[0], Precision.EPSILON_6);
+      assertEquals(1.0, costs[1], Precision.EPSILON_6);
+      assertEquals(-1.0, costs[2], Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing default bulk access to link segment output values");
+    }
+  }
+
+  /**
+   * Default bulk flow verification only sets the bits of link segments allowing the mode, without consulting the others
+   */
+  @Test
+  public void defaultFillFlowPositiveTest() {
+    try {
+      BitSet flowPositive = new BitSet();
+      flowPositive.set(1);
+      adapter.fillFlowPositive(networkLayer.getLinkSegments(), car, flowPositive);
+      assertTrue(flowPositive.get(0));
+      assertFalse(flowPositive.get(1));
+      assertTrue(flowPositive.get(2));
+      assertFalse(adapter.requestedLinkSegmentIds.contains(1L));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing default bulk flow verification");
+    }
+  }
+
+  /**
+   * Formatters only rely on values collected in bulk for link segments allowing the mode with numeric values, all others are to be obtained per link segment
+   */
+  @Test
+  public void collectLinkSegmentOutputPropertyValuesInBulkTest() {
+    try {
+      OutputProperty[] outputProperties = new OutputProperty[] { OutputProperty.of(OutputPropertyType.FLOW), OutputProperty.of(OutputPropertyType.LINK_SEGMENT_XML_ID) };
+      double[][] bulkValues = TestOutputFormatter.collect(outputProperties, adapter, networkLayer.getLinkSegments(), car);
+
+      assertTrue(TestOutputFormatter.isCollected(bulkValues, 0, 0));
+      assertEquals(10.0, bulkValues[0][0], Precision.EPSILON_6);
+      assertFalse(TestOutputFormatter.isCollected(bulkValues, 0, 1));
+      assertFalse(TestOutputFormatter.isCollected(bulkValues, 0, 2));
+      for (int linkSegmentId = 0; linkSegmentId < 3; ++linkSegmentId) {
+        assertFalse(TestOutputFormatter.isCollected(bulkValues, 1, linkSegmentId));
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing bulk collection of link segment output values");
+    }
+  }
+
+}
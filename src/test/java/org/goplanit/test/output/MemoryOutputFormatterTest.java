@@ -0,0 +1,188 @@
+package org.goplanit.test.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignment;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentBuilder;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.formatter.MemoryOutputIterator;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentType;
+import org.goplanit.utils.network.layer.physical.Nodes;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test the memory output formatter, in particular that the default (and additional) output properties can be stored in its columnar data
+ * 
+ * @author markr
+ *
+ */
+public class MemoryOutputFormatterTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private MacroscopicLinkSegmentType linkSegmentType;
+  private Zoning zoning;
+  private Mode mode;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("MemoryOutputFormatterTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Create demands and populate with OD DEMANDS 1000 A->B
+   * 
+   * @return created demands
+   */
+  private Demands createDemands() {
+    Demands demands = new Demands(testToken);
+    demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+    demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+    demands.userClasses.getFactory().registerNew("dummyUser", mode, demands.travelerTypes.getFirst());
+
+    OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+    odDemands.setValue(zoning.getOdZones().getByXmlId("A"), zoning.getOdZones().getByXmlId("B"), 1000.0);
+    demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), mode, odDemands);
+    return demands;
+  }
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(MemoryOutputFormatterTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  @BeforeEach
+  public void intialise() {
+    // construct the network. 
+    //
+    //     0          1     
+    //  A  *--->------*---->---* B
+    //         0          1
+    //
+    try {
+      GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+
+      network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      for (int index = 0; index < 3; ++index) {
+        var node = networkLayer.getNodes().getFactory().registerNew();
+        node.setXmlId(String.valueOf(index));
+        node.setPosition(geoFactory.createPoint(new Coordinate(index * 1000, 0)));
+      }
+
+      Nodes nodes = networkLayer.getNodes();
+      var links = networkLayer.getLinks();
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true).setXmlId("0");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+
+      linkSegmentType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 180, mode);
+      linkSegmentType.setXmlId("MainType");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentType, true, true).setXmlId("0");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), linkSegmentType, true, true).setXmlId("1");
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("B");
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("0"), zoning.getOdZones().getByXmlId("A"), 0);
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("2"), zoning.getOdZones().getByXmlId("B"), 0);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Regression test: link output with the default properties plus the link segment type id, a textual property whose adapter provides a numeric id, must be stored by the memory
+   * output formatter.
+   * Od output is stored as well and retrievable via its (long) od index.
+   */
+  @Test
+  public void memoryOutputLinkAndOdTest() {
+    try {
+      Demands demands = createDemands();
+
+      TraditionalStaticAssignmentBuilder taBuilder = new TraditionalStaticAssignmentBuilder(network.getIdGroupingToken(), null, demands, zoning, network);
+      taBuilder.getConfigurator().activateOutput(OutputType.LINK).addProperty(OutputPropertyType.LINK_SEGMENT_TYPE_ID);
+      taBuilder.getConfigurator().activateOutput(OutputType.OD);
+      MemoryOutputFormatter memoryOutputFormatter = new MemoryOutputFormatter(network.getIdGroupingToken());
+      taBuilder.getConfigurator().registerOutputFormatter(memoryOutputFormatter);
+
+      TraditionalStaticAssignment assignment = taBuilder.build();
+      assignment.getGapFunction().getStopCriterion().setMaxIterations(2);
+      assignment.execute();
+
+      var timePeriod = demands.timePeriods.getFirst();
+      int iteration = memoryOutputFormatter.getLastIteration();
+
+      /* link output */
+      int flowPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.FLOW);
+      int typeIdPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.LINK_SEGMENT_TYPE_ID);
+      MemoryOutputIterator linkIterator = memoryOutputFormatter.getIterator(mode, timePeriod, iteration, OutputType.LINK);
+      int numberOfRows = 0;
+      while (linkIterator.hasNext()) {
+        linkIterator.next();
+        ++numberOfRows;
+        assertEquals(1000.0, linkIterator.getDoubleValue(flowPosition), Precision.EPSILON_6);
+        assertEquals(String.valueOf(linkSegmentType.getId()), linkIterator.getValues()[typeIdPosition]);
+      }
+      assertEquals(2, numberOfRows);
+
+      for (var linkSegment : networkLayer.getLinkSegments()) {
+        double flow = memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iteration, OutputType.LINK, flowPosition, linkSegment.getId());
+        assertEquals(1000.0, flow, Precision.EPSILON_6);
+      }
+
+      /* od output */
+      int odCostPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.OD, OutputPropertyType.OD_COST);
+      var origin = zoning.getOdZones().getByXmlId("A");
+      var destination = zoning.getOdZones().getByXmlId("B");
+      long odIndex = MemoryOutputFormatter.getOdDenseIndex(origin.getOdZoneId(), destination.getOdZoneId(), zoning.getOdZones().size());
+      double odCost = memoryOutputFormatter.getOutputDataDoubleValue(mode, timePeriod, iteration, OutputType.OD, odCostPosition, odIndex);
+      assertFalse(Double.isNaN(odCost));
+      assertTrue(odCost > 0);
+
+      /* od index is computed in long precision, must not overflow for large zonings */
+      assertEquals(100_000L * 100_000L - 1, MemoryOutputFormatter.getOdDenseIndex(99_999, 99_999, 100_000));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing memory output formatter");
+    }
+  }
+}
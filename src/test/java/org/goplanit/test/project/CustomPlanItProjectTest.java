@@ -0,0 +1,274 @@
+package org.goplanit.test.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import org.goplanit.assignment.TrafficAssignment;
+import org.goplanit.component.event.PlanitComponentEvent;
+import org.goplanit.demands.Demands;
+import org.goplanit.id.SynchronisedIdGenerator;
+import org.goplanit.input.InputBuilderListener;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.formatter.OutputFormatter;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.project.CustomPlanItProject;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the concurrent execution of independent traffic assignments registered on a project
+ *
+ * @author markr
+ *
+ */
+public class CustomPlanItProjectTest {
+
+  private static final int NUMBER_OF_THREADS = 8;
+
+  private static final int IDS_PER_THREAD = 10000;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("CustomPlanItProjectTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Project that records the formatters of each assignment after isolation and the groups of dependent assignments
+   */
+  private static class TestProject extends CustomPlanItProject {
+
+    private final List<List<OutputFormatter>> isolatedOutputFormatters = new ArrayList<>();
+
+    private List<List<TrafficAssignment>> groups;
+
+    TestProject() {
+      super(new InputBuilderListener() {
+        @Override
+        public void onPlanitComponentEvent(PlanitComponentEvent event) {
+          /* inputs are created programmatically, nothing to populate */
+        }
+      });
+    }
+
+    @Override
+    protected void isolateSharedOutputFormatters(final List<TrafficAssignment> trafficAssignments) {
+      super.isolateSharedOutputFormatters(trafficAssignments);
+      trafficAssignments.forEach(ta -> isolatedOutputFormatters.add(new ArrayList<>(ta.getOutputFormatters())));
+    }
+
+    @Override
+    protected List<List<TrafficAssignment>> groupDependentTrafficAssignments(final List<TrafficAssignment> trafficAssignments) {
+      groups = super.groupDependentTrafficAssignments(trafficAssignments);
+      return groups;
+    }
+  }
+
+  /**
+   * Independent inputs of a single assignment, two link segments in sequence from A to B
+   */
+  private class Scenario {
+
+    private final MacroscopicNetwork network;
+    private final MacroscopicNetworkLayer networkLayer;
+    private final Mode mode;
+    private final Zoning zoning;
+    private final Demands demands;
+
+    Scenario(double demandPcuH) {
+      network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      var nodes = networkLayer.getNodes();
+      for (int index = 0; index < 3; ++index) {
+        nodes.getFactory().registerNew().setXmlId(String.valueOf(index));
+      }
+      var links = networkLayer.getLinks();
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true).setXmlId("0");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+      var linkSegmentType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 4000, 180, mode);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkSegmentType, true, true);
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), linkSegmentType, true, true);
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("B");
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("0"), zoning.getOdZones().getByXmlId("A"), 0);
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("2"), zoning.getOdZones().getByXmlId("B"), 0);
+
+      demands = new Demands(testToken);
+      demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+      demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+      demands.userClasses.getFactory().registerNew("dummyUser", mode, demands.travelerTypes.getFirst());
+      OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+      odDemands.setValue(zoning.getOdZones().getByXmlId("A"), zoning.getOdZones().getByXmlId("B"), demandPcuH);
+      demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), mode, odDemands);
+    }
+
+    /**
+     * Collect the flow of each link segment from the last iteration stored in the formatter
+     *
+     * @param memoryOutputFormatter to collect from
+     * @return flows
+     * @throws Exception thrown if error
+     */
+    double[] collectFlows(MemoryOutputFormatter memoryOutputFormatter) throws Exception {
+      int flowPosition = memoryOutputFormatter.getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.FLOW);
+      double[] flows = new double[(int) networkLayer.getLinkSegments().size()];
+      for (var linkSegment : networkLayer.getLinkSegments()) {
+        flows[(int) linkSegment.getId()] = memoryOutputFormatter.getOutputDataDoubleValue(mode, demands.timePeriods.getFirst(), memoryOutputFormatter.getLastIteration(),
+            OutputType.LINK, flowPosition, linkSegment.getId());
+      }
+      return flows;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(CustomPlanItProjectTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  /**
+   * Ids generated concurrently via the synchronised id generator are unique and contiguous
+   */
+  @Test
+  public void synchronisedIdGenerationTest() {
+    final IdGroupingToken token = SynchronisedIdGenerator.createIdGroupingToken("synchronisedIdGenerationTest");
+    final Set<Long> ids = ConcurrentHashMap.newKeySet();
+    final ExecutorService executor = Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < NUMBER_OF_THREADS; ++thread) {
+        futures.add(executor.submit(() -> {
+          for (int index = 0; index < IDS_PER_THREAD; ++index) {
+            ids.add(SynchronisedIdGenerator.generateId(token, CustomPlanItProjectTest.class));
+          }
+        }));
+      }
+      for (var future : futures) {
+        future.get();
+      }
+      assertEquals(NUMBER_OF_THREADS * IDS_PER_THREAD, ids.size());
+      assertEquals(NUMBER_OF_THREADS * IDS_PER_THREAD - 1, ids.stream().mapToLong(Long::longValue).max().getAsLong());
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing synchronised id generation");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Assignments on independent inputs sharing a memory output formatter are executed concurrently on isolated copies of the formatter. The registered formatter ends up with the
+   * results of the last registered assignment, as it would after sequential execution, while the copy holds the results of the other assignment
+   */
+  @Test
+  public void concurrentExecutionWithSharedOutputFormatterTest() {
+    try {
+      final Scenario first = new Scenario(1000);
+      final Scenario second = new Scenario(2000);
+
+      final TestProject project = new TestProject();
+      project.setMaxConcurrentAssignments(2);
+      final MemoryOutputFormatter memoryOutputFormatter = new MemoryOutputFormatter(testToken);
+      for (var scenario : List.of(first, second)) {
+        var configurator = project.createAndRegisterTrafficAssignment(TrafficAssignment.TRADITIONAL_STATIC_ASSIGNMENT, scenario.demands, scenario.zoning, scenario.network);
+        configurator.activateOutput(OutputType.LINK);
+        configurator.registerOutputFormatter(memoryOutputFormatter);
+      }
+
+      project.executeAllTrafficAssignments();
+
+      /* no longer dependent via the shared formatter */
+      assertEquals(2, project.groups.size());
+
+      final var firstFormatter = project.isolatedOutputFormatters.get(0).get(0);
+      assertNotSame(memoryOutputFormatter, firstFormatter);
+      assertTrue(firstFormatter instanceof MemoryOutputFormatter);
+      assertEquals(memoryOutputFormatter.getId(), firstFormatter.getId());
+      assertSame(memoryOutputFormatter, project.isolatedOutputFormatters.get(1).get(0));
+
+      for (double flow : first.collectFlows((MemoryOutputFormatter) firstFormatter)) {
+        assertEquals(1000, flow, Precision.EPSILON_6);
+      }
+      for (double flow : second.collectFlows(memoryOutputFormatter)) {
+        assertEquals(2000, flow, Precision.EPSILON_6);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing concurrent execution with shared output formatter");
+    }
+  }
+
+  /**
+   * Assignments sharing a formatter that does not support isolation remain in the same group
+   */
+  @Test
+  public void nonIsolatableOutputFormatterGroupedTest() {
+    try {
+      final Scenario first = new Scenario(1000);
+      final Scenario second = new Scenario(2000);
+
+      final TestProject project = new TestProject();
+      project.setMaxConcurrentAssignments(2);
+      final MemoryOutputFormatter memoryOutputFormatter = new MemoryOutputFormatter(testToken) {
+        @Override
+        public MemoryOutputFormatter createIsolatedCopy() {
+          return null;
+        }
+      };
+      for (var scenario : List.of(first, second)) {
+        var configurator = project.createAndRegisterTrafficAssignment(TrafficAssignment.TRADITIONAL_STATIC_ASSIGNMENT, scenario.demands, scenario.zoning, scenario.network);
+        configurator.registerOutputFormatter(memoryOutputFormatter);
+      }
+
+      project.executeAllTrafficAssignments();
+
+      assertEquals(1, project.groups.size());
+      assertSame(memoryOutputFormatter, project.isolatedOutputFormatters.get(0).get(0));
+      assertSame(memoryOutputFormatter, project.isolatedOutputFormatters.get(1).get(0));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing concurrent execution with non isolatable output formatter");
+    }
+  }
+
+}
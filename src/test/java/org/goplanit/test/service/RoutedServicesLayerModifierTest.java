@@ -0,0 +1,250 @@
+package org.goplanit.test.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Logger;
+
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.ServiceNetwork;
+import org.goplanit.service.routed.RoutedServices;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.ServiceNetworkLayer;
+import org.goplanit.utils.network.layer.service.ServiceLegSegment;
+import org.goplanit.utils.service.routed.RoutedService;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.service.routed.RoutedTripSchedule;
+import org.goplanit.utils.time.ExtendedLocalTime;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the consolidation and clean-up of trip schedules via the routed services layer modifier
+ *
+ * @author markr
+ *
+ */
+public class RoutedServicesLayerModifierTest {
+
+  private Mode mode;
+  private ServiceNetworkLayer serviceLayer;
+  private RoutedServicesLayer routedServicesLayer;
+  private ServiceLegSegment legSegmentAb;
+  private ServiceLegSegment legSegmentBc;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("RoutedServicesLayerModifierTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Register a trip schedule on the service with the given leg timings, each leg timing consisting of a leg segment, duration and dwell time
+   *
+   * @param service    to register on
+   * @param externalId of the schedule
+   * @param legTimings leg segment, duration and dwell time triplets in order
+   * @param departures of the schedule
+   * @return created schedule
+   */
+  private RoutedTripSchedule createSchedule(RoutedService service, String externalId, Object[][] legTimings, LocalTime... departures) {
+    RoutedTripSchedule schedule = service.getTripInfo().getScheduleBasedTrips().getFactory().registerNew();
+    schedule.setExternalId(externalId);
+    for (var legTiming : legTimings) {
+      schedule.addRelativeLegSegmentTiming((ServiceLegSegment) legTiming[0], (LocalTime) legTiming[1], (LocalTime) legTiming[2]);
+    }
+    for (LocalTime departure : departures) {
+      schedule.getDepartures().getFactory().registerNew(ExtendedLocalTime.of(departure));
+    }
+    return schedule;
+  }
+
+  /**
+   * Collect the departure times of a schedule
+   *
+   * @param schedule to collect from
+   * @return departure times in nanoseconds of the extended day
+   */
+  private static Set<Long> collectDepartureTimes(RoutedTripSchedule schedule) {
+    Set<Long> departureTimes = new TreeSet<>();
+    schedule.getDepartures().forEach(departure -> departureTimes.add(departure.getDepartureTime().toNanoOfExtendedDay()));
+    return departureTimes;
+  }
+
+  /**
+   * Collect departure times in nanoseconds of the extended day
+   *
+   * @param departures to convert
+   * @return departure times
+   */
+  private static Set<Long> toDepartureTimes(LocalTime... departures) {
+    Set<Long> departureTimes = new TreeSet<>();
+    for (var departure : departures) {
+      departureTimes.add(ExtendedLocalTime.of(departure).toNanoOfExtendedDay());
+    }
+    return departureTimes;
+  }
+
+  /**
+   * Find schedule of service by external id
+   *
+   * @param service    to search
+   * @param externalId to search for
+   * @return schedule, null if not found
+   */
+  private static RoutedTripSchedule findSchedule(RoutedService service, String externalId) {
+    for (var schedule : service.getTripInfo().getScheduleBasedTrips()) {
+      if (schedule.getExternalId().equals(externalId)) {
+        return schedule;
+      }
+    }
+    return null;
+  }
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(RoutedServicesLayerModifierTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  /**
+   * Single line A->B->C on top of two physical links
+   *
+   *  A *------>* B *------>* C
+   */
+  @BeforeEach
+  public void intialise() {
+    try {
+      var network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.BUS);
+      var networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      var nodes = networkLayer.getNodes();
+      for (int index = 0; index < 3; ++index) {
+        nodes.getFactory().registerNew().setXmlId(String.valueOf(index));
+      }
+      var linkType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 80, mode);
+      var linkAb = networkLayer.getLinks().getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true);
+      var linkBc = networkLayer.getLinks().getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true);
+      var linkSegmentAb = networkLayer.getLinkSegments().getFactory().registerNew(linkAb, linkType, true, true);
+      var linkSegmentBc = networkLayer.getLinkSegments().getFactory().registerNew(linkBc, linkType, true, true);
+
+      ServiceNetwork serviceNetwork = new ServiceNetwork(testToken, network);
+      serviceLayer = serviceNetwork.getTransportLayers().getFactory().registerNew(networkLayer);
+      var stopA = serviceLayer.getServiceNodes().getFactory().registerNew();
+      var stopB = serviceLayer.getServiceNodes().getFactory().registerNew();
+      var stopC = serviceLayer.getServiceNodes().getFactory().registerNew();
+      var legAb = serviceLayer.getLegs().getFactory().registerNew(stopA, stopB, true);
+      var legBc = serviceLayer.getLegs().getFactory().registerNew(stopB, stopC, true);
+      legSegmentAb = serviceLayer.getLegSegments().getFactory().registerNew(legAb, true, List.of(linkSegmentAb), true);
+      legSegmentBc = serviceLayer.getLegSegments().getFactory().registerNew(legBc, true, List.of(linkSegmentBc), true);
+
+      RoutedServices routedServices = new RoutedServices(testToken, serviceNetwork);
+      routedServicesLayer = routedServices.getLayers().getFactory().registerNew(serviceLayer);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Only schedules with identical leg segments, durations and dwell times in the same order are consolidated into the first such schedule of the same service, which then holds
+   * all their departures and external ids
+   */
+  @Test
+  public void consolidateIdenticallyScheduledTripsTest() {
+    try {
+      final LocalTime fiveMinutes = LocalTime.of(0, 5);
+      final LocalTime sixMinutes = LocalTime.of(0, 6);
+      final LocalTime oneMinute = LocalTime.of(0, 1);
+      var service = routedServicesLayer.getServicesByMode(mode).getFactory().registerNew();
+      var reference = new Object[][] { { legSegmentAb, fiveMinutes, LocalTime.MIN }, { legSegmentBc, sixMinutes, LocalTime.MIN } };
+      var s1 = createSchedule(service, "s1", reference, LocalTime.of(8, 0));
+      createSchedule(service, "s2", reference, LocalTime.of(8, 30));
+      /* different duration */
+      createSchedule(service, "s3", new Object[][] { { legSegmentAb, sixMinutes, LocalTime.MIN }, { legSegmentBc, sixMinutes, LocalTime.MIN } }, LocalTime.of(9, 0));
+      /* different dwell time */
+      createSchedule(service, "s4", new Object[][] { { legSegmentAb, fiveMinutes, oneMinute }, { legSegmentBc, sixMinutes, LocalTime.MIN } }, LocalTime.of(9, 30));
+      /* durations swapped across legs, i.e., same values in a different order */
+      createSchedule(service, "s5", new Object[][] { { legSegmentAb, sixMinutes, LocalTime.MIN }, { legSegmentBc, fiveMinutes, LocalTime.MIN } }, LocalTime.of(10, 0));
+      /* fewer legs */
+      createSchedule(service, "s6", new Object[][] { { legSegmentAb, fiveMinutes, LocalTime.MIN } }, LocalTime.of(10, 30));
+      createSchedule(service, "s7", reference, LocalTime.of(11, 0));
+
+      /* identical timings on another service are not consolidated */
+      var otherService = routedServicesLayer.getServicesByMode(mode).getFactory().registerNew();
+      createSchedule(otherService, "o1", reference, LocalTime.of(12, 0));
+
+      routedServicesLayer.getLayerModifier().consolidateIdenticallyScheduledTrips(mode);
+
+      var schedules = service.getTripInfo().getScheduleBasedTrips();
+      assertEquals(5, schedules.size());
+      assertSame(s1, findSchedule(service, s1.getExternalId()));
+      assertEquals(toDepartureTimes(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(11, 0)), collectDepartureTimes(s1));
+      /* external ids of consolidated schedules are appended to the reference schedule */
+      assertEquals(Set.of("s1", "s2", "s7"), Set.of(s1.getExternalId().split(",")));
+      for (var externalId : new String[] { "s3", "s4", "s5", "s6" }) {
+        var schedule = findSchedule(service, externalId);
+        assertNotNull(schedule);
+        assertEquals(1, schedule.getDepartures().size());
+      }
+
+      assertEquals(1, otherService.getTripInfo().getScheduleBasedTrips().size());
+      assertEquals(toDepartureTimes(LocalTime.of(12, 0)), collectDepartureTimes(findSchedule(otherService, "o1")));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing consolidation of identically scheduled trips");
+    }
+  }
+
+  /**
+   * Duplicate departure times are removed, retaining a single departure per time, while schedules without duplicates are left untouched
+   */
+  @Test
+  public void removeDuplicateTripDeparturesTest() {
+    try {
+      var service = routedServicesLayer.getServicesByMode(mode).getFactory().registerNew();
+      var legTimings = new Object[][] { { legSegmentAb, LocalTime.of(0, 5), LocalTime.MIN } };
+      var withDuplicates = createSchedule(service, "d", legTimings, LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(8, 0), LocalTime.of(9, 0), LocalTime.of(8, 30),
+          LocalTime.of(8, 0));
+      var withoutDuplicates = createSchedule(service, "u", legTimings, LocalTime.of(9, 0), LocalTime.of(8, 0));
+
+      routedServicesLayer.getLayerModifier().removeDuplicateTripDepartures(true);
+
+      assertEquals(3, withDuplicates.getDepartures().size());
+      assertEquals(toDepartureTimes(LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0)), collectDepartureTimes(withDuplicates));
+      assertEquals(2, withoutDuplicates.getDepartures().size());
+      assertEquals(toDepartureTimes(LocalTime.of(8, 0), LocalTime.of(9, 0)), collectDepartureTimes(withoutDuplicates));
+
+      /* departure ids recreated, so unique */
+      Set<Long> departureIds = new TreeSet<>();
+      for (var schedule : service.getTripInfo().getScheduleBasedTrips()) {
+        schedule.getDepartures().forEach(departure -> assertTrue(departureIds.add(departure.getId())));
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing removal of duplicate trip departures");
+    }
+  }
+
+}
@@ -7,6 +7,9 @@ import org.goplanit.assignment.ltm.sltm.StaticLtm;
 import org.goplanit.assignment.ltm.sltm.StaticLtmConfigurator;
 import org.goplanit.assignment.ltm.sltm.StaticLtmTrafficAssignmentBuilder;
 import org.goplanit.assignment.ltm.sltm.StaticLtmType;
+import org.goplanit.assignment.metrics.AssignmentCounter;
+import org.goplanit.assignment.metrics.AssignmentMetrics;
+import org.goplanit.assignment.metrics.AssignmentPhase;
 import org.goplanit.demands.Demands;
 import org.goplanit.logging.Logging;
 import org.goplanit.network.MacroscopicNetwork;
@@ -33,6 +36,7 @@ import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -247,6 +251,45 @@ public class sLtmAssignmentSingleOdTest1 {
     }
   }
 
+  /**
+   * Node model calls and iterations are recorded in the assignment metrics when collected, while all metrics remain zero when not collected
+   */
+  @Test
+  public void sLtmMetricsTest() {
+    try {
+      for (boolean collectMetrics : new boolean[] { true, false }) {
+        StaticLtmTrafficAssignmentBuilder sLTMBuilder = new StaticLtmTrafficAssignmentBuilder(network.getIdGroupingToken(), null, createDemands(), zoning, network);
+        ((StaticLtmConfigurator) sLTMBuilder.getConfigurator()).disableLinkStorageConstraints(StaticLtmConfigurator.DEFAULT_DISABLE_LINK_STORAGE_CONSTRAINTS);
+        ((StaticLtmConfigurator) sLTMBuilder.getConfigurator()).setType(StaticLtmType.ORIGIN_BUSH_BASED);
+        sLTMBuilder.getConfigurator().setCollectMetrics(collectMetrics);
+
+        StaticLtm sLTM = sLTMBuilder.build();
+        sLTM.getGapFunction().getStopCriterion().setEpsilon(Precision.EPSILON_9);
+        sLTM.getGapFunction().getStopCriterion().setMaxIterations(1000);
+        sLTM.execute();
+
+        AssignmentMetrics metrics = sLTM.getMetrics();
+        assertEquals(collectMetrics, metrics.isEnabled());
+        if (collectMetrics) {
+          assertTrue(metrics.getCount(AssignmentCounter.NODE_MODEL_CALLS) > 0);
+          assertTrue(metrics.getCount(AssignmentCounter.ITERATIONS) > 0);
+          assertTrue(metrics.getPhaseCalls(AssignmentPhase.GAP_COMPUTATION) > 0);
+        } else {
+          for (var counter : AssignmentCounter.values()) {
+            assertEquals(0, metrics.getCount(counter));
+          }
+          for (var phase : AssignmentPhase.values()) {
+            assertEquals(0, metrics.getPhaseCalls(phase));
+            assertEquals(0, metrics.getPhaseNanos(phase));
+          }
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing sLTM metrics");
+    }
+  }
+
   /**
    * Test sLTM bush-origin based assignment on above network for a point queue model
    */
@@ -0,0 +1,98 @@
+package org.goplanit.test.traditionalstatic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.goplanit.assignment.traditionalstatic.FlowStoragePrecision;
+import org.goplanit.assignment.traditionalstatic.ModeData;
+import org.goplanit.sdinteraction.smoothing.MSASmoothing;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.math.Precision;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the storage of mode specific segment flows of the traditional static assignment in single and double precision
+ *
+ * @author markr
+ *
+ */
+public class ModeDataTest {
+
+  /** relative tolerance of single precision storage, roughly seven significant digits */
+  private static final double FLOAT_RELATIVE_TOLERANCE = 1e-6;
+
+  /** number of smoothing iterations to accumulate rounding errors over */
+  private static final int NUMBER_OF_ITERATIONS = 200;
+
+  /** initial flows of varying magnitude */
+  private static final double[] INITIAL_FLOWS = new double[] { 0, 0.123456789, 1234.56789012, 98765.4321098, 3000 };
+
+  /**
+   * Assert that single precision flows match double precision flows within the relative tolerance
+   *
+   * @param doubleModeData reference
+   * @param floatModeData  to verify
+   */
+  private static void assertWithinFloatTolerance(ModeData doubleModeData, ModeData floatModeData) {
+    for (int index = 0; index < doubleModeData.getNumberOfSegments(); ++index) {
+      final double expected = doubleModeData.getCurrentSegmentFlow(index);
+      assertEquals(expected, floatModeData.getCurrentSegmentFlow(index), Math.max(Precision.EPSILON_6, Math.abs(expected) * FLOAT_RELATIVE_TOLERANCE));
+    }
+  }
+
+  /**
+   * Single precision storage retains the initial flows within tolerance of double precision storage at a smaller footprint, without holding on to the initial flows
+   */
+  @Test
+  public void floatStorageTest() {
+    final double[] initialFlows = INITIAL_FLOWS.clone();
+    ModeData doubleModeData = new ModeData(initialFlows, FlowStoragePrecision.DOUBLE);
+    ModeData floatModeData = new ModeData(initialFlows, FlowStoragePrecision.FLOAT);
+
+    assertEquals(FlowStoragePrecision.FLOAT, floatModeData.getPrecision());
+    assertEquals(INITIAL_FLOWS.length, floatModeData.getNumberOfSegments());
+    assertTrue(floatModeData.getEstimatedFlowBytes() < doubleModeData.getEstimatedFlowBytes());
+    assertWithinFloatTolerance(doubleModeData, floatModeData);
+
+    /* collected flows are a double precision copy, modifying them or the initial flows does not affect the storage */
+    double[] collectedFlows = floatModeData.getCurrentSegmentFlows();
+    assertNotSame(collectedFlows, floatModeData.getCurrentSegmentFlows());
+    collectedFlows[1] = -1;
+    initialFlows[1] = -1;
+    assertEquals(INITIAL_FLOWS[1], floatModeData.getCurrentSegmentFlow(1), Precision.EPSILON_6);
+
+    double[] costs = new double[] { 1, 2, 3, 4, 5 };
+    assertEquals(doubleModeData.dotProductCurrentSegmentFlows(costs), floatModeData.dotProductCurrentSegmentFlows(costs),
+        Math.abs(doubleModeData.dotProductCurrentSegmentFlows(costs)) * FLOAT_RELATIVE_TOLERANCE);
+  }
+
+  /**
+   * Repeated MSA smoothing is applied in place, i.e., on the existing storage, and the single precision results remain within tolerance of the double precision results
+   */
+  @Test
+  public void floatStorageSmoothingTest() {
+    ModeData doubleModeData = new ModeData(INITIAL_FLOWS, FlowStoragePrecision.DOUBLE);
+    ModeData floatModeData = new ModeData(INITIAL_FLOWS, FlowStoragePrecision.FLOAT);
+    final double[] doubleStorage = doubleModeData.getCurrentSegmentFlows();
+
+    MSASmoothing smoothing = new MSASmoothing(IdGenerator.createIdGroupingToken("ModeDataTest"));
+    for (int iteration = 0; iteration < NUMBER_OF_ITERATIONS; ++iteration) {
+      smoothing.updateStep(iteration + 1);
+      for (var modeData : new ModeData[] { doubleModeData, floatModeData }) {
+        modeData.resetNextNetworkSegmentFlows();
+        /* alternate all-or-nothing like loadings between segments */
+        modeData.addToNextSegmentFlows(iteration % modeData.getNumberOfSegments(), 3000.0 / 7);
+        modeData.addToNextSegmentFlows((iteration + 2) % modeData.getNumberOfSegments(), 1234.56789);
+        modeData.smoothCurrentSegmentFlows(smoothing::execute);
+      }
+      assertWithinFloatTolerance(doubleModeData, floatModeData);
+    }
+
+    /* smoothed in place */
+    assertSame(doubleStorage, doubleModeData.getCurrentSegmentFlows());
+    assertEquals(INITIAL_FLOWS.length, floatModeData.getNumberOfSegments());
+  }
+
+}
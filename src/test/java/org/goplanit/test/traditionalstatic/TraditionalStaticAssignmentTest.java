@@ -0,0 +1,455 @@
+package org.goplanit.test.traditionalstatic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.assignment.ltm.sltm.StaticLtm;
+import org.goplanit.assignment.ltm.sltm.StaticLtmTrafficAssignmentBuilder;
+import org.goplanit.assignment.metrics.AssignmentCounter;
+import org.goplanit.assignment.metrics.AssignmentMetrics;
+import org.goplanit.assignment.metrics.AssignmentPhase;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignment;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentBuilder;
+import org.goplanit.assignment.traditionalstatic.TraditionalStaticAssignmentConfigurator;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.MacroscopicNetworkScenarioOverlay;
+import org.goplanit.network.layer.macroscopic.AccessGroupPropertiesFactory;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.output.enums.OutputType;
+import org.goplanit.output.formatter.MemoryOutputFormatter;
+import org.goplanit.output.property.OutputPropertyType;
+import org.goplanit.utils.exceptions.PlanItException;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegmentTypes;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinks;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.physical.Nodes;
+import org.goplanit.utils.zoning.OdZones;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test the traditional static assignment on a network with two identical parallel routes
+ * 
+ * @author markr
+ *
+ */
+public class TraditionalStaticAssignmentTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private Zoning zoning;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("TraditionalStaticAssignmentTest");
+
+  /** demand from A to A` in pcu/h */
+  private static final double DEMAND_PCU_H = 3000;
+
+  /** maximum number of iterations, MSA converges slowly */
+  private static final int MAX_ITERATIONS = 500;
+
+  /** tolerance in pcu/h on route volumes compared to the analytical equilibrium */
+  private static final double VOLUME_TOLERANCE_PCU_H = 50;
+
+  /** gap to converge warm and cold started time periods to, loose enough for MSA to converge well within the maximum number of iterations */
+  private static final double WARM_START_EPSILON = 0.01;
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /**
+   * Create demands an populate with OD DEMANDS 3000 A->A`
+   * 
+   * @return created demands
+   */
+  private Demands createDemands() {
+    Demands demands = new Demands(testToken);
+    demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+    demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+    demands.userClasses.getFactory().registerNew("dummyUser", network.getModes().get(PredefinedModeType.CAR), demands.travelerTypes.getFirst());
+
+    OdZones odZones = zoning.getOdZones();
+    OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+    odDemands.setValue(odZones.getByXmlId("A"), odZones.getByXmlId("A`"), DEMAND_PCU_H);
+    demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), network.getModes().get(PredefinedModeType.CAR), odDemands);
+
+    return demands;
+  }
+
+  /**
+   * Create demands with two consecutive time periods, each with OD DEMANDS 3000 A->A`
+   * 
+   * @return created demands
+   */
+  private Demands createTwoTimePeriodDemands() {
+    Demands demands = createDemands();
+    var secondTimePeriod = demands.timePeriods.getFactory().registerNew("dummyTimePeriod2", 3600, 3600);
+    demands.registerOdDemandPcuHour(secondTimePeriod, network.getModes().get(PredefinedModeType.CAR),
+        demands.get(network.getModes().get(PredefinedModeType.CAR), demands.timePeriods.getFirst()));
+    return demands;
+  }
+
+  /**
+   * Create demands with OD DEMANDS 2000 A->A` by car and 600 A->A` by bus
+   * 
+   * @return created demands
+   */
+  private Demands createMultiModeDemands() {
+    Demands demands = new Demands(testToken);
+    demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+    demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+
+    OdZones odZones = zoning.getOdZones();
+    for (var modeDemand : new Object[][] { { PredefinedModeType.CAR, 2000.0 }, { PredefinedModeType.BUS, 600.0 } }) {
+      var mode = network.getModes().get((PredefinedModeType) modeDemand[0]);
+      demands.userClasses.getFactory().registerNew("dummyUser" + mode.getId(), mode, demands.travelerTypes.getFirst());
+      OdDemands odDemands = new OdDemandMatrix(odZones);
+      odDemands.setValue(odZones.getByXmlId("A"), odZones.getByXmlId("A`"), (Double) modeDemand[1]);
+      demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), mode, odDemands);
+    }
+    return demands;
+  }
+
+  /**
+   * Build a traditional static assignment without outputs on the network
+   * 
+   * @param demands to use
+   * @return created assignment
+   * @throws PlanItException thrown if error
+   */
+  private TraditionalStaticAssignment createAssignment(Demands demands) throws PlanItException {
+    TraditionalStaticAssignmentBuilder builder = new TraditionalStaticAssignmentBuilder(network.getIdGroupingToken(), null, demands, zoning, network);
+    builder.getConfigurator().deactivateOutput(OutputType.LINK);
+    TraditionalStaticAssignment assignment = builder.build();
+    assignment.getGapFunction().getStopCriterion().setEpsilon(Precision.EPSILON_9);
+    assignment.getGapFunction().getStopCriterion().setMaxIterations(MAX_ITERATIONS);
+    return assignment;
+  }
+
+  /**
+   * Collect link segment of link with given XML id
+   * 
+   * @param linkXmlId to collect ab segment for
+   * @return link segment
+   */
+  private MacroscopicLinkSegment getLinkSegment(String linkXmlId) {
+    return networkLayer.getLinks().getByXmlId(linkXmlId).getLinkSegmentAb();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(TraditionalStaticAssignmentTest.class);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  @BeforeEach
+  public void intialise() {
+    // construct the network with two identical routes, upper via link 1 and lower via link 3, only links 1 and 3 are congestible
+    //
+    //                 2
+    //           1   /   \  2
+    //     0        /     \       5
+    //  A *--->----* 1     4 *--->---* A'
+    //              \     /
+    //           3   \   /  4
+    //                 3
+    
+    try {
+      // local CRS in meters
+      GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+      
+      network = new MacroscopicNetwork(testToken);
+      network.getModes().getFactory().registerNew(PredefinedModeType.CAR);
+      network.getModes().getFactory().registerNew(PredefinedModeType.BUS);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(network.getModes().get(PredefinedModeType.CAR), network.getModes().get(PredefinedModeType.BUS));
+
+      {
+        Coordinate[] coordinates = new Coordinate[] {
+            new Coordinate(0, 0), new Coordinate(1000, 0), new Coordinate(1500, 500), new Coordinate(1500, -500), new Coordinate(2000, 0), new Coordinate(3000, 0)};
+        for(int index = 0; index < coordinates.length; ++index) {
+          Node node = networkLayer.getNodes().getFactory().registerNew();
+          node.setXmlId(String.valueOf(index));
+          node.setPosition(geoFactory.createPoint(coordinates[index]));
+        }
+      }
+      
+      Nodes nodes = networkLayer.getNodes();
+      MacroscopicLinks links = networkLayer.getLinks();
+      //links
+      links.getFactory().registerNew(nodes.getByXmlId("0"), nodes.getByXmlId("1"), 1, true).setXmlId("0");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("2"), 1, true).setXmlId("1");
+      links.getFactory().registerNew(nodes.getByXmlId("2"), nodes.getByXmlId("4"), 1, true).setXmlId("2");
+      links.getFactory().registerNew(nodes.getByXmlId("1"), nodes.getByXmlId("3"), 1, true).setXmlId("3");
+      links.getFactory().registerNew(nodes.getByXmlId("3"), nodes.getByXmlId("4"), 1, true).setXmlId("4");
+      links.getFactory().registerNew(nodes.getByXmlId("4"), nodes.getByXmlId("5"), 1, true).setXmlId("5");
+      
+      MacroscopicLinkSegmentTypes linkTypes = networkLayer.getLinkSegmentTypes();
+      linkTypes.getFactory().registerNew("MainType", 2000, 180, network.getModes().getFirst()).setXmlId("MainType");
+      linkTypes.getFactory().registerNew("ConnectorType", 100000, 180, network.getModes().getFirst()).setXmlId("ConnectorType");
+      for (var linkType : linkTypes) {
+        linkType.addAccessGroupProperties(AccessGroupPropertiesFactory.create(network.getModes().get(PredefinedModeType.BUS)));
+      }
+
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("0"), linkTypes.getByXmlId("ConnectorType"), true, true).setXmlId("0");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("1"), linkTypes.getByXmlId("MainType"), true, true).setXmlId("1");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("2"), linkTypes.getByXmlId("ConnectorType"), true, true).setXmlId("2");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("3"), linkTypes.getByXmlId("MainType"), true, true).setXmlId("3");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("4"), linkTypes.getByXmlId("ConnectorType"), true, true).setXmlId("4");
+      networkLayer.getLinkSegments().getFactory().registerNew(links.getByXmlId("5"), linkTypes.getByXmlId("ConnectorType"), true, true).setXmlId("5");
+              
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A");
+      zoning.getOdZones().getFactory().registerNew().setXmlId("A`");
+           
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("0"),  zoning.getOdZones().getByXmlId("A"), 0);
+      zoning.getOdConnectoids().getFactory().registerNew(nodes.getByXmlId("5"),  zoning.getOdZones().getByXmlId("A`"), 0);
+                      
+    }catch(Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Without a scenario overlay both identical routes carry half the demand
+   */
+  @Test
+  public void withoutScenarioOverlayTest() {
+    try {
+      TraditionalStaticAssignment assignment = createAssignment(createDemands());
+      assignment.execute();
+
+      assertEquals(DEMAND_PCU_H / 2, assignment.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(DEMAND_PCU_H / 2, assignment.getLinkSegmentVolume(getLinkSegment("3")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(DEMAND_PCU_H, assignment.getLinkSegmentVolume(getLinkSegment("5")), Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing traditional static assignment without scenario overlay");
+    }
+  }
+
+  /**
+   * A scenario overlay closing the upper route shifts all demand to the lower route, without modifying the network, so a subsequent assignment without overlay is unaffected
+   */
+  @Test
+  public void scenarioOverlayClosureTest() {
+    try {
+      MacroscopicNetworkScenarioOverlay overlay = new MacroscopicNetworkScenarioOverlay(network);
+      overlay.closeLinkSegment(getLinkSegment("1"));
+
+      TraditionalStaticAssignment assignment = createAssignment(createDemands());
+      assignment.setScenarioOverlay(overlay);
+      assignment.execute();
+
+      assertEquals(0, assignment.getLinkSegmentVolume(getLinkSegment("1")), Precision.EPSILON_6);
+      assertEquals(DEMAND_PCU_H, assignment.getLinkSegmentVolume(getLinkSegment("3")), Precision.EPSILON_6);
+
+      /* base network is untouched */
+      TraditionalStaticAssignment baseAssignment = createAssignment(createDemands());
+      baseAssignment.execute();
+      assertEquals(DEMAND_PCU_H / 2, baseAssignment.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing traditional static assignment with closure in scenario overlay");
+    }
+  }
+
+  /**
+   * A scenario overlay halving the capacity of the upper route yields the BPR equilibrium where the lower route carries twice the volume of the upper route
+   */
+  @Test
+  public void scenarioOverlayCapacityTest() {
+    try {
+      MacroscopicNetworkScenarioOverlay overlay = new MacroscopicNetworkScenarioOverlay(network);
+      overlay.setCapacityPcuH(getLinkSegment("1"), 1000);
+
+      TraditionalStaticAssignment assignment = createAssignment(createDemands());
+      assignment.setScenarioOverlay(overlay);
+      assignment.execute();
+
+      /* equal free flow times and BPR parameters, so equilibrium requires equal volume to capacity ratios: 1000/1000 = 2000/2000 */
+      assertEquals(DEMAND_PCU_H / 3, assignment.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(2 * DEMAND_PCU_H / 3, assignment.getLinkSegmentVolume(getLinkSegment("3")), VOLUME_TOLERANCE_PCU_H);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing traditional static assignment with capacity change in scenario overlay");
+    }
+  }
+
+  /**
+   * Warm starting the second of two identical time periods from the converged flows of the first requires fewer iterations than starting it from scratch and retains the
+   * converged equilibrium, i.e., the lower route carries twice the volume of the upper route with half its capacity
+   */
+  @Test
+  public void warmStartTest() {
+    try {
+      var halfCapacityType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("HalfCapacityType", 1000, 180, network.getModes().getFirst());
+      getLinkSegment("1").setLinkSegmentType(halfCapacityType);
+
+      TraditionalStaticAssignment coldAssignment = createAssignment(createTwoTimePeriodDemands());
+      coldAssignment.getGapFunction().getStopCriterion().setEpsilon(WARM_START_EPSILON);
+      coldAssignment.execute();
+      int coldIterations = coldAssignment.getIterationIndex();
+
+      TraditionalStaticAssignment warmAssignment = createAssignment(createTwoTimePeriodDemands());
+      warmAssignment.getGapFunction().getStopCriterion().setEpsilon(WARM_START_EPSILON);
+      warmAssignment.setWarmStartTimePeriods(true);
+      warmAssignment.execute();
+      int warmIterations = warmAssignment.getIterationIndex();
+
+      /* iterations of the second, i.e., last, time period */
+      assertTrue(coldIterations < MAX_ITERATIONS);
+      assertTrue(warmIterations < coldIterations);
+
+      assertEquals(DEMAND_PCU_H / 3, warmAssignment.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(2 * DEMAND_PCU_H / 3, warmAssignment.getLinkSegmentVolume(getLinkSegment("3")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(coldAssignment.getLinkSegmentVolume(getLinkSegment("1")), warmAssignment.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(DEMAND_PCU_H, warmAssignment.getLinkSegmentVolume(getLinkSegment("5")), Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing warm started time periods");
+    }
+  }
+
+  /**
+   * Simultaneous multi-class loading loads all modes on the costs of the previous iteration, as does sequential loading, so both yield the same modal volumes, gap and number of
+   * iterations
+   */
+  @Test
+  public void simultaneousMultiClassLoadingTest() {
+    try {
+      var halfCapacityType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("HalfCapacityType", 1000, 180, network.getModes().get(PredefinedModeType.CAR));
+      halfCapacityType.addAccessGroupProperties(AccessGroupPropertiesFactory.create(network.getModes().get(PredefinedModeType.BUS)));
+      getLinkSegment("1").setLinkSegmentType(halfCapacityType);
+
+      MemoryOutputFormatter[] memoryOutputFormatters = new MemoryOutputFormatter[2];
+      TraditionalStaticAssignment[] assignments = new TraditionalStaticAssignment[2];
+      for (int index = 0; index < 2; ++index) {
+        memoryOutputFormatters[index] = new MemoryOutputFormatter(network.getIdGroupingToken());
+        TraditionalStaticAssignmentBuilder builder = new TraditionalStaticAssignmentBuilder(network.getIdGroupingToken(), null, createMultiModeDemands(), zoning, network);
+        ((TraditionalStaticAssignmentConfigurator) builder.getConfigurator()).setSimultaneousMultiClassLoading(index == 1);
+        builder.getConfigurator().activateOutput(OutputType.LINK);
+        builder.getConfigurator().registerOutputFormatter(memoryOutputFormatters[index]);
+        assignments[index] = builder.build();
+        assignments[index].getGapFunction().getStopCriterion().setEpsilon(Precision.EPSILON_9);
+        assignments[index].getGapFunction().getStopCriterion().setMaxIterations(MAX_ITERATIONS);
+        assignments[index].execute();
+      }
+      var sequential = assignments[0];
+      var simultaneous = assignments[1];
+
+      assertEquals(sequential.getIterationIndex(), simultaneous.getIterationIndex());
+      assertEquals(sequential.getGapFunction().getGap(), simultaneous.getGapFunction().getGap(), Precision.EPSILON_9);
+
+      var timePeriod = sequential.getDemands().timePeriods.getFirst();
+      int flowPosition = memoryOutputFormatters[0].getPositionOfOutputValueProperty(OutputType.LINK, OutputPropertyType.FLOW);
+      for (var mode : network.getModes()) {
+        for (var linkSegment : networkLayer.getLinkSegments()) {
+          final int id = (int) linkSegment.getId();
+          double sequentialFlow = memoryOutputFormatters[0].getOutputDataDoubleValue(mode, timePeriod, memoryOutputFormatters[0].getLastIteration(), OutputType.LINK,
+              flowPosition, id);
+          double simultaneousFlow = memoryOutputFormatters[1].getOutputDataDoubleValue(mode, simultaneous.getDemands().timePeriods.getFirst(),
+              memoryOutputFormatters[1].getLastIteration(), OutputType.LINK, flowPosition, id);
+          assertEquals(sequentialFlow, simultaneousFlow, Precision.EPSILON_6);
+        }
+      }
+
+      /* equilibrium requires equal volume to capacity ratios across both routes over all modes */
+      assertEquals((2000.0 + 600.0) / 3, simultaneous.getLinkSegmentVolume(getLinkSegment("1")), VOLUME_TOLERANCE_PCU_H);
+      assertEquals(sequential.getLinkSegmentVolume(getLinkSegment("3")), simultaneous.getLinkSegmentVolume(getLinkSegment("3")), Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing simultaneous multi-class loading");
+    }
+  }
+
+  /**
+   * When collected, the metrics record an iteration, a shortest path search (single origin) and a loading per iteration, when not collected all metrics remain zero
+   */
+  @Test
+  public void metricsTest() {
+    try {
+      for (boolean collectMetrics : new boolean[] { true, false }) {
+        TraditionalStaticAssignment assignment = createAssignment(createDemands());
+        assignment.setCollectMetrics(collectMetrics);
+        assignment.execute();
+
+        AssignmentMetrics metrics = assignment.getMetrics();
+        if (collectMetrics) {
+          final long iterations = assignment.getIterationIndex();
+          assertTrue(iterations > 0);
+          assertEquals(iterations, metrics.getCount(AssignmentCounter.ITERATIONS));
+          assertEquals(iterations, metrics.getCount(AssignmentCounter.SHORTEST_PATH_SEARCHES));
+          assertEquals(iterations, metrics.getPhaseCalls(AssignmentPhase.LOADING));
+          assertEquals(iterations, metrics.getPhaseCalls(AssignmentPhase.AON_SEARCH));
+          assertEquals(0, metrics.getCount(AssignmentCounter.NODE_MODEL_CALLS));
+        } else {
+          for (var counter : AssignmentCounter.values()) {
+            assertEquals(0, metrics.getCount(counter));
+          }
+          for (var phase : AssignmentPhase.values()) {
+            assertEquals(0, metrics.getPhaseCalls(phase));
+            assertEquals(0, metrics.getPhaseNanos(phase));
+          }
+        }
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing traditional static assignment metrics");
+    }
+  }
+
+  /**
+   * sLTM reads capacities from the network directly during loading, so a non-empty scenario overlay is rejected rather than silently ignored
+   */
+  @Test
+  public void scenarioOverlayRejectedTest() {
+    try {
+      MacroscopicNetworkScenarioOverlay overlay = new MacroscopicNetworkScenarioOverlay(network);
+      overlay.closeLinkSegment(getLinkSegment("1"));
+
+      StaticLtmTrafficAssignmentBuilder sLTMBuilder = new StaticLtmTrafficAssignmentBuilder(network.getIdGroupingToken(), null, createDemands(), zoning, network);
+      sLTMBuilder.getConfigurator().deactivateOutput(OutputType.LINK);
+      StaticLtm sLTM = sLTMBuilder.build();
+      sLTM.setScenarioOverlay(overlay);
+
+      assertThrows(PlanItException.class, sLTM::execute);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing rejection of scenario overlay by sLTM");
+    }
+  }
+
+}
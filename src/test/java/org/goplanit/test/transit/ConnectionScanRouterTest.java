@@ -0,0 +1,323 @@
+package org.goplanit.test.transit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.algorithms.transit.ConnectionScanRouter;
+import org.goplanit.algorithms.transit.TimetableConnections;
+import org.goplanit.algorithms.transit.TimetableProfile;
+import org.goplanit.algorithms.transit.TimetableSkimGenerator;
+import org.goplanit.algorithms.transit.TimetableSkimType;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.ServiceNetwork;
+import org.goplanit.od.skim.OdSkimMatrix;
+import org.goplanit.service.routed.RoutedServices;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.ServiceNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.service.ServiceLegSegment;
+import org.goplanit.utils.network.layer.service.ServiceNode;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.service.routed.RoutedTripSchedule;
+import org.goplanit.utils.time.ExtendedLocalTime;
+import org.goplanit.utils.zoning.OdZone;
+import org.goplanit.utils.zoning.TransferZone;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test the connection scan router (CSA and rCSA) on a small timetable where the transfer between two lines requires walking via an intermediate stop, i.e., a two-hop footpath
+ * 
+ * @author markr
+ *
+ */
+public class ConnectionScanRouterTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private ServiceNetworkLayer serviceLayer;
+  private RoutedServicesLayer routedServicesLayer;
+  private Zoning zoning;
+  private Mode mode;
+
+  private ServiceNode stopA;
+  private ServiceNode stopB;
+  private ServiceNode stopC;
+  private ServiceNode stopD;
+  private ServiceNode stopX;
+  private ServiceNode stopY;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("ConnectionScanRouterTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /** minimum transfer time used for each footpath */
+  private static final int TRANSFER_SECONDS = 60;
+
+  /**
+   * Seconds of the day
+   * 
+   * @param hour   of the day
+   * @param minute of the hour
+   * @return seconds
+   */
+  private static int seconds(int hour, int minute) {
+    return LocalTime.of(hour, minute).toSecondOfDay();
+  }
+
+  /**
+   * Create a service node on top of a physical link segment, with a leg segment (and leg) between the two
+   * 
+   * @param linkSegment to create service nodes and leg segment for
+   * @return leg segment, its upstream and downstream service nodes are the stops
+   */
+  private ServiceLegSegment createLegSegment(MacroscopicLinkSegment linkSegment) {
+    ServiceNode upstream = serviceLayer.getServiceNodes().getFactory().registerNew();
+    ServiceNode downstream = serviceLayer.getServiceNodes().getFactory().registerNew();
+    var leg = serviceLayer.getLegs().getFactory().registerNew(upstream, downstream, true);
+    return serviceLayer.getLegSegments().getFactory().registerNew(leg, true, List.of(linkSegment), true);
+  }
+
+  /**
+   * Create a service with a single leg segment and the given departures
+   * 
+   * @param legSegment      of the service
+   * @param durationMinutes of the leg segment
+   * @param departures      of the service
+   */
+  private void createService(ServiceLegSegment legSegment, int durationMinutes, LocalTime... departures) {
+    var service = routedServicesLayer.getServicesByMode(mode).getFactory().registerNew();
+    RoutedTripSchedule schedule = service.getTripInfo().getScheduleBasedTrips().getFactory().registerNew();
+    schedule.addRelativeLegSegmentTiming(legSegment, LocalTime.of(0, durationMinutes), LocalTime.MIN);
+    for (LocalTime departure : departures) {
+      schedule.getDepartures().getFactory().registerNew(ExtendedLocalTime.of(departure));
+    }
+  }
+
+  /**
+   * Create a transfer connectoid for the given zone at the upstream or downstream node of the link segment
+   * 
+   * @param zone                 to connect
+   * @param linkSegment          to access
+   * @param downstreamAccessNode when true access is at the downstream node, otherwise at the upstream node
+   */
+  private void createTransferConnectoid(TransferZone zone, MacroscopicLinkSegment linkSegment, boolean downstreamAccessNode) {
+    zoning.getTransferConnectoids().getFactory().registerNew(downstreamAccessNode, linkSegment, zone, 0.0);
+  }
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(ConnectionScanRouterTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  //@formatter:off
+  @BeforeEach
+  public void intialise() {
+    // construct the network, three lines A->B, C->D and X->Y on separate physical links. 
+    // Stops B and X share transfer zone 1, stops X and C share transfer zone 2, so
+    // transferring from B to C requires walking via X (two hops)
+    //
+    //  A *--- line 1 --->* B 
+    //                    |  transfer zone 1
+    //                  X *--- line 3 --->* Y
+    //                    |  transfer zone 2
+    //                  C *--- line 2 --->* D
+    //
+    try {
+      GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+
+      network = new MacroscopicNetwork(testToken);
+      mode = network.getModes().getFactory().registerNew(PredefinedModeType.BUS);
+      networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+      Node[] nodes = new Node[6];
+      for (int index = 0; index < nodes.length; ++index) {
+        nodes[index] = networkLayer.getNodes().getFactory().registerNew();
+        nodes[index].setXmlId(String.valueOf(index));
+        nodes[index].setPosition(geoFactory.createPoint(new Coordinate((index % 2) * 1000, (index / 2) * 1000)));
+      }
+      var linkType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 80, mode);
+      MacroscopicLinkSegment[] linkSegments = new MacroscopicLinkSegment[3];
+      for (int index = 0; index < linkSegments.length; ++index) {
+        var link = networkLayer.getLinks().getFactory().registerNew(nodes[2 * index], nodes[2 * index + 1], 1, true);
+        linkSegments[index] = networkLayer.getLinkSegments().getFactory().registerNew(link, linkType, true, true);
+      }
+
+      ServiceNetwork serviceNetwork = new ServiceNetwork(testToken, network);
+      serviceLayer = serviceNetwork.getTransportLayers().getFactory().registerNew(networkLayer);
+      ServiceLegSegment line1 = createLegSegment(linkSegments[0]);
+      ServiceLegSegment line3 = createLegSegment(linkSegments[1]);
+      ServiceLegSegment line2 = createLegSegment(linkSegments[2]);
+      stopA = line1.getUpstreamServiceNode();
+      stopB = line1.getDownstreamServiceNode();
+      stopX = line3.getUpstreamServiceNode();
+      stopY = line3.getDownstreamServiceNode();
+      stopC = line2.getUpstreamServiceNode();
+      stopD = line2.getDownstreamServiceNode();
+
+      RoutedServices routedServices = new RoutedServices(testToken, serviceNetwork);
+      routedServicesLayer = routedServices.getLayers().getFactory().registerNew(serviceLayer);
+      createService(line1, 5, LocalTime.of(8, 0), LocalTime.of(8, 30));
+      createService(line2, 10, LocalTime.of(8, 20), LocalTime.of(8, 50));
+      createService(line3, 5, LocalTime.of(9, 0));
+
+      zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+      TransferZone transferZone1 = zoning.getTransferZones().getFactory().registerNew();
+      TransferZone transferZone2 = zoning.getTransferZones().getFactory().registerNew();
+      createTransferConnectoid(transferZone1, linkSegments[0], true /* B */);
+      createTransferConnectoid(transferZone1, linkSegments[1], false /* X */);
+      createTransferConnectoid(transferZone2, linkSegments[1], false /* X */);
+      createTransferConnectoid(transferZone2, linkSegments[2], false /* C */);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("initialise");
+    }
+  }
+  //@formatter:on
+
+  /**
+   * Footpaths must be transitively closed: B reaches C by walking via X
+   */
+  @Test
+  public void footpathClosureTest() {
+    try {
+      TimetableConnections timetable = TimetableConnections.compile(routedServicesLayer, zoning, TimetableConnections.DEFAULT_WALKING_SPEED_KMH, TRANSFER_SECONDS);
+      int b = timetable.getStopIndex(stopB);
+      int c = timetable.getStopIndex(stopC);
+
+      int footpathDuration = -1;
+      int footpathWalkingSeconds = -1;
+      for (int footpath = timetable.getFootpathsOffset(b); footpath < timetable.getFootpathsOffset(b + 1); ++footpath) {
+        if (timetable.getFootpathTarget(footpath) == c) {
+          footpathDuration = timetable.getFootpathDuration(footpath);
+          footpathWalkingSeconds = timetable.getFootpathWalkingSeconds(footpath);
+        }
+      }
+      assertEquals(2 * TRANSFER_SECONDS, footpathDuration);
+      /* connectoids have zero length, so the duration consists of minimum transfer time only */
+      assertEquals(0, footpathWalkingSeconds);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing footpath closure");
+    }
+  }
+
+  /**
+   * Earliest arrival (CSA) from A, transferring from line 1 to line 2 via a two-hop walk
+   */
+  @Test
+  public void earliestArrivalTwoHopTransferTest() {
+    try {
+      TimetableConnections timetable = TimetableConnections.compile(routedServicesLayer, zoning, TimetableConnections.DEFAULT_WALKING_SPEED_KMH, TRANSFER_SECONDS);
+      ConnectionScanRouter router = new ConnectionScanRouter(timetable);
+      router.oneToAll(timetable.getStopIndex(stopA), seconds(7, 55));
+
+      assertEquals(seconds(8, 5), router.getEarliestArrivalTime(timetable.getStopIndex(stopB)));
+      assertEquals(seconds(8, 5) + TRANSFER_SECONDS, router.getEarliestArrivalTime(timetable.getStopIndex(stopX)));
+      assertEquals(seconds(8, 5) + 2 * TRANSFER_SECONDS, router.getEarliestArrivalTime(timetable.getStopIndex(stopC)));
+      assertEquals(1, router.getNumberOfBoardings(timetable.getStopIndex(stopC)));
+
+      assertEquals(seconds(8, 30), router.getEarliestArrivalTime(timetable.getStopIndex(stopD)));
+      assertEquals(2, router.getNumberOfBoardings(timetable.getStopIndex(stopD)));
+      assertEquals(15 * 60, router.getInVehicleSeconds(timetable.getStopIndex(stopD)));
+      /* minimum transfer time of the walk from B to C is not walking time */
+      assertEquals(0, router.getWalkingSeconds(timetable.getStopIndex(stopC)));
+      assertEquals(0, router.getWalkingSeconds(timetable.getStopIndex(stopD)));
+
+      assertEquals(seconds(9, 5), router.getEarliestArrivalTime(timetable.getStopIndex(stopY)));
+
+      /* departing after the second departure of line 1, nothing is reachable by transit */
+      router.oneToAll(timetable.getStopIndex(stopA), seconds(8, 31));
+      assertEquals(ConnectionScanRouter.UNREACHABLE, router.getEarliestArrivalTime(timetable.getStopIndex(stopD)));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing earliest arrival CSA");
+    }
+  }
+
+  /**
+   * Profile (rCSA) from A, each departure of line 1 connects to a different departure of line 2 via the two-hop walk
+   */
+  @Test
+  public void profileTwoHopTransferTest() {
+    try {
+      TimetableConnections timetable = TimetableConnections.compile(routedServicesLayer, zoning, TimetableConnections.DEFAULT_WALKING_SPEED_KMH, TRANSFER_SECONDS);
+      ConnectionScanRouter router = new ConnectionScanRouter(timetable);
+      int a = timetable.getStopIndex(stopA);
+      int d = timetable.getStopIndex(stopD);
+      TimetableProfile profile = router.profile(new int[] { a }, new int[] { 0 }, seconds(7, 0), seconds(9, 0), ConnectionScanRouter.UNREACHABLE - 1);
+
+      assertEquals(2, profile.getNumberOfEntries(d));
+      assertEquals(seconds(8, 30), profile.getDepartureTime(d, 0));
+      assertEquals(seconds(9, 0), profile.getArrivalTime(d, 0));
+      assertEquals(seconds(8, 0), profile.getDepartureTime(d, 1));
+      assertEquals(seconds(8, 30), profile.getArrivalTime(d, 1));
+
+      assertEquals(seconds(8, 30), profile.getEarliestArrivalTime(d, seconds(7, 30)));
+      assertEquals(seconds(9, 0), profile.getEarliestArrivalTime(d, seconds(8, 10)));
+      assertEquals(ConnectionScanRouter.UNREACHABLE, profile.getEarliestArrivalTime(d, seconds(8, 45)));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing profile rCSA");
+    }
+  }
+
+  /**
+   * Skims from an od zone at A to an od zone at D for a single departure at 7:55: 35 minutes travel time of which 15 in-vehicle, one transfer, and 20 minutes waiting
+   * (5 at A, 13 at C and the two minimum transfer times of the walk from B to C). The reverse direction is not served
+   */
+  @Test
+  public void timetableSkimTest() {
+    try {
+      OdZone originZone = zoning.getOdZones().getFactory().registerNew();
+      OdZone destinationZone = zoning.getOdZones().getFactory().registerNew();
+      zoning.getOdConnectoids().getFactory().registerNew(networkLayer.getNodes().getByXmlId("0") /* A */, originZone, 0);
+      zoning.getOdConnectoids().getFactory().registerNew(networkLayer.getNodes().getByXmlId("5") /* D */, destinationZone, 0);
+
+      TimetableConnections timetable = TimetableConnections.compile(routedServicesLayer, zoning, TimetableConnections.DEFAULT_WALKING_SPEED_KMH, TRANSFER_SECONDS);
+      TimetableSkimGenerator skimGenerator = new TimetableSkimGenerator(timetable, zoning);
+      var skims = skimGenerator.generate(seconds(7, 55), seconds(7, 55));
+
+      int origin = (int) originZone.getOdZoneId();
+      int destination = (int) destinationZone.getOdZoneId();
+      OdSkimMatrix travelTime = skims.get(TimetableSkimType.TRAVEL_TIME);
+      assertEquals(35 / 60.0, travelTime.getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+      assertEquals(15 / 60.0, skims.get(TimetableSkimType.IN_VEHICLE_TIME).getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+      assertEquals(20 / 60.0, skims.get(TimetableSkimType.WAIT_TIME).getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+      assertEquals(0, skims.get(TimetableSkimType.ACCESS_EGRESS_TIME).getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+      assertEquals(1, skims.get(TimetableSkimType.TRANSFERS).getPrimitiveValue(origin, destination), Precision.EPSILON_6);
+
+      assertEquals(0, travelTime.getPrimitiveValue(origin, origin), Precision.EPSILON_6);
+      assertTrue(Double.isInfinite(travelTime.getPrimitiveValue(destination, origin)));
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing timetable skims");
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package org.goplanit.test.transit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.geotools.geometry.jts.JTSFactoryFinder;
+import org.goplanit.algorithms.transit.FrequencyBasedTransitGraph;
+import org.goplanit.algorithms.transit.OptimalStrategies;
+import org.goplanit.assignment.transit.FrequencyBasedTransitAssignment;
+import org.goplanit.assignment.transit.FrequencyBasedTransitAssignmentBuilder;
+import org.goplanit.assignment.transit.FrequencyBasedTransitAssignmentConfigurator;
+import org.goplanit.demands.Demands;
+import org.goplanit.logging.Logging;
+import org.goplanit.network.MacroscopicNetwork;
+import org.goplanit.network.ServiceNetwork;
+import org.goplanit.od.demand.OdDemandMatrix;
+import org.goplanit.od.demand.OdDemands;
+import org.goplanit.service.routed.RoutedServices;
+import org.goplanit.utils.id.IdGenerator;
+import org.goplanit.utils.id.IdGroupingToken;
+import org.goplanit.utils.math.Precision;
+import org.goplanit.utils.mode.Mode;
+import org.goplanit.utils.mode.PredefinedModeType;
+import org.goplanit.utils.network.layer.MacroscopicNetworkLayer;
+import org.goplanit.utils.network.layer.ServiceNetworkLayer;
+import org.goplanit.utils.network.layer.macroscopic.MacroscopicLinkSegment;
+import org.goplanit.utils.network.layer.physical.Node;
+import org.goplanit.utils.network.layer.service.ServiceLegSegment;
+import org.goplanit.utils.network.layer.service.ServiceNode;
+import org.goplanit.utils.service.routed.RoutedServicesLayer;
+import org.goplanit.utils.service.routed.RoutedTripFrequency;
+import org.goplanit.zoning.Zoning;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+/**
+ * Test the frequency based transit assignment (Spiess and Florian optimal strategies) on the textbook example of two lines serving the same origin and destination stop, where the
+ * slower but more frequent line may or may not be attractive depending on its in-vehicle time
+ * 
+ * @author markr
+ *
+ */
+public class FrequencyBasedTransitAssignmentTest {
+
+  private MacroscopicNetwork network;
+  private MacroscopicNetworkLayer networkLayer;
+  private ServiceNetworkLayer serviceLayer;
+  private RoutedServices routedServices;
+  private RoutedServicesLayer routedServicesLayer;
+  private Zoning zoning;
+  private Mode mode;
+
+  private MacroscopicLinkSegment[] linkSegments;
+  private ServiceLegSegment line1Segment;
+  private ServiceLegSegment line2FirstSegment;
+  private ServiceLegSegment line2SecondSegment;
+  private ServiceNode stopA;
+
+  private final IdGroupingToken testToken = IdGenerator.createIdGroupingToken("FrequencyBasedTransitAssignmentTest");
+
+  /** the logger */
+  private static Logger LOGGER = null;
+
+  /** frequency of line 1 per hour */
+  private static final double LINE1_FREQUENCY = 6;
+
+  /** in-vehicle minutes of line 1 */
+  private static final double LINE1_MINUTES = 20;
+
+  /** frequency of line 2 per hour */
+  private static final double LINE2_FREQUENCY = 12;
+
+  /** demand from origin to destination per hour */
+  private static final double DEMAND = 900;
+
+  /**
+   * Create a leg segment between two service nodes on top of a physical link segment
+   * 
+   * @param upstream    service node
+   * @param downstream  service node
+   * @param linkSegment to traverse
+   * @return leg segment
+   */
+  private ServiceLegSegment createLegSegment(ServiceNode upstream, ServiceNode downstream, MacroscopicLinkSegment linkSegment) {
+    var leg = serviceLayer.getLegs().getFactory().registerNew(upstream, downstream, true);
+    return serviceLayer.getLegSegments().getFactory().registerNew(leg, true, List.of(linkSegment), true);
+  }
+
+  /**
+   * Create a frequency based service
+   * 
+   * @param frequencyPerHour of the trip
+   * @param legSegments      of the trip in order
+   */
+  private void createService(double frequencyPerHour, ServiceLegSegment... legSegments) {
+    var service = routedServicesLayer.getServicesByMode(mode).getFactory().registerNew();
+    RoutedTripFrequency trip = service.getTripInfo().getFrequencyBasedTrips().getFactory().registerNew();
+    for (ServiceLegSegment legSegment : legSegments) {
+      trip.addLegSegment(legSegment);
+    }
+    trip.setFrequencyPerHour(frequencyPerHour);
+  }
+
+  /**
+   * Create demands of {@link #DEMAND} from O to D
+   * 
+   * @return created demands
+   */
+  private Demands createDemands() {
+    Demands demands = new Demands(testToken);
+    demands.timePeriods.getFactory().registerNew("dummyTimePeriod", 0, 3600);
+    demands.travelerTypes.getFactory().registerNew("dummyTravellerType");
+    demands.userClasses.getFactory().registerNew("dummyUser", mode, demands.travelerTypes.getFirst());
+
+    OdDemands odDemands = new OdDemandMatrix(zoning.getOdZones());
+    odDemands.setValue(zoning.getOdZones().getByXmlId("O"), zoning.getOdZones().getByXmlId("D"), DEMAND);
+    demands.registerOdDemandPcuHour(demands.timePeriods.getFirst(), mode, odDemands);
+    return demands;
+  }
+
+  //@formatter:off
+  /**
+   * Construct the network, line 1 runs directly from A to B, line 2 runs from A to B via C. Link lengths are chosen such that in-vehicle times (based on the mode's maximum
+   * speed) equal the given minutes
+   *
+   * <pre>
+   *             line 1
+   *  O -- A *-------------->* B -- D
+   *          \             /
+   *    line 2 \--->* C --->/
+   * </pre>
+   *
+   * @param line2Minutes in-vehicle minutes of line 2 from A to B
+   */
+  private void createTwoLineNetwork(double line2Minutes) {
+    GeometryFactory geoFactory = JTSFactoryFinder.getGeometryFactory();
+
+    network = new MacroscopicNetwork(testToken);
+    mode = network.getModes().getFactory().registerNew(PredefinedModeType.BUS);
+    networkLayer = network.getTransportLayers().getFactory().registerNew(mode);
+
+    Node[] nodes = new Node[3];
+    for (int index = 0; index < nodes.length; ++index) {
+      nodes[index] = networkLayer.getNodes().getFactory().registerNew();
+      nodes[index].setXmlId(String.valueOf(index));
+      nodes[index].setPosition(geoFactory.createPoint(new Coordinate(index * 1000, index == 2 ? -1000 : 0)));
+    }
+    Node nodeA = nodes[0];
+    Node nodeB = nodes[1];
+    Node nodeC = nodes[2];
+
+    double kmPerMinute = mode.getMaximumSpeedKmH() / 60.0;
+    var linkType = networkLayer.getLinkSegmentTypes().getFactory().registerNew("MainType", 2000, 180, mode);
+    var linkAB = networkLayer.getLinks().getFactory().registerNew(nodeA, nodeB, LINE1_MINUTES * kmPerMinute, true);
+    var linkAC = networkLayer.getLinks().getFactory().registerNew(nodeA, nodeC, line2Minutes / 2 * kmPerMinute, true);
+    var linkCB = networkLayer.getLinks().getFactory().registerNew(nodeC, nodeB, line2Minutes / 2 * kmPerMinute, true);
+    linkSegments = new MacroscopicLinkSegment[] {
+        networkLayer.getLinkSegments().getFactory().registerNew(linkAB, linkType, true, true),
+        networkLayer.getLinkSegments().getFactory().registerNew(linkAC, linkType, true, true),
+        networkLayer.getLinkSegments().getFactory().registerNew(linkCB, linkType, true, true)};
+
+    ServiceNetwork serviceNetwork = new ServiceNetwork(testToken, network);
+    serviceLayer = serviceNetwork.getTransportLayers().getFactory().registerNew(networkLayer);
+    stopA = serviceLayer.getServiceNodes().getFactory().registerNew();
+    ServiceNode stopB = serviceLayer.getServiceNodes().getFactory().registerNew();
+    ServiceNode stopC = serviceLayer.getServiceNodes().getFactory().registerNew();
+    line1Segment = createLegSegment(stopA, stopB, linkSegments[0]);
+    line2FirstSegment = createLegSegment(stopA, stopC, linkSegments[1]);
+    line2SecondSegment = createLegSegment(stopC, stopB, linkSegments[2]);
+
+    routedServices = new RoutedServices(testToken, serviceNetwork);
+    routedServicesLayer = routedServices.getLayers().getFactory().registerNew(serviceLayer);
+    createService(LINE1_FREQUENCY, line1Segment);
+    createService(LINE2_FREQUENCY, line2FirstSegment, line2SecondSegment);
+
+    zoning = new Zoning(testToken, networkLayer.getLayerIdGroupingToken());
+    zoning.getOdZones().getFactory().registerNew().setXmlId("O");
+    zoning.getOdZones().getFactory().registerNew().setXmlId("D");
+    zoning.getOdConnectoids().getFactory().registerNew(nodeA, zoning.getOdZones().getByXmlId("O"), 0);
+    zoning.getOdConnectoids().getFactory().registerNew(nodeB, zoning.getOdZones().getByXmlId("D"), 0);
+  }
+  //@formatter:on
+
+  @BeforeAll
+  public static void setUp() throws Exception {
+    if (LOGGER == null) {
+      LOGGER = Logging.createLogger(FrequencyBasedTransitAssignmentTest.class);
+    }
+  }
+
+  @AfterAll
+  public static void tearDown() {
+    Logging.closeLogger(LOGGER);
+  }
+
+  /**
+   * Line 2 takes 25 minutes, which is less than the 30 minutes of waiting for (10) and travelling with (20) line 1, so both lines are attractive. Passengers board the first
+   * arriving line, so flows split proportional to frequency (1/3 and 2/3) and the expected cost is (1 + 6 * 20/60 + 12 * 25/60) / 18 hours, i.e., 26.67 minutes
+   */
+  @Test
+  public void bothLinesAttractiveTest() {
+    try {
+      createTwoLineNetwork(25);
+      FrequencyBasedTransitGraph graph = FrequencyBasedTransitGraph.compile(routedServicesLayer, mode, zoning);
+      OptimalStrategies strategies = new OptimalStrategies(graph);
+      strategies.computeStrategy((int) zoning.getOdZones().getByXmlId("D").getOdZoneId());
+      assertEquals((1 + LINE1_FREQUENCY * LINE1_MINUTES / 60 + LINE2_FREQUENCY * 25 / 60.0) / (LINE1_FREQUENCY + LINE2_FREQUENCY),
+          strategies.getExpectedCost((int) zoning.getOdZones().getByXmlId("O").getOdZoneId()), Precision.EPSILON_6);
+
+      FrequencyBasedTransitAssignmentBuilder builder = new FrequencyBasedTransitAssignmentBuilder(testToken, null, createDemands(), zoning, network);
+      ((FrequencyBasedTransitAssignmentConfigurator) builder.getConfigurator()).setRoutedServices(routedServices);
+      FrequencyBasedTransitAssignment assignment = builder.build();
+      assignment.execute();
+
+      double[] legSegmentFlows = assignment.getLegSegmentFlows(mode);
+      assertEquals(DEMAND / 3, legSegmentFlows[(int) line1Segment.getId()], Precision.EPSILON_6);
+      assertEquals(2 * DEMAND / 3, legSegmentFlows[(int) line2FirstSegment.getId()], Precision.EPSILON_6);
+      assertEquals(2 * DEMAND / 3, legSegmentFlows[(int) line2SecondSegment.getId()], Precision.EPSILON_6);
+      assertEquals(DEMAND, assignment.getBoardings(mode)[(int) stopA.getId()], Precision.EPSILON_6);
+
+      double[] linkSegmentFlows = assignment.getLinkSegmentFlows(mode);
+      assertEquals(DEMAND / 3, linkSegmentFlows[(int) linkSegments[0].getId()], Precision.EPSILON_6);
+      assertEquals(2 * DEMAND / 3, linkSegmentFlows[(int) linkSegments[1].getId()], Precision.EPSILON_6);
+      assertEquals(2 * DEMAND / 3, linkSegmentFlows[(int) linkSegments[2].getId()], Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing frequency based transit assignment with two attractive lines");
+    }
+  }
+
+  /**
+   * Line 2 takes 35 minutes, which exceeds the 30 minutes of waiting for (10) and travelling with (20) line 1, so only line 1 is attractive and carries all demand
+   */
+  @Test
+  public void singleLineAttractiveTest() {
+    try {
+      createTwoLineNetwork(35);
+      FrequencyBasedTransitGraph graph = FrequencyBasedTransitGraph.compile(routedServicesLayer, mode, zoning);
+      OptimalStrategies strategies = new OptimalStrategies(graph);
+      strategies.computeStrategy((int) zoning.getOdZones().getByXmlId("D").getOdZoneId());
+      assertEquals((1 + LINE1_FREQUENCY * LINE1_MINUTES / 60) / LINE1_FREQUENCY, strategies.getExpectedCost((int) zoning.getOdZones().getByXmlId("O").getOdZoneId()),
+          Precision.EPSILON_6);
+
+      FrequencyBasedTransitAssignmentBuilder builder = new FrequencyBasedTransitAssignmentBuilder(testToken, null, createDemands(), zoning, network);
+      ((FrequencyBasedTransitAssignmentConfigurator) builder.getConfigurator()).setRoutedServices(routedServices);
+      FrequencyBasedTransitAssignment assignment = builder.build();
+      assignment.execute();
+
+      double[] legSegmentFlows = assignment.getLegSegmentFlows(mode);
+      assertEquals(DEMAND, legSegmentFlows[(int) line1Segment.getId()], Precision.EPSILON_6);
+      assertEquals(0, legSegmentFlows[(int) line2FirstSegment.getId()], Precision.EPSILON_6);
+      assertEquals(0, legSegmentFlows[(int) line2SecondSegment.getId()], Precision.EPSILON_6);
+      assertEquals(DEMAND, assignment.getBoardings(mode)[(int) stopA.getId()], Precision.EPSILON_6);
+    } catch (Exception e) {
+      e.printStackTrace();
+      fail("Error when testing frequency based transit assignment with a single attractive line");
+    }
+  }
+}